@@ -33,6 +33,7 @@ import java.util.zip.Deflater;
 
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.crawler.data.Cache;
+import net.yacy.kelondro.blob.Codec;
 import net.yacy.search.Switchboard;
 import net.yacy.search.SwitchboardConstants;
 import net.yacy.server.serverObjects;
@@ -71,6 +72,14 @@ public class ConfigHTCache_p {
 			env.setConfig(SwitchboardConstants.HTCACHE_COMPRESSION_LEVEL, newCompressionLevel);
 			Cache.setCompressionLevel(newCompressionLevel);
 			
+			/* Codec and dictionaries */
+			final String newCodec = Codec.forName(post.get("codec", SwitchboardConstants.HTCACHE_CODEC_DEFAULT)).getName();
+			env.setConfig(SwitchboardConstants.HTCACHE_CODEC, newCodec);
+			Cache.setCodec(newCodec);
+			final boolean newUseDictionaries = "on".equals(post.get("dictionaries", ""));
+			env.setConfig(SwitchboardConstants.HTCACHE_DICTIONARIES, newUseDictionaries);
+			Cache.setUseDictionaries(newUseDictionaries);
+			
             /* Synchronization lock timeout */
 			final long newLockTimeout = Math.max(10, Math.min(60000,
 					post.getLong("lockTimeout", SwitchboardConstants.HTCACHE_SYNC_LOCK_TIMEOUT_DEFAULT)));
@@ -112,6 +121,12 @@ public class ConfigHTCache_p {
         }
         prop.put("compressionLevels", levelsCount);
         
+        final String configuredCodec = env.getConfig(SwitchboardConstants.HTCACHE_CODEC, SwitchboardConstants.HTCACHE_CODEC_DEFAULT);
+        prop.put("codec_gzip", Codec.GZIP.getName().equals(configuredCodec) ? 1 : 0);
+        prop.put("codec_lz4", Codec.LZ4.getName().equals(configuredCodec) ? 1 : 0);
+        prop.put("dictionaries", env.getConfigBool(SwitchboardConstants.HTCACHE_DICTIONARIES,
+        		SwitchboardConstants.HTCACHE_DICTIONARIES_DEFAULT) ? 1 : 0);
+        
 		prop.put("lockTimeout", env.getConfigLong(SwitchboardConstants.HTCACHE_SYNC_LOCK_TIMEOUT,
 				SwitchboardConstants.HTCACHE_SYNC_LOCK_TIMEOUT_DEFAULT));
         prop.put("actualCacheSize", Cache.getActualCacheSize() / 1024 / 1024);
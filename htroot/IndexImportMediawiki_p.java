@@ -164,7 +164,10 @@ public class IndexImportMediawiki_p {
 							sb.tables.recordAPICall(post, "IndexImportMediawiki_p.html", WorkTables.TABLE_API_TYPE_DUMP, "MediaWiki Dump Import for " + sourceURL);
 						}
 						
-						MediawikiImporter.job = new MediawikiImporter(sourceURL, sb.surrogatesInPath);
+						/* an interrupted import of the same dump is resumed after the last article of its checkpoint */
+						MediawikiImporter.job = new MediawikiImporter(sourceURL, sb.surrogatesInPath,
+								new File(sb.workPath, "mediawikiImport.checkpoint"),
+								Math.max(2, Runtime.getRuntime().availableProcessors() - 1), 10000);
 						MediawikiImporter.job.start();
 						prop.put("import_dump", MediawikiImporter.job.source());
 						prop.put("import_thread", 1);
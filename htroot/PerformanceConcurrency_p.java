@@ -19,16 +19,25 @@
 // along with this program; if not, write to the Free Software
 // Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 
 import net.yacy.cora.protocol.RequestHeader;
+import net.yacy.document.ParsedDocumentCache;
+import net.yacy.document.ParserSandbox;
+import net.yacy.document.TextParser;
 import net.yacy.kelondro.workflow.WorkflowProcessor;
+import net.yacy.search.IndexingLanes;
+import net.yacy.search.Switchboard;
 import net.yacy.server.serverObjects;
 import net.yacy.server.serverSwitch;
 
 public class PerformanceConcurrency_p {
 
-    public static serverObjects respond(@SuppressWarnings("unused") final RequestHeader header, @SuppressWarnings("unused") final serverObjects post, @SuppressWarnings("unused") final serverSwitch sb) {
+    public static serverObjects respond(@SuppressWarnings("unused") final RequestHeader header, @SuppressWarnings("unused") final serverObjects post, final serverSwitch sb) {
         // return variable that accumulates replacements
         final serverObjects prop = new serverObjects();
 
@@ -88,6 +97,67 @@ public class PerformanceConcurrency_p {
             c++;
         }
         prop.put("table", c);
+
+        // latency of the indexing lanes
+        c = 0;
+        final IndexingLanes lanes = ((Switchboard) sb).indexingDocumentProcessor;
+        if (lanes != null) {
+            for (final IndexingLanes.Lane lane: lanes.getLanes()) {
+                prop.put("lanes_" + c + "_lanename", lane.costClass.laneName());
+                prop.putHTML("lanes_" + c + "_description", lane.costClass.description);
+                prop.put("lanes_" + c + "_queuesize", lane.processor.getQueueSize());
+                prop.put("lanes_" + c + "_concurrency", lane.processor.getMaxConcurrency());
+                prop.putNum("lanes_" + c + "_count", lane.latency.getCount());
+                prop.putNum("lanes_" + c + "_average", lane.latency.getAverage());
+                prop.putNum("lanes_" + c + "_p50", lane.latency.getQuantile(0.5));
+                prop.putNum("lanes_" + c + "_p90", lane.latency.getQuantile(0.9));
+                prop.putNum("lanes_" + c + "_p99", lane.latency.getQuantile(0.99));
+                prop.putNum("lanes_" + c + "_max", lane.latency.getMax());
+                c++;
+            }
+        }
+        prop.put("lanes", c);
+
+        // costs of the parsers
+        final ParserSandbox sandbox = TextParser.getSandbox();
+        prop.putNum("parserRunning", sandbox.getRunning());
+        prop.putNum("parserAbandoned", sandbox.getAbandoned());
+        prop.putNum("parserProcesses", sandbox.getProcesses());
+        final ParsedDocumentCache parsedDocuments = TextParser.getParsedDocumentCache();
+        if (parsedDocuments == null) {
+            prop.put("parsedCache", 0);
+        } else {
+            prop.put("parsedCache", 1);
+            prop.putNum("parsedCache_count", parsedDocuments.getCount());
+            prop.putNum("parsedCache_size", parsedDocuments.getSize() / 1024L);
+            prop.putNum("parsedCache_budget", parsedDocuments.getBudget() / 1024L);
+            prop.putNum("parsedCache_hits", parsedDocuments.hits.get());
+            prop.putNum("parsedCache_misses", parsedDocuments.misses.get());
+        }
+        final List<ParserSandbox.Cost> costs = new ArrayList<ParserSandbox.Cost>(sandbox.getCosts());
+        Collections.sort(costs, new Comparator<ParserSandbox.Cost>() {
+            @Override
+            public int compare(final ParserSandbox.Cost o1, final ParserSandbox.Cost o2) {
+                return Long.compare(o2.wallMillis.get(), o1.wallMillis.get());
+            }
+        });
+        c = 0;
+        for (final ParserSandbox.Cost cost: costs) {
+            final long count = Math.max(1, cost.count.get());
+            final long inThread = Math.max(1, cost.count.get() - cost.isolated.get());
+            prop.put("parsers_" + c + "_class", c % 2);
+            prop.putHTML("parsers_" + c + "_parsername", cost.parserName);
+            prop.putNum("parsers_" + c + "_count", cost.count.get());
+            prop.putNum("parsers_" + c + "_failures", cost.failures.get());
+            prop.putNum("parsers_" + c + "_cancelled", cost.cancelled.get());
+            prop.putNum("parsers_" + c + "_isolated", cost.isolated.get());
+            prop.putNum("parsers_" + c + "_cputime", cost.cpuNanos.get() / 1000000L / inThread);
+            prop.putNum("parsers_" + c + "_allocated", cost.allocatedBytes.get() / 1024L / inThread);
+            prop.putNum("parsers_" + c + "_time", cost.wallMillis.get() / count);
+            prop.putNum("parsers_" + c + "_maxtime", cost.maxWallMillis.get());
+            c++;
+        }
+        prop.put("parsers", c);
         // return rewrite values for templates
         return prop;
     }
@@ -29,6 +29,7 @@ import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.Map;
 
+import net.yacy.cora.federate.solr.connector.SolrQueryResultCache;
 import net.yacy.cora.protocol.Domains;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.util.ConcurrentLog;
@@ -214,6 +215,17 @@ public class PerformanceMemory_p {
         prop.putNum("searchevent.miss", SearchEventCache.cacheMiss);
         prop.putNum("searchevent.insert", SearchEventCache.cacheInsert);
         prop.putNum("searchevent.delete", SearchEventCache.cacheDelete);
+        prop.putNum("solrresultcache.docs.size", SolrQueryResultCache.docSize());
+        prop.putNum("solrresultcache.docs.hit", SolrQueryResultCache.docHit.get());
+        prop.putNum("solrresultcache.docs.miss", SolrQueryResultCache.docMiss.get());
+        prop.putNum("solrresultcache.docs.insert", SolrQueryResultCache.docInsert.get());
+        prop.putNum("solrresultcache.docs.delete", SolrQueryResultCache.docDelete.get());
+        prop.putNum("solrresultcache.facets.size", SolrQueryResultCache.facetSize());
+        prop.putNum("solrresultcache.facets.hit", SolrQueryResultCache.facetHit.get());
+        prop.putNum("solrresultcache.facets.miss", SolrQueryResultCache.facetMiss.get());
+        prop.putNum("solrresultcache.facets.insert", SolrQueryResultCache.facetInsert.get());
+        prop.putNum("solrresultcache.facets.delete", SolrQueryResultCache.facetDelete.get());
+        prop.putNum("solrresultcache.mem", SolrQueryResultCache.bytes() / (1024d * 1024d));
         // return rewrite values for templates
         return prop;
     }
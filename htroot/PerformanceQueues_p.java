@@ -34,6 +34,7 @@ import net.yacy.cora.federate.solr.instance.RemoteInstance;
 import net.yacy.cora.protocol.ConnectionInfo;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.protocol.http.HTTPClient;
+import net.yacy.cora.protocol.http.PersistentHTTPClient;
 import net.yacy.data.TransactionManager;
 import net.yacy.kelondro.data.word.WordReference;
 import net.yacy.kelondro.rwi.IndexCell;
@@ -327,6 +328,14 @@ public class PerformanceQueues_p {
 				sb.setConfig(SwitchboardConstants.HTTP_OUTGOING_POOL_REMOTE_SOLR_MAX_TOTAL, maxTotal);
 				RemoteInstance.initPoolMaxConnections(RemoteInstance.CONNECTION_MANAGER, maxTotal);
 			}
+
+			/* Configure the peer-to-peer outgoing HTTP connection pool */
+			maxTotal = post.getInt(SwitchboardConstants.HTTP_OUTGOING_POOL_PEERS_MAX_TOTAL,
+					SwitchboardConstants.HTTP_OUTGOING_POOL_PEERS_MAX_TOTAL_DEFAULT);
+			if (maxTotal > 0) {
+				sb.setConfig(SwitchboardConstants.HTTP_OUTGOING_POOL_PEERS_MAX_TOTAL, maxTotal);
+				PersistentHTTPClient.initPoolMaxConnections(PersistentHTTPClient.CONNECTION_MANAGER, maxTotal);
+			}
 		}
 
         if ((post != null) && (post.containsKey("onlineCautionSubmit"))) {
@@ -372,6 +381,9 @@ public class PerformanceQueues_p {
 		prop.put(SwitchboardConstants.HTTP_OUTGOING_POOL_REMOTE_SOLR_MAX_TOTAL,
 				sb.getConfigInt(SwitchboardConstants.HTTP_OUTGOING_POOL_REMOTE_SOLR_MAX_TOTAL,
 						SwitchboardConstants.HTTP_OUTGOING_POOL_REMOTE_SOLR_MAX_TOTAL_DEFAULT));
+		prop.put(SwitchboardConstants.HTTP_OUTGOING_POOL_PEERS_MAX_TOTAL,
+				sb.getConfigInt(SwitchboardConstants.HTTP_OUTGOING_POOL_PEERS_MAX_TOTAL,
+						SwitchboardConstants.HTTP_OUTGOING_POOL_PEERS_MAX_TOTAL_DEFAULT));
 		/* Connection pools stats */
 		PoolStats stats = HTTPClient.CONNECTION_MANAGER.getTotalStats();
 		prop.put("pool.general.leased", stats.getLeased());
@@ -383,6 +395,11 @@ public class PerformanceQueues_p {
 		prop.put("pool.remoteSolr.available", stats.getAvailable());
 		prop.put("pool.remoteSolr.pending", stats.getPending());
 
+		stats = PersistentHTTPClient.CONNECTION_MANAGER.getTotalStats();
+		prop.put("pool.peers.leased", stats.getLeased());
+		prop.put("pool.peers.available", stats.getAvailable());
+		prop.put("pool.peers.pending", stats.getPending());
+
         /* Remote searches max loads settings */
 		prop.put("remoteSearchRWIMaxLoad", sb.getConfigFloat(SwitchboardConstants.REMOTESEARCH_MAXLOAD_RWI,
 				SwitchboardConstants.REMOTESEARCH_MAXLOAD_RWI_DEFAULT));
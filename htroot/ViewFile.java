@@ -52,6 +52,7 @@ import net.yacy.crawler.retrieval.Response;
 import net.yacy.document.Document;
 import net.yacy.document.LibraryProvider;
 import net.yacy.document.Parser;
+import net.yacy.document.ParserSandbox;
 import net.yacy.document.SentenceReader;
 import net.yacy.document.Tokenizer;
 import net.yacy.document.WordTokenizer;
@@ -253,6 +254,7 @@ public class ViewFile {
         } else if (viewMode.equals("parsed") || viewMode.equals("sentences")  || viewMode.equals("words") || viewMode.equals("links")) {
             // parsing the resource content
             Document document = null;
+            final boolean interactive = ParserSandbox.interactive(true);
             try {
                 document = Document.mergeDocuments(response.url(), response.getMimeType(), response.parse());
                 if (document == null) {
@@ -266,6 +268,8 @@ public class ViewFile {
                 prop.putHTML("error_errorText", e.getMessage());
                 prop.put("viewMode", VIEW_MODE_NO_TEXT);
                 return prop;
+            } finally {
+                ParserSandbox.interactive(interactive);
             }
 
             if (viewMode.equals("parsed")) {
@@ -49,6 +49,7 @@ import net.yacy.cora.protocol.ClientIdentification;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.crawler.robots.RobotsTxtEntry;
+import net.yacy.document.ParserSandbox;
 import net.yacy.repository.Blacklist.BlacklistType;
 import net.yacy.search.Switchboard;
 import net.yacy.server.serverObjects;
@@ -138,23 +139,28 @@ public class getpageinfo_p {
                     ConcurrentLog.logException(e);
                 }
                 net.yacy.document.Document scraper = null;
-                if (u != null) try {
-                    ClientIdentification.Agent agent = ClientIdentification.getAgent(post.get("agentName", ClientIdentification.yacyInternetCrawlerAgentName));
-                	
-                	if(post.containsKey("maxBytes")) {
-                		/* A maxBytes limit is specified : let's try to parse only the amount of bytes given */
-                    	final long maxBytes = post.getLong("maxBytes", sb.loader.protocolMaxFileSize(u));
-                        scraper = sb.loader.loadDocumentAsLimitedStream(u, CacheStrategy.IFEXIST, BlacklistType.CRAWLER, agent, maxLinks, maxBytes);
-                	} else {
-                		/* No maxBytes limit : apply regular parsing with default crawler limits. 
-                		 * Eventual maxLinks limit will apply after loading and parsing the document. */
-                		scraper = sb.loader.loadDocumentAsStream(u, CacheStrategy.IFEXIST, BlacklistType.CRAWLER, agent);
-                	}
-
-                } catch (final IOException e) {
-                    ConcurrentLog.logException(e);
-                    // bad things are possible, i.e. that the Server responds with "403 Bad Behavior"
-                    // that should not affect the robots.txt validity
+                if (u != null) {
+                    final boolean interactive = ParserSandbox.interactive(true);
+                    try {
+                        ClientIdentification.Agent agent = ClientIdentification.getAgent(post.get("agentName", ClientIdentification.yacyInternetCrawlerAgentName));
+                    	
+                    	if(post.containsKey("maxBytes")) {
+                    		/* A maxBytes limit is specified : let's try to parse only the amount of bytes given */
+                        	final long maxBytes = post.getLong("maxBytes", sb.loader.protocolMaxFileSize(u));
+                            scraper = sb.loader.loadDocumentAsLimitedStream(u, CacheStrategy.IFEXIST, BlacklistType.CRAWLER, agent, maxLinks, maxBytes);
+                    	} else {
+                    		/* No maxBytes limit : apply regular parsing with default crawler limits. 
+                    		 * Eventual maxLinks limit will apply after loading and parsing the document. */
+                    		scraper = sb.loader.loadDocumentAsStream(u, CacheStrategy.IFEXIST, BlacklistType.CRAWLER, agent);
+                    	}
+
+                    } catch (final IOException e) {
+                        ConcurrentLog.logException(e);
+                        // bad things are possible, i.e. that the Server responds with "403 Bad Behavior"
+                        // that should not affect the robots.txt validity
+                    } finally {
+                        ParserSandbox.interactive(interactive);
+                    }
                 }
                 if (scraper != null) {
                     // put the document title
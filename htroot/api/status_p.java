@@ -40,6 +40,7 @@ import net.yacy.search.Switchboard;
 import net.yacy.search.SwitchboardConstants;
 import net.yacy.search.index.Fulltext;
 import net.yacy.search.index.Segment;
+import net.yacy.search.index.SolrBatchWriter;
 import net.yacy.search.schema.CollectionConfiguration;
 import net.yacy.search.schema.CollectionSchema;
 import net.yacy.search.schema.WebgraphSchema;
@@ -93,6 +94,16 @@ public class status_p {
         prop.putNum("rwipublictextSize", segment.RWICount());
         prop.putNum("rwipublictextSegmentCount", segment.RWISegmentCount());
 
+        // fulltext write batches
+        final SolrBatchWriter batchWriter = fulltext.getBatchWriter();
+        prop.putNum("writeBatchPending", batchWriter == null ? 0 : batchWriter.size());
+        prop.putNum("writeBatchCount", batchWriter == null ? 0 : batchWriter.getBatchCount());
+        prop.putNum("writeBatchLatency", batchWriter == null ? 0 : batchWriter.getAverageLatency());
+        prop.putNum("writeBatchLastLatency", batchWriter == null ? 0 : batchWriter.getLastLatency());
+        prop.putNum("writeBatchDocsPerSecond", batchWriter == null ? 0 : batchWriter.getDocumentsPerSecond());
+        prop.putNum("writeBatchFailed", batchWriter == null ? 0 : batchWriter.getFailedBatchCount());
+        prop.putNum("writeBatchFailedDocs", batchWriter == null ? 0 : batchWriter.getFailedDocumentCount());
+
         // loader queue
         prop.putNum("loaderSize", sb.crawlQueues.activeWorkerEntries().size());
         prop.putNum("loaderMax", sb.getConfigLong(SwitchboardConstants.CRAWLER_THREADS_ACTIVE_MAX, 10));
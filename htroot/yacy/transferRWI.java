@@ -152,6 +152,12 @@ public final class transferRWI {
             sb.getLog().info("Rejecting RWIs from peer " + otherPeerName + ". Not granted. This peer is in robinson mode");
             result = "not_granted";
             pause = 60000;
+        } else if (!sb.index.connectedRWI()) {
+            // the RWI is not loaded yet (or switched off), the entries would have to wait or would be lost
+            sb.getLog().info("Rejecting RWIs from peer " + otherPeerName + ". The RWI index is not connected.");
+            granted = false;
+            result = "busy";
+            pause = 60000;
         } else if (sb.index.RWIBufferCount() > cachelimit) {
             // we are too busy to receive indexes
             sb.getLog().info("Rejecting RWIs from peer " + otherPeerName + ". We are too busy (buffersize=" + sb.index.RWIBufferCount() + ").");
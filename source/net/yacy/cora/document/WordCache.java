@@ -222,6 +222,16 @@ public class WordCache {
         }
     }
 
+    /**
+     * learn a word which is a slice of a char array; a word object is only created for words which are counted
+     */
+    public static void learn(final char[] word, final int offset, final int length) {
+        if (length < commonWordsMinLength) {
+            return;
+        }
+        learn(new StringBuilder(length).append(word, offset, length));
+    }
+
     public static void learn(Collection<String> wordset) {
         for (String s: wordset) {
             learn(new StringBuilder(s));
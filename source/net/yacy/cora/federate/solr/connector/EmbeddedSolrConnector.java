@@ -26,6 +26,7 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -43,6 +44,7 @@ import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.FacetParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.NamedList;
@@ -136,6 +138,7 @@ public class EmbeddedSolrConnector extends SolrServerConnector implements SolrCo
         @SuppressWarnings("unchecked")
         SolrCache<Integer, Document> documentCache = solrConfig.documentCacheConfig == null ? null : solrConfig.documentCacheConfig.newInstance();
         if (documentCache != null) documentCache.clear();
+        SolrQueryResultCache.clear();
     }
     
     public SolrInstance getInstance() {
@@ -319,6 +322,99 @@ public class EmbeddedSolrConnector extends SolrServerConnector implements SolrCo
     @Override
     public QueryResponse getResponseByParams(ModifiableSolrParams params) throws IOException {
         if (this.server == null) throw new IOException("server disconnected");
+        final boolean cacheable = SolrQueryResultCache.isCacheable(params);
+        if (params.get(SolrQueryResultCache.CACHE_PARAM) != null) {
+            // the mark is only read here, it is not passed to Solr
+            params = new ModifiableSolrParams(params);
+            params.remove(SolrQueryResultCache.CACHE_PARAM);
+        }
+        if (!cacheable) return query(params);
+
+        // the generation is read before the query: a result of a newer index is then only stored with an older generation and never served
+        final long generation = getIndexGeneration();
+        final String coreName = this.core.getName();
+        final String docKey = SolrQueryResultCache.docKey(coreName, params);
+        final boolean facets = SolrQueryResultCache.hasFacets(params);
+        final SolrQueryResultCache.DocEntry docs = SolrQueryResultCache.getDocs(docKey, generation);
+        final NamedList<?> facetCounts = facets ? SolrQueryResultCache.getFacets(SolrQueryResultCache.facetKey(coreName, params), generation) : null;
+        if (docs != null && (!facets || facetCounts != null)) {
+            final QueryResponse rsp = cachedResponse(params, docs, facetCounts);
+            if (rsp != null) return rsp;
+            SolrQueryResultCache.removeDocs(docKey);
+        }
+
+        if (facetCounts == null) {
+            final QueryResponse rsp = query(params);
+            SolrQueryResultCache.put(coreName, generation, params, rsp, true, facets);
+            return rsp;
+        }
+        // only the result page is computed, the facets are taken from the cache
+        final ModifiableSolrParams pageParams = new ModifiableSolrParams(params);
+        pageParams.set(FacetParams.FACET, false);
+        final QueryResponse rsp = query(pageParams);
+        SolrQueryResultCache.put(coreName, generation, params, rsp, true, false);
+        final NamedList<Object> response = rsp.getResponse();
+        response.add("facet_counts", facetCounts);
+        return new QueryResponse(response, this.server);
+    }
+
+    /**
+     * @return the version of the index currently opened by the searcher, changed with each commit
+     */
+    private long getIndexGeneration() {
+        RefCounted<SolrIndexSearcher> refCountedIndexSearcher = this.core.getSearcher();
+        try {
+            return refCountedIndexSearcher.get().getIndexReader().getVersion();
+        } finally {
+            refCountedIndexSearcher.decref();
+        }
+    }
+
+    /**
+     * Build a response from cached document ids: the documents are fetched again by their id,
+     * so that the response contains the currently stored fields, in the cached order and with the cached scores.
+     * @return the response or null when the cached documents do not exist any more
+     */
+    private QueryResponse cachedResponse(final ModifiableSolrParams params, final SolrQueryResultCache.DocEntry docs, final NamedList<?> facetCounts) throws IOException {
+        final long start = System.currentTimeMillis();
+        final SolrDocumentList list = new SolrDocumentList();
+        list.setNumFound(docs.numFound);
+        list.setStart(docs.start);
+        list.setMaxScore(docs.maxScore);
+        if (docs.ids.length > 0) {
+            final ModifiableSolrParams idParams = new ModifiableSolrParams();
+            final StringBuilder q = new StringBuilder(docs.ids.length * 17).append(CollectionSchema.id.getSolrFieldName()).append(":(");
+            for (int i = 0; i < docs.ids.length; i++) q.append(i == 0 ? "\"" : " OR \"").append(docs.ids[i]).append('"');
+            idParams.set(CommonParams.Q, q.append(')').toString());
+            idParams.set(CommonParams.ROWS, docs.ids.length);
+            idParams.set(CommonParams.START, 0);
+            final String fl = params.get(CommonParams.FL);
+            if (fl != null) idParams.set(CommonParams.FL, fl);
+            final SolrDocumentList fetched = query(idParams).getResults();
+            if (fetched == null || fetched.size() != docs.ids.length) return null;
+            final Map<String, SolrDocument> byId = new HashMap<>();
+            for (final SolrDocument doc: fetched) byId.put((String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName()), doc);
+            for (int i = 0; i < docs.ids.length; i++) {
+                final SolrDocument doc = byId.get(docs.ids[i]);
+                if (doc == null) return null;
+                if (docs.scores != null) doc.setField("score", docs.scores[i]);
+                list.add(doc);
+            }
+        }
+        final NamedList<Object> header = new SimpleOrderedMap<>();
+        header.add("status", 0);
+        header.add("QTime", (int) (System.currentTimeMillis() - start));
+        header.add("params", params.toNamedList());
+        final NamedList<Object> response = new SimpleOrderedMap<>();
+        response.add("responseHeader", header);
+        response.add("response", list);
+        if (facetCounts != null) response.add("facet_counts", facetCounts);
+        final NamedList<Object> highlighting = docs.highlighting();
+        if (highlighting != null) response.add("highlighting", highlighting);
+        return new QueryResponse(response, this.server);
+    }
+
+    private QueryResponse query(final ModifiableSolrParams params) throws IOException {
         // during the solr query we set the thread name to the query string to get more debugging info in thread dumps
         String threadname = Thread.currentThread().getName();
         String ql = "";
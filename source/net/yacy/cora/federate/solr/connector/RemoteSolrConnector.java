@@ -30,10 +30,14 @@ import net.yacy.cora.federate.solr.instance.ShardInstance;
 
 import org.apache.solr.client.solrj.ResponseParser;
 import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.StreamingResponseCallback;
 import org.apache.solr.client.solrj.impl.BinaryResponseParser;
+import org.apache.solr.client.solrj.impl.StreamingBinaryResponseParser;
 import org.apache.solr.client.solrj.impl.XMLResponseParser;
 import org.apache.solr.client.solrj.request.QueryRequest;
 import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.NamedList;
@@ -132,6 +136,49 @@ public class RemoteSolrConnector extends SolrServerConnector implements SolrConn
         return response;
     }
 
+    /**
+     * Run a query and pass each result document to the callback as soon as it is parsed, without materializing the
+     * whole documents list. With the binary response format, the documents are parsed while the response is received.
+     * With the XML format, the response is fully parsed first and then passed document per document to the callback.
+     * @param params the query parameters
+     * @param callback the receiver of the result documents
+     * @return the query response, without the result documents
+     * @throws IOException when the request failed
+     */
+    public QueryResponse getResponseByParams(final ModifiableSolrParams params, final StreamingResponseCallback callback) throws IOException {
+        if (!this.useBinaryResponseWriter) {
+            final QueryResponse response = getResponseByParams(params);
+            final SolrDocumentList docs = response.getResults();
+            if (docs != null) {
+                callback.streamDocListInfo(docs.getNumFound(), docs.getStart(), docs.getMaxScore());
+                for (final SolrDocument doc: docs) {
+                    callback.streamSolrDocument(doc);
+                }
+                docs.clear();
+            }
+            return response;
+        }
+        String q = params.get(CommonParams.Q);
+        String fq = params.get(CommonParams.FQ);
+        String threadname = Thread.currentThread().getName();
+        if (q != null) Thread.currentThread().setName("Remote solr query: q = " + q + (fq == null ? "" : ", fq = " + fq));
+
+        QueryRequest request = new QueryRequest(params);
+        request.setResponseParser(new StreamingBinaryResponseParser(callback));
+        long t = System.currentTimeMillis();
+        NamedList<Object> result = null;
+        try {
+            result = this.server.request(request);
+        } catch (final Throwable e) {
+            throw new IOException(e.getMessage());
+        } finally {
+            if (q != null) Thread.currentThread().setName(threadname);
+        }
+        QueryResponse response = new QueryResponse(result, this.server);
+        response.setElapsedTime(System.currentTimeMillis() - t);
+        return response;
+    }
+
     public static void main(final String args[]) {
         RemoteSolrConnector solr;
         try {
@@ -0,0 +1,474 @@
+// SolrQueryResultCache.java
+// -------------------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.cora.federate.solr.connector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.FacetParams;
+import org.apache.solr.common.params.HighlightParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+
+import net.yacy.cora.storage.ARC;
+import net.yacy.cora.storage.ConcurrentARC;
+import net.yacy.search.schema.CollectionSchema;
+
+/**
+ * A cache of the results of the queries to the embedded Solr, in front of
+ * {@link EmbeddedSolrConnector#getResponseByParams(org.apache.solr.common.params.ModifiableSolrParams)}
+ * for the queries of the search events, which are marked with {@link #CACHE_PARAM}.
+ * The same queries are repeated when a search result is paged or when a navigator is
+ * clicked, so the document ids of a result page and the facet counts of a query are
+ * cached separately: the facets are shared by all pages of a query.
+ * The cache keys are normalized from the query parameters, the entries are bounded in
+ * size by an approximation of their memory usage and are valid only for the index
+ * generation (the version of the index reader) they were computed from.
+ */
+public final class SolrQueryResultCache {
+
+    /** the maximum number of rows of a cached result page */
+    public static final int MAX_ROWS = 100;
+
+    /** default maximum memory in bytes used by the cached results */
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024L * 1024L;
+
+    /**
+     * Parameter marking a query whose results may be cached, set by the search event. Other callers
+     * (the Solr servlet, the reindexing, the crawler) query the index directly.
+     */
+    public static final String CACHE_PARAM = "yacy.cacheResults";
+
+    /** parameters which are not part of the cache keys because they do not change the results */
+    private static final String[] IGNORED_PARAMS = {CACHE_PARAM, CommonParams.WT, CommonParams.VERSION, CommonParams.OMIT_HEADER, CommonParams.HEADER_ECHO_PARAMS};
+
+    /** parameter prefixes of requests which are never cached */
+    private static final String[] UNCACHEABLE_PARAMS = {CursorMarkParams.CURSOR_MARK_PARAM, CommonParams.TIME_ALLOWED, CommonParams.DEBUG, CommonParams.DEBUG_QUERY,
+            "group", "stats", "spellcheck", "terms", "shards", "distrib", "expand", "mlt", "suggest"};
+
+    /** date math on the current time in a query, like NOW/DAY, NOW-1YEAR or [* TO NOW], but not a word containing NOW */
+    private static final Pattern DATE_MATH_NOW = Pattern.compile("(?<![\\p{L}\\p{N}_])NOW(?![\\p{L}\\p{N}_])");
+
+    private static final ARC<String, DocEntry> docCache = new ConcurrentARC<String, DocEntry>(1000, Math.max(1, Runtime.getRuntime().availableProcessors()));
+    private static final ARC<String, FacetEntry> facetCache = new ConcurrentARC<String, FacetEntry>(500, Math.max(1, Runtime.getRuntime().availableProcessors()));
+    private static final AtomicLong bytes = new AtomicLong(0);
+    private static volatile long maxBytes = DEFAULT_MAX_BYTES;
+
+    public static final AtomicLong docHit = new AtomicLong(0), docMiss = new AtomicLong(0), docInsert = new AtomicLong(0), docDelete = new AtomicLong(0);
+    public static final AtomicLong facetHit = new AtomicLong(0), facetMiss = new AtomicLong(0), facetInsert = new AtomicLong(0), facetDelete = new AtomicLong(0);
+
+    private SolrQueryResultCache() {
+        // static use only
+    }
+
+    private static abstract class Entry {
+        protected final long generation;
+        protected int size;
+
+        private Entry(final long generation) {
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * The ranked document ids of a result page, with their scores and highlighting
+     */
+    public static final class DocEntry extends Entry {
+        public final String[] ids;
+        public final float[] scores; // null when the scores were not requested
+        public final long numFound, start;
+        public final Float maxScore;
+        private final NamedList<?> highlighting;
+
+        private DocEntry(final long generation, final String[] ids, final float[] scores, final long numFound, final long start, final Float maxScore, final NamedList<?> highlighting) {
+            super(generation);
+            this.ids = ids;
+            this.scores = scores;
+            this.numFound = numFound;
+            this.start = start;
+            this.maxScore = maxScore;
+            this.highlighting = highlighting == null ? null : copy(highlighting);
+            long s = 64 + (scores == null ? 0 : 16 + 4 * scores.length) + estimateSize(highlighting);
+            for (final String id: ids) s += estimateSize(id);
+            this.size = (int) Math.min(Integer.MAX_VALUE, s);
+        }
+
+        /**
+         * @return a copy of the cached highlighting, which the caller may modify, or null
+         */
+        public NamedList<Object> highlighting() {
+            return this.highlighting == null ? null : copy(this.highlighting);
+        }
+    }
+
+    private static final class FacetEntry extends Entry {
+        private final NamedList<?> facets;
+
+        private FacetEntry(final long generation, final NamedList<?> facets) {
+            super(generation);
+            this.facets = copy(facets);
+            this.size = (int) Math.min(Integer.MAX_VALUE, 32 + estimateSize(facets));
+        }
+    }
+
+    /**
+     * Set the maximum memory used by the cache
+     * @param max the maximum size in bytes, 0 to disable the cache
+     */
+    public static void setMaxBytes(final long max) {
+        maxBytes = Math.max(0, max);
+        if (maxBytes == 0) clear(); else shrink();
+    }
+
+    /**
+     * @return true when the cache is enabled
+     */
+    public static boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * @param params the parameters of a Solr query
+     * @return true when the results of the query may be cached : the query is marked with {@link #CACHE_PARAM}
+     */
+    public static boolean isCacheable(final SolrParams params) {
+        if (maxBytes <= 0 || params == null || !params.getBool(CACHE_PARAM, false)) return false;
+        if (params.getInt(CommonParams.ROWS, CommonParams.ROWS_DEFAULT) > MAX_ROWS) return false;
+        final String fl = params.get(CommonParams.FL);
+        if (fl != null && !hasIdField(fl)) return false; // documents must be fetched again by their id
+        final Iterator<String> names = params.getParameterNamesIterator();
+        while (names.hasNext()) {
+            final String name = names.next();
+            for (final String prefix: UNCACHEABLE_PARAMS) if (name.startsWith(prefix)) return false;
+            final String[] values = params.getParams(name);
+            if (values == null) continue;
+            for (final String value: values) {
+                // results depending on the current time change without a commit
+                if (value != null && (value.contains("cache=false") || DATE_MATH_NOW.matcher(value).find())) return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasIdField(final String fl) {
+        for (final String field: fl.split("[,\\s]+")) {
+            if ("*".equals(field) || CollectionSchema.id.getSolrFieldName().equals(field)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param params the parameters of a Solr query
+     * @return true when facets are requested by the query
+     */
+    public static boolean hasFacets(final SolrParams params) {
+        return params.getBool(FacetParams.FACET, false);
+    }
+
+    /**
+     * Compute the key of the cached document ids of a query. The parameters are sorted by
+     * name and the filter queries are sorted, because their order does not change the result.
+     * @param core the name of the Solr core
+     * @param params the parameters of a Solr query
+     * @return the normalized key, independent of the facet parameters
+     */
+    public static String docKey(final String core, final SolrParams params) {
+        return key(core, params, false);
+    }
+
+    /**
+     * Compute the key of the cached facets of a query, independent of the requested result page
+     * @param core the name of the Solr core
+     * @param params the parameters of a Solr query
+     * @return the normalized key, independent of the paging, sorting, field list and highlighting parameters
+     */
+    public static String facetKey(final String core, final SolrParams params) {
+        return key(core, params, true);
+    }
+
+    private static String key(final String core, final SolrParams params, final boolean facets) {
+        final Map<String, String[]> sorted = new TreeMap<String, String[]>();
+        final Iterator<String> names = params.getParameterNamesIterator();
+        while (names.hasNext()) {
+            final String name = names.next();
+            if (Arrays.asList(IGNORED_PARAMS).contains(name)) continue;
+            if (facets) {
+                if (CommonParams.START.equals(name) || CommonParams.ROWS.equals(name) || CommonParams.SORT.equals(name) || CommonParams.FL.equals(name)
+                        || HighlightParams.HIGHLIGHT.equals(name) || name.startsWith(HighlightParams.HIGHLIGHT + ".")) continue;
+            } else {
+                if (name.startsWith(FacetParams.FACET)) continue;
+            }
+            String[] values = params.getParams(name);
+            if (values == null) continue;
+            if (CommonParams.FQ.equals(name)) {
+                values = values.clone();
+                Arrays.sort(values);
+            }
+            sorted.put(name, values);
+        }
+        final StringBuilder key = new StringBuilder(128).append(facets ? 'F' : 'D').append(core == null ? "" : core);
+        for (final Map.Entry<String, String[]> entry: sorted.entrySet()) {
+            for (final String value: entry.getValue()) {
+                key.append('&').append(entry.getKey()).append('=').append(value == null ? "" : value.replace("&", "&&"));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * @param key the key computed with {@link #docKey(String, SolrParams)}
+     * @param generation the current generation of the index
+     * @return the cached document ids or null when the query is not cached for this generation
+     */
+    public static DocEntry getDocs(final String key, final long generation) {
+        final DocEntry entry = docCache.get(key);
+        if (entry == null) {
+            docMiss.incrementAndGet();
+            return null;
+        }
+        if (entry.generation != generation) {
+            if (docCache.remove(key) != null) {
+                bytes.addAndGet(-entry.size);
+                docDelete.incrementAndGet();
+            }
+            docMiss.incrementAndGet();
+            return null;
+        }
+        docHit.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * @param key the key computed with {@link #facetKey(String, SolrParams)}
+     * @param generation the current generation of the index
+     * @return a copy of the cached facet counts or null when the query is not cached for this generation
+     */
+    public static NamedList<Object> getFacets(final String key, final long generation) {
+        final FacetEntry entry = facetCache.get(key);
+        if (entry == null) {
+            facetMiss.incrementAndGet();
+            return null;
+        }
+        if (entry.generation != generation) {
+            if (facetCache.remove(key) != null) {
+                bytes.addAndGet(-entry.size);
+                facetDelete.incrementAndGet();
+            }
+            facetMiss.incrementAndGet();
+            return null;
+        }
+        facetHit.incrementAndGet();
+        return copy(entry.facets);
+    }
+
+    /**
+     * Remove cached document ids, when the cached documents could not be fetched again
+     * @param key the key computed with {@link #docKey(String, SolrParams)}
+     */
+    public static void removeDocs(final String key) {
+        final DocEntry entry = docCache.remove(key);
+        if (entry != null) {
+            bytes.addAndGet(-entry.size);
+            docDelete.incrementAndGet();
+        }
+    }
+
+    /**
+     * Cache the results of a query
+     * @param core the name of the Solr core
+     * @param generation the generation of the index read before the query was executed
+     * @param params the parameters of the query
+     * @param rsp the response of the query
+     * @param cacheDocs true when the document ids shall be cached
+     * @param cacheFacets true when the facets shall be cached
+     */
+    public static void put(final String core, final long generation, final SolrParams params, final QueryResponse rsp, final boolean cacheDocs, final boolean cacheFacets) {
+        if (maxBytes <= 0 || rsp == null || rsp.getResponse() == null) return;
+        if (rsp.getHeader() != null && rsp.getHeader().get("partialResults") != null) return; // incomplete because of a time limit
+        if (cacheDocs) {
+            final DocEntry entry = docEntry(generation, rsp);
+            if (entry != null && entry.size < maxBytes / 4) {
+                final DocEntry old = docCache.put(docKey(core, params), entry);
+                bytes.addAndGet(entry.size - (old == null ? 0 : old.size));
+                docInsert.incrementAndGet();
+            }
+        }
+        if (cacheFacets) {
+            final Object facets = rsp.getResponse().get("facet_counts");
+            if (facets instanceof NamedList) {
+                final FacetEntry entry = new FacetEntry(generation, (NamedList<?>) facets);
+                if (entry.size < maxBytes / 4) {
+                    final FacetEntry old = facetCache.put(facetKey(core, params), entry);
+                    bytes.addAndGet(entry.size - (old == null ? 0 : old.size));
+                    facetInsert.incrementAndGet();
+                }
+            }
+        }
+        if (bytes.get() > maxBytes) shrink();
+    }
+
+    private static DocEntry docEntry(final long generation, final QueryResponse rsp) {
+        final SolrDocumentList docs = rsp.getResults();
+        if (docs == null) return null;
+        final String idField = CollectionSchema.id.getSolrFieldName();
+        final String[] ids = new String[docs.size()];
+        float[] scores = new float[docs.size()];
+        for (int i = 0; i < ids.length; i++) {
+            final SolrDocument doc = docs.get(i);
+            final Object id = doc.getFieldValue(idField);
+            if (id == null) return null;
+            ids[i] = id.toString();
+            final Object score = doc.getFieldValue("score");
+            if (scores != null && score instanceof Number) scores[i] = ((Number) score).floatValue(); else scores = null;
+        }
+        final Object highlighting = rsp.getResponse().get("highlighting");
+        return new DocEntry(generation, ids, scores, docs.getNumFound(), docs.getStart(), docs.getMaxScore(),
+                highlighting instanceof NamedList ? (NamedList<?>) highlighting : null);
+    }
+
+    /**
+     * The ARC evicts entries by their number, not by their size: the byte count of
+     * the evicted entries is corrected here and entries are removed until the
+     * cache fits again into its memory bound.
+     */
+    private static synchronized void shrink() {
+        long s = 0;
+        for (final Map.Entry<String, DocEntry> entry: docCache) s += entry.getValue().size;
+        for (final Map.Entry<String, FacetEntry> entry: facetCache) s += entry.getValue().size;
+        bytes.set(s);
+        if (s <= maxBytes) return;
+        for (final Map.Entry<String, FacetEntry> entry: facetCache) {
+            if (bytes.get() <= maxBytes * 3 / 4) return;
+            if (facetCache.remove(entry.getKey()) != null) {
+                bytes.addAndGet(-entry.getValue().size);
+                facetDelete.incrementAndGet();
+            }
+        }
+        for (final Map.Entry<String, DocEntry> entry: docCache) {
+            if (bytes.get() <= maxBytes * 3 / 4) return;
+            if (docCache.remove(entry.getKey()) != null) {
+                bytes.addAndGet(-entry.getValue().size);
+                docDelete.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * remove all cached results
+     */
+    public static void clear() {
+        final long deleted = docCache.size() + facetCache.size();
+        docCache.clear();
+        facetCache.clear();
+        bytes.set(0);
+        docDelete.addAndGet(deleted);
+    }
+
+    public static int docSize() {
+        return docCache.size();
+    }
+
+    public static int facetSize() {
+        return facetCache.size();
+    }
+
+    /**
+     * @return the approximated memory in bytes used by the cached results
+     */
+    public static long bytes() {
+        return bytes.get();
+    }
+
+    /**
+     * The cached lists are copied when they are stored and when they are returned, because the
+     * receivers of a response may modify it.
+     * @param list a list of a Solr response
+     * @return a deep copy of the list
+     */
+    private static NamedList<Object> copy(final NamedList<?> list) {
+        final NamedList<Object> copy = list instanceof SimpleOrderedMap ? new SimpleOrderedMap<Object>() : new NamedList<Object>();
+        for (int i = 0; i < list.size(); i++) copy.add(list.getName(i), copyValue(list.getVal(i)));
+        return copy;
+    }
+
+    private static Object copyValue(final Object o) {
+        if (o instanceof NamedList) return copy((NamedList<?>) o);
+        if (o instanceof Map) {
+            final Map<Object, Object> copy = new LinkedHashMap<Object, Object>();
+            for (final Map.Entry<?, ?> entry: ((Map<?, ?>) o).entrySet()) copy.put(entry.getKey(), copyValue(entry.getValue()));
+            return copy;
+        }
+        if (o instanceof Collection) {
+            final List<Object> copy = new ArrayList<Object>(((Collection<?>) o).size());
+            for (final Object e: (Collection<?>) o) copy.add(copyValue(e));
+            return copy;
+        }
+        if (o instanceof Object[]) {
+            final Object[] copy = ((Object[]) o).clone();
+            for (int i = 0; i < copy.length; i++) copy[i] = copyValue(copy[i]);
+            return copy;
+        }
+        return o; // strings and numbers are immutable
+    }
+
+    /**
+     * @param o a value of a Solr response
+     * @return an approximation of the memory used by the value
+     */
+    private static long estimateSize(final Object o) {
+        if (o == null) return 0;
+        if (o instanceof String) return 40 + 2 * ((String) o).length();
+        if (o instanceof NamedList) {
+            final NamedList<?> list = (NamedList<?>) o;
+            long s = 32;
+            for (int i = 0; i < list.size(); i++) s += 16 + estimateSize(list.getName(i)) + estimateSize(list.getVal(i));
+            return s;
+        }
+        if (o instanceof Map) {
+            long s = 48;
+            for (final Map.Entry<?, ?> entry: ((Map<?, ?>) o).entrySet()) s += 32 + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+            return s;
+        }
+        if (o instanceof Collection) {
+            long s = 32;
+            for (final Object e: (Collection<?>) o) s += 8 + estimateSize(e);
+            return s;
+        }
+        if (o instanceof Object[]) {
+            long s = 16;
+            for (final Object e: (Object[]) o) s += 8 + estimateSize(e);
+            return s;
+        }
+        return 16;
+    }
+}
@@ -28,6 +28,7 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import net.yacy.cora.federate.solr.SolrType;
 
@@ -149,9 +150,11 @@ public class EnhancedXMLResponseWriter implements QueryResponseWriter, SolrjResp
         DocIterator iterator = response.iterator();
         includeScore = includeScore && response.hasScores();
         IndexSchema schema = request.getSchema();
+        // load only the requested stored fields; null loads all fields
+        final Set<String> fieldNames = returnFields == null ? null : returnFields.getLuceneFieldNames();
         for (int i = 0; i < sz; i++) {
             int id = iterator.nextDoc();
-            Document doc = searcher.doc(id);
+            Document doc = searcher.doc(id, fieldNames);
             writeDoc(writer, schema, null, doc.getFields(), (includeScore ? iterator.score() : 0.0f), includeScore, returnFields);
         }
         writer.write("</result>");
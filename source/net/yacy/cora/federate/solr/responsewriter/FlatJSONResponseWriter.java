@@ -26,6 +26,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexableField;
@@ -35,16 +36,13 @@ import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.QueryResponseWriter;
 import org.apache.solr.response.ResultContext;
 import org.apache.solr.response.SolrQueryResponse;
-import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.schema.TextField;
 import org.apache.solr.search.DocIterator;
 import org.apache.solr.search.DocList;
+import org.apache.solr.search.ReturnFields;
 import org.apache.solr.search.SolrIndexSearcher;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 
 import net.yacy.cora.federate.solr.SolrType;
 
@@ -67,27 +65,31 @@ public class FlatJSONResponseWriter implements QueryResponseWriter, EmbeddedSolr
     @Override
     public void write(final Writer writer, final SolrQueryRequest request, final SolrQueryResponse rsp) throws IOException {
         NamedList<?> values = rsp.getValues();
-        DocList response = ((ResultContext) values.get("response")).getDocList();
-        writeDocs(writer, request, response);
+        ResultContext context = (ResultContext) values.get("response");
+        writeDocs(writer, request, context.getDocList(), context.getReturnFields());
     }
 
-    private static final void writeDocs(final Writer writer, final SolrQueryRequest request, final DocList response) throws IOException {
-        boolean includeScore = false;
+    private static final void writeDocs(final Writer writer, final SolrQueryRequest request, final DocList response, final ReturnFields returnFields) throws IOException {
         final int sz = response.size();
         SolrIndexSearcher searcher = request.getSearcher();
         DocIterator iterator = response.iterator();
-        includeScore = includeScore && response.hasScores();
         IndexSchema schema = request.getSchema();
+        // load only the requested stored fields; null loads all fields
+        final Set<String> fieldNames = returnFields == null ? null : returnFields.getLuceneFieldNames();
         for (int i = 0; i < sz; i++) {
             int id = iterator.nextDoc();
-            Document doc = searcher.doc(id);
-            writeDoc(writer, schema, doc.getFields());
+            Document doc = searcher.doc(id, fieldNames);
+            writeDoc(writer, schema, doc.getFields(), returnFields);
         }
     }
 
-    private static final void writeDoc(final Writer writer, final IndexSchema schema, final List<IndexableField> fields) throws IOException {
-        JSONObject json = new JSONObject();
-        
+    /**
+     * write the fields of a document as one line of json; the values are streamed to the writer
+     * in the order of the fields without building a json object first
+     */
+    private static final void writeDoc(final Writer writer, final IndexSchema schema, final List<IndexableField> fields, final ReturnFields returnFields) throws IOException {
+        writer.write('{');
+        boolean first = true;
         int sz = fields.size();
         int fidx1 = 0, fidx2 = 0;
         while (fidx1 < sz) {
@@ -97,84 +99,92 @@ public class FlatJSONResponseWriter implements QueryResponseWriter, EmbeddedSolr
             while (fidx2 < sz && fieldName.equals(fields.get(fidx2).name())) {
                 fidx2++;
             }
+            if (returnFields != null && !returnFields.wantsField(fieldName)) {
+                fidx1 = fidx2;
+                continue;
+            }
             SchemaField sf = schema == null ? null : schema.getFieldOrNull(fieldName);
             if (sf == null) {
                 sf = new SchemaField(fieldName, new TextField());
             }
-            FieldType type = sf.getType();
-            try {
-            if (fidx1 + 1 == fidx2) {
-                if (sf.multiValued()) {
-                    JSONArray a = new JSONArray();
-                    json.put(fieldName, a);
-                    JSONObject j = new JSONObject();
-                    String sv = value.stringValue();
-                    setValue(j, type.getTypeName(), "x", sv); //sf.write(this, null, f1);
-                    a.put(j.opt("x"));
-                } else {
-                    setValue(json, type.getTypeName(), value.name(), value.stringValue());
+            String typeName = sf.getType().getTypeName();
+            if (fidx1 + 1 == fidx2 && !sf.multiValued()) {
+                Object v = toObject(typeName, value.stringValue());
+                if (v != null) {
+                    if (!first) writer.write(',');
+                    first = false;
+                    JSONStreamWriter.writeString(writer, fieldName);
+                    writer.write(':');
+                    JSONStreamWriter.writeValue(writer, v);
                 }
             } else {
-                JSONArray a = new JSONArray();
-                json.put(fieldName, a);
+                if (!first) writer.write(',');
+                first = false;
+                JSONStreamWriter.writeString(writer, fieldName);
+                writer.write(":[");
                 for (int i = fidx1; i < fidx2; i++) {
-                    String sv = fields.get(i).stringValue();
-                    JSONObject j = new JSONObject();
-                    setValue(j, type.getTypeName(), "x", sv); //sf.write(this, null, f1);
-                    a.put(j.opt("x"));
+                    if (i > fidx1) writer.write(',');
+                    JSONStreamWriter.writeValue(writer, toObject(typeName, fields.get(i).stringValue()));
                 }
+                writer.write(']');
             }
             fidx1 = fidx2;
-            } catch (JSONException e) {
-                throw new IOException(e.getMessage());
-            }
         }
-        writer.write(json.toString());
+        writer.write('}');
         writer.write(lb);
     }
 
-    private static void setValue(final JSONObject json, final String typeName, final String name, final String value) throws JSONException {
+    /**
+     * convert a stored field value to the json value of the field type
+     * @return the value or null if the type is not supported or the value is missing
+     */
+    private static Object toObject(final String typeName, final String value) {
+        if (value == null) return null;
         if (typeName.equals(SolrType.text_general.printName()) ||
             typeName.equals(SolrType.string.printName()) ||
             typeName.equals(SolrType.text_en_splitting_tight.printName())) {
-            json.put(name, value);
+            return value;
         } else if (typeName.equals(SolrType.bool.printName())) {
-            json.put(name, "F".equals(value) ? false : true);
+            return "F".equals(value) ? Boolean.FALSE : Boolean.TRUE;
         } else if (typeName.equals(SolrType.num_integer.printName())) {
-            json.put(name, Long.parseLong(value));
+            return Long.parseLong(value);
         } else if (typeName.equals(SolrType.num_long.printName())) {
-            json.put(name, Long.parseLong(value));
+            return Long.parseLong(value);
         } else if (typeName.equals(SolrType.date.printName())) {
-            json.put(name, new Date(Long.parseLong(value)).toInstant().toString());
+            return new Date(Long.parseLong(value)).toInstant().toString();
         } else if (typeName.equals(SolrType.num_float.printName())) {
-            json.put(name, Double.parseDouble(value));
+            return Double.parseDouble(value);
         } else if (typeName.equals(SolrType.num_double.printName())) {
-            json.put(name, Double.parseDouble(value));
+            return Double.parseDouble(value);
         }
+        return null;
     }
-    
+
     public static final void writeDoc(final Writer writer, final SolrDocument doc) throws IOException {
-        JSONObject json = new JSONObject();
-        final Map<String, Object> fields = doc.getFieldValueMap();
-        for (String key: fields.keySet()) {
-            if (key == null)  continue;
-            Object value = doc.get(key);
-            try {
-                if (value == null) {
-                } else if (value instanceof Collection<?>) {
-                    JSONArray a = new JSONArray();
-                    json.put(key, a);
-                    for (Object o: ((Collection<?>) value)) {
-                        a.put(o);
-                    }
-                } else {
-                    json.put(key, value);
+        writer.write('{');
+        boolean first = true;
+        for (Map.Entry<String, Object> entry: doc.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (key == null || value == null) continue;
+            if (!first) writer.write(',');
+            first = false;
+            JSONStreamWriter.writeString(writer, key);
+            writer.write(':');
+            if (value instanceof Collection<?>) {
+                writer.write('[');
+                boolean firstValue = true;
+                for (Object o: ((Collection<?>) value)) {
+                    if (!firstValue) writer.write(',');
+                    firstValue = false;
+                    JSONStreamWriter.writeValue(writer, o);
                 }
-            } catch (JSONException e) {
-                throw new IOException(e.getMessage());
+                writer.write(']');
+            } else {
+                JSONStreamWriter.writeValue(writer, value);
             }
         }
-        writer.write(json.toString());
+        writer.write('}');
         writer.write(lb);
     }
 }
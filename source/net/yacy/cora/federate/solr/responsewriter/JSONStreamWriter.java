@@ -0,0 +1,101 @@
+/**
+ *  JSONStreamWriter
+ *  Copyright 2026 by the YaCy contributors; https://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.federate.solr.responsewriter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Writes JSON values directly to a writer, without building JSONObject trees or quoted strings first.
+ * Strings and numbers are written exactly as {@link JSONObject#quote(String)} and {@link JSONObject#toString()} do.
+ */
+public final class JSONStreamWriter {
+
+    /** escape sequences for the characters up to the backslash; null means the character is written as is */
+    private static final String[] ESCAPES = new String['\\' + 1];
+    static {
+        for (int c = 0; c < 0x20; c++) ESCAPES[c] = String.format("\\u%04x", c);
+        ESCAPES['\t'] = "\\t";
+        ESCAPES['\b'] = "\\b";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['\f'] = "\\f";
+        ESCAPES['"'] = "\\\"";
+        ESCAPES['/'] = "\\/";
+        ESCAPES['\\'] = "\\\\";
+    }
+
+    private JSONStreamWriter() {
+    }
+
+    /**
+     * write a quoted and escaped JSON string; unescaped runs of characters are written without copying
+     * @param writer an open writer
+     * @param value the string, null is written as an empty string
+     */
+    public static void writeString(final Writer writer, final String value) throws IOException {
+        writer.write('"');
+        if (value != null) {
+            final int length = value.length();
+            int start = 0;
+            for (int i = 0; i < length; i++) {
+                final char c = value.charAt(i);
+                if (c < ESCAPES.length && ESCAPES[c] != null) {
+                    if (i > start) writer.write(value, start, i - start);
+                    writer.write(ESCAPES[c]);
+                    start = i + 1;
+                }
+            }
+            if (length > start) writer.write(value, start, length - start);
+        }
+        writer.write('"');
+    }
+
+    /**
+     * write a number; integral values are written without a fraction
+     */
+    public static void writeNumber(final Writer writer, final Number value) throws IOException {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writer.write(Long.toString(value.longValue()));
+            return;
+        }
+        try {
+            writer.write(JSONObject.numberToString(value));
+        } catch (final JSONException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    /**
+     * write a value: null, booleans and numbers as JSON literals, everything else as string
+     */
+    public static void writeValue(final Writer writer, final Object value) throws IOException {
+        if (value == null || value instanceof Boolean) {
+            writer.write(String.valueOf(value));
+        } else if (value instanceof Number) {
+            writeNumber(writer, (Number) value);
+        } else {
+            writeString(writer, value.toString());
+        }
+    }
+}
@@ -47,7 +47,6 @@ import org.apache.solr.response.SolrQueryResponse;
 import org.apache.solr.search.DocIterator;
 import org.apache.solr.search.DocList;
 import org.apache.solr.search.SolrIndexSearcher;
-import org.json.JSONObject;
 
 import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.cora.federate.solr.responsewriter.OpensearchResponseWriter.ResHead;
@@ -570,20 +569,20 @@ public class YJsonResponseWriter implements QueryResponseWriter, SolrjResponseWr
 			int sp = snippetstring.lastIndexOf(' ');
 			if (sp >= 0) snippetstring = snippetstring.substring(0, sp) + " ..."; else snippetstring = snippetstring + "...";
 		}
-		writer.write("\"description\":"); writer.write(JSONObject.quote(snippetstring)); writer.write("\n}\n");
+		writer.write("\"description\":"); JSONStreamWriter.writeString(writer, snippetstring); writer.write("\n}\n");
 	}
 
     public static void solitaireTag(final Writer writer, final String tagname, String value) throws IOException {
         if (value == null) return;
-        writer.write('"'); writer.write(tagname); writer.write("\":"); writer.write(JSONObject.quote(value)); writer.write(','); writer.write('\n');
+        writer.write('"'); writer.write(tagname); writer.write("\":"); JSONStreamWriter.writeString(writer, value); writer.write(','); writer.write('\n');
     }
 
     private static void facetEntry(final Writer writer, String modifier, String propname, final String value) throws IOException {
         modifier = modifier.replaceAll("\"", "'").trim();
         propname = propname.replaceAll("\"", "'").trim();
-        writer.write("{\"name\":"); writer.write(JSONObject.quote(propname));
-        writer.write(",\"count\":"); writer.write(JSONObject.quote(value.replaceAll("\"", "'").trim())); 
-        writer.write(",\"modifier\":"); writer.write(JSONObject.quote(modifier+"%3A"+propname));
+        writer.write("{\"name\":"); JSONStreamWriter.writeString(writer, propname);
+        writer.write(",\"count\":"); JSONStreamWriter.writeString(writer, value.replaceAll("\"", "'").trim()); 
+        writer.write(",\"modifier\":"); JSONStreamWriter.writeString(writer, modifier+"%3A"+propname);
         writer.write("}");
     }
 }
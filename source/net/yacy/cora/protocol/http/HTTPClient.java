@@ -133,6 +133,16 @@ public class HTTPClient {
 	
 	private final static RequestConfig dfltReqConf = initRequestConfig();
 	
+	/** DNS resolver using the YaCy DNS cache, shared by the connection pools of this package */
+	static final DnsResolver DNS_RESOLVER = new DnsResolver() {
+		@Override
+		public InetAddress[] resolve(final String host0) throws UnknownHostException {
+			final InetAddress ip = Domains.dnsResolve(host0);
+			if (ip == null) throw new UnknownHostException(host0);
+			return new InetAddress[]{ip};
+		}
+	};
+	
 	/** The connection manager holding the configured connection pool for this client */
 	public static final PoolingHttpClientConnectionManager CONNECTION_MANAGER = initPoolingConnectionManager();
 	
@@ -246,13 +256,8 @@ public class HTTPClient {
     	        .register("http", plainsf)
     	        .register("https", getSSLSocketFactory())
     	        .build();
-    	final PoolingHttpClientConnectionManager pooling = new PoolingHttpClientConnectionManager(registry, null, null, new DnsResolver(){
-			@Override
-			public InetAddress[] resolve(final String host0)throws UnknownHostException {
-				final InetAddress ip = Domains.dnsResolve(host0);
-				if (ip == null) throw new UnknownHostException(host0);
-				return new InetAddress[]{ip};
-			}}, DEFAULT_POOLED_CONNECTION_TIME_TO_LIVE, TimeUnit.SECONDS);
+    	final PoolingHttpClientConnectionManager pooling = new PoolingHttpClientConnectionManager(registry, null, null,
+    			DNS_RESOLVER, DEFAULT_POOLED_CONNECTION_TIME_TO_LIVE, TimeUnit.SECONDS);
         initPoolMaxConnections(pooling, maxcon);
         
         pooling.setValidateAfterInactivity(default_timeout); // on init set to default 5000ms
@@ -1073,7 +1078,7 @@ public class HTTPClient {
     			this.upbytes));
     }
 
-    private static SSLConnectionSocketFactory getSSLSocketFactory() {
+    static SSLConnectionSocketFactory getSSLSocketFactory() {
     	final TrustManager trustManager = new X509TrustManager() {
             @Override
             public void checkClientTrusted(final X509Certificate[] chain, final String authType)
@@ -1126,7 +1131,7 @@ public class HTTPClient {
      *
      * @param defaultHttpClient
      */
-	private static ConnectionKeepAliveStrategy customKeepAliveStrategy() {
+	static ConnectionKeepAliveStrategy customKeepAliveStrategy() {
 		return new DefaultConnectionKeepAliveStrategy() {
 			@Override
 			public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
@@ -0,0 +1,279 @@
+// PersistentHTTPClient.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.cora.protocol.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.config.CookieSpecs;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.entity.mime.content.StringBody;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+
+import net.yacy.cora.document.id.MultiProtocolURL;
+import net.yacy.cora.protocol.ClientIdentification;
+import net.yacy.cora.protocol.ConnectionInfo;
+
+/**
+ * HTTP client dedicated to the peer-to-peer protocol. In contrast to
+ * {@link HTTPClient}, which closes each connection after use to protect the
+ * crawler from CLOSE_WAIT states, this client keeps connections alive in its
+ * own pool, so that repeated requests to the same peer save the TCP and TLS
+ * handshakes. Small requests consisting only of text parts are sent
+ * url-encoded instead of multipart encoded.
+ */
+public class PersistentHTTPClient {
+
+	/** Default maximum number of simultaneously open connections in the pool */
+	public static final int DEFAULT_POOL_MAX_TOTAL = 200;
+
+	/** Maximum number of simultaneously open connections to a single peer */
+	public static final int DEFAULT_POOL_MAX_PER_ROUTE = 4;
+
+	/**
+	 * Maximum size in bytes of an url-encoded request body : larger bodies are
+	 * sent multipart encoded, as the servlet containers of older peers limit the
+	 * size of url-encoded forms to 200000 bytes
+	 */
+	public static final int MAX_FORM_ENCODED_SIZE = 100000;
+
+	/** Default sleep time in seconds between each run of the connection evictor */
+	private static final int DEFAULT_CONNECTION_EVICTOR_SLEEP_TIME = 5;
+
+	/** Default maximum time in seconds to keep alive an idle connection in the pool */
+	private static final int DEFAULT_POOLED_CONNECTION_TIME_TO_LIVE = 30;
+
+	/** Idle time in milliseconds after which a pooled connection is checked before being reused */
+	private static final int VALIDATE_AFTER_INACTIVITY = 2000;
+
+	/** The connection manager holding the connection pool dedicated to peers */
+	public static final PoolingHttpClientConnectionManager CONNECTION_MANAGER = initPoolingConnectionManager();
+
+	/** Background daemon thread evicting expired idle connections from the pool */
+	private static final IdleConnectionEvictor EXPIRED_CONNECTIONS_EVICTOR = new IdleConnectionEvictor(
+			CONNECTION_MANAGER, DEFAULT_CONNECTION_EVICTOR_SLEEP_TIME, TimeUnit.SECONDS,
+			DEFAULT_POOLED_CONNECTION_TIME_TO_LIVE, TimeUnit.SECONDS);
+
+	static {
+		EXPIRED_CONNECTIONS_EVICTOR.start();
+	}
+
+	/** The thread-safe client shared by all requests, built once on the pool */
+	private static final CloseableHttpClient CLIENT = initClient();
+
+	private PersistentHTTPClient() {
+		// static use only
+	}
+
+	private static PoolingHttpClientConnectionManager initPoolingConnectionManager() {
+		final Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+				.register("http", PlainConnectionSocketFactory.getSocketFactory())
+				.register("https", HTTPClient.getSSLSocketFactory())
+				.build();
+		final PoolingHttpClientConnectionManager pooling = new PoolingHttpClientConnectionManager(registry, null, null,
+				HTTPClient.DNS_RESOLVER, DEFAULT_POOLED_CONNECTION_TIME_TO_LIVE, TimeUnit.SECONDS);
+		initPoolMaxConnections(pooling, DEFAULT_POOL_MAX_TOTAL);
+		pooling.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY);
+		pooling.setDefaultSocketConfig(SocketConfig.custom()
+				.setSoReuseAddress(true)
+				.setSoKeepAlive(true)
+				// peer requests are small and latency sensitive
+				.setTcpNoDelay(true)
+				.build());
+		return pooling;
+	}
+
+	private static CloseableHttpClient initClient() {
+		final HttpClientBuilder builder = HttpClientBuilder.create();
+		builder.setConnectionManager(CONNECTION_MANAGER);
+		builder.setConnectionManagerShared(true);
+		builder.setUserAgent(ClientIdentification.yacyInternetCrawlerAgent.userAgent);
+		builder.setDefaultRequestConfig(RequestConfig.custom()
+				// IMPORTANT - if not set to 'false' then servers do not process the request until a time-out of 2 seconds
+				.setExpectContinueEnabled(false)
+				.setCookieSpec(CookieSpecs.IGNORE_COOKIES)
+				.setRedirectsEnabled(false)
+				.build());
+		builder.disableCookieManagement();
+		builder.setKeepAliveStrategy(HTTPClient.customKeepAliveStrategy());
+		builder.addInterceptorLast(new GzipRequestInterceptor());
+		builder.addInterceptorLast(new GzipResponseInterceptor());
+		builder.setRoutePlanner(ProxySettings.RoutePlanner);
+		builder.setDefaultCredentialsProvider(ProxySettings.CredsProvider);
+		return builder.build();
+	}
+
+	/**
+	 * Initialize the maximum connections for the given pool
+	 *
+	 * @param pool
+	 *            a pooling connection manager. Must not be null.
+	 * @param maxConnections
+	 *            The new maximum connections values. Must be greater than 0.
+	 * @throws IllegalArgumentException
+	 *             when pool is null or when maxConnections is lower than 1
+	 */
+	public static void initPoolMaxConnections(final PoolingHttpClientConnectionManager pool, final int maxConnections) {
+		if (pool == null) {
+			throw new IllegalArgumentException("pool parameter must not be null");
+		}
+		if (maxConnections <= 0) {
+			throw new IllegalArgumentException("maxConnections parameter must be greater than zero");
+		}
+		pool.setMaxTotal(maxConnections);
+		pool.setDefaultMaxPerRoute(Math.min(maxConnections, DEFAULT_POOL_MAX_PER_ROUTE));
+	}
+
+	/**
+	 * This method should be called just before shutdown to stop the
+	 * connection manager and the idle connections evictor.
+	 *
+	 * @throws InterruptedException
+	 *             when the current thread is interrupted before the idle
+	 *             connections evictor thread termination.
+	 */
+	public static void closeConnectionManager() throws InterruptedException {
+		try {
+			EXPIRED_CONNECTIONS_EVICTOR.shutdown();
+			EXPIRED_CONNECTIONS_EVICTOR.awaitTermination(1L, TimeUnit.SECONDS);
+		} finally {
+			CONNECTION_MANAGER.shutdown();
+		}
+	}
+
+	/**
+	 * Send data using HTTP POST method on a pooled, persistent connection.
+	 *
+	 * @param url
+	 *            address to request on the server
+	 * @param post
+	 *            data to send (name-value-pairs)
+	 * @param usegzip
+	 *            if the body should be gzipped
+	 * @param timeout
+	 *            the connection and socket timeout in milliseconds
+	 * @return the response body or null when the server did not respond with
+	 *         a success status
+	 * @throws IOException
+	 *             when an error occurred
+	 */
+	public static byte[] POSTbytes(final MultiProtocolURL url, final Map<String, ContentBody> post,
+			final boolean usegzip, final int timeout) throws IOException {
+		final HttpPost httpPost = new HttpPost(url.toNormalform(true));
+		httpPost.setConfig(RequestConfig.custom()
+				.setExpectContinueEnabled(false)
+				.setCookieSpec(CookieSpecs.IGNORE_COOKIES)
+				.setRedirectsEnabled(false)
+				.setConnectTimeout(timeout)
+				.setConnectionRequestTimeout(timeout)
+				.setSocketTimeout(timeout)
+				.build());
+
+		HttpEntity entity = formEntity(post);
+		if (entity == null) {
+			final MultipartEntityBuilder entityBuilder = MultipartEntityBuilder.create();
+			for (final Entry<String, ContentBody> part : post.entrySet()) {
+				entityBuilder.addPart(part.getKey(), part.getValue());
+			}
+			entity = entityBuilder.build();
+		}
+		final long upbytes = entity.getContentLength();
+		httpPost.setEntity(usegzip ? new GzipCompressingEntity(entity) : entity);
+
+		final int port = httpPost.getURI().getPort();
+		final String thost = httpPost.getURI().getHost();
+		ConnectionInfo.addConnection(new ConnectionInfo(httpPost.getURI().getScheme(),
+				port == -1 ? thost : thost + ":" + port, httpPost.getMethod() + " " + httpPost.getURI().getPath(),
+				httpPost.hashCode(), System.currentTimeMillis(), upbytes));
+		try (final CloseableHttpResponse response = CLIENT.execute(httpPost)) {
+			final HttpEntity httpEntity = response.getEntity();
+			byte[] content = null;
+			if (httpEntity != null) {
+				if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
+					content = HTTPClient.getByteArray(httpEntity, Integer.MAX_VALUE);
+				}
+				// fully consume the entity so that the connection can be reused
+				EntityUtils.consume(httpEntity);
+			}
+			return content;
+		} catch (final IOException e) {
+			httpPost.abort();
+			throw new IOException("Client can't execute: " + e.getMessage() + " for url " + url.toNormalform(true), e);
+		} finally {
+			ConnectionInfo.removeConnection(httpPost.hashCode());
+		}
+	}
+
+	/**
+	 * @param post
+	 *            request parts
+	 * @return an url-encoded form entity when all parts are text parts and the
+	 *         encoded size does not exceed {@link #MAX_FORM_ENCODED_SIZE}, or
+	 *         null when the parts must be sent multipart encoded
+	 * @throws IOException
+	 *             when a part could not be read
+	 */
+	static HttpEntity formEntity(final Map<String, ContentBody> post) throws IOException {
+		final List<NameValuePair> pairs = new ArrayList<>(post.size());
+		long size = 0;
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+		for (final Entry<String, ContentBody> part : post.entrySet()) {
+			if (!(part.getValue() instanceof StringBody)) {
+				return null;
+			}
+			buffer.reset();
+			part.getValue().writeTo(buffer);
+			size += part.getKey().length() + buffer.size() + 2;
+			if (size > MAX_FORM_ENCODED_SIZE) {
+				return null;
+			}
+			pairs.add(new BasicNameValuePair(part.getKey(), new String(buffer.toByteArray(), StandardCharsets.UTF_8)));
+		}
+		final UrlEncodedFormEntity entity = new UrlEncodedFormEntity(pairs, StandardCharsets.UTF_8);
+		return entity.getContentLength() > MAX_FORM_ENCODED_SIZE ? null : entity;
+	}
+}
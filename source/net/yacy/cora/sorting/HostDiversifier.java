@@ -0,0 +1,185 @@
+/**
+ *  HostDiversifier
+ *  a host-diverse ordering of the elements of a priority queue
+ *  Copyright 2026 by the YaCy contributors; https://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.sorting;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import net.yacy.cora.sorting.WeakPriorityBlockingQueue.Element;
+
+/**
+ * Diversifies the hosts of the elements taken from a {@link WeakPriorityBlockingQueue}:
+ * the first element of each host is returned in the order of the queue, the following
+ * elements of a host already returned are parked in a queue of their host. Parked elements
+ * are returned when the queue is exhausted, the best of all hosts first.
+ * The hosts with parked elements are kept in a second level priority queue ordered by the
+ * head of their queue, so that the best parked element is found in O(log hosts).
+ */
+public class HostDiversifier<E> {
+
+    /** maximum number of elements taken from the queue in one poll before a parked element is returned */
+    private static final int MAX_PARKED_PER_POLL = 10;
+
+    private final Function<E, String> host;
+    private final int maxPerHost;
+    private final Set<String> seen;                  // the hosts of which one element was already returned
+    private final Map<String, HostQueue<E>> parked; // the parked elements of each host
+    private final TreeSet<HostQueue<E>> hosts;      // the hosts with parked elements, ordered by their best element
+    private int size;
+
+    private static final class HostQueue<E> {
+        private final String host;
+        private final TreeSet<Element<E>> queue = new TreeSet<Element<E>>();
+
+        private HostQueue(final String host) {
+            this.host = host;
+        }
+    }
+
+    private static final Comparator<HostQueue<?>> HEAD_ORDER = new Comparator<HostQueue<?>>() {
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        @Override
+        public int compare(final HostQueue<?> o1, final HostQueue<?> o2) {
+            final int c = ((Element) o1.queue.first()).compareTo(o2.queue.first());
+            return c != 0 ? c : o1.host.compareTo(o2.host);
+        }
+    };
+
+    /**
+     * @param host a function returning the host of an element
+     * @param maxPerHost the maximum number of parked elements for one host; beyond that, the worst elements are removed. -1 for no limit
+     */
+    public HostDiversifier(final Function<E, String> host, final int maxPerHost) {
+        this.host = host;
+        this.maxPerHost = maxPerHost;
+        this.seen = new HashSet<String>();
+        this.parked = new HashMap<String, HostQueue<E>>();
+        this.hosts = new TreeSet<HostQueue<E>>(HEAD_ORDER);
+        this.size = 0;
+    }
+
+    /**
+     * Take the next element in host-diverse order: elements of the queue with a host not returned yet
+     * come first, the other ones are parked.
+     * @param queue the queue with the ranked elements
+     * @return the next element or null when both the queue and the parked elements are empty
+     */
+    public Element<E> poll(final WeakPriorityBlockingQueue<E> queue) {
+        for (int c = 0; c < MAX_PARKED_PER_POLL; c++) {
+            final Element<E> element = queue.poll();
+            if (element == null) break;
+            final String h = this.host.apply(element.getElement());
+            synchronized (this) {
+                if (h == null || this.seen.add(h)) return element;
+                park(h, element);
+            }
+        }
+        return pollParked();
+    }
+
+    /**
+     * @return the best parked element of all hosts or null when no element is parked
+     */
+    public synchronized Element<E> pollParked() {
+        final HostQueue<E> best = this.hosts.pollFirst();
+        if (best == null) return null;
+        final Element<E> element = best.queue.pollFirst();
+        this.size--;
+        if (best.queue.isEmpty()) {
+            this.parked.remove(best.host);
+        } else {
+            this.hosts.add(best);
+        }
+        return element;
+    }
+
+    /**
+     * Give back an element which was taken but could not be used yet, so that it is
+     * returned again before the other elements of its host.
+     * @param queue the queue the element was taken from
+     * @param element the element
+     */
+    public void putBack(final WeakPriorityBlockingQueue<E> queue, final Element<E> element) {
+        final String h = this.host.apply(element.getElement());
+        synchronized (this) {
+            if (h != null && this.parked.containsKey(h)) {
+                park(h, element);
+                return;
+            }
+            if (h != null) this.seen.remove(h);
+        }
+        queue.put(element);
+    }
+
+    private void park(final String h, final Element<E> element) {
+        HostQueue<E> q = this.parked.get(h);
+        if (q == null) {
+            q = new HostQueue<E>(h);
+            this.parked.put(h, q);
+        } else {
+            this.hosts.remove(q); // the head may change, the host is inserted again below
+        }
+        if (q.queue.add(element)) {
+            this.size++;
+            if (this.maxPerHost >= 0 && q.queue.size() > this.maxPerHost) {
+                q.queue.pollLast();
+                this.size--;
+            }
+        }
+        this.hosts.add(q);
+    }
+
+    /**
+     * @return the number of parked elements
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * @return true when no element is parked
+     */
+    public synchronized boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @return the number of hosts with parked elements
+     */
+    public synchronized int hostCount() {
+        return this.hosts.size();
+    }
+
+    /**
+     * remove all parked elements and forget the returned hosts
+     */
+    public synchronized void clear() {
+        this.seen.clear();
+        this.parked.clear();
+        this.hosts.clear();
+        this.size = 0;
+    }
+}
@@ -0,0 +1,257 @@
+// ParallelBZip2InputStream.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.cora.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.io.input.CountingInputStream;
+
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
+
+/**
+ * Decompress a bzip2 file which consists of many concatenated bzip2 streams, like the multistream
+ * dumps of the wikimedia foundation, with several threads. The compressed input is split at the byte-aligned
+ * stream headers into segments of at least the segment size; the segments are decompressed concurrently and read
+ * in their original order. If no stream header is found within the maximum segment size, as in a file which was
+ * compressed as one single stream, the rest of the input is decompressed sequentially.
+ * A boundary listener learns the compressed offset of each segment when its first byte is read, so a reader can
+ * later resume at that stream boundary.
+ */
+public class ParallelBZip2InputStream extends InputStream {
+
+    /** the header of a bzip2 stream: "BZh", the block size digit and the magic number of the first block */
+    private static final byte[] HEADER = new byte[]{'B', 'Z', 'h', '9', 0x31, 0x41, 0x59, 0x26, 0x53, 0x59};
+    private static final int BLOCKSIZE_POSITION = 3;
+
+    private final CountingInputStream source;
+    private final ExecutorService executor;
+    private final int window, segmentSize, maxSegmentSize;
+    private final Deque<Future<byte[]>> pending;
+    private final Deque<Long> offsets; // the compressed offsets of the pending segments
+    private byte[] buffer; // compressed bytes, starting at a stream header
+    private int bufferLength, scanned;
+    private long bufferOffset; // the compressed offset of the start of the buffer
+    private boolean sourceExhausted;
+    private InputStream sequential;
+    private long sequentialOffset; // the compressed offset of the sequential input, or -1 when it was reported
+    private byte[] current;
+    private int currentPos;
+    private LongConsumer boundaryListener;
+
+    /**
+     * @param source the compressed input, starting with a bzip2 stream header
+     * @param threads the number of decompression threads
+     * @param segmentSize the minimum number of compressed bytes in a segment
+     * @param maxSegmentSize the maximum number of compressed bytes in a segment
+     */
+    public ParallelBZip2InputStream(final InputStream source, final int threads, final int segmentSize, final int maxSegmentSize) {
+        this.source = new CountingInputStream(source);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), new NamePrefixThreadFactory(ParallelBZip2InputStream.class.getSimpleName()));
+        this.window = Math.max(1, threads) * 2;
+        this.segmentSize = segmentSize;
+        this.maxSegmentSize = Math.max(segmentSize, maxSegmentSize);
+        this.pending = new ArrayDeque<Future<byte[]>>();
+        this.offsets = new ArrayDeque<Long>();
+        this.buffer = new byte[Math.min(this.maxSegmentSize, segmentSize * 2) + HEADER.length];
+        this.bufferLength = 0;
+        this.scanned = 0;
+        this.bufferOffset = 0;
+        this.sourceExhausted = false;
+        this.sequential = null;
+        this.sequentialOffset = -1;
+        this.current = null;
+        this.currentPos = 0;
+        this.boundaryListener = null;
+    }
+
+    /**
+     * @param source the compressed input
+     * @param threads the number of decompression threads
+     */
+    public ParallelBZip2InputStream(final InputStream source, final int threads) {
+        this(source, threads, 1024 * 1024, 64 * 1024 * 1024);
+    }
+
+    /**
+     * @return the number of compressed bytes which were read from the source, also by the sequential decompression
+     */
+    public long getCompressedCount() {
+        return this.source.getByteCount();
+    }
+
+    /**
+     * @param listener called in the reading thread with the compressed offset of a stream boundary, relative to the
+     *        start of the source, before the first decompressed byte after that boundary is returned
+     */
+    public void setBoundaryListener(final LongConsumer listener) {
+        this.boundaryListener = listener;
+    }
+
+    private static boolean isHeader(final byte[] b, final int pos) {
+        for (int i = 0; i < HEADER.length; i++) {
+            if (i == BLOCKSIZE_POSITION) {
+                if (b[pos + i] < '1' || b[pos + i] > '9') return false;
+            } else if (b[pos + i] != HEADER[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * read more compressed bytes into the buffer
+     * @return false if the source is exhausted
+     */
+    private boolean fillBuffer() throws IOException {
+        if (this.sourceExhausted) return false;
+        if (this.bufferLength == this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.min(this.maxSegmentSize + HEADER.length, this.buffer.length * 2));
+            if (this.bufferLength == this.buffer.length) return true; // the buffer is full
+        }
+        final int r = this.source.read(this.buffer, this.bufferLength, this.buffer.length - this.bufferLength);
+        if (r < 0) {
+            this.sourceExhausted = true;
+            return false;
+        }
+        this.bufferLength += r;
+        return true;
+    }
+
+    /**
+     * submit the next segment for decompression, or switch to sequential decompression
+     */
+    private void submitSegment() throws IOException {
+        while (true) {
+            // look for a stream header after the minimum segment size
+            int p = Math.max(Math.max(1, this.segmentSize), this.scanned);
+            for (; p + HEADER.length <= this.bufferLength; p++) {
+                if (isHeader(this.buffer, p)) {
+                    submit(Arrays.copyOf(this.buffer, p));
+                    System.arraycopy(this.buffer, p, this.buffer, 0, this.bufferLength - p);
+                    this.bufferLength -= p;
+                    this.bufferOffset += p;
+                    this.scanned = 0;
+                    return;
+                }
+            }
+            this.scanned = Math.max(this.scanned, p);
+            if (this.bufferLength >= this.maxSegmentSize) {
+                // no stream boundary; decompress the remaining input sequentially
+                this.sequential = new BZip2CompressorInputStream(new SequenceInputStream(
+                        new ByteArrayInputStream(this.buffer, 0, this.bufferLength), this.source), true);
+                this.sequentialOffset = this.bufferOffset;
+                this.buffer = null;
+                this.bufferLength = 0;
+                return;
+            }
+            if (!fillBuffer() && this.sourceExhausted) {
+                if (this.bufferLength > 0) submit(Arrays.copyOf(this.buffer, this.bufferLength));
+                this.bufferLength = 0;
+                return;
+            }
+        }
+    }
+
+    private void submit(final byte[] segment) {
+        this.offsets.add(this.bufferOffset);
+        this.pending.add(this.executor.submit(() -> {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(segment.length * 5);
+            try (final InputStream in = new BZip2CompressorInputStream(new ByteArrayInputStream(segment), true)) {
+                final byte[] b = new byte[64 * 1024];
+                int r;
+                while ((r = in.read(b)) > 0) out.write(b, 0, r);
+            }
+            return out.toByteArray();
+        }));
+    }
+
+    /**
+     * @return false if there are no more decompressed bytes
+     */
+    private boolean nextSegment() throws IOException {
+        while (this.sequential == null && this.pending.size() < this.window && (this.bufferLength > 0 || !this.sourceExhausted)) {
+            submitSegment();
+        }
+        final Future<byte[]> next = this.pending.poll();
+        if (next == null) return false;
+        final long offset = this.offsets.poll().longValue();
+        try {
+            this.current = next.get();
+            this.currentPos = 0;
+            if (this.boundaryListener != null) this.boundaryListener.accept(offset);
+            return true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted");
+        } catch (final ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        final int r = read(b, 0, 1);
+        return r <= 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) return 0;
+        while (this.current == null || this.currentPos >= this.current.length) {
+            if (!nextSegment()) {
+                this.current = null;
+                if (this.sequential == null) return -1;
+                if (this.sequentialOffset >= 0) {
+                    if (this.boundaryListener != null) this.boundaryListener.accept(this.sequentialOffset);
+                    this.sequentialOffset = -1;
+                }
+                return this.sequential.read(b, off, len);
+            }
+        }
+        final int n = Math.min(len, this.current.length - this.currentPos);
+        System.arraycopy(this.current, this.currentPos, b, off, n);
+        this.currentPos += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.executor.shutdownNow();
+        this.pending.clear();
+        this.offsets.clear();
+        if (this.sequential != null) this.sequential.close();
+        this.source.close();
+    }
+}
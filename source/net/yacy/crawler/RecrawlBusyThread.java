@@ -322,6 +322,7 @@ public class RecrawlBusyThread extends AbstractBusyThread {
             }
 
             if (!tobedeletedIDs.isEmpty()) try {
+                if (this.sb.index.signatureIndex() != null) for (final String id: tobedeletedIDs) this.sb.index.signatureIndex().remove(id);
                 solrConnector.deleteByIds(tobedeletedIDs);
                 solrConnector.commit(false);
             } catch (final IOException e) {
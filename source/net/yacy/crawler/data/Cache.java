@@ -37,6 +37,7 @@ package net.yacy.crawler.data;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
 import java.util.Map;
@@ -51,6 +52,8 @@ import net.yacy.cora.storage.HandleSet;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.kelondro.blob.ArrayStack;
+import net.yacy.kelondro.blob.Codec;
+import net.yacy.kelondro.blob.CodecDictionaries;
 import net.yacy.kelondro.blob.Compressor;
 import net.yacy.kelondro.blob.MapHeap;
 import net.yacy.kelondro.data.word.Word;
@@ -71,6 +74,7 @@ public final class Cache {
 	
     private static final String RESPONSE_HEADER_DB_NAME = "responseHeader.heap";
     private static final String FILE_DB_NAME = "file.array";
+    private static final String DICTIONARIES_PATH_NAME = "dictionaries";
 
     private static MapHeap responseHeaderDB = null;
     private static Compressor fileDB = null;
@@ -143,6 +147,7 @@ public final class Cache {
                 }
             }
         }
+        if (fileDB != null) fileDB.setDictionaries(new CodecDictionaries(new File(cachePath, DICTIONARIES_PATH_NAME)));
         ConcurrentLog.info("Cache", "initialized cache database responseHeaderDB.size() = " + (responseHeaderDB == null ? "NULL" : responseHeaderDB.size()) + ", fileDB.size() = " + (fileDB == null ? "NULL" : fileDB.size()));
 
         // clean up the responseHeaderDB which cannot be cleaned the same way as the cache files.
@@ -249,6 +254,21 @@ public final class Cache {
     	fileDB.setCompressionLevel(newCompressionLevel);
     }
     
+    /**
+     * Set the codec of new cached content. Content already in the cache is read with the codec it was written with.
+     * @param codecName the name of the codec: gzip, lz4 or plain
+     */
+    public static void setCodec(final String codecName) {
+    	fileDB.setCodec(Codec.forName(codecName));
+    }
+    
+    /**
+     * @param useDictionaries when true, small cached documents are compressed with a dictionary trained for their MIME type
+     */
+    public static void setUseDictionaries(final boolean useDictionaries) {
+    	fileDB.setUseDictionaries(useDictionaries);
+    }
+    
     /**
      * Set the new synchronization lock timeout.
      * @param lockTimeout the new synchronization lock timeout (in milliseconds).
@@ -274,7 +294,7 @@ public final class Cache {
 
         // store the file
         try {
-            fileDB.insert(url.hash(), file);
+            fileDB.insert(url.hash(), file, responseHeader.mime());
         } catch (final UnsupportedEncodingException e) {
             throw new IOException("Cache.store: cannot write to fileDB (1): " + e.getMessage());
         } catch (final IOException e) {
@@ -385,6 +405,29 @@ public final class Cache {
         }
     }
 
+    /**
+     * Returns the content of a cached resource as a stream. In contrast to {@link #getContent(byte[])}
+     * large resources are read and decompressed piece by piece while the stream is read.
+     * @param hash the url hash of the requested resource
+     * @return an open stream on the resource content, or <code>null</code> if no data
+     * is available or the cached file is not readable. Don't forget to close the stream.
+     */
+    public static InputStream getContentStream(final byte[] hash) {
+    	totalRequests.incrementAndGet();
+        // open the url resource in the cache
+        try {
+            final InputStream in = fileDB.getStream(hash);
+            if (in == null) {
+            	return null;
+            }
+            hits.incrementAndGet();
+            return in;
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+            return null;
+        }
+    }
+
     public static boolean hasContent(final byte[] hash) {
     	totalRequests.incrementAndGet();
         // load the url as resource from the cache
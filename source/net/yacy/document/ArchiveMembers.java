@@ -0,0 +1,202 @@
+/**
+ *  ArchiveMembers.java
+ *  Copyright 2026 by the YaCy contributors; https://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import net.yacy.kelondro.util.FileUtils;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
+
+/**
+ * The members of an archive (zip, tar, 7zip) which are parsed by a container parser. The container parser reads
+ * the archive as a stream, extracts each member and submits its parse; the parses run on a bounded pool of threads
+ * which is shared by all container parsers. If the pool is busy, the member is parsed on the thread of the container
+ * parser, which also slows down the extraction. The documents of the members are returned in the order of the members
+ * in the archive. Members of an archive which is itself a member are parsed on the thread of its container.
+ * The number of members and the sum of their sizes is limited for each archive.
+ */
+public class ArchiveMembers {
+
+    /** the maximum number of members which are parsed from one archive */
+    public static int maxEntries = 10000;
+
+    /** the maximum sum of the uncompressed sizes of the members which are parsed from one archive */
+    public static long maxBytes = 1024L * 1024L * 1024L;
+
+    /** the pool for the member parses, null to parse all members on the thread of the container parser */
+    private static ThreadPoolExecutor pool = null;
+
+    /** true for threads which parse a member */
+    private static final ThreadLocal<Boolean> member = new ThreadLocal<Boolean>();
+
+    private final String logName;
+    private final List<String> names;
+    private final List<Future<Document[]>> results;
+    private final List<File> tmpFiles;
+    private int entries;
+    private long bytes;
+    private boolean limitExceeded;
+
+    /**
+     * @param logName the name of the container parser in log messages
+     */
+    public ArchiveMembers(final String logName) {
+        this.logName = logName;
+        this.names = new ArrayList<String>();
+        this.results = new ArrayList<Future<Document[]>>();
+        this.tmpFiles = new ArrayList<File>();
+        this.entries = 0;
+        this.bytes = 0;
+        this.limitExceeded = false;
+    }
+
+    /**
+     * set the number of threads which parse archive members
+     * @param threads the number of threads, 0 or less to parse the members on the thread of the container parser
+     */
+    public static synchronized void setThreads(final int threads) {
+        final ThreadPoolExecutor previous = pool;
+        if (threads <= 0) {
+            pool = null;
+        } else {
+            final ThreadFactory factory = new NamePrefixThreadFactory("archiveMember");
+            pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(threads),
+                    r -> {
+                        final Thread t = factory.newThread(r);
+                        t.setDaemon(true);
+                        return t;
+                    },
+                    (r, executor) -> r.run()); // the container parser runs the member itself if the pool is busy
+            pool.allowCoreThreadTimeOut(true);
+        }
+        if (previous != null) previous.shutdown();
+    }
+
+    /**
+     * @return the number of threads which parse archive members, 0 if they are parsed on the thread of the container parser
+     */
+    public static int getThreads() {
+        final ThreadPoolExecutor p = pool;
+        return p == null ? 0 : p.getMaximumPoolSize();
+    }
+
+    /**
+     * count a member against the limits of the archive
+     * @param size the uncompressed size of the member
+     * @return false if the member exceeds the limits; then no more members shall be read from the archive
+     */
+    public boolean admit(final long size) {
+        if (this.limitExceeded || this.entries >= maxEntries || this.bytes + Math.max(0, size) > maxBytes) {
+            this.limitExceeded = true;
+            return false;
+        }
+        this.entries++;
+        this.bytes += Math.max(0, size);
+        return true;
+    }
+
+    /**
+     * @return true if a member was not admitted because it exceeded the limits
+     */
+    public boolean isLimitExceeded() {
+        return this.limitExceeded;
+    }
+
+    /**
+     * register a temporary file of a member, which is deleted when the member is parsed or when the archive is closed
+     * @return the file
+     */
+    public File tmpFile(final File tmp) {
+        this.tmpFiles.add(tmp);
+        return tmp;
+    }
+
+    /**
+     * submit the parse of a member
+     * @param name the name of the member in the archive
+     * @param tmp the temporary file with the content of the member, deleted after the parse; may be null
+     * @param parse the parse of the member
+     */
+    public void submit(final String name, final File tmp, final Callable<Document[]> parse) {
+        final FutureTask<Document[]> task = new FutureTask<Document[]>(ParserSandbox.nested(new Callable<Document[]>() {
+            @Override
+            public Document[] call() throws Exception {
+                final Boolean previous = member.get();
+                member.set(Boolean.TRUE);
+                try {
+                    return parse.call();
+                } finally {
+                    member.set(previous);
+                    if (tmp != null) FileUtils.deletedelete(tmp);
+                }
+            }
+        }));
+        this.names.add(name);
+        this.results.add(task);
+        final ThreadPoolExecutor p = pool;
+        if (p == null || Boolean.TRUE.equals(member.get())) {
+            task.run();
+        } else {
+            p.execute(task);
+        }
+    }
+
+    /**
+     * wait for the parses of all members; members which failed are logged and left out
+     * @return the documents of the members in the order of the members
+     * @throws InterruptedException if the container parse is interrupted; the remaining member parses are cancelled
+     */
+    public Document[] collect() throws InterruptedException {
+        final List<Document> docs = new ArrayList<Document>();
+        for (int i = 0; i < this.results.size(); i++) {
+            try {
+                final Document[] d = this.results.get(i).get();
+                if (d != null) Collections.addAll(docs, d);
+            } catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof InterruptedException) throw (InterruptedException) cause;
+                AbstractParser.log.warn(this.logName + " entry " + this.names.get(i) + ": " + cause.getMessage());
+            } catch (final CancellationException e) {
+                AbstractParser.log.warn(this.logName + " entry " + this.names.get(i) + ": cancelled");
+            }
+        }
+        return docs.toArray(new Document[docs.size()]);
+    }
+
+    /**
+     * cancel the member parses which are not finished and delete the remaining temporary files
+     */
+    public void close() {
+        for (final Future<Document[]> result: this.results) result.cancel(true);
+        for (final File tmp: this.tmpFiles) FileUtils.deletedelete(tmp);
+    }
+}
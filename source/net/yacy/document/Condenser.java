@@ -29,7 +29,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -75,7 +74,7 @@ public final class Condenser extends Tokenizer {
             final boolean findDatesInContent,
             final int timezoneOffset
             ) {
-        super(document.dc_source(), indexText ? document.getTextString() : "", meaningLib, doAutotagging, scraper);
+        super(document.dc_source(), indexText ? document.getTextString() : "", meaningLib, doAutotagging, scraper, true);
         
         final String initialThreadName = Thread.currentThread().getName();
         Thread.currentThread().setName("condenser-" + document.dc_identifier()); // for debugging
@@ -95,7 +94,7 @@ public final class Condenser extends Tokenizer {
         this.languageIdentificator = new Identificator();
 
         // add the URL components to the word list
-        insertTextToWords(new SentenceReader(document.dc_source().toTokens()), 0, WordReferenceRow.flag_app_dc_identifier, this.RESULT_FLAGS, false, meaningLib);
+        insertTextToWords(document.dc_source().toTokens(), 0, WordReferenceRow.flag_app_dc_identifier, this.RESULT_FLAGS, false, meaningLib);
 
         Map.Entry<AnchorURL, String> entry;
         if (indexText) {
@@ -113,17 +112,17 @@ public final class Condenser extends Tokenizer {
             // phrase  98 is taken from the embedded anchor/hyperlinks description (REMOVED!)
             // phrase  99 is taken from the media Link url and anchor description
             // phrase 100 and above are lines from the text
-            insertTextToWords(new SentenceReader(document.dc_title()),       1, WordReferenceRow.flag_app_dc_title, this.RESULT_FLAGS, true, meaningLib);
+            insertTextToWords(document.dc_title(),       1, WordReferenceRow.flag_app_dc_title, this.RESULT_FLAGS, true, meaningLib);
             for (String description: document.dc_description()) {
-                insertTextToWords(new SentenceReader(description), 3, WordReferenceRow.flag_app_dc_description, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(description, 3, WordReferenceRow.flag_app_dc_description, this.RESULT_FLAGS, true, meaningLib);
             }
-            insertTextToWords(new SentenceReader(document.dc_creator()),     4, WordReferenceRow.flag_app_dc_creator, this.RESULT_FLAGS, true, meaningLib);
-            insertTextToWords(new SentenceReader(document.dc_publisher()),   5, WordReferenceRow.flag_app_dc_creator, this.RESULT_FLAGS, true, meaningLib);
-            insertTextToWords(new SentenceReader(document.dc_subject(' ')),  6, WordReferenceRow.flag_app_dc_description, this.RESULT_FLAGS, true, meaningLib);
+            insertTextToWords(document.dc_creator(),     4, WordReferenceRow.flag_app_dc_creator, this.RESULT_FLAGS, true, meaningLib);
+            insertTextToWords(document.dc_publisher(),   5, WordReferenceRow.flag_app_dc_creator, this.RESULT_FLAGS, true, meaningLib);
+            insertTextToWords(document.dc_subject(' '),  6, WordReferenceRow.flag_app_dc_description, this.RESULT_FLAGS, true, meaningLib);
             // missing: tags!
             final String[] titles = document.getSectionTitles();
             for (int i = 0; i < titles.length; i++) {
-                insertTextToWords(new SentenceReader(titles[i]), i + 10, WordReferenceRow.flag_app_emphasized, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(titles[i], i + 10, WordReferenceRow.flag_app_emphasized, this.RESULT_FLAGS, true, meaningLib);
             }
 
             // anchors: for text indexing we add only the anchor description
@@ -151,24 +150,24 @@ public final class Condenser extends Tokenizer {
             Iterator<Map.Entry<AnchorURL, String>> i = document.getAudiolinks().entrySet().iterator();
             while (i.hasNext()) {
                 entry = i.next();
-                insertTextToWords(new SentenceReader(entry.getKey().toNormalform(true)), 99, flag_cat_hasaudio, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(entry.getValue()), 99, flag_cat_hasaudio, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(entry.getKey().toNormalform(true), 99, flag_cat_hasaudio, this.RESULT_FLAGS, false, meaningLib);
+                insertTextToWords(entry.getValue(), 99, flag_cat_hasaudio, this.RESULT_FLAGS, true, meaningLib);
             }
 
             // video
             i = document.getVideolinks().entrySet().iterator();
             while (i.hasNext()) {
                 entry = i.next();
-                insertTextToWords(new SentenceReader(entry.getKey().toNormalform(true)), 99, flag_cat_hasvideo, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(entry.getValue()), 99, flag_cat_hasvideo, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(entry.getKey().toNormalform(true), 99, flag_cat_hasvideo, this.RESULT_FLAGS, false, meaningLib);
+                insertTextToWords(entry.getValue(), 99, flag_cat_hasvideo, this.RESULT_FLAGS, true, meaningLib);
             }
 
             // applications
             i = document.getApplinks().entrySet().iterator();
             while (i.hasNext()) {
                 entry = i.next();
-                insertTextToWords(new SentenceReader(entry.getKey().toNormalform(true)), 99, flag_cat_hasapp, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(entry.getValue()), 99, flag_cat_hasapp, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(entry.getKey().toNormalform(true), 99, flag_cat_hasapp, this.RESULT_FLAGS, false, meaningLib);
+                insertTextToWords(entry.getValue(), 99, flag_cat_hasapp, this.RESULT_FLAGS, true, meaningLib);
             }
 
             // images
@@ -179,8 +178,8 @@ public final class Condenser extends Tokenizer {
                 ientry = j.next();
                 url = ientry.url();
                 if (url == null) continue;
-                insertTextToWords(new SentenceReader(url.toNormalform(true)), 99, flag_cat_hasimage, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(ientry.alt()), 99, flag_cat_hasimage, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(url.toNormalform(true), 99, flag_cat_hasimage, this.RESULT_FLAGS, false, meaningLib);
+                insertTextToWords(ientry.alt(), 99, flag_cat_hasimage, this.RESULT_FLAGS, true, meaningLib);
             }
 
             // finally check all words for missing flag entry
@@ -197,6 +196,8 @@ public final class Condenser extends Tokenizer {
             }
         }
         
+        releaseEngine();
+
         if(doAutotagging) {
         	extractAutoTagsFromLinkedDataTypes(document.getLinkedDataTypes(), LibraryProvider.autotagging);
         }
@@ -256,35 +257,37 @@ public final class Condenser extends Tokenizer {
 	}
 
     private void insertTextToWords(
-            final SentenceReader text,
+            final String text,
             final int phrase,
             final int flagpos,
             final Bitfield flagstemplate,
             final boolean useForLanguageIdentification,
             final WordCache meaningLib) {
         if (text == null) return;
-        String word;
         Word wprop;
-        WordTokenizer wordenum = new WordTokenizer(text, meaningLib);
-        try {
-	        int pip = 0;
-	        while (wordenum.hasMoreElements()) {
-	            word = wordenum.nextElement().toString();
-	            if (useForLanguageIdentification) this.languageIdentificator.add(word); // langdetect is case sensitive
-                    if (word.length() < 2) continue;
-                    word = word.toLowerCase(Locale.ENGLISH);
-	            wprop = this.words.get(word);
-	            if (wprop == null) wprop = new Word(0, pip, phrase);
-	            if (wprop.flags == null) wprop.flags = flagstemplate.clone();
-	            wprop.flags.set(flagpos, true);
-	            this.words.put(word, wprop);
-	            pip++;
-	            this.RESULT_NUMB_WORDS++;
-	            //this.RESULT_DIFF_WORDS++;
-                }
-        } finally {
-        	wordenum.close();
-        	wordenum = null;
+        // the words are added to the terms which were counted by the tokenizer
+        final TokenizerEngine wordenum = this.engine;
+        final TokenizerEngine.Terms terms = wordenum.terms();
+        wordenum.tokenize(text, false);
+        int pip = 0;
+        while (wordenum.next()) {
+            if (meaningLib != null) WordCache.learn(wordenum.chars(), wordenum.start(), wordenum.length());
+            if (useForLanguageIdentification) this.languageIdentificator.add(wordenum.word()); // langdetect is case sensitive
+            if (wordenum.length() < 2) continue;
+            final int length = wordenum.lowerCase();
+            final char[] word = wordenum.lowercase();
+            final int term = terms.find(word, 0, length);
+            if (term < 0) {
+                wprop = new Word(0, pip, phrase);
+                this.words.put(terms.key(terms.add(word, 0, length, null, wprop)), wprop);
+            } else {
+                wprop = terms.word(term);
+            }
+            if (wprop.flags == null) wprop.flags = flagstemplate.clone();
+            wprop.flags.set(flagpos, true);
+            pip++;
+            this.RESULT_NUMB_WORDS++;
+            //this.RESULT_DIFF_WORDS++;
         }
     }
 
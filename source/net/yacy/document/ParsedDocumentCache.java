@@ -0,0 +1,343 @@
+/**
+ *  ParsedDocumentCache.java
+ *  Copyright 2026 by the YaCy contributors; https://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.order.Digest;
+import net.yacy.kelondro.util.FileUtils;
+
+/**
+ * A store for parsed documents on disk, which avoids to parse a document again when the same content of an url is
+ * loaded again by a recrawl, a reindex from the cache, a snippet or a page info request. An entry is found with
+ * the hash of the url, the digest of the content and the version of the parsers; there is one entry for each url.
+ * The documents are stored compressed with their text, metadata, links and images in the format of the
+ * {@link ParserProcess}. Documents with objects which are not stored (the scraper of the html parser, icons and
+ * linked data types) are not cached. The least recently used entries are removed to keep the size on disk
+ * within the budget.
+ */
+public class ParsedDocumentCache {
+
+    /** the version of the storage format; part of the key of the entries */
+    private static final String FORMAT = "1";
+
+    private final File dir;
+    private final long budget;
+    private final String version;
+    private final LinkedHashMap<String, Entry> index; // url hash to entry, in access order
+    private long size;
+    public final AtomicLong hits = new AtomicLong(0);
+    public final AtomicLong misses = new AtomicLong(0);
+
+    private static final class Entry {
+        private final String key;
+        private final long size;
+
+        private Entry(final String key, final long size) {
+            this.key = key;
+            this.size = size;
+        }
+    }
+
+    /**
+     * @param dir the directory of the cache files
+     * @param budget the maximum size of the cache files in bytes
+     * @param version the version of the parsers; entries of other versions are not used
+     */
+    public ParsedDocumentCache(final File dir, final long budget, final String version) {
+        this.dir = dir;
+        this.budget = budget;
+        this.version = version;
+        this.index = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+        this.size = 0;
+        dir.mkdirs();
+
+        // load the index in the order of the last access
+        final List<File> files = new ArrayList<File>();
+        final File[] subdirs = dir.listFiles();
+        if (subdirs != null) for (final File subdir: subdirs) {
+            final File[] f = subdir.listFiles();
+            if (f != null) files.addAll(Arrays.asList(f));
+        }
+        files.sort((a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (final File f: files) {
+            final String name = f.getName();
+            final int p = name.indexOf('.');
+            if (p <= 0 || name.endsWith(".tmp")) {
+                FileUtils.deletedelete(f);
+                continue;
+            }
+            final String urlhash = name.substring(0, p);
+            final Entry previous = this.index.put(urlhash, new Entry(name.substring(p + 1), f.length()));
+            if (previous != null) {
+                this.size -= previous.size;
+                FileUtils.deletedelete(file(urlhash, previous.key));
+            }
+            this.size += f.length();
+        }
+        evict();
+    }
+
+    /**
+     * @return the digest of a content
+     */
+    public static byte[] digest(final byte[] content) {
+        final MessageDigest digest = md5();
+        digest.update(content);
+        return digest.digest();
+    }
+
+    /**
+     * @return the digest of the content of a stream, which is read to the end and closed
+     */
+    public static byte[] digest(final InputStream content) throws IOException {
+        final MessageDigest digest = md5();
+        try {
+            final byte[] b = new byte[64 * 1024];
+            int r;
+            while ((r = content.read(b)) > 0) digest.update(b, 0, r);
+        } finally {
+            content.close();
+        }
+        return digest.digest();
+    }
+
+    /**
+     * @return a stream which computes the digest of a content while it is read, see {@link #finishDigest(DigestInputStream)}
+     */
+    public static DigestInputStream digestStream(final InputStream content) {
+        return new DigestInputStream(content, md5());
+    }
+
+    /**
+     * read the rest of a stream, which a parser may not have read to the end, and get the digest of the whole content
+     * @return the digest of the content, or null if the rest of the content can not be read
+     */
+    public static byte[] finishDigest(final DigestInputStream content) {
+        try {
+            final byte[] b = new byte[64 * 1024];
+            while (content.read(b) >= 0) {}
+        } catch (final IOException e) {
+            return null; // the parser closed the stream before its end
+        }
+        return content.getMessageDigest().digest();
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the key of the entry of a content, which depends on the content, the parse options and the parser version
+     */
+    private String key(final String mimeType, final String charset, final String options, final byte[] contentDigest) {
+        return Digest.encodeMD5Hex(Digest.encodeHex(contentDigest) + " " + mimeType + " " + charset + " " + options + " " + this.version + " " + FORMAT);
+    }
+
+    private File file(final String urlhash, final String key) {
+        return new File(new File(this.dir, urlhash.substring(0, 2)), urlhash + "." + key);
+    }
+
+    /**
+     * @param location the url of the content
+     * @param mimeType the mime type of the content
+     * @param charset the charset of the content
+     * @param options the other parameters of the parse which change the documents, like the ignored css classes of html
+     * @param contentDigest the digest of the content
+     * @param depth the crawl depth which is set to the documents
+     * @return the documents of the last parse of the same content, or null if there is no such entry
+     */
+    public Document[] get(final DigestURL location, final String mimeType, final String charset, final String options, final byte[] contentDigest, final int depth) {
+        final String urlhash = ASCII.String(location.hash());
+        final String key = key(mimeType, charset, options, contentDigest);
+        synchronized (this.index) {
+            final Entry entry = this.index.get(urlhash);
+            if (entry == null || !entry.key.equals(key)) {
+                this.misses.incrementAndGet();
+                return null;
+            }
+        }
+        final File f = file(urlhash, key);
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(f))))) {
+            final int count = in.readInt();
+            final Document[] docs = new Document[count];
+            for (int i = 0; i < count; i++) {
+                final Parser parser = ParserProcess.parser(in.readUTF());
+                docs[i] = ParserProcess.readDocument(in, parser);
+                docs[i].setDepth(depth);
+            }
+            f.setLastModified(System.currentTimeMillis());
+            this.hits.incrementAndGet();
+            return docs;
+        } catch (final IOException | RuntimeException e) {
+            AbstractParser.log.warn("could not read parsed document of " + location.toNormalform(true) + " from cache: " + e.getMessage());
+            remove(urlhash, key);
+            this.misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * @param location the url of a content
+     * @return true if there is an entry for the url, which may be of another content
+     */
+    public boolean contains(final DigestURL location) {
+        synchronized (this.index) {
+            return this.index.containsKey(ASCII.String(location.hash()));
+        }
+    }
+
+    /**
+     * store the documents of a parse, if all documents can be stored
+     * @param location the url of the content
+     * @param mimeType the mime type of the content
+     * @param charset the charset of the content
+     * @param options the other parameters of the parse which change the documents, like the ignored css classes of html
+     * @param contentDigest the digest of the content
+     * @param docs the documents of the parse
+     */
+    public void put(final DigestURL location, final String mimeType, final String charset, final String options, final byte[] contentDigest, final Document[] docs) {
+        if (docs == null || this.budget <= 0) return;
+        for (final Document doc: docs) {
+            if (doc.getScraperObject() != null || !doc.getIcons().isEmpty() || !doc.getLinkedDataTypes().isEmpty()) return;
+        }
+        final String urlhash = ASCII.String(location.hash());
+        final String key = key(mimeType, charset, options, contentDigest);
+        final File f = file(urlhash, key);
+        final File tmp = new File(f.getParentFile(), f.getName() + ".tmp");
+        f.getParentFile().mkdirs();
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmp))))) {
+            out.writeInt(docs.length);
+            for (final Document doc: docs) {
+                out.writeUTF(doc.getParserObject() == null ? "" : doc.getParserObject().getClass().getName());
+                ParserProcess.writeDocument(out, doc);
+            }
+        } catch (final IOException | RuntimeException e) {
+            AbstractParser.log.warn("could not write parsed document of " + location.toNormalform(true) + " to cache: " + e.getMessage());
+            FileUtils.deletedelete(tmp);
+            return;
+        }
+        synchronized (this.index) {
+            final Entry previous = this.index.remove(urlhash);
+            if (previous != null) {
+                this.size -= previous.size;
+                if (!previous.key.equals(key)) FileUtils.deletedelete(file(urlhash, previous.key));
+            }
+            f.delete();
+            if (!tmp.renameTo(f)) {
+                FileUtils.deletedelete(tmp);
+                return;
+            }
+            this.index.put(urlhash, new Entry(key, f.length()));
+            this.size += f.length();
+            evict();
+        }
+    }
+
+    private void remove(final String urlhash, final String key) {
+        synchronized (this.index) {
+            final Entry entry = this.index.get(urlhash);
+            if (entry != null && entry.key.equals(key)) {
+                this.index.remove(urlhash);
+                this.size -= entry.size;
+            }
+        }
+        FileUtils.deletedelete(file(urlhash, key));
+    }
+
+    /**
+     * remove the least recently used entries until the cache fits into its budget
+     */
+    private void evict() {
+        synchronized (this.index) {
+            final Iterator<Map.Entry<String, Entry>> i = this.index.entrySet().iterator();
+            while (this.size > this.budget && i.hasNext()) {
+                final Map.Entry<String, Entry> e = i.next();
+                i.remove();
+                this.size -= e.getValue().size;
+                FileUtils.deletedelete(file(e.getKey(), e.getValue().key));
+            }
+        }
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int getCount() {
+        synchronized (this.index) {
+            return this.index.size();
+        }
+    }
+
+    /**
+     * @return the size of the cache files in bytes
+     */
+    public long getSize() {
+        synchronized (this.index) {
+            return this.size;
+        }
+    }
+
+    /**
+     * @return the maximum size of the cache files in bytes
+     */
+    public long getBudget() {
+        return this.budget;
+    }
+
+    /**
+     * remove all entries
+     */
+    public void clear() {
+        synchronized (this.index) {
+            this.index.clear();
+            this.size = 0;
+            final File[] subdirs = this.dir.listFiles();
+            if (subdirs != null) for (final File subdir: subdirs) FileUtils.deletedelete(subdir);
+        }
+    }
+
+}
@@ -0,0 +1,352 @@
+/**
+ *  ParserProcess.java
+ *  Copyright 2026 by the YaCy contributors; https://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.document.id.AnchorURL;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.document.parser.pdfParser;
+import net.yacy.document.parser.html.ImageEntry;
+
+/**
+ * A worker JVM which parses documents for the {@link ParserSandbox}. The parent writes a request with the content
+ * to the standard input of the worker and reads the documents one by one from its standard output.
+ * A worker which exceeds its heap terminates, a worker which exceeds the time budget is killed by the parent;
+ * in both cases the peer itself is not affected.
+ * The documents are transferred with their text, metadata, links and images; scraper objects, icons and linked data
+ * types are only created by the html parsers and are not transferred.
+ */
+public class ParserProcess {
+
+    private static final int PARSE = 1, QUIT = 2;
+    private static final int DOCUMENT = 1, END = 2, FAILURE = 3;
+
+    private final Process process;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+
+    private ParserProcess(final Process process) {
+        this.process = process;
+        this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        this.in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+    }
+
+    /**
+     * start a worker JVM with the class path of this JVM
+     * @param heap the maximum heap of the worker in megabytes
+     */
+    public static ParserProcess start(final int heap) throws IOException {
+        final List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-Xmx" + heap + "m");
+        command.add("-Djava.awt.headless=true");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ParserProcess.class.getName());
+        command.add(Boolean.toString(pdfParser.individualPages));
+        command.add(pdfParser.individualPagePropertyname);
+        final ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        return new ParserProcess(builder.start());
+    }
+
+    /**
+     * parse in the worker
+     * @return the documents of the parse
+     * @throws Parser.Failure if the parser failed in the worker
+     * @throws IOException if the worker terminated
+     */
+    public Document[] parse(final Parser parser, final ParserSandbox.Request request) throws Parser.Failure, IOException {
+        this.out.writeByte(PARSE);
+        this.out.writeUTF(parser.getClass().getName());
+        writeString(this.out, request.location.toNormalform(false));
+        writeString(this.out, request.mimeType);
+        writeString(this.out, request.charset);
+        writeStrings(this.out, request.ignoreClassNames);
+        this.out.writeInt(request.timezoneOffset);
+        this.out.writeInt(request.maxLinks);
+        this.out.writeLong(request.maxBytes);
+        this.out.writeInt(request.content.length);
+        this.out.write(request.content);
+        this.out.flush();
+
+        final List<Document> docs = new ArrayList<Document>();
+        while (true) {
+            final int answer = this.in.read();
+            if (answer == DOCUMENT) {
+                docs.add(readDocument(this.in, parser));
+            } else if (answer == END) {
+                return docs.toArray(new Document[docs.size()]);
+            } else if (answer == FAILURE) {
+                throw new Parser.Failure(readString(this.in), request.location);
+            } else {
+                throw new EOFException("parser process terminated");
+            }
+        }
+    }
+
+    public boolean isAlive() {
+        return this.process.isAlive();
+    }
+
+    /**
+     * kill the worker
+     */
+    public void destroy() {
+        this.process.destroyForcibly();
+    }
+
+    /**
+     * ask the worker to terminate, and kill it if it does not
+     */
+    public void close() {
+        try {
+            this.out.writeByte(QUIT);
+            this.out.flush();
+            if (this.process.waitFor(1, TimeUnit.SECONDS)) return;
+        } catch (final IOException e) {
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        destroy();
+    }
+
+    private static void writeString(final DataOutputStream out, final String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] b = UTF8.getBytes(s);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) return null;
+        final byte[] b = new byte[length];
+        in.readFully(b);
+        return UTF8.String(b);
+    }
+
+    private static void writeStrings(final DataOutputStream out, final Collection<String> strings) throws IOException {
+        if (strings == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(strings.size());
+        for (final String s: strings) writeString(out, s);
+    }
+
+    private static List<String> readStrings(final DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        if (size < 0) return null;
+        final List<String> strings = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) strings.add(readString(in));
+        return strings;
+    }
+
+    static void writeDocument(final DataOutputStream out, final Document doc) throws IOException {
+        writeString(out, doc.dc_source().toNormalform(false));
+        writeString(out, doc.dc_format());
+        writeString(out, doc.getCharset());
+        writeStrings(out, doc.getContentLanguages());
+        writeStrings(out, doc.dc_subject());
+        writeStrings(out, doc.titles());
+        writeString(out, doc.dc_creator());
+        writeString(out, doc.dc_publisher());
+        writeStrings(out, Arrays.asList(doc.getSectionTitles()));
+        writeStrings(out, Arrays.asList(doc.dc_description()));
+        out.writeDouble(doc.lon());
+        out.writeDouble(doc.lat());
+        writeString(out, doc.getTextString());
+        final Collection<AnchorURL> anchors = doc.getAnchors();
+        out.writeInt(anchors.size());
+        for (final AnchorURL anchor: anchors) {
+            writeString(out, anchor.toNormalform(false));
+            writeString(out, anchor.getNameProperty());
+            writeString(out, anchor.getTextProperty());
+            writeString(out, anchor.getRelProperty());
+        }
+        final Map<DigestURL, String> rss = doc.getRSS();
+        out.writeInt(rss.size());
+        for (final Map.Entry<DigestURL, String> entry: rss.entrySet()) {
+            writeString(out, entry.getKey().toNormalform(false));
+            writeString(out, entry.getValue());
+        }
+        final Map<DigestURL, ImageEntry> images = doc.getImages();
+        out.writeInt(images.size());
+        for (final ImageEntry image: images.values()) {
+            writeString(out, image.url().toNormalform(false));
+            writeString(out, image.alt());
+            out.writeInt(image.width());
+            out.writeInt(image.height());
+            out.writeLong(image.fileSize());
+        }
+        out.writeBoolean(doc.indexingDenied());
+        out.writeLong(doc.getLastModified().getTime());
+        out.writeBoolean(doc.isPartiallyParsed());
+        final Map<String, Set<String>> facets = doc.getGenericFacets();
+        out.writeInt(facets.size());
+        for (final Map.Entry<String, Set<String>> entry: facets.entrySet()) {
+            writeString(out, entry.getKey());
+            writeStrings(out, entry.getValue());
+        }
+    }
+
+    static Document readDocument(final DataInputStream in, final Parser parser) throws IOException {
+        final DigestURL source = new DigestURL(readString(in));
+        final String mimeType = readString(in);
+        final String charset = readString(in);
+        final List<String> languages = readStrings(in);
+        final List<String> keywords = readStrings(in);
+        final List<String> titles = readStrings(in);
+        final String creator = readString(in);
+        final String publisher = readString(in);
+        final List<String> sections = readStrings(in);
+        final List<String> descriptions = readStrings(in);
+        final double lon = in.readDouble();
+        final double lat = in.readDouble();
+        final String text = readString(in);
+        int size = in.readInt();
+        final List<AnchorURL> anchors = new ArrayList<AnchorURL>(size);
+        for (int i = 0; i < size; i++) {
+            final AnchorURL anchor = new AnchorURL(readString(in));
+            anchor.setNameProperty(readString(in));
+            anchor.setTextProperty(readString(in));
+            anchor.setRelProperty(readString(in));
+            anchors.add(anchor);
+        }
+        size = in.readInt();
+        final LinkedHashMap<DigestURL, String> rss = new LinkedHashMap<DigestURL, String>();
+        for (int i = 0; i < size; i++) rss.put(new DigestURL(readString(in)), readString(in));
+        size = in.readInt();
+        final LinkedHashMap<DigestURL, ImageEntry> images = new LinkedHashMap<DigestURL, ImageEntry>();
+        for (int i = 0; i < size; i++) {
+            final DigestURL url = new DigestURL(readString(in));
+            images.put(url, new ImageEntry(url, readString(in), in.readInt(), in.readInt(), in.readLong()));
+        }
+        final boolean indexingDenied = in.readBoolean();
+        final Date lastModified = new Date(in.readLong());
+        final boolean partiallyParsed = in.readBoolean();
+        final Document doc = new Document(source, mimeType, charset, parser,
+                languages == null ? null : new HashSet<String>(languages),
+                keywords == null ? null : keywords.toArray(new String[keywords.size()]),
+                titles, creator, publisher,
+                sections == null ? null : sections.toArray(new String[sections.size()]),
+                descriptions, lon, lat, text, anchors, rss, images, indexingDenied, lastModified);
+        doc.setPartiallyParsed(partiallyParsed);
+        size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            final String vocabulary = readString(in);
+            final List<String> tags = readStrings(in);
+            doc.getGenericFacets().put(vocabulary, tags == null ? new LinkedHashSet<String>() : new LinkedHashSet<String>(tags));
+        }
+        return doc;
+    }
+
+    static Parser parser(final String className) {
+        for (final Parser parser: TextParser.parsers()) {
+            if (parser.getClass().getName().equals(className)) return parser;
+        }
+        return null;
+    }
+
+    /**
+     * the worker: read requests from the standard input and write the documents to the standard output
+     * @param args the pdf parser settings: individual pages and the page property name
+     */
+    public static void main(final String[] args) {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        System.setOut(System.err); // log output must not be mixed into the documents
+        if (args.length > 1) {
+            pdfParser.individualPages = Boolean.parseBoolean(args[0]);
+            pdfParser.individualPagePropertyname = args[1];
+        }
+        TextParser.setSandbox(new ParserSandbox(0, 0, 0, 0, 0, null)); // parse directly, the parent watches the budget
+        try {
+            while (in.read() == PARSE) {
+                final Parser parser = parser(in.readUTF());
+                final DigestURL location = new DigestURL(readString(in));
+                final String mimeType = readString(in);
+                final String charset = readString(in);
+                final List<String> ignore = readStrings(in);
+                final int timezoneOffset = in.readInt();
+                final int maxLinks = in.readInt();
+                final long maxBytes = in.readLong();
+                final byte[] content = new byte[in.readInt()];
+                in.readFully(content);
+                try {
+                    if (parser == null) throw new Parser.Failure("no parser in worker process", location);
+                    final InputStream source = new ByteArrayInputStream(content);
+                    final Document[] docs = TextParser.applyParser(parser, location, mimeType, charset,
+                            ignore == null ? new HashSet<String>() : new HashSet<String>(ignore),
+                            new VocabularyScraper(), timezoneOffset, source, content.length, maxLinks, maxBytes);
+                    if (docs != null) for (final Document doc: docs) {
+                        // serialize the document completely before it is sent, so a failure can not interrupt it
+                        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                        final DataOutputStream bufferOut = new DataOutputStream(buffer);
+                        writeDocument(bufferOut, doc);
+                        bufferOut.flush();
+                        out.writeByte(DOCUMENT);
+                        buffer.writeTo(out);
+                    }
+                    out.writeByte(END);
+                } catch (final Throwable e) {
+                    out.writeByte(FAILURE);
+                    writeString(out, e instanceof Parser.Failure ? e.getMessage() : "parser failed in worker process: " + e);
+                    if (e instanceof Error) {
+                        out.flush();
+                        System.exit(1); // the state of the worker is unknown after an OutOfMemoryError
+                    }
+                }
+                out.flush();
+            }
+        } catch (final IOException e) {
+            // the parent terminated
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,589 @@
+/**
+ *  ParserSandbox.java
+ *  Copyright 2026 by the YaCy contributors; https://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.util.CommonPattern;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
+
+/**
+ * Execution service for the parsers. Each parse runs on a reusable worker thread of a pool and is watched
+ * for its budget of cpu time and of allocated heap bytes. A parse which exceeds its budget is cancelled: the caller
+ * gets a {@link Parser.Failure} at once and the worker thread is interrupted and runs on with the lowest priority
+ * until the parser gives up; such an abandoned thread keeps its slot until it terminates, so that runaway parsers
+ * can not pile up more threads than the pool size.
+ * Optionally, documents of heavy mime types are parsed in a pool of separate worker JVMs ({@link ParserProcess})
+ * with their own heap limit, which are killed when they exceed the time budget.
+ * The costs of all parses are counted for each parser.
+ */
+public class ParserSandbox {
+
+    /** the interval in milliseconds in which running parses are checked against their budget */
+    private static final long WATCHDOG_INTERVAL = 100;
+
+    /** the parse which runs on a thread, also on the threads which run a part of it; nested parses run directly */
+    private static final ThreadLocal<Job> current = new ThreadLocal<Job>();
+
+    /** true on a thread which parses for an interactive request, like a snippet or a page info; its parses bypass the pool */
+    private static final ThreadLocal<Boolean> interactive = new ThreadLocal<Boolean>();
+
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    /**
+     * the costs of a parser
+     */
+    public static class Cost {
+        public final String parserName;
+        public final AtomicLong count = new AtomicLong(0); // number of parses
+        public final AtomicLong failures = new AtomicLong(0); // number of parses which failed
+        public final AtomicLong cancelled = new AtomicLong(0); // number of parses which were cancelled because they exceeded the budget
+        public final AtomicLong isolated = new AtomicLong(0); // number of parses in a worker process
+        public final AtomicLong cpuNanos = new AtomicLong(0); // cpu time of the parses in worker threads
+        public final AtomicLong allocatedBytes = new AtomicLong(0); // heap bytes allocated by the parses in worker threads
+        public final AtomicLong wallMillis = new AtomicLong(0); // sum of the parse time
+        public final AtomicLong maxWallMillis = new AtomicLong(0); // longest parse time
+
+        private Cost(final String parserName) {
+            this.parserName = parserName;
+        }
+
+        private void add(final Job job) {
+            this.count.incrementAndGet();
+            if (job.failed) this.failures.incrementAndGet();
+            if (job.cancelReason != null) this.cancelled.incrementAndGet();
+            if (job.process != null) this.isolated.incrementAndGet();
+            this.cpuNanos.addAndGet(job.cpuNanos);
+            this.allocatedBytes.addAndGet(job.allocatedBytes);
+            final long wall = System.currentTimeMillis() - job.startTime;
+            this.wallMillis.addAndGet(wall);
+            long m;
+            while (wall > (m = this.maxWallMillis.get()) && !this.maxWallMillis.compareAndSet(m, wall)) {}
+        }
+    }
+
+    /**
+     * the parameters of a parse, as needed to repeat it in a worker process
+     */
+    public static class Request {
+        public final DigestURL location;
+        public final String mimeType;
+        public final String charset;
+        public final Set<String> ignoreClassNames;
+        public final int timezoneOffset;
+        public final int maxLinks;
+        public final long maxBytes;
+        public final byte[] content;
+
+        /**
+         * @param content the content to parse, or null if the content is read from a stream which can not be handed to a worker process
+         */
+        public Request(final DigestURL location, final String mimeType, final String charset, final Set<String> ignoreClassNames,
+                final int timezoneOffset, final int maxLinks, final long maxBytes, final byte[] content) {
+            this.location = location;
+            this.mimeType = mimeType;
+            this.charset = charset;
+            this.ignoreClassNames = ignoreClassNames == null ? Collections.<String>emptySet() : ignoreClassNames;
+            this.timezoneOffset = timezoneOffset;
+            this.maxLinks = maxLinks;
+            this.maxBytes = maxBytes;
+            this.content = content;
+        }
+    }
+
+    /**
+     * a running parse
+     */
+    private final class Job {
+        private final String parserName;
+        private final ParserProcess process;
+        private final long startTime;
+        private volatile Thread thread;
+        private volatile Future<?> future;
+        private volatile long startCpu, startAllocated, cpuNanos, allocatedBytes;
+        private volatile boolean failed, finished;
+        private volatile String cancelReason;
+        private final AtomicBoolean claimed = new AtomicBoolean(false); // true when the worker thread started the parse or the parse was given up before
+        private final Map<Thread, long[]> helpers = new ConcurrentHashMap<Thread, long[]>(); // other threads running a part of the parse, with their start cpu time and allocated bytes
+        private final AtomicLong helperCpu = new AtomicLong(0), helperAllocated = new AtomicLong(0); // costs of the finished parts on other threads
+
+        private Job(final String parserName, final ParserProcess process) {
+            this.parserName = parserName;
+            this.process = process;
+            this.startTime = System.currentTimeMillis();
+            this.cancelReason = null;
+            this.failed = false;
+            this.finished = false;
+        }
+
+        /** called by the worker thread when it starts the parse */
+        private void start() {
+            this.thread = Thread.currentThread();
+            this.thread.setPriority(Thread.NORM_PRIORITY); // the thread may have been abandoned by an earlier parse
+            this.startCpu = cpuTime(this.thread);
+            this.startAllocated = allocatedBytes(this.thread);
+        }
+
+        /** called by the worker thread when the parse is finished; the worker thread gives back its slot */
+        private void finish() {
+            measure();
+            synchronized (this) {
+                this.finished = true;
+                if (this.cancelReason != null) ParserSandbox.this.abandoned.decrementAndGet();
+            }
+            ParserSandbox.this.slots.release();
+        }
+
+        /** called by another thread when it starts to run a part of the parse */
+        private void enter() {
+            final Thread t = Thread.currentThread();
+            this.helpers.put(t, new long[]{cpuTime(t), allocatedBytes(t)});
+            if (this.cancelReason != null) t.setPriority(Thread.MIN_PRIORITY);
+        }
+
+        /** called by another thread when it finished a part of the parse; its costs are added to the parse */
+        private void leave() {
+            final Thread t = Thread.currentThread();
+            final long[] start = this.helpers.remove(t);
+            if (start != null) {
+                final long cpu = cpuTime(t);
+                if (cpu >= 0 && start[0] >= 0) this.helperCpu.addAndGet(cpu - start[0]);
+                final long allocated = allocatedBytes(t);
+                if (allocated >= 0 && start[1] >= 0) this.helperAllocated.addAndGet(allocated - start[1]);
+            }
+            t.setPriority(Thread.NORM_PRIORITY);
+        }
+
+        private void measure() {
+            final Thread t = this.thread;
+            if (t == null) return;
+            long cpu = cpuTime(t);
+            if (cpu >= 0 && this.startCpu >= 0) {
+                cpu = cpu - this.startCpu + this.helperCpu.get();
+                for (final Map.Entry<Thread, long[]> helper: this.helpers.entrySet()) {
+                    final long c = cpuTime(helper.getKey());
+                    if (c >= 0 && helper.getValue()[0] >= 0) cpu += c - helper.getValue()[0];
+                }
+                this.cpuNanos = cpu;
+            }
+            long allocated = allocatedBytes(t);
+            if (allocated >= 0 && this.startAllocated >= 0) {
+                allocated = allocated - this.startAllocated + this.helperAllocated.get();
+                for (final Map.Entry<Thread, long[]> helper: this.helpers.entrySet()) {
+                    final long a = allocatedBytes(helper.getKey());
+                    if (a >= 0 && helper.getValue()[1] >= 0) allocated += a - helper.getValue()[1];
+                }
+                this.allocatedBytes = allocated;
+            }
+        }
+
+        /** called by the watchdog; cancel the parse if it exceeds the budget */
+        private void check() {
+            if (this.finished) return;
+            final long wall = System.currentTimeMillis() - this.startTime;
+            if (this.process != null) {
+                if (ParserSandbox.this.cpuBudget > 0 && wall > ParserSandbox.this.cpuBudget) cancel("exceeded the time budget of " + ParserSandbox.this.cpuBudget + " ms in a worker process");
+                return;
+            }
+            if (this.thread == null) return;
+            measure();
+            if (ParserSandbox.this.cpuBudget > 0) {
+                if (this.startCpu >= 0 ? this.cpuNanos > ParserSandbox.this.cpuBudget * 1000000L : wall > ParserSandbox.this.cpuBudget) {
+                    cancel("exceeded the cpu time budget of " + ParserSandbox.this.cpuBudget + " ms");
+                    return;
+                }
+            }
+            if (ParserSandbox.this.heapBudget > 0 && this.startAllocated >= 0 && this.allocatedBytes > ParserSandbox.this.heapBudget) {
+                cancel("exceeded the heap budget of " + (ParserSandbox.this.heapBudget / 1024 / 1024) + " MB");
+            }
+        }
+
+        private void cancel(final String reason) {
+            synchronized (this) {
+                if (this.finished || this.cancelReason != null) return;
+                this.cancelReason = reason;
+                if (this.process == null) ParserSandbox.this.abandoned.incrementAndGet();
+            }
+            AbstractParser.log.warn("cancelled parser " + this.parserName + ": " + reason);
+            if (this.process != null) {
+                this.process.destroy();
+                return;
+            }
+            final Thread t = this.thread;
+            if (t != null) t.setPriority(Thread.MIN_PRIORITY);
+            for (final Thread helper: this.helpers.keySet()) helper.setPriority(Thread.MIN_PRIORITY);
+            final Future<?> f = this.future;
+            if (f != null) f.cancel(true);
+        }
+    }
+
+    private final int threads;
+    private final long cpuBudget, heapBudget;
+    private final int processCount, processHeap;
+    private final String[] processMimePrefixes;
+    private final Semaphore slots, processSlots;
+    private final ThreadPoolExecutor executor;
+    private final Set<Job> running = ConcurrentHashMap.newKeySet();
+    private final Map<String, Cost> costs = new ConcurrentHashMap<String, Cost>();
+    private final AtomicInteger abandoned = new AtomicInteger(0);
+    private final ConcurrentLinkedQueue<ParserProcess> idleProcesses = new ConcurrentLinkedQueue<ParserProcess>();
+    private final AtomicInteger processes = new AtomicInteger(0);
+    private Thread watchdog = null;
+    private volatile boolean closed = false;
+
+    /**
+     * @param threads the maximum number of concurrent parses; 0 or less runs each parse directly on the calling thread without budget
+     * @param cpuBudget the maximum cpu time of a parse in milliseconds, 0 for no limit
+     * @param heapBudget the maximum number of heap bytes a parse may allocate in total, also counting the garbage, 0 for no limit
+     * @param processCount the maximum number of worker processes, 0 to parse everything in this process
+     * @param processHeap the maximum heap of a worker process in megabytes
+     * @param processMimePrefixes the mime types (or their prefixes) which are parsed in a worker process
+     */
+    public ParserSandbox(final int threads, final long cpuBudget, final long heapBudget,
+            final int processCount, final int processHeap, final String[] processMimePrefixes) {
+        this.threads = threads;
+        this.cpuBudget = cpuBudget;
+        this.heapBudget = heapBudget;
+        this.processCount = processCount;
+        this.processHeap = processHeap;
+        this.processMimePrefixes = processMimePrefixes == null ? new String[0] : processMimePrefixes;
+        this.slots = new Semaphore(Math.max(1, threads), true);
+        this.processSlots = new Semaphore(Math.max(1, processCount), true);
+        final ThreadFactory factory = new NamePrefixThreadFactory("parserSandbox");
+        // the pool needs no more threads than slots, because a slot is only given back when its thread terminates the parse
+        this.executor = threads <= 0 ? null : new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+            final Thread t = factory.newThread(r);
+            t.setDaemon(true); // an abandoned parser must not prevent the shutdown
+            return t;
+        });
+        if (this.executor != null) this.executor.allowCoreThreadTimeOut(true);
+        if (threadBean.isThreadCpuTimeSupported() && !threadBean.isThreadCpuTimeEnabled()) {
+            try {threadBean.setThreadCpuTimeEnabled(true);} catch (final UnsupportedOperationException e) {}
+        }
+    }
+
+    /**
+     * @param mimePrefixes a comma-separated list of mime types or mime type prefixes
+     * @return the parsed list, for the constructor
+     */
+    public static String[] mimePrefixes(final String mimePrefixes) {
+        final List<String> l = new ArrayList<String>();
+        if (mimePrefixes != null) for (final String s: CommonPattern.COMMA.split(mimePrefixes)) {
+            final String p = s.trim().toLowerCase(Locale.ROOT);
+            if (!p.isEmpty()) l.add(p);
+        }
+        return l.toArray(new String[l.size()]);
+    }
+
+    /**
+     * Parse with the budget of this sandbox.
+     * @param parser the parser which is applied
+     * @param request the parameters of the parse; a request with content may be handed to a worker process
+     * @param task the parse in this process
+     * @return the documents of the parse
+     * @throws Parser.Failure if the parse exceeded the budget, or the failure of the parser
+     * @throws Exception any other exception of the task
+     */
+    public Document[] parse(final Parser parser, final Request request, final Callable<Document[]> task) throws Exception {
+        if (this.executor == null || this.closed || current.get() != null) {
+            // nested parses are covered by the budget of their container
+            return task.call();
+        }
+        if (interactive.get() != null) {
+            // a user waits for the parse; it must not queue behind the crawler parses for a slot
+            return task.call();
+        }
+        if (isolate(request)) {
+            final Document[] docs = parseInProcess(parser, request);
+            if (docs != null) return docs;
+        }
+        return parseInThread(parser, request, task);
+    }
+
+    /**
+     * Mark the parses of the current thread as interactive: they run directly on the calling thread instead of waiting
+     * for a slot of the pool, which is shared with the crawler. Use it in a try/finally block and restore the previous state.
+     * @param on true for interactive parses
+     * @return the previous state
+     */
+    public static boolean interactive(final boolean on) {
+        final boolean previous = interactive.get() != null;
+        if (on) interactive.set(Boolean.TRUE); else interactive.remove();
+        return previous;
+    }
+
+    /**
+     * wrap a task which runs a part of a parse on another thread, like the parse of an archive member;
+     * the cpu time and the allocated bytes of the task are charged to the parse which submitted it and nested
+     * parses in the task run directly, so that they are covered by its budget. If the task is submitted outside
+     * of a parse in a worker thread, the parses in the task get their own budget.
+     * @param task the part of the parse
+     * @return the task to run on the other thread
+     */
+    static <T> Callable<T> nested(final Callable<T> task) {
+        final Job job = current.get();
+        if (job == null || job.thread == null) return task;
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                if (Thread.currentThread() == job.thread) return task.call(); // runs on the thread of the parse
+                final Job previous = current.get();
+                current.set(job);
+                job.enter();
+                try {
+                    return task.call();
+                } finally {
+                    job.leave();
+                    if (previous == null) current.remove(); else current.set(previous);
+                }
+            }
+        };
+    }
+
+    private boolean isolate(final Request request) {
+        if (this.processCount <= 0 || request.content == null || request.mimeType == null) return false;
+        for (final String prefix: this.processMimePrefixes) {
+            if (request.mimeType.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private Document[] parseInThread(final Parser parser, final Request request, final Callable<Document[]> task) throws Exception {
+        try {
+            this.slots.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Parser.Failure("parser " + parser.getName() + " interrupted", request.location);
+        }
+        final Job job = new Job(parser.getName(), null);
+        try {
+            this.running.add(job);
+            startWatchdog();
+            final Future<Document[]> future = this.executor.submit(new Callable<Document[]>() {
+                @Override
+                public Document[] call() throws Exception {
+                    if (!job.claimed.compareAndSet(false, true)) return null; // the parse was given up before it started
+                    job.start();
+                    current.set(job);
+                    final String name = Thread.currentThread().getName();
+                    Thread.currentThread().setName("parsing " + request.location.toNormalform(true)); // to get the address in a thread dump
+                    try {
+                        return task.call();
+                    } catch (final Throwable e) {
+                        job.failed = true;
+                        throw e;
+                    } finally {
+                        Thread.currentThread().setName(name);
+                        current.remove();
+                        job.finish();
+                    }
+                }
+            });
+            job.future = future;
+            try {
+                return future.get();
+            } catch (final CancellationException e) {
+                throw new Parser.Failure("parser " + parser.getName() + " " + job.cancelReason, request.location);
+            } catch (final InterruptedException e) {
+                job.cancel("was interrupted");
+                Thread.currentThread().interrupt();
+                throw new Parser.Failure("parser " + parser.getName() + " interrupted", request.location);
+            } catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof Exception) throw (Exception) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new Parser.Failure(String.valueOf(cause), request.location);
+            }
+        } finally {
+            this.running.remove(job);
+            cost(job.parserName).add(job);
+            // the slot is given back by the worker thread when the parse terminates, or here if the parse never started
+            if (job.claimed.compareAndSet(false, true)) this.slots.release();
+        }
+    }
+
+    /**
+     * @return the documents, or null if no worker process could be started
+     */
+    private Document[] parseInProcess(final Parser parser, final Request request) throws Parser.Failure {
+        try {
+            this.processSlots.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Parser.Failure("parser " + parser.getName() + " interrupted", request.location);
+        }
+        ParserProcess process = null;
+        try {
+            process = this.idleProcesses.poll();
+            if (process == null) {
+                try {
+                    process = ParserProcess.start(this.processHeap);
+                    this.processes.incrementAndGet();
+                } catch (final IOException e) {
+                    AbstractParser.log.warn("could not start a parser process, parsing in this process: " + e.getMessage());
+                    return null;
+                }
+            }
+            final Job job = new Job(parser.getName(), process);
+            this.running.add(job);
+            startWatchdog();
+            try {
+                return process.parse(parser, request);
+            } catch (final Parser.Failure e) {
+                job.failed = true;
+                throw e;
+            } catch (final IOException e) {
+                job.failed = true;
+                process.destroy();
+                throw new Parser.Failure("parser " + parser.getName() + " " + (job.cancelReason == null ? "failed in a worker process: " + e.getMessage() : job.cancelReason), request.location);
+            } finally {
+                synchronized (job) {
+                    job.finished = true;
+                }
+                this.running.remove(job);
+                cost(job.parserName).add(job);
+            }
+        } finally {
+            if (process != null) {
+                if (process.isAlive() && !this.closed) {
+                    this.idleProcesses.add(process);
+                } else {
+                    process.destroy();
+                    this.processes.decrementAndGet();
+                }
+            }
+            this.processSlots.release();
+        }
+    }
+
+    private synchronized void startWatchdog() {
+        if (this.watchdog != null) return;
+        this.watchdog = new Thread("ParserSandbox.watchdog") {
+            @Override
+            public void run() {
+                while (!ParserSandbox.this.closed) {
+                    for (final Job job: ParserSandbox.this.running) job.check();
+                    try {
+                        Thread.sleep(WATCHDOG_INTERVAL);
+                    } catch (final InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        };
+        this.watchdog.setDaemon(true);
+        this.watchdog.start();
+    }
+
+    private Cost cost(final String parserName) {
+        Cost cost = this.costs.get(parserName);
+        if (cost == null) {
+            cost = new Cost(parserName);
+            final Cost c = this.costs.putIfAbsent(parserName, cost);
+            if (c != null) cost = c;
+        }
+        return cost;
+    }
+
+    private static long cpuTime(final Thread t) {
+        if (!threadBean.isThreadCpuTimeSupported()) return -1;
+        return threadBean.getThreadCpuTime(t.getId());
+    }
+
+    private static long allocatedBytes(final Thread t) {
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) return -1;
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+        if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled()) return -1;
+        return bean.getThreadAllocatedBytes(t.getId());
+    }
+
+    /**
+     * @return the costs of all parsers which were used
+     */
+    public Collection<Cost> getCosts() {
+        return this.costs.values();
+    }
+
+    /**
+     * @return the number of running parses
+     */
+    public int getRunning() {
+        return this.running.size();
+    }
+
+    /**
+     * @return the number of cancelled parses whose threads did not terminate yet; they still hold their slots
+     */
+    public int getAbandoned() {
+        return this.abandoned.get();
+    }
+
+    /**
+     * @return the number of worker processes
+     */
+    public int getProcesses() {
+        return this.processes.get();
+    }
+
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * stop the watchdog and the worker processes; running parses are cancelled
+     */
+    public void close() {
+        this.closed = true;
+        synchronized (this) {
+            if (this.watchdog != null) this.watchdog.interrupt();
+        }
+        for (final Job job: this.running) job.cancel("was stopped");
+        if (this.executor != null) this.executor.shutdown();
+        ParserProcess process;
+        while ((process = this.idleProcesses.poll()) != null) {
+            process.close();
+            this.processes.decrementAndGet();
+        }
+    }
+}
@@ -32,6 +32,7 @@ import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.input.CloseShieldInputStream;
@@ -91,6 +92,12 @@ public final class TextParser {
     private static final Map<String, Object> denyMime = new ConcurrentHashMap<String, Object>();
     private static final Map<String, Object> denyExtensionx = new ConcurrentHashMap<String, Object>();
 
+    /** the execution service of the parsers; without configuration each parse has one minute of cpu time and no heap budget */
+    private static volatile ParserSandbox sandbox = new ParserSandbox(Runtime.getRuntime().availableProcessors() * 2, 60000, 0, 0, 0, null);
+
+    /** the store of parsed documents which is used for parses of a content in memory; null without configuration */
+    private static volatile ParsedDocumentCache parsedDocumentCache = null;
+
     static {
         initParser(new apkParser());
         initParser(new bzipParser());
@@ -236,8 +243,18 @@ public final class TextParser {
         }
         assert !idioms.isEmpty() : "no parsers applied for url " + location.toNormalform(true);
 
+        // the same content may have been parsed before; documents of the html parser are not stored
+        final ParsedDocumentCache cache = parsedDocumentCache;
+        final byte[] contentDigest = cache == null || content == null || idioms.iterator().next() instanceof htmlParser ? null : ParsedDocumentCache.digest(content);
+        final String options = contentDigest == null ? null : parseOptions(ignore_class_name, scraper);
+        if (contentDigest != null) {
+            final Document[] cached = cache.get(location, mimeType, charset, options, contentDigest, depth);
+            if (cached != null) return cached;
+        }
+
         Document[] docs = parseSource(location, mimeType, idioms, charset, ignore_class_name, scraper, timezoneOffset, depth, content, Integer.MAX_VALUE, Long.MAX_VALUE);
 
+        if (contentDigest != null) cache.put(location, mimeType, charset, options, contentDigest, docs);
         return docs;
     }
     
@@ -489,15 +506,8 @@ public final class TextParser {
 
         if (AbstractParser.log.isFine()) AbstractParser.log.fine("Parsing " + location + " with mimeType '" + mimeType + "' and file extension '" + fileExt + "'.");
         try {
-            final Document[] docs;
-            if(parser.isParseWithLimitsSupported()) {
-            	docs = parser.parseWithLimits(location, mimeType, documentCharset, ignore_class_name, scraper, timezoneOffset, sourceStream, maxLinks, maxBytes);
-            } else {
-            	/* Parser do not support partial parsing within limits : let's control it here*/
-    			InputStream limitedSource = new StrictLimitInputStream(sourceStream, maxBytes);
-            	docs = parser.parse(location, mimeType, documentCharset, ignore_class_name, scraper, timezoneOffset, limitedSource);
-            }
-            return docs;
+            final ParserSandbox.Request request = new ParserSandbox.Request(location, mimeType, documentCharset, ignore_class_name, timezoneOffset, maxLinks, maxBytes, null);
+            return sandbox.parse(parser, request, () -> applyParser(parser, location, mimeType, documentCharset, ignore_class_name, scraper, timezoneOffset, sourceStream, -1, maxLinks, maxBytes));
         } catch(Parser.Failure e) {
         	throw e;
         } catch (final Exception e) {
@@ -551,15 +561,9 @@ public final class TextParser {
             	    bis = new ByteArrayInputStream(sourceArray);
             	}
                 try {
-                	if(parser.isParseWithLimitsSupported()) {
-                		docs = parser.parseWithLimits(location, mimeType, documentCharset, ignore_class_name, scraper, timezoneOffset, bis, maxLinks, maxBytes);
-                	} else {
-                        /* Partial parsing is not supported by this parser : check content length now */
-                       	if(sourceArray.length > maxBytes) {
-                       		throw new Parser.Failure("Content size is over maximum size of " + maxBytes + "", location);		
-                       	}
-                		docs = parser.parse(location, mimeType, documentCharset, ignore_class_name, scraper, timezoneOffset, bis);
-                	}
+                	final InputStream source = bis;
+                	final ParserSandbox.Request request = new ParserSandbox.Request(location, mimeType, documentCharset, ignore_class_name, timezoneOffset, maxLinks, maxBytes, sourceArray);
+                	docs = sandbox.parse(parser, request, () -> applyParser(parser, location, mimeType, documentCharset, ignore_class_name, scraper, timezoneOffset, source, sourceArray.length, maxLinks, maxBytes));
                 } catch (final Parser.Failure e) {
 					if(parser instanceof gzipParser && e.getCause() instanceof GZIPOpeningStreamException && 
 							(parsers.size() == 1 || (parsers.size() == 2 && parsers.contains(genericIdiom)))) {
@@ -638,6 +642,104 @@ public final class TextParser {
         return docs;
     }
 
+    /**
+     * Apply a parser within the limits: parsers which do not support partial parsing fail on content over maxBytes.
+     * @param location the URL of the source
+     * @param mimeType the mime type of the source, if known
+     * @param parser a parser supporting the resource at location
+     * @param charset the charset name of the source, if known
+     * @param scraper a vocabulary scraper
+     * @param timezoneOffset the local time zone offset
+     * @param source an open input stream on the source
+     * @param sourceLength the length of the source, or -1 if unknown
+     * @param maxLinks the maximum total number of links to parse and add to the result documents
+     * @param maxBytes the maximum number of content bytes to process
+     * @return a list of documents that result from parsing the source
+     * @throws Parser.Failure when the source could not be parsed
+     * @throws InterruptedException when the parser was interrupted
+     */
+    static Document[] applyParser(
+            final Parser parser,
+            final DigestURL location,
+            final String mimeType,
+            final String charset,
+            final Set<String> ignore_class_name,
+            final VocabularyScraper scraper,
+            final int timezoneOffset,
+            final InputStream source,
+            final long sourceLength,
+            final int maxLinks,
+            final long maxBytes
+        ) throws Parser.Failure, InterruptedException {
+        if (parser.isParseWithLimitsSupported()) {
+            return parser.parseWithLimits(location, mimeType, charset, ignore_class_name, scraper, timezoneOffset, source, maxLinks, maxBytes);
+        }
+        if (sourceLength < 0) {
+            /* Parser do not support partial parsing within limits : let's control it here*/
+            return parser.parse(location, mimeType, charset, ignore_class_name, scraper, timezoneOffset, new StrictLimitInputStream(source, maxBytes));
+        }
+        /* Partial parsing is not supported by this parser : check content length now */
+        if (sourceLength > maxBytes) {
+            throw new Parser.Failure("Content size is over maximum size of " + maxBytes + "", location);
+        }
+        return parser.parse(location, mimeType, charset, ignore_class_name, scraper, timezoneOffset, source);
+    }
+
+    /**
+     * @return the execution service of the parsers
+     */
+    public static ParserSandbox getSandbox() {
+        return sandbox;
+    }
+
+    /**
+     * replace the execution service of the parsers; the previous service is closed
+     */
+    public static void setSandbox(final ParserSandbox newSandbox) {
+        final ParserSandbox previous = sandbox;
+        sandbox = newSandbox;
+        if (previous != null && previous != newSandbox) previous.close();
+    }
+
+    /**
+     * @return the parameters of a parse which change the documents, as part of the key of the store of parsed documents
+     */
+    public static String parseOptions(final Set<String> ignoreClassNames, final VocabularyScraper scraper) {
+        return (ignoreClassNames == null ? "[]" : new TreeSet<String>(ignoreClassNames).toString()) + " " + scraper;
+    }
+
+    /**
+     * @param location the url of a content
+     * @param mimeType the mime type of the content
+     * @return the store of parsed documents if the documents of the content can be stored there, or null if they are
+     * not stored : without a store, for contents of the html parser and for contents which are not supported
+     */
+    public static ParsedDocumentCache getParsedDocumentCache(final MultiProtocolURL location, final String mimeType) {
+        final ParsedDocumentCache cache = parsedDocumentCache;
+        if (cache == null) return null;
+        try {
+            final Set<Parser> idioms = parsers(location, normalizeMimeType(mimeType));
+            return idioms.isEmpty() || idioms.iterator().next() instanceof htmlParser ? null : cache;
+        } catch (final Parser.Failure e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the store of parsed documents, or null if parsed documents are not stored
+     */
+    public static ParsedDocumentCache getParsedDocumentCache() {
+        return parsedDocumentCache;
+    }
+
+    /**
+     * set the store of parsed documents
+     * @param cache the store, or null to parse every content
+     */
+    public static void setParsedDocumentCache(final ParsedDocumentCache cache) {
+        parsedDocumentCache = cache;
+    }
+
     /**
      * check if the parser supports the given content.
      * @param url
@@ -64,7 +64,17 @@ public class Tokenizer {
     public int RESULT_NUMB_SENTENCES = -1;
     public Bitfield RESULT_FLAGS = new Bitfield(4);
 
+    /** the engine holding the terms of the words while a subclass adds more words, see {@link #releaseEngine()} */
+    TokenizerEngine engine = null;
+
     public Tokenizer(final DigestURL root, final String text, final WordCache meaningLib, boolean doAutotagging, final VocabularyScraper scraper) {
+        this(root, text, meaningLib, doAutotagging, scraper, false);
+    }
+
+    /**
+     * @param keepEngine if true, the tokenizer engine and its terms are kept for the subclass, which must call {@link #releaseEngine()}
+     */
+    protected Tokenizer(final DigestURL root, final String text, final WordCache meaningLib, boolean doAutotagging, final VocabularyScraper scraper, final boolean keepEngine) {
         this.words = new TreeMap<String, Word>(NaturalOrder.naturalComparator);
         this.synonyms = new LinkedHashSet<String>();
         assert text != null;
@@ -81,59 +91,70 @@ public class Tokenizer {
         //final Map<StringBuilder, Phrase> sentences = new HashMap<StringBuilder, Phrase>(100);
         if (LibraryProvider.autotagging.isEmpty()) doAutotagging = false;
 
-        // read source
-        WordTokenizer wordenum = new WordTokenizer(new SentenceReader(text), meaningLib);
+        // read source; the words are slices of the text and are counted in the term table of the engine
+        final TokenizerEngine wordenum = TokenizerEngine.acquire();
+        final TokenizerEngine.Terms terms = wordenum.terms();
+        boolean release = true;
         try {
-            while (wordenum.hasMoreElements()) {
-                String word = wordenum.nextElement().toString().toLowerCase(Locale.ENGLISH);
+            wordenum.tokenize(text, false);
+            while (wordenum.next()) {
+                if (meaningLib != null) WordCache.learn(wordenum.chars(), wordenum.start(), wordenum.length());
+                final int length = wordenum.lowerCase();
+                final char[] word = wordenum.lowercase();
                 // handle punktuation (start new sentence)
-                if (word.length() == 1 && SentenceReader.punctuation(word.charAt(0))) {
+                if (length == 1 && SentenceReader.punctuation(word[0])) {
                     // store sentence
                     if (wordInSentenceCounter > 1) // if no word in sentence repeated punktuation ".....", don't count as sentence
                         allsentencecounter++;
                     wordInSentenceCounter = 1;
                     continue;
                 }
-                if (word.length() < wordminsize) continue;
+                if (length < wordminsize) continue;
+                int term = terms.find(word, 0, length);
+                String key = null;
 
                 // get tags from autotagging
                 if (doAutotagging) {
+                    key = term < 0 ? new String(word, 0, length) : terms.key(term);
                     Set<String> vocabularyNames = LibraryProvider.autotagging.getVocabularyNames();
                     extendVocabularies(root, scraper, vocabularyNames);
                     
-                    extractAutoTagsFromText(wordcache, word, vocabularyNames);
+                    extractAutoTagsFromText(wordcache, key, vocabularyNames);
+
+                    // shift wordcache
+                    System.arraycopy(wordcache, 1, wordcache, 0, wordcache.length - 1);
+                    wordcache[wordcache.length - 1] = key;
                 }
-                // shift wordcache
-                System.arraycopy(wordcache, 1, wordcache, 0, wordcache.length - 1);
-                wordcache[wordcache.length - 1] = word;
 
                 // check index.of detection
-                if (last_last && comb_indexof && word.equals("modified")) {
+                if (last_last && comb_indexof && equals(word, length, "modified")) {
                     this.RESULT_FLAGS.set(flag_cat_indexof, true);
                     wordenum.pre(true); // parse lines as they come with CRLF
                 }
-                if (last_index && (wordminsize > 2 || word.equals("of"))) comb_indexof = true;
-                last_last = word.equals("last");
-                last_index = word.equals("index");
+                if (last_index && (wordminsize > 2 || equals(word, length, "of"))) comb_indexof = true;
+                last_last = equals(word, length, "last");
+                last_index = equals(word, length, "index");
 
                 // store word
                 allwordcounter++;
-                Word wsp = this.words.get(word);
-                if (wsp != null) {
+                if (term >= 0) {
                     // word already exists
-                    wsp.inc();
+                    terms.word(term).inc();
                 } else {
                     // word does not yet exist, create new word entry
-                    wsp = new Word(allwordcounter, wordInSentenceCounter, allsentencecounter + 100); // nomal sentence start at 100 !
+                    final Word wsp = new Word(allwordcounter, wordInSentenceCounter, allsentencecounter + 100); // nomal sentence start at 100 !
                     wsp.flags = this.RESULT_FLAGS.clone();
-                    this.words.put(word, wsp);
+                    terms.add(word, 0, length, key, wsp);
                 }
                 // we now have the unique handle of the word, put it into the sentence:
                 wordInSentenceCounter++;
             }
+            for (int t = 0; t < terms.size(); t++) {
+                this.words.put(terms.key(t), terms.word(t));
+            }
+            release = !keepEngine;
         } finally {
-            wordenum.close();
-            wordenum = null;
+            if (release) wordenum.release(); else this.engine = wordenum;
         }
 
         if (pseudostemming) {
@@ -257,6 +278,24 @@ public class Tokenizer {
 		}
 	}
 
+    private static boolean equals(final char[] word, final int length, final String s) {
+        if (length != s.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (word[i] != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * release the tokenizer engine which was kept for a subclass
+     */
+    protected void releaseEngine() {
+        if (this.engine != null) {
+            this.engine.release();
+            this.engine = null;
+        }
+    }
+
     /**
      * @return returns the words as word/indexWord relation map. All words are lowercase.
      */
@@ -0,0 +1,388 @@
+/**
+ *  TokenizerEngine
+ *  Copyright 2026 by the YaCy contributors; https://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import net.yacy.kelondro.data.word.Word;
+
+/**
+ * A tokenizer which enumerates the same words as a {@link WordTokenizer} on a {@link SentenceReader},
+ * but without creating objects: the text is copied into a char array and each word is a slice of that array.
+ * Lower-case words are collected in a {@link Terms} table, which is an open-addressing hash table that is
+ * probed with char slices, so a string is only created once for each distinct word.
+ * <p>
+ * The words are read ahead as by the word tokenizer and the sentence reader, so switching to {@link #pre(boolean)}
+ * mode takes effect at the same sentence. Engines are pooled for each thread, see {@link #acquire()}.
+ */
+final class TokenizerEngine {
+
+    /** engines which are released with larger buffers do not keep these buffers */
+    private static final int MAX_POOLED_LENGTH = 1 << 20;
+
+    /** the pooled engine of each thread; an engine is removed from the pool while it is used */
+    private static final ThreadLocal<TokenizerEngine> pool = new ThreadLocal<TokenizerEngine>();
+
+    private final Terms terms = new Terms();
+
+    // the text
+    private char[] text = new char[1024];
+    private int length;
+
+    // the sentence reader: the next sentence is parsed in advance
+    private boolean pre;
+    private int pos;
+    private boolean sentence;
+    private int sentenceStart, sentenceEnd;
+
+    // the words of the current sentence
+    private int[] wordStart = new int[64], wordEnd = new int[64];
+    private int words, wordIndex;
+
+    // the look-ahead of the word enumerations
+    private int unsievedStart = -1, unsievedEnd;
+    private int bufferStart = -1, bufferEnd;
+
+    // the current word and its lower-case form
+    private int start, end;
+    private char[] lowercase = new char[64];
+
+    private TokenizerEngine() {
+    }
+
+    /**
+     * get the pooled engine of the current thread; if that is in use, a new engine is returned.
+     * An engine which is not released because of an exception is just not pooled again.
+     * @return an engine which should be released after use
+     */
+    static TokenizerEngine acquire() {
+        final TokenizerEngine engine = pool.get();
+        if (engine == null) return new TokenizerEngine();
+        pool.set(null);
+        return engine;
+    }
+
+    /**
+     * release the engine to the pool of the current thread; words and terms must not be used afterwards
+     */
+    void release() {
+        this.terms.clear();
+        if (this.text.length > MAX_POOLED_LENGTH) this.text = new char[1024];
+        this.length = 0;
+        pool.set(this);
+    }
+
+    /**
+     * @return the table of terms; it is cleared when the engine is released
+     */
+    Terms terms() {
+        return this.terms;
+    }
+
+    /**
+     * start to tokenize a text
+     * @param s the text
+     * @param pre when true sentences can not include line break characters
+     */
+    void tokenize(final String s, final boolean pre) {
+        this.length = s.length();
+        if (this.text.length < this.length) this.text = new char[Math.max(this.length, this.text.length * 2)];
+        s.getChars(0, this.length, this.text, 0);
+        this.pre = pre;
+        this.pos = 0;
+        this.words = 0;
+        this.wordIndex = 0;
+        this.sentence = parseSentence();
+        this.unsievedStart = nextUnsieved();
+        this.unsievedEnd = this.end;
+        this.bufferStart = nextUnsievedElement();
+        this.bufferEnd = this.end;
+    }
+
+    /**
+     * @see SentenceReader#pre(boolean)
+     */
+    void pre(final boolean x) {
+        this.pre = x;
+    }
+
+    /**
+     * go to the next word
+     * @return false if there is no more word
+     */
+    boolean next() {
+        if (this.bufferStart < 0) return false;
+        final int s = this.bufferStart, e = this.bufferEnd;
+        this.bufferStart = nextUnsievedElement();
+        this.bufferEnd = this.end;
+        this.start = s;
+        this.end = e;
+        return true;
+    }
+
+    /**
+     * @return the array which contains the current word, starting at {@link #start()}
+     */
+    char[] chars() {
+        return this.text;
+    }
+
+    int start() {
+        return this.start;
+    }
+
+    int length() {
+        return this.end - this.start;
+    }
+
+    /**
+     * @return the current word as string
+     */
+    String word() {
+        return new String(this.text, this.start, this.end - this.start);
+    }
+
+    /**
+     * compute the lower-case form of the current word as done by String.toLowerCase(Locale.ENGLISH)
+     * @return the length of the lower-case word in {@link #lowercase()}
+     */
+    int lowerCase() {
+        final int l = this.end - this.start;
+        if (this.lowercase.length < l) this.lowercase = new char[l * 2];
+        for (int i = 0; i < l; i++) {
+            char c = this.text[this.start + i];
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            } else if (c >= 0x80) {
+                if (c == '\u0130' || c == '\u03a3') {
+                    // the lower case of these words is not the lower case of each char; surrogates are no part of words
+                    final String lc = word().toLowerCase(Locale.ENGLISH);
+                    if (this.lowercase.length < lc.length()) this.lowercase = new char[lc.length() * 2];
+                    lc.getChars(0, lc.length(), this.lowercase, 0);
+                    return lc.length();
+                }
+                c = Character.toLowerCase(c);
+            }
+            this.lowercase[i] = c;
+        }
+        return l;
+    }
+
+    /**
+     * @return the lower-case word which was computed by {@link #lowerCase()}
+     */
+    char[] lowercase() {
+        return this.lowercase;
+    }
+
+    /**
+     * parse the next sentence as done by the sentence reader. Sentences end after a punctuation which is
+     * followed by an invisible char, at a zero char and in pre mode at line breaks. An empty sentence ends the text.
+     * @return true if a sentence was found
+     */
+    private boolean parseSentence() {
+        final char[] t = this.text;
+        final int s = this.pos;
+        boolean empty = true;
+        char c, lc = ' ';
+        while (this.pos < this.length && (c = t[this.pos++]) > 0) {
+            if (this.pre && (c == 10 || c == 13)) break;
+            if (c < ' ') c = ' ';
+            if (lc == ' ' && c == ' ') continue;
+            empty = false;
+            if (SentenceReader.punctuation(lc) && SentenceReader.invisible(c)) break;
+            lc = c;
+        }
+        if (empty) return false;
+        // chars which are removed or replaced by the sentence reader are all invisible, so the words of the sentence are slices of the text
+        this.sentenceStart = s;
+        this.sentenceEnd = this.pos;
+        return true;
+    }
+
+    /**
+     * split the current sentence into words; punctuation chars are words
+     */
+    private void splitSentence(final int s, final int e) {
+        final char[] t = this.text;
+        this.words = 0;
+        this.wordIndex = 0;
+        int w = -1;
+        for (int i = s; i < e; i++) {
+            final char c = t[i];
+            if (SentenceReader.punctuation(c)) {
+                if (w >= 0) addWord(w, i);
+                addWord(i, i + 1);
+                w = -1;
+            } else if (SentenceReader.invisible(c)) {
+                if (w >= 0) addWord(w, i);
+                w = -1;
+            } else if (w < 0) {
+                w = i;
+            }
+        }
+        if (w >= 0) addWord(w, e);
+    }
+
+    private void addWord(final int s, final int e) {
+        if (this.words == this.wordStart.length) {
+            final int[] ns = new int[this.words * 2], ne = new int[this.words * 2];
+            System.arraycopy(this.wordStart, 0, ns, 0, this.words);
+            System.arraycopy(this.wordEnd, 0, ne, 0, this.words);
+            this.wordStart = ns;
+            this.wordEnd = ne;
+        }
+        this.wordStart[this.words] = s;
+        this.wordEnd[this.words] = e;
+        this.words++;
+    }
+
+    /**
+     * the next word of the sentences, as unsievedWordsEnum.nextElement0() does
+     * @return the start of the word or -1 at the end; the end of the word is in this.end
+     */
+    private int nextUnsieved() {
+        if (this.wordIndex >= this.words) {
+            this.wordIndex = 0;
+            this.words = 0;
+        }
+        while (this.words == 0) {
+            if (!this.sentence) return -1;
+            final int s = this.sentenceStart, e = this.sentenceEnd;
+            this.sentence = parseSentence(); // the sentence reader reads one sentence ahead
+            splitSentence(s, e);
+        }
+        this.end = this.wordEnd[this.wordIndex];
+        return this.wordStart[this.wordIndex++];
+    }
+
+    /**
+     * the buffered word of the unsieved words, as unsievedWordsEnum.nextElement() does
+     */
+    private int nextUnsievedElement() {
+        if (this.unsievedStart < 0) return -1;
+        final int s = this.unsievedStart, e = this.unsievedEnd;
+        this.unsievedStart = nextUnsieved();
+        this.unsievedEnd = this.end;
+        this.end = e;
+        return s;
+    }
+
+    /**
+     * A table of lower-case terms and their word statistics. The table uses open addressing with linear probing
+     * and is probed with char slices; the keys are strings which are created when a term is added.
+     */
+    static final class Terms {
+
+        private int[] slots = new int[1024]; // term index + 1, 0 is an empty slot
+        private int[] hashes = new int[512];
+        private String[] keys = new String[512];
+        private Word[] words = new Word[512];
+        private int size = 0;
+
+        /**
+         * find a term
+         * @return the index of the term or -1 if the term is unknown
+         */
+        int find(final char[] c, final int off, final int len) {
+            final int h = hash(c, off, len);
+            final int mask = this.slots.length - 1;
+            for (int i = h & mask;; i = (i + 1) & mask) {
+                final int t = this.slots[i] - 1;
+                if (t < 0) return -1;
+                if (this.hashes[t] == h && equals(this.keys[t], c, off, len)) return t;
+            }
+        }
+
+        /**
+         * add a term which is not in the table
+         * @param key the term or null if a string of the term shall be created
+         * @return the index of the new term
+         */
+        int add(final char[] c, final int off, final int len, final String key, final Word word) {
+            if (this.size == this.keys.length) grow();
+            final int h = hash(c, off, len);
+            final int t = this.size++;
+            this.hashes[t] = h;
+            this.keys[t] = key == null ? new String(c, off, len) : key;
+            this.words[t] = word;
+            insert(t);
+            return t;
+        }
+
+        int size() {
+            return this.size;
+        }
+
+        String key(final int t) {
+            return this.keys[t];
+        }
+
+        Word word(final int t) {
+            return this.words[t];
+        }
+
+        void clear() {
+            if (this.size == 0) return;
+            if (this.keys.length > MAX_POOLED_LENGTH / 16) {
+                this.slots = new int[1024];
+                this.hashes = new int[512];
+                this.keys = new String[512];
+                this.words = new Word[512];
+            } else {
+                Arrays.fill(this.slots, 0);
+                Arrays.fill(this.keys, 0, this.size, null);
+                Arrays.fill(this.words, 0, this.size, null);
+            }
+            this.size = 0;
+        }
+
+        private void grow() {
+            final int n = this.keys.length * 2;
+            this.hashes = Arrays.copyOf(this.hashes, n);
+            this.keys = Arrays.copyOf(this.keys, n);
+            this.words = Arrays.copyOf(this.words, n);
+            this.slots = new int[n * 2];
+            for (int t = 0; t < this.size; t++) insert(t);
+        }
+
+        private void insert(final int t) {
+            final int mask = this.slots.length - 1;
+            int i = this.hashes[t] & mask;
+            while (this.slots[i] != 0) i = (i + 1) & mask;
+            this.slots[i] = t + 1;
+        }
+
+        private static int hash(final char[] c, final int off, final int len) {
+            int h = 0;
+            for (int i = off; i < off + len; i++) h = 31 * h + c[i];
+            return h ^ (h >>> 16) ^ (h >>> 7);
+        }
+
+        private static boolean equals(final String key, final char[] c, final int off, final int len) {
+            if (key.length() != len) return false;
+            for (int i = 0; i < len; i++) {
+                if (key.charAt(i) != c[off + i]) return false;
+            }
+            return true;
+        }
+    }
+}
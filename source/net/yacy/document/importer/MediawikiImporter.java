@@ -24,23 +24,35 @@ package net.yacy.document.importer;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Array;
 import java.net.MalformedURLException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
@@ -50,8 +62,16 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.LongConsumer;
 import java.util.zip.GZIPInputStream;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+
 import net.yacy.cora.document.encoding.UTF8;
 import net.yacy.cora.document.id.AnchorURL;
 import net.yacy.cora.document.id.DigestURL;
@@ -61,6 +81,7 @@ import net.yacy.cora.protocol.http.HTTPClient;
 import net.yacy.cora.util.ByteBuffer;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.NumberTools;
+import net.yacy.cora.util.ParallelBZip2InputStream;
 import net.yacy.data.wiki.WikiCode;
 import net.yacy.data.wiki.WikiParser;
 import net.yacy.document.Document;
@@ -68,20 +89,26 @@ import net.yacy.document.Parser;
 import net.yacy.document.TextParser;
 import net.yacy.document.VocabularyScraper;
 import net.yacy.document.content.SurrogateReader;
+import net.yacy.document.parser.html.CharacterCoding;
+import net.yacy.kelondro.util.FileUtils;
 import net.yacy.kelondro.util.NamePrefixThreadFactory;
 
-import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 
 
 /*
  * this class provides data structures to read a mediawiki dump file in xml format
  * as referenced with xmlns="http://www.mediawiki.org/xml/export-0.3/"
+ *
+ * The import reads the dump with one StAX reader thread, bzip2 multistream dumps are decompressed in parallel.
+ * The articles are converted by several threads and written in batches into surrogate files, which are
+ * then indexed by the surrogate import. A checkpoint stores the number of imported articles, so an interrupted
+ * import continues after the last article which was written into a complete surrogate file. For a bzip2 multistream
+ * dump the checkpoint also stores the compressed offset of a stream where a page starts, and a resumed import
+ * decompresses the dump from there instead of from its beginning.
  */
 
 public class MediawikiImporter extends Thread implements Importer {
 
-    private static final String textstart = "<text";
-    private static final String textend = "</text>";
     private static final String pagestart = "<page>";
     private static final String pageend = "</page>";
     private static final byte[] pagestartb = UTF8.getBytes(pagestart);
@@ -98,9 +125,25 @@ public class MediawikiImporter extends Thread implements Importer {
     private   final int approxdocs;
     private   String hostport, urlStub;
     private   String errorMessage;
+    private   final File checkpoint;
+    private   final int threads, documentsPerFile;
+    private   long offset; // the number of articles which were imported before a resume
+    private   ParallelBZip2InputStream bz2;
+    private   final TreeMap<Long, Long> streams; // from the number of articles before a bzip2 stream where a page starts to its compressed offset
 
 
     public MediawikiImporter(final MultiProtocolURL sourcefile, final File targetdir) {
+        this(sourcefile, targetdir, null, Math.max(2, Runtime.getRuntime().availableProcessors() - 1), 10000);
+    }
+
+    /**
+     * @param sourcefile the mediawiki xml dump, optionally compressed with bzip2 or gzip
+     * @param targetdir the directory for the surrogate files
+     * @param checkpoint the file which stores the article offset to resume an import, or null
+     * @param threads the number of converter threads and of bzip2 decompression threads
+     * @param documentsPerFile the number of documents which are written into one surrogate file
+     */
+    public MediawikiImporter(final MultiProtocolURL sourcefile, final File targetdir, final File checkpoint, final int threads, final int documentsPerFile) {
     	super("MediawikiImporter(" + sourcefile != null ? sourcefile.toNormalform(true) : "null sourcefile" +")");
     	this.sourcefile = sourcefile;
     	this.docsize = sourcefile.length();
@@ -111,6 +154,12 @@ public class MediawikiImporter extends Thread implements Importer {
         this.hostport = null;
         this.urlStub = null;
         this.errorMessage = null;
+        this.checkpoint = checkpoint;
+        this.threads = Math.max(1, threads);
+        this.documentsPerFile = Math.max(1, documentsPerFile);
+        this.offset = 0;
+        this.bz2 = null;
+        this.streams = new TreeMap<Long, Long>();
     }
 
     @Override
@@ -136,8 +185,8 @@ public class MediawikiImporter extends Thread implements Importer {
      */
     @Override
     public int speed() {
-        if (this.count == 0) return 0;
-        return (int) (this.count / Math.max(1L, runningTime() ));
+        if (this.count <= this.offset) return 0;
+        return (int) ((this.count - this.offset) / Math.max(1L, runningTime() ));
     }
 
     /**
@@ -156,138 +205,141 @@ public class MediawikiImporter extends Thread implements Importer {
     @Override
     public void run() {
         this.start = System.currentTimeMillis();
-        final int threads = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
         // out keeps a outputfile open until poisened, to make sure underlaying thread gets the end condition
         // regardless of any exception (e.g. eof memory) a add(poison) is added to the most outer final block
-        final BlockingQueue<wikiparserrecord> out = new ArrayBlockingQueue<wikiparserrecord>(threads * 10);
+        final BlockingQueue<wikiparserrecord> out = new ArrayBlockingQueue<wikiparserrecord>(this.threads * 10);
         final wikiparserrecord poison = newRecord();
-        BufferedReader reader = null;
+        InputStream is = null;
+        XMLStreamReader reader = null;
+        boolean completed = false;
         try {
             String targetstub = this.sourcefile.getFileName();
             int p = targetstub.lastIndexOf("\\.");
             if (p > 0) targetstub = targetstub.substring(0, p);
-            InputStream is = new BufferedInputStream(this.sourcefile.getInputStream(ClientIdentification.yacyInternetCrawlerAgent), 1024 * 1024);
+
+            // resume from the checkpoint of an interrupted import of the same dump
+            int filecount = 0;
+            long ordinal = 0;
+            long streamOffset = 0;
+            final Properties resume = loadCheckpoint();
+            if (resume != null) {
+                this.offset = Long.parseLong(resume.getProperty("offset", "0"));
+                filecount = Integer.parseInt(resume.getProperty("file", "0"));
+                this.count = (int) this.offset;
+                streamOffset = Long.parseLong(resume.getProperty("stream.offset", "0"));
+                ordinal = Long.parseLong(resume.getProperty("stream.articles", "0"));
+                ConcurrentLog.info("WIKITRANSLATION", "resuming import of " + source() + " after article " + this.offset);
+            }
+
             if (this.sourcefile.getFileName().endsWith(".bz2")) {
-                is = new BZip2CompressorInputStream(is);
-            } else if (this.sourcefile.getFileName().endsWith(".gz")) {
+                // the header of the dump is followed by the streams from the checkpoint on, if there is one
+                final byte[] header = streamOffset > 0 && ordinal <= this.offset ? dumpHeader() : null;
+                if (header == null) {
+                    streamOffset = 0;
+                    ordinal = 0;
+                }
+                is = this.sourcefile.getInputStream(ClientIdentification.yacyInternetCrawlerAgent);
+                skip(is, streamOffset);
+                if (streamOffset > 0) ConcurrentLog.info("WIKITRANSLATION", "resuming import at compressed offset " + streamOffset + " after article " + ordinal);
+                // multistream dumps are decompressed in parallel, other dumps sequentially
+                this.bz2 = new ParallelBZip2InputStream(new BufferedInputStream(is, 1024 * 1024), this.threads);
+                final ArticleCounter counter = new ArticleCounter(this.bz2, ordinal, streamOffset);
+                this.bz2.setBoundaryListener(counter);
+                is = header == null ? counter : new SequenceInputStream(new ByteArrayInputStream(header), counter);
+            } else {
+                is = new BufferedInputStream(this.sourcefile.getInputStream(ClientIdentification.yacyInternetCrawlerAgent), 1024 * 1024);
+            }
+            if (this.sourcefile.getFileName().endsWith(".gz")) {
                 is = new GZIPInputStream(is);
             }
-            reader = new BufferedReader(new java.io.InputStreamReader(is, StandardCharsets.UTF_8), 4 * 1024 * 1024);
-            String t;
-            StringBuilder sb = new StringBuilder();
-            boolean page = false, text = false;
-            String title = null;
-            final BlockingQueue<wikiparserrecord> in = new ArrayBlockingQueue<wikiparserrecord>(threads * 10);
+            final XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+            reader = factory.createXMLStreamReader(is, StandardCharsets.UTF_8.name());
+
+            final BlockingQueue<wikiparserrecord> in = new ArrayBlockingQueue<wikiparserrecord>(this.threads * 10);
 			final ExecutorService service = Executors.newCachedThreadPool(
 					new NamePrefixThreadFactory(MediawikiImporter.class.getSimpleName() + ".convertConsumer"));
-            final convertConsumer[] consumers = new convertConsumer[threads];
-            final Future<?>[] consumerResults = (Future<?>[]) Array.newInstance(Future.class, threads);
-            for (int i = 0; i < threads; i++) {
+            final convertConsumer[] consumers = new convertConsumer[this.threads];
+            final Future<?>[] consumerResults = (Future<?>[]) Array.newInstance(Future.class, this.threads);
+            for (int i = 0; i < this.threads; i++) {
                 consumers[i] = new convertConsumer(in, out, poison);
                 consumerResults[i] = service.submit(consumers[i]);
             }
-            final convertWriter   writer = new convertWriter(out, poison, this.targetdir, targetstub);
+            final convertWriter   writer = new convertWriter(out, poison, this.targetdir, targetstub, this.documentsPerFile, filecount, this.offset);
             final Future<Integer> writerResult = service.submit(writer);
 
-            wikiparserrecord record;
-            int q;
-            while ((t = reader.readLine()) != null) {
-                if ((p = t.indexOf("<base>",0)) >= 0 && (q = t.indexOf("</base>", p)) > 0) {
+            String title = null;
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) continue;
+                final String element = reader.getLocalName();
+                if ("base".equals(element)) {
                     //urlStub = "http://" + lang + ".wikipedia.org/wiki/";
-                    this.urlStub = t.substring(p + 6, q);
+                    this.urlStub = reader.getElementText().trim();
                     if (!this.urlStub.endsWith("/")) {
-                        q = this.urlStub.lastIndexOf('/');
+                        final int q = this.urlStub.lastIndexOf('/');
                         if (q > 0) this.urlStub = this.urlStub.substring(0, q + 1);
                     }
                     final DigestURL uri = new DigestURL(this.urlStub);
                     this.hostport = uri.getHost();
                     if (uri.getPort() != 80) this.hostport += ":" + uri.getPort();
-                    continue;
-                }
-                if (t.indexOf(pagestart) >= 0) {
-                    page = true;
-                    continue;
-                }
-                if ((p = t.indexOf(textstart)) >= 0) {
-                    text = page;
-                    q = t.indexOf('>', p + textstart.length());
-                    if (q > 0) {
-                        final int u = t.indexOf(textend, q + 1);
-                        if (u > q) {
-                            sb.append(t.substring(q + 1, u));
-                            ConcurrentLog.info("WIKITRANSLATION", "[INJECT] Title: " + title);
-                            if (sb.length() == 0) {
-                                ConcurrentLog.info("WIKITRANSLATION", "ERROR: " + title + " has empty content");
-                                continue;
-                            }
-                            record = newRecord(this.hostport, this.urlStub, title, sb);
-                            try {
-                                in.put(record);
-                                this.count++;
-                            } catch (final InterruptedException e1) {
-                                ConcurrentLog.logException(e1);
-                            }
-                            sb = new StringBuilder(200);
-                            continue;
-                        }
-                        sb.append(t.substring(q + 1));
-                    }
-                    continue;
-                }
-                if (t.indexOf(textend) >= 0) {
-                    text = false;
-                    ConcurrentLog.info("WIKITRANSLATION", "[INJECT] Title: " + title);
-                    if (sb.length() == 0) {
+                } else if ("title".equals(element)) {
+                    title = reader.getElementText();
+                } else if ("text".equals(element)) {
+                    // the wiki code is transformed from the escaped form, as it is written in the dump
+                    final String text = CharacterCoding.unicode2xml(reader.getElementText(), true);
+                    ordinal++;
+                    if (ordinal <= this.offset) continue;
+                    final wikiparserrecord record;
+                    if (text.length() == 0) {
                         ConcurrentLog.info("WIKITRANSLATION", "ERROR: " + title + " has empty content");
-                        continue;
-                    }
-                    record = newRecord(this.hostport, this.urlStub, title, sb);
-                    try {
+                        record = newRecord(); // counted for the checkpoint only
+                        record.ordinal = ordinal;
+                        out.put(record);
+                    } else {
+                        if (ConcurrentLog.isFine("WIKITRANSLATION")) ConcurrentLog.fine("WIKITRANSLATION", "[INJECT] Title: " + title);
+                        record = newRecord(this.hostport, this.urlStub, title, new StringBuilder(text));
+                        record.ordinal = ordinal;
                         in.put(record);
-                        this.count++;
-                    } catch (final InterruptedException e1) {
-                        ConcurrentLog.logException(e1);
                     }
-                    sb = new StringBuilder(200);
-                    continue;
-                }
-                if (t.indexOf(pageend) >= 0) {
-                    page = false;
-                    continue;
-                }
-                if ((p = t.indexOf("<title>",0)) >= 0) {
-                    title = t.substring(p + 7);
-                    q = title.indexOf("</title>",0);
-                    if (q >= 0) title = title.substring(0, q);
-                    continue;
-                }
-                if (text) {
-                    sb.append(t);
-                    sb.append('\n');
+                    this.count++;
+                    if (this.count % 10000 == 0) ConcurrentLog.info("WIKITRANSLATION", throughput());
                 }
             }
+            completed = true;
 
             try {
-                for (int i = 0; i < threads; i++) {
+                for (int i = 0; i < this.threads; i++) {
                     in.put(poison);
                 }
-                for (int i = 0; i < threads; i++) {
+                for (int i = 0; i < this.threads; i++) {
                     consumerResults[i].get(10000, TimeUnit.MILLISECONDS);
                 }
             } catch (final Exception e) {
+                completed = false;
             	this.errorMessage = e.getMessage();
                 ConcurrentLog.logException(e);
             } finally {
                 out.put(poison); // output thread condition (for file.close)
                 writerResult.get(10000, TimeUnit.MILLISECONDS);
             }
+            ConcurrentLog.info("WIKITRANSLATION", "finished import, " + throughput());
+            if (completed && this.checkpoint != null) FileUtils.deletedelete(this.checkpoint);
         } catch (final Exception e) {
         	this.errorMessage = e.getMessage();
             ConcurrentLog.logException(e);
         } finally {
-        	if(reader != null) {
+        	if (reader != null) {
                 try {
 					reader.close();
+				} catch (XMLStreamException e) {
+					ConcurrentLog.warn("WIKITRANSLATION", "Could not close dump reader : " + e.getMessage());
+				}
+        	}
+        	if (is != null) {
+                try {
+					is.close();
 				} catch (IOException e) {
 					ConcurrentLog.warn("WIKITRANSLATION", "Could not close dump reader : " + e.getMessage());
 				}
@@ -298,6 +350,173 @@ public class MediawikiImporter extends Thread implements Importer {
         }
     }
 
+    /**
+     * @return the number of articles and the amount of compressed input per second
+     */
+    private String throughput() {
+        final long seconds = Math.max(1L, runningTime());
+        final StringBuilder sb = new StringBuilder();
+        sb.append(this.count).append(" articles, ").append(speed()).append(" articles/s");
+        if (this.bz2 != null) sb.append(", ").append(this.bz2.getCompressedCount() / 1024L / seconds).append(" KB/s compressed");
+        return sb.toString();
+    }
+
+    /**
+     * @return the decompressed start of a bzip2 dump up to its first page, or null if no page was found
+     */
+    private byte[] dumpHeader() throws IOException {
+        try (final InputStream in = new BZip2CompressorInputStream(new BufferedInputStream(this.sourcefile.getInputStream(ClientIdentification.yacyInternetCrawlerAgent)), true)) {
+            final ByteArrayOutputStream header = new ByteArrayOutputStream();
+            int matched = 0, c;
+            while ((c = in.read()) >= 0 && header.size() < 16 * 1024 * 1024) {
+                header.write(c);
+                matched = c == pagestartb[matched] ? matched + 1 : c == pagestartb[0] ? 1 : 0;
+                if (matched == pagestartb.length) {
+                    final byte[] b = header.toByteArray();
+                    return Arrays.copyOf(b, b.length - pagestartb.length);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * skip the given number of bytes of the input, which is a seek for a file
+     */
+    private static void skip(final InputStream in, long n) throws IOException {
+        while (n > 0) {
+            final long skipped = in.skip(n);
+            if (skipped > 0) {
+                n -= skipped;
+            } else if (in.read() < 0) {
+                throw new EOFException("the dump ends before the offset of the checkpoint");
+            } else {
+                n--;
+            }
+        }
+    }
+
+    /**
+     * Counts the text elements in the decompressed dump like the ordinals of the articles and records the
+     * stream boundaries of a bzip2 multistream dump where a page starts, so an import can resume there.
+     */
+    private class ArticleCounter extends FilterInputStream implements LongConsumer {
+
+        private final byte[] textstartb = UTF8.getBytes("<text");
+        private final long base; // the compressed offset of the start of the decompressed input
+        private long articles; // the number of text elements before the current position
+        private long boundary; // the offset of a stream boundary at the current position, or -1
+        private int matched; // the number of bytes of the text element start at the end of the last read
+
+        private ArticleCounter(final InputStream in, final long articles, final long base) {
+            super(in);
+            this.base = base;
+            this.articles = articles;
+            this.boundary = -1;
+            this.matched = 0;
+        }
+
+        @Override
+        public void accept(final long offset) {
+            this.boundary = this.base + offset;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            final int r = read(b, 0, 1);
+            return r <= 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int n = this.in.read(b, off, len);
+            if (n <= 0) return n;
+            if (this.boundary >= 0) {
+                if (isPageStart(b, off, n)) {
+                    synchronized (MediawikiImporter.this.streams) {
+                        MediawikiImporter.this.streams.put(this.articles, this.boundary);
+                    }
+                }
+                this.boundary = -1;
+            }
+            for (int i = off; i < off + n; i++) {
+                final byte c = b[i];
+                if (this.matched == this.textstartb.length) {
+                    if (c == ' ' || c == '>' || c == '/' || c == '\t' || c == '\n' || c == '\r') this.articles++;
+                    this.matched = 0;
+                }
+                this.matched = c == this.textstartb[this.matched] ? this.matched + 1 : c == this.textstartb[0] ? 1 : 0;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final byte[] b = new byte[(int) Math.min(n, 8192)];
+            final int r = read(b, 0, b.length);
+            return Math.max(0, r);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private boolean isPageStart(final byte[] b, int p, final int n) {
+            final int end = p + n;
+            while (p < end && (b[p] == ' ' || b[p] == '\t' || b[p] == '\n' || b[p] == '\r')) p++;
+            if (end - p < pagestartb.length) return false;
+            for (int i = 0; i < pagestartb.length; i++) if (b[p + i] != pagestartb[i]) return false;
+            return true;
+        }
+    }
+
+    /**
+     * @return the checkpoint of an interrupted import of the same dump, or null
+     */
+    private Properties loadCheckpoint() {
+        if (this.checkpoint == null || !this.checkpoint.exists()) return null;
+        final Properties p = new Properties();
+        try (final InputStream cis = new FileInputStream(this.checkpoint)) {
+            p.load(cis);
+        } catch (final IOException e) {
+            ConcurrentLog.warn("WIKITRANSLATION", "could not read checkpoint " + this.checkpoint + ": " + e.getMessage());
+            return null;
+        }
+        return source().equals(p.getProperty("source")) ? p : null;
+    }
+
+    /**
+     * store the number of imported articles, the number of the next surrogate file and the last bzip2 stream
+     * before the next article
+     */
+    private void saveCheckpoint(final long articles, final int file) {
+        if (this.checkpoint == null) return;
+        final Properties p = new Properties();
+        p.setProperty("source", source());
+        p.setProperty("offset", Long.toString(articles));
+        p.setProperty("file", Integer.toString(file));
+        final Map.Entry<Long, Long> stream;
+        synchronized (this.streams) {
+            stream = this.streams.floorEntry(articles);
+            if (stream != null) this.streams.headMap(stream.getKey()).clear();
+        }
+        if (stream != null) {
+            p.setProperty("stream.offset", Long.toString(stream.getValue()));
+            p.setProperty("stream.articles", Long.toString(stream.getKey()));
+        }
+        final File tmp = new File(this.checkpoint.getParentFile(), this.checkpoint.getName() + ".tmp");
+        try (final OutputStream cos = new FileOutputStream(tmp)) {
+            p.store(cos, "MediawikiImporter checkpoint");
+        } catch (final IOException e) {
+            ConcurrentLog.warn("WIKITRANSLATION", "could not write checkpoint " + this.checkpoint + ": " + e.getMessage());
+            return;
+        }
+        this.checkpoint.delete();
+        tmp.renameTo(this.checkpoint);
+    }
+
     public static void checkIndex(final File mediawikixml) {
         final File idx = idxFromMediawikiXML(mediawikixml);
         if (idx.exists()) return;
@@ -517,6 +736,7 @@ public class MediawikiImporter extends Thread implements Importer {
         String source, html, hostport, urlStub;
         AnchorURL url;
         Document document;
+        long ordinal; // the position of the article in the dump, counted from 1
         public wikiparserrecord(final String hostport, final String urlStub, final String title, final StringBuilder sb) {
             this.title = title;
             this.hostport = hostport;
@@ -669,15 +889,15 @@ public class MediawikiImporter extends Thread implements Importer {
                     try {
                         record.genHTML();
                         record.genDocument();
-                        this.out.put(record);
                     } catch (final RuntimeException e) {
                         ConcurrentLog.logException(e);
                     } catch (final Parser.Failure e) {
                         ConcurrentLog.logException(e);
                     } catch (final IOException e) {
-						// TODO Auto-generated catch block
                         ConcurrentLog.logException(e);
 					}
+                    // failed records are passed without document, the writer counts them for the checkpoint
+                    this.out.put(record);
                 }
             } catch (final InterruptedException e) {
                 ConcurrentLog.logException(e);
@@ -688,29 +908,65 @@ public class MediawikiImporter extends Thread implements Importer {
 
     }
 
-    private static class convertWriter implements Callable<Integer> {
+    /**
+     * writes the converted documents into surrogate files. When a file is complete, the checkpoint is stored with the
+     * number of articles up to which all articles are either written into complete files or have failed.
+     */
+    private class convertWriter implements Callable<Integer> {
 
         private final BlockingQueue<wikiparserrecord> in;
         private final wikiparserrecord poison;
         private OutputStreamWriter osw;
         private final String targetstub;
         private final File targetdir;
+        private final int documentsPerFile;
         private int fc, rc;
         private String outputfilename;
+        private long watermark; // all articles up to this ordinal are done
+        private final TreeSet<Long> done; // done articles after the watermark
+        private final List<Long> open; // articles in the open output file
 
         public convertWriter(
                 final BlockingQueue<wikiparserrecord> in,
                 final wikiparserrecord poison,
                 final File targetdir,
-                final String targetstub) {
+                final String targetstub,
+                final int documentsPerFile,
+                final int fc,
+                final long offset) {
             this.poison = poison;
             this.in = in;
             this.osw = null;
             this.targetdir = targetdir;
             this.targetstub = targetstub;
-            this.fc = 0;
+            this.documentsPerFile = documentsPerFile;
+            this.fc = fc;
             this.rc = 0;
             this.outputfilename = null;
+            this.watermark = offset;
+            this.done = new TreeSet<Long>();
+            this.open = new ArrayList<Long>();
+        }
+
+        private void done(final long ordinal) {
+            this.done.add(ordinal);
+            while (!this.done.isEmpty() && this.done.first().longValue() == this.watermark + 1) {
+                this.done.pollFirst();
+                this.watermark++;
+            }
+        }
+
+        private void finishFile() throws IOException {
+            this.osw.write(SurrogateReader.SURROGATES_MAIN_ELEMENT_CLOSE + "\n");
+            this.osw.close();
+            this.osw = null;
+            final String finalfilename = this.targetstub + "." + this.fc + ".xml";
+            new File(this.targetdir, this.outputfilename).renameTo(new File(this.targetdir, finalfilename));
+            this.rc = 0;
+            this.fc++;
+            for (final Long ordinal: this.open) done(ordinal.longValue());
+            this.open.clear();
+            saveCheckpoint(this.watermark, this.fc);
         }
 
         @Override
@@ -720,9 +976,13 @@ public class MediawikiImporter extends Thread implements Importer {
                 while(true) {
                     record = this.in.take();
                     if (record == this.poison) {
-                        ConcurrentLog.info("WIKITRANSLATION", "convertConsumer / got poison");
+                        ConcurrentLog.info("WIKITRANSLATION", "convertWriter / got poison");
                         break;
                     }
+                    if (record.document == null) {
+                        done(record.ordinal);
+                        continue;
+                    }
 
                     if (this.osw == null) {
                         // start writing a new file
@@ -730,20 +990,11 @@ public class MediawikiImporter extends Thread implements Importer {
                         this.osw = new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(new File(this.targetdir, this.outputfilename))), StandardCharsets.UTF_8);
                         this.osw.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" + SurrogateReader.SURROGATES_MAIN_ELEMENT_OPEN + "\n");
                     }
-                    ConcurrentLog.info("WIKITRANSLATION", "[CONSUME] Title: " + record.title);
+                    if (ConcurrentLog.isFine("WIKITRANSLATION")) ConcurrentLog.fine("WIKITRANSLATION", "[CONSUME] Title: " + record.title);
                     record.document.writeXML(this.osw);
+                    this.open.add(record.ordinal);
                     this.rc++;
-                    if (this.rc >= 10000) {
-                        this.osw.write(SurrogateReader.SURROGATES_MAIN_ELEMENT_CLOSE + "\n");
-                        this.osw.close();
-                        final String finalfilename = this.targetstub + "." + this.fc + ".xml";
-                        new File(this.targetdir, this.outputfilename).renameTo(new File(this.targetdir, finalfilename));
-                        this.rc = 0;
-                        this.fc++;
-                        this.outputfilename = this.targetstub + "." + this.fc + ".xml.prt";
-                        this.osw = new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(new File(this.targetdir, this.outputfilename))), StandardCharsets.UTF_8);
-                        this.osw.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" + SurrogateReader.SURROGATES_MAIN_ELEMENT_OPEN + "\n");
-                    }
+                    if (this.rc >= this.documentsPerFile) finishFile();
                 }
             } catch (final InterruptedException e) {
                 ConcurrentLog.logException(e);
@@ -755,11 +1006,10 @@ public class MediawikiImporter extends Thread implements Importer {
                 ConcurrentLog.logException(e);
             } finally {
                 try {
-                    if (osw != null) { // maybe null on poison (immediately)
-                        this.osw.write(SurrogateReader.SURROGATES_MAIN_ELEMENT_CLOSE + "\n");
-                        this.osw.close();
-                        final String finalfilename = this.targetstub + "." + this.fc + ".xml";
-                        new File(this.targetdir, this.outputfilename).renameTo(new File(this.targetdir, finalfilename));
+                    if (this.osw != null) { // maybe null on poison (immediately)
+                        finishFile();
+                    } else {
+                        saveCheckpoint(this.watermark, this.fc);
                     }
                 } catch (final IOException e) {
                     ConcurrentLog.logException(e);
@@ -24,8 +24,20 @@ package net.yacy.document.importer;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPInputStream;
 
 import net.yacy.cora.document.encoding.ASCII;
@@ -40,6 +52,7 @@ import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.crawler.retrieval.Request;
 import net.yacy.crawler.retrieval.Response;
 import net.yacy.document.TextParser;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
 import net.yacy.search.Switchboard;
 import net.yacy.server.http.ChunkedInputStream;
 import org.jwat.common.HeaderLine;
@@ -58,35 +71,95 @@ import org.jwat.warc.WarcRecord;
  *
  * http://archive-access.sourceforge.net/warc/warc_file_format-0.9.html
  * http://archive-access.sourceforge.net/warc/
+ *
+ * Compressed warc files usually contain one gzip member for each record. Such files are split
+ * at member boundaries into chunks which are read and decompressed in parallel; the responses
+ * are handed to the indexer, which blocks when its queues are full. The offset of the next record
+ * of each chunk is written to a checkpoint file, so an aborted import continues where it stopped.
  */
 public class WarcImporter extends Thread implements Importer {
 
     static public WarcImporter job; // static object to assure only one importer is running (if started from a servlet, this object is used to store the thread)
 
-    private InputStream source; // current input warc archive
+    /** chunks are not made smaller than this */
+    private static final long MIN_CHUNK_SIZE = 16L * 1024L * 1024L;
+
+    /** the time between two checkpoints in milliseconds */
+    private static final long CHECKPOINT_INTERVAL = 10000L;
+
+    private InputStream source; // current input warc archive, null when a file is imported
+    private final File file; // the input warc file, null when a stream is imported
+    private final File checkpoint; // file with the import progress, null if the progress is not stored
+    private final int threads; // number of chunks read at the same time
     private String name; // file name of input source
 
-    private int recordCnt; // number of responses indexed (for statistic)
+    private final AtomicInteger recordCnt; // number of responses indexed (for statistic)
+    private int resumedCnt; // number of responses indexed before the import was resumed (for statistic)
+    private long resumedBytes; // bytes consumed before the import was resumed (for statistic)
     private long startTime; // (for statistic)
     private final long sourceSize; // length of the input source (for statistic)
-    private long consumed; // bytes consumed from input source (for statistic)
-    private boolean abort = false; // flag to signal stop of import
+    private volatile List<Chunk> chunks; // the parts of the input source
+    private volatile boolean abort = false; // flag to signal stop of import
+    long minChunkSize = MIN_CHUNK_SIZE; // the minimum size of chunks, which is changed for tests
 
     public WarcImporter(MultiProtocolURL url) throws IOException {
         super("WarcImporter - from InputStream");
-        this.recordCnt = 0;
+        this.recordCnt = new AtomicInteger();
         this.sourceSize = -1;
         this.name = url.toNormalform(true);
         this.source = url.getInputStream(ClientIdentification.yacyInternetCrawlerAgent);
         if (this.name.endsWith(".gz")) this.source = new GZIPInputStream(this.source);
+        this.file = null;
+        this.checkpoint = null;
+        this.threads = 1;
+        this.chunks = Collections.emptyList();
     }
 
     public WarcImporter(File f) throws IOException {
+        this(f, defaultCheckpoint(f), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param f the warc file
+     * @param checkpoint the file to store the progress of the import, null if the progress shall not be stored
+     * @param threads the maximum number of chunks of the file which are read at the same time
+     * @throws IOException
+     */
+    public WarcImporter(File f, File checkpoint, int threads) throws IOException {
        super("WarcImporter - from file " + f.getName());
+       if (!f.canRead()) throw new FileNotFoundException(f.getAbsolutePath());
+       this.recordCnt = new AtomicInteger();
        this.name = f.getName();
        this.sourceSize = f.length();
-       this.source = new FileInputStream(f);
-       if (this.name.endsWith(".gz")) this.source = new GZIPInputStream(this.source);
+       this.file = f;
+       this.checkpoint = checkpoint;
+       this.threads = Math.max(1, threads);
+       this.chunks = Collections.emptyList();
+    }
+
+    /**
+     * @return the checkpoint file of a warc file in the work path, or null if there is no switchboard
+     */
+    private static File defaultCheckpoint(final File f) {
+        final Switchboard sb = Switchboard.getSwitchboard();
+        if (sb == null || sb.workPath == null) return null;
+        return new File(new File(sb.workPath, "warcimport"), f.getName() + "." + f.length() + ".checkpoint");
+    }
+
+    /**
+     * A part of the input source which starts at a record. The position is the offset of the
+     * next record which is not yet handed to the indexer.
+     */
+    private static final class Chunk {
+        private final long start, end;
+        private volatile long position;
+        private volatile boolean finished;
+
+        private Chunk(final long start, final long end, final long position) {
+            this.start = start;
+            this.end = end;
+            this.position = position;
+        }
     }
 
     /**
@@ -97,94 +170,298 @@ public class WarcImporter extends Thread implements Importer {
      * @throws IOException
      */
     public void indexWarcRecords(InputStream f) throws IOException {
-
-        byte[] content;
         job = this;
         startTime = System.currentTimeMillis();
+        final Chunk chunk = new Chunk(0, Long.MAX_VALUE, 0);
+        this.chunks = Collections.singletonList(chunk);
+        try {
+            indexChunk(f, chunk);
+        } finally {
+            ConcurrentLog.info("WarcImporter", "Indexed " + recordCnt + " documents");
+            job = null;
+        }
+    }
 
-        WarcReader localwarcReader = WarcReaderFactory.getReader(f);
-        WarcRecord wrec = localwarcReader.getNextRecord();
-        while (wrec != null && !abort) {
-
-            HeaderLine hl = wrec.getHeader(WarcConstants.FN_WARC_TYPE);
-            if (hl != null && hl.value.equals(WarcConstants.RT_RESPONSE)) { // filter responses
-
-                hl = wrec.getHeader(WarcConstants.FN_WARC_TARGET_URI);
-                DigestURL location = new DigestURL(hl.value);
-
-                HttpHeader http = wrec.getHttpHeader();
-
-                if (http != null && http.statusCode == 200) { // process http response header OK (status 200)
-
-                    if (TextParser.supportsMime(http.contentType) == null) { // check availability of parser
-
-                        InputStream istream = wrec.getPayloadContent();
-                        hl = http.getHeader(HeaderFramework.TRANSFER_ENCODING);
-                        content = null;
-                        try {
-                            if (hl != null && hl.value.contains("chunked")) {
-                                // because chunked stream.read doesn't read source fully, make sure all chunks are read
-                                istream = new ChunkedInputStream(istream);
-                                final ByteBuffer bbuffer = new ByteBuffer();
-                                int c;
-                                while ((c = istream.read()) >= 0) {
-                                    bbuffer.append(c);
-                                }
-                                content = bbuffer.getBytes();
-                            } else {
-                                content = new byte[(int) http.getPayloadLength()];
-                                istream.read(content, 0, content.length);
-                            }
-
-                            RequestHeader requestHeader = new RequestHeader();
-                            ResponseHeader responseHeader = new ResponseHeader(http.statusCode);
-                            for (HeaderLine hx : http.getHeaderList()) { // include all original response headers for parser
-                                responseHeader.put(hx.name, hx.value);
-                            }
-
-                            final Request request = new Request(
-                                    ASCII.getBytes(Switchboard.getSwitchboard().peers.mySeed().hash),
-                                    location,
-                                    requestHeader.referer() == null ? null : requestHeader.referer().hash(),
-                                    "warc",
-                                    responseHeader.lastModified(),
-                                    Switchboard.getSwitchboard().crawler.defaultSurrogateProfile.handle(),
-                                    0,
-                                    Switchboard.getSwitchboard().crawler.defaultSurrogateProfile.timezoneOffset());
-
-                            final Response response = new Response(
-                                    request,
-                                    requestHeader,
-                                    responseHeader,
-                                    Switchboard.getSwitchboard().crawler.defaultSurrogateProfile,
-                                    false,
-                                    content
-                            );
-
-                            String error = Switchboard.getSwitchboard().toIndexer(response);
-                            if (error != null) ConcurrentLog.info("WarcImporter", "error parsing: " + error);
-                        } catch (IOException e) {
-                            ConcurrentLog.info("WarcImporter", "error reading: " + e.getMessage());
-                        } finally {
-                            try {istream.close();} catch (IOException e) {}
-                        }
+    /**
+     * Reads the records of a chunk and adds all contained responses to the index
+     * @param f the input stream, starting at the chunk position
+     * @param chunk the chunk
+     */
+    private void indexChunk(final InputStream f, final Chunk chunk) throws IOException {
+        final long base = chunk.position;
+        final WarcReader localwarcReader = WarcReaderFactory.getReader(f);
+        try {
+            WarcRecord wrec = localwarcReader.getNextRecord();
+            while (wrec != null && !abort) {
+                final long offset = base + wrec.getStartOffset();
+                if (offset >= chunk.end) break;
+                chunk.position = offset;
+                indexRecord(wrec);
+                wrec = localwarcReader.getNextRecord();
+            }
+            if (!abort) chunk.finished = true;
+        } finally {
+            localwarcReader.close();
+        }
+    }
+
+    /**
+     * Add a record to the index if it is a response which can be parsed
+     */
+    private void indexRecord(final WarcRecord wrec) throws IOException {
+        HeaderLine hl = wrec.getHeader(WarcConstants.FN_WARC_TYPE);
+        if (hl == null || !hl.value.equals(WarcConstants.RT_RESPONSE)) return; // filter responses
+
+        hl = wrec.getHeader(WarcConstants.FN_WARC_TARGET_URI);
+        DigestURL location = new DigestURL(hl.value);
+
+        HttpHeader http = wrec.getHttpHeader();
+
+        if (http == null || http.statusCode != 200) return; // process http response header OK (status 200)
+        if (TextParser.supportsMime(http.contentType) != null) return; // check availability of parser
+
+        InputStream istream = wrec.getPayloadContent();
+        hl = http.getHeader(HeaderFramework.TRANSFER_ENCODING);
+        byte[] content = null;
+        try {
+            if (hl != null && hl.value.contains("chunked")) {
+                // because chunked stream.read doesn't read source fully, make sure all chunks are read
+                istream = new ChunkedInputStream(istream);
+                final ByteBuffer bbuffer = new ByteBuffer();
+                int c;
+                while ((c = istream.read()) >= 0) {
+                    bbuffer.append(c);
+                }
+                content = bbuffer.getBytes();
+            } else {
+                content = new byte[(int) http.getPayloadLength()];
+                int n = 0, c;
+                while (n < content.length && (c = istream.read(content, n, content.length - n)) > 0) n += c;
+            }
+
+            ResponseHeader responseHeader = new ResponseHeader(http.statusCode);
+            for (HeaderLine hx : http.getHeaderList()) { // include all original response headers for parser
+                responseHeader.put(hx.name, hx.value);
+            }
+
+            String error = index(location, responseHeader, content);
+            if (error != null) ConcurrentLog.info("WarcImporter", "error parsing: " + error);
+        } catch (IOException e) {
+            ConcurrentLog.info("WarcImporter", "error reading: " + e.getMessage());
+        } finally {
+            try {istream.close();} catch (IOException e) {}
+        }
+
+        recordCnt.incrementAndGet();
+    }
+
+    /**
+     * Hand a response to the indexer; this is called concurrently by the threads which read the chunks
+     * and blocks when the indexing queues are full
+     * @param location the url of the response
+     * @param responseHeader the http header of the response
+     * @param content the content of the response
+     * @return an error message or null if the response is indexed
+     */
+    protected String index(final DigestURL location, final ResponseHeader responseHeader, final byte[] content) {
+        RequestHeader requestHeader = new RequestHeader();
+        final Request request = new Request(
+                ASCII.getBytes(Switchboard.getSwitchboard().peers.mySeed().hash),
+                location,
+                requestHeader.referer() == null ? null : requestHeader.referer().hash(),
+                "warc",
+                responseHeader.lastModified(),
+                Switchboard.getSwitchboard().crawler.defaultSurrogateProfile.handle(),
+                0,
+                Switchboard.getSwitchboard().crawler.defaultSurrogateProfile.timezoneOffset());
 
-                        recordCnt++;
+        final Response response = new Response(
+                request,
+                requestHeader,
+                responseHeader,
+                Switchboard.getSwitchboard().crawler.defaultSurrogateProfile,
+                false,
+                content
+        );
+
+        return Switchboard.getSwitchboard().toIndexer(response);
+    }
+
+    /**
+     * Reads the chunks of the warc file in parallel and adds all contained responses to the index.
+     * The progress is written to the checkpoint file; it is deleted when the import is complete.
+     */
+    private void indexWarcFile() throws IOException {
+        job = this;
+        startTime = System.currentTimeMillis();
+        List<Chunk> parts = readCheckpoint();
+        if (parts == null) parts = split(this.file, (int) Math.min(this.threads * 4L, Math.max(1L, this.sourceSize / this.minChunkSize)));
+        this.chunks = parts;
+        this.resumedBytes = consumed();
+        final ExecutorService service = Executors.newFixedThreadPool(Math.min(this.threads, parts.size()),
+                new NamePrefixThreadFactory(WarcImporter.class.getSimpleName() + ".chunkReader"));
+        try {
+            for (final Chunk chunk : parts) {
+                if (chunk.finished) continue;
+                service.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try (final FileInputStream in = new FileInputStream(WarcImporter.this.file)) {
+                            long skip = chunk.position;
+                            while (skip > 0) skip -= in.skip(skip);
+                            indexChunk(in, chunk);
+                        } catch (final IOException | RuntimeException e) {
+                            ConcurrentLog.warn("WarcImporter", "error reading " + WarcImporter.this.name + " at offset " + chunk.position + ": " + e.getMessage());
+                            quit();
+                        }
                     }
+                });
+            }
+            service.shutdown();
+            while (!service.awaitTermination(CHECKPOINT_INTERVAL, TimeUnit.MILLISECONDS)) writeCheckpoint();
+        } catch (final InterruptedException e) {
+            quit();
+            service.shutdownNow();
+        } finally {
+            if (abort) {
+                writeCheckpoint();
+            } else if (this.checkpoint != null) {
+                this.checkpoint.delete();
+            }
+            ConcurrentLog.info("WarcImporter", "Indexed " + recordCnt + " documents");
+            job = null;
+        }
+    }
+
+    /**
+     * Split a warc file into chunks at the boundaries of gzip members which start a warc record.
+     * Files which are not compressed or which are compressed as a whole are one chunk.
+     * @param f the warc file
+     * @param count the wanted number of chunks
+     * @return the chunks, ordered by their offsets
+     */
+    private static List<Chunk> split(final File f, final int count) throws IOException {
+        final long size = f.length();
+        final List<Chunk> parts = new ArrayList<Chunk>(count);
+        final List<Long> starts = new ArrayList<Long>(count);
+        starts.add(0L);
+        if (count > 1 && isWarcMember(f, 0)) {
+            try (final RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+                for (int i = 1; i < count; i++) {
+                    final long from = Math.max(size * i / count, starts.get(starts.size() - 1) + 1);
+                    final long start = findWarcMember(f, raf, from, size * (i + 1) / count);
+                    if (start > 0) starts.add(start);
                 }
             }
-            this.consumed = localwarcReader.getConsumed();
-            wrec = localwarcReader.getNextRecord();
         }
-        localwarcReader.close();
-        ConcurrentLog.info("WarcImporter", "Indexed " + recordCnt + " documents");
-        job = null;
+        for (int i = 0; i < starts.size(); i++) {
+            final long start = starts.get(i);
+            parts.add(new Chunk(start, i + 1 < starts.size() ? starts.get(i + 1) : size, start));
+        }
+        return parts;
+    }
+
+    /**
+     * find the first gzip member with a warc record in a range of a file
+     * @return the offset of the member or -1 if there is none
+     */
+    private static long findWarcMember(final File f, final RandomAccessFile raf, final long from, final long to) throws IOException {
+        final byte[] b = new byte[65536];
+        long offset = from;
+        while (offset < to) {
+            raf.seek(offset);
+            final int n = raf.read(b, 0, (int) Math.min(b.length, to - offset + 2));
+            if (n < 3) return -1;
+            for (int i = 0; i < n - 2; i++) {
+                // gzip magic number and deflate compression method
+                if (b[i] == (byte) 0x1f && b[i + 1] == (byte) 0x8b && b[i + 2] == 8 && isWarcMember(f, offset + i)) return offset + i;
+            }
+            offset += n - 2;
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if a compressed warc record can be read at the offset
+     */
+    private static boolean isWarcMember(final File f, final long offset) {
+        try (final FileInputStream in = new FileInputStream(f)) {
+            long skip = offset;
+            while (skip > 0) skip -= in.skip(skip);
+            final WarcReader reader = WarcReaderFactory.getReader(in);
+            try {
+                final WarcRecord wrec = reader.isCompressed() ? reader.getNextRecord() : null;
+                return wrec != null && wrec.getHeader(WarcConstants.FN_WARC_TYPE) != null;
+            } finally {
+                reader.close();
+            }
+        } catch (final IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the chunks of an aborted import of the same file, or null if there is no checkpoint
+     */
+    private List<Chunk> readCheckpoint() {
+        if (this.checkpoint == null || !this.checkpoint.exists()) return null;
+        final Properties p = new Properties();
+        try (final InputStream in = new FileInputStream(this.checkpoint)) {
+            p.load(in);
+            if (!this.name.equals(p.getProperty("source")) || this.sourceSize != Long.parseLong(p.getProperty("size"))) return null;
+            final int count = Integer.parseInt(p.getProperty("chunks"));
+            final List<Chunk> parts = new ArrayList<Chunk>(count);
+            for (int i = 0; i < count; i++) {
+                final String[] c = p.getProperty("chunk." + i).split(",");
+                final Chunk chunk = new Chunk(Long.parseLong(c[0]), Long.parseLong(c[1]), Long.parseLong(c[2]));
+                chunk.finished = c.length > 3 && "finished".equals(c[3]);
+                parts.add(chunk);
+            }
+            this.resumedCnt = Integer.parseInt(p.getProperty("count", "0"));
+            this.recordCnt.set(this.resumedCnt);
+            ConcurrentLog.info("WarcImporter", "resuming import of " + this.name + " from checkpoint " + this.checkpoint);
+            return parts;
+        } catch (final IOException | RuntimeException e) {
+            ConcurrentLog.warn("WarcImporter", "ignoring checkpoint " + this.checkpoint + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * store the positions of the chunks, so the import can be resumed
+     */
+    private void writeCheckpoint() {
+        if (this.checkpoint == null) return;
+        final List<Chunk> parts = this.chunks;
+        final Properties p = new Properties();
+        p.setProperty("source", this.name);
+        p.setProperty("size", Long.toString(this.sourceSize));
+        p.setProperty("count", Integer.toString(this.recordCnt.get()));
+        p.setProperty("chunks", Integer.toString(parts.size()));
+        for (int i = 0; i < parts.size(); i++) {
+            final Chunk chunk = parts.get(i);
+            p.setProperty("chunk." + i, chunk.start + "," + chunk.end + "," + chunk.position + (chunk.finished ? ",finished" : ""));
+        }
+        this.checkpoint.getParentFile().mkdirs();
+        final File tmp = new File(this.checkpoint.getParentFile(), this.checkpoint.getName() + ".tmp");
+        try (final OutputStream out = new FileOutputStream(tmp)) {
+            p.store(out, "WarcImporter checkpoint");
+        } catch (final IOException e) {
+            ConcurrentLog.warn("WarcImporter", "could not write checkpoint " + this.checkpoint + ": " + e.getMessage());
+            return;
+        }
+        this.checkpoint.delete();
+        tmp.renameTo(this.checkpoint);
     }
 
     @Override
     public void run() {
         try {
-            this.indexWarcRecords(this.source);
+            if (this.file == null) {
+                this.indexWarcRecords(this.source);
+            } else {
+                this.indexWarcFile();
+            }
         } catch (IOException ex) {
             ConcurrentLog.info("WarcImporter", ex.getMessage());
         }
@@ -212,17 +489,18 @@ public class WarcImporter extends Thread implements Importer {
      */
     @Override
     public int count() {
-        return this.recordCnt;
+        return this.recordCnt.get();
     }
 
     /**
-     * Indexed responses per second
+     * Indexed responses per second since the import was started or resumed
      * @return
      */
     @Override
     public int speed() {
-        if (this.recordCnt == 0) return 0;
-        return (int) (this.recordCnt / Math.max(0L, runningTime() ));
+        final int count = this.recordCnt.get() - this.resumedCnt;
+        if (count <= 0) return 0;
+        return (int) (count / Math.max(1L, runningTime() ));
     }
 
     /**
@@ -234,6 +512,17 @@ public class WarcImporter extends Thread implements Importer {
         return (System.currentTimeMillis() - this.startTime) / 1000L;
     }
 
+    /**
+     * Bytes of the input source which are processed, summed up over all chunks
+     */
+    private long consumed() {
+        long consumed = 0;
+        for (final Chunk chunk : this.chunks) {
+            consumed += (chunk.finished ? chunk.end : chunk.position) - chunk.start;
+        }
+        return consumed;
+    }
+
     /**
      * Estimate on time remaining calculated from length of input source and
      * processed bytes.
@@ -241,16 +530,20 @@ public class WarcImporter extends Thread implements Importer {
      */
     @Override
     public long remainingTime() {
-        if (this.consumed == 0) {
+        final long consumed = consumed();
+        if (consumed <= this.resumedBytes || this.sourceSize < 0) {
             return 0;
         }
-        long speed = this.consumed / runningTime();
-        return (this.sourceSize - this.consumed) / speed;
+        long speed = Math.max(1L, (consumed - this.resumedBytes) / Math.max(1L, runningTime()));
+        return Math.max(0L, this.sourceSize - consumed) / speed;
     }
 
     @Override
     public String status() {
-        return "";
+        final List<Chunk> parts = this.chunks;
+        int finished = 0;
+        for (final Chunk chunk : parts) if (chunk.finished) finished++;
+        return finished + "/" + parts.size() + " chunks";
     }
 
 }
@@ -345,7 +345,8 @@ public class ContentScraper extends AbstractScraper implements Scraper {
 			}
         }
         int p, pl, q, s = 0;
-        char[] newtext = CharacterCoding.html2unicode(new String(newtext0)).toCharArray();
+        // only texts with entities must be decoded
+        final char[] newtext = CharBuffer.indexOf(newtext0, '&') < 0 ? newtext0 : CharacterCoding.html2unicode(new String(newtext0)).toCharArray();
         
         // match evaluation pattern
         this.evaluationScores.match(Element.text, newtext);
@@ -442,11 +443,36 @@ public class ContentScraper extends AbstractScraper implements Scraper {
         }
     }
 
-    private final static Pattern protp = Pattern.compile("smb://|ftp://|http://|https://");
-    
-    /** A regular expression pattern matching any whitespace character */
-    private final static Pattern WHITESPACE_PATTERN = Pattern.compile("\\s");
-    
+    /**
+     * Find the next url scheme smb://, ftp://, http:// or https:// in a text, as a search with the regular
+     * expression "smb://|ftp://|http://|https://" does. The text is scanned for the "://" of the scheme only.
+     * @param text the text to search
+     * @param offset the position where the scheme may start at the earliest
+     * @return the position of the scheme or -1 if no scheme is found
+     */
+    private static int findURLScheme(final String text, final int offset) {
+        int colon = offset + 3;
+        while ((colon = text.indexOf("://", colon)) >= 0) {
+            // the first colon of a scheme is also the first scheme in the text, because schemes only contain letters
+            if (colon - 5 >= offset && text.startsWith("https", colon - 5)) return colon - 5;
+            if (colon - 4 >= offset && text.startsWith("http", colon - 4)) return colon - 4;
+            if (colon - 3 >= offset && (text.startsWith("ftp", colon - 3) || text.startsWith("smb", colon - 3))) return colon - 3;
+            colon++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the position of the first whitespace character as matched by the regular expression "\\s", or -1
+     */
+    private static int findWhitespace(final String text, final int offset) {
+        for (int i = offset; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r') return i;
+        }
+        return -1;
+    }
+
     /**
      * Try to detect and parse absolute URLs in text (at most maxURLs) , then update the urls collection and fire anchorAdded event on listeners. Any parameter can be null. 
      * @param text the text to parse
@@ -459,22 +485,19 @@ public class ContentScraper extends AbstractScraper implements Scraper {
         if(text == null) {
         	return 0;
         }
-        int schemePosition, offset = 0;
-        boolean hasWhiteSpace;
+        int schemePosition, whiteSpacePosition, offset = 0;
         String urlString;
         AnchorURL url;
-        final Matcher urlSchemeMatcher = protp.matcher(text);
-        final Matcher whiteSpaceMatcher = WHITESPACE_PATTERN.matcher(text);
         
         long detectedURLsCount = 0;
         while (offset < text.length() && detectedURLsCount < maxURLs) {
-            if(!urlSchemeMatcher.find(offset)) {
+            schemePosition = findURLScheme(text, offset);
+            if(schemePosition < 0) {
             	break;
             }
-            schemePosition = urlSchemeMatcher.start();
             
-            hasWhiteSpace = whiteSpaceMatcher.find(urlSchemeMatcher.end());
-            urlString = text.substring(schemePosition, hasWhiteSpace ? whiteSpaceMatcher.start() : text.length());
+            whiteSpacePosition = findWhitespace(text, text.indexOf("://", schemePosition) + 3);
+            urlString = text.substring(schemePosition, whiteSpacePosition >= 0 ? whiteSpacePosition : text.length());
             
             if (urlString.endsWith(".")) {
             	urlString = urlString.substring(0, urlString.length() - 1); // remove the '.' that was appended above
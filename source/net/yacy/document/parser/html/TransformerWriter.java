@@ -54,6 +54,53 @@ public final class TransformerWriter extends Writer {
     public static final char singlequote = '\'';
     public static final char doublequote = '"';
 
+    private static final char[] EMPTY = new char[0];
+    private static final char[] ITEMSCOPE = "itemscope".toCharArray();
+
+    /** common tag names, so that the names of most tags are found without creating a string */
+    private static final String[] TAG_NAMES = new String[512];
+    static {
+        final String[] html = {"!doctype", "abbr", "address", "aside", "audio", "big", "blockquote", "br", "button", "canvas", "caption",
+                "center", "cite", "code", "col", "colgroup", "del", "details", "dialog", "dl", "fieldset", "figcaption", "figure", "font",
+                "footer", "form", "g", "head", "header", "hr", "input", "ins", "kbd", "label", "legend", "main", "map", "mark", "noscript",
+                "nobr", "object", "ol", "optgroup", "option", "p", "path", "picture", "pre", "q", "s", "samp", "section", "select", "small",
+                "strike", "sub", "summary", "sup", "svg", "table", "tbody", "td", "template", "textarea", "tfoot", "th", "thead", "tr",
+                "track", "tt", "ul", "use", "var", "video", "wbr"};
+        for (final TagName tag: TagName.values()) internTagName(tag.name());
+        for (final String name: html) internTagName(name);
+    }
+
+    private static void internTagName(final String name) {
+        final char[] c = name.toCharArray();
+        int i = tagNameHash(c, 0, c.length) & (TAG_NAMES.length - 1);
+        while (TAG_NAMES[i] != null) i = (i + 1) & (TAG_NAMES.length - 1);
+        TAG_NAMES[i] = name;
+    }
+
+    private static int tagNameHash(final char[] c, final int start, final int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) h = 31 * h + (c[i] | 0x20);
+        return h ^ (h >>> 9);
+    }
+
+    /**
+     * get the lower-case name of a tag; tag names only consist of ASCII chars, see {@link #tagEnd(char[], int, int)}
+     * @return the interned name of common tags or a new string
+     */
+    private static String tagName(final char[] c, final int start, final int end) {
+        search: for (int i = tagNameHash(c, start, end) & (TAG_NAMES.length - 1); TAG_NAMES[i] != null; i = (i + 1) & (TAG_NAMES.length - 1)) {
+            final String name = TAG_NAMES[i];
+            if (name.length() != end - start) continue;
+            for (int j = 0; j < name.length(); j++) {
+                char x = c[start + j];
+                if (x >= 'A' && x <= 'Z') x += 'a' - 'A';
+                if (x != name.charAt(j)) continue search;
+            }
+            return name;
+        }
+        return new String(c, start, end - start).toLowerCase(Locale.ROOT);
+    }
+
     private final OutputStream outStream;
     private OutputStreamWriter out;
     private CharBuffer buffer;
@@ -64,6 +111,7 @@ public final class TransformerWriter extends Writer {
     private boolean inComment;
     private boolean binaryUnsuspect;
     private final boolean passbyIfBinarySuspect;
+    private char[] token = new char[64]; // a copy of the buffer for tags which are scraped without the token processor
     
     public TransformerWriter(
             final OutputStream outStream,
@@ -191,7 +239,7 @@ public final class TransformerWriter extends Writer {
         if (in[1] == '/') {
             // a closing tag
             tagend = tagEnd(in, 2);
-            tag = new String(in, 2, tagend - 2).toLowerCase(Locale.ROOT);
+            tag = tagName(in, 2, tagend);
             final char[] text = new char[in.length - tagend - 1];
             System.arraycopy(in, tagend, text, 0, in.length - tagend - 1);
             return filterTag(text, quotechar, tag, false);
@@ -204,12 +252,72 @@ public final class TransformerWriter extends Writer {
 
         // an opening tag
         tagend = tagEnd(in, 1);
-        tag = new String(in, 1, tagend - 1).toLowerCase(Locale.ROOT);
+        tag = tagName(in, 1, tagend);
         final char[] text = new char[in.length - tagend - 1];
         System.arraycopy(in, tagend, text, 0, in.length - tagend - 1);
         return filterTag(text, quotechar, tag, true);
     }
     
+    /**
+     * process the token in the buffer. Without an output stream, the processed tokens are only used for the content
+     * of the collected tags. Tags which are not scraped are then handled here, without a tag object and without parsing
+     * their properties; all other tokens are passed to the token processor.
+     * @return a processed version of the token
+     */
+    private char[] processBuffer(final char quotechar) {
+        final int length = this.buffer.length();
+        if (this.out == null && length > 2 && this.buffer.charAt(0) == lb) {
+            if (this.token.length < length) this.token = new char[Math.max(length, this.token.length * 2)];
+            this.buffer.getChars(0, length, this.token, 0);
+            if (scrapeTag(this.token, length)) return EMPTY;
+        }
+        return tokenProcessor(this.buffer.getChars(), quotechar);
+    }
+
+    /**
+     * handle a tag which is not scraped, as the token processor would do when there is no output stream
+     * @param in the token, which is a tag
+     * @param length the length of the token
+     * @return false if the tag must be passed to the token processor
+     */
+    private boolean scrapeTag(final char[] in, final int length) {
+        final boolean opening = in[1] != '/';
+        final ContentScraper.Tag parent = this.tagStack.isEmpty() ? null : this.tagStack.lastElement();
+        if (opening && parent != null && parent.name.equals(TagName.script.name())) return true;
+        final int start = opening ? 1 : 2;
+        final int tagend = tagEnd(in, start, length);
+        final String tagname = tagName(in, start, tagend);
+        if (tagname.equals("!")) return false;
+        if (opening) {
+            if (this.scraper != null) {
+                if (this.scraper.isTag0(tagname) || this.scraper.isTag1(tagname)) return false;
+                // microdata are scraped from the properties of any tag
+                if (indexOfIgnoreCase(in, tagend, length - 1, ITEMSCOPE) >= 0) return false;
+            }
+        } else {
+            if (parent != null && tagname.equalsIgnoreCase(parent.name)) return false;
+        }
+        if (parent != null) {
+            // case (5) and (6): the tag is part of the content of the collecting tag; this is the same as genTag0raw
+            for (int i = start; i < tagend; i++) {
+                if (in[i] >= 'A' && in[i] <= 'Z') in[i] += 'a' - 'A';
+            }
+            in[length - 1] = rb;
+            parent.content.append(in, 0, length);
+        }
+        return true;
+    }
+
+    private static int indexOfIgnoreCase(final char[] in, final int start, final int end, final char[] lowercase) {
+        search: for (int i = start; i <= end - lowercase.length; i++) {
+            for (int j = 0; j < lowercase.length; j++) {
+                if ((in[i + j] | 0x20) != lowercase[j]) continue search;
+            }
+            return i;
+        }
+        return -1;
+    }
+
     // distinguish the following cases:
     // - (1) not collecting data for a tag and getting no tag (not opener and not close)
     // - (2) not collecting data for a tag and getting a tag opener
@@ -320,6 +428,11 @@ public final class TransformerWriter extends Writer {
         char[] ret;
         ContentScraper.Tag tag = this.tagStack.lastElement();
         if (this.scraper != null) this.scraper.scrapeTag1(tag);
+        if (this.out == null && this.tagStack.size() == 1 && this.scraper != null && this.scraper.isTag1(tag.name)) {
+            // the tag is not part of the content of another tag and there is no output
+            this.tagStack.pop();
+            return EMPTY;
+        }
         ret = genTag1(tag.name, tag.opts, tag.content.getChars(), quotechar);
         if (this.scraper != null && this.scraper.isTag1(tag.name)) {
             // remove the tag from the stack as soon as the tag is processed
@@ -338,14 +451,22 @@ public final class TransformerWriter extends Writer {
         // it's our closing tag! return complete result.
         char[] ret;
         if (this.scraper != null) this.scraper.scrapeTag1(this.tagStack.lastElement());
+        if (this.out == null) {
+            this.tagStack.pop();
+            return EMPTY;
+        }
         ret = genTag1(this.tagStack.lastElement().name, this.tagStack.lastElement().opts, this.tagStack.lastElement().content.getChars(), quotechar);
         this.tagStack.pop();
         return ret;
     }
 
     private static int tagEnd(final char[] tag, final int start) {
+        return tagEnd(tag, start, tag.length);
+    }
+
+    private static int tagEnd(final char[] tag, final int start, final int length) {
         char c;
-        for (int i = start; i < tag.length; i++) {
+        for (int i = start; i < length; i++) {
             c = tag[i];
             if (c != '!' && c != '-' &&
                 (c < '0' || c > '9') &&
@@ -353,7 +474,7 @@ public final class TransformerWriter extends Writer {
                 (c < 'A' || c > 'Z')
             ) return i;
         }
-        return tag.length - 1;
+        return length - 1;
     }
 
     /**
@@ -381,7 +502,7 @@ public final class TransformerWriter extends Writer {
                 if ((c == rb) && (this.buffer.length() > 0 && this.buffer.charAt(0) == lb)) {
                     this.inSingleQuote = false;
                     // the tag ends here. after filtering: pass on
-                    filtered = tokenProcessor(this.buffer.getChars(), singlequote);
+                    filtered = processBuffer(singlequote);
                     if (this.out != null) { this.out.write(filtered); }
                     // this.buffer = new serverByteBuffer();
                     this.buffer.reset();
@@ -393,7 +514,7 @@ public final class TransformerWriter extends Writer {
                 if (c == rb && this.buffer.length() > 0 && this.buffer.charAt(0) == lb) {
                     this.inDoubleQuote = false;
                     // the tag ends here. after filtering: pass on
-                    filtered = tokenProcessor(this.buffer.getChars(), doublequote);
+                    filtered = processBuffer(doublequote);
                     if (this.out != null) this.out.write(filtered);
                     // this.buffer = new serverByteBuffer();
                     this.buffer.reset();
@@ -431,7 +552,7 @@ public final class TransformerWriter extends Writer {
                     } else if (c == rb) {
                         this.buffer.append(c);
                         // the tag ends here. after filtering: pass on
-                        filtered = tokenProcessor(this.buffer.getChars(), doublequote);
+                        filtered = processBuffer(doublequote);
                         if (this.out != null) this.out.write(filtered);
                         // this.buffer = new serverByteBuffer();
                         this.buffer.reset();
@@ -439,7 +560,7 @@ public final class TransformerWriter extends Writer {
                         // this is an error case
                         // we consider that there is one rb missing
                         if (this.buffer.length() > 0) {
-                            filtered = tokenProcessor(this.buffer.getChars(), doublequote);
+                            filtered = processBuffer(doublequote);
                             if (this.out != null) this.out.write(filtered);
                         }
                         // this.buffer = new serverByteBuffer();
@@ -453,7 +574,7 @@ public final class TransformerWriter extends Writer {
                     if (c == lb) {
                         // the text ends here
                         if (this.buffer.length() > 0) {
-                            filtered = tokenProcessor(this.buffer.getChars(), doublequote);
+                            filtered = processBuffer(doublequote);
                             if (this.out != null) this.out.write(filtered);
                         }
                         // this.buffer = new serverByteBuffer();
@@ -498,7 +619,7 @@ public final class TransformerWriter extends Writer {
         final char quotechar = (this.inSingleQuote) ? singlequote : doublequote;
         if (this.buffer != null) {
             if (this.buffer.length() > 0) {
-                final char[] filtered = tokenProcessor(this.buffer.getChars(), quotechar);
+                final char[] filtered = processBuffer(quotechar);
                 if (this.out != null) this.out.write(filtered);
             }
             this.buffer.close();
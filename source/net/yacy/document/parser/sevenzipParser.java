@@ -40,6 +40,7 @@ import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.document.AbstractParser;
+import net.yacy.document.ArchiveMembers;
 import net.yacy.document.Document;
 import net.yacy.document.Parser;
 import net.yacy.document.TextParser;
@@ -94,10 +95,12 @@ public class sevenzipParser extends AbstractParser implements Parser {
         } catch (final IOException e) {
             throw new Parser.Failure("error opening 7zip archive: " + e.getMessage(), location);
         }
-        final SZParserExtractCallback aec = new SZParserExtractCallback(AbstractParser.log, archive, doc, location.getFile(), ignore_class_name, timezoneOffset);
+        final ArchiveMembers members = new ArchiveMembers("7zip parser");
+        final SZParserExtractCallback aec = new SZParserExtractCallback(AbstractParser.log, archive, doc, location.getFile(), ignore_class_name, timezoneOffset, members);
         AbstractParser.log.fine("processing archive contents...");
         try {
             archive.Extract(null, -1, 0, aec);
+            doc.addSubDocuments(members.collect());
             return doc;
         } catch (final IOException e) {
             if (e.getCause() instanceof InterruptedException)
@@ -108,6 +111,7 @@ public class sevenzipParser extends AbstractParser implements Parser {
                     "error processing 7zip archive at internal file " + aec.getCurrentFilePath() + ": " + e.getMessage(),
                     location);
         } finally {
+            members.close();
             try { archive.close(); } catch (final IOException e) {  }
         }
     }
@@ -150,6 +154,7 @@ public class sevenzipParser extends AbstractParser implements Parser {
          private final String prefix;
          private Set<String> ignore_class_name;
          private final int timezoneOffset;
+         private final ArchiveMembers members;
 
          public SZParserExtractCallback(
                  final ConcurrentLog logger,
@@ -157,13 +162,15 @@ public class sevenzipParser extends AbstractParser implements Parser {
                  final Document doc,
                  final String prefix,
                  final Set<String> ignore_class_name,
-                 final int timezoneOffset) {
+                 final int timezoneOffset,
+                 final ArchiveMembers members) {
              super.Init(handler);
              this.log = logger;
              this.doc = doc;
              this.prefix = prefix;
              this.ignore_class_name = ignore_class_name;
              this.timezoneOffset = timezoneOffset;
+             this.members = members;
          }
 
         @Override
@@ -200,14 +207,13 @@ public class sevenzipParser extends AbstractParser implements Parser {
 
                  if (this.cfos != null) {
                      // parse the file
-                     Document[] theDocs;
                      // workaround for relative links in file, normally '#' shall be used behind the location, see
                      // below for reversion of the effects
                      final AnchorURL url = AnchorURL.newAnchor(this.doc.dc_source(), this.prefix + "/" + super.filePath);
                      final String mime = TextParser.mimeOf(super.filePath.substring(super.filePath.lastIndexOf('.') + 1));
-                     theDocs = TextParser.parseSource(url, mime, null, this.ignore_class_name, new VocabularyScraper(), timezoneOffset, this.doc.getDepth() + 1, this.cfos.toByteArray());
-
-                     this.doc.addSubDocuments(theDocs);
+                     final byte[] content = this.cfos.toByteArray();
+                     this.cfos = null;
+                     this.members.submit(super.filePath, null, () -> TextParser.parseSource(url, mime, null, this.ignore_class_name, new VocabularyScraper(), this.timezoneOffset, this.doc.getDepth() + 1, content));
                  }
              } catch (final Exception e) {
                  final IOException ex = new IOException("error parsing extracted content of " + super.filePath + ": " + e.getMessage());
@@ -220,7 +226,14 @@ public class sevenzipParser extends AbstractParser implements Parser {
          public OutputStream GetStream(final int index, final int askExtractMode) throws IOException {
              final SevenZipEntry item = super.archiveHandler.getEntry(index);
              super.filePath = item.getName();
-             this.cfos = (item.isDirectory()) ? null : new ByteArrayOutputStream();
+             if (item.isDirectory()) {
+                 this.cfos = null;
+             } else if (!this.members.admit(item.getSize())) {
+                 this.cfos = null; // the member is skipped
+                 this.doc.setPartiallyParsed(true);
+             } else {
+                 this.cfos = new ByteArrayOutputStream();
+             }
              return this.cfos;
          }
 
@@ -25,12 +25,15 @@
 package net.yacy.document.parser;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.net.MalformedURLException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
 import java.util.zip.GZIPInputStream;
 
@@ -41,6 +44,7 @@ import net.yacy.cora.document.encoding.UTF8;
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.document.AbstractParser;
+import net.yacy.document.ArchiveMembers;
 import net.yacy.document.Document;
 import net.yacy.document.Parser;
 import net.yacy.document.TextParser;
@@ -77,7 +81,6 @@ public class tarParser extends AbstractParser implements Parser {
 
         final String filename = location.getFileName();
         final String ext = MultiProtocolURL.getFileExtension(filename);
-        final DigestURL parentTarURL = createParentTarURL(location);
         // TODO is this hack really useful ? These extensions are already handled by the gzipParser
         if (ext.equals("gz") || ext.equals("tgz")) {
             try {
@@ -86,48 +89,7 @@ public class tarParser extends AbstractParser implements Parser {
                 throw new Parser.Failure("tar parser: " + e.getMessage(), location);
             }
         }
-        TarArchiveEntry entry;
-        final TarArchiveInputStream tis = new TarArchiveInputStream(source);
-        
-        // create maindoc for this tar container
-        final Document maindoc = createMainDocument(location, mimeType, charset, this);
-        // loop through the elements in the tar file and parse every single file inside
-        while (true) {
-            try {
-                File tmp = null;
-                entry = tis.getNextTarEntry();
-                if (entry == null) break;
-                if (entry.isDirectory() || entry.getSize() <= 0) continue;
-                final String name = entry.getName();
-                final int idx = name.lastIndexOf('.');
-                final String mime = TextParser.mimeOf((idx > -1) ? name.substring(idx+1) : "");
-                try {
-                    tmp = FileUtils.createTempFile(this.getClass(), name);
-                    FileUtils.copy(tis, tmp, entry.getSize());
-					/*
-					 * Create an appropriate sub location to prevent unwanted fallback to the tarparser on resources included in the archive. 
-					 * We use the tar file name as the parent sub path. Example : http://host/archive.tar/name.
-					 * Indeed if we create a sub location with a '#' separator such as http://host/archive.tar#name, the
-					 * extension of the URL is still ".tar", thus incorrectly making the tar parser
-					 * as a possible parser for the sub resource.
-					 */
-                    final DigestURL subLocation = new DigestURL(parentTarURL, name);
-                    final Document[] subDocs = TextParser.parseSource(subLocation, mime, null, ignore_class_name, scraper, timezoneOffset,	999, tmp);
-                    if (subDocs == null) {
-                    	continue;
-                    }
-                    maindoc.addSubDocuments(subDocs);
-                } catch (final Parser.Failure e) {
-                    AbstractParser.log.warn("tar parser entry " + name + ": " + e.getMessage());
-                } finally {
-                    if (tmp != null) FileUtils.deletedelete(tmp);
-                }
-            } catch (final IOException e) {
-                AbstractParser.log.warn("tar parser:" + e.getMessage());
-                break;
-            }
-        }
-        return new Document[]{maindoc};
+        return parseWithLimits(location, mimeType, charset, ignore_class_name, scraper, timezoneOffset, source, Integer.MAX_VALUE, Long.MAX_VALUE);
     }
 
 	@Override
@@ -137,8 +99,9 @@ public class tarParser extends AbstractParser implements Parser {
 
 	@Override
 	public Document[] parseWithLimits(final DigestURL location, final String mimeType, final String charset,
-			final VocabularyScraper scraper, final int timezoneOffset, final InputStream source, final int maxLinks,
-			final long maxBytes) throws Failure, InterruptedException, UnsupportedOperationException {
+			final Set<String> ignore_class_name, final VocabularyScraper scraper, final int timezoneOffset,
+			final InputStream source, final int maxLinks, final long maxBytes)
+			throws Failure, InterruptedException, UnsupportedOperationException {
 
 		final DigestURL parentTarURL = createParentTarURL(location);
 
@@ -147,38 +110,50 @@ public class tarParser extends AbstractParser implements Parser {
 		// create maindoc for this tar container
 		final Document maindoc = createMainDocument(location, mimeType, charset, this);
 
-		// loop through the elements in the tar file and parse every single file inside
+		/*
+		 * Loop through the elements in the tar file : each entry is copied to a temporary
+		 * file within the bytes limit and parsed in parallel with the next entries. The
+		 * links limit is applied when the documents of the entries are collected in the
+		 * order of the archive.
+		 */
+		final ArchiveMembers members = new ArchiveMembers("tar parser");
 		TarArchiveEntry entry;
-		int totalProcessedLinks = 0;
-		while (true) {
-			try {
-				entry = tis.getNextTarEntry();
-				if (entry == null) {
-					break;
-				}
+		try {
+			while (true) {
+				try {
+					entry = tis.getNextTarEntry();
+					if (entry == null) {
+						break;
+					}
 
-				/*
-				 * We are here sure at least one entry has still to be processed : let's check
-				 * now the bytes limit as sub parsers applied on eventual previous entries may
-				 * not support partial parsing and would have thrown a Parser.Failure instead of
-				 * marking the document as partially parsed.
-				 */
-				if (tis.getBytesRead() >= maxBytes) {
-					maindoc.setPartiallyParsed(true);
-					break;
-				}
+					/*
+					 * We are here sure at least one entry has still to be processed : let's check
+					 * now the bytes limit
+					 */
+					final long remainingBytes = maxBytes - tis.getBytesRead();
+					if (remainingBytes <= 0) {
+						maindoc.setPartiallyParsed(true);
+						break;
+					}
 
-				if (entry.isDirectory() || entry.getSize() <= 0) {
-					continue;
-				}
-				final String name = entry.getName();
-				final int idx = name.lastIndexOf('.');
-				final String mime = TextParser.mimeOf((idx > -1) ? name.substring(idx + 1) : "");
-				try {
+					if (entry.isDirectory() || entry.getSize() <= 0) {
+						continue;
+					}
+					if (!members.admit(Math.min(entry.getSize(), remainingBytes))) {
+						maindoc.setPartiallyParsed(true);
+						break;
+					}
+					final String name = entry.getName();
+					final int idx = name.lastIndexOf('.');
+					final String mime = TextParser.mimeOf((idx > -1) ? name.substring(idx + 1) : "");
 					/*
-					 * Rely on the supporting parsers to respect the maxLinks and maxBytes limits on
-					 * compressed content
+					 * An entry over the bytes limit is copied with one byte more than the limit : parsers
+					 * supporting partial parsing stop at the limit, the others fail as on a stream
 					 */
+					final long entrySize = entry.getSize();
+					final boolean truncated = entrySize > remainingBytes;
+					final File tmp = members.tmpFile(FileUtils.createTempFile(this.getClass(), name));
+					FileUtils.copy(tis, tmp, truncated ? remainingBytes + 1 : entrySize);
 
 					/*
 					 * Create an appropriate sub location to prevent unwanted fallback to the
@@ -189,38 +164,46 @@ public class tarParser extends AbstractParser implements Parser {
 					 * incorrectly making the tar parser as a possible parser for the sub resource.
 					 */
 					final DigestURL subLocation = new DigestURL(parentTarURL, name);
-					final Document[] subDocs = TextParser.parseWithLimits(subLocation, mime, null, timezoneOffset, 999,
-							entry.getSize(), tis, maxLinks - totalProcessedLinks, maxBytes - tis.getBytesRead());
-
-					/*
-					 * If the parser(s) did not consume all bytes in the entry, these ones will be
-					 * skipped by the next call to getNextTarEntry()
-					 */
-					if (subDocs == null) {
-						continue;
-					}
-					maindoc.addSubDocuments(subDocs);
-					for (Document subDoc : subDocs) {
-						if (subDoc.getAnchors() != null) {
-							totalProcessedLinks += subDoc.getAnchors().size();
+					members.submit(name, tmp, () -> {
+						try (final InputStream memberStream = new FileInputStream(tmp)) {
+							return TextParser.parseWithLimits(subLocation, mime, null, ignore_class_name, timezoneOffset, 999,
+									entrySize, memberStream, maxLinks, remainingBytes);
 						}
-					}
-					/*
-					 * Check if a limit has been exceeded (we are sure to pass here when maxLinks
-					 * has been exceeded as this limit require parser support for partial parsing to
-					 * be detected)
-					 */
-					if (subDocs[0].isPartiallyParsed()) {
+					});
+					if (truncated) {
 						maindoc.setPartiallyParsed(true);
 						break;
 					}
-				} catch (final Parser.Failure e) {
-					AbstractParser.log.warn("tar parser entry " + name + ": " + e.getMessage());
+				} catch (final IOException e) {
+					AbstractParser.log.warn("tar parser:" + e.getMessage());
+					break;
+				}
+			}
+
+			/*
+			 * Each entry was parsed with the whole links limit : keep the documents in the order
+			 * of the archive as long as their links fit in the limit
+			 */
+			final List<Document> subDocs = new ArrayList<>();
+			int totalProcessedLinks = 0;
+			for (final Document subDoc : members.collect()) {
+				final int links = subDoc.getAnchors() == null ? 0 : subDoc.getAnchors().size();
+				if (totalProcessedLinks + links > maxLinks) {
+					maindoc.setPartiallyParsed(true);
+					break;
+				}
+				totalProcessedLinks += links;
+				subDocs.add(subDoc);
+				if (subDoc.isPartiallyParsed()) {
+					maindoc.setPartiallyParsed(true);
+					break;
 				}
-			} catch (final IOException e) {
-				AbstractParser.log.warn("tar parser:" + e.getMessage());
-				break;
 			}
+			maindoc.addSubDocuments(subDocs.toArray(new Document[subDocs.size()]));
+		} catch (final IOException e) {
+			AbstractParser.log.warn("tar parser:" + e.getMessage());
+		} finally {
+			members.close();
 		}
 		return new Document[] { maindoc };
 	}
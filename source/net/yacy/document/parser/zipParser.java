@@ -35,6 +35,7 @@ import java.util.zip.ZipInputStream;
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.document.AbstractParser;
+import net.yacy.document.ArchiveMembers;
 import net.yacy.document.Document;
 import net.yacy.document.Parser;
 import net.yacy.document.TextParser;
@@ -104,33 +105,36 @@ public class zipParser extends AbstractParser implements Parser {
                 new Date());
 
         // loop through the elements in the zip file and parse every single file inside
-        while (true) {
-            try {
-                File tmp = null;
-                if (zis.available() <= 0) break;
-                entry = zis.getNextEntry();
-                if (entry == null) break;
-                if (entry.isDirectory() || entry.getSize() <= 0) continue;
-                final String name = entry.getName();
-                final int idx = name.lastIndexOf('.');
-                final String mime = TextParser.mimeOf((idx >= 0) ? name.substring(idx + 1) : "");
+        final ArchiveMembers members = new ArchiveMembers("ZIP parser");
+        try {
+            while (true) {
                 try {
-                    tmp = FileUtils.createTempFile(this.getClass(), name);
+                    if (zis.available() <= 0) break;
+                    entry = zis.getNextEntry();
+                    if (entry == null) break;
+                    if (entry.isDirectory() || entry.getSize() <= 0) continue;
+                    if (!members.admit(entry.getSize())) {
+                        maindoc.setPartiallyParsed(true);
+                        break;
+                    }
+                    final String name = entry.getName();
+                    final int idx = name.lastIndexOf('.');
+                    final String mime = TextParser.mimeOf((idx >= 0) ? name.substring(idx + 1) : "");
+                    final File tmp = members.tmpFile(FileUtils.createTempFile(this.getClass(), name));
                     FileUtils.copy(zis, tmp, entry.getSize());
                     final DigestURL virtualURL = DigestURL.newURL(location, "#" + name);
                     //this.log.logInfo("ZIP file parser: " + virtualURL.toNormalform(false, false));
-                    final Document[] docs = TextParser.parseSource(virtualURL, mime, null, ignore_class_name, scraper, timezoneOffset, 999, tmp);
-                    if (docs == null) continue;
-                    maindoc.addSubDocuments(docs);
-                } catch (final Parser.Failure e) {
-                    AbstractParser.log.warn("ZIP parser entry " + name + ": " + e.getMessage());
-                } finally {
-                    if (tmp != null) FileUtils.deletedelete(tmp);
+                    members.submit(name, tmp, () -> TextParser.parseSource(virtualURL, mime, null, ignore_class_name, scraper, timezoneOffset, 999, tmp));
+                } catch (final IOException e) {
+                    AbstractParser.log.warn("ZIP parser:" + e.getMessage());
+                    break;
                 }
-            } catch (final IOException e) {
-                AbstractParser.log.warn("ZIP parser:" + e.getMessage());
-                break;
             }
+            maindoc.addSubDocuments(members.collect());
+        } catch (final IOException e) {
+            AbstractParser.log.warn("ZIP parser:" + e.getMessage());
+        } finally {
+            members.close();
         }
         return new Document[]{maindoc};
     }
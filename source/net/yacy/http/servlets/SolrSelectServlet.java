@@ -68,6 +68,7 @@ import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.DisMaxParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.MultiMapSolrParams;
+import org.apache.solr.common.util.FastWriter;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SimpleOrderedMap;
 import org.apache.solr.core.SolrCore;
@@ -305,7 +306,8 @@ public class SolrSelectServlet extends HttpServlet {
                 if (responseWriter instanceof BinaryResponseWriter) {
                     ((BinaryResponseWriter) responseWriter).write(response.getOutputStream(), req, rsp);
                 } else {
-                    OutputStreamWriter osw = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+                    // the writers stream the documents, the char buffer keeps the number of encoder calls low
+                    Writer osw = new FastWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
                     responseWriter.write(osw, req, rsp);
                     osw.close();
                 }
@@ -367,13 +369,14 @@ public class SolrSelectServlet extends HttpServlet {
 
                 // write response body
                 if (responseWriter instanceof SolrjResponseWriter) {
-                    out = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+                    out = new FastWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
                     ((SolrjResponseWriter) responseWriter).write(out, req,
                             defaultConnector ? CollectionSchema.CORE_NAME : WebgraphSchema.CORE_NAME, queryRsp);
                 } else if(responseWriter instanceof BinaryResponseWriter) {
                     ((BinaryResponseWriter) responseWriter).write(response.getOutputStream(), req, rsp);
                 } else {
-                    OutputStreamWriter osw = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+                    // the writers stream the documents, the char buffer keeps the number of encoder calls low
+                    Writer osw = new FastWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
                     responseWriter.write(osw, req, rsp);
                     osw.close();
                 }
@@ -28,6 +28,7 @@ package net.yacy.kelondro.blob;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Array;
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -671,6 +672,18 @@ public class ArrayStack implements BLOB {
         return null;
     }
 
+    @Override
+    public InputStream getStream(final byte[] key) throws IOException {
+        if (this.blobs == null || this.blobs.isEmpty()) return null;
+        if (this.blobs.size() == 1) {
+            final blobItem bi = this.blobs.get(0);
+            return bi.blob.getStream(key);
+        }
+
+        final blobItem bi = keeperOf(key);
+        return (bi == null) ? null : bi.blob.getStream(key);
+    }
+
     /**
      * get all BLOBs in the array.
      * this is useful when it is not clear if an entry is unique in all BLOBs in this array.
@@ -27,6 +27,7 @@
 package net.yacy.kelondro.blob;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 import net.yacy.cora.order.ByteOrder;
 import net.yacy.cora.order.CloneableIterator;
@@ -117,7 +118,16 @@ public interface BLOB {
      */
     public byte[] get(byte[] key) throws IOException, SpaceExceededException;
     public byte[] get(Object key);
-    
+
+    /**
+     * open a stream on a BLOB; in contrast to get(key) large BLOBs are not read into memory at once
+     * but piece by piece while the stream is read. Don't forget to close the stream.
+     * @param key  the primary key
+     * @return a stream on the content of the BLOB or null if the BLOB does not exist
+     * @throws IOException
+     */
+    public InputStream getStream(byte[] key) throws IOException;
+
     /**
      * retrieve the size of the database
      * @param 
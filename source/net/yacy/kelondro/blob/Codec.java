@@ -0,0 +1,538 @@
+// Codec.java
+// -------------------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.blob;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorInputStream;
+
+import net.yacy.cora.util.ByteArray;
+import net.yacy.cora.util.ConcurrentLog;
+
+/**
+ * An encoding of the entries of the {@link Compressor}. Each encoded entry starts with
+ * the magic bytes of its codec, so that entries written with different codecs can be
+ * mixed in one BLOB and are always decoded with the codec they were written with.
+ */
+public abstract class Codec {
+
+    /** plain content, no encoding */
+    public static final Codec PLAIN = new Plain();
+
+    /** gzip, the original encoding of the Compressor */
+    public static final Codec GZIP = new Gzip();
+
+    /** LZ4 block format: fast to write and very fast to read, less dense than gzip */
+    public static final Codec LZ4 = new LZ4();
+
+    /** the magic of the entries written with a {@link Dictionary} codec, followed by the dictionary id */
+    public static final byte[] DICTIONARY_MAGIC = {(byte) 'd', (byte) '|'};
+
+    private final String name;
+    private final byte[] magic;
+
+    protected Codec(final String name, final byte[] magic) {
+        this.name = name;
+        this.magic = magic;
+    }
+
+    /**
+     * @return the name of the codec, used in the configuration
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return the magic bytes leading each entry written with this codec
+     */
+    public byte[] getMagic() {
+        return this.magic;
+    }
+
+    /**
+     * @param b an encoded entry
+     * @return true when the entry was written with this codec
+     */
+    public boolean accepts(final byte[] b) {
+        return ByteArray.startsWith(b, this.magic);
+    }
+
+    /**
+     * encode an entry
+     * @param b the content
+     * @param level the compression level from 0 (none) to 9 (best), ignored by codecs without levels
+     * @return the magic of the codec followed by the encoded content
+     * @throws IOException when the content could not be encoded
+     */
+    public abstract byte[] encode(byte[] b, int level) throws IOException;
+
+    /**
+     * decode an entry
+     * @param b the magic of the codec followed by the encoded content
+     * @return the content
+     * @throws IOException when the entry is not well-formed
+     */
+    public abstract byte[] decode(byte[] b) throws IOException;
+
+    /**
+     * decode an entry while it is read, without holding the whole entry in memory
+     * @param in the encoded content, following the magic of the codec
+     * @return a stream on the content
+     * @throws IOException when the entry is not well-formed
+     */
+    public abstract InputStream decode(InputStream in) throws IOException;
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+    /**
+     * @param name the name of a codec
+     * @return the built-in codec with the given name, gzip if the name is unknown
+     */
+    public static Codec forName(final String name) {
+        if (LZ4.getName().equalsIgnoreCase(name)) return LZ4;
+        if (PLAIN.getName().equalsIgnoreCase(name)) return PLAIN;
+        return GZIP;
+    }
+
+    /**
+     * @param b an encoded entry
+     * @return the built-in codec the entry was written with, null if the entry has no known magic
+     */
+    public static Codec forEntry(final byte[] b) {
+        if (GZIP.accepts(b)) return GZIP;
+        if (PLAIN.accepts(b)) return PLAIN;
+        if (LZ4.accepts(b)) return LZ4;
+        return null;
+    }
+
+    private static byte[] withMagic(final byte[] magic, final int length) {
+        final byte[] r = new byte[magic.length + length];
+        System.arraycopy(magic, 0, r, 0, magic.length);
+        return r;
+    }
+
+    private static void writeInt(final byte[] b, final int off, final int v) {
+        b[off    ] = (byte) (v >>> 24);
+        b[off + 1] = (byte) (v >>> 16);
+        b[off + 2] = (byte) (v >>>  8);
+        b[off + 3] = (byte)  v;
+    }
+
+    private static void skipLength(final InputStream in) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            if (in.read() < 0) throw new EOFException("entry too short");
+        }
+    }
+
+    private static int readInt(final byte[] b, final int off) {
+        return ((b[off] & 0xff) << 24) | ((b[off + 1] & 0xff) << 16) | ((b[off + 2] & 0xff) << 8) | (b[off + 3] & 0xff);
+    }
+
+    private static final class Plain extends Codec {
+
+        private Plain() {
+            super("plain", new byte[]{(byte) 'p', (byte) '|'});
+        }
+
+        @Override
+        public byte[] encode(final byte[] b, final int level) {
+            final byte[] r = withMagic(getMagic(), b.length);
+            System.arraycopy(b, 0, r, 2, b.length);
+            return r;
+        }
+
+        @Override
+        public byte[] decode(final byte[] b) {
+            final byte[] r = new byte[b.length - 2];
+            System.arraycopy(b, 2, r, 0, b.length - 2);
+            return r;
+        }
+
+        @Override
+        public InputStream decode(final InputStream in) {
+            return in;
+        }
+    }
+
+    private static final class Gzip extends Codec {
+
+        private Gzip() {
+            super("gzip", new byte[]{(byte) 'z', (byte) '|'});
+        }
+
+        @Override
+        public byte[] encode(final byte[] b, final int level) throws IOException {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream(b.length / 5);
+            baos.write(getMagic());
+            final OutputStream os = new GZIPOutputStream(baos, 65536){{def.setLevel(level);}};
+            os.write(b);
+            os.close();
+            return baos.toByteArray();
+        }
+
+        @Override
+        public byte[] decode(final byte[] b) throws IOException {
+            final ByteArrayInputStream bais = new ByteArrayInputStream(b, 2, b.length - 2);
+            final InputStream gis = new GZIPInputStream(bais);
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream(b.length * 3);
+            final byte[] buf = new byte[1024 * 4];
+            int n;
+            while ((n = gis.read(buf)) > 0) baos.write(buf, 0, n);
+            gis.close();
+            return baos.toByteArray();
+        }
+
+        @Override
+        public InputStream decode(final InputStream in) throws IOException {
+            return new GZIPInputStream(in, 8192);
+        }
+    }
+
+    /**
+     * The LZ4 block format (https://github.com/lz4/lz4/blob/dev/doc/lz4_Block_format.md),
+     * preceded by the length of the content as a four-byte integer.
+     */
+    private static final class LZ4 extends Codec {
+
+        private static final int MIN_MATCH = 4;
+        private static final int LAST_LITERALS = 5;  // the last bytes are always literals
+        private static final int MF_LIMIT = 12;      // no match may start within the last bytes
+        private static final int MAX_DISTANCE = 65535;
+        private static final int HASH_LOG = 14;
+
+        private LZ4() {
+            super("lz4", new byte[]{(byte) 'l', (byte) '|'});
+        }
+
+        private static int hash(final int v) {
+            return (v * -1640531535) >>> (32 - HASH_LOG);
+        }
+
+        private static int read32(final byte[] b, final int i) {
+            return (b[i] & 0xff) | ((b[i + 1] & 0xff) << 8) | ((b[i + 2] & 0xff) << 16) | ((b[i + 3] & 0xff) << 24);
+        }
+
+        @Override
+        public byte[] encode(final byte[] src, final int level) {
+            final int len = src.length;
+            // worst case: all literals plus one length byte per 255 literals
+            final byte[] dst = withMagic(getMagic(), 4 + len + len / 255 + 16);
+            writeInt(dst, 2, len);
+            int op = 6;
+            int anchor = 0;
+            if (len >= MF_LIMIT + 1) {
+                final int[] table = new int[1 << HASH_LOG];
+                final int limit = len - MF_LIMIT;
+                int ip = 1;
+                table[hash(read32(src, 0))] = 0;
+                while (ip < limit) {
+                    final int h = hash(read32(src, ip));
+                    final int ref = table[h];
+                    table[h] = ip;
+                    if (ip - ref > MAX_DISTANCE || read32(src, ref) != read32(src, ip)) {
+                        ip++;
+                        continue;
+                    }
+                    // extend the match backwards over the pending literals
+                    int start = ip, from = ref;
+                    while (start > anchor && from > 0 && src[start - 1] == src[from - 1]) {start--; from--;}
+                    // extend the match forwards
+                    int end = ip + MIN_MATCH;
+                    int rend = ref + MIN_MATCH;
+                    final int matchLimit = len - LAST_LITERALS;
+                    while (end < matchLimit && src[end] == src[rend]) {end++; rend++;}
+                    op = sequence(src, anchor, start - anchor, start - from, end - start, dst, op);
+                    anchor = end;
+                    ip = end;
+                    if (ip < limit) table[hash(read32(src, ip - 2))] = ip - 2;
+                }
+            }
+            op = sequence(src, anchor, len - anchor, 0, 0, dst, op);
+            final byte[] r = new byte[op];
+            System.arraycopy(dst, 0, r, 0, op);
+            return r;
+        }
+
+        /**
+         * write a sequence of literals and a match; a match length 0 writes the last literals only
+         */
+        private static int sequence(final byte[] src, final int lit, final int litLen, final int offset, final int matchLen, final byte[] dst, int op) {
+            final int token = op++;
+            int t = 0;
+            if (litLen >= 15) {
+                t = 15 << 4;
+                int l = litLen - 15;
+                while (l >= 255) {dst[op++] = (byte) 255; l -= 255;}
+                dst[op++] = (byte) l;
+            } else {
+                t = litLen << 4;
+            }
+            System.arraycopy(src, lit, dst, op, litLen);
+            op += litLen;
+            if (matchLen > 0) {
+                dst[op++] = (byte) offset;
+                dst[op++] = (byte) (offset >>> 8);
+                final int ml = matchLen - MIN_MATCH;
+                if (ml >= 15) {
+                    t |= 15;
+                    int l = ml - 15;
+                    while (l >= 255) {dst[op++] = (byte) 255; l -= 255;}
+                    dst[op++] = (byte) l;
+                } else {
+                    t |= ml;
+                }
+            }
+            dst[token] = (byte) t;
+            return op;
+        }
+
+        @Override
+        public byte[] decode(final byte[] src) throws IOException {
+            if (src.length < 6) throw new IOException("lz4 entry too short");
+            final int len = readInt(src, 2);
+            if (len < 0) throw new IOException("lz4 entry with negative length");
+            final byte[] dst = new byte[len];
+            int ip = 6, op = 0;
+            try {
+                while (ip < src.length) {
+                    final int token = src[ip++] & 0xff;
+                    int litLen = token >>> 4;
+                    if (litLen == 15) {
+                        int b;
+                        do {b = src[ip++] & 0xff; litLen += b;} while (b == 255);
+                    }
+                    System.arraycopy(src, ip, dst, op, litLen);
+                    ip += litLen;
+                    op += litLen;
+                    if (ip >= src.length) break; // the last sequence has no match
+                    final int offset = (src[ip] & 0xff) | ((src[ip + 1] & 0xff) << 8);
+                    ip += 2;
+                    if (offset == 0 || offset > op) throw new IOException("lz4 entry with bad offset " + offset);
+                    int matchLen = token & 15;
+                    if (matchLen == 15) {
+                        int b;
+                        do {b = src[ip++] & 0xff; matchLen += b;} while (b == 255);
+                    }
+                    matchLen += MIN_MATCH;
+                    int from = op - offset;
+                    if (offset >= matchLen) {
+                        System.arraycopy(dst, from, dst, op, matchLen);
+                        op += matchLen;
+                    } else {
+                        // overlapping copy
+                        for (int i = 0; i < matchLen; i++) dst[op++] = dst[from++];
+                    }
+                }
+            } catch (final ArrayIndexOutOfBoundsException e) {
+                throw new IOException("lz4 entry is not well-formed");
+            }
+            if (op != len) throw new IOException("lz4 entry has " + op + " bytes instead of " + len);
+            return dst;
+        }
+
+        @Override
+        public InputStream decode(final InputStream in) throws IOException {
+            skipLength(in);
+            return new BlockLZ4CompressorInputStream(in);
+        }
+    }
+
+    /**
+     * Benchmark of the codecs: compression and decompression throughput and size ratio
+     * @param args the path of a directory with sample documents, for example a crawl dump
+     */
+    public static void main(final String[] args) throws IOException {
+        final List<byte[]> docs = new ArrayList<byte[]>();
+        final List<byte[]> small = new ArrayList<byte[]>();
+        long total = 0;
+        final Deque<File> dirs = new ArrayDeque<File>();
+        dirs.add(new File(args[0]));
+        while (!dirs.isEmpty()) {
+            final File[] files = dirs.poll().listFiles();
+            if (files == null) continue;
+            for (final File f: files) {
+                if (f.isDirectory()) {dirs.add(f); continue;}
+                final byte[] b = Files.readAllBytes(f.toPath());
+                docs.add(b);
+                total += b.length;
+                if (b.length <= CodecDictionaries.MAX_ENTRY_SIZE && small.size() < CodecDictionaries.TRAINING_SAMPLES) small.add(b);
+            }
+        }
+        System.out.println(docs.size() + " documents, " + total + " bytes");
+        final Codec dictionary = new Dictionary(1, CodecDictionaries.train(small, CodecDictionaries.MAX_DICTIONARY_SIZE));
+        for (int round = 0; round < 3; round++) {
+            for (final Codec codec: new Codec[]{GZIP, LZ4, dictionary}) {
+                final List<byte[]> encoded = new ArrayList<byte[]>(docs.size());
+                long size = 0;
+                final long t0 = System.nanoTime();
+                for (final byte[] b: docs) {
+                    final byte[] e = codec.encode(b, Deflater.BEST_COMPRESSION);
+                    encoded.add(e);
+                    size += e.length;
+                }
+                final long t1 = System.nanoTime();
+                for (final byte[] e: encoded) codec.decode(e);
+                final long t2 = System.nanoTime();
+                System.out.println(String.format("%-12s ratio %.3f, compress %7.1f MB/s, decompress %7.1f MB/s",
+                        codec.getName(), (double) size / total, total * 1000.0d / (t1 - t0), total * 1000.0d / (t2 - t1)));
+            }
+        }
+        ConcurrentLog.shutdown();
+    }
+
+    /**
+     * Raw deflate with a preset dictionary, which improves the compression of small documents
+     * sharing a lot of content with the dictionary, like HTML pages of the same MIME type.
+     * The magic is followed by the id of the dictionary and the length of the content.
+     */
+    public static final class Dictionary extends Codec {
+
+        private final int id;
+        private final byte[] dictionary;
+
+        /**
+         * @param id the id of the dictionary, 1 to 255
+         * @param dictionary the preset dictionary, at most 32 KB are used
+         */
+        public Dictionary(final int id, final byte[] dictionary) {
+            super("dictionary-" + id, new byte[]{DICTIONARY_MAGIC[0], DICTIONARY_MAGIC[1], (byte) id});
+            if (id < 1 || id > 255) throw new IllegalArgumentException("dictionary id out of range: " + id);
+            this.id = id;
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * @return the id of the dictionary
+         */
+        public int getId() {
+            return this.id;
+        }
+
+        /**
+         * @return the preset dictionary
+         */
+        public byte[] getDictionary() {
+            return this.dictionary;
+        }
+
+        /**
+         * @param b an encoded entry
+         * @return the id of the dictionary the entry was written with, -1 if it was not written with a dictionary
+         */
+        public static int dictionaryId(final byte[] b) {
+            if (b == null || b.length < 7 || !ByteArray.startsWith(b, DICTIONARY_MAGIC)) return -1;
+            return b[2] & 0xff;
+        }
+
+        @Override
+        public byte[] encode(final byte[] b, final int level) {
+            final Deflater deflater = new Deflater(level, true);
+            try {
+                deflater.setDictionary(this.dictionary);
+                deflater.setInput(b);
+                deflater.finish();
+                final ByteArrayOutputStream baos = new ByteArrayOutputStream(b.length / 4 + 16);
+                baos.write(getMagic(), 0, 3);
+                final byte[] l = new byte[4];
+                writeInt(l, 0, b.length);
+                baos.write(l, 0, 4);
+                final byte[] buf = new byte[8192];
+                while (!deflater.finished()) {
+                    final int n = deflater.deflate(buf);
+                    baos.write(buf, 0, n);
+                }
+                return baos.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        public byte[] decode(final byte[] b) throws IOException {
+            final int len = readInt(b, 3);
+            if (len < 0) throw new IOException("dictionary entry with negative length");
+            final Inflater inflater = new Inflater(true);
+            try {
+                inflater.setDictionary(this.dictionary);
+                // a raw inflater needs one extra byte after the input
+                final byte[] input = new byte[b.length - 7 + 1];
+                System.arraycopy(b, 7, input, 0, b.length - 7);
+                inflater.setInput(input);
+                final byte[] r = new byte[len];
+                int off = 0;
+                while (off < len) {
+                    final int n = inflater.inflate(r, off, len - off);
+                    if (n == 0 && (inflater.finished() || inflater.needsInput())) break;
+                    off += n;
+                }
+                if (off != len) throw new IOException("dictionary entry has " + off + " bytes instead of " + len);
+                return r;
+            } catch (final DataFormatException e) {
+                throw new IOException(e.getMessage());
+            } finally {
+                inflater.end();
+            }
+        }
+
+        @Override
+        public InputStream decode(final InputStream in) throws IOException {
+            skipLength(in);
+            final Inflater inflater = new Inflater(true);
+            inflater.setDictionary(this.dictionary);
+            // a raw inflater needs one extra byte after the input
+            final InputStream input = new SequenceInputStream(in, new ByteArrayInputStream(new byte[1]));
+            return new InflaterInputStream(input, inflater, 8192) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inflater.end();
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,253 @@
+// CodecDictionaries.java
+// -------------------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.blob;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.kelondro.util.FileUtils;
+
+/**
+ * Preset dictionaries of the {@link Codec.Dictionary} codec, one for each MIME type.
+ * A dictionary is trained from the first small documents of its MIME type and stored
+ * in a file of the dictionary directory. Dictionaries are never changed or deleted,
+ * because the entries written with them can only be read with the same dictionary.
+ */
+public class CodecDictionaries {
+
+    private final static ConcurrentLog log = new ConcurrentLog("CodecDictionaries");
+
+    /** maximum size of a dictionary; deflate uses a window of 32 KB */
+    public static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+    /** documents larger than this are not compressed with a dictionary, the dictionary gains little for them */
+    public static final int MAX_ENTRY_SIZE = 64 * 1024;
+
+    /** number of documents of one MIME type used to train its dictionary */
+    public static final int TRAINING_SAMPLES = 100;
+
+    /** bytes of each document used to train a dictionary */
+    private static final int SAMPLE_SIZE = 8 * 1024;
+
+    /** maximum number of MIME types collecting samples at the same time */
+    private static final int MAX_TRAINING_MIMES = 8;
+
+    /** length of the byte sequences counted by the training */
+    private static final int GRAM = 8;
+
+    private static final String SUFFIX = ".dict";
+
+    private final File location;
+    private final Map<Integer, Codec.Dictionary> byId;
+    private final Map<String, Codec.Dictionary> byMime;
+    private final Map<String, List<byte[]>> samples;
+
+    /**
+     * open the dictionaries of a directory
+     * @param location the directory of the dictionary files, created if it does not exist
+     */
+    public CodecDictionaries(final File location) {
+        this.location = location;
+        this.byId = new ConcurrentHashMap<Integer, Codec.Dictionary>();
+        this.byMime = new ConcurrentHashMap<String, Codec.Dictionary>();
+        this.samples = new HashMap<String, List<byte[]>>();
+        if (!location.exists()) location.mkdirs();
+        final String[] files = location.list();
+        if (files == null) return;
+        for (final String f: files) {
+            if (!f.endsWith(SUFFIX)) continue;
+            try {
+                final int id = Integer.parseInt(f.substring(0, f.indexOf('.')));
+                final byte[] b = FileUtils.read(new File(location, f));
+                int p = 0;
+                while (p < b.length && b[p] != '\n') p++;
+                final String mime = new String(b, 0, p, StandardCharsets.US_ASCII);
+                final byte[] dictionary = new byte[b.length - p - 1];
+                System.arraycopy(b, p + 1, dictionary, 0, dictionary.length);
+                final Codec.Dictionary codec = new Codec.Dictionary(id, dictionary);
+                this.byId.put(id, codec);
+                this.byMime.put(mime, codec);
+            } catch (final IOException | RuntimeException e) {
+                log.warn("cannot read dictionary " + f + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param id the id of a dictionary
+     * @return the dictionary codec with the given id, null if it does not exist
+     */
+    public Codec.Dictionary get(final int id) {
+        return this.byId.get(id);
+    }
+
+    /**
+     * @param mime a MIME type
+     * @return the dictionary codec of the MIME type, null if it is not trained yet
+     */
+    public Codec.Dictionary forMime(final String mime) {
+        if (mime == null) return null;
+        return this.byMime.get(mime);
+    }
+
+    /**
+     * @return the number of dictionaries
+     */
+    public int size() {
+        return this.byId.size();
+    }
+
+    /**
+     * Add a document to the training samples of its MIME type. When enough samples are collected,
+     * the dictionary of the MIME type is trained and stored.
+     * @param mime the MIME type of the document
+     * @param b the document
+     */
+    public void sample(final String mime, final byte[] b) {
+        if (mime == null || b == null || b.length > MAX_ENTRY_SIZE || this.byMime.containsKey(mime)) return;
+        final List<byte[]> training;
+        synchronized (this.samples) {
+            List<byte[]> list = this.samples.get(mime);
+            if (list == null) {
+                if (this.samples.size() >= MAX_TRAINING_MIMES || this.byId.size() >= 255) return;
+                list = new ArrayList<byte[]>();
+                this.samples.put(mime, list);
+            }
+            final byte[] s = new byte[Math.min(b.length, SAMPLE_SIZE)];
+            System.arraycopy(b, 0, s, 0, s.length);
+            list.add(s);
+            if (list.size() < TRAINING_SAMPLES) return;
+            training = this.samples.remove(mime);
+        }
+        final byte[] dictionary = train(training, MAX_DICTIONARY_SIZE);
+        if (dictionary.length == 0) return;
+        synchronized (this) {
+            if (this.byMime.containsKey(mime)) return;
+            int id = 1;
+            while (this.byId.containsKey(id)) id++;
+            if (id > 255) return;
+            try {
+                final ByteArrayOutputStream baos = new ByteArrayOutputStream(dictionary.length + 64);
+                baos.write(mime.getBytes(StandardCharsets.US_ASCII));
+                baos.write('\n');
+                baos.write(dictionary);
+                final File tmp = new File(this.location, id + SUFFIX + ".prt");
+                FileUtils.copy(baos.toByteArray(), tmp);
+                if (!tmp.renameTo(new File(this.location, id + SUFFIX))) throw new IOException("cannot rename " + tmp);
+            } catch (final IOException e) {
+                log.warn("cannot write dictionary for " + mime + ": " + e.getMessage());
+                return;
+            }
+            final Codec.Dictionary codec = new Codec.Dictionary(id, dictionary);
+            this.byId.put(id, codec);
+            this.byMime.put(mime, codec);
+            log.info("trained dictionary " + id + " for " + mime + ", " + dictionary.length + " bytes");
+        }
+    }
+
+    private static long gram(final byte[] b, final int off) {
+        long h = 0;
+        for (int i = 0; i < GRAM; i++) h = (h << 8) | (b[off + i] & 0xff);
+        return h;
+    }
+
+    /**
+     * Train a dictionary: the byte sequences found in many samples are collected and the
+     * most valuable ones (frequency times length) are concatenated, the best at the end
+     * where deflate finds them with the shortest distances.
+     * @param samples the training documents
+     * @param maxSize the maximum size of the dictionary
+     * @return the dictionary, empty if the samples have nothing in common
+     */
+    public static byte[] train(final List<byte[]> samples, final int maxSize) {
+        // count the number of samples containing each gram
+        final Map<Long, Integer> df = new HashMap<Long, Integer>();
+        final List<byte[]> truncated = new ArrayList<byte[]>(samples.size());
+        for (final byte[] b: samples) {
+            if (b.length <= SAMPLE_SIZE) {
+                truncated.add(b);
+            } else {
+                final byte[] s = new byte[SAMPLE_SIZE];
+                System.arraycopy(b, 0, s, 0, SAMPLE_SIZE);
+                truncated.add(s);
+            }
+        }
+        for (final byte[] sample: truncated) {
+            final Set<Long> seen = new HashSet<Long>();
+            for (int i = 0; i + GRAM <= sample.length; i++) {
+                final Long g = gram(sample, i);
+                if (seen.add(g)) df.merge(g, 1, Integer::sum);
+            }
+        }
+        final int threshold = Math.max(2, samples.size() / 10);
+
+        // collect the maximal runs of frequent grams as segments
+        final Map<String, Integer> segments = new HashMap<String, Integer>();
+        for (final byte[] sample: truncated) {
+            final Set<String> seen = new HashSet<String>();
+            int i = 0;
+            while (i + GRAM <= sample.length) {
+                if (df.getOrDefault(gram(sample, i), 0) < threshold) {i++; continue;}
+                final int start = i;
+                while (i + GRAM <= sample.length && df.getOrDefault(gram(sample, i), 0) >= threshold) i++;
+                final int end = i - 1 + GRAM;
+                if (end - start >= 2 * GRAM) {
+                    final String segment = new String(sample, start, end - start, StandardCharsets.ISO_8859_1);
+                    if (seen.add(segment)) segments.merge(segment, 1, Integer::sum);
+                }
+            }
+        }
+
+        // select the segments with the best frequency * length
+        final List<Map.Entry<String, Integer>> ranked = new ArrayList<Map.Entry<String, Integer>>();
+        for (final Map.Entry<String, Integer> e: segments.entrySet()) {
+            if (e.getValue() >= threshold) ranked.add(e);
+        }
+        Collections.sort(ranked, (e1, e2) -> Long.compare((long) e2.getValue() * e2.getKey().length(), (long) e1.getValue() * e1.getKey().length()));
+        final List<String> selected = new ArrayList<String>();
+        final StringBuilder all = new StringBuilder(maxSize);
+        for (final Map.Entry<String, Integer> e: ranked) {
+            final String segment = e.getKey();
+            if (all.length() + segment.length() > maxSize) continue;
+            if (all.indexOf(segment) >= 0) continue;
+            selected.add(segment);
+            all.append(segment);
+            if (all.length() >= maxSize - 2 * GRAM) break;
+        }
+        Collections.reverse(selected);
+        final StringBuilder dictionary = new StringBuilder(all.length());
+        for (final String segment: selected) dictionary.append(segment);
+        return dictionary.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -28,37 +28,38 @@
 package net.yacy.kelondro.blob;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.Deflater;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import net.yacy.cora.order.ByteOrder;
 import net.yacy.cora.order.CloneableIterator;
-import net.yacy.cora.util.ByteArray;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.kelondro.util.MemoryControl;
 
 
+/**
+ * A BLOB compressing its entries. Each entry is written with a leading magic of its
+ * {@link Codec}, so that the codec can be changed at any time: entries are always read
+ * with the codec they were written with. Entries without magic are read as plain content.
+ */
 public class Compressor implements BLOB, Iterable<byte[]> {
 
-    private static byte[] gzipMagic  = {(byte) 'z', (byte) '|'}; // magic for gzip-encoded content
-    private static byte[] plainMagic = {(byte) 'p', (byte) '|'}; // magic for plain content (no encoding)
-
     private final BLOB backend;
     
     /** entries which are not yet compressed, format is RAW (without magic) */
     private TreeMap<byte[], byte[]> buffer;
     
+    /** MIME types of the entries in buffer, if known */
+    private TreeMap<byte[], String> bufferMime;
+    
     /** Total size (in bytes) of uncompressed entries in buffer */
     private volatile long bufferlength;
     
@@ -73,6 +74,15 @@ public class Compressor implements BLOB, Iterable<byte[]> {
     
     /** The compression level */
     private volatile int compressionLevel;
+    
+    /** The codec of new entries */
+    private volatile Codec codec;
+    
+    /** The per MIME type dictionaries, needed to read entries written with a dictionary; may be null */
+    private volatile CodecDictionaries dictionaries;
+    
+    /** When true, small entries of a MIME type with a dictionary are written with the dictionary */
+    private volatile boolean useDictionaries;
 
     /**
      * @param backend the backend storage
@@ -87,6 +97,9 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         this.lock = new ReentrantLock();
         /* Ensure a value within the range supported by the Deflater class */
         this.compressionLevel = Math.max(Deflater.NO_COMPRESSION, Math.min(Deflater.BEST_COMPRESSION, compressionLevel));
+        this.codec = Codec.GZIP;
+        this.dictionaries = null;
+        this.useDictionaries = false;
         initBuffer();
     }
 
@@ -118,6 +131,7 @@ public class Compressor implements BLOB, Iterable<byte[]> {
 
     private void initBuffer() {
         this.buffer = new TreeMap<byte[], byte[]>(this.backend.ordering());
+        this.bufferMime = new TreeMap<byte[], String>(this.backend.ordering());
         this.bufferlength = 0;
     }
 
@@ -138,33 +152,28 @@ public class Compressor implements BLOB, Iterable<byte[]> {
     	}
     }
 
-    private static byte[] compress(final byte[] b, final int compressionLevel) {
+    private byte[] compress(final byte[] b, final String mime) {
         final int l = b.length;
         if (l < 100) return markWithPlainMagic(b);
-        final byte[] bb = compressAddMagic(b, compressionLevel);
-        if (bb.length >= l) return markWithPlainMagic(b);
-        return bb;
-    }
-
-    private static byte[] compressAddMagic(final byte[] b, final int compressionLevel) {
-        // compress a byte array and add a leading magic for the compression
+        Codec c = this.codec;
+        final CodecDictionaries dicts = this.dictionaries;
+        if (dicts != null && this.useDictionaries && l <= CodecDictionaries.MAX_ENTRY_SIZE && c != Codec.PLAIN) {
+            final Codec d = dicts.forMime(mime);
+            if (d != null) c = d;
+        }
+        byte[] bb;
         try {
-            //System.out.print("/(" + cdr + ")"); // DEBUG
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream(b.length / 5);
-            baos.write(gzipMagic);
-            final OutputStream os = new GZIPOutputStream(baos, 65536){{def.setLevel(compressionLevel);}};
-            os.write(b);
-            os.close();
-            baos.close();
-            return baos.toByteArray();
+            bb = c.encode(b, this.compressionLevel);
         } catch (final IOException e) {
             ConcurrentLog.severe("Compressor", "", e);
-            return null;
+            bb = null;
         }
+        if (bb == null || bb.length >= l) return markWithPlainMagic(b);
+        return bb;
     }
 
     private static byte[] markWithPlainMagic(final byte[] b) {
-        //System.out.print("+"); // DEBUG
+        final byte[] plainMagic = Codec.PLAIN.getMagic();
         final byte[] r = new byte[b.length + 2];
         r[0] = plainMagic[0];
         r[1] = plainMagic[1];
@@ -172,41 +181,32 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         return r;
     }
 
-    private static byte[] decompress(final byte[] b) {
+    private byte[] decompress(final byte[] b) {
         // use a magic in the head of the bytes to identify compression type
         if (b == null) return null;
-        if (ByteArray.startsWith(b, gzipMagic)) {
-            //System.out.print("\\"); // DEBUG
-            final ByteArrayInputStream bais = new ByteArrayInputStream(b);
-            // eat up the magic
-            bais.read();
-            bais.read();
-            // decompress what is remaining
-            InputStream gis;
-            try {
-                gis = new GZIPInputStream(bais);
-                final ByteArrayOutputStream baos = new ByteArrayOutputStream(b.length);
-                final byte[] buf = new byte[1024 * 4];
-                int n;
-                while ((n = gis.read(buf)) > 0) baos.write(buf, 0, n);
-                gis.close();
-                bais.close();
-                baos.close();
-
-                return baos.toByteArray();
-            } catch (final IOException e) {
-                ConcurrentLog.logException(e);
-                return null;
+        Codec c = Codec.forEntry(b);
+        if (c == null) {
+            final int id = Codec.Dictionary.dictionaryId(b);
+            if (id >= 0) {
+                final CodecDictionaries dicts = this.dictionaries;
+                c = (id == 0 || dicts == null) ? null : dicts.get(id);
+                if (c == null) {
+                    // the entry can not be read without its dictionary
+                    ConcurrentLog.warn("Compressor", "missing dictionary " + id + " to decompress an entry");
+                    return null;
+                }
             }
-        } else if (ByteArray.startsWith(b, plainMagic)) {
-            //System.out.print("-"); // DEBUG
-            final byte[] r = new byte[b.length - 2];
-            System.arraycopy(b, 2, r, 0, b.length - 2);
-            return r;
-        } else {
+        }
+        if (c == null) {
             // we consider that the entry is also plain, but without leading magic
             return b;
         }
+        try {
+            return c.decode(b);
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+            return null;
+        }
     }
 
     @Override
@@ -226,7 +226,7 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         		b = this.buffer.remove(key);
         		if (b != null) {
         			this.bufferlength = this.bufferlength - b.length;
-           			this.backend.insert(key, compress(b, this.compressionLevel));
+           			this.backend.insert(key, compress(b, this.bufferMime.remove(key)));
         			return b;
         		}
         	} finally {
@@ -245,6 +245,71 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         return b;
     }
 
+    /**
+     * Open a stream on an entry. The entry is decompressed while the stream is read, so that
+     * large entries are neither read nor decompressed into memory at once.
+     * @param key the key of the entry
+     * @return a stream on the decompressed content or null if the entry does not exist or the lock could not be acquired
+     * @throws IOException when the entry could not be read
+     */
+    @Override
+    public InputStream getStream(final byte[] key) throws IOException {
+        boolean locked = false;
+        try {
+            locked = this.lock.tryLock(this.lockTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ignored) {
+            /* When interrupted, simply return null */
+            ConcurrentLog.fine("Compressor", "Interrupted while acquiring a synchronzation lock on getStream()");
+        }
+        if (!locked) {
+            ConcurrentLog.fine("Compressor", "Could not acquire a synchronization lock for retrieval within " + this.lockTimeout + " milliseconds");
+            return null;
+        }
+        final InputStream in;
+        try {
+            final byte[] b = this.buffer.get(key);
+            if (b != null) return new ByteArrayInputStream(b);
+            in = this.backend.getStream(key);
+        } finally {
+            this.lock.unlock();
+        }
+        if (in == null) return null;
+        return decompress(in);
+    }
+
+    private InputStream decompress(final InputStream in) throws IOException {
+        // read the magic to identify the codec; magics have two bytes, dictionary magics are followed by the dictionary id
+        final PushbackInputStream pin = new PushbackInputStream(in, 3);
+        final byte[] magic = new byte[3];
+        int n = 0;
+        while (n < 2) {
+            final int c = pin.read(magic, n, 2 - n);
+            if (c < 0) break;
+            n += c;
+        }
+        if (n == 2) {
+            for (final Codec c: new Codec[]{Codec.GZIP, Codec.PLAIN, Codec.LZ4}) {
+                final byte[] m = c.getMagic();
+                if (magic[0] == m[0] && magic[1] == m[1]) return c.decode(pin);
+            }
+            if (magic[0] == Codec.DICTIONARY_MAGIC[0] && magic[1] == Codec.DICTIONARY_MAGIC[1]) {
+                final int id = pin.read();
+                final CodecDictionaries dicts = this.dictionaries;
+                final Codec c = (id <= 0 || dicts == null) ? null : dicts.get(id);
+                if (c != null) return c.decode(pin);
+                if (id >= 0) {
+                    // the entry can not be read without its dictionary
+                    pin.close();
+                    ConcurrentLog.warn("Compressor", "missing dictionary " + id + " to decompress an entry");
+                    throw new IOException("missing dictionary " + id + " to decompress an entry");
+                }
+            }
+        }
+        // we consider that the entry is also plain, but without leading magic
+        pin.unread(magic, 0, n);
+        return pin;
+    }
+
     @Override
     public byte[] get(final Object key) {
         if (!(key instanceof byte[])) return null;
@@ -306,6 +371,7 @@ public class Compressor implements BLOB, Iterable<byte[]> {
     }
 
     private int removeFromQueues(final byte[] key) {
+        this.bufferMime.remove(key);
         final byte[] b = this.buffer.remove(key);
         if (b != null) return b.length;
         return 0;
@@ -313,6 +379,19 @@ public class Compressor implements BLOB, Iterable<byte[]> {
 
     @Override
     public void insert(final byte[] key, final byte[] b) throws IOException {
+        insert(key, b, null);
+    }
+
+    /**
+     * insert an entry
+     * @param key the key of the entry
+     * @param b the content
+     * @param mime the MIME type of the content, used to select a dictionary; may be null
+     * @throws IOException when the entry could not be written
+     */
+    public void insert(final byte[] key, final byte[] b, final String mime) throws IOException {
+        final CodecDictionaries dicts = this.dictionaries;
+        if (dicts != null && this.useDictionaries && mime != null) dicts.sample(mime, b);
     	boolean locked = false;
     	try {
 			locked = this.lock.tryLock(this.lockTimeout, TimeUnit.MILLISECONDS);
@@ -340,6 +419,7 @@ public class Compressor implements BLOB, Iterable<byte[]> {
     			// they are either written uncompressed to the database
     			// or compressed later
    				this.buffer.put(key, b);
+   				if (mime != null) this.bufferMime.put(key, mime);
    				this.bufferlength += b.length;
     		} finally {
     			this.lock.unlock();
@@ -424,12 +504,14 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         // depending on process case, write it to the file or compress it to the other queue
         final Map.Entry<byte[], byte[]> entry = this.buffer.entrySet().iterator().next();
         this.buffer.remove(entry.getKey());
+        final String mime = this.bufferMime.remove(entry.getKey());
         try {
-            this.backend.insert(entry.getKey(), compress(entry.getValue(), this.compressionLevel));
+            this.backend.insert(entry.getKey(), compress(entry.getValue(), mime));
             this.bufferlength -= entry.getValue().length;
             return true;
         } catch (final IOException e) {
             this.buffer.put(entry.getKey(), entry.getValue());
+            if (mime != null) this.bufferMime.put(entry.getKey(), mime);
             return false;
         }
     }
@@ -480,6 +562,37 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         this.compressionLevel = Math.max(Deflater.NO_COMPRESSION, Math.min(Deflater.BEST_COMPRESSION, compressionLevel));
     }
     
+    /**
+     * Set the codec of new entries. Existing entries are still read with the codec they were written with.
+     * @param codec the new codec
+     */
+    public void setCodec(final Codec codec) {
+        this.codec = codec == null ? Codec.GZIP : codec;
+    }
+    
+    /**
+     * @return the codec of new entries
+     */
+    public Codec getCodec() {
+        return this.codec;
+    }
+    
+    /**
+     * Set the dictionaries of small entries with a known MIME type. The dictionaries must be
+     * kept as long as entries written with them exist, otherwise these entries cannot be read.
+     * @param dictionaries the dictionaries, may be null
+     */
+    public void setDictionaries(final CodecDictionaries dictionaries) {
+        this.dictionaries = dictionaries;
+    }
+    
+    /**
+     * @param useDictionaries when true, dictionaries are trained and used for new small entries of a known MIME type
+     */
+    public void setUseDictionaries(final boolean useDictionaries) {
+        this.useDictionaries = useDictionaries;
+    }
+    
     /**
      * Set the new synchronization lock timeout.
      * @param lockTimeout the new synchronization lock timeout (in milliseconds).
@@ -26,8 +26,10 @@
 
 package net.yacy.kelondro.blob;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -253,6 +255,27 @@ public final class Heap extends HeapModifier implements BLOB {
         }
     }
 
+    /**
+     * open a stream on a BLOB
+     * @param key
+     * @return a stream on the BLOB or null if the BLOB does not exist
+     * @throws IOException
+     */
+    @Override
+    public InputStream getStream(byte[] key) throws IOException {
+        key = normalizeKey(key);
+
+        synchronized (this) {
+            // check the buffer
+            if (this.buffer != null) {
+                byte[] blob = this.buffer.get(key);
+                if (blob != null) return new ByteArrayInputStream(blob);
+            }
+
+            return super.getStream(key);
+        }
+    }
+
     /**
      * retrieve the size of the BLOB
      * @param key
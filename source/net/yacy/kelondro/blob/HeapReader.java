@@ -25,10 +25,12 @@
 package net.yacy.kelondro.blob;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
@@ -60,6 +62,9 @@ public class HeapReader {
 
 	private final static ConcurrentLog log = new ConcurrentLog("HeapReader");
 
+    /** blobs larger than this are streamed in pieces of this size, see {@link #getStream(byte[])} */
+    protected static final int STREAM_CHUNK = 64 * 1024;
+
     // input values
     protected int                keylength;  // the length of the primary key
     protected File               heapFile;   // the file of the heap
@@ -561,6 +566,120 @@ public class HeapReader {
         return null;
     }
 
+    /**
+     * open a stream on a blob of the heap. Blobs up to STREAM_CHUNK bytes are read at once, larger blobs
+     * are read piece by piece while the stream is read, so that no array of the size of the blob is allocated.
+     * The stream fails with an IOException if the blob is deleted or moved while it is read.
+     * @param key
+     * @return a stream on the blob or null if the heap does not contain the key
+     * @throws IOException
+     */
+    public InputStream getStream(byte[] key) throws IOException {
+        if (this.index == null) return null;
+        key = normalizeKey(key);
+
+        synchronized (this) {
+            final HandleMap idx = this.index;
+            if (idx == null) return null;
+            synchronized (idx) {
+                final long pos = idx.get(key);
+                if (pos < 0) return null;
+                this.file.seek(pos);
+                final int len = this.file.readInt() - this.keylength;
+                if (len < 0) {
+                    log.severe("file " + this.file.file() + " corrupted at " + pos + ": negative len. len = " + len + ", pk.len = " + this.keylength);
+                    idx.remove(key);
+                    return null;
+                }
+                final byte[] keyf = new byte[this.keylength];
+                this.file.readFully(keyf, 0, keyf.length);
+                if (!this.ordering.equal(key, keyf)) {
+                    log.severe("indexed verification access failed for " + this.heapFile.toString());
+                    idx.remove(key);
+                    return null;
+                }
+                if (len <= STREAM_CHUNK) {
+                    final byte[] blob = new byte[len];
+                    this.file.readFully(blob, 0, len);
+                    return new ByteArrayInputStream(blob);
+                }
+                return new BlobInputStream(key, pos, len);
+            }
+        }
+    }
+
+    /**
+     * A stream reading a blob piece by piece. Before each piece is read the index is checked
+     * to be sure that the record still belongs to the blob.
+     */
+    private final class BlobInputStream extends InputStream {
+
+        private final byte[] key;
+        private final long pos;
+        private final int len;
+        private int offset, mark;
+
+        private BlobInputStream(final byte[] key, final long pos, final int len) {
+            this.key = key;
+            this.pos = pos;
+            this.len = len;
+            this.offset = 0;
+            this.mark = 0;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int n) throws IOException {
+            if (n == 0) return 0;
+            if (this.offset >= this.len) return -1;
+            final int c = Math.min(Math.min(n, this.len - this.offset), STREAM_CHUNK);
+            synchronized (HeapReader.this) {
+                final HandleMap idx = HeapReader.this.index;
+                final Writer f = HeapReader.this.file;
+                if (idx == null || f == null) throw new IOException("heap " + HeapReader.this.heapFile.getName() + " closed while reading a blob");
+                synchronized (idx) {
+                    if (idx.get(this.key) != this.pos) throw new IOException("blob " + UTF8.String(this.key) + " in " + HeapReader.this.heapFile.getName() + " changed while reading");
+                    f.seek(this.pos + 4 + HeapReader.this.keylength + this.offset);
+                    f.readFully(b, off, c);
+                }
+            }
+            this.offset += c;
+            return c;
+        }
+
+        @Override
+        public long skip(final long n) {
+            final int s = (int) Math.max(0, Math.min(n, this.len - this.offset));
+            this.offset += s;
+            return s;
+        }
+
+        @Override
+        public int available() {
+            return Math.min(this.len - this.offset, STREAM_CHUNK);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(final int readlimit) {
+            this.mark = this.offset;
+        }
+
+        @Override
+        public synchronized void reset() {
+            this.offset = this.mark;
+        }
+    }
+
     protected boolean checkKey(byte[] key, final long pos) throws IOException {
         key = normalizeKey(key);
         this.file.seek(pos);
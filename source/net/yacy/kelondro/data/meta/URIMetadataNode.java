@@ -1019,6 +1019,12 @@ public class URIMetadataNode extends SolrDocument /* implements Comparable<URIMe
     public TextSnippet textSnippet() {
         return this.textSnippet;
     }
+    /**
+     * used for search result entry: replace the snippet of an entry made by {@link #makeResultEntry(Segment, SeedDB, TextSnippet)}
+     */
+    public void setTextSnippet(final TextSnippet textSnippet) {
+        this.textSnippet = textSnippet;
+    }
     /**
      * used for search result entry
      */
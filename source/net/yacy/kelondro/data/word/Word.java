@@ -31,8 +31,6 @@ import java.util.Locale;
 
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.order.Digest;
-import net.yacy.cora.storage.ARC;
-import net.yacy.cora.storage.ConcurrentARC;
 import net.yacy.cora.storage.HandleSet;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.SpaceExceededException;
@@ -53,15 +51,14 @@ public class Word {
     public static final Base64Order commonHashOrder  = Base64Order.enhancedCoder;
 
     private static final int hashCacheSize = Math.max(20000, Math.min(200000, (int) (MemoryControl.available() / 40000L)));
-    private static ARC<String, byte[]> hashCache = null;
+    private static WordHashCache hashCache = null;
     static {
         try {
-            hashCache = new ConcurrentARC<String, byte[]>(hashCacheSize, Math.min(32, 2 * Runtime.getRuntime().availableProcessors()));
-            ConcurrentLog.info("Word", "hashCache.size = " + hashCacheSize);
+            hashCache = new WordHashCache(hashCacheSize);
         } catch (final OutOfMemoryError e) {
-            hashCache = new ConcurrentARC<String, byte[]>(1000, Math.min(8, 1 + Runtime.getRuntime().availableProcessors()));
-            ConcurrentLog.info("Word", "hashCache.size = " + 1000);
+            hashCache = new WordHashCache(1000);
         }
+        ConcurrentLog.info("Word", "hashCache.size = " + hashCache.capacity());
     }
 
     // object carries statistics for words and sentences
@@ -99,7 +96,7 @@ public class Word {
 
     // static methods
     public static byte[] word2hash(final StringBuilder word) {
-        return word2hash(word.toString());
+        return word2hash(word, 0, word.length());
     }
 
     private final static byte lowByte = Base64Order.alpha_enhanced[0];
@@ -111,10 +108,31 @@ public class Word {
 
     // create a word hash
     public static final byte[] word2hash(final String word) {
-    	final String wordlc = word.toLowerCase(Locale.ENGLISH);
-    	byte[] h = hashCache.get(wordlc);
+        return word2hash(word, 0, word.length());
+    }
+
+    /**
+     * create a word hash of a part of a char sequence; the hash is the same as of the lower-case word.
+     * Hashes of cached words are found without creating any object.
+     * @param word the text containing the word
+     * @param start index of the first char of the word
+     * @param end index after the last char of the word
+     * @return the word hash; the returned array is shared and must not be modified
+     */
+    public static final byte[] word2hash(final CharSequence word, final int start, final int end) {
+        String wordlc = null;
+        final long key;
+        if (WordHashCache.needsStringLowerCase(word, start, end)) {
+            // the lower case of these words is not the lower case of each char
+            wordlc = word.subSequence(start, end).toString().toLowerCase(Locale.ENGLISH);
+            key = WordHashCache.fingerprint(wordlc, 0, wordlc.length());
+        } else {
+            key = WordHashCache.fingerprint(word, start, end);
+        }
+        byte[] h = hashCache.get(key);
         if (h != null) return h;
         // calculate the hash
+        if (wordlc == null) wordlc = word.subSequence(start, end).toString().toLowerCase(Locale.ENGLISH);
     	h = commonHashOrder.encodeSubstring(Digest.encodeMD5Raw(wordlc), commonHashLength);
     	while (h[0] == highByte && h[1] == highByte && h[2] == highByte && h[3] == highByte && h[4] == highByte) {
     	    // ensure that word hashes do not start with hash '_____' which is a key for an extra hash range for private usage on the local peer
@@ -123,12 +141,7 @@ public class Word {
     	    h[commonHashLength - 1] = lowByte;
     	}
         assert h[2] != '@';
-        if (MemoryControl.shortStatus()) {
-            hashCache.clear();
-        } else {
-            //hashCache.putIfAbsent(wordlc, h); // prevent expensive MD5 computation and encoding
-            hashCache.insertIfAbsent(wordlc, h); // prevent expensive MD5 computation and encoding
-        }
+        hashCache.put(key, h); // prevent expensive MD5 computation and encoding; the cache has a fixed size and evicts old entries
         return h;
     }
 
@@ -0,0 +1,153 @@
+// WordHashCache.java
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.data.word;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A cache of word hashes, keyed by a 64-bit fingerprint of the lower-case word.
+ * The fingerprint is computed on the characters of the word, so a lookup needs neither a lower-case copy
+ * of the word nor any other object. The table is set-associative with four entries per set; when a set
+ * is full, one entry is evicted with a clock (second chance) policy. The cache never needs to be cleared
+ * because its size is fixed.
+ * <p>
+ * Reading is lock-free; a reader checks the key again after reading the hash, so it never sees a hash of
+ * a slot that is rewritten at the same time. Writers lock a stripe of the sets.
+ */
+final class WordHashCache {
+
+    private static final int WAYS = 4;
+    private static final long EMPTY = 0L;
+
+    private final int setMask;
+    private final AtomicLongArray keys;
+    private final AtomicReferenceArray<byte[]> hashes;
+    private final byte[] referenced; // clock bits; races only affect the choice of an eviction victim
+    private final byte[] hand;       // clock hand for each set
+    private final Object[] locks;
+
+    /**
+     * @param capacity the minimum number of cached hashes; the table is rounded up to a power of two
+     */
+    WordHashCache(final int capacity) {
+        int sets = 1;
+        while (sets * WAYS < capacity) sets <<= 1;
+        this.setMask = sets - 1;
+        this.keys = new AtomicLongArray(sets * WAYS);
+        this.hashes = new AtomicReferenceArray<byte[]>(sets * WAYS);
+        this.referenced = new byte[sets * WAYS];
+        this.hand = new byte[sets];
+        this.locks = new Object[Math.min(64, sets)];
+        for (int i = 0; i < this.locks.length; i++) this.locks[i] = new Object();
+    }
+
+    /**
+     * @return the number of entries that the cache can hold
+     */
+    int capacity() {
+        return this.keys.length();
+    }
+
+    /**
+     * Compute the fingerprint of the lower-case form of a char sequence. This is FNV-1a over the
+     * lower-case chars, finished with the mixing step of MurmurHash3.
+     * @return the fingerprint, never 0
+     */
+    static long fingerprint(final CharSequence s, final int start, final int end) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            h ^= Character.toLowerCase(s.charAt(i));
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == EMPTY ? 1L : h;
+    }
+
+    /**
+     * @return true if the lower-case form of the char sequence is not the lower-case form of each char,
+     * as computed by String.toLowerCase(Locale.ENGLISH): for surrogates, the capital I with dot and the capital sigma
+     */
+    static boolean needsStringLowerCase(final CharSequence s, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) continue;
+            if (c == '\u0130' || c == '\u03a3' || Character.isSurrogate(c)) return true;
+        }
+        return false;
+    }
+
+    byte[] get(final long key) {
+        final int base = (((int) (key ^ (key >>> 32))) & this.setMask) * WAYS;
+        for (int i = base; i < base + WAYS; i++) {
+            if (this.keys.get(i) != key) continue;
+            final byte[] h = this.hashes.get(i);
+            if (this.keys.get(i) != key) return null; // rewritten while reading
+            if (this.referenced[i] == 0) this.referenced[i] = 1;
+            return h;
+        }
+        return null;
+    }
+
+    void put(final long key, final byte[] hash) {
+        final int set = ((int) (key ^ (key >>> 32))) & this.setMask;
+        final int base = set * WAYS;
+        synchronized (this.locks[set % this.locks.length]) {
+            int slot = -1;
+            for (int i = base; i < base + WAYS; i++) {
+                final long k = this.keys.get(i);
+                if (k == key) return;
+                if (k == EMPTY && slot < 0) slot = i;
+            }
+            if (slot < 0) {
+                // clock: evict the first entry which was not used since the hand passed it
+                int h = this.hand[set];
+                for (int n = 0; n < WAYS && this.referenced[base + h] != 0; n++) {
+                    this.referenced[base + h] = 0;
+                    h = (h + 1) % WAYS;
+                }
+                slot = base + h;
+                this.hand[set] = (byte) ((h + 1) % WAYS);
+            }
+            this.keys.set(slot, EMPTY);
+            this.hashes.set(slot, hash);
+            this.referenced[slot] = 0;
+            this.keys.set(slot, key);
+        }
+    }
+
+    void clear() {
+        for (int set = 0; set <= this.setMask; set++) {
+            synchronized (this.locks[set % this.locks.length]) {
+                for (int i = set * WAYS; i < (set + 1) * WAYS; i++) {
+                    this.keys.set(i, EMPTY);
+                    this.hashes.set(i, null);
+                    this.referenced[i] = 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,609 @@
+/**
+ *  DiskHandleMap
+ *  Copyright 2026 by the YaCy contributors; https://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.kelondro.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import net.yacy.cora.order.ByteOrder;
+import net.yacy.cora.order.CloneableIterator;
+import net.yacy.cora.order.NaturalOrder;
+import net.yacy.cora.storage.ARC;
+import net.yacy.cora.storage.ConcurrentARC;
+import net.yacy.cora.storage.HandleMap;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.kelondro.util.FileUtils;
+import net.yacy.kelondro.util.kelondroException;
+
+/**
+ * A HandleMap which keeps its entries in a file, sorted by key, instead of the RAM.
+ * Opening the map costs constant time: pages of the sorted file are read on demand
+ * and kept in a small cache. Changes are collected in a sorted delta map in RAM,
+ * which is merged into the file when it becomes too large and when the map is committed.
+ * The file header records whether the file was committed cleanly, and the size and the
+ * modification time of the table file the map is an index of; a map which does not match
+ * its table anymore is not opened and must be built again.
+ */
+public final class DiskHandleMap implements HandleMap, Iterable<Map.Entry<byte[], Long>> {
+
+    private static final ConcurrentLog log = new ConcurrentLog("DiskHandleMap");
+
+    private static final int MAGIC = 0x59444831; // "YDH1"
+    private static final int HEADER_SIZE = 64;
+    private static final int CLEAN_OFFSET = 12;
+    private static final int PAGE_SIZE = 4096; // approximated size of the pages read from the file
+    private static final int PAGE_CACHE_SIZE = 1024; // maximum number of cached pages
+    private static final int MIN_DELTA = 64 * 1024; // the delta is always allowed to grow to this number of entries
+    private static final int MAX_DELTA = 1024 * 1024; // the delta is merged into the file at the latest at this number of entries
+    private static final long REMOVED = Long.MIN_VALUE; // delta value of keys which are removed from the file
+
+    private final File file;
+    private final int keylength, idxbytes, entrySize, pageEntries;
+    private final ByteOrder order;
+    private final ConcurrentSkipListMap<byte[], Long> delta;
+    private volatile Base base;
+    private volatile int size;
+    private boolean dirty;
+
+    /**
+     * The sorted file, read page by page
+     */
+    private final class Base {
+        private final RandomAccessFile raf;
+        private final long count;
+        private final ARC<Long, byte[]> pages;
+
+        private Base(final long count) throws IOException {
+            this.raf = new RandomAccessFile(DiskHandleMap.this.file, "r");
+            this.count = count;
+            this.pages = new ConcurrentARC<Long, byte[]>(PAGE_CACHE_SIZE, Math.max(1, Math.min(16, Runtime.getRuntime().availableProcessors())));
+        }
+
+        private byte[] page(final long p) throws IOException {
+            byte[] page = this.pages.get(p);
+            if (page != null) return page;
+            final long first = p * DiskHandleMap.this.pageEntries;
+            final int entries = (int) Math.min(DiskHandleMap.this.pageEntries, this.count - first);
+            page = new byte[entries * DiskHandleMap.this.entrySize];
+            synchronized (this.raf) {
+                this.raf.seek(HEADER_SIZE + first * DiskHandleMap.this.entrySize);
+                this.raf.readFully(page);
+            }
+            this.pages.put(p, page);
+            return page;
+        }
+
+        /**
+         * @return the page containing the entry n, the entry is at offset (n % pageEntries) * entrySize
+         */
+        private byte[] pageOf(final long n) throws IOException {
+            return page(n / DiskHandleMap.this.pageEntries);
+        }
+
+        private byte[] key(final long n) throws IOException {
+            final byte[] key = new byte[DiskHandleMap.this.keylength];
+            System.arraycopy(pageOf(n), (int) (n % DiskHandleMap.this.pageEntries) * DiskHandleMap.this.entrySize, key, 0, DiskHandleMap.this.keylength);
+            return key;
+        }
+
+        private long value(final long n) throws IOException {
+            return NaturalOrder.decodeLong(pageOf(n), (int) (n % DiskHandleMap.this.pageEntries) * DiskHandleMap.this.entrySize + DiskHandleMap.this.keylength, DiskHandleMap.this.idxbytes);
+        }
+
+        /**
+         * binary search of a key
+         * @return the position of the key or (-(insertion point) - 1) if the key is not in the file
+         */
+        private long find(final byte[] key) throws IOException {
+            long low = 0, high = this.count - 1;
+            while (low <= high) {
+                final long mid = (low + high) >>> 1;
+                final int c = DiskHandleMap.this.order.compare(pageOf(mid), (int) (mid % DiskHandleMap.this.pageEntries) * DiskHandleMap.this.entrySize, key, 0, DiskHandleMap.this.keylength);
+                if (c < 0) low = mid + 1; else if (c > 0) high = mid - 1; else return mid;
+            }
+            return -(low + 1);
+        }
+
+        private void close() {
+            this.pages.clear();
+            try {
+                this.raf.close();
+            } catch (final IOException e) {
+                log.warn("could not close " + DiskHandleMap.this.file, e);
+            }
+        }
+    }
+
+    private DiskHandleMap(final File file, final int keylength, final ByteOrder objectOrder, final int idxbytes, final long count) throws IOException {
+        this.file = file;
+        this.keylength = keylength;
+        this.idxbytes = idxbytes;
+        this.entrySize = keylength + idxbytes;
+        this.pageEntries = Math.max(1, PAGE_SIZE / this.entrySize);
+        this.order = objectOrder;
+        this.delta = new ConcurrentSkipListMap<byte[], Long>(objectOrder);
+        this.base = new Base(count);
+        this.size = (int) count;
+        this.dirty = false;
+    }
+
+    /**
+     * Open an existing map file
+     * @param file the map file
+     * @param keylength the length of the keys
+     * @param objectOrder the order of the keys
+     * @param idxbytes the number of bytes of the values
+     * @param tableRecords the number of records of the table file the map is an index of
+     * @param tableLastModified the modification time of the table file the map is an index of
+     * @return the map or null when the file does not exist, was not committed cleanly or does not match the table file
+     */
+    public static DiskHandleMap open(final File file, final int keylength, final ByteOrder objectOrder, final int idxbytes, final long tableRecords, final long tableLastModified) {
+        if (!file.exists()) return null;
+        long count;
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() < HEADER_SIZE) return null;
+            if (raf.readInt() != MAGIC || raf.readInt() != keylength || raf.readInt() != idxbytes || raf.readByte() != 1) return null;
+            raf.seek(16);
+            count = raf.readLong();
+            if (raf.readLong() != tableRecords || raf.readLong() != tableLastModified) return null;
+            if (raf.length() != HEADER_SIZE + count * (keylength + idxbytes)) return null;
+        } catch (final IOException e) {
+            log.warn("cannot read " + file + ": " + e.getMessage());
+            return null;
+        }
+        try {
+            return new DiskHandleMap(file, keylength, objectOrder, idxbytes, count);
+        } catch (final IOException e) {
+            log.warn("cannot open " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Create a map file with the content of another map
+     * @param file the map file, an existing file is overwritten
+     * @param keylength the length of the keys
+     * @param objectOrder the order of the keys
+     * @param idxbytes the number of bytes of the values
+     * @param source the map to copy; it must not contain double keys
+     * @return the new map
+     * @throws IOException when the file could not be written
+     */
+    public static DiskHandleMap create(final File file, final int keylength, final ByteOrder objectOrder, final int idxbytes, final HandleMap source) throws IOException {
+        final Iterator<byte[]> keys = source == null ? null : source.keys(true, null);
+        final long count = write(file, keylength, idxbytes, new Iterator<Map.Entry<byte[], Long>>() {
+            @Override
+            public boolean hasNext() {
+                return keys != null && keys.hasNext();
+            }
+            @Override
+            public Map.Entry<byte[], Long> next() {
+                final byte[] key = keys.next();
+                return new AbstractMap.SimpleImmutableEntry<byte[], Long>(key, source.get(key));
+            }
+        });
+        return new DiskHandleMap(file, keylength, objectOrder, idxbytes, count);
+    }
+
+    /**
+     * write sorted entries to a new map file, marked as not committed
+     * @return the number of written entries
+     */
+    private static long write(final File file, final int keylength, final int idxbytes, final Iterator<Map.Entry<byte[], Long>> entries) throws IOException {
+        final File tmp = new File(file.getParentFile(), file.getName() + ".prt");
+        long count = 0;
+        try (final DataOutputStream os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1024 * 1024))) {
+            os.writeInt(MAGIC);
+            os.writeInt(keylength);
+            os.writeInt(idxbytes);
+            os.writeByte(0);
+            os.write(new byte[3]);
+            os.writeLong(0); // count, written at the end
+            os.write(new byte[HEADER_SIZE - 24]);
+            final byte[] value = new byte[idxbytes];
+            while (entries.hasNext()) {
+                final Map.Entry<byte[], Long> entry = entries.next();
+                os.write(entry.getKey(), 0, keylength);
+                NaturalOrder.encodeLong(entry.getValue(), value, 0, idxbytes);
+                os.write(value);
+                count++;
+            }
+        }
+        try (final RandomAccessFile raf = new RandomAccessFile(tmp, "rw")) {
+            raf.seek(16);
+            raf.writeLong(count);
+        }
+        if (file.exists()) FileUtils.deletedelete(file);
+        if (!tmp.renameTo(file)) throw new IOException("could not rename " + tmp + " to " + file);
+        return count;
+    }
+
+    /**
+     * merge the delta into the file
+     */
+    private synchronized void compact() {
+        final Base old = this.base;
+        try {
+            final File tmp = new File(this.file.getParentFile(), this.file.getName() + ".merge");
+            final long count = write(tmp, this.keylength, this.idxbytes, new EntryIterator(true, null));
+            old.close(); // the file must be closed before it can be replaced (on some operating systems)
+            if (this.file.exists()) FileUtils.deletedelete(this.file);
+            if (!tmp.renameTo(this.file)) throw new IOException("could not rename " + tmp + " to " + this.file);
+            this.base = new Base(count);
+            this.delta.clear();
+            this.dirty = true;
+            assert this.size == count : "size = " + this.size + ", count = " + count;
+        } catch (final IOException e) {
+            log.severe("cannot merge the changes into " + this.file, e);
+            throw new kelondroException(e.getMessage());
+        }
+    }
+
+    private int deltaLimit() {
+        return (int) Math.min(MAX_DELTA, Math.max(MIN_DELTA, this.base.count / 16));
+    }
+
+    private void markDirty() {
+        if (this.dirty) return;
+        try (final RandomAccessFile raf = new RandomAccessFile(this.file, "rw")) {
+            raf.seek(CLEAN_OFFSET);
+            raf.writeByte(0);
+        } catch (final IOException e) {
+            throw new kelondroException(e.getMessage());
+        }
+        this.dirty = true;
+    }
+
+    /**
+     * Merge all changes into the file and mark the file as cleanly committed
+     * @param tableRecords the number of records of the table file the map is an index of
+     * @param tableLastModified the modification time of the table file the map is an index of
+     */
+    public synchronized void commit(final long tableRecords, final long tableLastModified) {
+        if (!this.delta.isEmpty()) compact();
+        try (final RandomAccessFile raf = new RandomAccessFile(this.file, "rw")) {
+            raf.seek(24);
+            raf.writeLong(tableRecords);
+            raf.writeLong(tableLastModified);
+            raf.seek(CLEAN_OFFSET);
+            raf.writeByte(1);
+        } catch (final IOException e) {
+            log.warn("cannot commit " + this.file, e);
+            return;
+        }
+        this.dirty = false;
+    }
+
+    private long lookup(final Base b, final byte[] key) throws IOException {
+        final Long d = this.delta.get(key);
+        if (d != null) return d.longValue() == REMOVED ? -1 : d.longValue();
+        final long n = b.find(key);
+        return n < 0 ? -1 : b.value(n);
+    }
+
+    @Override
+    public long get(final byte[] key) {
+        assert key != null;
+        final Base b = this.base;
+        try {
+            final long v = lookup(b, key);
+            if (this.base == b) return v;
+        } catch (final IOException e) {
+            // the file was replaced concurrently, try again
+        }
+        synchronized (this) {
+            try {
+                return lookup(this.base, key);
+            } catch (final IOException e) {
+                throw new kelondroException(e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean has(final byte[] key) {
+        return get(key) >= 0;
+    }
+
+    @Override
+    public synchronized long put(final byte[] key, final long l) {
+        assert l >= 0 : "l = " + l;
+        assert key != null;
+        final long old = get(key);
+        markDirty();
+        this.delta.put(key.clone(), l);
+        if (old < 0) this.size++;
+        if (this.delta.size() > deltaLimit()) compact();
+        return old;
+    }
+
+    @Override
+    public void putUnique(final byte[] key, final long l) {
+        put(key, l);
+    }
+
+    @Override
+    public synchronized long add(final byte[] key, final long a) {
+        final long old = get(key);
+        if (old < 0) {
+            put(key, a);
+            return 1;
+        }
+        put(key, old + a);
+        return old + a;
+    }
+
+    @Override
+    public long inc(final byte[] key) {
+        return add(key, 1);
+    }
+
+    @Override
+    public long dec(final byte[] key) {
+        return add(key, -1);
+    }
+
+    @Override
+    public synchronized long remove(final byte[] key) {
+        assert key != null;
+        final long old = get(key);
+        if (old < 0) return -1;
+        markDirty();
+        final long n;
+        try {
+            n = this.base.find(key);
+        } catch (final IOException e) {
+            throw new kelondroException(e.getMessage());
+        }
+        if (n >= 0) this.delta.put(key.clone(), REMOVED); else this.delta.remove(key);
+        this.size--;
+        if (this.delta.size() > deltaLimit()) compact();
+        return old;
+    }
+
+    @Override
+    public synchronized long removeone() {
+        final Iterator<byte[]> i = keys(false, null);
+        if (!i.hasNext()) return -1;
+        return remove(i.next());
+    }
+
+    /**
+     * the keys are unique in this map, so there are never doubles
+     */
+    @Override
+    public ArrayList<long[]> removeDoubles() {
+        return new ArrayList<long[]>(0);
+    }
+
+    @Override
+    public ArrayList<byte[]> top(final int count) {
+        final ArrayList<byte[]> list = new ArrayList<byte[]>();
+        final Iterator<byte[]> i = keys(false, null);
+        while (list.size() < count && i.hasNext()) list.add(i.next());
+        return list;
+    }
+
+    @Override
+    public byte[] smallestKey() {
+        final Iterator<byte[]> i = keys(true, null);
+        return i.hasNext() ? i.next() : null;
+    }
+
+    @Override
+    public byte[] largestKey() {
+        final Iterator<byte[]> i = keys(false, null);
+        return i.hasNext() ? i.next() : null;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public long mem() {
+        return (long) this.delta.size() * (this.keylength + 96) + (long) this.base.pages.size() * PAGE_SIZE;
+    }
+
+    @Override
+    public void optimize() {
+        // the file is always sorted
+    }
+
+    @Override
+    public synchronized void clear() {
+        final Base old = this.base;
+        old.close();
+        try {
+            write(this.file, this.keylength, this.idxbytes, new ArrayList<Map.Entry<byte[], Long>>(0).iterator());
+            this.base = new Base(0);
+        } catch (final IOException e) {
+            throw new kelondroException(e.getMessage());
+        }
+        this.delta.clear();
+        this.size = 0;
+        this.dirty = true;
+    }
+
+    @Override
+    public synchronized int dump(final File dumpFile) throws IOException {
+        int c = 0;
+        try (final BufferedOutputStream os = new BufferedOutputStream(new FileOutputStream(dumpFile), 1024 * 1024)) {
+            final byte[] value = new byte[this.idxbytes];
+            final EntryIterator i = new EntryIterator(true, null);
+            while (i.hasNext()) {
+                final Map.Entry<byte[], Long> entry = i.next();
+                os.write(entry.getKey());
+                NaturalOrder.encodeLong(entry.getValue(), value, 0, this.idxbytes);
+                os.write(value);
+                c++;
+            }
+        }
+        return c;
+    }
+
+    @Override
+    public synchronized void close() {
+        this.base.close();
+        this.delta.clear();
+    }
+
+    /**
+     * remove the map file
+     */
+    public synchronized void delete() {
+        this.base.close();
+        this.delta.clear();
+        if (this.file.exists()) FileUtils.deletedelete(this.file);
+    }
+
+    @Override
+    public CloneableIterator<byte[]> keys(final boolean up, final byte[] firstKey) {
+        final EntryIterator i = new EntryIterator(up, firstKey);
+        return new CloneableIterator<byte[]>() {
+            @Override
+            public boolean hasNext() {
+                return i.hasNext();
+            }
+            @Override
+            public byte[] next() {
+                return i.next().getKey();
+            }
+            @Override
+            public CloneableIterator<byte[]> clone(final Object modifier) {
+                return keys(up, (byte[]) modifier);
+            }
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Map.Entry<byte[], Long>> iterator() {
+        return new EntryIterator(true, null);
+    }
+
+    /**
+     * Iterates the entries of the file and of the delta in the order of the keys,
+     * starting with the given key (inclusive). When the delta is merged into
+     * the file during the iteration, the iteration continues after the last key.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<byte[], Long>> {
+        private final boolean up;
+        private Base b;
+        private long pos;
+        private Iterator<Map.Entry<byte[], Long>> deltaIterator;
+        private Map.Entry<byte[], Long> deltaNext;
+        private byte[] last; // the last returned key, or the first key before the iteration is started
+        private boolean started = false;
+        private Map.Entry<byte[], Long> next;
+
+        private EntryIterator(final boolean up, final byte[] firstKey) {
+            this.up = up;
+            this.last = firstKey == null || firstKey.length == 0 ? null : firstKey;
+            this.b = null; // the iterator is positioned with the first call of hasNext()
+        }
+
+        private void seek(final byte[] from, final boolean inclusive) throws IOException {
+            this.b = DiskHandleMap.this.base;
+            if (from == null) {
+                this.pos = this.up ? 0 : this.b.count - 1;
+            } else {
+                final long n = this.b.find(from);
+                if (n >= 0) {
+                    this.pos = inclusive ? n : (this.up ? n + 1 : n - 1);
+                } else {
+                    final long insertion = -n - 1;
+                    this.pos = this.up ? insertion : insertion - 1;
+                }
+            }
+            final NavigableMap<byte[], Long> d = from == null ? DiskHandleMap.this.delta :
+                (this.up ? DiskHandleMap.this.delta.tailMap(from, inclusive) : DiskHandleMap.this.delta.headMap(from, inclusive));
+            this.deltaIterator = (this.up ? d : d.descendingMap()).entrySet().iterator();
+            this.deltaNext = this.deltaIterator.hasNext() ? this.deltaIterator.next() : null;
+            this.next = null;
+        }
+
+        private Map.Entry<byte[], Long> advance() throws IOException {
+            while (true) {
+                final byte[] baseKey = (this.pos >= 0 && this.pos < this.b.count) ? this.b.key(this.pos) : null;
+                if (baseKey == null && this.deltaNext == null) return null;
+                final int c = baseKey == null ? 1 : this.deltaNext == null ? -1 : DiskHandleMap.this.order.compare(baseKey, this.deltaNext.getKey()) * (this.up ? 1 : -1);
+                if (c < 0) {
+                    final long value = this.b.value(this.pos);
+                    this.pos += this.up ? 1 : -1;
+                    return new AbstractMap.SimpleImmutableEntry<byte[], Long>(baseKey, value);
+                }
+                if (c == 0) this.pos += this.up ? 1 : -1; // the delta entry replaces the file entry
+                final Map.Entry<byte[], Long> d = this.deltaNext;
+                this.deltaNext = this.deltaIterator.hasNext() ? this.deltaIterator.next() : null;
+                if (d.getValue().longValue() != REMOVED) return d;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.next != null) return true;
+            try {
+                if (this.b != DiskHandleMap.this.base) seek(this.last, !this.started);
+                this.next = advance();
+            } catch (final IOException e) {
+                // the file was replaced concurrently, continue after the last key when the replacement is finished
+                synchronized (DiskHandleMap.this) {
+                    try {
+                        seek(this.last, !this.started);
+                        this.next = advance();
+                    } catch (final IOException ee) {
+                        throw new kelondroException(ee.getMessage());
+                    }
+                }
+            }
+            this.started = true;
+            return this.next != null;
+        }
+
+        @Override
+        public Map.Entry<byte[], Long> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            final Map.Entry<byte[], Long> n = this.next;
+            this.next = null;
+            this.last = n.getKey();
+            return n;
+        }
+    }
+}
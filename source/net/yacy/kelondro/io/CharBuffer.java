@@ -324,6 +324,18 @@ public final class CharBuffer extends Writer {
         return getChars(start, this.length);
     }
 
+    /**
+     * copy chars of the buffer into an array, without creating a new array
+     * @param start the index of the first char to copy
+     * @param end the index after the last char to copy
+     * @param dst the destination array
+     * @param dstStart the position in the destination array
+     */
+    public void getChars(final int start, final int end, final char[] dst, final int dstStart) {
+        if (start < 0 || end > this.length || start > end) throw new IndexOutOfBoundsException();
+        System.arraycopy(this.buffer, this.offset + start, dst, dstStart, end - start);
+    }
+
     public char[] getChars(final int start, final int end) {
         // start is inclusive, end is exclusive
         if (end > this.length) throw new IndexOutOfBoundsException("getBytes: end > length");
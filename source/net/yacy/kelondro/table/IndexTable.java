@@ -48,16 +48,34 @@ public class IndexTable {
             final File location, int keysize, int payloadsize,
             final boolean useTailCache,
             final boolean exceed134217727) throws IOException {
+        this(location, keysize, payloadsize, useTailCache, exceed134217727, false);
+    }
+
+    /**
+     * create an index with given (fixed) key and value length
+     * @param location
+     * @param keysize
+     * @param payloadsize
+     * @param useTailCache
+     * @param exceed134217727
+     * @param diskIndex when true, the keys are indexed in a sorted file instead of the RAM
+     * @throws IOException
+     */
+    public IndexTable(
+            final File location, int keysize, int payloadsize,
+            final boolean useTailCache,
+            final boolean exceed134217727,
+            final boolean diskIndex) throws IOException {
         final Row row = new Row(
                 "byte[] key-" + keysize + ", " +
                 "long num-" + payloadsize + " {b256}",
                 NaturalOrder.naturalOrder);
         Table t;
         try {
-            t = new Table(location, row, 1024*1024, 0, useTailCache, exceed134217727, true);
+            t = new Table(location, row, 1024*1024, 0, useTailCache, exceed134217727, true, diskIndex);
         } catch (final SpaceExceededException e) {
             try {
-                t = new Table(location, row, 0, 0, false, exceed134217727, true);
+                t = new Table(location, row, 0, 0, false, exceed134217727, true, diskIndex);
             } catch (kelondroException | SpaceExceededException e1) {
                 throw new IOException(e);
             }
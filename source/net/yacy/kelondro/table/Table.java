@@ -34,6 +34,7 @@ import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
@@ -44,6 +45,7 @@ import net.yacy.cora.storage.HandleMap;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.kelondro.index.Column;
+import net.yacy.kelondro.index.DiskHandleMap;
 import net.yacy.kelondro.index.Index;
 import net.yacy.kelondro.index.Row;
 import net.yacy.kelondro.index.Row.Entry;
@@ -65,6 +67,9 @@ import net.yacy.kelondro.util.kelondroException;
  * - the access index can be either completely in RAM (kelondroRAMIndex) or it is file-based (kelondroTree)
  * - the content cache can be either a complete RAM-based shadow of the File, or empty.
  * The content cache can also be deleted during run-time, if the available RAM gets too low.
+ * With the disk index option, the access index is a sorted file (DiskHandleMap) next to the table file,
+ * which is opened in constant time and needs only little RAM; it is built once from the table file
+ * when it does not exist or does not match the table file.
  */
 
 public class Table implements Index, Iterable<Row.Entry> {
@@ -83,7 +88,29 @@ public class Table implements Index, Iterable<Row.Entry> {
     private       HandleMap index;
     private       BufferedRecords file;
     private       RowSet table;
+    private final File indexfile; // the file of the disk index, null if the index is in RAM
 
+    public Table(
+            final File tablefile,
+            final Row rowdef,
+            final int buffersize,
+            final int initialSpace,
+            final boolean useTailCache,
+            final boolean exceed134217727,
+            final boolean warmUp) throws SpaceExceededException, kelondroException {
+        this(tablefile, rowdef, buffersize, initialSpace, useTailCache, exceed134217727, warmUp, false);
+    }
+
+    /**
+     * @param tablefile the table file
+     * @param rowdef the row definition of the table entries
+     * @param buffersize the size of the write buffer
+     * @param initialSpace the number of entries space is allocated for in the RAM index
+     * @param useTailCache when true, a copy of the table is held in RAM (ignored for a disk index)
+     * @param exceed134217727 when true, the RAM copy of the table may exceed the maximum array length of some JVMs
+     * @param warmUp when true, double entries are removed at start-up
+     * @param diskIndex when true, the index of the keys is kept in a sorted file instead of the RAM
+     */
     public Table(
     		final File tablefile,
     		final Row rowdef,
@@ -91,7 +118,8 @@ public class Table implements Index, Iterable<Row.Entry> {
     		final int initialSpace,
     		boolean useTailCache,
     		final boolean exceed134217727,
-    		final boolean warmUp) throws SpaceExceededException, kelondroException {
+    		final boolean warmUp,
+    		final boolean diskIndex) throws SpaceExceededException, kelondroException {
 
         this.rowdef = rowdef;
         this.buffersize = buffersize;
@@ -103,6 +131,8 @@ public class Table implements Index, Iterable<Row.Entry> {
             cols[i] = rowdef.column(i + 1);
         }
         this.taildef = new Row(cols, NaturalOrder.naturalOrder);
+        this.indexfile = diskIndex ? new File(tablefile.getParentFile(), tablefile.getName() + ".idx") : null;
+        if (diskIndex) useTailCache = false;
 
         // initialize table file
         boolean freshFile = false;
@@ -127,6 +157,24 @@ public class Table implements Index, Iterable<Row.Entry> {
             // open an existing table file
             final int fileSize = (int) tableSize(tablefile, rowdef.objectsize, true);
 
+            // open an existing disk index, this needs no scan of the table file
+            if (diskIndex && !freshFile) {
+                final DiskHandleMap diskmap = DiskHandleMap.open(this.indexfile, rowdef.primaryKeyLength, rowdef.objectOrder, 4, fileSize, tablefile.lastModified());
+                if (diskmap != null) {
+                    this.table = null;
+                    this.index = diskmap;
+                    this.file = new BufferedRecords(new Records(tablefile, rowdef.objectsize), this.buffersize);
+                    if (this.file.size() == this.index.size()) {
+                        synchronized (tableTracker) {tableTracker.put(tablefile.toString(), this);}
+                        return;
+                    }
+                    log.warn(tablefile.getName() + ": disk index does not match the table, rebuilding the index");
+                    this.file.close();
+                    diskmap.close();
+                }
+                log.info(tablefile.getName() + ": building the disk index " + this.indexfile.getName());
+            }
+
             // initialize index and copy table
             final int  records = Math.max(fileSize, initialSpace);
             final long neededRAM4table = 200L * 1024L * 1024L + records * (this.taildef.objectsize + rowdef.primaryKeyLength + 4L) * 3L / 2L;
@@ -258,8 +306,15 @@ public class Table implements Index, Iterable<Row.Entry> {
             errors.close();
             assert this.file.size() == this.index.size() : "file.size() = " + this.file.size() + ", index.size() = " + this.index.size() + ", file = " + filename();
 
-            // warm up
-            if (!freshFile && warmUp) {warmUp0();}
+            // warm up; the disk index cannot hold double entries, they are always removed before
+            if (!freshFile && (warmUp || diskIndex)) {warmUp0();}
+
+            // move the index to disk
+            if (diskIndex) {
+                final HandleMap ramIndex = this.index;
+                this.index = DiskHandleMap.create(this.indexfile, rowdef.primaryKeyLength, rowdef.objectOrder, 4, ramIndex);
+                ramIndex.close();
+            }
         } catch (final FileNotFoundException e) {
             // should never happen
             log.severe("", e);
@@ -587,6 +642,16 @@ public class Table implements Index, Iterable<Row.Entry> {
         this.file = null;
         if (this.table != null) this.table.close();
         this.table = null;
+        if (this.index instanceof DiskHandleMap && tablefile != null) {
+            // mark the disk index as consistent with the closed table file
+            final File f = new File(tablefile);
+            try {
+                ((DiskHandleMap) this.index).commit(tableSize(f, this.rowdef.objectsize, false), f.lastModified());
+            } catch (final kelondroException e) {
+                // the index stays marked as dirty and is rebuilt at the next start
+                log.warn(f.getName() + ": " + e.getMessage());
+            }
+        }
         if (this.index != null) this.index.close();
         this.index = null;
 		if (tablefile != null) tableTracker.remove(tablefile);
@@ -1248,7 +1313,54 @@ public class Table implements Index, Iterable<Row.Entry> {
         System.out.println("EndOfTable");
     }
 
+    /**
+     * measure the start-up time and the RAM usage of a table with a RAM index and with a disk index
+     * @param f the table file, created with the given number of entries if it does not exist
+     * @param elements the number of entries of the table
+     */
+    public static void startupBenchmark(final File f, final int elements) {
+        final Row rowdef = new Row("byte[] key-12, long num-8 {b256}", NaturalOrder.naturalOrder);
+        try {
+            if (!f.exists()) {
+                final Table t = new Table(f, rowdef, 1024 * 1024, 0, false, false, false);
+                final Random random = new Random(0);
+                for (int i = 0; i < elements; i++) {
+                    final byte[] key = ASCII.getBytes(Long.toString(random.nextLong() >>> 8, 36));
+                    final Row.Entry entry = rowdef.newEntry();
+                    entry.setCol(0, key);
+                    entry.setCol(1, i);
+                    t.put(entry);
+                }
+                t.close();
+            }
+            for (final boolean diskIndex: new boolean[]{false, true, true}) {
+                System.gc();
+                final long mem0 = MemoryControl.used();
+                final long t0 = System.currentTimeMillis();
+                final Table t = new Table(f, rowdef, 1024 * 1024, 0, false, false, true, diskIndex);
+                final long t1 = System.currentTimeMillis();
+                System.gc();
+                final long mem1 = MemoryControl.used();
+                final Random random = new Random(1);
+                for (int i = 0; i < 100000; i++) {
+                    t.has(ASCII.getBytes(Long.toString(random.nextLong() >>> 8, 36)));
+                }
+                final long t2 = System.currentTimeMillis();
+                System.out.println((diskIndex ? "disk" : "RAM ") + " index: " + t.size() + " entries, open " + (t1 - t0) + " ms, index RAM " + ((mem1 - mem0) / 1024L / 1024L) + " MB, 100000 lookups " + (t2 - t1) + " ms");
+                t.close();
+            }
+        } catch (final IOException | SpaceExceededException e) {
+            ConcurrentLog.logException(e);
+        }
+    }
+
     public static void main(final String[] args) {
+        if (args.length == 2) {
+            // measure start-up time and RAM of a table with the given number of entries
+            startupBenchmark(new File(args[0]), Integer.parseInt(args[1]));
+            ConcurrentLog.shutdown();
+            return;
+        }
         // open a file, add one entry and exit
         final File f = new File(args[0]);
         System.out.println("========= Testcase: no tail cache:");
@@ -1273,6 +1385,7 @@ public class Table implements Index, Iterable<Row.Entry> {
     @Override
     public void deleteOnExit() {
         this.file.deleteOnExit();
+        if (this.indexfile != null) this.indexfile.deleteOnExit();
     }
 
 }
@@ -0,0 +1,345 @@
+// StartupLoader.java
+// -------------------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.yacy.cora.util.ConcurrentLog;
+
+/**
+ * Opens independent stores (tables, heaps, index cells) in parallel on a bounded
+ * thread pool during the start-up. The stores with the largest files are opened
+ * first, so that the long sequential reads overlap with the small ones instead of
+ * being queued behind them. The start, end and duration of each store load is
+ * recorded and logged as a start-up timeline when all loads are finished.
+ * A caller which needs a store waits for it with {@link #await(String)}; everything
+ * else can go on while the store is loading.
+ */
+public class StartupLoader {
+
+    private final static ConcurrentLog log = new ConcurrentLog("STARTUP");
+
+    /** default number of stores loaded concurrently */
+    public static final int DEFAULT_THREADS = 4;
+
+    /**
+     * A store load task
+     */
+    public interface Loader {
+        /**
+         * open the store
+         * @throws IOException when the store could not be opened
+         */
+        public void load() throws IOException;
+    }
+
+    /**
+     * The timeline entry of one store
+     */
+    public final class Store implements Runnable, Comparable<Store> {
+        private final String name;
+        private final long bytes;
+        private final long sequence;
+        private final Loader loader;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile long start = -1, end = -1;
+        private volatile String thread = null;
+        private volatile Throwable error = null;
+
+        private Store(final String name, final long bytes, final long sequence, final Loader loader) {
+            this.name = name;
+            this.bytes = bytes;
+            this.sequence = sequence;
+            this.loader = loader;
+        }
+
+        @Override
+        public void run() {
+            this.thread = Thread.currentThread().getName();
+            this.start = System.currentTimeMillis();
+            try {
+                this.loader.load();
+            } catch (final Throwable e) {
+                this.error = e;
+                log.warn("loading of " + this.name + " failed: " + e.getMessage(), e);
+            } finally {
+                this.end = System.currentTimeMillis();
+                final int left = StartupLoader.this.pending.decrementAndGet();
+                this.done.countDown();
+                if (left == 0) logTimeline();
+            }
+        }
+
+        /**
+         * larger stores first, then in the order of their submission
+         */
+        @Override
+        public int compareTo(final Store o) {
+            if (this.bytes != o.bytes) return this.bytes > o.bytes ? -1 : 1;
+            return Long.compare(this.sequence, o.sequence);
+        }
+
+        /**
+         * @return the name of the store
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return the estimated number of bytes read when the store is opened
+         */
+        public long getBytes() {
+            return this.bytes;
+        }
+
+        /**
+         * @return the time in milliseconds after the start of the loader when the store load started, -1 if not started
+         */
+        public long getStartOffset() {
+            return this.start < 0 ? -1 : this.start - StartupLoader.this.created;
+        }
+
+        /**
+         * @return the load time of the store in milliseconds, -1 if not finished
+         */
+        public long getDuration() {
+            return this.end < 0 ? -1 : this.end - this.start;
+        }
+
+        /**
+         * @return the name of the thread which loaded the store, null if not started
+         */
+        public String getThread() {
+            return this.thread;
+        }
+
+        /**
+         * @return the error thrown when the store was loaded or null
+         */
+        public Throwable getError() {
+            return this.error;
+        }
+
+        /**
+         * @return true when the load of the store is finished
+         */
+        public boolean isLoaded() {
+            return this.done.getCount() == 0;
+        }
+
+        /**
+         * wait until the load of the store is finished
+         * @return true when the store was loaded without error
+         */
+        public boolean await() {
+            try {
+                this.done.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return this.error == null;
+        }
+
+        @Override
+        public String toString() {
+            return this.name + ": " + (this.bytes / 1024L) + " KB, start +" + getStartOffset() + " ms, duration "
+                    + getDuration() + " ms" + (this.thread == null ? "" : ", " + this.thread) + (this.error == null ? "" : ", failed: " + this.error.getMessage());
+        }
+    }
+
+    private final long created;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Store> stores;
+    private final List<Store> timeline;
+    private final AtomicLong sequence;
+    private final AtomicInteger pending;
+    private final List<Store> held;
+    private boolean started;
+
+    /**
+     * @param name the prefix of the names of the loader threads
+     * @param threads the maximum number of stores loaded concurrently
+     */
+    public StartupLoader(final String name, final int threads) {
+        this.created = System.currentTimeMillis();
+        final int t = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(t, t, 10L, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(),
+                new NamePrefixThreadFactory(name));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.stores = new ConcurrentHashMap<String, Store>();
+        this.timeline = Collections.synchronizedList(new ArrayList<Store>());
+        this.sequence = new AtomicLong(0);
+        this.pending = new AtomicInteger(0);
+        this.held = new ArrayList<Store>();
+        this.started = false;
+    }
+
+    /**
+     * Add a store to the loader. Before {@link #start()} the stores are only collected,
+     * so that the loader can order all of them by their size.
+     * @param name the unique name of the store
+     * @param bytes the estimated number of bytes read when the store is opened, see {@link #size(File...)}
+     * @param loader the task opening the store
+     * @return the timeline entry of the store
+     */
+    public Store load(final String name, final long bytes, final Loader loader) {
+        final Store store = new Store(name, bytes, this.sequence.getAndIncrement(), loader);
+        this.stores.put(name, store);
+        this.timeline.add(store);
+        this.pending.incrementAndGet();
+        synchronized (this) {
+            if (!this.started) {
+                this.held.add(store);
+                return store;
+            }
+        }
+        submit(store);
+        return store;
+    }
+
+    /**
+     * start loading the collected stores, the largest first
+     */
+    public void start() {
+        final List<Store> queue;
+        synchronized (this) {
+            if (this.started) return;
+            this.started = true;
+            queue = new ArrayList<Store>(this.held);
+            this.held.clear();
+        }
+        Collections.sort(queue);
+        for (final Store store: queue) submit(store);
+    }
+
+    private void submit(final Store store) {
+        try {
+            this.executor.execute(store);
+        } catch (final RejectedExecutionException e) {
+            // the loader was shut down, load in the calling thread
+            store.run();
+        }
+    }
+
+    /**
+     * wait until a store is loaded
+     * @param name the name of the store
+     * @return true when the store was loaded without error, false if it failed or is unknown
+     */
+    public boolean await(final String name) {
+        final Store store = this.stores.get(name);
+        return store != null && store.await();
+    }
+
+    /**
+     * wait until all stores are loaded
+     * @param timeout the maximum time to wait in milliseconds
+     * @return true when all stores were loaded within the time
+     */
+    public boolean awaitAll(final long timeout) {
+        start();
+        final long stop = System.currentTimeMillis() + timeout;
+        for (final Store store: timeline()) {
+            final long wait = stop - System.currentTimeMillis();
+            try {
+                if (wait <= 0 || !store.done.await(wait, TimeUnit.MILLISECONDS)) return false;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the timeline entries of all stores in the order they were added
+     */
+    public List<Store> timeline() {
+        synchronized (this.timeline) {
+            return new ArrayList<Store>(this.timeline);
+        }
+    }
+
+    /**
+     * @return the number of stores which are not loaded yet
+     */
+    public int pending() {
+        return this.pending.get();
+    }
+
+    /**
+     * log the timeline of all stores, ordered by their start
+     */
+    public void logTimeline() {
+        final List<Store> stores = timeline();
+        Collections.sort(stores, (s1, s2) -> Long.compare(s1.start, s2.start));
+        long last = 0;
+        for (final Store store: stores) last = Math.max(last, store.end);
+        log.info("start-up timeline of " + stores.size() + " stores, finished after " + (last - this.created) + " ms:");
+        for (final Store store: stores) log.info("  " + store.toString());
+    }
+
+    /**
+     * wait until all loads are finished and stop the loader threads
+     */
+    public void shutdown() {
+        start();
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * estimate the number of bytes read when files are opened
+     * @param files files or directories, which are counted recursively
+     * @return the sum of the file lengths
+     */
+    public static long size(final File... files) {
+        long size = 0;
+        if (files == null) return size;
+        for (final File f: files) {
+            if (f == null) continue;
+            if (f.isDirectory()) {
+                final File[] list = f.listFiles();
+                if (list != null) size += size(list);
+            } else {
+                size += f.length();
+            }
+        }
+        return size;
+    }
+}
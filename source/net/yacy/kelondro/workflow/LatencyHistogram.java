@@ -0,0 +1,121 @@
+// LatencyHistogram.java
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.workflow;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in milliseconds with buckets of exponentially growing width.
+ * Bucket 0 counts latencies below one millisecond, bucket i counts latencies from 2^(i-1) to 2^i - 1
+ * milliseconds, and the last bucket counts all larger latencies. Values can be added concurrently.
+ */
+public class LatencyHistogram {
+
+    /** the number of buckets; the last bucket starts at 2^(BUCKETS - 2) milliseconds, about 4.6 hours */
+    public static final int BUCKETS = 26;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong(0), sum = new AtomicLong(0), max = new AtomicLong(0);
+
+    /**
+     * @param latency a latency in milliseconds; negative values are counted as 0
+     */
+    public void add(final long latency) {
+        final long l = Math.max(0, latency);
+        this.buckets.incrementAndGet(bucket(l));
+        this.count.incrementAndGet();
+        this.sum.addAndGet(l);
+        long m;
+        while (l > (m = this.max.get()) && !this.max.compareAndSet(m, l)) {}
+    }
+
+    /**
+     * @return the bucket of a latency
+     */
+    public static int bucket(final long latency) {
+        return latency <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(latency));
+    }
+
+    /**
+     * @return the smallest latency in milliseconds which is not counted in the bucket anymore,
+     *         or Long.MAX_VALUE for the last bucket
+     */
+    public static long upperBound(final int bucket) {
+        return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    /**
+     * @return the number of latencies in a bucket
+     */
+    public long getBucketCount(final int bucket) {
+        return this.buckets.get(bucket);
+    }
+
+    /**
+     * @return the number of latencies
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * @return the average latency in milliseconds, 0 if there are no latencies
+     */
+    public long getAverage() {
+        final long c = this.count.get();
+        return c == 0 ? 0 : this.sum.get() / c;
+    }
+
+    /**
+     * @return the maximum latency in milliseconds
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * @param quantile a value between 0 and 1, i.e. 0.5 for the median
+     * @return the upper bound in milliseconds of the bucket which contains the quantile, at most the maximum latency
+     */
+    public long getQuantile(final double quantile) {
+        final long c = this.count.get();
+        if (c == 0) return 0;
+        final long rank = Math.max(1, (long) Math.ceil(quantile * c));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.buckets.get(i);
+            if (seen >= rank) return Math.min(this.max.get(), upperBound(i));
+        }
+        return this.max.get();
+    }
+
+    /**
+     * remove all latencies
+     */
+    public void clear() {
+        for (int i = 0; i < BUCKETS; i++) this.buckets.set(i, 0);
+        this.count.set(0);
+        this.sum.set(0);
+        this.max.set(0);
+    }
+}
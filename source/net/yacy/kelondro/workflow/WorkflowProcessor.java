@@ -58,6 +58,17 @@ public class WorkflowProcessor<J extends WorkflowJob> {
             final WorkflowTask<J> task,
             final int inputQueueSize, final WorkflowProcessor<J> output,
             final int maxpoolsize) {
+        this(name, description, childnames, task, inputQueueSize, output, maxpoolsize, Thread.NORM_PRIORITY);
+    }
+
+    /**
+     * @param priority the priority of the executor threads, between Thread.MIN_PRIORITY and Thread.MAX_PRIORITY
+     */
+    public WorkflowProcessor(
+            final String name, final String description, final String[] childnames,
+            final WorkflowTask<J> task,
+            final int inputQueueSize, final WorkflowProcessor<J> output,
+            final int maxpoolsize, final int priority) {
         // start a fixed number of executors that handle entries in the process queue
         this.processName = name;
         this.description = description;
@@ -66,7 +77,13 @@ public class WorkflowProcessor<J extends WorkflowJob> {
         this.maxpoolsize = maxpoolsize;
         this.input = new LinkedBlockingQueue<J>(Math.max(maxpoolsize + 1, inputQueueSize));
         this.output = output;
-        this.executor = Executors.newCachedThreadPool(new NamePrefixThreadFactory(name));
+        final NamePrefixThreadFactory threadFactory = new NamePrefixThreadFactory(name);
+        final int threadPriority = Math.max(Thread.MIN_PRIORITY, Math.min(Thread.MAX_PRIORITY, priority));
+        this.executor = Executors.newCachedThreadPool(r -> {
+            final Thread t = threadFactory.newThread(r);
+            t.setPriority(threadPriority);
+            return t;
+        });
         this.executorRunning = new AtomicInteger(0);
         /*
         for (int i = 0; i < this.maxpoolsize; i++) {
@@ -93,6 +93,7 @@ public class migration {
             }
         }
         installSkins(sb); // FIXME: yes, bad fix for quick release 0.47
+        resumeReindex(sb);
 
         // ssl/https support currently on hardcoded default port 8443 (v1.67/9563)
         // make sure YaCy can start (disable ssl/https support if port is used)
@@ -454,6 +455,17 @@ public class migration {
 		}
 	}
     
+    /**
+     * continue a reindex job which was interrupted by a shutdown
+     */
+    public static void resumeReindex(final Switchboard sb) {
+        if (!ReindexSolrBusyThread.checkpointFile(sb).exists() || sb.getThread(ReindexSolrBusyThread.THREAD_NAME) != null) return;
+        if (!sb.index.fulltext().connectedLocalSolr()) return;
+        ReindexSolrBusyThread reidx = new ReindexSolrBusyThread(null);
+        if (reidx.getQueryList().isEmpty()) return;
+        sb.deployThread(ReindexSolrBusyThread.THREAD_NAME, "Reindex Solr", "reindex documents with obsolete fields in embedded Solr index", "/IndexReIndexMonitor_p.html",reidx , 0);
+    }
+
     /**
      * Reindex embedded solr index
      *   - all documents with inactive fields (according to current schema)
@@ -25,12 +25,15 @@
 package net.yacy.peers;
 
 import java.lang.reflect.Array;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.SortedSet;
@@ -53,6 +56,9 @@ import net.yacy.peers.operation.yacyVersion;
  * part of yacyPeerActions, yacyDHTActions and yacySeedDB
  */
 public class DHTSelection {
+
+    /** search response time in milliseconds assumed for peers without statistics in the latency weighted selection */
+    private static final long UNKNOWN_LATENCY = 1000;
     
     public static Set<Seed> selectClusterPeers(final SeedDB seedDB, final SortedSet<byte[]> peerhashes) {
         final Set<Seed> l = new HashSet<Seed>();
@@ -96,10 +102,13 @@ public class DHTSelection {
                 if (omit != null && omit.contains(seed)) continue; // sort out peers that are target for DHT
                 if (seed.isLastSeenTimeout(3600000)) continue; // do not ask peers that had not been seen more than one hour (happens during a startup situation)
                 if (!seed.getFlagSolrAvailable()) continue; // extra peers always use solr direct, skip if solr interface is not available
+                if (PeerStatistics.isUnreliable(seed.hash)) continue; // do not ask peers that failed to respond several times in a row
                 if (!seed.getFlagAcceptRemoteIndex() && seed.matchPeerTags(wordhashes)) seedSelection.dec(seed, r.nextInt(10) + 2); // robinson peers with matching peer tags
                 if (seed.getFlagRootNode()) seedSelection.dec(seed, r.nextInt(30) + 6); // root nodes (fast peers)
                 if (seed.getAge() < minage) seedSelection.dec(seed, r.nextInt(15) + 3); // young peers (with fresh info)
                 if (seed.getAge() < 1) seedSelection.dec(seed, r.nextInt(40) + 8); // the 'workshop feature', fresh peers should be seen
+                final long latency = PeerStatistics.latency(seed.hash);
+                if (latency >= 0 && latency < 1000) seedSelection.dec(seed, r.nextInt(10) + 2); // peers which recently responded fast
                 if (seed.getLinkCount() >= 100000 && seed.getLinkCount() < 1000000) { // peers above 100.000 links take part on a selection of medium-size peers
                     seedSelection.dec(seed, r.nextInt(25) + 5);
                 }
@@ -139,37 +148,91 @@ public class DHTSelection {
      * @return a list of matching candidate seeds for remote RWI search
      */
     public static Set<Seed> selectDHTSearchTargets(final SeedDB seedDB, final HandleSet wordhashes, final int minage, final int minWordCount, final int redundancy, final int maxredundancy, final Random random) {
+        return selectDHTSearchTargets(seedDB, wordhashes, minage, minWordCount, redundancy, maxredundancy, random, null);
+    }
+
+    /**
+     * @param seedDB the seeds database.
+     * @param wordhashes hashes of the words we are searching for
+     * @param minage the minimum age of each seed in days
+     * @param minWordCount the minimum RWI words count of each seed
+     * @param random a random generator instance
+     * @param alternates when not null, filled with the hashes of the selected seeds mapped to the other,
+     *        not selected, seeds of the same DHT partition which may be asked for hedged requests
+     * @return a list of matching candidate seeds for remote RWI search
+     */
+    public static Set<Seed> selectDHTSearchTargets(final SeedDB seedDB, final HandleSet wordhashes, final int minage, final int minWordCount, final int redundancy, final int maxredundancy, final Random random, final Map<String, List<Seed>> alternates) {
 
         // put in seeds according to dht
         Set<Seed> seeds = new LinkedHashSet<>(); // dht position seeds
         if (seedDB != null) {
             Iterator<byte[]> iter = wordhashes.iterator();
             while (iter.hasNext()) {
-                seeds.addAll(collectHorizontalDHTPositions(seedDB, iter.next(), minage, minWordCount, redundancy, maxredundancy, random));
+                seeds.addAll(collectHorizontalDHTPositions(seedDB, iter.next(), minage, minWordCount, redundancy, maxredundancy, random, alternates));
             }
         }
         
         return seeds;
     }
 
-    private static ArrayList<Seed> collectHorizontalDHTPositions(final SeedDB seedDB, final byte[] wordhash, final int minage, final int minWordCount, final int redundancy, final int maxredundancy, final Random random) {
+    private static ArrayList<Seed> collectHorizontalDHTPositions(final SeedDB seedDB, final byte[] wordhash, final int minage, final int minWordCount, final int redundancy, final int maxredundancy, final Random random, final Map<String, List<Seed>> alternates) {
         // this method is called from the search target computation
         ArrayList<Seed> collectedSeeds = new ArrayList<>(redundancy * seedDB.scheme.verticalPartitions());
         for (int verticalPosition = 0; verticalPosition < seedDB.scheme.verticalPartitions(); verticalPosition++) {
             ArrayList<Seed> seeds = selectVerticalDHTPositions(seedDB, wordhash, minage, minWordCount, maxredundancy, verticalPosition);
+            if (seeds.size() > redundancy) {
+                // prefer peers which did not fail to respond recently, as long as enough redundant peers remain
+                Iterator<Seed> i = seeds.iterator();
+                int removable = seeds.size() - redundancy;
+                while (i.hasNext() && removable > 0) {
+                    if (PeerStatistics.isUnreliable(i.next().hash)) {
+                        i.remove();
+                        removable--;
+                    }
+                }
+            }
             if (seeds.size() <= redundancy) {
                 collectedSeeds.addAll(seeds);
             } else {
-                // we pick some random peers from the vertical position.
+                // we pick some random peers from the vertical position, weighted by their search response times.
                 // All of them should be valid, but picking a random subset is a distributed load balancing on the whole YaCy network.
                 // without picking a random subset, always the same peers would be targeted for the same word resulting in (possible) DoS on the target.
-                for (int i = 0; i < redundancy; i++) {
-                    collectedSeeds.add(seeds.remove(random.nextInt(seeds.size())));
+                seeds = latencyWeightedShuffle(seeds, random);
+                final List<Seed> selected = seeds.subList(0, redundancy);
+                collectedSeeds.addAll(selected);
+                if (alternates != null) {
+                    final List<Seed> others = new ArrayList<>(seeds.subList(redundancy, seeds.size()));
+                    for (final Seed seed: selected) alternates.put(seed.hash, others);
                 }
             }
         }
         return collectedSeeds;
     }
+
+    /**
+     * Order the seeds by a weighted random sampling without replacement (Efraimidis and Spirakis), where the weight
+     * of a seed is the inverse of its expected response time to remote searches: each seed gets the key u^(1/w) with
+     * a uniformly distributed random u, and the seeds are sorted by descending keys. A seed twice as fast as another one
+     * is therefore twice as likely to be picked first, and each prefix of the result is a weighted random sample.
+     * Peers without statistics get a default response time so that new peers are asked as well.
+     * @param seeds the seeds to shuffle
+     * @param random a random generator instance
+     * @return the shuffled seeds
+     */
+    private static ArrayList<Seed> latencyWeightedShuffle(final List<Seed> seeds, final Random random) {
+        final List<Map.Entry<Double, Seed>> weighted = new ArrayList<>(seeds.size());
+        for (final Seed seed: seeds) {
+            long latency = PeerStatistics.searchLatency(seed.hash);
+            if (latency < 0) latency = UNKNOWN_LATENCY;
+            // the key u^(1/w) with w = 1/latency, compared in logarithmic scale to avoid an underflow : ln(u) * latency
+            final double u = 1.0d - random.nextDouble(); // in (0, 1]
+            weighted.add(new AbstractMap.SimpleImmutableEntry<>(Math.log(u) * Math.max(1L, latency), seed));
+        }
+        Collections.sort(weighted, (a, b) -> Double.compare(b.getKey(), a.getKey()));
+        final ArrayList<Seed> shuffled = new ArrayList<>(seeds.size());
+        for (final Map.Entry<Double, Seed> entry: weighted) shuffled.add(entry.getValue());
+        return shuffled;
+    }
     
     /**
      * @param seedDB the seeds database. Must not be null.
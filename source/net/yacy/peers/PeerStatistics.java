@@ -0,0 +1,250 @@
+// PeerStatistics.java
+// -------------------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.peers;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Response time and error statistics of the remote peers, collected from the
+ * requests of the peer-to-peer protocol (see {@link Protocol}). The latency is
+ * an exponentially weighted moving average, so that the statistics follow the
+ * current state of a peer. The response times of remote searches are tracked
+ * separately from the other requests, which transfer or index data and have a
+ * different duration. The statistics are used by the {@link DHTSelection}
+ * to avoid peers which are not responding and by the {@link RemoteSearchScheduler}
+ * to detect slow responses.
+ */
+public class PeerStatistics {
+
+    /** weight of a new observation in the moving averages */
+    private static final double ALPHA = 0.2d;
+
+    /** quantile of the standard normal distribution at 90 percent */
+    private static final double Z_P90 = 1.2816d;
+
+    /** number of consecutive failures after which a peer is considered as unreliable */
+    private static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+    /** time in milliseconds a peer is considered as unreliable after its last failure */
+    private static final long FAILURE_PENALTY_TIME = 10L * 60L * 1000L;
+
+    /** maximum number of peers with statistics; beyond that, entries not updated since a day are removed */
+    private static final int MAX_ENTRIES = 10000;
+
+    /** maximum age in milliseconds of the statistics of a peer when the number of entries exceeds {@link #MAX_ENTRIES} */
+    private static final long MAX_AGE = 24L * 60L * 60L * 1000L;
+
+    private static final ConcurrentMap<String, Entry> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Statistics of a single peer
+     */
+    public static class Entry {
+        private double latency = -1.0d; // moving average of the response time in milliseconds, -1 when unknown
+        private double searchLatency = -1.0d; // moving average of the response time of searches in milliseconds, -1 when unknown
+        private double searchVariance = 0.0d; // moving variance of the response time of searches
+        private double success = 1.0d; // moving average of the success rate
+        private int consecutiveFailures = 0;
+        private long requests = 0;
+        private long failures = 0;
+        private long lastFailure = 0;
+        private long lastUpdate = 0;
+
+        private synchronized void update(final boolean ok, final long time, final boolean search, final long now) {
+            this.requests++;
+            this.lastUpdate = now;
+            if (ok) {
+                this.latency = this.latency < 0 ? time : (ALPHA * time + (1.0d - ALPHA) * this.latency);
+                if (search) {
+                    if (this.searchLatency < 0) {
+                        this.searchLatency = time;
+                    } else {
+                        final double diff = time - this.searchLatency;
+                        this.searchLatency += ALPHA * diff;
+                        this.searchVariance = (1.0d - ALPHA) * (this.searchVariance + ALPHA * diff * diff);
+                    }
+                }
+                this.success = ALPHA + (1.0d - ALPHA) * this.success;
+                this.consecutiveFailures = 0;
+            } else {
+                this.success = (1.0d - ALPHA) * this.success;
+                this.consecutiveFailures++;
+                this.failures++;
+                this.lastFailure = now;
+            }
+        }
+
+        /**
+         * @return the average response time in milliseconds, or -1 when no successful response was recorded
+         */
+        public synchronized long getLatency() {
+            return Math.round(this.latency);
+        }
+
+        /**
+         * @return the average response time of searches in milliseconds, or -1 when no successful search was recorded
+         */
+        public synchronized long getSearchLatency() {
+            return Math.round(this.searchLatency);
+        }
+
+        /**
+         * @return an estimation of the 90th percentile of the response time of searches in milliseconds,
+         * assuming normally distributed response times, or -1 when no successful search was recorded
+         */
+        public synchronized long getSearchLatencyP90() {
+            if (this.searchLatency < 0) return -1;
+            return Math.round(this.searchLatency + Z_P90 * Math.sqrt(this.searchVariance));
+        }
+
+        /**
+         * @return the recent success rate, between 0 and 1
+         */
+        public synchronized double getSuccessRate() {
+            return this.success;
+        }
+
+        public synchronized long getRequests() {
+            return this.requests;
+        }
+
+        public synchronized long getFailures() {
+            return this.failures;
+        }
+
+        /**
+         * @return true when the peer failed to respond several times in a row recently
+         */
+        public synchronized boolean isUnreliable() {
+            return this.consecutiveFailures >= MAX_CONSECUTIVE_FAILURES
+                    && System.currentTimeMillis() - this.lastFailure < FAILURE_PENALTY_TIME;
+        }
+    }
+
+    /**
+     * record a successful request
+     * @param peerHash the hash of the requested peer
+     * @param time the response time in milliseconds
+     */
+    public static void success(final String peerHash, final long time) {
+        update(peerHash, true, time, false);
+    }
+
+    /**
+     * record a successful remote search
+     * @param peerHash the hash of the requested peer
+     * @param time the response time in milliseconds
+     */
+    public static void searchSuccess(final String peerHash, final long time) {
+        update(peerHash, true, time, true);
+    }
+
+    /**
+     * record a failed request
+     * @param peerHash the hash of the requested peer
+     * @param time the time in milliseconds until the failure
+     */
+    public static void failure(final String peerHash, final long time) {
+        update(peerHash, false, time, false);
+    }
+
+    private static void update(final String peerHash, final boolean ok, final long time, final boolean search) {
+        if (peerHash == null) return;
+        Entry entry = stats.get(peerHash);
+        if (entry == null) {
+            if (stats.size() >= MAX_ENTRIES) cleanup();
+            entry = new Entry();
+            final Entry previous = stats.putIfAbsent(peerHash, entry);
+            if (previous != null) entry = previous;
+        }
+        entry.update(ok, time, search, System.currentTimeMillis());
+    }
+
+    private static void cleanup() {
+        final long limit = System.currentTimeMillis() - MAX_AGE;
+        final Iterator<Map.Entry<String, Entry>> i = stats.entrySet().iterator();
+        while (i.hasNext()) {
+            final Entry entry = i.next().getValue();
+            synchronized (entry) {
+                if (entry.lastUpdate < limit) i.remove();
+            }
+        }
+    }
+
+    /**
+     * @param peerHash the hash of a peer
+     * @return the statistics of the peer or null when the peer had not been requested yet
+     */
+    public static Entry get(final String peerHash) {
+        return peerHash == null ? null : stats.get(peerHash);
+    }
+
+    /**
+     * @param peerHash the hash of a peer
+     * @return the average response time of the peer in milliseconds, or -1 when unknown
+     */
+    public static long latency(final String peerHash) {
+        final Entry entry = get(peerHash);
+        return entry == null ? -1 : entry.getLatency();
+    }
+
+    /**
+     * @param peerHash the hash of a peer
+     * @return the average response time of remote searches on the peer in milliseconds, or -1 when unknown
+     */
+    public static long searchLatency(final String peerHash) {
+        final Entry entry = get(peerHash);
+        return entry == null ? -1 : entry.getSearchLatency();
+    }
+
+    /**
+     * @param peerHash the hash of a peer
+     * @return the estimated 90th percentile of the response time of remote searches on the peer in milliseconds, or -1 when unknown
+     */
+    public static long searchLatencyP90(final String peerHash) {
+        final Entry entry = get(peerHash);
+        return entry == null ? -1 : entry.getSearchLatencyP90();
+    }
+
+    /**
+     * @param peerHash the hash of a peer
+     * @return true when the peer recently failed to respond several times in a row
+     */
+    public static boolean isUnreliable(final String peerHash) {
+        final Entry entry = get(peerHash);
+        return entry != null && entry.isUnreliable();
+    }
+
+    /**
+     * @return the number of peers with statistics
+     */
+    public static int size() {
+        return stats.size();
+    }
+
+    /**
+     * remove all statistics
+     */
+    public static void clear() {
+        stats.clear();
+    }
+}
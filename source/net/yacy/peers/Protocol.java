@@ -52,6 +52,7 @@ import java.net.MalformedURLException;
 import java.time.DateTimeException;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -68,12 +69,14 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.http.entity.mime.content.ContentBody;
 import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.StreamingResponseCallback;
 import org.apache.solr.client.solrj.response.FacetField;
 import org.apache.solr.client.solrj.response.FacetField.Count;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.ModifiableSolrParams;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -90,12 +93,14 @@ import net.yacy.cora.document.feed.RSSReader;
 import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.cora.federate.solr.connector.RemoteSolrConnector;
 import net.yacy.cora.federate.solr.connector.SolrConnector;
+import net.yacy.cora.federate.solr.connector.SolrQueryResultCache;
 import net.yacy.cora.federate.solr.instance.RemoteInstance;
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.order.Digest;
 import net.yacy.cora.protocol.ClientIdentification;
 import net.yacy.cora.protocol.Domains;
 import net.yacy.cora.protocol.http.HTTPClient;
+import net.yacy.cora.protocol.http.PersistentHTTPClient;
 import net.yacy.cora.sorting.ClusteredScoreMap;
 import net.yacy.cora.sorting.ReversibleScoreMap;
 import net.yacy.cora.storage.HandleSet;
@@ -159,11 +164,8 @@ public final class Protocol {
             final String path,
             final Map<String, ContentBody> parts,
             final int timeout) throws IOException {
-            final HTTPClient httpClient = new HTTPClient(ClientIdentification.yacyInternetCrawlerAgent);
-            httpClient.setTimout(timeout);
             MultiProtocolURL targetURL = new MultiProtocolURL(targetBaseURL, path);
-			this.result = httpClient.POSTbytes(targetURL, Seed.b64Hash2hexHash(targetHash) + ".yacyh", parts, false,
-					true);
+            this.result = postToPeer(targetURL, targetHash, parts, false, timeout);
         }
         
         /**
@@ -207,13 +209,7 @@ public final class Protocol {
             // send request
             final long start = System.currentTimeMillis();
             // final byte[] content = HTTPConnector.getConnector(MultiProtocolURI.yacybotUserAgent).post(new MultiProtocolURI("http://" + address + "/yacy/hello.html"), 30000, yacySeed.b64Hash2hexHash(otherHash) + ".yacyh", parts);
-            final HTTPClient httpClient = new HTTPClient(ClientIdentification.yacyInternetCrawlerAgent, 30000);
-            content =
-                httpClient.POSTbytes(
-                    new MultiProtocolURL(targetBaseURL, "/yacy/hello.html"),
-                    Seed.b64Hash2hexHash(targetHash) + ".yacyh",
-                    parts,
-                    false, true);
+            content = postToPeer(new MultiProtocolURL(targetBaseURL, "/yacy/hello.html"), targetHash, parts, false, 30000);
             responseTime = System.currentTimeMillis() - start;
             result = FileUtils.table(content);
         } catch (final Exception e ) {
@@ -543,7 +539,7 @@ public final class Protocol {
                         time,
                         maxDistance,
                         partitions,
-                        target.getHexHash() + ".yacyh",
+                        target.hash,
                         targetBaseURL,
                         secondarySearchSuperviser
                         );
@@ -636,7 +632,7 @@ public final class Protocol {
                         time,
                         maxDistance,
                         partitions,
-                        target.getHexHash() + ".yacyh",
+                        target.hash,
                         targetBaseURL,
                         null
                         );
@@ -902,7 +898,7 @@ public final class Protocol {
             final long time,
             final int maxDistance,
             final int partitions,
-            final String hostname,
+            final String targetHash,
             final String targetBaseURL,
             final SecondarySearchSuperviser secondarySearchSuperviser
             ) throws IOException {
@@ -962,8 +958,7 @@ public final class Protocol {
                 //resultMap = FileUtils.table(HTTPConnector.getConnector(MultiProtocolURI.crawlerUserAgent).post(new MultiProtocolURI("http://" + target.getClusterAddress() + "/yacy/search.html"), 60000, target.getHexHash() + ".yacyh", parts));
             }
 
-            final HTTPClient httpClient = new HTTPClient(ClientIdentification.yacyInternetCrawlerAgent, 8000);
-            byte[] a = httpClient.POSTbytes(new MultiProtocolURL(targetBaseURL + "/yacy/search.html"), hostname, parts, false, true);
+            byte[] a = postToPeer(new MultiProtocolURL(targetBaseURL + "/yacy/search.html"), targetHash, parts, false, 8000, true);
             if (a != null && a.length > 200000) {
                 // there is something wrong. This is too large, maybe a hack on the other side?
                 a = null;
@@ -1039,7 +1034,7 @@ public final class Protocol {
     	private RemoteInstance instance;
     	
     	/** Connector to the Solr instance */
-    	private SolrConnector solrConnector;
+    	private RemoteSolrConnector solrConnector;
     	
     	/** The solr query to run */
     	private final SolrQuery solrQuery;
@@ -1065,15 +1060,20 @@ public final class Protocol {
     	/** Indicates wether this task has been closed */
     	private volatile boolean closed;
     	
+    	/** The receiver of the result documents as they are parsed. When null, the documents are collected in the docList. */
+    	private final StreamingResponseCallback callback;
+    	
     	/**
-    	 * Constructor. All parameters are required to not be null.
+    	 * Constructor. All parameters except callback are required to not be null.
     	 * @param solrQuery the Solr query to run
     	 * @param targetBaseURL the instance base URL : http(s) + host name or IP + the eventual port
     	 * @param target the remote target seed information
     	 * @param timeout the request timeout in milliseconds
+    	 * @param callback when not null, the result documents are passed to this callback as they are parsed
     	 */
 		protected SolrRequestTask(final SolrQuery solrQuery, final String targetBaseURL, final Seed target,
-				final boolean mySeed, final int timeout, final QueryResponse[] rsp, final SolrDocumentList[] docList) {
+				final boolean mySeed, final int timeout, final QueryResponse[] rsp, final SolrDocumentList[] docList,
+				final StreamingResponseCallback callback) {
 			super("Protocol.solrQuery(" + solrQuery.getQuery() + " to " + target.hash + ")");
 			this.solrQuery = solrQuery;
 			this.targetBaseURL = targetBaseURL;
@@ -1082,6 +1082,7 @@ public final class Protocol {
 			this.timeout = timeout;
 			this.rsp = rsp;
 			this.docList = docList;
+			this.callback = callback;
 			this.closed = false;
 		}
 		
@@ -1129,7 +1130,8 @@ public final class Protocol {
                     this.solrConnector = new RemoteSolrConnector(this.instance, useBinaryResponseWriter && (this.mySeed ? true : this.target.getVersion() >= 1.63), "solr");
 					if (!solrConnector.isClosed() && !this.closed) {
 						try {
-							this.rsp[0] = this.solrConnector.getResponseByParams(solrQuery);
+							this.rsp[0] = this.callback == null ? this.solrConnector.getResponseByParams(solrQuery)
+									: this.solrConnector.getResponseByParams(solrQuery, this.callback);
 							this.docList[0] = this.rsp[0].getResults();
 							if(log.isFine() && rsp[0] != null && rsp[0].getElapsedTime() >= 0) {
 								log.fine("Got a response from solr instance at " + this.targetBaseURL + " in " + rsp[0].getElapsedTime() + "ms");
@@ -1199,6 +1201,31 @@ public final class Protocol {
             final Blacklist blacklist,
             final boolean useSolrFacets,
             final boolean incrementNavigators) throws InterruptedException {
+        final boolean localsearch = (target == null || target.equals(event.peers.mySeed()))
+                && !Switchboard.getSwitchboard().getConfigBool(SwitchboardConstants.DEBUG_SEARCH_REMOTE_SOLR_TESTLOCAL, false);
+        if (localsearch) {
+            return solrQuery(event, solrQuery, offset, count, target, partitions, blacklist, useSolrFacets, incrementNavigators, null);
+        }
+        // merge the results of remote peers as they are received
+        final SolrStreamMerger merger = new SolrStreamMerger(event, solrQuery, count, target, blacklist, useSolrFacets, incrementNavigators);
+        try {
+            return solrQuery(event, solrQuery, offset, count, target, partitions, blacklist, useSolrFacets, incrementNavigators, merger);
+        } finally {
+            merger.close();
+        }
+    }
+
+    private static int solrQuery(
+            final SearchEvent event,
+            final SolrQuery solrQuery,
+            final int offset,
+            final int count,
+            final Seed target,
+            final int partitions,
+            final Blacklist blacklist,
+            final boolean useSolrFacets,
+            final boolean incrementNavigators,
+            final SolrStreamMerger merger) throws InterruptedException {
 
         //try {System.out.println("*** debug-query *** " + URLDecoder.decode(solrQuery.toString(), "UTF-8"));} catch (UnsupportedEncodingException e) {}
         
@@ -1221,7 +1248,10 @@ public final class Protocol {
                 try {
                     SolrConnector sc = event.getQuery().getSegment().fulltext().getDefaultConnector();
                     if (!sc.isClosed()) {
-                        rsp[0] = sc.getResponseByParams(solrQuery);
+                        // the results of the search events may be answered from the result cache of the embedded Solr
+                        final ModifiableSolrParams localQuery = new ModifiableSolrParams(solrQuery);
+                        localQuery.set(SolrQueryResultCache.CACHE_PARAM, true);
+                        rsp[0] = sc.getResponseByParams(localQuery);
                         docList[0] = rsp[0].getResults();
                     }
                 } catch (final Throwable e) {
@@ -1253,7 +1283,7 @@ public final class Protocol {
                         return -1;
                     }
                     final int solrtimeout = Switchboard.getSwitchboard().getConfigInt(SwitchboardConstants.FEDERATED_SERVICE_SOLR_INDEXING_TIMEOUT, 6000);
-                    SolrRequestTask remoteRequest = new SolrRequestTask(solrQuery, targetBaseURL, target, myseed, solrtimeout, rsp, docList);
+                    SolrRequestTask remoteRequest = new SolrRequestTask(solrQuery, targetBaseURL, target, myseed, solrtimeout, rsp, docList, merger);
                     remoteRequest.start();
                     remoteRequest.join(solrtimeout); // just wait until timeout appears
                     if (remoteRequest.isAlive()) {
@@ -1343,6 +1373,9 @@ public final class Protocol {
         
         // evaluate result
         final int numFound = (int) docList[0].getNumFound();
+        if (merger != null) {
+            return merger.finish(facets, snippets, numFound);
+        }
         if (docList == null || docList[0].isEmpty()) {
             Network.log.info("SEARCH (solr), returned 0 out of 0 documents from " + (target == null ? "shard" : ("peer " + target.hash + ":" + target.getName())) + " query = " + solrQuery.toString()) ;
             if(localsearch && offset > 0) {
@@ -1369,67 +1402,11 @@ public final class Protocol {
             if ( tmpdoc == null ) {
                 continue;
             }
-            URIMetadataNode urlEntry;
-            try {
-                urlEntry = new URIMetadataNode(tmpdoc);
-            } catch (MalformedURLException ex) {
+            final URIMetadataNode urlEntry = solrResultEntry(event, tmpdoc, target, localsearch, blacklist, docs);
+            if (urlEntry == null) {
                 continue;
             }
 
-            if ( blacklist.isListed(BlacklistType.SEARCH, urlEntry.url()) ) {
-                if ( Network.log.isInfo() ) {
-                    if (localsearch) {
-                        Network.log.info("local search (solr): filtered blacklisted url " + urlEntry.url().toNormalform(true));
-                    } else {
-                        Network.log.info("remote search (solr): filtered blacklisted url " + urlEntry.url().toNormalform(true) + " from " + (target == null ? "shard" : ("peer " + target.hash + ":" + target.getName())));
-                    }
-                }
-                continue; // block with blacklist
-            }
-
-            final String urlRejectReason = Switchboard.getSwitchboard().crawlStacker.urlInAcceptedDomain(urlEntry.url());
-            if ( urlRejectReason != null ) {
-                if ( Network.log.isInfo() ) {
-                    if (localsearch) {
-                        Network.log.info("local search (solr): rejected url '" + urlEntry.url().toNormalform(true) + "' (" + urlRejectReason + ")");
-                    } else {
-                        Network.log.info("remote search (solr): rejected url '" + urlEntry.url().toNormalform(true) + "' (" + urlRejectReason + ") from peer " + target.getName());
-                    }
-                }
-                continue; // reject url outside of our domain
-            }
-
-            // passed all checks, store url
-            if (!localsearch) {
-                
-                // put the remote documents to the local index. We must convert the solr document to a solr input document:
-                if (event.addResultsToLocalIndex) {
-                    /* Check document size, only if a limit is set on remote documents size allowed to be stored to local index */
-                    if (checkDocumentSize(tmpdoc, event.getRemoteDocStoredMaxSize() * 1024)) {
-                        final SolrInputDocument sid = event.query.getSegment().fulltext().getDefaultConfiguration().toSolrInputDocument(tmpdoc);
-
-                        // the input document stays untouched because it contains top-level cloned objects
-                        docs.add(sid);
-                        // will be stored to index, and is a full solr document, can be added to firstseen
-                        event.query.getSegment().setFirstSeenTime(urlEntry.hash(), Math.min(urlEntry.moddate().getTime(), System.currentTimeMillis()));
-                    } else {
-                        Network.log.info("Document size greater than " + event.getRemoteDocStoredMaxSize() + " kbytes, excludes it from being stored to local index. Url : " + urlEntry.urlstring());
-                    }
-                }
-
-                // after this conversion we can remove the largest and not used field text_t and synonyms_sxt from the document
-                // because that goes into a search cache and would take a lot of memory in the search cache
-                //doc.removeFields(CollectionSchema.text_t.getSolrFieldName());
-                tmpdoc.removeFields(CollectionSchema.synonyms_sxt.getSolrFieldName());
-
-                ResultURLs.stack(
-                        ASCII.String(urlEntry.url().hash()),
-                        urlEntry.url().getHost(),
-                        event.peers.mySeed().hash.getBytes(),
-                        UTF8.getBytes(target.hash),
-                        EventOrigin.QUERIES);
-            }
-
             // add the url entry to the checked results
             resultContainer.add(urlEntry);
         }
@@ -1460,6 +1437,185 @@ public final class Protocol {
         return resultContainer.size();
     }
     
+    /**
+     * Check and convert a result document from a Solr instance.
+     * @param event the search event. Must not be null.
+     * @param tmpdoc the result document. Must not be null.
+     * @param target the target peer of the Solr query
+     * @param localsearch true when the document comes from the local Solr
+     * @param blacklist url list to exclude from results
+     * @param docs when not null, the remote documents to store to the local index are added to this collection
+     * @return the result entry or null when the document is rejected
+     */
+    private static URIMetadataNode solrResultEntry(final SearchEvent event, final SolrDocument tmpdoc, final Seed target,
+            final boolean localsearch, final Blacklist blacklist, final Collection<SolrInputDocument> docs) {
+        URIMetadataNode urlEntry;
+        try {
+            urlEntry = new URIMetadataNode(tmpdoc);
+        } catch (MalformedURLException ex) {
+            return null;
+        }
+
+        if ( blacklist.isListed(BlacklistType.SEARCH, urlEntry.url()) ) {
+            if ( Network.log.isInfo() ) {
+                if (localsearch) {
+                    Network.log.info("local search (solr): filtered blacklisted url " + urlEntry.url().toNormalform(true));
+                } else {
+                    Network.log.info("remote search (solr): filtered blacklisted url " + urlEntry.url().toNormalform(true) + " from " + (target == null ? "shard" : ("peer " + target.hash + ":" + target.getName())));
+                }
+            }
+            return null; // block with blacklist
+        }
+
+        final String urlRejectReason = Switchboard.getSwitchboard().crawlStacker.urlInAcceptedDomain(urlEntry.url());
+        if ( urlRejectReason != null ) {
+            if ( Network.log.isInfo() ) {
+                if (localsearch) {
+                    Network.log.info("local search (solr): rejected url '" + urlEntry.url().toNormalform(true) + "' (" + urlRejectReason + ")");
+                } else {
+                    Network.log.info("remote search (solr): rejected url '" + urlEntry.url().toNormalform(true) + "' (" + urlRejectReason + ") from peer " + target.getName());
+                }
+            }
+            return null; // reject url outside of our domain
+        }
+
+        // passed all checks, store url
+        if (!localsearch) {
+            
+            // put the remote documents to the local index. We must convert the solr document to a solr input document:
+            if (event.addResultsToLocalIndex) {
+                /* Check document size, only if a limit is set on remote documents size allowed to be stored to local index */
+                if (checkDocumentSize(tmpdoc, event.getRemoteDocStoredMaxSize() * 1024)) {
+                    final SolrInputDocument sid = event.query.getSegment().fulltext().getDefaultConfiguration().toSolrInputDocument(tmpdoc);
+
+                    // the input document stays untouched because it contains top-level cloned objects
+                    docs.add(sid);
+                    // will be stored to index, and is a full solr document, can be added to firstseen
+                    event.query.getSegment().setFirstSeenTime(urlEntry.hash(), Math.min(urlEntry.moddate().getTime(), System.currentTimeMillis()));
+                } else {
+                    Network.log.info("Document size greater than " + event.getRemoteDocStoredMaxSize() + " kbytes, excludes it from being stored to local index. Url : " + urlEntry.urlstring());
+                }
+            }
+
+            // after this conversion we can remove the largest and not used field text_t and synonyms_sxt from the document
+            // because that goes into a search cache and would take a lot of memory in the search cache
+            //doc.removeFields(CollectionSchema.text_t.getSolrFieldName());
+            tmpdoc.removeFields(CollectionSchema.synonyms_sxt.getSolrFieldName());
+
+            ResultURLs.stack(
+                    ASCII.String(urlEntry.url().hash()),
+                    urlEntry.url().getHost(),
+                    event.peers.mySeed().hash.getBytes(),
+                    UTF8.getBytes(target.hash),
+                    EventOrigin.QUERIES);
+        }
+        return urlEntry;
+    }
+
+    /**
+     * Receives the result documents of a remote Solr query as they are parsed and inserts them by batches in the
+     * nodes stack of the search event, so that the first results can be rendered before the whole response is received.
+     * The facets and snippets, which come at the end of the response, are merged once by {@link #finish(Map, Map, int)}.
+     */
+    private static class SolrStreamMerger extends StreamingResponseCallback {
+
+        /** number of result documents inserted at once in the nodes stack */
+        private static final int BATCH_SIZE = 10;
+
+        private final SearchEvent event;
+        private final int count;
+        private final Seed target;
+        private final Blacklist blacklist;
+        private final boolean localsearch;
+        private final SearchEvent.NodeStream stream;
+        /** the remote documents to store to the local index, or null */
+        private final Collection<SolrInputDocument> docs;
+        private List<URIMetadataNode> batch;
+        private int received;
+
+        private SolrStreamMerger(final SearchEvent event, final SolrQuery solrQuery, final int count, final Seed target,
+                final Blacklist blacklist, final boolean useSolrFacets, final boolean incrementNavigators) {
+            this.event = event;
+            this.count = count;
+            this.target = target;
+            this.blacklist = blacklist;
+            this.localsearch = target == null || target.equals(event.peers.mySeed());
+            final String[] facetFields = useSolrFacets ? solrQuery.getFacetFields() : null;
+            this.stream = event.nodeStream(this.localsearch, this.localsearch ? "localpeer" : target.getName() + "/" + target.hash,
+                    facetFields == null ? null : Arrays.asList(facetFields), solrQuery.getHighlight(), incrementNavigators);
+            this.docs = event.addResultsToLocalIndex ? new ArrayList<SolrInputDocument>() : null;
+            this.batch = new ArrayList<URIMetadataNode>(BATCH_SIZE);
+            this.received = 0;
+        }
+
+        @Override
+        public void streamDocListInfo(final long numFound, final long start, final Float maxScore) {
+        }
+
+        @Override
+        public void streamSolrDocument(final SolrDocument doc) {
+            if (doc == null) return;
+            if (this.received >= this.count) return; // do not process more that requested (in case that evil peers fill us up with rubbish)
+            this.received++;
+            final URIMetadataNode urlEntry = solrResultEntry(this.event, doc, this.target, this.localsearch, this.blacklist, this.docs);
+            if (urlEntry == null) return;
+            this.batch.add(urlEntry);
+            if (this.batch.size() >= BATCH_SIZE) flush();
+        }
+
+        private void flush() {
+            if (this.batch.isEmpty()) return;
+            this.stream.add(this.batch);
+            this.batch = new ArrayList<URIMetadataNode>(BATCH_SIZE);
+        }
+
+        /**
+         * Merge the end of the response, once the request is terminated.
+         * @param facets the facets of the response
+         * @param snippets the snippets of the response
+         * @param numFound the total number of matching documents
+         * @return the number of results added to the event
+         * @throws InterruptedException when interrupt status on calling thread is detected while processing
+         */
+        private int finish(final Map<String, ReversibleScoreMap<String>> facets, final Map<String, LinkedHashSet<String>> snippets,
+                final int numFound) throws InterruptedException {
+            flush();
+            final String source = this.target == null ? "shard" : ("peer " + this.target.hash + ":" + this.target.getName());
+            if (this.received == 0) {
+                Network.log.info("SEARCH (solr), returned 0 out of 0 documents from " + source);
+                return 0;
+            }
+            Network.log.info("SEARCH (solr), returned " + this.received + " out of " + numFound + " documents and " + facets.size() + " facets " + facets.keySet().toString() + " from " + source);
+            if (!this.localsearch && this.docs != null) {
+                /*
+                 * Current thread might be interrupted by SearchEvent.cleanup()
+                 */
+                if (Thread.interrupted()) {
+                    throw new InterruptedException("solrQuery interrupted");
+                }
+                WriteToLocalIndexThread writeToLocalIndexThread = new WriteToLocalIndexThread(this.event.query.getSegment(),
+                        this.docs); // will clear docs on return
+                writeToLocalIndexThread.start();
+            }
+            final int added = this.stream.added();
+            this.stream.finish(facets, snippets, numFound);
+            this.event.addExpectedRemoteReferences(-this.count);
+            if (this.localsearch) {
+                Network.log.info("local search (solr): localpeer sent " + added + "/" + numFound + " references");
+            } else {
+                Network.log.info("remote search (solr): peer " + this.target.getName() + " sent " + added + "/" + numFound + " references");
+            }
+            return added;
+        }
+
+        /**
+         * Stop the merge : documents still received after a time-out are ignored.
+         */
+        private void close() {
+            this.stream.close();
+        }
+    }
+
     /**
      * This thread is used to write a collection of Solr documents to a segment allowing to be safely stopped.
      * Indeed, if one interrupt a thread while commiting to Solr index, the index is closed and will be no more writable 
@@ -1628,18 +1784,17 @@ public final class Protocol {
 				}
 				parts.put("lurlEntry", UTF8.StringBody(crypt.simpleEncode(lurlstr, salt)));
 				// send request
-				final HTTPClient httpClient = new HTTPClient(ClientIdentification.yacyInternetCrawlerAgent, 10000);
 				MultiProtocolURL targetBaseURL = target.getPublicMultiprotocolURL(ip, preferHttps);
 				byte[] content;
 				try {
-					content = httpClient.POSTbytes(new MultiProtocolURL(targetBaseURL, "/yacy/crawlReceipt.html"),
-							target.getHexHash() + ".yacyh", parts, false, true);
+					content = postToPeer(new MultiProtocolURL(targetBaseURL, "/yacy/crawlReceipt.html"),
+							target.hash, parts, false, 10000);
 				} catch(final IOException e) {
 					if(targetBaseURL.isHTTPS()) {
 						/* Failed using https : retry with http */
 						targetBaseURL = target.getPublicMultiprotocolURL(ip, false);
-						content = httpClient.POSTbytes(new MultiProtocolURL(targetBaseURL, "/yacy/crawlReceipt.html"),
-								target.getHexHash() + ".yacyh", parts, false, true);
+						content = postToPeer(new MultiProtocolURL(targetBaseURL, "/yacy/crawlReceipt.html"),
+								target.hash, parts, false, 10000);
 						if(content != null) {
 							/* Success with http : mark SSL as unavailable on the target peer */
 							markSSLUnavailableOnPeer(sb.peers, target, ip, "yacyClient.crawlReceipt");
@@ -1849,17 +2004,16 @@ public final class Protocol {
                 parts.put("wordc", UTF8.StringBody(Integer.toString(indexes.size())));
                 parts.put("entryc", UTF8.StringBody(Integer.toString(indexcount)));
                 parts.put("indexes", UTF8.StringBody(entrypost.toString()));
-                final HTTPClient httpClient = new HTTPClient(ClientIdentification.yacyInternetCrawlerAgent, timeout);
                 byte[] content = null;
                 try {
-					content = httpClient.POSTbytes(new MultiProtocolURL(targetBaseURL, "/yacy/transferRWI.html"),
-							targetSeed.getHexHash() + ".yacyh", parts, gzipBody, true);
+					content = postToPeer(new MultiProtocolURL(targetBaseURL, "/yacy/transferRWI.html"),
+							targetSeed.hash, parts, gzipBody, timeout);
                 } catch(final IOException e) {
                     if(targetBaseURL.isHTTPS()) {
                     	targetBaseURL = targetSeed.getPublicMultiprotocolURL(ip, false);
                     	/* Failed with https : retry with http on the same address */
-						content = httpClient.POSTbytes(new MultiProtocolURL(targetBaseURL, "/yacy/transferRWI.html"),
-								targetSeed.getHexHash() + ".yacyh", parts, gzipBody, true);
+						content = postToPeer(new MultiProtocolURL(targetBaseURL, "/yacy/transferRWI.html"),
+								targetSeed.hash, parts, gzipBody, timeout);
 						if(content != null) {
 							/* Success with http : mark SSL as unavailable on the target peer */
             				markSSLUnavailableOnPeer(Switchboard.getSwitchboard().peers, targetSeed, ip, "yacyClient.transferRWI");
@@ -1953,17 +2107,16 @@ public final class Protocol {
                 MultiProtocolURL targetBaseURL = targetSeed.getPublicMultiprotocolURL(ip, preferHttps);
                 
                 parts.put("urlc", UTF8.StringBody(Integer.toString(urlc)));
-                final HTTPClient httpClient = new HTTPClient(ClientIdentification.yacyInternetCrawlerAgent, timeout);
                 byte[] content = null;
                 try {
-					content = httpClient.POSTbytes(new MultiProtocolURL(targetBaseURL, "/yacy/transferURL.html"),
-							targetSeed.getHexHash() + ".yacyh", parts, gzipBody, true);
+					content = postToPeer(new MultiProtocolURL(targetBaseURL, "/yacy/transferURL.html"),
+							targetSeed.hash, parts, gzipBody, timeout);
                 } catch(final IOException e) {
                 	if(targetBaseURL.isHTTPS()) {
                 		targetBaseURL = targetSeed.getPublicMultiprotocolURL(ip, false);
                 		/* Failed with https : retry with http on the same address */
-    					content = httpClient.POSTbytes(new MultiProtocolURL(targetBaseURL, "/yacy/transferURL.html"),
-    							targetSeed.getHexHash() + ".yacyh", parts, gzipBody, true);                		
+    					content = postToPeer(new MultiProtocolURL(targetBaseURL, "/yacy/transferURL.html"),
+    							targetSeed.hash, parts, gzipBody, timeout);
                 	} else {
                 		throw e;
                 	}
@@ -2189,6 +2342,47 @@ public final class Protocol {
         return parts;
     }
 
+    /**
+     * Send a request to a remote peer on a persistent connection of the peer
+     * connection pool, and record the response time or the failure in the
+     * {@link PeerStatistics}.
+     * @param targetURL the URL to request
+     * @param targetHash the hash of the target peer, may be null when unknown
+     * @param parts the request parts
+     * @param usegzip when true, the request body is gzipped
+     * @param timeout the timeout in milliseconds
+     * @return the response body or null when the peer did not respond with a success status
+     * @throws IOException when the request failed
+     */
+    private static byte[] postToPeer(final MultiProtocolURL targetURL, final String targetHash, final Map<String, ContentBody> parts, final boolean usegzip, final int timeout) throws IOException {
+        return postToPeer(targetURL, targetHash, parts, usegzip, timeout, false);
+    }
+
+    /**
+     * @param search when true, the response time is recorded as the response time of a remote search
+     * @see #postToPeer(MultiProtocolURL, String, Map, boolean, int)
+     */
+    private static byte[] postToPeer(final MultiProtocolURL targetURL, final String targetHash, final Map<String, ContentBody> parts, final boolean usegzip, final int timeout, final boolean search) throws IOException {
+        final long start = System.currentTimeMillis();
+        final byte[] content;
+        try {
+            content = PersistentHTTPClient.POSTbytes(targetURL, parts, usegzip, timeout);
+        } catch (final IOException e) {
+            PeerStatistics.failure(targetHash, System.currentTimeMillis() - start);
+            throw e;
+        }
+        if (content == null) {
+            PeerStatistics.failure(targetHash, System.currentTimeMillis() - start);
+        } else {
+            if (search) {
+                PeerStatistics.searchSuccess(targetHash, System.currentTimeMillis() - start);
+            } else {
+                PeerStatistics.success(targetHash, System.currentTimeMillis() - start);
+            }
+        }
+        return content;
+    }
+
     public static String requestPartsToString(Map<String, ContentBody> parts) {
         StringBuilder sb = new StringBuilder();
         for (Map.Entry<String, ContentBody> part: parts.entrySet()) {
@@ -27,7 +27,10 @@ package net.yacy.peers;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.SortedSet;
@@ -53,12 +56,10 @@ import net.yacy.search.query.SecondarySearchSuperviser;
 /**
  * Handle remote YaCy peers selection and search requests on them, targeting either their Solr index or RWI (Reverse Word Index)
  */
-public class RemoteSearch extends Thread {
+public class RemoteSearch extends RemoteSearchScheduler.Task {
 
-    private static final ThreadGroup ysThreadGroup = new ThreadGroup("yacySearchThreadGroup");
     public static final ConcurrentLog log = new ConcurrentLog("DHT");
     
-    final private SearchEvent event;
     final private String wordhashes, excludehashes;
     final private ContentDomain contentdom;
     final private boolean strictContentDom;
@@ -68,7 +69,7 @@ public class RemoteSearch extends Thread {
     
     /** The target peer of this search Thread */
     final private Seed targetPeer;
-    private int urls;
+    private volatile int urls;
     private final int count, maxDistance;
     private final long time;
     final private String language;
@@ -87,8 +88,7 @@ public class RemoteSearch extends Thread {
               final Seed targetPeer,
               final SecondarySearchSuperviser secondarySearchSuperviser,
               final Blacklist blacklist) {
-        super(ysThreadGroup, "yacySearch_" + targetPeer.getName());
-        this.event = event;
+        super(event, "yacySearch_" + targetPeer.getName());
         this.wordhashes = wordhashes;
         this.excludehashes = excludehashes;
         this.language = language;
@@ -104,13 +104,21 @@ public class RemoteSearch extends Thread {
         this.maxDistance = maxDistance;
     }
 
+    /**
+     * @param target another target peer
+     * @return a new, not yet started, search with the same parameters as this one, sent to the given target peer
+     */
+    public RemoteSearch duplicate(final Seed target) {
+        return new RemoteSearch(this.event, this.wordhashes, this.excludehashes, this.language, this.contentdom,
+                this.strictContentDom, this.count, this.time, this.maxDistance, this.partitions, target,
+                this.secondarySearchSuperviser, this.blacklist);
+    }
+
     /**
      * Run a search request on a YaCy peer RWI (Reverse Word Index).
      */
     @Override
-    public void run() {
-        this.event.oneFeederStarted();
-        try {
+    protected void process() throws InterruptedException {
             this.urls = Protocol.primarySearch(
                         this.event,
                         this.wordhashes,
@@ -132,13 +140,6 @@ public class RemoteSearch extends Thread {
             } else {
                 Network.log.info("REMOTE SEARCH - no answer from remote peer " + this.targetPeer.hash + ":" + this.targetPeer.getName());
             }
-        } catch(InterruptedException e) {
-        	Network.log.info("REMOTE SEARCH - interrupted search to remote peer " + this.targetPeer.hash + ":" + this.targetPeer.getName());
-        } catch (final Exception e) {
-            ConcurrentLog.logException(e);
-        } finally {
-            this.event.oneFeederTerminated();
-        }
     }
 
     /**
@@ -153,9 +154,18 @@ public class RemoteSearch extends Thread {
         return wh.toString();
     }
 
+    /**
+     * @return true when the remote peer answered
+     */
+    @Override
+    protected boolean succeeded() {
+        return this.urls >= 0;
+    }
+
     /**
      * @return the target peer of this search Thread
      */
+    @Override
     public Seed target() {
         return this.targetPeer;
     }
@@ -202,6 +212,7 @@ public class RemoteSearch extends Thread {
         // prepare seed targets and threads
         Random random = new Random(System.currentTimeMillis());
         Collection<Seed> dhtPeers = null;
+        final Map<String, List<Seed>> alternates = new HashMap<>();
         if (clusterselection != null) {
             dhtPeers = DHTSelection.selectClusterPeers(event.peers, clusterselection);
         } else {
@@ -227,7 +238,7 @@ public class RemoteSearch extends Thread {
                                 minage,
                                 minRWIWordCount,
                                 redundancy, event.peers.redundancy(),
-                                random);
+                                random, alternates);
                 // this set of peers may be too large and consume too many threads if more than one word is searched.
                 // to prevent overloading, we do a subset collection based on random to prevent the death of the own peer
                 // and to do a distributed load-balancing on the target peers
@@ -279,13 +290,19 @@ public class RemoteSearch extends Thread {
 								SwitchboardConstants.REMOTESEARCH_MAXLOAD_SOLR_DEFAULT)) {
 					continue;
 				}
-                Thread t = solrRemoteSearch(event, solrQuery, start, count, s, targets, blacklist, useFacets, true);
-                event.nodeSearchThreads.add(t);
+                event.nodeSearchThreads.add(RemoteSearchScheduler.execute(
+                        new SolrSearch(event, solrQuery, start, count, s, targets, blacklist, useFacets, true)));
             }
         }
         
         // start search to YaCy DHT peers
         if (!sb.getConfigBool(SwitchboardConstants.DEBUG_SEARCH_REMOTE_DHT_OFF, false)) {
+            // slow peers get a hedged request to another peer of the same DHT partition
+            final boolean hedging = sb.getConfigBool(SwitchboardConstants.REMOTESEARCH_HEDGING, SwitchboardConstants.REMOTESEARCH_HEDGING_DEFAULT);
+            final RemoteSearchScheduler.HedgeBudget hedgeBudget = new RemoteSearchScheduler.HedgeBudget(Math.max(1, dhtPeers.size() / 4));
+            for (Seed dhtPeer: dhtPeers) {
+                if (dhtPeer != null && dhtPeer.hash != null) hedgeBudget.requested(dhtPeer.hash);
+            }
             for (Seed dhtPeer: dhtPeers) {
                 if (dhtPeer == null || dhtPeer.hash == null) continue;
 				if (MemoryControl.shortStatus()
@@ -308,8 +325,8 @@ public class RemoteSearch extends Thread {
                         dhtPeer,
                         event.secondarySearchSuperviser,
                         blacklist);
-                    rs.start();
-                    event.primarySearchThreadsL.add(rs);
+                    event.primarySearchThreadsL.add(RemoteSearchScheduler.execute(rs));
+                    if (hedging) RemoteSearchScheduler.hedge(rs, rs::duplicate, alternates.get(dhtPeer.hash), hedgeBudget, time, event.primarySearchThreadsL);
                 } catch (final OutOfMemoryError e) {
                     ConcurrentLog.logException(e);
                     break;
@@ -318,7 +335,7 @@ public class RemoteSearch extends Thread {
         }
     }
 
-    public static Thread secondaryRemoteSearch(
+    public static RemoteSearchScheduler.Task secondaryRemoteSearch(
     		final SearchEvent event,
             final Set<String> wordhashes,
             final String urlhashes,
@@ -334,11 +351,9 @@ public class RemoteSearch extends Thread {
         // prepare seed targets and threads
         final Seed targetPeer = event.peers.getConnected(targethash);
         if (targetPeer == null || targetPeer.hash == null) return null;
-        Thread secondary = new Thread("RemoteSearch.secondaryRemoteSearch(" + wordhashes + " to " + targethash + ")") {
+        final RemoteSearchScheduler.Task secondary = new RemoteSearchScheduler.Task(event, "RemoteSearch.secondaryRemoteSearch(" + wordhashes + " to " + targethash + ")") {
             @Override
-            public void run() {
-                event.oneFeederStarted();
-                try {
+            protected void process() throws InterruptedException {
                     int urls = Protocol.secondarySearch(
                                 event,
                                 QueryParams.hashSet2hashString(wordhashes),
@@ -359,17 +374,9 @@ public class RemoteSearch extends Thread {
                     } else {
                         Network.log.info("REMOTE SEARCH - no answer from remote peer " + targetPeer.hash + ":" + targetPeer.getName());
                     }
-                } catch (final InterruptedException e) {
-                	Network.log.info("REMOTE SEARCH - interrupted search to remote peer " + targetPeer.hash + ":" + targetPeer.getName());
-                } catch (final Exception e) {
-                    ConcurrentLog.logException(e);
-                } finally {
-                    event.oneFeederTerminated();
-                }
             }
         };
-        secondary.start();
-        return secondary;
+        return RemoteSearchScheduler.execute(secondary);
     }
 
     /**
@@ -402,33 +409,15 @@ public class RemoteSearch extends Thread {
         // check own peer status
         if (event.peers.mySeed() == null) { return null; }
         // prepare threads
-        Thread solr = new Thread("RemoteSearch.solrRemoteSearch(" + solrQuery.getQuery() + " to " + (targetPeer == null ? "myself" : targetPeer.hash) + ")") {
+        final SolrSearch search = new SolrSearch(event, solrQuery, start, count, targetPeer, partitions, blacklist, useSolrFacets, incrementNavigators);
+        Thread solr = new Thread(search.toString()) {
             @Override
             public void run() {
-                    int urls = 0;
                     try {
                         event.oneFeederStarted();
-                        urls = Protocol.solrQuery(
-                                        event,
-                                        solrQuery,
-                                        start,
-                                        count,
-                                        targetPeer == null ? event.peers.mySeed() : targetPeer,
-                                        partitions,
-                                        blacklist,
-                                        useSolrFacets,
-                                        incrementNavigators);
-                        if (urls >= 0) {
-                            // urls is an array of url hashes. this is only used for log output
-                            event.peers.mySeed().incRI(urls);
-                            event.peers.mySeed().incRU(urls);
-                        } else {
-                            if (targetPeer != null) {
-                                Network.log.info("REMOTE SEARCH - no answer from remote peer " + targetPeer.hash + ":" + targetPeer.getName());
-                            }
-                        }
+                        search.process();
                     } catch (final InterruptedException e) {
-                    	Network.log.info("REMOTE SEARCH - interrupted search to remote peer " + targetPeer.hash + ":" + targetPeer.getName());
+                    	Network.log.info("REMOTE SEARCH - interrupted search to remote peer " + (targetPeer == null ? "myself" : targetPeer.hash + ":" + targetPeer.getName()));
                     } catch (final Exception e) {
                         ConcurrentLog.logException(e);
                     } finally {
@@ -440,6 +429,62 @@ public class RemoteSearch extends Thread {
         return solr;
     }
 
+    /**
+     * A Solr query on a remote peer, or on this peer when the target is null
+     */
+    private static class SolrSearch extends RemoteSearchScheduler.Task {
+
+        private final SolrQuery solrQuery;
+        private final int start, count, partitions;
+        private final Seed targetPeer;
+        private final Blacklist blacklist;
+        private final boolean useSolrFacets, incrementNavigators;
+
+        private SolrSearch(
+                final SearchEvent event,
+                final SolrQuery solrQuery,
+                final int start,
+                final int count,
+                final Seed targetPeer,
+                final int partitions,
+                final Blacklist blacklist,
+                final boolean useSolrFacets,
+                final boolean incrementNavigators) {
+            super(event, "RemoteSearch.solrRemoteSearch(" + solrQuery.getQuery() + " to " + (targetPeer == null ? "myself" : targetPeer.hash) + ")");
+            this.solrQuery = solrQuery;
+            this.start = start;
+            this.count = count;
+            this.targetPeer = targetPeer;
+            this.partitions = partitions;
+            this.blacklist = blacklist;
+            this.useSolrFacets = useSolrFacets;
+            this.incrementNavigators = incrementNavigators;
+        }
+
+        @Override
+        protected void process() throws InterruptedException {
+            final int urls = Protocol.solrQuery(
+                            this.event,
+                            this.solrQuery,
+                            this.start,
+                            this.count,
+                            this.targetPeer == null ? this.event.peers.mySeed() : this.targetPeer,
+                            this.partitions,
+                            this.blacklist,
+                            this.useSolrFacets,
+                            this.incrementNavigators);
+            if (urls >= 0) {
+                // urls is an array of url hashes. this is only used for log output
+                this.event.peers.mySeed().incRI(urls);
+                this.event.peers.mySeed().incRU(urls);
+            } else {
+                if (this.targetPeer != null) {
+                    Network.log.info("REMOTE SEARCH - no answer from remote peer " + this.targetPeer.hash + ":" + this.targetPeer.getName());
+                }
+            }
+        }
+    }
+
     public static int remainingWaiting(final RemoteSearch[] searchThreads) {
         if (searchThreads == null) return 0;
         int alive = 0;
@@ -0,0 +1,373 @@
+// RemoteSearchScheduler.java
+// -------------------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.peers;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
+import net.yacy.search.query.SearchEvent;
+
+/**
+ * Runs the requests to remote peers of the search events on a shared, bounded
+ * thread pool instead of starting one thread per target peer, and sends hedged
+ * requests: when a peer is slower than usual (above the 90th percentile of its
+ * response times recorded in the {@link PeerStatistics}), the same request is
+ * sent to another peer of the same DHT partition. The delay of a hedged request
+ * starts when the primary request is sent, not while it is waiting for a free
+ * thread, and the number of waiting requests is bounded.
+ */
+public final class RemoteSearchScheduler {
+
+    /** default maximum number of concurrently running remote peer requests */
+    public static final int DEFAULT_MAX_THREADS = 64;
+
+    /** maximum number of remote peer requests waiting for a free thread; further requests are not sent */
+    public static final int MAX_QUEUED = 1024;
+
+    /** minimum time in milliseconds before a hedged request is sent */
+    private static final long HEDGE_MIN_DELAY = 300;
+
+    /** time in milliseconds before a hedged request is sent when no statistics are known for the target peer */
+    private static final long HEDGE_DEFAULT_DELAY = 2000;
+
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_MAX_THREADS, DEFAULT_MAX_THREADS,
+            30L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(MAX_QUEUED),
+            new NamePrefixThreadFactory(RemoteSearchScheduler.class.getSimpleName()));
+
+    private static final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1,
+            new NamePrefixThreadFactory(RemoteSearchScheduler.class.getSimpleName() + ".hedge"));
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    private RemoteSearchScheduler() {
+        // static use only
+    }
+
+    /**
+     * The counter of the running sources of results of a search event
+     */
+    public interface Feeders {
+
+        /** signal that a source of results was started */
+        void oneFeederStarted();
+
+        /** signal that a source of results was terminated */
+        void oneFeederTerminated();
+
+        /** @return true when all sources of results are terminated */
+        boolean isFeedingFinished();
+    }
+
+    /**
+     * A request to a remote peer, run by the scheduler. The task is counted as a
+     * feeder of its search event from its submission until its termination.
+     */
+    public static abstract class Task implements Runnable {
+
+        protected final SearchEvent event;
+        private final Feeders feeders;
+        private final String name;
+        private final AtomicBoolean feeding = new AtomicBoolean(false);
+        private final AtomicBoolean running = new AtomicBoolean(false);
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private volatile boolean alive = true;
+        private volatile long started = 0; // the time when the request was sent, 0 while it is queued
+        private volatile Future<?> future = null;
+        private volatile Task rival = null; // the other request of a hedged pair, cancelled when this one succeeds
+
+        protected Task(final SearchEvent event, final String name) {
+            this(event, event, name);
+        }
+
+        Task(final SearchEvent event, final Feeders feeders, final String name) {
+            this.event = event;
+            this.feeders = feeders;
+            this.name = name;
+        }
+
+        /**
+         * the request to the remote peer
+         * @throws InterruptedException when the task was interrupted
+         */
+        protected abstract void process() throws InterruptedException;
+
+        /**
+         * @return true when the request terminated with an answer of the remote peer; then the other request of a hedged pair is cancelled
+         */
+        protected boolean succeeded() {
+            return true;
+        }
+
+        /**
+         * @return the target peer of the request, or null if it is not a single peer
+         */
+        public Seed target() {
+            return null;
+        }
+
+        @Override
+        public final void run() {
+            if (!this.running.compareAndSet(false, true)) return;
+            final Thread current = Thread.currentThread();
+            final String initialThreadName = current.getName();
+            current.setName(this.name);
+            this.started = System.currentTimeMillis();
+            try {
+                if (this.alive) {
+                    process();
+                    final Task r = this.rival;
+                    if (r != null && r.isAlive() && succeeded()) {
+                        Network.log.info("REMOTE SEARCH - " + this.name + " answered first, cancelling " + r.name);
+                        r.interrupt();
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Network.log.info("REMOTE SEARCH - interrupted " + this.name);
+            } catch (final Exception e) {
+                ConcurrentLog.logException(e);
+            } finally {
+                current.setName(initialThreadName);
+                terminate();
+                // clear the interrupted state before the pool thread is reused
+                Thread.interrupted();
+            }
+        }
+
+        private void terminate() {
+            this.alive = false;
+            if (this.feeding.compareAndSet(true, false)) this.feeders.oneFeederTerminated();
+            this.terminated.countDown();
+        }
+
+        /**
+         * @return true when the task is queued or running
+         */
+        public boolean isAlive() {
+            return this.alive;
+        }
+
+        /**
+         * @return the time when the request was sent, or 0 while the task is queued
+         */
+        long startTime() {
+            return this.started;
+        }
+
+        /**
+         * Cancel the task : a running request is interrupted, a queued request is not sent.
+         */
+        public void interrupt() {
+            final Future<?> f = this.future;
+            if (f != null) f.cancel(true);
+            if (this.running.compareAndSet(false, true)) terminate(); // never started
+        }
+
+        /**
+         * wait for the termination of the task
+         * @param millis the maximum time to wait in milliseconds
+         * @throws InterruptedException when the current thread was interrupted while waiting
+         */
+        public void join(final long millis) throws InterruptedException {
+            this.terminated.await(millis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return this.name;
+        }
+    }
+
+    /**
+     * Submit a task to the shared pool of remote requests
+     * @param task the task to run
+     * @return the task
+     */
+    public static <T extends Task> T execute(final T task) {
+        final Task t = task;
+        t.feeding.set(true);
+        t.feeders.oneFeederStarted();
+        try {
+            t.future = executor.submit(t);
+        } catch (final RejectedExecutionException e) {
+            // the pool was shut down or too many requests are waiting
+            if (!executor.isShutdown()) Network.log.warn("REMOTE SEARCH - too many queued requests, not sending " + t.name);
+            t.running.set(true);
+            t.terminate();
+        }
+        return task;
+    }
+
+    /**
+     * Set the maximum number of concurrently running remote requests
+     * @param maxThreads the new maximum, must be greater than zero
+     */
+    public static void setMaxThreads(final int maxThreads) {
+        if (maxThreads <= 0) throw new IllegalArgumentException("maxThreads must be greater than zero");
+        if (maxThreads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(maxThreads);
+            executor.setCorePoolSize(maxThreads);
+        } else {
+            executor.setCorePoolSize(maxThreads);
+            executor.setMaximumPoolSize(maxThreads);
+        }
+    }
+
+    /**
+     * @return the number of remote requests currently running
+     */
+    public static int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * @return the number of remote requests waiting for a free thread
+     */
+    public static int queueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * stop the scheduler on shutdown
+     */
+    public static void shutdown() {
+        timer.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param peerHash the hash of a target peer
+     * @param maxDelay the maximum delay in milliseconds
+     * @return the time in milliseconds after which a hedged request should be sent when the peer did not respond yet
+     */
+    public static long hedgeDelay(final String peerHash, final long maxDelay) {
+        long delay = PeerStatistics.searchLatencyP90(peerHash);
+        if (delay < 0) delay = HEDGE_DEFAULT_DELAY;
+        return Math.max(HEDGE_MIN_DELAY, Math.min(delay, Math.max(HEDGE_MIN_DELAY, maxDelay)));
+    }
+
+    /**
+     * Remote peers already requested by the primary remote searches of a search
+     * event and the remaining number of hedged requests allowed for the event.
+     */
+    public static class HedgeBudget {
+        private final Set<String> requested = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger remaining;
+
+        /**
+         * @param maxHedges the maximum number of hedged requests
+         */
+        public HedgeBudget(final int maxHedges) {
+            this.remaining = new AtomicInteger(maxHedges);
+        }
+
+        /**
+         * mark a peer as requested
+         * @param peerHash the hash of the requested peer
+         */
+        public void requested(final String peerHash) {
+            this.requested.add(peerHash);
+        }
+
+        /**
+         * select a peer for a hedged request
+         * @param alternates candidate peers
+         * @return one of the candidates which was not requested yet, or null when none is available or the budget is exhausted
+         */
+        private Seed take(final Collection<Seed> alternates) {
+            for (final Seed alternate : alternates) {
+                if (alternate == null || alternate.hash == null) continue;
+                if (PeerStatistics.isUnreliable(alternate.hash)) continue;
+                if (!this.requested.add(alternate.hash)) continue;
+                if (this.remaining.getAndDecrement() > 0) return alternate;
+                this.requested.remove(alternate.hash);
+                return null;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Schedule a hedged request : when the primary search is still running after
+     * the 90th percentile of the search response times of its target peer, the same
+     * search is sent to one of the alternate peers of the same DHT partition.
+     * The time the primary search waits in the queue of the pool is not counted,
+     * so that no hedged request is sent for a search which was not sent yet.
+     * The request which answers first cancels the other one.
+     * @param primary the primary search, already submitted
+     * @param duplicate creates a new, not yet started, search with the parameters of the primary search to another peer
+     * @param alternates the other peers of the same DHT partition, may be null
+     * @param budget the hedged requests budget of the search event
+     * @param maxDelay the maximum delay in milliseconds before the hedged request is sent
+     * @param hedges the collection where the started hedged searches are added
+     */
+    public static <T extends Task> void hedge(final T primary, final Function<Seed, T> duplicate, final List<Seed> alternates, final HedgeBudget budget, final long maxDelay, final Collection<T> hedges) {
+        if (alternates == null || alternates.isEmpty() || primary.target() == null) return;
+        final long delay = hedgeDelay(primary.target().hash, maxDelay);
+        scheduleHedge(primary, duplicate, alternates, budget, delay, delay, hedges);
+    }
+
+    /**
+     * check the primary search after a given time and send the hedged request when the primary search was sent
+     * since the hedge delay and is still running; check again later when it was sent more recently or is still queued
+     */
+    private static <T extends Task> void scheduleHedge(final T primary, final Function<Seed, T> duplicate, final List<Seed> alternates, final HedgeBudget budget, final long delay, final long wait, final Collection<T> hedges) {
+        try {
+            timer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    final Task p = primary; // the private fields are not accessible through the type variable
+                    if (!p.isAlive() || p.feeders.isFeedingFinished()) return;
+                    final long started = primary.startTime();
+                    final long elapsed = started == 0 ? 0 : System.currentTimeMillis() - started;
+                    if (elapsed < delay) {
+                        scheduleHedge(primary, duplicate, alternates, budget, delay, delay - elapsed, hedges);
+                        return;
+                    }
+                    final Seed alternate = budget.take(alternates);
+                    if (alternate == null) return;
+                    Network.log.info("REMOTE SEARCH - peer " + primary.target().getName() + " did not respond after " + delay
+                            + " ms, sending hedged request to peer " + alternate.getName());
+                    final T hedge = duplicate.apply(alternate);
+                    ((Task) hedge).rival = p;
+                    p.rival = hedge;
+                    hedges.add(execute(hedge));
+                }
+            }, wait, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            // the timer was shut down
+        }
+    }
+}
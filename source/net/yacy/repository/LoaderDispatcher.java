@@ -26,9 +26,9 @@
 
 package net.yacy.repository;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.util.Arrays;
 import java.util.Date;
@@ -293,6 +293,24 @@ public final class LoaderDispatcher {
      */
 	private Response loadFromCache(final Request request, CacheStrategy cacheStrategy, ClientIdentification.Agent agent,
 			final DigestURL url, final CrawlProfile crawlProfile) throws IOException {
+		final StreamResponse cached = openFromCache(request, cacheStrategy, agent, url, crawlProfile, false);
+		return cached == null ? null : cached.getResponse();
+	}
+
+    /**
+     * Try opening requested resource from cache according to cache strategy
+     * @param request request to resource
+     * @param cacheStrategy cache strategy to use
+     * @param agent agent identifier
+     * @param url resource url
+     * @param crawlProfile crawl profile
+     * @param stream when true, the content is returned as a stream reading the cache entry piece by piece,
+     *        otherwise the content is read at once and set to the response
+     * @return a response when resource could be loaded from cache, or null.
+     * @throws IOException when an error occured
+     */
+	private StreamResponse openFromCache(final Request request, CacheStrategy cacheStrategy, ClientIdentification.Agent agent,
+			final DigestURL url, final CrawlProfile crawlProfile, final boolean stream) throws IOException {
 		Response response = null;
 		if (cacheStrategy != CacheStrategy.NOCACHE && crawlProfile != null) {
             // we have passed a first test if caching is allowed
@@ -320,32 +338,48 @@ public final class LoaderDispatcher {
                 // check which caching strategy shall be used
                 if (cacheStrategy == CacheStrategy.IFEXIST || cacheStrategy == CacheStrategy.CACHEONLY) {
                     // well, just take the cache and don't care about freshness of the content
-                    final byte[] content = Cache.getContent(url.hash());
-                    if (content != null) {
+                    final StreamResponse cached = cachedContent(response, url, stream);
+                    if (cached != null) {
                         LoaderDispatcher.log.info("cache hit/useall for: " + url.toNormalform(true));
-                        response.setContent(content);
-                        return response;
+                        return cached;
                     }
                 }
 
                 // now the cacheStrategy must be CACHE_STRATEGY_IFFRESH, that means we should do a proxy freshness test
                 //assert cacheStrategy == CacheStrategy.IFFRESH : "cacheStrategy = " + cacheStrategy;
                 if (response.isFreshForProxy()) {
-                    final byte[] content = Cache.getContent(url.hash());
-                    if (content != null) {
+                    final StreamResponse cached = cachedContent(response, url, stream);
+                    if (cached != null) {
                         LoaderDispatcher.log.info("cache hit/fresh for: " + url.toNormalform(true));
-                        response.setContent(content);
-                        return response;
+                        return cached;
                     }
                 }
                 LoaderDispatcher.log.info("cache hit/stale for: " + url.toNormalform(true));
                 /* Cached content can not be used : we return a null response to ensure callers will detect no cache response is available */
-                response = null;
             } else if (cachedResponse != null) {
                 LoaderDispatcher.log.warn("HTCACHE contained response header, but not content for url " + url.toNormalform(true));
             }
         }
-		return response;
+		return null;
+	}
+
+	/**
+	 * @param response the response created from the cached response header
+	 * @param url resource url
+	 * @param stream when true, open a stream on the cached content, otherwise read the content into the response
+	 * @return the response with its content or null when the content is not in the cache
+	 */
+	private static StreamResponse cachedContent(final Response response, final DigestURL url, final boolean stream) {
+		if (stream) {
+			final InputStream content = Cache.getContentStream(url.hash());
+			return content == null ? null : new StreamResponse(response, content);
+		}
+		final byte[] content = Cache.getContent(url.hash());
+		if (content == null) {
+			return null;
+		}
+		response.setContent(content);
+		return new StreamResponse(response, null);
 	}
     
     /**
@@ -373,9 +407,9 @@ public final class LoaderDispatcher {
         }
         
         // check if we have the page in the cache
-        Response cachedResponse = loadFromCache(request, cacheStrategy, agent, url, crawlProfile);
+        final StreamResponse cachedResponse = openFromCache(request, cacheStrategy, agent, url, crawlProfile, true);
 		if (cachedResponse != null) {
-			return new StreamResponse(cachedResponse, new ByteArrayInputStream(cachedResponse.getContent()));
+			return cachedResponse;
 		}
 
         // check case where we want results from the cache exclusively, and never from the Internet (offline mode)
@@ -0,0 +1,176 @@
+// IndexingLanes.java
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.yacy.kelondro.workflow.LatencyHistogram;
+import net.yacy.kelondro.workflow.WorkflowProcessor;
+import net.yacy.kelondro.workflow.WorkflowTask;
+
+/**
+ * The parsing step of the indexing queue, divided into lanes for documents of different parsing cost.
+ * Cheap documents like html pages, feeds and plain texts are not blocked by expensive pdf, office or archive
+ * documents, because each lane has its own queue and its own parser threads with an own priority.
+ * All lanes pass their results to the same condenser, so the lanes merge in the following indexing steps.
+ * The latency from putting an entry into a lane until the document is stored is counted for each lane.
+ */
+public class IndexingLanes {
+
+    /**
+     * the classes of parsing cost; the ordinal is the index of the lane
+     */
+    public enum CostClass {
+        FAST("html pages, feeds and texts up to the fast size limit"),
+        DEFAULT("documents of other types and documents of unknown size"),
+        HEAVY("pdf, office and archive documents and all documents from the heavy size limit on");
+
+        public final String description;
+
+        private CostClass(final String description) {
+            this.description = description;
+        }
+
+        /**
+         * @return the name of the lane, as used in its configuration keys
+         */
+        public String laneName() {
+            return name().toLowerCase();
+        }
+    }
+
+    /** mime types which are parsed fast if the document is small */
+    private static final Set<String> FAST_MIME = new HashSet<String>(Arrays.asList(
+            "application/xhtml+xml", "application/rss+xml", "application/atom+xml", "application/xml", "application/json"));
+
+    /** mime type prefixes of documents which are expensive to parse */
+    private static final String[] HEAVY_MIME_PREFIXES = new String[] {
+            "application/pdf", "application/postscript", "application/msword", "application/vnd.ms-",
+            "application/vnd.openxmlformats-officedocument.", "application/vnd.oasis.opendocument.", "application/vnd.visio",
+            "application/zip", "application/x-zip", "application/gzip", "application/x-gzip", "application/x-tar",
+            "application/x-7z-compressed", "application/x-bzip2", "application/x-xz"};
+
+    /**
+     * a lane of the parsing step
+     */
+    public static final class Lane {
+        public final CostClass costClass;
+        public final WorkflowProcessor<IndexingQueueEntry> processor;
+        public final LatencyHistogram latency;
+
+        private Lane(final CostClass costClass, final WorkflowProcessor<IndexingQueueEntry> processor) {
+            this.costClass = costClass;
+            this.processor = processor;
+            this.latency = new LatencyHistogram();
+        }
+    }
+
+    private final Lane[] lanes;
+    private final long fastMaxSize, heavyMinSize;
+
+    /**
+     * @param task the parsing task
+     * @param output the next step of all lanes
+     * @param inputQueueSize the size of the queue of each lane
+     * @param concurrency the maximum number of parser threads of each lane, in the order of the cost classes
+     * @param priority the thread priority of each lane, in the order of the cost classes
+     * @param fastMaxSize the maximum size in bytes of documents in the fast lane
+     * @param heavyMinSize the minimum size in bytes of documents which are put in the heavy lane regardless of their type
+     */
+    public IndexingLanes(final WorkflowTask<IndexingQueueEntry> task, final WorkflowProcessor<IndexingQueueEntry> output,
+            final int inputQueueSize, final int[] concurrency, final int[] priority, final long fastMaxSize, final long heavyMinSize) {
+        final CostClass[] classes = CostClass.values();
+        this.lanes = new Lane[classes.length];
+        for (final CostClass c: classes) {
+            this.lanes[c.ordinal()] = new Lane(c, new WorkflowProcessor<IndexingQueueEntry>(
+                    "parseDocument." + c.laneName(),
+                    "This does the parsing of the newly loaded documents from the web in the lane for " + c.description + ". The result is not only a plain text document, but also a list of URLs that are embedded into the document. The urls are handed over to the CrawlStacker. This process has two child process queues!",
+                    new String[] {
+                        "condenseDocument", "CrawlStacker"
+                    },
+                    task,
+                    inputQueueSize,
+                    output,
+                    Math.max(1, concurrency[c.ordinal()]),
+                    priority[c.ordinal()]));
+        }
+        this.fastMaxSize = fastMaxSize;
+        this.heavyMinSize = heavyMinSize;
+    }
+
+    /**
+     * find the cost class of a document
+     * @param mime the mime type of the document, may be null if unknown
+     * @param size the size of the document in bytes, -1 if unknown
+     */
+    public CostClass costClass(final String mime, final long size) {
+        if (size >= this.heavyMinSize) return CostClass.HEAVY;
+        if (mime == null) return CostClass.DEFAULT;
+        for (final String prefix: HEAVY_MIME_PREFIXES) {
+            if (mime.startsWith(prefix)) return CostClass.HEAVY;
+        }
+        if ((mime.startsWith("text/") || FAST_MIME.contains(mime)) && size >= 0 && size <= this.fastMaxSize) return CostClass.FAST;
+        return CostClass.DEFAULT;
+    }
+
+    /**
+     * put an entry into the lane of its cost class
+     */
+    public void enQueue(final IndexingQueueEntry in) {
+        final CostClass c = in.queueEntry == null ? CostClass.DEFAULT : costClass(in.queueEntry.getMimeType(), in.queueEntry.size());
+        in.lane = c.ordinal();
+        in.enqueueTime = System.currentTimeMillis();
+        this.lanes[c.ordinal()].processor.enQueue(in);
+    }
+
+    /**
+     * count the latency of an entry which finished the indexing
+     */
+    public void finished(final IndexingQueueEntry in) {
+        if (in.lane < 0 || in.lane >= this.lanes.length) return;
+        this.lanes[in.lane].latency.add(System.currentTimeMillis() - in.enqueueTime);
+    }
+
+    /**
+     * @return the number of entries in the queues of all lanes
+     */
+    public int getQueueSize() {
+        int size = 0;
+        for (final Lane lane: this.lanes) size += lane.processor.getQueueSize();
+        return size;
+    }
+
+    /**
+     * @return the lanes in the order of the cost classes
+     */
+    public List<Lane> getLanes() {
+        return Collections.unmodifiableList(Arrays.asList(this.lanes));
+    }
+
+    public void shutdown() {
+        for (final Lane lane: this.lanes) lane.processor.shutdown();
+    }
+}
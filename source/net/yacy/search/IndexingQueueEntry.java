@@ -31,6 +31,8 @@ public class IndexingQueueEntry extends WorkflowJob {
     public Response queueEntry;
     public Document[] documents;
     public Condenser[] condenser;
+    public int lane = -1; // the indexing lane which parsed the entry, -1 if the entry was not put into a lane
+    public long enqueueTime = 0; // the time when the entry was put into its lane
 
     public IndexingQueueEntry(final Response queueEntry, final Document[] documents, final Condenser[] condenser) {
         super();
@@ -38,4 +40,13 @@ public class IndexingQueueEntry extends WorkflowJob {
         this.documents = documents;
         this.condenser = condenser;
     }
+
+    /**
+     * create the entry for the next indexing step, which keeps the lane and the enqueue time of the previous entry
+     */
+    public IndexingQueueEntry(final IndexingQueueEntry previous, final Document[] documents, final Condenser[] condenser) {
+        this(previous.queueEntry, documents, condenser);
+        this.lane = previous.lane;
+        this.enqueueTime = previous.enqueueTime;
+    }
 }
@@ -56,6 +56,7 @@ import java.net.MalformedURLException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
@@ -133,6 +134,7 @@ import net.yacy.cora.federate.solr.FailCategory;
 import net.yacy.cora.federate.solr.Ranking;
 import net.yacy.cora.federate.solr.SolrType;
 import net.yacy.cora.federate.solr.connector.ShardSelection;
+import net.yacy.cora.federate.solr.connector.SolrQueryResultCache;
 import net.yacy.cora.federate.solr.instance.EmbeddedInstance;
 import net.yacy.cora.federate.solr.instance.RemoteInstance;
 import net.yacy.cora.federate.yacy.CacheStrategy;
@@ -148,6 +150,7 @@ import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.protocol.Scanner;
 import net.yacy.cora.protocol.TimeoutRequest;
 import net.yacy.cora.protocol.http.HTTPClient;
+import net.yacy.cora.protocol.http.PersistentHTTPClient;
 import net.yacy.cora.protocol.http.ProxySettings;
 import net.yacy.cora.util.CommonPattern;
 import net.yacy.cora.util.ConcurrentLog;
@@ -181,11 +184,14 @@ import net.yacy.data.wiki.WikiBoard;
 import net.yacy.data.wiki.WikiCode;
 import net.yacy.data.wiki.WikiParser;
 import net.yacy.data.ymark.YMarkTables;
+import net.yacy.document.ArchiveMembers;
 import net.yacy.document.Condenser;
 import net.yacy.document.Document;
 import net.yacy.document.LibraryProvider;
 import net.yacy.document.Parser;
 import net.yacy.document.Parser.Failure;
+import net.yacy.document.ParsedDocumentCache;
+import net.yacy.document.ParserSandbox;
 import net.yacy.document.ProbabilisticClassifier;
 import net.yacy.document.TextParser;
 import net.yacy.document.Tokenizer;
@@ -213,6 +219,7 @@ import net.yacy.kelondro.util.FileUtils;
 import net.yacy.kelondro.util.MemoryControl;
 import net.yacy.kelondro.util.OS;
 import net.yacy.kelondro.util.SetTools;
+import net.yacy.kelondro.util.StartupLoader;
 import net.yacy.kelondro.workflow.BusyThread;
 import net.yacy.kelondro.workflow.InstantBusyThread;
 import net.yacy.kelondro.workflow.OneTimeBusyThread;
@@ -225,6 +232,7 @@ import net.yacy.peers.EventChannel;
 import net.yacy.peers.Network;
 import net.yacy.peers.NewsPool;
 import net.yacy.peers.Protocol;
+import net.yacy.peers.RemoteSearchScheduler;
 import net.yacy.peers.Seed;
 import net.yacy.peers.SeedDB;
 import net.yacy.peers.graphics.NetworkGraph;
@@ -264,6 +272,10 @@ public final class Switchboard extends serverSwitch {
     public final static String SOLR_COLLECTION_CONFIGURATION_NAME = "solr.collection.schema";
     public final static String SOLR_WEBGRAPH_CONFIGURATION_NAME = "solr.webgraph.schema";
 
+    // names of the stores opened by the start-up loader
+    private final static String STORE_RWI = "RWI";
+    private final static String STORE_CITATION = "citation";
+
     public static long lastPPMUpdate = System.currentTimeMillis() - 30000;
     private static final int dhtMaxContainerCount = 500;
     private int dhtMaxReferenceCount = 1000;
@@ -318,10 +330,11 @@ public final class Switchboard extends serverSwitch {
     public Set<String> localcluster_scan;
     public HazelcastInstance localcluster_hazelcast;
     public WorkTables tables;
+    public StartupLoader startupLoader;
     public Tray tray;
     private long lastStats = 0; // time when the last row was written to the stats table
 
-    public WorkflowProcessor<IndexingQueueEntry> indexingDocumentProcessor;
+    public IndexingLanes indexingDocumentProcessor;
     public WorkflowProcessor<IndexingQueueEntry> indexingCondensementProcessor;
     public WorkflowProcessor<IndexingQueueEntry> indexingAnalysisProcessor;
     public WorkflowProcessor<IndexingQueueEntry> indexingStorageProcessor;
@@ -501,6 +514,36 @@ public final class Switchboard extends serverSwitch {
         /* Init outgoing connections pools with user defined settings */
         initOutgoingConnectionPools();
 
+        /* Init the shared pool of remote search requests */
+        int remoteSearchThreadsMax = getConfigInt(SwitchboardConstants.REMOTESEARCH_THREADS_MAX,
+                SwitchboardConstants.REMOTESEARCH_THREADS_MAX_DEFAULT);
+        if (remoteSearchThreadsMax <= 0) {
+            /* Fix eventually wrong value from the config file */
+            remoteSearchThreadsMax = SwitchboardConstants.REMOTESEARCH_THREADS_MAX_DEFAULT;
+            setConfig(SwitchboardConstants.REMOTESEARCH_THREADS_MAX, remoteSearchThreadsMax);
+        }
+        RemoteSearchScheduler.setMaxThreads(remoteSearchThreadsMax);
+
+        /* Init the cache of the local Solr query results */
+        int solrResultCacheMaxSize = getConfigInt(SwitchboardConstants.SEARCH_SOLR_RESULTCACHE_MAXSIZE,
+                SwitchboardConstants.SEARCH_SOLR_RESULTCACHE_MAXSIZE_DEFAULT);
+        if (solrResultCacheMaxSize < 0) {
+            /* Fix eventually wrong value from the config file */
+            solrResultCacheMaxSize = SwitchboardConstants.SEARCH_SOLR_RESULTCACHE_MAXSIZE_DEFAULT;
+            setConfig(SwitchboardConstants.SEARCH_SOLR_RESULTCACHE_MAXSIZE, solrResultCacheMaxSize);
+        }
+        SolrQueryResultCache.setMaxBytes(solrResultCacheMaxSize * 1024L * 1024L);
+
+        /* Init the loader opening the independent stores in parallel */
+        int startupLoaderThreads = getConfigInt(SwitchboardConstants.STARTUP_LOADER_THREADS,
+                SwitchboardConstants.STARTUP_LOADER_THREADS_DEFAULT);
+        if (startupLoaderThreads <= 0) {
+            /* Fix eventually wrong value from the config file */
+            startupLoaderThreads = SwitchboardConstants.STARTUP_LOADER_THREADS_DEFAULT;
+            setConfig(SwitchboardConstants.STARTUP_LOADER_THREADS, startupLoaderThreads);
+        }
+        this.startupLoader = new StartupLoader("Switchboard.startupLoader", startupLoaderThreads);
+
         // load the network definition
         try {
             overwriteNetworkDefinition(getSysinfo());
@@ -598,18 +641,27 @@ public final class Switchboard extends serverSwitch {
         // initialize index
         ReferenceContainer.maxReferences = getConfigInt("index.maxReferences", 0);
         final File segmentsPath = new File(new File(indexPath, networkName), "SEGMENTS");
-        try {this.index = new Segment(this.log, segmentsPath, archivePath, solrCollectionConfigurationWork, solrWebgraphConfigurationWork);} catch (IOException e) {ConcurrentLog.logException(e);}
-        if (this.getConfigBool(SwitchboardConstants.CORE_SERVICE_RWI, true)) try {
-            this.index.connectRWI(wordCacheMaxCount, fileSizeMax);
-        } catch (final IOException e) {ConcurrentLog.logException(e);}
-        if (this.getConfigBool(SwitchboardConstants.CORE_SERVICE_CITATION, true)) try {
-            this.index.connectCitation(wordCacheMaxCount, fileSizeMax);
-        } catch (final IOException e) {ConcurrentLog.logException(e);}
+        try {this.index = new Segment(this.log, segmentsPath, archivePath, solrCollectionConfigurationWork, solrWebgraphConfigurationWork,
+                this.getConfigBool(SwitchboardConstants.INDEX_DISKINDEX, SwitchboardConstants.INDEX_DISKINDEX_DEFAULT));} catch (IOException e) {ConcurrentLog.logException(e);}
+        // the RWI and citation cells read the fingerprint dumps of all their heaps: this is done in the background,
+        // the index is used without them until they are connected; storing of documents and RWI entries waits for them
+        final File cellPath = new File(segmentsPath, "default");
+        if (this.getConfigBool(SwitchboardConstants.CORE_SERVICE_RWI, true)) {
+            this.index.connectRWILater(this.startupLoader.load(STORE_RWI, StartupLoader.size(cellPath.listFiles((dir, name) -> name.startsWith(Segment.termIndexName))),
+                    () -> this.index.connectRWI(wordCacheMaxCount, fileSizeMax)));
+        }
+        if (this.getConfigBool(SwitchboardConstants.CORE_SERVICE_CITATION, true)) {
+            this.startupLoader.load(STORE_CITATION, StartupLoader.size(cellPath.listFiles((dir, name) -> name.startsWith(Segment.citationIndexName))),
+                    () -> this.index.connectCitation(wordCacheMaxCount, fileSizeMax));
+        }
         if (this.getConfigBool(SwitchboardConstants.CORE_SERVICE_FULLTEXT,
                 SwitchboardConstants.CORE_SERVICE_FULLTEXT_DEFAULT)) {
             try {this.index.fulltext().connectLocalSolr();} catch (final IOException e) {ConcurrentLog.logException(e);}
         }
         this.index.fulltext().setUseWebgraph(this.getConfigBool(SwitchboardConstants.CORE_SERVICE_WEBGRAPH, false));
+        this.index.fulltext().setWriteBatch(
+                this.getConfigInt(SwitchboardConstants.CORE_SERVICE_FULLTEXT_BATCH_SIZE, SwitchboardConstants.CORE_SERVICE_FULLTEXT_BATCH_SIZE_DEFAULT),
+                this.getConfigLong(SwitchboardConstants.CORE_SERVICE_FULLTEXT_BATCH_DELAY, SwitchboardConstants.CORE_SERVICE_FULLTEXT_BATCH_DELAY_DEFAULT));
 
         // set up the solr interface
         final String solrurls = getConfig(SwitchboardConstants.FEDERATED_SERVICE_SOLR_INDEXING_URL, "http://127.0.0.1:8983/solr");
@@ -811,6 +863,9 @@ public final class Switchboard extends serverSwitch {
                         SwitchboardConstants.HTCACHE_SYNC_LOCK_TIMEOUT_DEFAULT),
                 getConfigInt(SwitchboardConstants.HTCACHE_COMPRESSION_LEVEL,
                         SwitchboardConstants.HTCACHE_COMPRESSION_LEVEL_DEFAULT));
+        Cache.setCodec(getConfig(SwitchboardConstants.HTCACHE_CODEC, SwitchboardConstants.HTCACHE_CODEC_DEFAULT));
+        Cache.setUseDictionaries(getConfigBool(SwitchboardConstants.HTCACHE_DICTIONARIES,
+                SwitchboardConstants.HTCACHE_DICTIONARIES_DEFAULT));
         final File transactiondir = new File(this.htCachePath, "snapshots");
         Transactions.init(transactiondir, getConfigLong(SwitchboardConstants.SNAPSHOTS_WKHTMLTOPDF_TIMEOUT,
                 SwitchboardConstants.SNAPSHOTS_WKHTMLTOPDF_TIMEOUT_DEFAULT));
@@ -845,31 +900,15 @@ public final class Switchboard extends serverSwitch {
         this.releasePath.mkdirs();
         this.log.info("RELEASE Path = " + this.releasePath.getAbsolutePath());
 
-        // starting message board
-        try {
-            initMessages();
-        } catch (final IOException e) {
-            ConcurrentLog.logException(e);
-        }
-
-        // starting wiki
-        try {
-            initWiki();
-        } catch (final IOException e) {
-            ConcurrentLog.logException(e);
-        }
-
-        //starting blog
-        try {
-            initBlog();
-        } catch (final IOException e) {
-            ConcurrentLog.logException(e);
-        }
+        // starting message board, wiki and blog
+        this.startupLoader.load("message.heap", StartupLoader.size(new File(this.workPath, "message.heap")), this::initMessages);
+        this.startupLoader.load("wiki.heap", StartupLoader.size(new File(this.workPath, "wiki.heap"), new File(this.workPath, "wiki-bkp.heap")), this::initWiki);
+        this.startupLoader.load("blog.heap", StartupLoader.size(new File(this.workPath, "blog.heap"), new File(this.workPath, "blogComment.heap")), this::initBlog);
 
         // init User DB
-        this.log.config("Loading User DB");
         final File userDbFile = new File(getDataPath(), "DATA/SETTINGS/user.heap");
-        try {
+        this.startupLoader.load("user.heap", StartupLoader.size(userDbFile), () -> {
+            this.log.config("Loading User DB");
             this.userDB = new UserDB(userDbFile);
             this.log.config("Loaded User DB from file "
                     + userDbFile.getName()
@@ -878,9 +917,7 @@ public final class Switchboard extends serverSwitch {
                     + " entries"
                     + ", "
                     + ppRamString(userDbFile.length() / 1024));
-        } catch (final IOException e) {
-            ConcurrentLog.logException(e);
-        }
+        });
 
         // init html parser evaluation scheme
         File parserPropertiesPath = new File(appPath, "defaults/");
@@ -908,16 +945,8 @@ public final class Switchboard extends serverSwitch {
 
         // init bookmarks DB: needs more time since this does a DNS lookup for each Bookmark.
         // Can be started concurrently
-        new Thread("Switchboard.initBookmarks") {
-            @Override
-            public void run() {
-                try {
-                    initBookmarks();
-                } catch (final IOException e ) {
-                    ConcurrentLog.logException(e);
-                }
-            }
-        }.start();
+        this.startupLoader.load("bookmarks.heap", StartupLoader.size(new File(this.workPath, "bookmarks.heap"), new File(this.workPath, "bookmarkDates.heap")), this::initBookmarks);
+        this.startupLoader.start();
 
         // define a realtime parsable mimetype list
         this.log.config("Parser: Initializing Mime Type deny list");
@@ -941,6 +970,21 @@ public final class Switchboard extends serverSwitch {
         TextParser.setDenyExtension(getConfig(SwitchboardConstants.PARSER_EXTENSIONS_DENY, ""));
         pdfParser.individualPages = getConfigBool(SwitchboardConstants.PARSER_PDF_INDIVIDUALPAGES, false);
         pdfParser.individualPagePropertyname = getConfig(SwitchboardConstants.PARSER_PDF_INDIVIDUALPAGES_KEY, "page");
+        final int parserThreads = getConfigInt(SwitchboardConstants.PARSER_SANDBOX_THREADS, 0);
+        TextParser.setSandbox(new ParserSandbox(
+                parserThreads == 0 ? WorkflowProcessor.availableCPU * 2 : parserThreads,
+                getConfigLong(SwitchboardConstants.PARSER_SANDBOX_CPUTIME, SwitchboardConstants.PARSER_SANDBOX_CPUTIME_DEFAULT),
+                getConfigLong(SwitchboardConstants.PARSER_SANDBOX_HEAP, SwitchboardConstants.PARSER_SANDBOX_HEAP_DEFAULT) * 1024L * 1024L,
+                getConfigInt(SwitchboardConstants.PARSER_SANDBOX_PROCESS_COUNT, 0),
+                getConfigInt(SwitchboardConstants.PARSER_SANDBOX_PROCESS_HEAP, SwitchboardConstants.PARSER_SANDBOX_PROCESS_HEAP_DEFAULT),
+                ParserSandbox.mimePrefixes(getConfig(SwitchboardConstants.PARSER_SANDBOX_PROCESS_MIME, ""))));
+        final int archiveThreads = getConfigInt(SwitchboardConstants.PARSER_ARCHIVE_THREADS, 0);
+        ArchiveMembers.setThreads(archiveThreads == 0 ? WorkflowProcessor.availableCPU : archiveThreads);
+        ArchiveMembers.maxEntries = getConfigInt(SwitchboardConstants.PARSER_ARCHIVE_MAXENTRIES, SwitchboardConstants.PARSER_ARCHIVE_MAXENTRIES_DEFAULT);
+        ArchiveMembers.maxBytes = getConfigLong(SwitchboardConstants.PARSER_ARCHIVE_MAXBYTES, SwitchboardConstants.PARSER_ARCHIVE_MAXBYTES_DEFAULT) * 1024L * 1024L;
+        final long parsedDocumentCacheSize = getConfigLong(SwitchboardConstants.PARSER_CACHE_SIZE, SwitchboardConstants.PARSER_CACHE_SIZE_DEFAULT);
+        TextParser.setParsedDocumentCache(parsedDocumentCacheSize <= 0 ? null : new ParsedDocumentCache(
+                new File(this.htCachePath, "PARSED"), parsedDocumentCacheSize * 1024L * 1024L, yacyBuildProperties.getLongVersion()));
 
         // start a loader
         this.log.config("Starting Crawl Loader");
@@ -1119,13 +1163,17 @@ public final class Switchboard extends serverSwitch {
                 WorkflowProcessor.availableCPU + 1,
                 this.indexingAnalysisProcessor,
                 WorkflowProcessor.availableCPU);
+        final IndexingLanes.CostClass[] laneClasses = IndexingLanes.CostClass.values();
+        final int[] laneConcurrency = new int[laneClasses.length];
+        final int[] lanePriority = new int[laneClasses.length];
+        for (final IndexingLanes.CostClass c: laneClasses) {
+            final int concurrency = getConfigInt(SwitchboardConstants.INDEXER_LANE_PREFIX + c.laneName() + SwitchboardConstants.INDEXER_LANE_CONCURRENCY, 0);
+            laneConcurrency[c.ordinal()] = concurrency > 0 ? concurrency :
+                c == IndexingLanes.CostClass.HEAVY ? Math.max(1, WorkflowProcessor.availableCPU / 2) : WorkflowProcessor.availableCPU;
+            lanePriority[c.ordinal()] = getConfigInt(SwitchboardConstants.INDEXER_LANE_PREFIX + c.laneName() + SwitchboardConstants.INDEXER_LANE_PRIORITY, Thread.NORM_PRIORITY);
+        }
         this.indexingDocumentProcessor =
-            new WorkflowProcessor<IndexingQueueEntry>(
-                "parseDocument",
-                "This does the parsing of the newly loaded documents from the web. The result is not only a plain text document, but also a list of URLs that are embedded into the document. The urls are handed over to the CrawlStacker. This process has two child process queues!",
-                new String[] {
-                    "condenseDocument", "CrawlStacker"
-                },
+            new IndexingLanes(
                 new WorkflowTask<IndexingQueueEntry>() {
 
                     @Override
@@ -1133,9 +1181,12 @@ public final class Switchboard extends serverSwitch {
                         return parseDocument(in);
                     }
                 },
-                Math.max(20, WorkflowProcessor.availableCPU * 2), // it may happen that this is filled with new files from the search process. That means there should be enough place for two result pages
                 this.indexingCondensementProcessor,
-                WorkflowProcessor.availableCPU);
+                Math.max(20, WorkflowProcessor.availableCPU * 2), // it may happen that this is filled with new files from the search process. That means there should be enough place for two result pages
+                laneConcurrency,
+                lanePriority,
+                getConfigLong(SwitchboardConstants.INDEXER_LANE_FAST_MAXSIZE, SwitchboardConstants.INDEXER_LANE_FAST_MAXSIZE_DEFAULT),
+                getConfigLong(SwitchboardConstants.INDEXER_LANE_HEAVY_MINSIZE, SwitchboardConstants.INDEXER_LANE_HEAVY_MINSIZE_DEFAULT));
 
         // deploy busy threads
         this.log.config("Starting Threads");
@@ -1318,6 +1369,11 @@ public final class Switchboard extends serverSwitch {
 
         this.trail = new LinkedBlockingQueue<String>();
 
+        // the servlets need the message, wiki, blog and user databases; the index cells and bookmarks may still be loading
+        for (final String store: new String[]{"message.heap", "wiki.heap", "blog.heap", "user.heap"}) {
+            this.startupLoader.await(store);
+        }
+
         this.log.config("Finished Switchboard Initialization");
     }
 
@@ -1358,6 +1414,15 @@ public final class Switchboard extends serverSwitch {
             setConfig(SwitchboardConstants.HTTP_OUTGOING_POOL_REMOTE_SOLR_MAX_TOTAL, remoteSolrPoolMaxTotal);
         }
         RemoteInstance.initPoolMaxConnections(RemoteInstance.CONNECTION_MANAGER, remoteSolrPoolMaxTotal);
+
+        int peersPoolMaxTotal = getConfigInt(SwitchboardConstants.HTTP_OUTGOING_POOL_PEERS_MAX_TOTAL,
+                SwitchboardConstants.HTTP_OUTGOING_POOL_PEERS_MAX_TOTAL_DEFAULT);
+        if (peersPoolMaxTotal <= 0) {
+            /* Fix eventually wrong value from the config file */
+            peersPoolMaxTotal = SwitchboardConstants.HTTP_OUTGOING_POOL_PEERS_MAX_TOTAL_DEFAULT;
+            setConfig(SwitchboardConstants.HTTP_OUTGOING_POOL_PEERS_MAX_TOTAL, peersPoolMaxTotal);
+        }
+        PersistentHTTPClient.initPoolMaxConnections(PersistentHTTPClient.CONNECTION_MANAGER, peersPoolMaxTotal);
     }
 
     final String getSysinfo() {
@@ -1566,7 +1631,8 @@ public final class Switchboard extends serverSwitch {
                 this.exceed134217727);
             final File segmentsPath = new File(new File(indexPrimaryPath, networkName), "SEGMENTS");
             final File archivePath = getDataPath(SwitchboardConstants.INDEX_ARCHIVE_PATH, SwitchboardConstants.INDEX_ARCHIVE_DEFAULT);
-            this.index = new Segment(this.log, segmentsPath, archivePath, collectionConfiguration, webgraphConfiguration);
+            this.index = new Segment(this.log, segmentsPath, archivePath, collectionConfiguration, webgraphConfiguration,
+                    this.getConfigBool(SwitchboardConstants.INDEX_DISKINDEX, SwitchboardConstants.INDEX_DISKINDEX_DEFAULT));
             if (this.getConfigBool(SwitchboardConstants.CORE_SERVICE_RWI, true)) this.index.connectRWI(wordCacheMaxCount, fileSizeMax);
             if (this.getConfigBool(SwitchboardConstants.CORE_SERVICE_CITATION, true)) this.index.connectCitation(wordCacheMaxCount, fileSizeMax);
             if (this.getConfigBool(SwitchboardConstants.CORE_SERVICE_FULLTEXT,
@@ -1574,6 +1640,9 @@ public final class Switchboard extends serverSwitch {
                 this.index.fulltext().connectLocalSolr();
             }
             this.index.fulltext().setUseWebgraph(this.getConfigBool(SwitchboardConstants.CORE_SERVICE_WEBGRAPH, false));
+            this.index.fulltext().setWriteBatch(
+                    this.getConfigInt(SwitchboardConstants.CORE_SERVICE_FULLTEXT_BATCH_SIZE, SwitchboardConstants.CORE_SERVICE_FULLTEXT_BATCH_SIZE_DEFAULT),
+                    this.getConfigLong(SwitchboardConstants.CORE_SERVICE_FULLTEXT_BATCH_DELAY, SwitchboardConstants.CORE_SERVICE_FULLTEXT_BATCH_DELAY_DEFAULT));
 
             // set up the solr interface
             final String solrurls = getConfig(SwitchboardConstants.FEDERATED_SERVICE_SOLR_INDEXING_URL, "http://127.0.0.1:8983/solr");
@@ -2054,9 +2123,12 @@ public final class Switchboard extends serverSwitch {
         this.crawlQueues.close();
         this.robots.close();
         this.indexingDocumentProcessor.shutdown();
+        TextParser.getSandbox().close();
+        ArchiveMembers.setThreads(0);
         this.indexingCondensementProcessor.shutdown();
         this.indexingAnalysisProcessor.shutdown();
         this.indexingStorageProcessor.shutdown();
+        this.startupLoader.shutdown();
         if ( this.dhtDispatcher != null ) {
             this.dhtDispatcher.close();
         }
@@ -2087,6 +2159,12 @@ public final class Switchboard extends serverSwitch {
         } catch (final InterruptedException e ) {
             ConcurrentLog.logException(e);
         }
+        RemoteSearchScheduler.shutdown();
+        try {
+            PersistentHTTPClient.closeConnectionManager();
+        } catch (final InterruptedException e ) {
+            ConcurrentLog.logException(e);
+        }
         RemoteInstance.closeConnectionManager();
         this.log.config("SWITCHBOARD SHUTDOWN TERMINATED");
         /* Print also to the standard output : when this method is triggered by the shutdown hook thread, the LogManager is likely to have
@@ -3121,7 +3199,7 @@ public final class Switchboard extends serverSwitch {
         if ( documents == null ) {
             return null;
         }        
-        return new IndexingQueueEntry(in.queueEntry, documents, null);
+        return new IndexingQueueEntry(in, documents, null);
     }
 
     private Document[] parseDocument(final Response response) throws InterruptedException {
@@ -3142,23 +3220,26 @@ public final class Switchboard extends serverSwitch {
 
         // PARSE CONTENT
         final long parsingStartTime = System.currentTimeMillis();
+        InputStream cachedContent = null;
         if ( response.getContent() == null ) {
-            // fetch the document from cache
-            response.setContent(Cache.getContent(response.url().hash()));
-            if ( response.getContent() == null ) {
+            // open the document in the cache; it is parsed from the stream without loading it into memory at once
+            cachedContent = Cache.getContentStream(response.url().hash());
+            if ( cachedContent == null ) {
                 this.log.warn("the resource '" + response.url() + "' is missing in the cache.");
                 // create a new errorURL DB entry
                 this.crawlQueues.errorURL.push(response.url(), response.depth(), response.profile(), FailCategory.FINAL_LOAD_CONTEXT, "missing in cache", -1);
                 return null;
             }
         }
-        assert response.getContent() != null;
 
         try {
             final String supportError = TextParser.supports(response.url(), response.getMimeType());
             if (supportError != null) {
                 /* No parser available or format is denied */
                 if(response.profile().isIndexNonParseableUrls()) {
+                    if (cachedContent != null) {
+                        response.setContent(FileUtils.read(cachedContent));
+                    }
                     /* Apply the generic parser add the URL as a simple link (no content metadata) to the index */
                     documents = TextParser.genericParseSource(new AnchorURL(response.url()),
                         response.getMimeType(),
@@ -3174,6 +3255,39 @@ public final class Switchboard extends serverSwitch {
                     this.crawlQueues.errorURL.push(response.url(), response.depth(), response.profile(), FailCategory.FINAL_PROCESS_CONTEXT, supportError, -1);
                     return null;
                 }
+            } else if (cachedContent != null) {
+                // a reindex may find the same content in the cache again; documents of the html parser are not stored
+                final ParsedDocumentCache parsedDocuments = TextParser.getParsedDocumentCache(response.url(), response.getMimeType());
+                final String mimeType = TextParser.normalizeMimeType(response.getMimeType());
+                final String parseOptions = parsedDocuments == null ? null : TextParser.parseOptions(response.profile().ignoreDivClassName(), response.profile().scraper());
+                byte[] contentDigest = null;
+                if (parsedDocuments != null && parsedDocuments.contains(response.url())) {
+                    // the content is only read ahead for its digest if documents of the url were stored before
+                    final InputStream digestContent = Cache.getContentStream(response.url().hash());
+                    if (digestContent != null) {
+                        contentDigest = ParsedDocumentCache.digest(digestContent);
+                        documents = parsedDocuments.get(response.url(), mimeType, response.getCharacterEncoding(), parseOptions, contentDigest, response.depth());
+                    }
+                }
+                if (documents == null) {
+                    // parse the document from the cache stream, computing the digest of the content while it is parsed
+                    final DigestInputStream digestingContent = parsedDocuments == null || contentDigest != null ? null : ParsedDocumentCache.digestStream(cachedContent);
+                    documents =
+                            TextParser.parseSource(
+                                    new AnchorURL(response.url()),
+                                    response.getMimeType(),
+                                    response.getCharacterEncoding(),
+                                    response.profile().ignoreDivClassName(),
+                                    response.profile().scraper(),
+                                    response.profile().timezoneOffset(),
+                                    response.depth(),
+                                    response.size(),
+                                    digestingContent == null ? cachedContent : digestingContent);
+                    if (digestingContent != null && documents != null) contentDigest = ParsedDocumentCache.finishDigest(digestingContent);
+                    if (contentDigest != null) {
+                        parsedDocuments.put(response.url(), mimeType, response.getCharacterEncoding(), parseOptions, contentDigest, documents);
+                    }
+                }
             } else {
                 // parse the document
                 documents =
@@ -3195,6 +3309,12 @@ public final class Switchboard extends serverSwitch {
             // create a new errorURL DB entry
             this.crawlQueues.errorURL.push(response.url(), response.depth(), response.profile(), FailCategory.FINAL_PROCESS_CONTEXT, e.getMessage(), -1);
             return null;
+        } catch (final IOException e ) {
+            this.log.warn("Unable to read the resource '" + response.url().toNormalform(true) + "' from the cache. " + e.getMessage());
+            this.crawlQueues.errorURL.push(response.url(), response.depth(), response.profile(), FailCategory.FINAL_LOAD_CONTEXT, "missing in cache", -1);
+            return null;
+        } finally {
+            if (cachedContent != null) try { cachedContent.close(); } catch (final IOException e) {}
         }
         final long parsingEndTime = System.currentTimeMillis();
 
@@ -3353,19 +3473,19 @@ public final class Switchboard extends serverSwitch {
         // check profile attributes which prevent indexing (while crawling is allowed)
         if (!profile.indexText() && !profile.indexMedia()) {
             if (this.log.isInfo()) this.log.info("Not Condensed Resource '" + urls + "': indexing of this media type not wanted by crawl profile");
-            return new IndexingQueueEntry(in.queueEntry, in.documents, null);
+            return new IndexingQueueEntry(in, in.documents, null);
         } else if (!profile.indexMedia()) { // check for media excluded for indexing
             // check media by file extension
             if ( Classification.isMediaExtension(MultiProtocolURL.getFileExtension(in.queueEntry.url().getFileName()))) {
                 this.log.info("Not Condensed Resource '" + urls + "': indexing of media files not wanted by crawl profile");
-                return new IndexingQueueEntry(in.queueEntry, in.documents, null);
+                return new IndexingQueueEntry(in, in.documents, null);
             }
             // double check media by mime in case of no file extension
             Classification.ContentDomain cd = Classification.getContentDomainFromMime(in.queueEntry.getMimeType());
             // don't exclude contentdomain.app (from mime) to keep pdf word etc.
             if (cd == Classification.ContentDomain.IMAGE || cd == Classification.ContentDomain.VIDEO || cd == Classification.ContentDomain.AUDIO ) {
                 this.log.info("Not Condensed Resource '" + urls + "': indexing of media not wanted by crawl profile");
-                return new IndexingQueueEntry(in.queueEntry, in.documents, null);
+                return new IndexingQueueEntry(in, in.documents, null);
             }
         }
         if (!(profile.indexUrlMustMatchPattern() == CrawlProfile.MATCH_ALL_PATTERN || profile.indexUrlMustMatchPattern().matcher(urls).matches()) ||
@@ -3373,7 +3493,7 @@ public final class Switchboard extends serverSwitch {
             if (this.log.isInfo()) this.log.info("Not Condensed Resource '" + urls + "': indexing prevented by regular expression on url; indexUrlMustMatchPattern = " + profile.indexUrlMustMatchPattern().pattern() + ", indexUrlMustNotMatchPattern = " + profile.indexUrlMustNotMatchPattern().pattern());
             // create a new errorURL DB entry
             this.crawlQueues.errorURL.push(in.queueEntry.url(), in.queueEntry.depth(), profile, FailCategory.FINAL_PROCESS_CONTEXT, "indexing prevented by regular expression on url; indexUrlMustMatchPattern = " + profile.indexUrlMustMatchPattern().pattern() + ", indexUrlMustNotMatchPattern = " + profile.indexUrlMustNotMatchPattern().pattern(), -1);
-            return new IndexingQueueEntry(in.queueEntry, in.documents, null);
+            return new IndexingQueueEntry(in, in.documents, null);
         }
 
         // check which files may take part in the indexing process
@@ -3422,7 +3542,7 @@ public final class Switchboard extends serverSwitch {
         }
 
         if ( doclist.isEmpty() ) {
-            return new IndexingQueueEntry(in.queueEntry, in.documents, null);
+            return new IndexingQueueEntry(in, in.documents, null);
         }
         in.documents = doclist.toArray(new Document[doclist.size()]);
         final Condenser[] condenser = new Condenser[in.documents.length];
@@ -3442,7 +3562,7 @@ public final class Switchboard extends serverSwitch {
                 ? true
                 : !profile.remoteIndexing());
         }
-        return new IndexingQueueEntry(in.queueEntry, in.documents, condenser);
+        return new IndexingQueueEntry(in, in.documents, condenser);
     }
 
     /**
@@ -3480,6 +3600,7 @@ public final class Switchboard extends serverSwitch {
             }
         }
         in.queueEntry.updateStatus(Response.QUEUE_STATE_FINISHED);
+        this.indexingDocumentProcessor.finished(in);
     }
 
     /**
@@ -3555,6 +3676,8 @@ public final class Switchboard extends serverSwitch {
         }
 
         // STORE WORD INDEX
+        this.startupLoader.await(STORE_RWI);
+        this.startupLoader.await(STORE_CITATION);
         SolrInputDocument newEntry =
             this.index.storeDocument(
                 url,
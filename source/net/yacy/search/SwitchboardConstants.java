@@ -29,6 +29,7 @@ package net.yacy.search;
 import java.util.zip.Deflater;
 
 import net.yacy.cora.order.Digest;
+import net.yacy.kelondro.util.StartupLoader;
 import net.yacy.server.http.RobotsTxtConfig;
 
 /**
@@ -220,6 +221,54 @@ public final class SwitchboardConstants {
     public static final String PARSER_EXTENSIONS_DENY           = "parser.extensions.deny";
     public static final String PARSER_PDF_INDIVIDUALPAGES       = "parser.pdf.individualpages";
     public static final String PARSER_PDF_INDIVIDUALPAGES_KEY   = "parser.pdf.individualpages.key";
+
+    /** Key of the setting configuring the maximum number of concurrent parses; 0 for twice the number of processors, less than 0 to parse on the calling threads without budget */
+    public static final String PARSER_SANDBOX_THREADS = "parser.sandbox.threads";
+
+    /** Key of the setting configuring the maximum cpu time of a parse in milliseconds, 0 for no limit */
+    public static final String PARSER_SANDBOX_CPUTIME = "parser.sandbox.cputime";
+
+    /** Default maximum cpu time of a parse in milliseconds */
+    public static final long PARSER_SANDBOX_CPUTIME_DEFAULT = 60000;
+
+    /** Key of the setting configuring the maximum heap in megabytes which a parse may allocate in total, also counting garbage, 0 for no limit */
+    public static final String PARSER_SANDBOX_HEAP = "parser.sandbox.heap";
+
+    /** Default maximum heap in megabytes which a parse may allocate : no limit */
+    public static final long PARSER_SANDBOX_HEAP_DEFAULT = 0;
+
+    /** Key of the setting configuring the maximum number of parser worker processes, 0 to parse everything in the peer process */
+    public static final String PARSER_SANDBOX_PROCESS_COUNT = "parser.sandbox.process.count";
+
+    /** Key of the setting configuring the maximum heap of a parser worker process in megabytes */
+    public static final String PARSER_SANDBOX_PROCESS_HEAP = "parser.sandbox.process.heap";
+
+    /** Default maximum heap of a parser worker process in megabytes */
+    public static final int PARSER_SANDBOX_PROCESS_HEAP_DEFAULT = 512;
+
+    /** Key of the setting with the comma-separated mime types or mime type prefixes which are parsed in worker processes */
+    public static final String PARSER_SANDBOX_PROCESS_MIME = "parser.sandbox.process.mime";
+
+    /** Key of the setting configuring the number of threads which parse the members of archives; 0 for the number of processors, less than 0 to parse them on the thread of the archive parser */
+    public static final String PARSER_ARCHIVE_THREADS = "parser.archive.threads";
+
+    /** Key of the setting configuring the maximum number of members which are parsed from one archive */
+    public static final String PARSER_ARCHIVE_MAXENTRIES = "parser.archive.maxEntries";
+
+    /** Default maximum number of members which are parsed from one archive */
+    public static final int PARSER_ARCHIVE_MAXENTRIES_DEFAULT = 10000;
+
+    /** Key of the setting configuring the maximum sum of the member sizes in megabytes which are parsed from one archive */
+    public static final String PARSER_ARCHIVE_MAXBYTES = "parser.archive.maxBytes";
+
+    /** Default maximum sum of the member sizes in megabytes which are parsed from one archive */
+    public static final long PARSER_ARCHIVE_MAXBYTES_DEFAULT = 1024;
+
+    /** Key of the setting configuring the maximum size in megabytes of the store of parsed documents; 0 to parse every content again */
+    public static final String PARSER_CACHE_SIZE = "parser.cache.size";
+
+    /** Default maximum size in megabytes of the store of parsed documents */
+    public static final long PARSER_CACHE_SIZE_DEFAULT = 1024;
     /**
      * <p><code>public static final String <strong>PROXY_ONLINE_CAUTION_DELAY</strong> = "onlineCautionDelay"</code></p>
      * <p>Name of the setting how long indexing should pause after the last time the proxy was used in milliseconds</p>
@@ -290,6 +339,18 @@ public final class SwitchboardConstants {
     /** Default maximum system load allowing remote Solr searches */
     public static final float REMOTESEARCH_MAXLOAD_SOLR_DEFAULT = 4.0f;
     
+    /** Setting key to configure the maximum number of concurrently running requests to remote peers, shared by all search events */
+    public static final String REMOTESEARCH_THREADS_MAX        = "remotesearch.threads.max";
+    
+    /** Default maximum number of concurrently running requests to remote peers */
+    public static final int REMOTESEARCH_THREADS_MAX_DEFAULT   = 64;
+    
+    /** Setting key to configure whether a hedged request is sent to another peer of the same DHT partition when a remote RWI search is slow */
+    public static final String REMOTESEARCH_HEDGING            = "remotesearch.hedging";
+    
+    /** Default setting value controlling whether hedged remote RWI search requests are sent */
+    public static final boolean REMOTESEARCH_HEDGING_DEFAULT   = true;
+    
     /** Key of the setting controlling whether https should be preferred for remote searches, when available on the target peer */
     public static final String REMOTESEARCH_HTTPS_PREFERRED = "remotesearch.https.preferred";
     
@@ -339,6 +400,45 @@ public final class SwitchboardConstants {
     public static final String CORE_SERVICE_CITATION            = "core.service.citation.tmp";
     public static final String CORE_SERVICE_WEBGRAPH            = "core.service.webgraph.tmp";
 
+    /** Key of the setting keeping the key indexes of the first-seen table and of the signature index of the segment in files instead of the RAM */
+    public static final String INDEX_DISKINDEX = "index.diskIndex";
+
+    /** Default for the disk index setting: the key indexes are in the RAM, which has the fastest lookups */
+    public static final boolean INDEX_DISKINDEX_DEFAULT = false;
+
+    /** Key of the setting configuring the maximum number of documents which are written to the fulltext index in one batch */
+    public static final String CORE_SERVICE_FULLTEXT_BATCH_SIZE = "core.service.fulltext.batch.size";
+
+    /** Default maximum number of documents in a batch; with less than two documents, each document is written directly */
+    public static final int CORE_SERVICE_FULLTEXT_BATCH_SIZE_DEFAULT = 100;
+
+    /** Key of the setting configuring the maximum time in milliseconds that a document waits in a batch */
+    public static final String CORE_SERVICE_FULLTEXT_BATCH_DELAY = "core.service.fulltext.batch.delay";
+
+    /** Default maximum time in milliseconds that a document waits in a batch */
+    public static final long CORE_SERVICE_FULLTEXT_BATCH_DELAY_DEFAULT = 1000;
+
+    /** Prefix of the settings of the indexing lanes, followed by the name of the lane: fast, default or heavy */
+    public static final String INDEXER_LANE_PREFIX = "indexer.lane.";
+
+    /** Suffix of the setting configuring the number of parser threads of a lane; 0 computes the number from the available processors */
+    public static final String INDEXER_LANE_CONCURRENCY = ".concurrency";
+
+    /** Suffix of the setting configuring the thread priority of the parser threads of a lane, from 1 (lowest) to 10 (highest) */
+    public static final String INDEXER_LANE_PRIORITY = ".priority";
+
+    /** Key of the setting configuring the maximum size in bytes of html, feed and text documents in the fast lane */
+    public static final String INDEXER_LANE_FAST_MAXSIZE = "indexer.lane.fast.maxsize";
+
+    /** Default maximum size in bytes of documents in the fast lane */
+    public static final long INDEXER_LANE_FAST_MAXSIZE_DEFAULT = 262144;
+
+    /** Key of the setting configuring the size in bytes from which on all documents are parsed in the heavy lane */
+    public static final String INDEXER_LANE_HEAVY_MINSIZE = "indexer.lane.heavy.minsize";
+
+    /** Default size in bytes from which on all documents are parsed in the heavy lane */
+    public static final long INDEXER_LANE_HEAVY_MINSIZE_DEFAULT = 4194304;
+
     /**
      * <p><code>public static final String <strong>CRAWLER_THREADS_ACTIVE_MAX</strong> = "crawler.MaxActiveThreads"</code></p>
      * <p>Name of the setting how many active crawler-threads may maximal be running on the same time</p>
@@ -423,6 +523,18 @@ public final class SwitchboardConstants {
     /** Default compression level for cached content */
     public static final int HTCACHE_COMPRESSION_LEVEL_DEFAULT = Deflater.BEST_COMPRESSION;
     
+    /** Key of the setting configuring the codec of new cached content : gzip (default), lz4 (faster) or plain */
+    public static final String HTCACHE_CODEC = "proxyCache.codec";
+    
+    /** Default codec of new cached content */
+    public static final String HTCACHE_CODEC_DEFAULT = "gzip";
+    
+    /** Key of the setting controlling whether small cached documents are compressed with a dictionary trained for their MIME type */
+    public static final String HTCACHE_DICTIONARIES = "proxyCache.dictionaries";
+    
+    /** Default setting value controlling whether dictionaries are used for cached content */
+    public static final boolean HTCACHE_DICTIONARIES_DEFAULT = false;
+    
     /** Key of the setting configuring Cache synchronization lock timeout on getContent/store operations*/
     public static final String HTCACHE_SYNC_LOCK_TIMEOUT   = "proxyCache.sync.lockTimeout";
     
@@ -510,6 +622,12 @@ public final class SwitchboardConstants {
     /** Default setting value controlling the maximum number of simultaneously open outgoing HTTP connections in the remote Solr pool */
     public static final int HTTP_OUTGOING_POOL_REMOTE_SOLR_MAX_TOTAL_DEFAULT = 100;
     
+    /** Key of the setting controlling the maximum number of simultaneously open outgoing HTTP connections in the persistent peer-to-peer pool (net.yacy.cora.protocol.http.PersistentHTTPClient) */
+    public static final String HTTP_OUTGOING_POOL_PEERS_MAX_TOTAL = "http.outgoing.pool.peers.maxTotal";
+    
+    /** Default setting value controlling the maximum number of simultaneously open outgoing HTTP connections in the peer-to-peer pool */
+    public static final int HTTP_OUTGOING_POOL_PEERS_MAX_TOTAL_DEFAULT = 200;
+    
     /** Key of the setting controlling whether TLS Server Name Indication (SNI) extension is enabled on outgoing HTTP connections in the general http client (net.yacy.cora.protocol.http.HTTPClient) */
     public static final String HTTP_OUTGOING_GENERAL_TLS_SNI_EXTENSION_ENABLED = "http.outgoing.general.tls.sniExtension.enabled";
     
@@ -639,6 +757,18 @@ public final class SwitchboardConstants {
     /** Default setting value controlling whether search results resorting by browser JavaScript is enabled */
     public static final boolean SEARCH_JS_RESORT_DEFAULT = false;
     
+    /** Key of the setting controlling the maximum memory in megabytes used by the cache of the local Solr query results, 0 to disable the cache */
+    public static final String SEARCH_SOLR_RESULTCACHE_MAXSIZE = "search.solr.resultcache.maxsize";
+    
+    /** Default maximum memory in megabytes used by the cache of the local Solr query results */
+    public static final int SEARCH_SOLR_RESULTCACHE_MAXSIZE_DEFAULT = 16;
+    
+    /** Key of the setting controlling the maximum number of stores opened concurrently at start-up */
+    public static final String STARTUP_LOADER_THREADS = "startup.loader.threads";
+    
+    /** Default maximum number of stores opened concurrently at start-up */
+    public static final int STARTUP_LOADER_THREADS_DEFAULT = StartupLoader.DEFAULT_THREADS;
+    
     /** Key of the setting controlling whether the search public top navigation bar includes a login link/status */
     public static final String SEARCH_PUBLIC_TOP_NAV_BAR_LOGIN = "search.publicTopNavBar.login";
     
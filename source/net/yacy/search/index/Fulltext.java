@@ -104,9 +104,12 @@ public final class Fulltext {
     private final CollectionConfiguration collectionConfiguration;
     private final WebgraphConfiguration   webgraphConfiguration;
     private       boolean                 writeWebgraph;
+    private volatile SolrBatchWriter      batchWriter; // null if documents are written directly
+    private final SignatureIndex          signatureIndex; // the content signatures of the documents; deleted documents are removed from it, may be null
 
     protected Fulltext(final File segmentPath, final File archivePath,
-            final CollectionConfiguration collectionConfiguration, final WebgraphConfiguration webgraphConfiguration) {
+            final CollectionConfiguration collectionConfiguration, final WebgraphConfiguration webgraphConfiguration,
+            final SignatureIndex signatureIndex) {
         this.segmentPath = segmentPath;
         this.archivePath = archivePath;
         this.exportthread = null; // will have a export thread assigned if exporter is running
@@ -115,6 +118,7 @@ public final class Fulltext {
         this.collectionConfiguration = collectionConfiguration;
         this.webgraphConfiguration = webgraphConfiguration;
         this.writeWebgraph = false;
+        this.signatureIndex = signatureIndex;
     }
 
     public void setUseWebgraph(boolean check) {
@@ -125,6 +129,43 @@ public final class Fulltext {
         return this.writeWebgraph;
     }
 
+    /**
+     * set the size of the batches in which documents and webgraph edges are written to Solr
+     * @param maxDocs the maximum number of documents in a batch; with less than two documents, each document is written directly
+     * @param maxDelay the maximum time in milliseconds that a document waits before it is written
+     */
+    public void setWriteBatch(final int maxDocs, final long maxDelay) {
+        final SolrBatchWriter old = this.batchWriter;
+        this.batchWriter = maxDocs < 2 ? null : new SolrBatchWriter(this::getDefaultConnector, this::getWebgraphConnector, maxDocs, maxDelay);
+        if (old != null) old.close();
+    }
+
+    /**
+     * @return the writer of the document batches or null if documents are written directly
+     */
+    public SolrBatchWriter getBatchWriter() {
+        return this.batchWriter;
+    }
+
+    /**
+     * write all documents which are waiting in the current batch
+     */
+    private void flushBatch() {
+        final SolrBatchWriter writer = this.batchWriter;
+        if (writer != null) writer.flush();
+    }
+
+    /**
+     * @return a document which is put but not yet written to Solr, or null; if a partial update of a document
+     *         in Solr is waiting, the batch is written first, so the document can be read from Solr
+     */
+    private SolrInputDocument getPending(final String id) {
+        final SolrBatchWriter writer = this.batchWriter;
+        if (writer == null) return null;
+        if (writer.isChanging(id)) writer.flush();
+        return writer.getPending(id);
+    }
+
     public CollectionConfiguration getDefaultConfiguration() {
         return this.collectionConfiguration;
     }
@@ -166,6 +207,8 @@ public final class Fulltext {
     }
 
     public void disconnectLocalSolr() {
+        // when the lock is held, the batch was written before the lock was acquired; writing it now could dead-lock with the flusher
+        if (!this.solrInstancesLock.isHeldByCurrentThread()) flushBatch();
         this.solrInstances.disconnectEmbedded();
     }
 
@@ -251,6 +294,7 @@ public final class Fulltext {
     }
 
     public void clearLocalSolr() throws IOException {
+        flushBatch();
         if (this.exportthread != null) {
             this.exportthread.interrupt();
         }
@@ -267,9 +311,11 @@ public final class Fulltext {
         } finally {
             this.solrInstancesLock.unlock();
         }
+        if (this.signatureIndex != null) this.signatureIndex.clear();
     }
 
     public void clearRemoteSolr() throws IOException {
+        flushBatch();
         this.solrInstancesLock.lock();
         try {
             ShardInstance instance = this.solrInstances.getRemote();
@@ -309,6 +355,9 @@ public final class Fulltext {
     }
 
     public void close() {
+        final SolrBatchWriter writer = this.batchWriter;
+        this.batchWriter = null;
+        if (writer != null) writer.close();
         try {
             this.solrInstances.close();
         } catch (Throwable e) {
@@ -318,6 +367,7 @@ public final class Fulltext {
 
     private long lastCommit = 0;
     public void commit(boolean softCommit) {
+        flushBatch();
         long t = System.currentTimeMillis();
         if (lastCommit + 10000 > t) return;
         lastCommit = t;
@@ -353,6 +403,16 @@ public final class Fulltext {
     private URIMetadataNode getMetadata(final byte[] urlHash, final WordReferenceVars wre, final long score) {
         String u = ASCII.String(urlHash);
 
+        // documents which are not yet written to Solr
+        final SolrInputDocument pending = getPending(u);
+        if (pending != null && this.collectionConfiguration != null) {
+            try {
+                return new URIMetadataNode(this.collectionConfiguration.toSolrDocument(pending), wre, score);
+            } catch (final MalformedURLException e) {
+                ConcurrentLog.logException(e);
+            }
+        }
+
         // get the metadata from Solr
         try {
             SolrDocument doc = this.getDefaultConnector().getDocumentById(u);
@@ -373,6 +433,11 @@ public final class Fulltext {
         String url = (String) doc.getFieldValue(CollectionSchema.sku.getSolrFieldName());
         assert url != null && url.length() < 30000;
         ConcurrentLog.info("Fulltext", "indexing: " + id + " " + url);
+        final SolrBatchWriter writer = this.batchWriter;
+        if (writer != null) {
+            writer.putDocument(doc);
+            return;
+        }
         try {
             connector.add(doc);
         } catch (final SolrException e) {
@@ -384,6 +449,11 @@ public final class Fulltext {
     public void putEdges(final Collection<SolrInputDocument> edges) throws IOException {
         if (!this.useWebgraph()) return;
         if (edges == null || edges.size() == 0) return;
+        final SolrBatchWriter writer = this.batchWriter;
+        if (writer != null) {
+            writer.putEdges(edges);
+            return;
+        }
         try {
             this.getWebgraphConnector().add(edges);
         } catch (final SolrException e) {
@@ -434,23 +504,25 @@ public final class Fulltext {
      * @throws IOException
      */
     public void deleteStaleDomainHashes(final Set<String> hosthashes, Date freshdate) {
+        flushBatch();
         // delete in solr
         Date now = new Date();
-        deleteDomainWithConstraint(this.getDefaultConnector(), CollectionSchema.host_id_s.getSolrFieldName(), hosthashes,
+        deleteDomainWithConstraint(true, CollectionSchema.host_id_s.getSolrFieldName(), hosthashes,
                 (freshdate == null || freshdate.after(now)) ? null :
                 (CollectionSchema.load_date_dt.getSolrFieldName() + ":[* TO " + ISO8601Formatter.FORMATTER.format(freshdate) + "]"));
-        if (this.writeWebgraph) deleteDomainWithConstraint(this.getWebgraphConnector(), WebgraphSchema.source_host_id_s.getSolrFieldName(), hosthashes,
+        if (this.writeWebgraph) deleteDomainWithConstraint(false, WebgraphSchema.source_host_id_s.getSolrFieldName(), hosthashes,
                 (freshdate == null || freshdate.after(now)) ? null :
                 (WebgraphSchema.load_date_dt.getSolrFieldName() + ":[* TO " + ISO8601Formatter.FORMATTER.format(freshdate) + "]"));
     }
 
     public void deleteStaleDomainNames(final Set<String> hostnames, Date freshdate) {
+        flushBatch();
 
         Date now = new Date();
-        deleteDomainWithConstraint(this.getDefaultConnector(), CollectionSchema.host_s.getSolrFieldName(), hostnames,
+        deleteDomainWithConstraint(true, CollectionSchema.host_s.getSolrFieldName(), hostnames,
                 (freshdate == null || freshdate.after(now)) ? null :
                 (CollectionSchema.load_date_dt.getSolrFieldName() + ":[* TO " + ISO8601Formatter.FORMATTER.format(freshdate) + "]"));
-        if (this.writeWebgraph) deleteDomainWithConstraint(this.getWebgraphConnector(), WebgraphSchema.source_host_s.getSolrFieldName(), hostnames,
+        if (this.writeWebgraph) deleteDomainWithConstraint(false, WebgraphSchema.source_host_s.getSolrFieldName(), hostnames,
                 (freshdate == null || freshdate.after(now)) ? null :
                 (WebgraphSchema.load_date_dt.getSolrFieldName() + ":[* TO " + ISO8601Formatter.FORMATTER.format(freshdate) + "]"));
     }
@@ -460,10 +532,14 @@ public final class Fulltext {
      * @param hosthashes
      */
     public void deleteDomainErrors(final Set<String> hosthashes) {
-        deleteDomainWithConstraint(this.getDefaultConnector(), CollectionSchema.host_id_s.getSolrFieldName(), hosthashes, CollectionSchema.failreason_s.getSolrFieldName() + AbstractSolrConnector.CATCHALL_DTERM);
+        flushBatch();
+        deleteDomainWithConstraint(true, CollectionSchema.host_id_s.getSolrFieldName(), hosthashes, CollectionSchema.failreason_s.getSolrFieldName() + AbstractSolrConnector.CATCHALL_DTERM);
     }
 
-    private static void deleteDomainWithConstraint(SolrConnector connector, String fieldname, final Set<String> hosthashes, String constraintQuery) {
+    /**
+     * @param collection true to delete in the default collection, false to delete in the webgraph
+     */
+    private void deleteDomainWithConstraint(final boolean collection, String fieldname, final Set<String> hosthashes, String constraintQuery) {
         if (hosthashes == null || hosthashes.size() == 0) return;
         int subsetscount = 1 + (hosthashes.size() / 255); // if the list is too large, we get a "too many boolean clauses" exception
         int c = 0;
@@ -479,18 +555,20 @@ public final class Fulltext {
                     //query.append(CollectionSchema.host_id_s.getSolrFieldName()).append(":\"").append(hosthash).append(":\"");
                     query.append("({!cache=false raw f=").append(fieldname).append('}').append(hosthash).append(")");
                 }
-                if (constraintQuery == null) connector.deleteByQuery(query.toString()); else connector.deleteByQuery("(" + query.toString() + ") AND " + constraintQuery);
+                final String q = constraintQuery == null ? query.toString() : "(" + query.toString() + ") AND " + constraintQuery;
+                if (collection) deleteByQuery(q); else this.getWebgraphConnector().deleteByQuery(q);
             } catch (final IOException e) {
             }
         }
     }
 
     public void deleteOldDocuments(final long deltaToNow, final boolean loaddate) {
+        flushBatch();
         Date deleteageDate = new Date(System.currentTimeMillis() - deltaToNow);
         final String collection1Query = (loaddate ? CollectionSchema.load_date_dt : CollectionSchema.last_modified).getSolrFieldName() + ":[* TO " + ISO8601Formatter.FORMATTER.format(deleteageDate) + "]";
         final String webgraphQuery = (loaddate ? WebgraphSchema.load_date_dt : WebgraphSchema.last_modified).getSolrFieldName() + ":[* TO " + ISO8601Formatter.FORMATTER.format(deleteageDate) + "]";
         try {
-            this.getDefaultConnector().deleteByQuery(collection1Query);
+            deleteByQuery(collection1Query);
             if (this.getWebgraphConnector() != null) this.getWebgraphConnector().deleteByQuery(webgraphQuery);
         } catch (final IOException e) {
         }
@@ -505,6 +583,7 @@ public final class Fulltext {
         DigestURL uri;
         try {uri = new DigestURL(basepath);} catch (final MalformedURLException e) {return 0;}
         final String host = uri.getHost();
+        flushBatch();
         final String collectionQuery = CollectionSchema.host_s.getSolrFieldName() + ":\"" + host + "\"" +
                 ((freshdate != null && freshdate.before(new Date())) ? (" AND " + CollectionSchema.load_date_dt.getSolrFieldName() + ":[* TO " + ISO8601Formatter.FORMATTER.format(freshdate) + "]") : "");
         final AtomicInteger count = new AtomicInteger(0);
@@ -531,7 +610,9 @@ public final class Fulltext {
      */
     public void remove(final Collection<String> deleteIDs) {
         if (deleteIDs == null || deleteIDs.size() == 0) return;
+        flushBatch();
         try {
+            if (this.signatureIndex != null) for (final String id: deleteIDs) this.signatureIndex.remove(id);
             this.getDefaultConnector().deleteByIds(deleteIDs);
             if (this.writeWebgraph) { // Webgraph.id is combination of sourceHash+targetHash+hexCounter, to be successful use source_id_s and/or target_id_s
                 for (String id : deleteIDs) {
@@ -552,8 +633,10 @@ public final class Fulltext {
      */
     public boolean remove(final byte[] urlHash) {
         if (urlHash == null) return false;
+        flushBatch();
         try {
             String id = ASCII.String(urlHash);
+            if (this.signatureIndex != null) this.signatureIndex.remove(id);
             this.getDefaultConnector().deleteById(id);
             if (this.writeWebgraph) { // Webgraph.id is combination of sourceHash+targetHash+hexCounter, to be successful use source_id_s and/or target_id_s
                 /* Add quotes around the url hash to prevent Solr logging a ParseException stack trace when the hash start with a '-' character */
@@ -565,9 +648,36 @@ public final class Fulltext {
         return false;
     }
 
+    /**
+     * Deletes the documents matching a query from the fulltext index; their content signatures are removed from
+     * the signature index. Documents in the webgraph index are not deleted.
+     * @param query a Solr query on the fulltext index
+     * @throws IOException
+     */
+    public void deleteByQuery(final String query) throws IOException {
+        flushBatch();
+        if (this.signatureIndex != null) {
+            final BlockingQueue<String> ids = this.getDefaultConnector().concurrentIDsByQuery(query, null, 0, Integer.MAX_VALUE, Long.MAX_VALUE, 1000, 1);
+            try {
+                String id;
+                while ((id = ids.take()) != AbstractSolrConnector.POISON_ID) this.signatureIndex.remove(id);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+        this.getDefaultConnector().deleteByQuery(query);
+    }
+
     public DigestURL getURL(final String urlHash) throws IOException {
         if (urlHash == null || this.getDefaultConnector() == null) return null;
 
+        final SolrInputDocument pending = getPending(urlHash);
+        if (pending != null) {
+            final String url = (String) pending.getFieldValue(CollectionSchema.sku.getSolrFieldName());
+            if (url != null) return new DigestURL(url, ASCII.getBytes(urlHash));
+        }
+
         SolrConnector.LoadTimeURL md = this.getDefaultConnector().getLoadTimeURL(urlHash);
         if (md == null) return null;
         return new DigestURL(md.url, ASCII.getBytes(urlHash));
@@ -579,6 +689,7 @@ public final class Fulltext {
      * @return whether the documents exists
      */
     public boolean exists(final String id) {
+        if (getPending(id) != null) return true;
         return this.getDefaultConnector().exists(id);
     }
 
@@ -589,6 +700,11 @@ public final class Fulltext {
      */
     private long getLoadTime(final String urlHash) throws IOException {
         if (urlHash == null) return -1l;
+        final SolrInputDocument pending = getPending(urlHash);
+        if (pending != null) {
+            final Object date = pending.getFieldValue(CollectionSchema.load_date_dt.getSolrFieldName());
+            if (date instanceof Date) return ((Date) date).getTime();
+        }
         SolrConnector.LoadTimeURL md = this.getDefaultConnector().getLoadTimeURL(urlHash);
         if (md == null) return -1l;
         return md.date;
@@ -622,6 +738,7 @@ public final class Fulltext {
      * @throws SolrException when no embedded Solr is available
      */
     public File dumpEmbeddedSolr() throws SolrException {
+        flushBatch();
         final EmbeddedInstance esc = this.solrInstances.getEmbedded();
         if(esc == null) {
             throw new SolrException(ErrorCode.SERVICE_UNAVAILABLE, "No embedded Solr available.");
@@ -654,6 +771,7 @@ public final class Fulltext {
      * @throws SolrException when no embedded Solr is available
      */
     public void restoreEmbeddedSolr(final File solrDumpZipFile) {
+        flushBatch();
         final EmbeddedInstance esc = this.solrInstances.getEmbedded();
         if(esc == null) {
             throw new SolrException(ErrorCode.SERVICE_UNAVAILABLE, "No embedded Solr available.");
@@ -695,6 +813,7 @@ public final class Fulltext {
      * Please check before that the local embedded Solr is enabled and no external remote Solr is attached.
      */
     public void rebootEmbeddedLocalSolr() {
+        flushBatch();
         this.solrInstancesLock.lock();
         try {
             this.disconnectLocalSolr();
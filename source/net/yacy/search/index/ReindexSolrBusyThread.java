@@ -19,23 +19,40 @@ package net.yacy.search.index;
  *  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
 
 import net.yacy.cora.federate.solr.connector.AbstractSolrConnector;
 import net.yacy.cora.federate.solr.connector.SolrConnector;
 import net.yacy.cora.sorting.OrderedScoreMap;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
 import net.yacy.kelondro.workflow.AbstractBusyThread;
 import net.yacy.search.Switchboard;
 import net.yacy.search.schema.CollectionConfiguration;
+import net.yacy.search.schema.CollectionSchema;
 
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrInputDocument;
-
+import org.apache.solr.common.params.CursorMarkParams;
    
     /**
      * Reindex selected documents of embedded Solr index.
@@ -51,28 +68,48 @@ import org.apache.solr.common.SolrInputDocument;
      *
      * The thread uses internally a score map for the reindex queries this promotes fields with a low
      * number of documents to get reindexed first.
+     *
+     * The documents of a query are read in the order of their id with a Solr cursor (cursorMark), so
+     * documents which are changed by the reindex are neither skipped nor read twice and no commit is needed
+     * between two chunks. The documents of a chunk are converted and written by a pool of worker threads.
+     * The queries and the cursor are written to a checkpoint file after each chunk, so a reindex which was
+     * interrupted by a shutdown continues after the restart. A chunk is only read while the indexing queues
+     * are not busy.
      */
      public class ReindexSolrBusyThread extends AbstractBusyThread {
 
         public final static String THREAD_NAME = "reindexSolr";
          
+        /** a chunk is only reindexed while the indexing queues contain less documents than this */
+        public final static int MAX_INDEXING_QUEUE_SIZE = 100;
+
         SolrConnector esc;
         final CollectionConfiguration colcfg; // collection config
+        private final Consumer<SolrInputDocument> index; // stores a reindexed document
+        private final IntSupplier indexingQueueSize; // the number of documents waiting in the indexing queues
+        private final File checkpoint; // file with the queries and the cursor of the current query, null if the progress is not stored
+        private final Object checkpointLock = new Object();
+        private final int threads; // number of worker threads
+        private ExecutorService workers = null;
+        private volatile boolean terminated = false;
         int processed = 0; // total number of reindexed documents
         int docstoreindex = 0; // documents found to reindex for current query
         Semaphore sem = new Semaphore(1);
         OrderedScoreMap<String> querylist = new OrderedScoreMap<String>(null); // list of select statements to reindex with number of documents as score
         String currentquery = null;
-        int start = 0; // startindex
+        String cursor = CursorMarkParams.CURSOR_MARK_START; // position of the next chunk of the current query
         int chunksize = 100; // number of documents to reindex per cycle
         
         /**        
          * @param query = a solr query to select documents to reindex (like h5_txt:[* TO *])
          */
         public ReindexSolrBusyThread(String query) {
-            super(100,0);
-            this.esc = Switchboard.getSwitchboard().index.fulltext().getDefaultConnector();
-            this.colcfg = Switchboard.getSwitchboard().index.fulltext().getDefaultConfiguration();
+            this(Switchboard.getSwitchboard().index.fulltext().getDefaultConnector(),
+                 Switchboard.getSwitchboard().index.fulltext().getDefaultConfiguration(),
+                 doc -> Switchboard.getSwitchboard().index.putDocument(doc),
+                 () -> Switchboard.getSwitchboard().getIndexingProcessorsQueueSize(),
+                 checkpointFile(Switchboard.getSwitchboard()),
+                 Runtime.getRuntime().availableProcessors());
 
             if (Switchboard.getSwitchboard().getThread(ReindexSolrBusyThread.THREAD_NAME) != null) {
                 this.interrupt(); // only one active reindex job should exist
@@ -81,16 +118,43 @@ import org.apache.solr.common.SolrInputDocument;
                     this.querylist.set(query, 0);
                 }
             }   
+        }
+
+        /**
+         * @param esc the connector of the documents
+         * @param colcfg the collection configuration which is applied to the documents
+         * @param index stores a reindexed document
+         * @param indexingQueueSize the number of documents waiting in the indexing queues
+         * @param checkpoint the file to store the progress, null if the progress shall not be stored;
+         *        an existing checkpoint is loaded
+         * @param threads the number of worker threads
+         */
+        ReindexSolrBusyThread(final SolrConnector esc, final CollectionConfiguration colcfg, final Consumer<SolrInputDocument> index,
+                final IntSupplier indexingQueueSize, final File checkpoint, final int threads) {
+            super(100,0);
+            this.esc = esc;
+            this.colcfg = colcfg;
+            this.index = index;
+            this.indexingQueueSize = indexingQueueSize;
+            this.checkpoint = checkpoint;
+            this.threads = Math.max(1, threads);
+            readCheckpoint();
             setName(ReindexSolrBusyThread.THREAD_NAME);
             this.setPriority(Thread.MIN_PRIORITY);
+        }
 
+        /**
+         * @return the checkpoint file of the reindex in the work path
+         */
+        public static File checkpointFile(final Switchboard sb) {
+            return new File(sb.workPath, THREAD_NAME + ".checkpoint");
         }
 
         /**
          * add a query selecting documents to reindex
          */
         public void addSelectQuery(String query) {
-            if (query != null && !query.isEmpty()) {
+            if (query != null && !query.isEmpty() && !querylist.containsKey(query)) {
                 querylist.set(query, 0);
             }
         }
@@ -103,54 +167,59 @@ import org.apache.solr.common.SolrInputDocument;
          */
         public void addSelectFieldname(String field) {
             if (field != null && !field.isEmpty()) {
-                querylist.set(field + AbstractSolrConnector.CATCHALL_DTERM, 0);
+                addSelectQuery(field + AbstractSolrConnector.CATCHALL_DTERM);
             }
         }
        
         /**
          * each call reindexes a chunk of 100 documents until all selected documents are reindexed
-         * @return false if no documents selected
+         * @return false if no documents selected or if the indexing queues are busy
          */
         @Override
         public boolean job() {
             boolean ret = true;
             if (esc != null && colcfg != null && !querylist.isEmpty()) {
 
+                if (indexingQueueSize.getAsInt() >= MAX_INDEXING_QUEUE_SIZE) {
+                    return false; // wait until the indexing queues are processed
+                }
                 if (sem.tryAcquire()) { // allow only one working cycle
                     try {
-                        currentquery = querylist.keys(true).next(); // get next query with lowest number of documents found
-                        SolrDocumentList xdocs = esc.getDocumentListByQuery(currentquery, null, start, chunksize);
+                        if (currentquery == null || !querylist.containsKey(currentquery)) { // a query is continued until all its documents are reindexed
+                            currentquery = querylist.keys(true).next(); // get next query with lowest number of documents found
+                            cursor = CursorMarkParams.CURSOR_MARK_START;
+                        }
+                        final SolrQuery params = AbstractSolrConnector.getSolrQuery(currentquery, CollectionSchema.id.getSolrFieldName() + " asc", 0, chunksize);
+                        params.set(CursorMarkParams.CURSOR_MARK_PARAM, cursor);
+                        final QueryResponse rsp = esc.getResponseByParams(params);
+                        final SolrDocumentList xdocs = rsp.getResults();
+                        final String nextcursor = rsp.getNextCursorMark();
                         
-                        if (xdocs.size() == 0) { // no documents returned = all of current query reindexed (or eventual start to large)                                                       
-
-                            if (start > 0) { // if previous cycle reindexed, commit to prevent reindex of same documents
-                                esc.commit(true);
-                                start = 0;
-                            } else { // if start == 0 and nothing found, query can be deleted for sure
-                               querylist.delete(currentquery); // remove current query
-                            }
-                            
+                        if (xdocs.size() > 0) {
+                            docstoreindex = (int) xdocs.getNumFound();
+                            ConcurrentLog.info("MIGRATION-REINDEX", "reindex docs with query=" + currentquery + " found=" + docstoreindex + " cursor=" + cursor);
+                            querylist.set(currentquery, docstoreindex);
+                            reindex(xdocs);
+                        }
+                        if (xdocs.size() < chunksize || nextcursor == null || nextcursor.equals(cursor)) { // the last chunk of the current query
+                            if (xdocs.size() > 0) esc.commit(true);
+                            querylist.delete(currentquery); // remove current query
+                            currentquery = null;
+                            cursor = CursorMarkParams.CURSOR_MARK_START;
                             if (chunksize < 100) { // try to increase chunksize (if reduced by freemem)
                                 chunksize = chunksize + 10;
                             }
                         } else {
-                            docstoreindex = (int) xdocs.getNumFound();
-                            ConcurrentLog.info("MIGRATION-REINDEX", "reindex docs with query=" + currentquery + " found=" + docstoreindex + " start=" + start);
-                            start = start + chunksize;
-                            querylist.set(currentquery, docstoreindex);
-                            for (SolrDocument doc : xdocs) {
-                                URIMetadataNode pdoc = new URIMetadataNode(doc); // use Metadata as it verifies correct/current Doc.ID
-                                SolrInputDocument idoc = colcfg.toSolrInputDocument(pdoc);
-                                Switchboard.getSwitchboard().index.putDocument(idoc);
-                                processed++;
-                            }
-                            if (xdocs.size() >= docstoreindex) { // number processed docs >= found docs -> end condition for this query as no more docs avail-
-                                querylist.delete(currentquery);  // 2017-02-27 added on occurence of 21 docs found 21 processed but somehow on next call 21 docs again found (some commit issue ??)
-                            }
+                            cursor = nextcursor;
                         }                        
+                        writeCheckpoint();
+                    } catch (final InterruptedException ex) {
+                        // the chunk is reindexed again from the same cursor
+                        ret = false;
                     } catch (final IOException ex) {
                         ConcurrentLog.warn("MIGRATION-REINDEX", "remove following query from list due to error, q=" + currentquery);
                         querylist.delete(currentquery);
+                        currentquery = null;
                         ConcurrentLog.logException(ex);
                     } finally {
                         sem.release();
@@ -161,20 +230,111 @@ import org.apache.solr.common.SolrInputDocument;
             }
 
             if (querylist.isEmpty()) { // if all processed remove from scheduled list (and terminate thread)
-                Switchboard.getSwitchboard().terminateThread(ReindexSolrBusyThread.THREAD_NAME, false);
+                final Switchboard sb = Switchboard.getSwitchboard();
+                if (sb != null) sb.terminateThread(ReindexSolrBusyThread.THREAD_NAME, false);
+                if (this.checkpoint != null) this.checkpoint.delete();
                 ret = false;
             }
             return ret;
         }
               
+        /**
+         * convert and store the documents of a chunk with the worker threads and wait until all are stored
+         */
+        private void reindex(final SolrDocumentList xdocs) throws InterruptedException {
+            if (workers == null) {
+                workers = Executors.newFixedThreadPool(threads, new NamePrefixThreadFactory(ReindexSolrBusyThread.class.getSimpleName() + ".worker"));
+            }
+            final List<Future<?>> tasks = new ArrayList<Future<?>>(xdocs.size());
+            for (final SolrDocument doc : xdocs) {
+                tasks.add(workers.submit(() -> {
+                    URIMetadataNode pdoc = new URIMetadataNode(doc); // use Metadata as it verifies correct/current Doc.ID
+                    SolrInputDocument idoc = colcfg.toSolrInputDocument(pdoc);
+                    index.accept(idoc);
+                    return null;
+                }));
+            }
+            for (final Future<?> task : tasks) {
+                try {
+                    task.get();
+                    processed++;
+                } catch (final ExecutionException ex) {
+                    ConcurrentLog.warn("MIGRATION-REINDEX", "failed to reindex a document: " + ex.getCause());
+                }
+            }
+        }
       
+        /**
+         * load the queries and the cursor of an interrupted reindex
+         */
+        private void readCheckpoint() {
+            if (this.checkpoint == null || !this.checkpoint.exists()) return;
+            final Properties p = new Properties();
+            try (final InputStream in = new FileInputStream(this.checkpoint)) {
+                p.load(in);
+                final int count = Integer.parseInt(p.getProperty("queries"));
+                for (int i = 0; i < count; i++) {
+                    querylist.set(p.getProperty("query." + i), Integer.parseInt(p.getProperty("score." + i, "0")));
+                }
+                currentquery = p.getProperty("current");
+                cursor = p.getProperty("cursor", CursorMarkParams.CURSOR_MARK_START);
+                processed = Integer.parseInt(p.getProperty("processed", "0"));
+                ConcurrentLog.info("MIGRATION-REINDEX", "resuming reindex of " + count + " queries from checkpoint " + this.checkpoint);
+            } catch (final IOException | RuntimeException e) {
+                ConcurrentLog.warn("MIGRATION-REINDEX", "ignoring checkpoint " + this.checkpoint + ": " + e.getMessage());
+                querylist.clear();
+                currentquery = null;
+                cursor = CursorMarkParams.CURSOR_MARK_START;
+            }
+        }
+
+        /**
+         * store the queries and the cursor of the current query, so the reindex can be resumed
+         */
+        private void writeCheckpoint() {
+            if (this.checkpoint == null) return;
+            final Properties p = new Properties();
+            int i = 0;
+            for (final String query : querylist) {
+                p.setProperty("query." + i, query);
+                p.setProperty("score." + i, Integer.toString(querylist.get(query)));
+                i++;
+            }
+            p.setProperty("queries", Integer.toString(i));
+            if (currentquery != null) p.setProperty("current", currentquery);
+            p.setProperty("cursor", cursor);
+            p.setProperty("processed", Integer.toString(processed));
+            synchronized (this.checkpointLock) {
+                if (this.terminated || i == 0) return;
+                this.checkpoint.getParentFile().mkdirs();
+                final File tmp = new File(this.checkpoint.getParentFile(), this.checkpoint.getName() + ".tmp");
+                try (final OutputStream out = new FileOutputStream(tmp)) {
+                    p.store(out, "ReindexSolrBusyThread checkpoint");
+                } catch (final IOException e) {
+                    ConcurrentLog.warn("MIGRATION-REINDEX", "could not write checkpoint " + this.checkpoint + ": " + e.getMessage());
+                    return;
+                }
+                this.checkpoint.delete();
+                tmp.renameTo(this.checkpoint);
+            }
+        }
+
+         /**
+          * stop the reindex; the checkpoint is kept if the peer shuts down, so the reindex continues after the restart
+          */
          @Override
          public void terminate(final boolean waitFor) {
+             synchronized (this.checkpointLock) {
+                 this.terminated = true;
+                 final Switchboard sb = Switchboard.getSwitchboard();
+                 if (this.checkpoint != null && (sb == null || !sb.isTerminated())) this.checkpoint.delete();
+             }
              querylist.clear();
              // if interrupted without finished commit to reflect latest changes
              if (docstoreindex > 0 && processed > 0) {
                  esc.commit(true);
              }
+             if (workers != null) workers.shutdown();
              super.terminate(waitFor);
          }
         
@@ -189,7 +349,7 @@ import org.apache.solr.common.SolrInputDocument;
          * @return the currently processed Solr select query 
          */
         public String getCurrentQuery() {            
-            return querylist.isEmpty() ? "" : currentquery;
+            return querylist.isEmpty() || currentquery == null ? "" : currentquery;
         }
 
         /**          
@@ -214,8 +374,6 @@ import org.apache.solr.common.SolrInputDocument;
                 this.chunksize = this.chunksize / 2;
             }
             esc.commit(true);
-            start = 0;            
         }
 
     }
-
@@ -84,6 +84,7 @@ import net.yacy.kelondro.table.IndexTable;
 import net.yacy.kelondro.util.Bitfield;
 import net.yacy.kelondro.util.ISO639;
 import net.yacy.kelondro.util.MemoryControl;
+import net.yacy.kelondro.util.StartupLoader;
 import net.yacy.repository.LoaderDispatcher;
 import net.yacy.search.query.SearchEvent;
 import net.yacy.search.schema.CollectionConfiguration;
@@ -112,6 +113,8 @@ public class Segment {
     public static final String termIndexName = "text.index";
     public static final String citationIndexName = "citation.index";
     public static final String firstseenIndexName = "firstseen.index";
+    public static final String citationRankName = "citation.rank"; // fingerprints of the host link graphs of the citation rank
+    public static final String signatureIndexName = "signature.index";
 
     // the reference factory
     public static final ReferenceFactory<WordReference> wordReferenceFactory = new WordReferenceFactory();
@@ -121,9 +124,11 @@ public class Segment {
     private   final ConcurrentLog                  log;
     private   final File                           segmentPath;
     protected final Fulltext                       fulltext;
-    protected       IndexCell<WordReference>       termIndex;
-    protected       IndexCell<CitationReference>   urlCitationIndex;
+    protected volatile IndexCell<WordReference>    termIndex;        // may be connected concurrently by the start-up loader
+    protected volatile IndexCell<CitationReference> urlCitationIndex;
     protected       IndexTable                     firstSeenIndex;
+    private volatile StartupLoader.Store           termIndexLoad = null; // the background load of the term index, null if it is not loaded in the background
+    protected       SignatureIndex                 signatureIndex; // clusters of documents with the same content signature
     protected       IODispatcher                   merger = null; // shared iodispatcher for kelondro indexes
 
     /**
@@ -134,17 +139,41 @@ public class Segment {
      */
     public Segment(final ConcurrentLog log, final File segmentPath, final File archivePath,
             final CollectionConfiguration collectionConfiguration, final WebgraphConfiguration webgraphConfiguration) throws IOException {
+        this(log, segmentPath, archivePath, collectionConfiguration, webgraphConfiguration, false);
+    }
+
+    /**
+     * create a new Segment
+     * @param log logger instance
+     * @param segmentPath that should be the path pointing to the directory "SEGMENT"
+     * @param diskIndex when true, the key indexes of the first-seen table and of the signature index are kept in files instead of the RAM;
+     *        this saves memory but makes the lookups slower and needs a rebuild after an unclean shutdown
+     * @throws IOException when an error occurs
+     */
+    public Segment(final ConcurrentLog log, final File segmentPath, final File archivePath,
+            final CollectionConfiguration collectionConfiguration, final WebgraphConfiguration webgraphConfiguration,
+            final boolean diskIndex) throws IOException {
         log.info("Initializing Segment '" + segmentPath + ".");
         this.log = log;
         this.segmentPath = segmentPath;
         archivePath.mkdirs();
         
-        this.fulltext = new Fulltext(segmentPath, archivePath, collectionConfiguration, webgraphConfiguration);
+        // the signature index is not created if no unique flag or copy count of a signature is configured
+        this.signatureIndex = SignatureIndex.isUsed(collectionConfiguration) ? new SignatureIndex(new File(segmentPath, signatureIndexName), diskIndex) : null;
+        this.fulltext = new Fulltext(segmentPath, archivePath, collectionConfiguration, webgraphConfiguration, this.signatureIndex);
         this.termIndex = null;
         this.urlCitationIndex = null;
-        this.firstSeenIndex = new IndexTable(new File(segmentPath, firstseenIndexName), 12, 8, false, false);
+        this.firstSeenIndex = new IndexTable(new File(segmentPath, firstseenIndexName), 12, 8, false, false, diskIndex);
     }
     
+    private synchronized IODispatcher merger() {
+        if (this.merger == null) { // init shared iodispatcher if none running
+            this.merger = new IODispatcher(2, 2, writeBufferSize);
+            this.merger.start();
+        }
+        return this.merger;
+    }
+
     public boolean connectedRWI() {
         return this.termIndex != null;
     }
@@ -152,10 +181,7 @@ public class Segment {
     public void connectRWI(final int entityCacheMaxSize, final long maxFileSize) throws IOException {
         if (this.termIndex != null) return;
         
-        if (this.merger == null) { // init shared iodispatcher if none running
-            this.merger = new IODispatcher(2, 2, writeBufferSize);
-            this.merger.start();
-        }
+        final IODispatcher merger = merger();
         this.termIndex = new IndexCell<WordReference>(
                         new File(this.segmentPath, "default"),
                         termIndexName,
@@ -169,6 +195,14 @@ public class Segment {
                         merger);
     }
 
+    /**
+     * Let the writes to the RWI wait until the term index is connected by a background load
+     * @param load the load of the term index by the start-up loader
+     */
+    public void connectRWILater(final StartupLoader.Store load) {
+        this.termIndexLoad = load;
+    }
+
     public void disconnectRWI() {
         if (this.termIndex == null) return;
         this.termIndex.close();
@@ -182,10 +216,7 @@ public class Segment {
     public void connectCitation(final int entityCacheMaxSize, final long maxFileSize) throws IOException {
         if (this.urlCitationIndex != null) return;
 
-        if (this.merger == null) { // init shared iodispatcher if none running
-            this.merger = new IODispatcher(2,2,writeBufferSize);
-            this.merger.start();
-        }
+        final IODispatcher merger = merger();
         this.urlCitationIndex = new IndexCell<CitationReference>(
                         new File(this.segmentPath, "default"),
                         citationIndexName,
@@ -228,6 +259,13 @@ public class Segment {
     public IndexTable firstSeen() {
         return this.firstSeenIndex;
     }
+
+    /**
+     * @return the index of the content signatures, or null if no unique flag or copy count of a signature was configured at start-up
+     */
+    public SignatureIndex signatureIndex() {
+        return this.signatureIndex;
+    }
     
     public ReferenceReportCache getReferenceReportCache()  {
         return new ReferenceReportCache();
@@ -483,6 +521,7 @@ public class Segment {
         if (this.fulltext != null) this.fulltext.close();
         if (this.urlCitationIndex != null) this.urlCitationIndex.close();
         if (this.firstSeenIndex != null) this.firstSeenIndex.close();
+        if (this.signatureIndex != null) this.signatureIndex.close();
         if (this.merger != null) {
             this.merger.terminate();
             this.merger = null;
@@ -536,13 +575,25 @@ public class Segment {
     }
 
     public void storeRWI(final ReferenceContainer<WordReference> wordContainer) throws IOException, SpaceExceededException {
+        awaitRWI();
         if (this.termIndex != null) this.termIndex.add(wordContainer);
     }
 
     public void storeRWI(final byte[] termHash, final WordReference entry) throws IOException, SpaceExceededException {
+        awaitRWI();
         if (this.termIndex != null) this.termIndex.add(termHash, entry);
     }
 
+    /**
+     * wait until the term index is connected, if it is still loaded in the background; otherwise the entries would be lost
+     */
+    private void awaitRWI() {
+        final StartupLoader.Store load = this.termIndexLoad;
+        if (load == null) return;
+        if (this.termIndex == null) load.await();
+        this.termIndexLoad = null;
+    }
+
     /**
      * putDocument should not be called directly; instead, put queueEntries to
      * indexingPutDocumentProcessor
@@ -619,6 +670,9 @@ public class Segment {
 
         // ENRICH DOCUMENT WITH RANKING INFORMATION
         this.fulltext.getDefaultConfiguration().postprocessing_references(this.getReferenceReportCache(), vector, url, null);
+
+        // FIND DOCUMENTS WITH THE SAME CONTENT
+        if (this.signatureIndex != null) this.signatureIndex.store(collectionConfig, vector);
         
         // CREATE SNAPSHOT
         if ((url.getProtocol().equals("http") || url.getProtocol().equals("https")) &&
@@ -0,0 +1,345 @@
+// SignatureIndex.java
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.solr.common.SolrDocumentBase;
+import org.apache.solr.common.SolrInputDocument;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.NaturalOrder;
+import net.yacy.cora.util.ByteArray;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.index.Row;
+import net.yacy.kelondro.table.Table;
+import net.yacy.kelondro.util.kelondroException;
+import net.yacy.search.schema.CollectionConfiguration;
+import net.yacy.search.schema.CollectionSchema;
+
+/**
+ * A stored index of the content signatures of the documents, which finds documents with the same content
+ * within a host at the time when a document is stored. Documents are grouped into clusters by their host,
+ * the kind of the signature and the signature value. The fuzzy signature is a profile hash of the quantized
+ * term frequencies of a text (see EnhancedTextProfileSignature), so near-duplicate texts have the same fuzzy
+ * signature and fall into the same cluster.
+ * <p>
+ * A cluster stores the number of its valid documents (status 200, no noindex, no canonical link to another url)
+ * and the first valid document which joined it; that document is the unique one of the cluster. When it leaves the
+ * cluster, another valid document of the cluster becomes the unique one.
+ * Each stored document is remembered with its signature, so a document which is stored again
+ * with another signature changes its cluster and is not counted twice.
+ */
+public class SignatureIndex {
+
+    private final static ConcurrentLog log = new ConcurrentLog("SignatureIndex");
+
+    /** the signature kinds, as used in the keys of the index */
+    public final static byte EXACT = 'e', FUZZY = 'f';
+
+    private final static int ID_LENGTH = 12, HOST_LENGTH = 6;
+
+    /** the signature field, the unique flag and the copy count field for each signature kind */
+    private final static Object[][] SIGNATURE_FIELDS = new Object[][]{
+        {EXACT, CollectionSchema.exact_signature_l, CollectionSchema.exact_signature_unique_b, CollectionSchema.exact_signature_copycount_i},
+        {FUZZY, CollectionSchema.fuzzy_signature_l, CollectionSchema.fuzzy_signature_unique_b, CollectionSchema.fuzzy_signature_copycount_i}};
+
+    /**
+     * the cluster of a document
+     */
+    public static final class Cluster {
+        /** the number of valid documents with the same signature on the same host, including the document itself */
+        public final int count;
+        /** true if the document was the first valid document with the signature or if there is no other valid document */
+        public final boolean unique;
+        private Cluster(final int count, final boolean unique) {
+            this.count = count;
+            this.unique = unique;
+        }
+    }
+
+    private final Table clusters; // key: host hash + kind + signature; value: number of valid documents, id of the first document
+    private final Table members; // key: document id + kind; value: signature, valid flag
+    private final Table references; // key: host hash + kind + signature + document id, for each valid document of a cluster
+
+    /**
+     * open or create the index with the keys of its tables in the RAM
+     * @param location the path prefix of the table files of the index
+     * @throws IOException
+     */
+    public SignatureIndex(final File location) throws IOException {
+        this(location, false);
+    }
+
+    /**
+     * open or create the index. The index has three tables; without the disk index, the keys of all their rows
+     * are held in the RAM: about 50 bytes for each stored document and each configured signature kind, and 20 bytes for each cluster.
+     * @param location the path prefix of the table files of the index
+     * @param diskIndex when true, the keys of the tables are kept in sorted files instead of the RAM;
+     *        this saves memory but makes the lookups slower and needs a rebuild after an unclean shutdown
+     * @throws IOException
+     */
+    public SignatureIndex(final File location, final boolean diskIndex) throws IOException {
+        this.clusters = table(new File(location.getParentFile(), location.getName() + ".clusters"), new Row(
+                "byte[] key-" + (HOST_LENGTH + 1 + 8) + ", Cardinal count-4 {b256}, byte[] first-" + ID_LENGTH, NaturalOrder.naturalOrder), diskIndex);
+        this.members = table(new File(location.getParentFile(), location.getName() + ".members"), new Row(
+                "byte[] key-" + (ID_LENGTH + 1) + ", long signature-8 {b256}, Cardinal valid-1 {b256}", NaturalOrder.naturalOrder), diskIndex);
+        this.references = table(new File(location.getParentFile(), location.getName() + ".references"), new Row(
+                "byte[] key-" + (HOST_LENGTH + 1 + 8 + ID_LENGTH) + ", Cardinal valid-1 {b256}", NaturalOrder.naturalOrder), diskIndex);
+    }
+
+    /**
+     * the index is only needed if a unique flag or a copy count of a signature is configured
+     * @param configuration the collection configuration, may be null
+     * @return true if the configuration has a signature field together with its unique flag or its copy count field
+     */
+    public static boolean isUsed(final CollectionConfiguration configuration) {
+        if (configuration == null) return false;
+        for (final Object[] fields: SIGNATURE_FIELDS) {
+            if (configuration.contains((CollectionSchema) fields[1]) &&
+                (configuration.contains((CollectionSchema) fields[2]) || configuration.contains((CollectionSchema) fields[3]))) return true;
+        }
+        return false;
+    }
+
+    private static Table table(final File location, final Row row, final boolean diskIndex) throws IOException {
+        try {
+            return new Table(location, row, 1024 * 1024, 0, false, false, true, diskIndex);
+        } catch (final SpaceExceededException e) {
+            try {
+                return new Table(location, row, 0, 0, false, false, true, diskIndex);
+            } catch (kelondroException | SpaceExceededException e1) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    /**
+     * a document is valid for the signature clusters if it has the status 200, has no noindex attribute
+     * and has no canonical link which points to another url
+     * @param doc a stored document or a document which shall be stored
+     */
+    public static boolean isValid(final SolrDocumentBase<?, ?> doc) {
+        final Object httpstatus = doc.getFieldValue(CollectionSchema.httpstatus_i.getSolrFieldName());
+        if (httpstatus != null && ((Number) httpstatus).intValue() != 200) return false;
+        final Object canonicalEqual = doc.getFieldValue(CollectionSchema.canonical_equal_sku_b.getSolrFieldName());
+        if (canonicalEqual != null && !((Boolean) canonicalEqual).booleanValue()) return false;
+        final Object robots = doc.getFieldValue(CollectionSchema.robots_i.getSolrFieldName());
+        if (robots != null && (((Number) robots).intValue() & ((1 << 3) | (1 << 9))) != 0) return false; // noindex in html metas or in http X-ROBOTS
+        return true;
+    }
+
+    /**
+     * Put the signatures of a document which is stored into the index and set its unique flags and copy counts.
+     * @param configuration the collection configuration; only the configured unique flags and copy counts are set
+     * @param doc the document which is stored
+     */
+    public void store(final CollectionConfiguration configuration, final SolrInputDocument doc) {
+        final String id = (String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName());
+        if (id == null || id.length() != ID_LENGTH) return;
+        final boolean valid = isValid(doc);
+        for (final Object[] fields: SIGNATURE_FIELDS) {
+            final CollectionSchema signaturefield = (CollectionSchema) fields[1], uniquefield = (CollectionSchema) fields[2], countfield = (CollectionSchema) fields[3];
+            if (!configuration.contains(signaturefield) || !(configuration.contains(uniquefield) || configuration.contains(countfield))) continue;
+            final Object signature = doc.getFieldValue(signaturefield.getSolrFieldName());
+            if (signature == null) continue;
+            try {
+                final Cluster cluster = put(id, (Byte) fields[0], ((Long) signature).longValue(), valid);
+                if (configuration.contains(uniquefield)) doc.setField(uniquefield.getSolrFieldName(), cluster.unique);
+                if (configuration.contains(countfield)) doc.setField(countfield.getSolrFieldName(), cluster.count);
+            } catch (final IOException e) {
+                log.warn("failed to store the signature of " + id + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Put a signature of a document into the index.
+     * @param id the document id; the host hash is the second half of the id
+     * @param kind the signature kind, {@link #EXACT} or {@link #FUZZY}
+     * @param signature the signature value
+     * @param valid true if the document is valid for the clusters, see {@link #isValid(SolrDocumentBase)}
+     * @return the cluster of the document
+     * @throws IOException
+     */
+    public synchronized Cluster put(final String id, final byte kind, final long signature, final boolean valid) throws IOException {
+        final byte[] memberKey = memberKey(id, kind);
+        final Row.Entry member = this.members.get(memberKey, false);
+        if (member != null) {
+            final long oldSignature = member.getColLong(1);
+            final boolean oldValid = member.getColLong(2) != 0;
+            if (oldSignature == signature && oldValid == valid) return cluster(id, kind, signature, valid);
+            if (oldValid) leave(id, kind, oldSignature);
+        }
+        final Row.Entry entry = this.members.row().newEntry();
+        entry.setCol(0, memberKey);
+        entry.setCol(1, signature);
+        entry.setCol(2, valid ? 1 : 0);
+        replace(this.members, entry);
+        if (valid) join(id, kind, signature);
+        return cluster(id, kind, signature, valid);
+    }
+
+    /**
+     * get the cluster of a stored document
+     * @param id the document id
+     * @param kind the signature kind, {@link #EXACT} or {@link #FUZZY}
+     * @return the cluster of the document or null if the document was not stored with the index
+     * @throws IOException
+     */
+    public synchronized Cluster get(final String id, final byte kind) throws IOException {
+        final Row.Entry member = this.members.get(memberKey(id, kind), false);
+        if (member == null) return null;
+        return cluster(id, kind, member.getColLong(1), member.getColLong(2) != 0);
+    }
+
+    /**
+     * remove all signatures of a document from the index
+     * @param id the document id
+     * @throws IOException
+     */
+    public synchronized void remove(final String id) throws IOException {
+        if (id == null || id.length() != ID_LENGTH) return;
+        for (final byte kind: new byte[]{EXACT, FUZZY}) {
+            final Row.Entry member = this.members.remove(memberKey(id, kind));
+            if (member != null && member.getColLong(2) != 0) leave(id, kind, member.getColLong(1));
+        }
+    }
+
+    private Cluster cluster(final String id, final byte kind, final long signature, final boolean valid) throws IOException {
+        final Row.Entry cluster = this.clusters.get(clusterKey(id, kind, signature), false);
+        final int count = cluster == null ? 0 : (int) cluster.getColLong(1);
+        if (!valid) return new Cluster(count + 1, count == 0); // the document itself is not counted in the cluster
+        return new Cluster(Math.max(1, count), count <= 1 || id.equals(cluster.getColASCII(2)));
+    }
+
+    private void join(final String id, final byte kind, final long signature) throws IOException {
+        final byte[] key = clusterKey(id, kind, signature);
+        final Row.Entry cluster = this.clusters.get(key, false);
+        final Row.Entry entry = this.clusters.row().newEntry();
+        entry.setCol(0, key);
+        entry.setCol(1, cluster == null ? 1 : cluster.getColLong(1) + 1);
+        entry.setCol(2, cluster == null ? ASCII.getBytes(id) : cluster.getColBytes(2, false));
+        replace(this.clusters, entry);
+        final Row.Entry reference = this.references.row().newEntry();
+        reference.setCol(0, referenceKey(key, id));
+        reference.setCol(1, 1);
+        replace(this.references, reference);
+    }
+
+    private void leave(final String id, final byte kind, final long signature) throws IOException {
+        final byte[] key = clusterKey(id, kind, signature);
+        this.references.delete(referenceKey(key, id));
+        final Row.Entry cluster = this.clusters.get(key, false);
+        if (cluster == null) return;
+        final long count = cluster.getColLong(1) - 1;
+        if (count <= 0) {
+            this.clusters.remove(key);
+            return;
+        }
+        final Row.Entry entry = this.clusters.row().newEntry();
+        entry.setCol(0, key);
+        entry.setCol(1, count);
+        if (id.equals(cluster.getColASCII(2))) {
+            // the first document leaves: another valid document of the cluster becomes the first one
+            final byte[] first = anyReference(key);
+            if (first != null) entry.setCol(2, first);
+        } else {
+            entry.setCol(2, cluster.getColBytes(2, false));
+        }
+        replace(this.clusters, entry);
+    }
+
+    /**
+     * @return the id of a valid document of a cluster or null if there is none
+     */
+    private byte[] anyReference(final byte[] clusterKey) throws IOException {
+        final byte[] start = new byte[clusterKey.length + ID_LENGTH]; // the smallest reference key of the cluster
+        System.arraycopy(clusterKey, 0, start, 0, clusterKey.length);
+        final Iterator<byte[]> i = this.references.keys(true, start);
+        if (!i.hasNext()) return null;
+        final byte[] reference = i.next();
+        if (reference == null || !ByteArray.startsWith(reference, clusterKey)) return null;
+        final byte[] id = new byte[ID_LENGTH];
+        System.arraycopy(reference, clusterKey.length, id, 0, ID_LENGTH);
+        return id;
+    }
+
+    private static void replace(final Table table, final Row.Entry entry) throws IOException {
+        try {
+            table.replace(entry);
+        } catch (final SpaceExceededException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static byte[] memberKey(final String id, final byte kind) {
+        final byte[] key = new byte[ID_LENGTH + 1];
+        System.arraycopy(ASCII.getBytes(id), 0, key, 0, ID_LENGTH);
+        key[ID_LENGTH] = kind;
+        return key;
+    }
+
+    private static byte[] referenceKey(final byte[] clusterKey, final String id) {
+        final byte[] key = new byte[clusterKey.length + ID_LENGTH];
+        System.arraycopy(clusterKey, 0, key, 0, clusterKey.length);
+        System.arraycopy(ASCII.getBytes(id), 0, key, clusterKey.length, ID_LENGTH);
+        return key;
+    }
+
+    private static byte[] clusterKey(final String id, final byte kind, final long signature) {
+        final byte[] key = new byte[HOST_LENGTH + 1 + 8];
+        System.arraycopy(ASCII.getBytes(id), ID_LENGTH - HOST_LENGTH, key, 0, HOST_LENGTH);
+        key[HOST_LENGTH] = kind;
+        for (int i = 0; i < 8; i++) key[HOST_LENGTH + 1 + i] = (byte) (signature >>> (56 - 8 * i));
+        return key;
+    }
+
+    /**
+     * @return the number of clusters with valid documents
+     */
+    public int size() {
+        return this.clusters.size();
+    }
+
+    /**
+     * remove all entries
+     * @throws IOException
+     */
+    public synchronized void clear() throws IOException {
+        this.clusters.clear();
+        this.members.clear();
+        this.references.clear();
+    }
+
+    /**
+     * close the index. must be called to finally write all data to disc
+     */
+    public synchronized void close() {
+        this.clusters.close();
+        this.members.close();
+        this.references.close();
+    }
+}
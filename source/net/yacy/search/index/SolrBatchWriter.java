@@ -0,0 +1,370 @@
+// SolrBatchWriter.java
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+
+import net.yacy.cora.federate.solr.connector.SolrConnector;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.kelondro.util.MemoryControl;
+import net.yacy.search.schema.CollectionSchema;
+
+/**
+ * Collects documents and webgraph edges and writes them to Solr in batches (group commit), so that the
+ * overhead of an update request is shared by many documents. A batch is written when it has the maximum
+ * number of documents or edges, or when its first entry waits longer than the maximum delay. Threads which
+ * fill a batch write it themselves, which slows down the indexing when Solr can not keep up.
+ * <p>
+ * Documents which are not yet written can be read from the pending documents, so that a document which was
+ * put can be found immediately, as if it was written to Solr directly. A partial update of a pending document
+ * is applied to a copy of it; a partial update of a document which is only in Solr marks the id as changing,
+ * and a reader must flush the batch before it reads that document from Solr.
+ */
+public class SolrBatchWriter {
+
+    private final static ConcurrentLog log = new ConcurrentLog("SolrBatchWriter");
+
+    /** the number of edges in a batch is limited to this factor of the maximum number of documents */
+    private final static int EDGES_PER_DOCUMENT = 100;
+
+    /** the pending value of an id whose document is only known after the batch is written */
+    private final static SolrInputDocument CHANGING = new SolrInputDocument();
+
+    private final Supplier<SolrConnector> documentConnector, edgeConnector;
+    private final int maxDocs;
+    private final long maxDelay;
+
+    private final Object lock = new Object(); // synchronizes the current batch
+    private final Object writeLock = new Object(); // batches are written one after another to keep the order of updates
+    private List<SolrInputDocument> docs, edges;
+    private long batchStart; // the time when the first entry of the current batch was added
+    private final Map<String, SolrInputDocument> pending; // the latest complete document for each id which is not yet written, with its partial updates
+    private final Map<String, SolrInputDocument> latest; // the latest document or partial update for each id which is not yet written
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    // statistics
+    private long batches, docsWritten, edgesWritten, writeTime, lastLatency, failedBatches, failedDocs;
+
+    /**
+     * @param documentConnector the connector for the documents, evaluated for each batch
+     * @param edgeConnector the connector for the webgraph edges, evaluated for each batch; may return null
+     * @param maxDocs the maximum number of documents in a batch
+     * @param maxDelay the maximum time in milliseconds that a document waits before its batch is written
+     */
+    public SolrBatchWriter(final Supplier<SolrConnector> documentConnector, final Supplier<SolrConnector> edgeConnector, final int maxDocs, final long maxDelay) {
+        this.documentConnector = documentConnector;
+        this.edgeConnector = edgeConnector;
+        this.maxDocs = Math.max(1, maxDocs);
+        this.maxDelay = Math.max(1, maxDelay);
+        this.docs = new ArrayList<SolrInputDocument>(this.maxDocs);
+        this.edges = new ArrayList<SolrInputDocument>();
+        this.pending = new ConcurrentHashMap<String, SolrInputDocument>();
+        this.latest = new HashMap<String, SolrInputDocument>();
+        this.closed = false;
+        this.flusher = new Thread("SolrBatchWriter.flusher") {
+            @Override
+            public void run() {
+                while (!SolrBatchWriter.this.closed) {
+                    try {
+                        long wait;
+                        synchronized (SolrBatchWriter.this.lock) {
+                            wait = SolrBatchWriter.this.docs.isEmpty() && SolrBatchWriter.this.edges.isEmpty() ? SolrBatchWriter.this.maxDelay :
+                                SolrBatchWriter.this.batchStart + SolrBatchWriter.this.maxDelay - System.currentTimeMillis();
+                            if (wait > 0) SolrBatchWriter.this.lock.wait(wait);
+                        }
+                        if (wait <= 0) flush();
+                    } catch (final InterruptedException e) {
+                        break;
+                    } catch (final Throwable e) {
+                        log.warn("flush failed: " + e.getMessage(), e);
+                    }
+                }
+            }
+        };
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * add a document to the current batch
+     * @param doc a complete document or a partial update
+     */
+    public void putDocument(final SolrInputDocument doc) {
+        final String id = (String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName());
+        final boolean full;
+        synchronized (this.lock) {
+            if (this.docs.isEmpty() && this.edges.isEmpty()) {
+                this.batchStart = System.currentTimeMillis();
+                this.lock.notifyAll();
+            }
+            this.docs.add(doc);
+            if (id != null) {
+                this.latest.put(id, doc);
+                if (isPartialUpdate(doc)) {
+                    final SolrInputDocument old = this.pending.get(id);
+                    final SolrInputDocument updated = old == null || old == CHANGING ? null : update(old, doc);
+                    this.pending.put(id, updated == null ? CHANGING : updated);
+                } else {
+                    this.pending.put(id, doc);
+                }
+            }
+            full = this.closed || this.docs.size() >= this.maxDocs;
+        }
+        if (full) flush();
+    }
+
+    /**
+     * add webgraph edges to the current batch
+     */
+    public void putEdges(final Collection<SolrInputDocument> edgeDocs) {
+        final boolean full;
+        synchronized (this.lock) {
+            if (this.docs.isEmpty() && this.edges.isEmpty()) {
+                this.batchStart = System.currentTimeMillis();
+                this.lock.notifyAll();
+            }
+            this.edges.addAll(edgeDocs);
+            full = this.closed || this.edges.size() >= this.maxDocs * EDGES_PER_DOCUMENT;
+        }
+        if (full) flush();
+    }
+
+    /**
+     * get a document which is put but not yet written
+     * @param id the document id
+     * @return the latest complete document with the id and its partial updates, or null if there is no such document
+     */
+    public SolrInputDocument getPending(final String id) {
+        final SolrInputDocument doc = id == null ? null : this.pending.get(id);
+        return doc == CHANGING ? null : doc;
+    }
+
+    /**
+     * @param id the document id
+     * @return true if a partial update of the document is not yet written and could not be applied to a pending document,
+     *         so the document in Solr is outdated until the batch is written
+     */
+    public boolean isChanging(final String id) {
+        return id != null && this.pending.get(id) == CHANGING;
+    }
+
+    /**
+     * @return the number of documents and edges which are not yet written
+     */
+    public int size() {
+        synchronized (this.lock) {
+            return this.docs.size() + this.edges.size();
+        }
+    }
+
+    /**
+     * write the current batch; this returns when all documents and edges which were put before are written
+     */
+    public void flush() {
+        synchronized (this.writeLock) {
+            final List<SolrInputDocument> d, e;
+            synchronized (this.lock) {
+                if (this.docs.isEmpty() && this.edges.isEmpty()) return;
+                d = this.docs;
+                e = this.edges;
+                this.docs = new ArrayList<SolrInputDocument>(this.maxDocs);
+                this.edges = new ArrayList<SolrInputDocument>();
+            }
+            final long start = System.currentTimeMillis();
+            write(this.documentConnector.get(), d);
+            if (!e.isEmpty()) write(this.edgeConnector.get(), e);
+            final long latency = System.currentTimeMillis() - start;
+            synchronized (this.lock) {
+                this.batches++;
+                this.docsWritten += d.size();
+                this.edgesWritten += e.size();
+                this.writeTime += latency;
+                this.lastLatency = latency;
+                for (final SolrInputDocument doc: d) {
+                    final String id = (String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName());
+                    if (id != null && this.latest.remove(id, doc)) this.pending.remove(id); // a newer document with the same id stays pending
+                }
+            }
+            if (MemoryControl.shortStatus()) {
+                final SolrConnector connector = this.documentConnector.get();
+                if (connector != null) connector.clearCaches();
+            }
+        }
+    }
+
+    /**
+     * write a batch with one update request; if that fails, the documents are written one by one,
+     * so only the documents which can not be written are lost
+     */
+    private void write(final SolrConnector connector, final List<SolrInputDocument> batch) {
+        if (connector == null || batch.isEmpty()) return;
+        try {
+            connector.add(batch);
+            return;
+        } catch (final IOException | SolrException e) {
+            log.warn("failed to write a batch of " + batch.size() + " documents, writing them one by one: " + e.getMessage());
+        }
+        int failed = 0;
+        for (final SolrInputDocument doc: batch) {
+            try {
+                connector.add(doc);
+            } catch (final IOException | SolrException e) {
+                failed++;
+                log.warn("failed to write document " + doc.getFieldValue(CollectionSchema.id.getSolrFieldName()) + ": " + e.getMessage());
+            }
+        }
+        synchronized (this.lock) {
+            this.failedBatches++;
+            this.failedDocs += failed;
+        }
+    }
+
+    /**
+     * apply the atomic update instructions of a partial update to a copy of a document
+     * @param doc a complete document
+     * @param update a partial update of the document
+     * @return the updated copy, or null if the update has an instruction which is not applied here
+     */
+    private static SolrInputDocument update(final SolrInputDocument doc, final SolrInputDocument update) {
+        final SolrInputDocument updated = doc.deepCopy();
+        for (final SolrInputField field: update) {
+            final String name = field.getName();
+            if (name.equals(CollectionSchema.id.getSolrFieldName())) continue;
+            if (!(field.getValue() instanceof Map)) {
+                updated.setField(name, field.getValue());
+                continue;
+            }
+            for (final Map.Entry<?, ?> instruction: ((Map<?, ?>) field.getValue()).entrySet()) {
+                final Object value = instruction.getValue();
+                if ("set".equals(instruction.getKey())) {
+                    if (value == null) updated.removeField(name); else updated.setField(name, value);
+                } else if ("add".equals(instruction.getKey())) {
+                    if (value instanceof Collection) {
+                        for (final Object v: (Collection<?>) value) updated.addField(name, v);
+                    } else {
+                        updated.addField(name, value);
+                    }
+                } else {
+                    return null;
+                }
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * @return true if the document contains atomic update instructions instead of field values
+     */
+    private static boolean isPartialUpdate(final SolrInputDocument doc) {
+        for (final SolrInputField field: doc) {
+            if (field.getValue() instanceof Map) return true;
+        }
+        return false;
+    }
+
+    /**
+     * write the current batch and stop the flusher thread; documents which are put afterwards are written at once
+     */
+    public void close() {
+        this.closed = true;
+        this.flusher.interrupt();
+        try {
+            this.flusher.join(this.maxDelay + 1000);
+        } catch (final InterruptedException e) {}
+        flush();
+    }
+
+    /**
+     * @return the number of written batches
+     */
+    public long getBatchCount() {
+        synchronized (this.lock) {
+            return this.batches;
+        }
+    }
+
+    /**
+     * @return the number of written documents, without webgraph edges
+     */
+    public long getDocumentCount() {
+        synchronized (this.lock) {
+            return this.docsWritten;
+        }
+    }
+
+    /**
+     * @return the average time in milliseconds to write a batch
+     */
+    public long getAverageLatency() {
+        synchronized (this.lock) {
+            return this.batches == 0 ? 0 : this.writeTime / this.batches;
+        }
+    }
+
+    /**
+     * @return the time in milliseconds to write the latest batch
+     */
+    public long getLastLatency() {
+        synchronized (this.lock) {
+            return this.lastLatency;
+        }
+    }
+
+    /**
+     * @return the number of batches whose update request failed, so that their documents were written one by one
+     */
+    public long getFailedBatchCount() {
+        synchronized (this.lock) {
+            return this.failedBatches;
+        }
+    }
+
+    /**
+     * @return the number of documents and edges which could not be written and are lost
+     */
+    public long getFailedDocumentCount() {
+        synchronized (this.lock) {
+            return this.failedDocs;
+        }
+    }
+
+    /**
+     * @return the number of documents written per second of write time
+     */
+    public long getDocumentsPerSecond() {
+        synchronized (this.lock) {
+            return this.writeTime == 0 ? this.docsWritten * 1000 : this.docsWritten * 1000 / this.writeTime;
+        }
+    }
+}
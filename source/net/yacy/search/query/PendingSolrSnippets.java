@@ -0,0 +1,125 @@
+/**
+ *  PendingSolrSnippets
+ *  the meeting point of streamed Solr results and their snippets
+ *  Copyright 2026 by the YaCy contributors; https://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.search.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * The snippets of a streamed Solr response come at its end, after the result documents. A result taken from the
+ * nodes stack before the end of its response is emitted at once and registered here; its snippet is attached to the
+ * emitted result when it arrives. Snippets of results which are not emitted yet are stored in the snippets map of the
+ * search event, where the result finds it when it is taken from the stack.
+ * @param <T> the type of the emitted results
+ */
+final class PendingSolrSnippets<T> {
+
+    /** the snippets which arrived for results which were not emitted yet, from url hash to snippet lines */
+    private final Map<String, LinkedHashSet<String>> snippets;
+    /** the function attaching late snippet lines to an emitted result */
+    private final BiConsumer<T, LinkedHashSet<String>> attach;
+    /** the hashes of the results whose snippet is expected with the end of a response */
+    private final Set<String> pending;
+    /** the emitted results waiting for their snippet */
+    private final Map<String, T> waiting;
+
+    /**
+     * @param snippets the map where arriving snippets of results not emitted yet are stored
+     * @param attach the function attaching late snippet lines to an emitted result
+     */
+    PendingSolrSnippets(final Map<String, LinkedHashSet<String>> snippets, final BiConsumer<T, LinkedHashSet<String>> attach) {
+        this.snippets = snippets;
+        this.attach = attach;
+        this.pending = new HashSet<String>();
+        this.waiting = new HashMap<String, T>();
+    }
+
+    /**
+     * @param hashes the hashes of results whose snippet will come with the end of their response
+     */
+    synchronized void expect(final Collection<String> hashes) {
+        this.pending.addAll(hashes);
+    }
+
+    /**
+     * @return true if the snippet of the result is expected and did not arrive yet
+     */
+    synchronized boolean isPending(final String hash) {
+        return this.pending.contains(hash) && !this.snippets.containsKey(hash);
+    }
+
+    /**
+     * register a result which is emitted before its snippet arrived
+     * @param hash the url hash of the result
+     * @param result the emitted result
+     * @return the snippet lines if they arrived in the meantime, otherwise null and the lines are attached when they arrive
+     */
+    synchronized LinkedHashSet<String> emitted(final String hash, final T result) {
+        final LinkedHashSet<String> lines = this.snippets.remove(hash);
+        if (lines == null && this.pending.contains(hash)) this.waiting.put(hash, result);
+        return lines;
+    }
+
+    /**
+     * merge the snippets at the end of a response : they are attached to the results already emitted,
+     * the others are stored for the results still in the stack
+     * @param lines the snippets of the response, from url hash to snippet lines
+     * @param hashes the hashes of all results of the response
+     */
+    void arrived(final Map<String, LinkedHashSet<String>> lines, final Collection<String> hashes) {
+        final List<Map.Entry<T, LinkedHashSet<String>>> late = new ArrayList<>();
+        synchronized (this) {
+            for (final Map.Entry<String, LinkedHashSet<String>> entry: lines.entrySet()) {
+                final T result = this.waiting.remove(entry.getKey());
+                if (result == null) {
+                    this.snippets.put(entry.getKey(), entry.getValue());
+                } else {
+                    late.add(new HashMap.SimpleImmutableEntry<>(result, entry.getValue()));
+                }
+            }
+            released(hashes);
+        }
+        for (final Map.Entry<T, LinkedHashSet<String>> entry: late) this.attach.accept(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * stop waiting for the snippets of results, because their response ended or was closed
+     * @param hashes the hashes of the results
+     */
+    synchronized void released(final Collection<String> hashes) {
+        this.pending.removeAll(hashes);
+        this.waiting.keySet().removeAll(hashes);
+    }
+
+    /**
+     * @return the number of emitted results waiting for their snippet
+     */
+    synchronized int waiting() {
+        return this.waiting.size();
+    }
+}
@@ -29,7 +29,6 @@ package net.yacy.search.query;
 import java.net.MalformedURLException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.ConcurrentModificationException;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -43,6 +42,7 @@ import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -56,6 +56,7 @@ import net.yacy.cora.date.ISO8601Formatter;
 import net.yacy.cora.document.analysis.Classification;
 import net.yacy.cora.document.analysis.Classification.ContentDomain;
 import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.encoding.UTF8;
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.cora.federate.solr.responsewriter.OpensearchResponseWriter;
@@ -64,7 +65,9 @@ import net.yacy.cora.federate.yacy.Distribution;
 import net.yacy.cora.lod.vocabulary.Tagging;
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.protocol.Domains;
+import net.yacy.cora.sorting.ClusteredScoreMap;
 import net.yacy.cora.sorting.ConcurrentScoreMap;
+import net.yacy.cora.sorting.HostDiversifier;
 import net.yacy.cora.sorting.ReversibleScoreMap;
 import net.yacy.cora.sorting.ScoreMap;
 import net.yacy.cora.sorting.ScoreMapUpdatesListener;
@@ -92,6 +95,7 @@ import net.yacy.kelondro.util.Bitfield;
 import net.yacy.kelondro.util.MemoryControl;
 import net.yacy.kelondro.util.SetTools;
 import net.yacy.peers.RemoteSearch;
+import net.yacy.peers.RemoteSearchScheduler;
 import net.yacy.peers.SeedDB;
 import net.yacy.peers.graphics.ProfilingGraph;
 import net.yacy.repository.Blacklist.BlacklistType;
@@ -109,7 +113,7 @@ import net.yacy.search.schema.CollectionSchema;
 import net.yacy.search.snippet.TextSnippet;
 import net.yacy.search.snippet.TextSnippet.ResultClass;
 
-public final class SearchEvent implements ScoreMapUpdatesListener {
+public final class SearchEvent implements ScoreMapUpdatesListener, RemoteSearchScheduler.Feeders {
 	
 	/** Supported protocols to be displayed in the protocol navigator.
 	 * (Using here a single String constant is faster than a unmodifiable Set instance) */
@@ -141,8 +145,8 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     final WorkTables workTables;
     public final SecondarySearchSuperviser secondarySearchSuperviser;
     public final List<RemoteSearch> primarySearchThreadsL;
-    public final List<Thread> nodeSearchThreads;
-    public Thread[] secondarySearchThreads;
+    public final List<RemoteSearchScheduler.Task> nodeSearchThreads;
+    public RemoteSearchScheduler.Task[] secondarySearchThreads;
     public final SortedSet<byte[]> preselectedPeerHashes;
     private final SortedMap<byte[], Integer> IACount;
     private final SortedMap<byte[], String> IAResults;
@@ -189,6 +193,8 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     private long                                          urlRetrievalAllTime;
     private long                                          snippetComputationAllTime;
     private ConcurrentHashMap<String, LinkedHashSet<String>> snippets;
+    /** the entries whose Solr snippet is expected with the end of a streamed Solr response */
+    private final PendingSolrSnippets<URIMetadataNode> pendingSolrSnippets;
     private final boolean remote;
     
     /** add received results to local index (defult=true) */
@@ -202,8 +208,8 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     private final ScoreMap<String> ref;
     private final long maxtime;
     
-    /** key = domhash (6 bytes); value = like stack */
-    private final ConcurrentHashMap<String, WeakPriorityBlockingQueue<WordReferenceVars>> doubleDomCache;
+    /** host-diverse ordering of the rwiStack: entries of hosts already returned are parked by host */
+    private final HostDiversifier<WordReferenceVars> rwiDiversifier;
     
     /** flag counter */
     private final int[] flagcount;
@@ -224,6 +230,9 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     /** thats the bag where the solr results are written to */
     private final WeakPriorityBlockingQueue<URIMetadataNode> nodeStack;
     
+    /** host-diverse ordering of the nodeStack */
+    private final HostDiversifier<URIMetadataNode> nodeDiversifier;
+    
     /** thats the result list where the actual search result is waiting to be displayed */
     private final WeakPriorityBlockingQueue<URIMetadataNode>  resultList;
     
@@ -349,6 +358,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         }
         this.loader = loader;
         this.nodeStack = new WeakPriorityBlockingQueue<URIMetadataNode>(max_results_node, false);
+        this.nodeDiversifier = new HostDiversifier<URIMetadataNode>(URIMetadataNode::hosthash, max_results_node);
         this.maxExpectedRemoteReferences = new AtomicInteger(0);
         this.expectedRemoteReferences = new AtomicInteger(0);
         this.excludeintext_image = Switchboard.getSwitchboard().getConfigBool("search.excludeintext.image", true);
@@ -387,6 +397,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         }
 
         this.snippets = new ConcurrentHashMap<String, LinkedHashSet<String>>(); 
+        this.pendingSolrSnippets = new PendingSolrSnippets<URIMetadataNode>(this.snippets, this::attachSolrSnippet);
         this.secondarySearchSuperviser = (this.query.getQueryGoal().getIncludeHashes().size() > 1) ? new SecondarySearchSuperviser(this) : null; // generate abstracts only for combined searches
         if (this.secondarySearchSuperviser != null) this.secondarySearchSuperviser.start();
         this.secondarySearchThreads = null;
@@ -423,7 +434,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         this.ref = new ConcurrentScoreMap<String>(this);
         this.maxtime = query.maxtime;
         this.rwiStack = new WeakPriorityBlockingQueue<WordReferenceVars>(max_results_rwi, false);
-        this.doubleDomCache = new ConcurrentHashMap<String, WeakPriorityBlockingQueue<WordReferenceVars>>();
+        this.rwiDiversifier = new HostDiversifier<WordReferenceVars>(WordReferenceVars::hosthash, max_results_rwi);
         this.flagcount = new int[32];
         for ( int i = 0; i < 32; i++ ) {
             this.flagcount[i] = 0;
@@ -465,8 +476,9 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                 this.primarySearchThreadsL = null;
                 this.nodeSearchThreads = null;
             } else {
-                this.primarySearchThreadsL = new ArrayList<RemoteSearch>();
-                this.nodeSearchThreads = new ArrayList<Thread>();
+                // hedged requests are added concurrently by the remote search scheduler
+                this.primarySearchThreadsL = new CopyOnWriteArrayList<RemoteSearch>();
+                this.nodeSearchThreads = new CopyOnWriteArrayList<RemoteSearchScheduler.Task>();
                 // start this concurrently because the remote search needs an enumeration
                 // of the remote peers which may block in some cases when i.e. DHT is active
                 // at the same time.
@@ -850,7 +862,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
             if (localsolrsearch.isAlive()) synchronized (this.localsolrsearch) {this.localsolrsearch.interrupt();}
         }
         if (this.nodeSearchThreads != null) {
-            for (final Thread search : this.nodeSearchThreads) {
+            for (final RemoteSearchScheduler.Task search : this.nodeSearchThreads) {
                 if (search != null) {
                     synchronized (search) {if (search.isAlive()) {search.interrupt();}}
                 }
@@ -864,7 +876,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
             }
         }
         if (this.secondarySearchThreads != null) {
-            for (final Thread search : this.secondarySearchThreads ) {
+            for (final RemoteSearchScheduler.Task search : this.secondarySearchThreads ) {
                 if (search != null) {
                     synchronized (search) {if (search.isAlive()) {search.interrupt();}}
                 }
@@ -877,7 +889,9 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         if (this.IAResults != null) this.IAResults.clear();
         if (this.heuristics != null) this.heuristics.clear();
         this.rwiStack.clear();
+        this.rwiDiversifier.clear();
         this.nodeStack.clear();
+        this.nodeDiversifier.clear();
         this.resultList.clear();
     }
 
@@ -909,7 +923,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         return this.primarySearchThreadsL;
     }
 
-    public Thread[] getSecondarySearchThreads() {
+    public RemoteSearchScheduler.Task[] getSecondarySearchThreads() {
         return this.secondarySearchThreads;
     }
 
@@ -983,6 +997,25 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         	incrNavigatorsFromSolrFacets(facets);
         }
         
+        addNodesToStack(nodeList, facets, local, incrementNavigators, null);
+        EventTracker.update(EventTracker.EClass.SEARCH, new ProfilingGraph.EventSearch(this.query.id(true), SearchEventType.PRESORT, resourceName, nodeList.size(), System.currentTimeMillis() - timer), false);
+    }
+
+    /**
+     * Apply the query constraints to result entries from a Solr instance and insert the matching ones in the nodes stack.
+     * @param nodeList a list of entries from a Solr instance
+     * @param facets facets counts from the Solr instance, or keys of the facets still expected. May be null.
+     * @param local true when the nodeList comes from the local Solr
+     * @param incrementNavigators when true, increment event navigators with the individual results for the fields not counted in facets
+     * @param deferredEvictions when not null, the evicted entries are added to this list instead of updating the counters,
+     *        because the facets counts they are included in are not yet known
+     */
+    private void addNodesToStack(
+        final List<URIMetadataNode> nodeList,
+        final Map<String, ReversibleScoreMap<String>> facets,
+        final boolean local,
+        final boolean incrementNavigators,
+        final List<URIMetadataNode> deferredEvictions) {
         // apply all constraints
         try {
             pollloop: for (URIMetadataNode iEntry: nodeList) {
@@ -993,7 +1026,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                     if (log.isFine()) {
                     	log.fine("dropped Node: " + matchingResult);
                     }
-                    updateCountsOnSolrEntryToEvict(iEntry, facets, local, !incrementNavigators);
+                    evictSolrEntry(iEntry, facets, local, incrementNavigators, deferredEvictions);
                     continue pollloop;
                 }
             	
@@ -1001,7 +1034,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                     // check url mask, only when not redundant with query modifier and tld constraints
                     if (!iEntry.matches(this.query.urlMaskPattern)) {
                         if (log.isFine()) log.fine("dropped Node: url mask does not match");
-                        updateCountsOnSolrEntryToEvict(iEntry, facets, local, !incrementNavigators);
+                        evictSolrEntry(iEntry, facets, local, incrementNavigators, deferredEvictions);
                         continue pollloop;
                     }
                 }
@@ -1009,7 +1042,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                 // doublecheck for urls
                 if (this.urlhashes.has(iEntry.hash())) {
                     if (log.isFine()) log.fine("dropped Node: double check");
-                    updateCountsOnSolrEntryToEvict(iEntry, facets, local, !incrementNavigators);
+                    evictSolrEntry(iEntry, facets, local, incrementNavigators, deferredEvictions);
                     continue pollloop;
                 }
 
@@ -1022,7 +1055,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                 Bitfield flags = iEntry.flags();
                 if (!this.testFlags(flags)) {
                     if (log.isFine()) log.fine("dropped Node: flag test");
-                    updateCountsOnSolrEntryToEvict(iEntry, facets, local, !incrementNavigators);
+                    evictSolrEntry(iEntry, facets, local, incrementNavigators, deferredEvictions);
                     continue pollloop;
                 }
 
@@ -1043,7 +1076,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                 		if (log.isFine()) {
                 			log.fine("dropped Node: content domain does not match");
                 		}
-                		updateCountsOnSolrEntryToEvict(iEntry, facets, local, !incrementNavigators);
+                		evictSolrEntry(iEntry, facets, local, incrementNavigators, deferredEvictions);
                 		continue pollloop;
                 	}
                 }
@@ -1052,7 +1085,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                 String ext = MultiProtocolURL.getFileExtension(iEntry.url().getFileName());
                 if (this.query.contentdom == ContentDomain.TEXT && Classification.isImageExtension(ext) && this.excludeintext_image) {
                     if (log.isFine()) log.fine("dropped Node: file name domain does not match");
-                    updateCountsOnSolrEntryToEvict(iEntry, facets, local, !incrementNavigators);
+                    evictSolrEntry(iEntry, facets, local, incrementNavigators, deferredEvictions);
                     continue pollloop;
                 }
 
@@ -1061,7 +1094,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                 if ( this.query.modifier.sitehash == null ) {
                     if (this.query.siteexcludes != null && this.query.siteexcludes.contains(hosthash)) {
                         if (log.isFine()) log.fine("dropped Node: siteexclude");
-                        updateCountsOnSolrEntryToEvict(iEntry, facets, local, !incrementNavigators);
+                        evictSolrEntry(iEntry, facets, local, incrementNavigators, deferredEvictions);
                         continue pollloop;
                     }
                 }
@@ -1069,7 +1102,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                 if (this.query.modifier.language != null) {
                     if (!this.query.modifier.language.equals(iEntry.language())) {
                         if (log.isFine()) log.fine("dropped Node: language");
-                        updateCountsOnSolrEntryToEvict(iEntry, facets, local, !incrementNavigators);
+                        evictSolrEntry(iEntry, facets, local, incrementNavigators, deferredEvictions);
                         continue pollloop;
                     }
                 }
@@ -1077,7 +1110,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                 if (this.query.modifier.author != null) {
                     if (!this.query.modifier.author.equals(iEntry.dc_creator())) {
                         if (log.isFine()) log.fine ("dropped Node: author");
-                        updateCountsOnSolrEntryToEvict(iEntry, facets, local, !incrementNavigators);
+                        evictSolrEntry(iEntry, facets, local, incrementNavigators, deferredEvictions);
                         continue pollloop;
                     }
                 }
@@ -1085,7 +1118,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                 if (this.query.modifier.keyword != null) {
                     if (iEntry.dc_subject().indexOf(this.query.modifier.keyword) < 0) {
                         if (log.isFine()) log.fine ("dropped Node: keyword");
-                        updateCountsOnSolrEntryToEvict(iEntry, facets, local, !incrementNavigators);
+                        evictSolrEntry(iEntry, facets, local, incrementNavigators, deferredEvictions);
                         continue pollloop;
                     }
                 }
@@ -1121,7 +1154,139 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
             }
         } catch (final SpaceExceededException e ) {
         }
-        EventTracker.update(EventTracker.EClass.SEARCH, new ProfilingGraph.EventSearch(this.query.id(true), SearchEventType.PRESORT, resourceName, nodeList.size(), System.currentTimeMillis() - timer), false);
+    }
+
+    private void evictSolrEntry(final URIMetadataNode entry, final Map<String, ReversibleScoreMap<String>> facets,
+            final boolean local, final boolean incrementNavigators, final List<URIMetadataNode> deferredEvictions) {
+        if (deferredEvictions != null) {
+            deferredEvictions.add(entry);
+        } else {
+            updateCountsOnSolrEntryToEvict(entry, facets, local, !incrementNavigators);
+        }
+    }
+
+    /**
+     * Start an incremental merge of the results of a Solr instance : the result entries are inserted in the nodes stack
+     * by batches as they are received, the facets and snippets are merged at the end of the response.
+     * @param local true when the entries come from the local Solr
+     * @param resourceName the name of the data source to use for monitoring in the event tracker
+     * @param facetFields the names of the facet fields requested to the Solr instance. Navigators are not incremented with the individual results for these fields. May be null.
+     * @param snippetsExpected true when the Solr instance has been requested for highlighting snippets
+     * @param incrementNavigators when true, increment event navigators either with facet counts or with individual results
+     * @return a new nodes stream
+     */
+    public NodeStream nodeStream(final boolean local, final String resourceName, final Collection<String> facetFields,
+            final boolean snippetsExpected, final boolean incrementNavigators) {
+        return new NodeStream(local, resourceName, facetFields, snippetsExpected, incrementNavigators);
+    }
+
+    /**
+     * Incremental merge of the results of one Solr response to this event.
+     */
+    public class NodeStream {
+
+        private final boolean local;
+        private final String resourceName;
+        private final boolean snippetsExpected;
+        private final boolean incrementNavigators;
+        /** the facet fields expected at the end of the response, mapped to empty counts */
+        private final Map<String, ReversibleScoreMap<String>> expectedFacets;
+        /** entries evicted before the facets counts including them are known */
+        private final List<URIMetadataNode> evicted;
+        /** hashes of the entries waiting for their Solr snippet */
+        private final List<String> pendingSnippets;
+        private int added;
+        private boolean closed;
+
+        private NodeStream(final boolean local, final String resourceName, final Collection<String> facetFields,
+                final boolean snippetsExpected, final boolean incrementNavigators) {
+            this.local = local;
+            this.resourceName = resourceName;
+            this.snippetsExpected = snippetsExpected;
+            this.incrementNavigators = incrementNavigators;
+            this.expectedFacets = new HashMap<String, ReversibleScoreMap<String>>();
+            if (facetFields != null) {
+                for (final String field: facetFields) {
+                    this.expectedFacets.put(field, new ClusteredScoreMap<String>(UTF8.insensitiveUTF8Comparator));
+                }
+            }
+            this.evicted = this.expectedFacets.isEmpty() ? null : new ArrayList<URIMetadataNode>();
+            this.pendingSnippets = new ArrayList<String>();
+            this.added = 0;
+            this.closed = false;
+            SearchEvent.this.addBegin();
+        }
+
+        /**
+         * Insert a batch of entries in the nodes stack
+         * @param nodeList a list of entries from the Solr instance
+         */
+        public synchronized void add(final List<URIMetadataNode> nodeList) {
+            if (this.closed || nodeList.isEmpty()) return;
+            final long timer = System.currentTimeMillis();
+            if (this.snippetsExpected) {
+                final List<String> hashes = new ArrayList<String>(nodeList.size());
+                for (final URIMetadataNode node: nodeList) hashes.add(ASCII.String(node.hash()));
+                this.pendingSnippets.addAll(hashes);
+                SearchEvent.this.pendingSolrSnippets.expect(hashes);
+            }
+            if (!this.local) {
+                SearchEvent.this.receivedRemoteReferences.addAndGet(nodeList.size());
+            }
+            this.added += nodeList.size();
+            addNodesToStack(nodeList, this.expectedFacets, this.local, this.incrementNavigators, this.evicted);
+            EventTracker.update(EventTracker.EClass.SEARCH, new ProfilingGraph.EventSearch(SearchEvent.this.query.id(true), SearchEventType.PRESORT, this.resourceName, nodeList.size(), System.currentTimeMillis() - timer), false);
+        }
+
+        /**
+         * @return the number of entries received so far
+         */
+        public synchronized int added() {
+            return this.added;
+        }
+
+        /**
+         * Merge the end of the Solr response and close this stream
+         * @param facets a map from a field name to scored values (aka Solr facet). May be null.
+         * @param solrsnippets a map from urlhash to snippet text
+         * @param fullResource the full results count
+         */
+        public synchronized void finish(final Map<String, ReversibleScoreMap<String>> facets,
+                final Map<String, LinkedHashSet<String>> solrsnippets, final int fullResource) {
+            if (this.closed) return;
+            // snippets of entries already taken from the stack are attached to their result
+            SearchEvent.this.pendingSolrSnippets.arrived(solrsnippets, this.pendingSnippets);
+            if (this.added > 0) {
+                if (this.local) {
+                    SearchEvent.this.local_solr_stored.set(fullResource);
+                } else {
+                    assert fullResource >= 0 : "fullResource = " + fullResource;
+                    SearchEvent.this.remote_solr_stored.addAndGet(fullResource);
+                    SearchEvent.this.remote_solr_peerCount.incrementAndGet();
+                }
+                if (this.incrementNavigators) {
+                    incrNavigatorsFromSolrFacets(facets);
+                }
+                if (this.evicted != null) {
+                    for (final URIMetadataNode entry: this.evicted) {
+                        updateCountsOnSolrEntryToEvict(entry, facets, this.local, !this.incrementNavigators);
+                    }
+                }
+            }
+            close();
+        }
+
+        /**
+         * Close this stream : further entries are ignored and the entries waiting for their snippet are released.
+         */
+        public synchronized void close() {
+            if (this.closed) return;
+            this.closed = true;
+            SearchEvent.this.pendingSolrSnippets.released(this.pendingSnippets);
+            this.pendingSnippets.clear();
+            if (this.evicted != null) this.evicted.clear();
+            SearchEvent.this.addFinalize();
+        }
     }
 
     /**
@@ -1297,106 +1462,25 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     private URIMetadataNode pullOneRWI(final boolean skipDoubleDom) {
 
         // returns from the current RWI list the best entry and removes this entry from the list
-        WeakPriorityBlockingQueue<WordReferenceVars> m;
-        WeakPriorityBlockingQueue.Element<WordReferenceVars> rwi = null;
-
-        mainloop: while (true) {
-            int c = 0;
-            pollloop: while (this.rwiStack.sizeQueue() > 0 && c++ < 10) {
+        while (true) {
+            WeakPriorityBlockingQueue.Element<WordReferenceVars> rwi;
+            if (skipDoubleDom) {
+                rwi = this.rwiDiversifier.poll(this.rwiStack);
+            } else {
                 rwi = this.rwiStack.poll();
-                if (rwi == null) return null;
-                if (!skipDoubleDom) {
-                    URIMetadataNode node = this.query.getSegment().fulltext().getMetadata(rwi);
-                    if (node == null) {
-                    	decrementCounts(rwi.getElement());
-                    	continue pollloop;
-                    }
-                    return node;
-                }
-        
-                // check doubledom
-                final String hosthash = rwi.getElement().hosthash();
-                m = this.doubleDomCache.get(hosthash);
-                if (m == null) {
-                    synchronized ( this.doubleDomCache ) {
-                        m = this.doubleDomCache.get(hosthash);
-                        if (m == null) {
-                            // first appearance of dom. we create an entry to signal that one of that domain was already returned
-                            m = new WeakPriorityBlockingQueue<WordReferenceVars>(max_results_rwi, false);
-                            this.doubleDomCache.put(hosthash, m);
-                            URIMetadataNode node = this.query.getSegment().fulltext().getMetadata(rwi);
-                            if (node == null) {
-                            	decrementCounts(rwi.getElement());
-                            	continue pollloop;
-                            }
-                            return node;
-                        }
-                        // second appearances of dom
-                        m.put(rwi);
-                    }
-                } else {
-                    m.put(rwi);
-                }
-            }
-    
-            // no more entries in sorted RWI entries. Now take Elements from the doubleDomCache
-            if (this.doubleDomCache.isEmpty()) {
-                //Log.logWarning("SearchEvent", "doubleDomCache.isEmpty");
-                return null;
-            }
-    
-            // find best entry from all caches
-            WeakPriorityBlockingQueue.Element<WordReferenceVars> bestEntry = null;
-            WeakPriorityBlockingQueue.Element<WordReferenceVars> o;
-            final Iterator<WeakPriorityBlockingQueue<WordReferenceVars>> i = this.doubleDomCache.values().iterator();
-            doubleloop: while (i.hasNext()) {
-                try {
-                    m = i.next();
-                } catch (final ConcurrentModificationException e) {
-                    ConcurrentLog.logException(e);
-                    continue mainloop; // not the best solution...
-                }
-                if (m == null) continue doubleloop;
-                if (m.isEmpty()) continue doubleloop;
-                if (bestEntry == null) {
-                    bestEntry = m.peek();
-                    continue doubleloop;
-                }
-                o = m.peek();
-                if (o == null) continue doubleloop;
-                if (o.getWeight() > bestEntry.getWeight()) bestEntry = o;
-            }
-            if (bestEntry == null) {
-                //Log.logWarning("SearchEvent", "bestEntry == null (1)");
-                return null;
-            }
-    
-            // finally remove the best entry from the doubledom cache
-            m = this.doubleDomCache.get(bestEntry.getElement().hosthash());
-            if (m != null) {
-                bestEntry = m.poll();
-                if (bestEntry != null && m.sizeAvailable() == 0) {
-                    synchronized ( this.doubleDomCache ) {
-                        if (m.sizeAvailable() == 0) {
-                            this.doubleDomCache.remove(bestEntry.getElement().hosthash());
-                        }
-                    }
-                }
-            }
-            if (bestEntry == null) {
-                //Log.logWarning("SearchEvent", "bestEntry == null (2)");
-                return null;
+                if (rwi == null) rwi = this.rwiDiversifier.pollParked();
             }
+            if (rwi == null) return null;
             URIMetadataNode node = null;
             try {
-                node = this.query.getSegment().fulltext().getMetadata(bestEntry);
+                node = this.query.getSegment().fulltext().getMetadata(rwi);
             } catch (Throwable e) {
                 ConcurrentLog.logException(e);
             }
             if (node == null) {
-                decrementCounts(bestEntry.getElement());
+                decrementCounts(rwi.getElement());
                 if (log.isFine()) log.fine("dropped RWI: hash not in metadata");
-                continue mainloop;
+                continue;
             }
             return node;
         }
@@ -1891,13 +1975,23 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
      */
 	private boolean drainSolrStackToResult(boolean concurrentSnippetFetch) {
 		boolean success = false;
-		final Element<URIMetadataNode> localEntryElement = this.nodeStack.sizeQueue() > 0 ? this.nodeStack.poll() : null;
+		final Element<URIMetadataNode> localEntryElement = this.nodeDiversifier.poll(this.nodeStack);
         final URIMetadataNode node = localEntryElement == null ? null : localEntryElement.getElement();
         if (node != null) {
-            LinkedHashSet<String> solrsnippetlines = this.snippets.remove(ASCII.String(node.hash())); // we can remove this because it's used only once
+            final String hash = ASCII.String(node.hash());
+            LinkedHashSet<String> solrsnippetlines = this.snippets.remove(hash); // we can remove this because it's used only once
+            if (solrsnippetlines == null && this.pendingSolrSnippets.isPending(hash)) {
+                // the snippet is still on its way with the end of a streamed Solr response: do not hold back the following
+                // entries, but emit this one with a snippet from the cache and attach the Solr snippet when it arrives
+                final URIMetadataNode re = getSnippet(node, CacheStrategy.CACHEONLY);
+                if (re == null) return false;
+                final LinkedHashSet<String> arrived = this.pendingSolrSnippets.emitted(hash, re);
+                if (arrived != null) attachSolrSnippet(re, arrived);
+                addResult(re, localEntryElement.getWeight());
+                return true;
+            }
             if (solrsnippetlines != null && solrsnippetlines.size() > 0) {
-                OpensearchResponseWriter.removeSubsumedTitle(solrsnippetlines, node.dc_title());
-                final TextSnippet solrsnippet = new TextSnippet(node.url(), OpensearchResponseWriter.getLargestSnippet(solrsnippetlines), true, ResultClass.SOURCE_SOLR, "");
+                final TextSnippet solrsnippet = solrSnippet(node, solrsnippetlines);
                 final TextSnippet yacysnippet = new TextSnippet(this.loader,
                         node,
                         this.query.getQueryGoal().getIncludeWordsSet(),
@@ -1941,6 +2035,31 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
 		return success;
 	}
     
+    /**
+     * @param node a result entry
+     * @param solrsnippetlines the highlighting snippet lines of the entry from Solr
+     * @return a snippet made of the largest snippet line
+     */
+    private TextSnippet solrSnippet(final URIMetadataNode node, final LinkedHashSet<String> solrsnippetlines) {
+        OpensearchResponseWriter.removeSubsumedTitle(solrsnippetlines, node.dc_title());
+        return new TextSnippet(node.url(), OpensearchResponseWriter.getLargestSnippet(solrsnippetlines), true, ResultClass.SOURCE_SOLR, "");
+    }
+
+    /**
+     * attach a Solr snippet which arrived after its entry was added to the results, when it is larger than the current snippet
+     * @param result a result entry
+     * @param solrsnippetlines the highlighting snippet lines of the entry from Solr
+     */
+    private void attachSolrSnippet(final URIMetadataNode result, final LinkedHashSet<String> solrsnippetlines) {
+        if (solrsnippetlines.isEmpty()) return;
+        final TextSnippet solrsnippet = solrSnippet(result, solrsnippetlines);
+        final TextSnippet current = result.textSnippet();
+        if (current == null || current.getErrorCode().fail() ||
+            solrsnippet.descriptionline(this.query.getQueryGoal()).length() > current.descriptionline(this.query.getQueryGoal()).length()) {
+            result.setTextSnippet(solrsnippet);
+        }
+    }
+
     /**
      * place the result to the result vector and apply post-ranking
      * post-ranking is added to the current score, 
@@ -2139,7 +2258,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         	resultListIndex = item - (this.localsolroffset - this.query.itemsPerPage);
         }
         while ( this.resultList.sizeAvailable() <= resultListIndex &&
-                (this.rwiQueueSize() > 0 || this.nodeStack.sizeQueue() > 0 ||
+                (this.rwiQueueSize() > 0 || this.nodeQueueSize() > 0 ||
                 (!this.isFeedingFinished() && System.currentTimeMillis() < finishTime))) {
 			if (!drainStacksToResult(true)) {
 				try {
@@ -2397,6 +2516,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
 	 *         requests...) 
 	 * @return true when all available feeders on this search event are terminated 
 	 */
+    @Override
     public boolean isFeedingFinished() {
         return
             this.feedersTerminated.intValue() > (this.remote ? 1 : 0) &&
@@ -2406,12 +2526,14 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     /**
      * method to signal the incoming stack that one feeder has terminated
      */
+    @Override
     public void oneFeederTerminated() {
         this.feedersTerminated.incrementAndGet();
         final int c = this.feedersAlive.decrementAndGet();
         assert c >= 0 : "feeders = " + c;
     }
 
+    @Override
     public void oneFeederStarted() {
         this.feedersAlive.incrementAndGet();
     }
@@ -2437,23 +2559,15 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     }
     
     public boolean rwiIsEmpty() {
-        if ( !this.rwiStack.isEmpty() ) {
-            return false;
-        }
-        for ( final WeakPriorityBlockingQueue<WordReferenceVars> s : this.doubleDomCache.values() ) {
-            if ( !s.isEmpty() ) {
-                return false;
-            }
-        }
-        return true;
+        return this.rwiStack.isEmpty() && this.rwiDiversifier.isEmpty();
     }
 
     protected int rwiQueueSize() {
-        int c = this.rwiStack.sizeQueue();
-        for ( final WeakPriorityBlockingQueue<WordReferenceVars> s : this.doubleDomCache.values() ) {
-            c += s.sizeQueue();
-        }
-        return c;
+        return this.rwiStack.sizeQueue() + this.rwiDiversifier.size();
+    }
+
+    protected int nodeQueueSize() {
+        return this.nodeStack.sizeQueue() + this.nodeDiversifier.size();
     }
     
     protected boolean testFlags(final Bitfield flags) {
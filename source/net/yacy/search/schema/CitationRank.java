@@ -0,0 +1,481 @@
+/**
+ *  CitationRank
+ *  Copyright 2026 by the YaCy contributors; https://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.search.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.federate.solr.connector.AbstractSolrConnector;
+import net.yacy.cora.federate.solr.connector.SolrConnector;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.kelondro.util.FileUtils;
+import net.yacy.kelondro.util.MemoryControl;
+import net.yacy.search.index.Segment;
+import net.yacy.search.index.Segment.ReferenceReportCache;
+
+/**
+ * Incremental computation of the citation rank of the documents of each host.
+ * The links between the documents of a host are loaded into a {@link HostGraph}, a compact graph with int ids
+ * which stores the referrers of all documents in one array (compressed sparse rows). The power iteration runs on
+ * these arrays, for all hosts in parallel in a fork/join pool.
+ * <p>
+ * A fingerprint of the graph of each host is stored. A host is only computed again if its graph changed or if
+ * some of its documents have no citation rank, and only documents whose normalized rank changed are marked as changed.
+ * With the fingerprint a marker of the host is stored, the number of its documents and the newest load date: the links
+ * of a host can only change with a document which is loaded or deleted, so a host with the same marker and without
+ * unranked documents is skipped before its graph is loaded.
+ */
+public class CitationRank {
+
+    private final static ConcurrentLog log = new ConcurrentLog("CitationRank");
+
+    public final static double DAMPING = 0.85d;
+    public final static int CONVERGE_DIGITS = 6;
+    public final static int MAX_STEPS = 30;
+
+    /**
+     * the citation rank of a document: the host, the number of documents of the host, the rank and the normalized rank
+     */
+    static final class CRV {
+        public final String host;
+        public double cr;
+        public int crn, count;
+        public final boolean changed; // true if the normalized rank or the count differs from the values in the index
+        public CRV(final String host, final int count, final double cr, final int crn, final boolean changed) {this.host = host; this.count = count; this.cr = cr; this.crn = crn; this.changed = changed;}
+        @Override
+        public String toString() {
+            return "count=" + this.count + ", cr=" + this.cr + ", crn=" + this.crn + ", changed=" + this.changed;
+        }
+    }
+
+    /**
+     * a source of the ids of all documents of the same host which link to a document
+     */
+    interface Referrers {
+        Iterable<byte[]> get(String id) throws IOException;
+    }
+
+    /**
+     * The link graph of the documents of one host. The documents are numbered in the order in which they were added;
+     * the referrers of document i are referrers[offsets[i]] .. referrers[offsets[i + 1] - 1].
+     */
+    static final class HostGraph {
+
+        final String host;
+        int size;
+        String[] ids;
+        int[] outlinks; // the number of links from each document to documents of the same host
+        int[] count, crn; // the values in the index or -1 if there is no value
+        int[] offsets, referrers;
+        long fingerprint;
+        String marker; // the marker of the host when the graph was loaded, null if unknown
+        boolean truncated; // true if the documents were not all loaded or the iteration did not converge because of short memory
+
+        private final Map<String, Integer> index;
+
+        HostGraph(final String host) {
+            this.host = host;
+            this.size = 0;
+            this.ids = new String[16];
+            this.outlinks = new int[16];
+            this.count = new int[16];
+            this.crn = new int[16];
+            this.index = new HashMap<String, Integer>();
+        }
+
+        /**
+         * add a document; documents which are added twice are ignored
+         */
+        void add(final String id, final int outlinks, final int count, final int crn) {
+            if (this.index.containsKey(id)) return;
+            if (this.size == this.ids.length) {
+                this.ids = Arrays.copyOf(this.ids, this.size * 2);
+                this.outlinks = Arrays.copyOf(this.outlinks, this.size * 2);
+                this.count = Arrays.copyOf(this.count, this.size * 2);
+                this.crn = Arrays.copyOf(this.crn, this.size * 2);
+            }
+            this.ids[this.size] = id;
+            this.outlinks[this.size] = outlinks;
+            this.count[this.size] = count;
+            this.crn[this.size] = crn;
+            this.index.put(id, this.size++);
+        }
+
+        /**
+         * set the referrers of all documents and compute the fingerprint of the graph. Referrers which are no
+         * documents of the host or which have no links are ignored, they do not pass a rank.
+         */
+        HostGraph link(final Referrers source) throws IOException {
+            this.offsets = new int[this.size + 1];
+            int[] r = new int[Math.max(16, this.size * 4)];
+            int p = 0;
+            long fp = this.size;
+            for (int i = 0; i < this.size; i++) {
+                this.offsets[i] = p;
+                long h = fingerprint(this.ids[i], this.outlinks[i]);
+                for (final byte[] referrer: source.get(this.ids[i])) {
+                    final String rid = ASCII.String(referrer);
+                    final Integer j = this.index.get(rid);
+                    if (j == null || this.outlinks[j] <= 0) continue;
+                    if (p == r.length) r = Arrays.copyOf(r, r.length * 2);
+                    r[p++] = j;
+                    h = mix(h ^ fingerprint(rid, 0));
+                }
+                fp += mix(h); // a sum, so the fingerprint does not depend on the order of the documents
+            }
+            this.offsets[this.size] = p;
+            this.referrers = Arrays.copyOf(r, p);
+            this.fingerprint = fp;
+            return this;
+        }
+
+        /**
+         * compute the citation rank with a power iteration until the values are equal to a number of digits
+         * @return the rank of each document
+         */
+        double[] iterate(final double damping, final int convergeDigits, final int maxSteps) {
+            final double eq = Math.pow(10.0d, convergeDigits);
+            final double df = (1.0d - damping) / this.size;
+            double[] cr = new double[this.size], next = new double[this.size];
+            Arrays.fill(cr, 1.0d / this.size);
+            for (int step = 0; step < maxSteps; step++) {
+                boolean convergence = true;
+                for (int i = 0; i < this.size; i++) {
+                    double ncr = 0.0d;
+                    for (int k = this.offsets[i]; k < this.offsets[i + 1]; k++) {
+                        final int j = this.referrers[k];
+                        ncr += cr[j] / this.outlinks[j];
+                    }
+                    ncr = df + damping * ncr;
+                    if (convergence && ((int) (ncr * eq)) != ((int) (cr[i] * eq))) convergence = false;
+                    next[i] = ncr;
+                }
+                final double[] t = cr; cr = next; next = t;
+                if (convergence) break;
+                if (MemoryControl.shortStatus()) {
+                    log.warn("terminated iteration for host " + this.host + " because of short memory");
+                    this.truncated = true;
+                    break;
+                }
+            }
+            return cr;
+        }
+
+        /**
+         * compute the normalized rank: the documents are sorted by rank and divided into classes where each class
+         * has half of the size of the class before, documents with the same rank are in the same class.
+         * The highest rank is always 10.
+         * @return the normalized rank of each document
+         */
+        int[] normalize(final double[] cr) {
+            final double[] sorted = Arrays.copyOf(cr, this.size);
+            Arrays.sort(sorted);
+            final double[] values = new double[this.size];
+            final int[] ranks = new int[this.size];
+            int distinct = 0, pos = 0;
+            int nextcount = (this.size + 1) / 2;
+            int nextcrn = 0;
+            while (pos < this.size) {
+                int count = nextcount;
+                while (pos < this.size && count > 0) {
+                    final double v = sorted[pos];
+                    int g = 0;
+                    while (pos < this.size && sorted[pos] == v) {pos++; g++;}
+                    values[distinct] = v;
+                    ranks[distinct++] = nextcrn;
+                    count -= g;
+                }
+                nextcrn++;
+                nextcount = Math.max(1, (nextcount + count + 1) / 2);
+            }
+            final int inc = 11 - nextcrn; // nextcrn is +1
+            final int[] crn = new int[this.size];
+            for (int i = 0; i < this.size; i++) crn[i] = ranks[Arrays.binarySearch(values, 0, distinct, cr[i])] + inc;
+            return crn;
+        }
+
+        /**
+         * @return true if all documents have a normalized rank in the index
+         */
+        boolean ranked() {
+            for (int i = 0; i < this.size; i++) if (this.crn[i] < 0) return false;
+            return true;
+        }
+
+        private static long fingerprint(final String id, final int outlinks) {
+            long h = 0xcbf29ce484222325L + outlinks;
+            for (int i = 0; i < id.length(); i++) h = (h ^ id.charAt(i)) * 0x100000001b3L;
+            return h;
+        }
+
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+
+    private final File file;
+    private final Map<String, Long> fingerprints, computed;
+    private final Map<String, String> markers, computedMarkers;
+    private final AtomicInteger hosts, skipped, changed;
+
+    /**
+     * @param file the file with the fingerprints of the host graphs or null if the fingerprints shall not be stored
+     */
+    public CitationRank(final File file) {
+        this.file = file;
+        this.fingerprints = new ConcurrentHashMap<String, Long>();
+        this.computed = new ConcurrentHashMap<String, Long>();
+        this.markers = new ConcurrentHashMap<String, String>();
+        this.computedMarkers = new ConcurrentHashMap<String, String>();
+        this.hosts = new AtomicInteger(0);
+        this.skipped = new AtomicInteger(0);
+        this.changed = new AtomicInteger(0);
+        if (file != null && file.exists()) {
+            final Map<String, String> m = FileUtils.loadMap(file);
+            if (m != null) for (final Map.Entry<String, String> e: m.entrySet()) try {
+                // the value is the fingerprint, followed by the marker of the host after a comma
+                final String v = e.getValue();
+                final int p = v.indexOf(',');
+                this.fingerprints.put(e.getKey(), Long.parseUnsignedLong(p < 0 ? v : v.substring(0, p), 16));
+                if (p >= 0) this.markers.put(e.getKey(), v.substring(p + 1));
+            } catch (final NumberFormatException ee) {}
+        }
+    }
+
+    /**
+     * compute the rank of the documents of a host graph
+     * @param rankings the map where the ranks of all documents of the host are added, unless the graph is unchanged
+     */
+    void rank(final HostGraph g, final Map<String, CRV> rankings) {
+        this.hosts.incrementAndGet();
+        if (g.size == 0) return;
+        final Long fp = this.fingerprints.get(g.host);
+        if (fp != null && fp.longValue() == g.fingerprint && g.ranked()) {
+            this.skipped.incrementAndGet();
+            if (g.marker != null && !g.truncated) this.computedMarkers.put(g.host, g.marker);
+            return;
+        }
+        final double[] cr = g.iterate(DAMPING, CONVERGE_DIGITS, MAX_STEPS);
+        final int[] crn = g.normalize(cr);
+        for (int i = 0; i < g.size; i++) {
+            final boolean c = crn[i] != g.crn[i] || g.size != g.count[i];
+            if (c) this.changed.incrementAndGet();
+            rankings.put(g.ids[i], new CRV(g.host, g.size, cr[i], crn[i], c));
+        }
+        // an incomplete computation must be done again, even if the graph does not change
+        if (!g.truncated) {
+            this.computed.put(g.host, g.fingerprint);
+            if (g.marker != null) this.computedMarkers.put(g.host, g.marker);
+        }
+    }
+
+    /**
+     * check a host before its graph is loaded
+     * @param host the host
+     * @param marker the current marker of the host, null if it has unranked documents
+     * @return true if the host has the marker of its last computation; then it is counted as skipped
+     */
+    boolean unchanged(final String host, final String marker) {
+        if (marker == null || !marker.equals(this.markers.get(host)) || !this.fingerprints.containsKey(host)) return false;
+        this.hosts.incrementAndGet();
+        this.skipped.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * compute the marker of a host from two small queries: the number of documents and the newest load date
+     * @return the marker, or null if the host has documents without citation rank or no documents
+     */
+    static String marker(final Segment segment, final String host) throws IOException {
+        final SolrConnector connector = segment.fulltext().getDefaultConnector();
+        final String query = CollectionSchema.host_s.getSolrFieldName() + ":\"" + host + "\"";
+        if (connector.getCountByQuery(query + " AND -" + CollectionSchema.cr_host_norm_i.getSolrFieldName() + AbstractSolrConnector.CATCHALL_DTERM) > 0) return null;
+        final SolrDocumentList newest = connector.getDocumentListByQuery(query, CollectionSchema.load_date_dt.getSolrFieldName() + " desc", 0, 1,
+                CollectionSchema.id.getSolrFieldName(), CollectionSchema.load_date_dt.getSolrFieldName());
+        if (newest == null || newest.isEmpty()) return null;
+        final Object date = newest.get(0).getFieldValue(CollectionSchema.load_date_dt.getSolrFieldName());
+        return newest.getNumFound() + "," + (date instanceof Date ? ((Date) date).getTime() : 0L);
+    }
+
+    /**
+     * load the graph of a host: all documents of the host with their number of internal links and their current
+     * rank, and the internal referrers of each document from the reference reports
+     */
+    static HostGraph load(final Segment segment, final ReferenceReportCache rrCache, final String host) throws IOException {
+        final SolrConnector connector = segment.fulltext().getDefaultConnector();
+        final HostGraph g = new HostGraph(host);
+        final BlockingQueue<SolrDocument> docs = connector.concurrentDocumentsByQuery("{!cache=false raw f=" + CollectionSchema.host_s.getSolrFieldName() + "}" + host, CollectionSchema.url_chars_i.getSolrFieldName() + " asc", 0, 100000000, 86400000, 200, 1, false,
+                CollectionSchema.id.getSolrFieldName(), CollectionSchema.inboundlinkscount_i.getSolrFieldName(), CollectionSchema.cr_host_count_i.getSolrFieldName(), CollectionSchema.cr_host_norm_i.getSolrFieldName());
+        SolrDocument doc;
+        try {
+            while ((doc = docs.take()) != AbstractSolrConnector.POISON_DOCUMENT) {
+                final String id = (String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName());
+                if (id == null) continue;
+                g.add(id, intValue(doc, CollectionSchema.inboundlinkscount_i, 0), intValue(doc, CollectionSchema.cr_host_count_i, -1), intValue(doc, CollectionSchema.cr_host_norm_i, -1));
+                if (MemoryControl.shortStatus()) {
+                    log.warn("terminated collection of host " + host + " because of short memory");
+                    g.truncated = true;
+                    break;
+                }
+            }
+        } catch (final InterruptedException e) {
+            throw new IOException(e.getMessage());
+        }
+        return g.link(id -> rrCache.getReferenceReport(id, false).getInternallIDs());
+    }
+
+    private static int intValue(final SolrDocument doc, final CollectionSchema field, final int dflt) {
+        final Object x = doc.getFieldValue(field.getSolrFieldName());
+        return x instanceof Number ? ((Number) x).intValue() : dflt;
+    }
+
+    /**
+     * load and rank the graphs of hosts in a fork/join pool
+     * @param concurrency the number of hosts which are computed at the same time
+     * @return the ranks of the documents of all hosts which were computed
+     */
+    public Map<String, CRV> rank(final Segment segment, final ReferenceReportCache rrCache, final List<String> hosts, final int concurrency) {
+        final Map<String, CRV> rankings = new ConcurrentHashMap<String, CRV>();
+        final ForkJoinPool pool = new ForkJoinPool(Math.max(1, concurrency));
+        try {
+            pool.invoke(new HostTask(hosts, 0, hosts.size(), host -> {
+                final String marker = marker(segment, host);
+                if (unchanged(host, marker)) return;
+                final HostGraph g = load(segment, rrCache, host);
+                g.marker = marker;
+                rank(g, rankings);
+            }));
+        } finally {
+            pool.shutdown();
+        }
+        return rankings;
+    }
+
+    /**
+     * the work for one host
+     */
+    interface HostWork {
+        void run(String host) throws IOException;
+    }
+
+    /**
+     * a task which divides a list of hosts until a task has only one host
+     */
+    static final class HostTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> hosts;
+        private final int from, to;
+        private final HostWork work;
+
+        HostTask(final List<String> hosts, final int from, final int to, final HostWork work) {
+            this.hosts = hosts;
+            this.from = from;
+            this.to = to;
+            this.work = work;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > 1) {
+                final int m = (this.from + this.to) >>> 1;
+                invokeAll(new HostTask(this.hosts, this.from, m, this.work), new HostTask(this.hosts, m, this.to, this.work));
+                return;
+            }
+            if (this.from == this.to || MemoryControl.shortStatus()) return;
+            final String host = this.hosts.get(this.from);
+            try {
+                this.work.run(host);
+            } catch (final IOException | RuntimeException e) {
+                log.warn("failed to compute the citation rank for host " + host + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * forget the computation of a host because some of its ranks could not be written to the index,
+     * so that its fingerprint is not stored and the host is computed again
+     * @param host the host of the document whose rank was not written
+     */
+    public void failed(final String host) {
+        this.computed.remove(host);
+        this.computedMarkers.remove(host);
+    }
+
+    /**
+     * store the fingerprints of all hosts which were computed; this should be done when the ranks are written to the index,
+     * because the hosts are not computed again unless their graph changes
+     */
+    public void commit() {
+        for (final String host: this.computed.keySet()) this.markers.remove(host); // a host computed without a marker must be loaded again
+        this.fingerprints.putAll(this.computed);
+        this.markers.putAll(this.computedMarkers);
+        this.computed.clear();
+        this.computedMarkers.clear();
+        if (this.file == null) return;
+        final Map<String, String> m = new HashMap<String, String>();
+        for (final Map.Entry<String, Long> e: this.fingerprints.entrySet()) {
+            final String marker = this.markers.get(e.getKey());
+            m.put(e.getKey(), Long.toHexString(e.getValue()) + (marker == null ? "" : "," + marker));
+        }
+        FileUtils.saveMap(this.file, m, "fingerprints of the host link graphs of the citation rank");
+    }
+
+    /**
+     * @return the number of hosts which were ranked, including skipped hosts
+     */
+    public int getHostCount() {
+        return this.hosts.get();
+    }
+
+    /**
+     * @return the number of hosts which were not computed because their marker or their graph did not change
+     */
+    public int getSkippedCount() {
+        return this.skipped.get();
+    }
+
+    /**
+     * @return the number of documents with a changed rank
+     */
+    public int getChangedCount() {
+        return this.changed.get();
+    }
+}
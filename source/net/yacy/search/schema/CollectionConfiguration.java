@@ -43,7 +43,6 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -69,7 +68,6 @@ import net.yacy.cora.federate.solr.SchemaConfiguration;
 import net.yacy.cora.federate.solr.SchemaDeclaration;
 import net.yacy.cora.federate.solr.connector.AbstractSolrConnector;
 import net.yacy.cora.federate.solr.connector.SolrConnector;
-import net.yacy.cora.federate.solr.connector.SolrConnector.LoadTimeURL;
 import net.yacy.cora.federate.solr.logic.BooleanLiteral;
 import net.yacy.cora.federate.solr.logic.CatchallLiteral;
 import net.yacy.cora.federate.solr.logic.Conjunction;
@@ -98,14 +96,16 @@ import net.yacy.document.parser.html.IconEntry;
 import net.yacy.document.parser.html.ImageEntry;
 import net.yacy.kelondro.data.citation.CitationReference;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
-import net.yacy.kelondro.index.RowHandleMap;
 import net.yacy.kelondro.rwi.ReferenceContainer;
 import net.yacy.kelondro.util.Bitfield;
 import net.yacy.kelondro.util.MemoryControl;
 import net.yacy.search.index.Segment;
 import net.yacy.search.index.Segment.ReferenceReport;
 import net.yacy.search.index.Segment.ReferenceReportCache;
+import net.yacy.search.index.SignatureIndex;
+import net.yacy.search.index.SignatureIndex.Cluster;
 import net.yacy.search.query.QueryParams;
+import net.yacy.search.schema.CitationRank.CRV;
 
 
 public class CollectionConfiguration extends SchemaConfiguration implements Serializable {
@@ -254,6 +254,14 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
         } catch (final IOException e) {}
     }
 
+    /** the number of postprocessed documents which are written with one update request */
+    private final static int POSTPROCESSING_BATCH_SIZE = 100;
+
+    /** the fields which are computed by {@link #postprocessing_references(ReferenceReportCache, SolrInputDocument, DigestURL, Map)} */
+    private final static CollectionSchema[] REFERENCES_FIELDS = new CollectionSchema[]{
+            CollectionSchema.references_i, CollectionSchema.references_internal_i, CollectionSchema.references_external_i,
+            CollectionSchema.references_exthosts_i, CollectionSchema.host_extent_i};
+
     private final static Set<String> omitFields = new HashSet<>(3);
     static {
         omitFields.add(CollectionSchema.author_sxt.getSolrFieldName());
@@ -567,11 +575,11 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
 
         this.add(doc, CollectionSchema.exact_signature_l, condenser.exactSignature());
         this.add(doc, CollectionSchema.exact_signature_unique_b, true); // this must be corrected afterwards during storage!
-        this.add(doc, CollectionSchema.exact_signature_copycount_i, 0); // this must be corrected afterwards during postprocessing!
+        this.add(doc, CollectionSchema.exact_signature_copycount_i, 0); // this must be corrected afterwards during storage!
         this.add(doc, CollectionSchema.fuzzy_signature_l, condenser.fuzzySignature());
         this.add(doc, CollectionSchema.fuzzy_signature_text_t, condenser.fuzzySignatureText());
         this.add(doc, CollectionSchema.fuzzy_signature_unique_b, true); // this must be corrected afterwards during storage!
-        this.add(doc, CollectionSchema.fuzzy_signature_copycount_i, 0); // this must be corrected afterwards during postprocessing!
+        this.add(doc, CollectionSchema.fuzzy_signature_copycount_i, 0); // this must be corrected afterwards during storage!
         if (this.contains(CollectionSchema.exact_signature_unique_b) || this.contains(CollectionSchema.exact_signature_copycount_i) ||
             this.contains(CollectionSchema.fuzzy_signature_l) || this.contains(CollectionSchema.fuzzy_signature_copycount_i) ||
             this.contains(CollectionSchema.http_unique_b) || this.contains(CollectionSchema.www_unique_b)) {
@@ -1272,6 +1280,7 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                        collection.contains(CollectionSchema.cr_host_norm_i)));
         // create the ranking map
         final Map<String, CRV> rankings;
+        final CitationRank citationRank = new CitationRank(new File(segment.getLocation(), Segment.citationRankName));
         if(shallComputeCR) {
             // collect hosts from index which shall take part in citation computation
             postprocessingActivity = "collecting host facets for collection";
@@ -1285,7 +1294,7 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                 collection1hosts = new ClusteredScoreMap<>(true);
             }
 
-        	rankings = this.createRankingMap(segment, rrCache, collectionConnector, collection1hosts);
+        	rankings = this.createRankingMap(segment, rrCache, collectionConnector, collection1hosts, citationRank);
         } else {
         	rankings = new ConcurrentHashMap<>();
         }
@@ -1300,6 +1309,11 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
         this.postprocessDocuments(segment, rrCache, harvestkey, byPartialUpdate, collectionConnector, collection,
 				collection1query, rankings, allcount);
 
+        // write the changed ranks of documents which were not processed
+        if (shallComputeCR) {
+            this.postprocessRankings(byPartialUpdate, collectionConnector, collection, rankings, allcount, citationRank);
+            citationRank.commit();
+        }
 
         postprocessingCollection1Count = 0;
         postprocessingWebgraphCount = 0;
@@ -1390,7 +1404,24 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                         CollectionSchema.url_protocol_s.getSolrFieldName(),
                         CollectionSchema.httpstatus_i.getSolrFieldName(),
                         CollectionSchema.inboundlinkscount_i.getSolrFieldName(),
-                        CollectionSchema.robots_i.getSolrFieldName()} :
+                        CollectionSchema.robots_i.getSolrFieldName(),
+                        // the current values of the fields which are computed, so only changed values are written
+                        CollectionSchema.cr_host_count_i.getSolrFieldName(),
+                        CollectionSchema.cr_host_chance_d.getSolrFieldName(),
+                        CollectionSchema.cr_host_norm_i.getSolrFieldName(),
+                        CollectionSchema.http_unique_b.getSolrFieldName(),
+                        CollectionSchema.www_unique_b.getSolrFieldName(),
+                        CollectionSchema.exact_signature_unique_b.getSolrFieldName(),
+                        CollectionSchema.exact_signature_copycount_i.getSolrFieldName(),
+                        CollectionSchema.fuzzy_signature_unique_b.getSolrFieldName(),
+                        CollectionSchema.fuzzy_signature_copycount_i.getSolrFieldName(),
+                        CollectionSchema.title_unique_b.getSolrFieldName(),
+                        CollectionSchema.description_unique_b.getSolrFieldName(),
+                        CollectionSchema.references_i.getSolrFieldName(),
+                        CollectionSchema.references_internal_i.getSolrFieldName(),
+                        CollectionSchema.references_external_i.getSolrFieldName(),
+                        CollectionSchema.references_exthosts_i.getSolrFieldName(),
+                        CollectionSchema.host_extent_i.getSolrFieldName()} :
                         this.allFields());
                 final Thread rewriteThread[] = new Thread[concurrency];
                 for (int rewrite_start = 0; rewrite_start < concurrency; rewrite_start++) {
@@ -1398,6 +1429,7 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                         @Override
                         public void run() {
                             SolrDocument doc;
+                            final List<SolrInputDocument> batch = new ArrayList<>(POSTPROCESSING_BATCH_SIZE);
                             try {
                                 while ((doc = docs.take()) != AbstractSolrConnector.POISON_DOCUMENT) {
                                     // for each to-be-processed entry work on the process tag
@@ -1424,7 +1456,7 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                                                 collection.contains(CollectionSchema.cr_host_chance_d) &&
                                                 collection.contains(CollectionSchema.cr_host_norm_i)) {
                                                 final CRV crv = rankings.remove(ASCII.String(id)); // instead of 'get'ting the CRV, we also remove it because we will not need it again and free some memory here
-                                                if (crv != null) {
+                                                if (crv != null && crv.changed) {
                                                     sid.setField(CollectionSchema.cr_host_count_i.getSolrFieldName(), crv.count);
                                                     sid.setField(CollectionSchema.cr_host_chance_d.getSolrFieldName(), crv.cr);
                                                     sid.setField(CollectionSchema.cr_host_norm_i.getSolrFieldName(), crv.crn);
@@ -1449,11 +1481,13 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                                                 final long hostExtentCount = segment.fulltext().getDefaultConnector().getCountByQuery(q.toString());
                                                 hostExtentCache.put(hosthash, hostExtentCount);
                                             }
+                                            if (byPartialUpdate) copyFields(doc, sid, REFERENCES_FIELDS); // the current values are compared with the new values
                                             if (CollectionConfiguration.this.postprocessing_references(rrCache, sid, url, hostExtentCache)) proccount_referencechange.incrementAndGet();
                                         }
 
                                         // all processing steps checked, remove the processing and harvesting key
                                         if (byPartialUpdate) {
+                                            removeUnchanged(doc, sid); // fields with unchanged values are not written
                                             sid.setField(CollectionSchema.process_sxt.getSolrFieldName(), null); // setting this to null will cause a removal when doing a partial update
                                             sid.setField(CollectionSchema.harvestkey_s.getSolrFieldName(), null);
                                         } /*else { // fields are omitted on sid creation
@@ -1464,17 +1498,13 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                                         // id, http_unique_b, www_unique_b, references_i, references_internal_i, references_external_i, references_exthosts_i, host_extent_i
                                         // and the value for host_extent_i is by default 2147483647
 
-                                        // send back to index
-                                        //collectionConnector.deleteById(i);
-                                        if (byPartialUpdate) {
-                                            collectionConnector.update(sid);
-                                        } else {
-                                            collectionConnector.add(sid);
-                                        }
+                                        // send back to index in batches
+                                        batch.add(sid);
+                                        if (batch.size() >= POSTPROCESSING_BATCH_SIZE) writePostprocessed(collectionConnector, batch, byPartialUpdate, failids);
                                         final long thiscount = proccount.incrementAndGet(); allcount.incrementAndGet();
                                         if (thiscount % 100 == 0) {
                                             postprocessingActivity = "postprocessed " + thiscount + " from " + count + " collection documents; " +
-                                                (thiscount * 60000L / (System.currentTimeMillis() - start)) + " ppm; " +
+                                                (thiscount * 60000L / Math.max(1, System.currentTimeMillis() - start)) + " ppm; " +
                                                 ((System.currentTimeMillis() - start) * (count - thiscount) / thiscount / 60000) + " minutes remaining";
                                             ConcurrentLog.info("CollectionConfiguration", postprocessingActivity);
                                         }
@@ -1486,6 +1516,8 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                                 }
                             } catch (final InterruptedException e) {
                                 ConcurrentLog.logException(e);
+                            } finally {
+                                writePostprocessed(collectionConnector, batch, byPartialUpdate, failids);
                             }
                         }
                     };
@@ -1496,12 +1528,15 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
 
                 if (failids.size() > 0) {
                     ConcurrentLog.info("CollectionConfiguration", "cleanup_processing: deleting " + failids.size() + " documents which have permanent execution fails");
+                    if (segment.signatureIndex() != null) for (final String id: failids) segment.signatureIndex().remove(id);
                     collectionConnector.deleteByIds(failids);
                 }
                 if (count != countcheck.get()) ConcurrentLog.warn("CollectionConfiguration", "ambiguous collection document count for harvestkey " + harvestkey + ": expected=" + count + ", counted=" + countcheck + "; countquery=" + collection1query); // big gap for harvestkey = null
                 ConcurrentLog.info("CollectionConfiguration", "cleanup_processing: re-calculated " + proccount + " new documents, " +
                             proccount_referencechange + " reference-count changes, " +
-                            proccount_citationchange + " citation ranking changes.");
+                            proccount_citationchange + " citation ranking changes, " +
+                            (proccount.get() * 1000L / Math.max(1, System.currentTimeMillis() - start)) + " documents/second" +
+                            (byPartialUpdate ? " with partial updates." : " with full updates."));
             }
 
         } catch (final InterruptedException e2) {
@@ -1512,6 +1547,70 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
         collectionConnector.commit(true); // make changes available directly to prevent that the process repeats again
 	}
 
+	/**
+	 * Writes a batch of postprocessed documents and clears the batch. When the batch can not be written,
+	 * the documents are written one by one and the ids of the documents which can not be written are collected.
+	 * @param collectionConnector connector to the main Solr collection
+	 * @param batch postprocessed documents or partial updates
+	 * @param byPartialUpdate when true, the documents are partial updates
+	 * @param failids the ids of documents which can not be written
+	 */
+	static void writePostprocessed(final SolrConnector collectionConnector, final List<SolrInputDocument> batch,
+			final boolean byPartialUpdate, final Collection<String> failids) {
+		if (batch.isEmpty()) return;
+		try {
+			if (byPartialUpdate) collectionConnector.update(batch); else collectionConnector.add(batch);
+		} catch (final IOException | SolrException e) {
+			ConcurrentLog.warn("CollectionConfiguration", "failed to write a batch of " + batch.size() + " postprocessed documents, writing them one by one: " + e.getMessage());
+			for (final SolrInputDocument sid: batch) {
+				try {
+					if (byPartialUpdate) collectionConnector.update(sid); else collectionConnector.add(sid);
+				} catch (final IOException | SolrException ee) {
+					ConcurrentLog.logException(ee);
+					failids.add((String) sid.getFieldValue(CollectionSchema.id.getSolrFieldName()));
+				}
+			}
+		}
+		batch.clear();
+	}
+
+	/**
+	 * Copies the values of fields from a document to a partial update.
+	 * @param doc the document
+	 * @param sid the partial update
+	 * @param fields the fields to copy; fields which have no value in the document are not copied
+	 */
+	private static void copyFields(final SolrDocument doc, final SolrInputDocument sid, final CollectionSchema[] fields) {
+		for (final CollectionSchema field: fields) {
+			final Object value = doc.getFieldValue(field.getSolrFieldName());
+			if (value != null) sid.setField(field.getSolrFieldName(), value);
+		}
+	}
+
+	/**
+	 * Removes all fields from a partial update which have the same value in the document,
+	 * so that a partial update only writes the changed values.
+	 * @param doc the document with the current values
+	 * @param sid the partial update
+	 */
+	static void removeUnchanged(final SolrDocument doc, final SolrInputDocument sid) {
+		final Iterator<SolrInputField> fields = sid.iterator();
+		while (fields.hasNext()) {
+			final SolrInputField field = fields.next();
+			if (field.getName().equals(CollectionSchema.id.getSolrFieldName())) continue;
+			final Object value = field.getValue();
+			final Object current = doc.getFieldValue(field.getName());
+			if (value == null || current == null) continue;
+			if (value instanceof Number && current instanceof Number ?
+					(value instanceof Double || value instanceof Float || current instanceof Double || current instanceof Float ?
+							((Number) value).doubleValue() == ((Number) current).doubleValue() :
+							((Number) value).longValue() == ((Number) current).longValue()) :
+					value.equals(current)) {
+				fields.remove();
+			}
+		}
+	}
+
 	/**
 	 * Perform postprocessing steps on the webgraph core.
 	 * @param segment Solr segment.
@@ -1643,16 +1742,16 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
 	 * @param rrCache reference report cache for the segment
 	 * @param collectionConnector default connector to the Solr segment
 	 * @param collection1hosts hosts from index which shall take part in citation computation
+	 * @param citationRank the citation rank computation with the fingerprints of the hosts which are computed already
 	 * @return the ranking map
 	 */
 	private Map<String, CRV> createRankingMap(final Segment segment, final ReferenceReportCache rrCache,
-			final SolrConnector collectionConnector, ReversibleScoreMap<String> collection1hosts) {
-		final Map<String, CRV> rankings = new ConcurrentHashMap<>();
+			final SolrConnector collectionConnector, ReversibleScoreMap<String> collection1hosts, final CitationRank citationRank) {
+		final List<String> crhosts = new ArrayList<>();
+		final int concurrency = Math.max(1, Math.min(collection1hosts.size(), Runtime.getRuntime().availableProcessors()));
         try {
-            final int concurrency = Math.min(collection1hosts.size(), Runtime.getRuntime().availableProcessors());
-            postprocessingActivity = "collecting cr for " + collection1hosts.size() + " hosts, concurrency = " + concurrency;
+            postprocessingActivity = "patching canonical links for " + collection1hosts.size() + " hosts";
             ConcurrentLog.info("CollectionConfiguration", postprocessingActivity);
-            int countcheck = 0;
             for (final String host: collection1hosts.keyList(true)) {
                 // Patch the citation index for links with canonical tags.
                 // This shall fulfill the following requirement:
@@ -1696,38 +1795,77 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                 }
                 if (patchquerycount != patchquerycountcheck) ConcurrentLog.warn("CollectionConfiguration", "ambiguous patchquery count for host " + host + ": expected=" + patchquerycount + ", counted=" + patchquerycountcheck);
 
-                // do the citation rank computation
-                if (collection1hosts.get(host) <= 0) continue;
-                // select all documents for each host
-                final CRHost crh = new CRHost(segment, rrCache, host, 0.85d, 6);
-                int convergence_attempts = 0;
-                while (convergence_attempts++ < 30) {
-                    ConcurrentLog.info("CollectionConfiguration", "convergence step " + convergence_attempts + " for host " + host + " ...");
-                    if (crh.convergenceStep()) break;
-                    if (MemoryControl.shortStatus()) {
-                        ConcurrentLog.warn("CollectionConfiguration", "terminated convergenceStep during postprocessing because of short memory");
-                        break;
-                    }
-                }
-                ConcurrentLog.info("CollectionConfiguration", "convergence for host " + host + " after " + convergence_attempts + " steps");
-                // we have now the cr for all documents of a specific host; we store them for later use
-                final Map<String, CRV> crn = crh.normalize();
-                //crh.log(crn);
-                rankings.putAll(crn); // accumulate this here for usage in document update later
+                if (collection1hosts.get(host) > 0) crhosts.add(host);
                 if (MemoryControl.shortStatus()) {
-                    ConcurrentLog.warn("CollectionConfiguration", "terminated crn akkumulation during postprocessing because of short memory");
+                    ConcurrentLog.warn("CollectionConfiguration", "terminated canonical patching during postprocessing because of short memory");
                     break;
                 }
-                countcheck++;
             }
-            if (collection1hosts.size() != countcheck) ConcurrentLog.warn("CollectionConfiguration", "ambiguous host count: expected=" + collection1hosts.size() + ", counted=" + countcheck);
         } catch (final IOException e2) {
             ConcurrentLog.logException(e2);
-            collection1hosts = new ClusteredScoreMap<>(true);
         }
+
+        // do the citation rank computation for all hosts whose link graph changed
+        postprocessingActivity = "collecting cr for " + crhosts.size() + " hosts, concurrency = " + concurrency;
+        ConcurrentLog.info("CollectionConfiguration", postprocessingActivity);
+        final Map<String, CRV> rankings = citationRank.rank(segment, rrCache, crhosts, concurrency);
+        ConcurrentLog.info("CollectionConfiguration", "cr computed for " + citationRank.getHostCount() + " hosts, " + citationRank.getSkippedCount() +
+                " hosts unchanged, " + citationRank.getChangedCount() + " changed ranks");
 		return rankings;
 	}
 
+	/**
+	 * Writes the changed ranks which were not written by the postprocessing of the documents,
+	 * because these documents were not marked for postprocessing.
+	 * @param byPartialUpdate when true, perform partial updates on documents
+	 * @param collectionConnector connector to the main Solr collection
+	 * @param collection schema configuration for the collection
+	 * @param rankings the remaining postprocessed rankings
+	 * @param allcount global postprocessed documents count
+	 * @param citationRank the citation rank computation, which is told about the hosts whose ranks could not be written
+	 */
+	private void postprocessRankings(final boolean byPartialUpdate, final SolrConnector collectionConnector,
+			final CollectionConfiguration collection, final Map<String, CRV> rankings, final AtomicInteger allcount,
+			final CitationRank citationRank) {
+        if (!collection.contains(CollectionSchema.cr_host_count_i) ||
+            !collection.contains(CollectionSchema.cr_host_chance_d) ||
+            !collection.contains(CollectionSchema.cr_host_norm_i)) return;
+        postprocessingActivity = "writing changed cr values";
+        ConcurrentLog.info("CollectionConfiguration", postprocessingActivity);
+        int count = 0;
+        for (final Map.Entry<String, CRV> entry: rankings.entrySet()) {
+            final CRV crv = entry.getValue();
+            if (!crv.changed) continue;
+            try {
+                final SolrInputDocument sid;
+                if (byPartialUpdate) {
+                    sid = new SolrInputDocument();
+                } else {
+                    final SolrDocument doc = collectionConnector.getDocumentById(entry.getKey(), this.allFields());
+                    if (doc == null) continue;
+                    sid = collection.toSolrInputDocument(doc);
+                }
+                sid.setField(CollectionSchema.id.getSolrFieldName(), entry.getKey());
+                sid.setField(CollectionSchema.cr_host_count_i.getSolrFieldName(), crv.count);
+                sid.setField(CollectionSchema.cr_host_chance_d.getSolrFieldName(), crv.cr);
+                sid.setField(CollectionSchema.cr_host_norm_i.getSolrFieldName(), crv.crn);
+                if (byPartialUpdate) {
+                    collectionConnector.update(sid);
+                } else {
+                    collectionConnector.add(sid);
+                }
+                count++;
+                allcount.incrementAndGet();
+            } catch (final IOException | SolrException e) {
+                ConcurrentLog.warn("CollectionConfiguration", "failed to write cr for " + entry.getKey() + ": " + e.getMessage());
+                citationRank.failed(crv.host);
+            }
+        }
+        rankings.clear();
+        collectionConnector.commit(true);
+        ConcurrentLog.info("CollectionConfiguration", "wrote " + count + " changed cr values of documents which were not postprocessed");
+	}
+
 	/**
 	 * Search in the segment any document having the same url as doc but with the opposite secure/unsecure (https or http) version of the protocol.
 	 * Then updates accordingly the document http_unique_b field.
@@ -1795,7 +1933,11 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
         final CollectionSchema[][] doccheckschema = new CollectionSchema[][]{
                 {CollectionSchema.exact_signature_l, CollectionSchema.exact_signature_unique_b, CollectionSchema.exact_signature_copycount_i},
                 {CollectionSchema.fuzzy_signature_l, CollectionSchema.fuzzy_signature_unique_b, CollectionSchema.fuzzy_signature_copycount_i}};
-        uniquecheck: for (final CollectionSchema[] checkfields: doccheckschema) {
+        final byte[] signaturekinds = new byte[]{SignatureIndex.EXACT, SignatureIndex.FUZZY};
+        final SignatureIndex signatureIndex = segment.signatureIndex();
+        final List<CollectionSchema[]> querycheckschema = new ArrayList<>(doccheckschema.length);
+        uniquecheck: for (int i = 0; i < doccheckschema.length; i++) {
+            final CollectionSchema[] checkfields = doccheckschema[i];
             final CollectionSchema signaturefield = checkfields[0];
             final CollectionSchema uniquefield = checkfields[1];
             final CollectionSchema countfield = checkfields[2];
@@ -1804,42 +1946,56 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                 // lookup the document with the same signature
                 final Long signature = (Long) doc.getFieldValue(signaturefield.getSolrFieldName());
                 if (signature == null) continue uniquecheck;
+                // documents which were stored together with the signature index are found there without a query
+                if (signatureIndex != null) try {
+                    final Cluster cluster = signatureIndex.get(urlhash, signaturekinds[i]);
+                    if (cluster != null) {
+                        sid.setField(uniquefield.getSolrFieldName(), cluster.unique);
+                        sid.setField(countfield.getSolrFieldName(), cluster.count);
+                        continue uniquecheck;
+                    }
+                } catch (final IOException e) {
+                    ConcurrentLog.logException(e);
+                }
                 //con.addOperand(new Negation(new Literal(CollectionSchema.id, urlhash)));
                 //con.addOperand(new Literal(CollectionSchema.host_id_s, hostid));
                 dnf.addOperand(new LongLiteral(signaturefield, signature));
+                querycheckschema.add(checkfields);
             }
         }
-        final Conjunction con = (Conjunction) ValidDocTermTemplate.clone();
-        con.addOperand(dnf);
-        con.addOperand(new Negation(new StringLiteral(CollectionSchema.id, urlhash)));
-        con.addOperand(new StringLiteral(CollectionSchema.host_id_s, hostid));
-        final String query = con.toString();
-        SolrDocumentList docsAkk;
-        try {
-             docsAkk = segment.fulltext().getDefaultConnector().getDocumentListByQuery(query, null, 0, 1000,
-                     CollectionSchema.id.getSolrFieldName(), CollectionSchema.exact_signature_l.getSolrFieldName(), CollectionSchema.fuzzy_signature_l.getSolrFieldName());
-        } catch (final IOException e) {
-            ConcurrentLog.logException(e);
-            docsAkk = new SolrDocumentList();
-        }
-        if (docsAkk.getNumFound() > 0) uniquecheck: for (final CollectionSchema[] checkfields: doccheckschema) {
-            final CollectionSchema signaturefield = checkfields[0];
-            final CollectionSchema uniquefield = checkfields[1];
-            final CollectionSchema countfield = checkfields[2];
+        if (querycheckschema.size() > 0) {
+            final Conjunction con = (Conjunction) ValidDocTermTemplate.clone();
+            con.addOperand(dnf);
+            con.addOperand(new Negation(new StringLiteral(CollectionSchema.id, urlhash)));
+            con.addOperand(new StringLiteral(CollectionSchema.host_id_s, hostid));
+            final String query = con.toString();
+            SolrDocumentList docsAkk;
+            try {
+                 docsAkk = segment.fulltext().getDefaultConnector().getDocumentListByQuery(query, null, 0, 1000,
+                         CollectionSchema.id.getSolrFieldName(), CollectionSchema.exact_signature_l.getSolrFieldName(), CollectionSchema.fuzzy_signature_l.getSolrFieldName());
+            } catch (final IOException e) {
+                ConcurrentLog.logException(e);
+                docsAkk = new SolrDocumentList();
+            }
+            if (docsAkk.getNumFound() > 0) uniquecheck: for (final CollectionSchema[] checkfields: querycheckschema) {
+                final CollectionSchema signaturefield = checkfields[0];
+                final CollectionSchema uniquefield = checkfields[1];
+                final CollectionSchema countfield = checkfields[2];
 
-            if (this.contains(signaturefield) && this.contains(uniquefield) && this.contains(countfield)) {
-                // lookup the document with the same signature
-                final Long signature = (Long) doc.getFieldValue(signaturefield.getSolrFieldName());
-                if (signature == null) continue uniquecheck;
-                final SolrDocumentList docs = new StringLiteral(signaturefield, signature.toString()).apply(docsAkk);
-                if (docs.getNumFound() == 0) {
-                    sid.setField(uniquefield.getSolrFieldName(), true);
-                    sid.setField(countfield.getSolrFieldName(), 1);
-                } else {
-                    boolean firstappearance = true;
-                    for (final SolrDocument d: docs) {if (uniqueURLs.contains(d.getFieldValue(CollectionSchema.id.getSolrFieldName()))) firstappearance = false; break;}
-                    sid.setField(uniquefield.getSolrFieldName(), firstappearance);
-                    sid.setField(countfield.getSolrFieldName(), docs.getNumFound() + 1); // the current url was excluded from search but is included in count
+                if (this.contains(signaturefield) && this.contains(uniquefield) && this.contains(countfield)) {
+                    // lookup the document with the same signature
+                    final Long signature = (Long) doc.getFieldValue(signaturefield.getSolrFieldName());
+                    if (signature == null) continue uniquecheck;
+                    final SolrDocumentList docs = new StringLiteral(signaturefield, signature.toString()).apply(docsAkk);
+                    if (docs.getNumFound() == 0) {
+                        sid.setField(uniquefield.getSolrFieldName(), true);
+                        sid.setField(countfield.getSolrFieldName(), 1);
+                    } else {
+                        boolean firstappearance = true;
+                        for (final SolrDocument d: docs) {if (uniqueURLs.contains(d.getFieldValue(CollectionSchema.id.getSolrFieldName()))) firstappearance = false; break;}
+                        sid.setField(uniquefield.getSolrFieldName(), firstappearance);
+                        sid.setField(countfield.getSolrFieldName(), docs.getNumFound() + 1); // the current url was excluded from search but is included in count
+                    }
                 }
             }
         }
@@ -1936,190 +2092,6 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
 
 
 
-    private static final class CRV {
-        public double cr;
-        public int crn, count;
-        public CRV(final int count, final double cr, final int crn) {this.count = count; this.cr = cr; this.crn = crn;}
-        @Override
-        public String toString() {
-            return "count=" + this.count + ", cr=" + this.cr + ", crn=" + this.crn;
-        }
-    }
-
-    /**
-     * The CRHost class is a container for all ranking values of a specific host.
-     * Objects of that class are needed as an environment for repeated convergenceStep() computations,
-     * which are iterative citation rank computations that are repeated until the ranking values
-     * converge to stable values.
-     * The class also contains normalization methods to compute simple integer ranking values out of the
-     * double relevance values.
-     */
-    private static final class CRHost {
-        private final Segment segment;
-        private final Map<String, double[]> crt;
-        private final int cr_host_count;
-        private final RowHandleMap internal_links_counter;
-        private final double damping;
-        private final int converge_eq_factor;
-        private final ReferenceReportCache rrCache;
-        public CRHost(final Segment segment, final ReferenceReportCache rrCache, final String host, final double damping, final int converge_digits) {
-            this.segment = segment;
-            this.damping = damping;
-            this.rrCache = rrCache;
-            this.converge_eq_factor = (int) Math.pow(10.0d, converge_digits);
-            final SolrConnector connector = segment.fulltext().getDefaultConnector();
-            this.crt = new ConcurrentHashMap<>();
-            try {
-                // select all documents for each host
-                final BlockingQueue<String> ids = connector.concurrentIDsByQuery("{!cache=false raw f=" + CollectionSchema.host_s.getSolrFieldName() + "}" + host, CollectionSchema.url_chars_i.getSolrFieldName() + " asc", 0, 100000000, 86400000, 200, 1);
-                String id;
-                while ((id = ids.take()) != AbstractSolrConnector.POISON_ID) {
-                    this.crt.put(id, new double[]{0.0d,0.0d}); //{old value, new value}
-                    if (MemoryControl.shortStatus()) {
-                        ConcurrentLog.warn("CollectionConfiguration", "terminated CRHost collection during postprocessing because of short memory");
-                        break;
-                    }
-                }
-            } catch (final InterruptedException e2) {
-            }
-            this.cr_host_count = this.crt.size();
-            final double initval = 1.0d / this.cr_host_count;
-            for (final Map.Entry<String, double[]> entry: this.crt.entrySet()) entry.getValue()[0] = initval;
-            this.internal_links_counter = new RowHandleMap(12, Base64Order.enhancedCoder, 8, 100, "internal_links_counter");
-        }
-        /**
-         * produce a map from IDs to CRV records, normalization entries containing the values that are stored to solr.
-         * @return
-         */
-        public Map<String, CRV> normalize() {
-            final TreeMap<Double, List<byte[]>> reorder = new TreeMap<>();
-            for (final Map.Entry<String, double[]> entry: this.crt.entrySet()) {
-                final Double d = entry.getValue()[0];
-                List<byte[]> ds = reorder.get(d);
-                if (ds == null) {ds = new ArrayList<>(); reorder.put(d, ds);}
-                ds.add(ASCII.getBytes(entry.getKey()));
-            }
-            int nextcount = (this.cr_host_count + 1) / 2;
-            int nextcrn = 0;
-            final Map<String, CRV> r = new HashMap<>();
-            while (reorder.size() > 0) {
-                int count = nextcount;
-                while (reorder.size() > 0 && count > 0) {
-                    final Map.Entry<Double, List<byte[]>> next = reorder.pollFirstEntry();
-                    final List<byte[]> ids = next.getValue();
-                    count -= ids.size();
-                    final double cr = next.getKey();
-                    for (final byte[] id: ids) r.put(ASCII.String(id), new CRV(this.cr_host_count, cr, nextcrn));
-                }
-                nextcrn++;
-                nextcount = Math.max(1, (nextcount + count + 1) / 2);
-            }
-            // finally, increase the crn number in such a way that the maximum is always 10
-            final int inc = 11 - nextcrn; // nextcrn is +1
-            for (final Map.Entry<String, CRV> entry: r.entrySet()) entry.getValue().crn += inc;
-            return r;
-        }
-        /**
-         * log out a complete CRHost set of urls and ranking values
-         * @param rm
-         */
-        @SuppressWarnings("unused")
-        public void log(final Map<byte[], CRV> rm) {
-            // print out all urls with their cr-values
-            final SolrConnector connector = this.segment.fulltext().getDefaultConnector();
-            for (final Map.Entry<byte[], CRV> entry: rm.entrySet()) {
-                if (entry == null || entry.getValue() == null) continue;
-                try {
-                    final LoadTimeURL md = connector.getLoadTimeURL(ASCII.String(entry.getKey()));
-                    ConcurrentLog.info("CollectionConfiguration", "CR for " + md.url);
-                    ConcurrentLog.info("CollectionConfiguration", ">> " + entry.getValue().toString());
-                } catch (final IOException e) {
-                    ConcurrentLog.logException(e);
-                }
-            }
-        }
-        /**
-         * Calculate the number of internal links from a specific document, denoted by the document ID.
-         * This is a very important attribute for the ranking computation because it is the dividend for the previous ranking attribute.
-         * The internalLinks value will be requested several times for the same id during the convergenceStep()-steps; therefore it should use a cache.
-         * This cache is part of the CRHost data structure.
-         * @param id
-         * @return the number of links from the document, denoted by the ID to documents within the same domain
-         */
-        public int getInternalLinks(final byte[] id) {
-            int il = (int) this.internal_links_counter.get(id);
-            if (il >= 0) return il;
-            final SolrConnector connector = this.segment.fulltext().getDefaultConnector();
-            if (connector == null) return 0;
-            try {
-                final SolrDocument doc = connector.getDocumentById(ASCII.String(id), CollectionSchema.inboundlinkscount_i.getSolrFieldName());
-                if (doc == null) {
-                    this.internal_links_counter.put(id, 0);
-                    return 0;
-                }
-                final Object x = doc.getFieldValue(CollectionSchema.inboundlinkscount_i.getSolrFieldName());
-                il = (x == null) ? 0 : (x instanceof Integer) ? ((Integer) x).intValue() : (x instanceof Long) ? ((Long) x).intValue() : 0;
-                this.internal_links_counter.put(id, il);
-                return il;
-            } catch (final IOException e) {
-                ConcurrentLog.logException(e);
-            } catch (final SpaceExceededException e) {
-                ConcurrentLog.logException(e);
-            }
-            try {this.internal_links_counter.put(id, 0);} catch (final SpaceExceededException e) {}
-            return 0;
-        }
-        /**
-         * Use the crt cache to compute the next generation of crt values.
-         * @return
-         */
-        public boolean convergenceStep() {
-            boolean convergence = true;
-            final double df = (1.0d - this.damping) / this.cr_host_count;
-            try {
-                for (final Map.Entry<String, double[]> entry: this.crt.entrySet()) {
-                    final String id = entry.getKey();
-                    final ReferenceReport rr = this.rrCache.getReferenceReport(id, false);
-                    // sum up the cr of the internal links
-                    final HandleSet iids = rr.getInternallIDs();
-                    double ncr = 0.0d;
-                    for (final byte[] iid: iids) {
-                        final int ilc = this.getInternalLinks(iid);
-                        if (ilc > 0) { // if (ilc == 0) then the reference report is wrong!
-                            final double[] d = this.crt.get(ASCII.String(iid));
-                            // d[] could be empty at some situations
-                            if (d != null && d.length > 0) {
-                                ncr += d[0] / ilc;
-                            } else {
-                                // Output a warning that d[] is empty
-                                ConcurrentLog.warn("COLLECTION", "d[] is empty, iid="  + ASCII.String(iid));
-                                break;
-                            }
-                        }
-                    }
-                    ncr = df + this.damping * ncr;
-                    if (convergence && !this.eqd(ncr, entry.getValue()[0])) convergence = false;
-                    entry.getValue()[1] = ncr;
-                }
-                // after the loop, replace the old value with the new value in crt
-                for (final Map.Entry<String, double[]> entry: this.crt.entrySet()) {
-                    entry.getValue()[0] = entry.getValue()[1];
-                }
-            } catch (final IOException e) {
-            }
-            return convergence;
-        }
-        /**
-         * helper method to check if two doubles are equal using a specific number of digits
-         * @param a
-         * @param b
-         * @return
-         */
-        private boolean eqd(final double a, final double b) {
-            return ((int) (a * this.converge_eq_factor)) == ((int) (b * this.converge_eq_factor));
-        }
-    }
-
     /**
      * this method compresses a list of protocol names to an indexed list.
      * To do this, all 'http' entries are removed and considered as default.
@@ -51,6 +51,7 @@ import net.yacy.cora.util.NumberTools;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.document.Document;
 import net.yacy.document.Parser;
+import net.yacy.document.ParserSandbox;
 import net.yacy.document.WordTokenizer;
 import net.yacy.document.parser.html.ImageEntry;
 import net.yacy.kelondro.index.RowHandleSet;
@@ -142,6 +143,7 @@ public class MediaSnippet implements Comparable<MediaSnippet>, Comparator<MediaS
         }
 
         Document document;
+        final boolean interactive = ParserSandbox.interactive(true);
         try {
             document = Document.mergeDocuments(url, null, Switchboard.getSwitchboard().loader.loadDocuments(Switchboard.getSwitchboard().loader.request(url, false, reindexing), cacheStrategy, Integer.MAX_VALUE, BlacklistType.SEARCH, ClientIdentification.yacyIntranetCrawlerAgent));
         } catch (final IOException e) {
@@ -150,6 +152,8 @@ public class MediaSnippet implements Comparable<MediaSnippet>, Comparator<MediaS
         } catch (final Parser.Failure e) {
             ConcurrentLog.fine("snippet fetch", "parser error: " + e.getMessage());
             return new ArrayList<MediaSnippet>();
+        } finally {
+            ParserSandbox.interactive(interactive);
         }
         final ArrayList<MediaSnippet> a = new ArrayList<MediaSnippet>();
         if (document != null) {
@@ -47,6 +47,7 @@ import net.yacy.crawler.retrieval.Request;
 import net.yacy.crawler.retrieval.Response;
 import net.yacy.document.Document;
 import net.yacy.document.Parser;
+import net.yacy.document.ParserSandbox;
 import net.yacy.document.SentenceReader;
 import net.yacy.document.SnippetExtractor;
 import net.yacy.document.WordTokenizer;
@@ -238,12 +239,15 @@ public class TextSnippet implements Comparable<TextSnippet>, Comparator<TextSnip
                 }
                 Document document = null;
                 if (response != null) {
+                    final boolean interactive = ParserSandbox.interactive(true);
                     try {
                         document = Document.mergeDocuments(response.url(), response.getMimeType(), response.parse());
                         sentences = new SentenceReader(firstSentencesList, document.getTextString(), pre);
                         response = null;
                         document = null;
                     } catch (final Parser.Failure e) {
+                    } finally {
+                        ParserSandbox.interactive(interactive);
                     }
                 }
             }
@@ -344,11 +348,14 @@ public class TextSnippet implements Comparable<TextSnippet>, Comparator<TextSnip
 
         // parse the document to get all sentenced; available for snippet computation
         Document document = null;
+        final boolean interactive = ParserSandbox.interactive(true);
         try {
             document = Document.mergeDocuments(response.url(), response.getMimeType(), response.parse());
         } catch (final Parser.Failure e) {
             init(url, null, false, ResultClass.ERROR_PARSER_FAILED, e.getMessage(), beginTime); // cannot be parsed
             return;
+        } finally {
+            ParserSandbox.interactive(interactive);
         }
         if (document == null) {
             init(url, null, false, ResultClass.ERROR_PARSER_FAILED, "parser error/failed", beginTime); // cannot be parsed
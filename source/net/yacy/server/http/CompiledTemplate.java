@@ -0,0 +1,537 @@
+// CompiledTemplate.java
+// -------------------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.server.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.server.serverObjects;
+
+/**
+ * A template of the {@link TemplateEngine} compiled into an immutable tree of nodes: literal byte
+ * slices, variables, multi templates, alternatives and includes. The tree is rendered without parsing
+ * the template again, and is cached for each file until the file is modified.
+ * <p>
+ * The compiler reproduces the parsing of the template engine exactly, including its handling of
+ * unusual input, so that the output is byte-identical. A level of the template (the file, the body
+ * of a multi template or an alternative) whose parsing cannot be reproduced exactly, for example
+ * because of unclosed tags, is rendered by the template engine itself.
+ */
+final class CompiledTemplate {
+
+    private final static byte[] EOF_BYTE = {(byte) 0xff}; // the template engine writes a read() result of -1 as 0xff
+    private final static byte[] HASH_EOF = {(byte) '#', (byte) 0xff};
+
+    private final static Map<File, CompiledTemplate> templates = new ConcurrentHashMap<File, CompiledTemplate>();
+    private final static Map<File, CompiledTemplate> includes = new ConcurrentHashMap<File, CompiledTemplate>();
+
+    private final long lastModified;
+    private final long length;
+    private final Node root;
+
+    private CompiledTemplate(final byte[] source, final long lastModified, final long length) {
+        this.lastModified = lastModified;
+        this.length = length;
+        this.root = level(source, 0, source.length);
+    }
+
+    /**
+     * get the compiled template of a file, compile it if it is not cached or has been modified
+     * @param file a template file
+     * @return the compiled template
+     * @throws IOException when the file cannot be read
+     */
+    static CompiledTemplate get(final File file) throws IOException {
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        CompiledTemplate template = templates.get(file);
+        if (template != null && template.lastModified == lastModified && template.length == length) return template;
+        template = new CompiledTemplate(Files.readAllBytes(file.toPath()), lastModified, length);
+        templates.put(file, template);
+        return template;
+    }
+
+    /**
+     * get the compiled template of an include file; included files are read line by line like the template engine does
+     */
+    private static CompiledTemplate include(final String filename, final String clientbrowserlang, final File includeRoot) {
+        final File file = TemplateEngine.includeFile(filename, clientbrowserlang, includeRoot);
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        CompiledTemplate template = includes.get(file);
+        if (template != null && template.lastModified == lastModified && template.length == length) return template;
+        final ByteArrayOutputStream include = new ByteArrayOutputStream();
+        final boolean complete = TemplateEngine.readInclude(filename, file, include);
+        template = new CompiledTemplate(include.toByteArray(), lastModified, length);
+        if (complete) includes.put(file, template);
+        return template;
+    }
+
+    /**
+     * remove all templates from the cache
+     */
+    static void clear() {
+        templates.clear();
+        includes.clear();
+    }
+
+    /**
+     * @return the number of cached templates and includes
+     */
+    static int size() {
+        return templates.size() + includes.size();
+    }
+
+    /**
+     * render the template
+     * @param servletname the name of the template, used in log messages
+     * @param out the output
+     * @param pattern the values of the template patterns
+     * @param includeRoot directory of include files; if null, include files are localized by the HTTPDFileHandler
+     * @throws IOException when the output cannot be written
+     */
+    void render(final String servletname, final OutputStream out, final serverObjects pattern, final File includeRoot) throws IOException {
+        this.root.render(new Context(servletname, out, pattern, includeRoot), "");
+    }
+
+    /**
+     * @return true if all levels of the template are compiled
+     */
+    boolean isCompiled() {
+        return !(this.root instanceof Legacy);
+    }
+
+    private static final class Context {
+        private final String servletname;
+        private final OutputStream out;
+        private final serverObjects pattern;
+        private final String clientbrowserlang;
+        private final File includeRoot;
+
+        private Context(final String servletname, final OutputStream out, final serverObjects pattern, final File includeRoot) {
+            this.servletname = servletname;
+            this.out = out;
+            this.pattern = pattern;
+            this.clientbrowserlang = pattern.get("clientlanguage");
+            this.includeRoot = includeRoot;
+        }
+    }
+
+    private static abstract class Node {
+        /**
+         * @return false if the rendering of the enclosing level stops here
+         */
+        abstract boolean render(Context c, String prefix) throws IOException;
+    }
+
+    private static final class Level extends Node {
+        private final Node[] nodes;
+
+        private Level(final Node[] nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        boolean render(final Context c, final String prefix) throws IOException {
+            for (final Node node: this.nodes) {
+                if (!node.render(c, prefix)) break;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * a level which is parsed and rendered by the template engine
+     */
+    private static final class Legacy extends Node {
+        private final byte[] src;
+        private final int from, to;
+
+        private Legacy(final byte[] src, final int from, final int to) {
+            this.src = src;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        boolean render(final Context c, final String prefix) throws IOException {
+            TemplateEngine.writeTemplate(c.servletname, new ByteArrayInputStream(this.src, this.from, this.to - this.from), c.out, c.pattern, UTF8.getBytes(prefix), c.includeRoot);
+            return true;
+        }
+    }
+
+    private static final class Literal extends Node {
+        private final byte[] b;
+
+        private Literal(final byte[] b) {
+            this.b = b;
+        }
+
+        @Override
+        boolean render(final Context c, final String prefix) throws IOException {
+            c.out.write(this.b);
+            return true;
+        }
+    }
+
+    private static final class Variable extends Node {
+        private final String key;
+
+        private Variable(final String key) {
+            this.key = key;
+        }
+
+        @Override
+        boolean render(final Context c, final String prefix) throws IOException {
+            c.out.write(TemplateEngine.replacePattern(prefix + this.key, c.pattern));
+            return true;
+        }
+    }
+
+    private static final class Multi extends Node {
+        private final String key;
+        private final Node body, bodyWithSeparator;
+
+        private Multi(final String key, final Node body, final Node bodyWithSeparator) {
+            this.key = key;
+            this.body = body;
+            this.bodyWithSeparator = bodyWithSeparator;
+        }
+
+        @Override
+        boolean render(final Context c, final String prefix) throws IOException {
+            final String patternKey = prefix + this.key;
+            int num = 0;
+            if (c.pattern.containsKey(patternKey) && !c.pattern.get(patternKey).isEmpty()) {
+                try {
+                    num = Integer.parseInt(c.pattern.get(patternKey)); // Key contains the iteration number as string
+                } catch (final NumberFormatException e) {
+                    ConcurrentLog.logException(e);
+                    num = 0;
+                }
+            }
+            final String p = patternKey + "_";
+            for (int i = 0; i < num; i++) {
+                final Node n = this.bodyWithSeparator != null && i < num - 1 ? this.bodyWithSeparator : this.body;
+                n.render(c, p + i + "_");
+            }
+            return true;
+        }
+    }
+
+    private static final class Alternative extends Node {
+        private final String key;
+        private final Node[] branches;
+
+        private Alternative(final String key, final Node[] branches) {
+            this.key = key;
+            this.branches = branches;
+        }
+
+        @Override
+        boolean render(final Context c, final String prefix) throws IOException {
+            final String patternKey = prefix + this.key;
+            final String patternId = c.pattern.get(patternKey);
+            int whichPattern = 0;
+            if (patternId != null) {
+                if ("true".equals(patternId)) {
+                    whichPattern = 1;
+                } else if ("false".equals(patternId)) {
+                    whichPattern = 0;
+                } else try {
+                    whichPattern = Integer.parseInt(patternId);
+                } catch (final NumberFormatException e) {
+                    // selection by name: the compiled templates have no %%name branches, the rest of the level is dropped
+                    ConcurrentLog.severe("TEMPLATE", "Bad Key-Value pair in #()# construct: key=\"" + patternKey + "\", value=\"" + patternId + "\" in " + c.servletname);
+                    return false;
+                }
+            }
+            // a missing branch selects the last one
+            final int b = whichPattern >= 0 && whichPattern < this.branches.length ? whichPattern : this.branches.length - 1;
+            this.branches[b].render(c, patternKey + "_");
+            return true;
+        }
+    }
+
+    private static final class Include extends Node {
+        private final byte[] filename;
+        private final String filenameKey;
+
+        private Include(final byte[] filename, final String filenameKey) {
+            this.filename = filename;
+            this.filenameKey = filenameKey;
+        }
+
+        @Override
+        boolean render(final Context c, final String prefix) throws IOException {
+            final byte[] name = this.filenameKey == null ? this.filename : TemplateEngine.replacePattern(prefix + this.filenameKey, c.pattern);
+            if (name.length > 0 && !TemplateEngine.isUnresolved(name)) {
+                include(UTF8.String(name), c.clientbrowserlang, c.includeRoot).root.render(c, ""); // clear pattern prefix for include
+            }
+            return true;
+        }
+    }
+
+    /**
+     * compile a level of a template
+     * @return the compiled level or a legacy node if the level cannot be compiled exactly
+     */
+    private static Node level(final byte[] src, final int from, final int to) {
+        final Node[] nodes = compile(src, from, to);
+        if (nodes == null) return new Legacy(src, from, to);
+        if (nodes.length == 1) return nodes[0];
+        return new Level(nodes);
+    }
+
+    private static int indexOf(final byte[] src, final byte[] pattern, final int from, final int to) {
+        final int last = to - pattern.length;
+        loop: for (int i = from; i <= last; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (src[i + j] != pattern[j]) continue loop;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static int indexOf(final byte[] src, final byte b, final int from, final int to) {
+        for (int i = from; i < to; i++) if (src[i] == b) return i;
+        return -1;
+    }
+
+    /**
+     * @return the key as a string, or null if it contains bytes which the template engine handles differently
+     */
+    private static String key(final byte[] src, final int from, final int to) {
+        for (int i = from; i < to; i++) if (src[i] <= 0) return null;
+        return ASCII.String(src, from, to - from);
+    }
+
+    private static final byte[] MCLOSE = ASCII.getBytes("}#");
+    private static final byte[] ACLOSE = ASCII.getBytes(")#");
+    private static final byte[] PCLOSE = ASCII.getBytes("]#");
+    private static final byte[] ICLOSE = ASCII.getBytes("%#");
+    private static final byte[] PP = ASCII.getBytes("%%");
+
+    /**
+     * Compile a level of a template the same way the template engine parses it.
+     * @return the nodes of the level or null if the level cannot be compiled exactly
+     */
+    private static Node[] compile(final byte[] src, final int from, final int to) {
+        // a zero byte ends the parsing of the template engine, and selection by name needs a %% in the template
+        if (indexOf(src, (byte) 0, from, to) >= 0 || indexOf(src, PP, from, to) >= 0) return null;
+        final List<Node> nodes = new ArrayList<Node>();
+        final ByteArrayOutputStream literal = new ByteArrayOutputStream();
+        int p = from;
+        while (true) {
+            final int h = indexOf(src, (byte) '#', p, to);
+            if (h < 0) {
+                literal.write(src, p, to - p);
+                break;
+            }
+            literal.write(src, p, h - p);
+            if (h + 1 >= to) {
+                literal.write(HASH_EOF, 0, 2);
+                break;
+            }
+            final byte bb = src[h + 1];
+            p = h + 2;
+            if (bb == '{') {
+                // multi
+                final int e = indexOf(src, MCLOSE, p, to);
+                if (e < 0) return null;
+                int keyEnd = e;
+                byte sep = -1;
+                if (e - p > 3 && src[e - 2] == '|') {
+                    sep = src[e - 1];
+                    keyEnd = e - 2;
+                }
+                final String key = key(src, p, keyEnd);
+                if (key == null) return null;
+                p = e + 2;
+                if (p < to && src[p] == '\n') p++; // kill newline
+                final byte[] close = ASCII.getBytes("#{/" + key + "}#");
+                final int c = indexOf(src, close, p, to);
+                if (c < 0) return null;
+                final Node body = level(src, p, c);
+                Node bodyWithSeparator = null;
+                if (sep != -1) {
+                    final int l = c - p;
+                    final byte[] a = new byte[l + 1];
+                    System.arraycopy(src, p, a, 0, l);
+                    // put the separator in front of a cr/lb
+                    if (l >= 2 && a[l - 1] < 32 && a[l - 2] < 32) {
+                        a[l] = a[l - 1];
+                        a[l - 1] = a[l - 2];
+                        a[l - 2] = sep;
+                    } else if (l >= 1 && a[l - 1] < 32) {
+                        a[l] = a[l - 1];
+                        a[l - 1] = sep;
+                    } else {
+                        a[l] = sep;
+                    }
+                    bodyWithSeparator = level(a, 0, a.length);
+                }
+                flush(literal, nodes);
+                nodes.add(new Multi(key, body, bodyWithSeparator));
+                p = c + close.length;
+                if (p >= to) {
+                    // the template engine reads the end of the level as a newline candidate and writes it
+                    literal.write(EOF_BYTE, 0, 1);
+                    break;
+                }
+                if (src[p] == '\n') p++; // kill newline
+            } else if (bb == '(') {
+                // alternative
+                final int e = indexOf(src, ACLOSE, p, to);
+                if (e < 0) return null;
+                final String key = key(src, p, e);
+                if (key == null) return null;
+                final byte[] close = ASCII.getBytes("/" + key);
+                final byte[] closeTag = ASCII.getBytes("#(/" + key + ")#");
+                final List<Node> branches = new ArrayList<Node>();
+                int q = e + 2;
+                int branchStart = q;
+                int others = 0;
+                int end = -1;
+                final List<Integer> splits = new ArrayList<Integer>();
+                while (end < 0) {
+                    if (q >= to) return null;
+                    final byte b = src[q++];
+                    if (b == '#') {
+                        if (q >= to) return null;
+                        if (src[q] != '(') continue; // the next byte is read again
+                        final int ke = indexOf(src, ACLOSE, q + 1, to);
+                        if (ke < 0) return null;
+                        final int tagStart = q - 1;
+                        final int ks = q + 1;
+                        q = ke + 2;
+                        if (ke - ks == close.length && indexOf(src, close, ks, ke) == ks) {
+                            branches.add(level(src, branchStart, tagStart));
+                            end = q;
+                        } else if (others > 0 && src[ks] == '/') {
+                            others--;
+                        } else {
+                            others++;
+                        }
+                    } else if (b == ':' && others == 0) {
+                        if (q >= to) return null;
+                        if (src[q++] == ':') {
+                            branches.add(level(src, branchStart, q - 2));
+                            splits.add(q);
+                            branchStart = q;
+                        }
+                    }
+                }
+                // a selected branch followed by others is finished at the next closing tag
+                for (final int s: splits) {
+                    final int c = indexOf(src, closeTag, s, to);
+                    if (c < 0 || c + closeTag.length != end) return null;
+                }
+                flush(literal, nodes);
+                nodes.add(new Alternative(key, branches.toArray(new Node[branches.size()])));
+                p = end;
+            } else if (bb == '[') {
+                // normal
+                final int e = indexOf(src, PCLOSE, p, to);
+                if (e < 0) return null;
+                final String key = key(src, p, e);
+                if (key == null) return null;
+                flush(literal, nodes);
+                nodes.add(new Variable(key));
+                p = e + 2;
+            } else if (bb == '%') {
+                // include
+                final int e = indexOf(src, ICLOSE, p, to);
+                if (e <= p) return null;
+                final byte[] filename = new byte[e - p];
+                System.arraycopy(src, p, filename, 0, filename.length);
+                flush(literal, nodes);
+                if (filename[0] == '[' && filename[filename.length - 1] == ']') {
+                    final String key = key(filename, 1, filename.length - 1);
+                    if (key == null) return null;
+                    nodes.add(new Include(null, key));
+                } else {
+                    nodes.add(new Include(filename, null));
+                }
+                p = e + 2;
+            } else {
+                // no match, but a single hash
+                literal.write(src, h, 2);
+            }
+        }
+        flush(literal, nodes);
+        return nodes.toArray(new Node[nodes.size()]);
+    }
+
+    private static void flush(final ByteArrayOutputStream literal, final List<Node> nodes) {
+        if (literal.size() == 0) return;
+        nodes.add(new Literal(literal.toByteArray()));
+        literal.reset();
+    }
+
+    /**
+     * Benchmark of the compiled templates against the template engine
+     * @param args the htroot path and optionally a template file name, default is yacysearch.html
+     */
+    public static void main(final String[] args) throws IOException {
+        final File htroot = new File(args[0]);
+        final File file = new File(htroot, args.length > 1 ? args[1] : "yacysearch.html");
+        final byte[] source = Files.readAllBytes(file.toPath());
+        // fill the top-level multi templates, alternatives and variables
+        final serverObjects pattern = new serverObjects();
+        final Matcher m = Pattern.compile("#([\\[({])([A-Za-z0-9_\\-]+)[\\])}]#").matcher(UTF8.String(source));
+        while (m.find()) {
+            final String key = m.group(2);
+            if ("{".equals(m.group(1))) pattern.put(key, 10); else if ("(".equals(m.group(1))) pattern.put(key, 1); else pattern.put(key, "value of " + key);
+        }
+        final int rounds = 2000;
+        for (int round = 0; round < 3; round++) {
+            ByteArrayOutputStream legacy = null, compiled = null;
+            final long t0 = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                legacy = new ByteArrayOutputStream(8192);
+                TemplateEngine.writeTemplate(file.getName(), new ByteArrayInputStream(source), legacy, pattern, htroot);
+            }
+            final long t1 = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                compiled = new ByteArrayOutputStream(8192);
+                TemplateEngine.writeTemplate(file.getName(), file, compiled, pattern, htroot);
+            }
+            final long t2 = System.nanoTime();
+            System.out.println(String.format("%s, %d bytes: template engine %.1f us, compiled %.1f us, identical: %b, compiled: %b",
+                    file.getName(), compiled.size(), (t1 - t0) / 1000.0d / rounds, (t2 - t1) / 1000.0d / rounds,
+                    java.util.Arrays.equals(legacy.toByteArray(), compiled.toByteArray()), get(file).isCompiled()));
+        }
+        ConcurrentLog.shutdown();
+    }
+}
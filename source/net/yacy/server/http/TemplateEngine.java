@@ -49,6 +49,7 @@ package net.yacy.server.http;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -195,17 +196,47 @@ public final class TemplateEngine {
     }
 
     public final static void writeTemplate(final String servletname, final InputStream in, final OutputStream out, final serverObjects pattern) throws IOException {
+        writeTemplate(servletname, in, out, pattern, (File) null);
+    }
+
+    /**
+     * Reads a input stream, and writes the data with replaced templates on a output stream
+     * @param includeRoot directory of include files; if null, include files are localized by the HTTPDFileHandler
+     */
+    public final static void writeTemplate(final String servletname, final InputStream in, final OutputStream out, final serverObjects pattern, final File includeRoot) throws IOException {
         if (pattern == null) {
             FileUtils.copy(in, out);
         } else {
-            writeTemplate(servletname, in, out, pattern, new byte[0]);
+            writeTemplate(servletname, in, out, pattern, new byte[0], includeRoot);
+        }
+    }
+
+    /**
+     * Writes a template file with replaced templates on a output stream. The template is compiled
+     * once and cached until the file is modified, the output is the same as of
+     * {@link #writeTemplate(String, InputStream, OutputStream, serverObjects)}.
+     */
+    public final static void writeTemplate(final String servletname, final File file, final OutputStream out, final serverObjects pattern) throws IOException {
+        writeTemplate(servletname, file, out, pattern, null);
+    }
+
+    /**
+     * Writes a template file with replaced templates on a output stream, like
+     * {@link #writeTemplate(String, File, OutputStream, serverObjects)}.
+     * @param includeRoot directory of include files; if null, include files are localized by the HTTPDFileHandler
+     */
+    public final static void writeTemplate(final String servletname, final File file, final OutputStream out, final serverObjects pattern, final File includeRoot) throws IOException {
+        if (pattern == null) {
+            FileUtils.copy(file, out);
+        } else {
+            CompiledTemplate.get(file).render(servletname, out, pattern, includeRoot);
         }
     }
 
     /**
      * Reads a input stream, and writes the data with replaced templates on a output stream
      */
-    private final static byte[] writeTemplate(final String servletname, final InputStream in, final OutputStream out, final serverObjects pattern, final byte[] prefix) throws IOException {
+    final static byte[] writeTemplate(final String servletname, final InputStream in, final OutputStream out, final serverObjects pattern, final byte[] prefix, final File includeRoot) throws IOException {
         final PushbackInputStream pis = new PushbackInputStream(in, 100);
         final ByteArrayOutputStream keyStream = new ByteArrayOutputStream(4048);
         byte[] key;
@@ -284,7 +315,7 @@ public final class TemplateEngine {
                             final PushbackInputStream pis2 = new PushbackInputStream(new ByteArrayInputStream(sep_char != -1 && i < num -1 ? textsep : text));
                             //System.out.println("recursing with text(prefix="+ multi_key + "_" + i + "_" +"):"); //DEBUG
                             //System.out.println(text);
-                            structure.append(writeTemplate(servletname, pis2, out, pattern, newPrefix(prefix,multi_key,i)));
+                            structure.append(writeTemplate(servletname, pis2, out, pattern, newPrefix(prefix,multi_key,i), includeRoot));
                         }//for
                         structure.append(open_endtag).append(multi_key).append(close_tagn);
                     } else {//transferUntil
@@ -340,7 +371,7 @@ public final class TemplateEngine {
                     keyStream.reset();
                     transferUntil(pis, keyStream, dpdpa);
                     pis2 = new PushbackInputStream(new ByteArrayInputStream(keyStream.toByteArray()));
-                    structure.append(writeTemplate(servletname, pis2, out, pattern, newPrefix(prefix,key)));
+                    structure.append(writeTemplate(servletname, pis2, out, pattern, newPrefix(prefix,key), includeRoot));
                     transferUntil(pis, keyStream, appendBytes(hash_brackopen_slash, key, brackclose_hash, null));
                     if(pis.available()==0){
                         ConcurrentLog.severe("TEMPLATE", "No Close Key found for #("+UTF8.String(key)+")# (by Name) in " + servletname);
@@ -358,7 +389,7 @@ public final class TemplateEngine {
                                     pis2 = new PushbackInputStream(new ByteArrayInputStream(text.getBytes()));
                                     //this maybe the wrong, but its the last
                                     structure.append('<').append(key).append(alternative_which).append(ASCII.getBytes(Integer.toString(whichPattern))).append(ASCII.getBytes("\" found=\"0\">\n"));
-                                    structure.append(writeTemplate(servletname, pis2, out, pattern, newPrefix(prefix,key)));
+                                    structure.append(writeTemplate(servletname, pis2, out, pattern, newPrefix(prefix,key), includeRoot));
                                     structure.append(open_endtag).append(key).append(close_tagn);
                                     found=true;
                                 }else if(others >0 && keyStream.toString().startsWith("/")){ //close nested
@@ -380,7 +411,7 @@ public final class TemplateEngine {
                                 if(currentPattern == whichPattern){ //found the pattern
                                     pis2 = new PushbackInputStream(new ByteArrayInputStream(text.getBytes()));
                                     structure.append('<').append(key).append(alternative_which).append(ASCII.getBytes(Integer.toString(whichPattern))).append(ASCII.getBytes("\" found=\"0\">\n"));
-                                    structure.append(writeTemplate(servletname, pis2, out, pattern, newPrefix(prefix,key)));
+                                    structure.append(writeTemplate(servletname, pis2, out, pattern, newPrefix(prefix,key), includeRoot));
                                     structure.append(open_endtag).append(key).append(close_tagn);
 
                                     transferUntil(pis, keyStream, appendBytes(hash_brackopen_slash, key, brackclose_hash,null));//to #(/key)#.
@@ -439,28 +470,12 @@ public final class TemplateEngine {
                         final String patternkey = getPatternKey(prefix, newFilename);
                         filename= replacePattern(patternkey, pattern);
                     }
-                    if (filename.length > 0 && !java.util.Arrays.equals(filename, UNRESOLVED_PATTERN)) {
+                    if (filename.length > 0 && !isUnresolved(filename)) {
                         final ByteBuffer include = new ByteBuffer();
-                        BufferedReader br = null;
-                        try{
-                            //br = new BufferedReader(new InputStreamReader(new FileInputStream( filename ))); //Simple Include
-                            br = new BufferedReader( new InputStreamReader(new FileInputStream( HTTPDFileHandler.getLocalizedFile(UTF8.String(filename), clientbrowserlang)), StandardCharsets.UTF_8) ); //YaCy (with Locales)
-                            //Read the Include
-                            String line = "";
-                            while ((line = br.readLine()) != null) {
-                                include.append(UTF8.getBytes(line)).append(ASCII.getBytes(net.yacy.server.serverCore.CRLF_STRING));
-                            }
-                        } catch (final IOException e) {
-                            //file not found?
-                            ConcurrentLog.severe("FILEHANDLER","Include Error with file " + UTF8.String(filename) + ": " + e.getMessage());
-                        } finally {
-                            if (br != null) try { br.close(); br=null; } catch (final Exception e) {
-                            	ConcurrentLog.warn("FILEHANDLER","Could not close buffered reader on file " + UTF8.String(filename));
-                            }
-                        }
+                        readInclude(UTF8.String(filename), includeFile(UTF8.String(filename), clientbrowserlang, includeRoot), include);
                         final PushbackInputStream pis2 = new PushbackInputStream(new ByteArrayInputStream(include.getBytes()));
                         structure.append(ASCII.getBytes("<fileinclude file=\"")).append(filename).append(close_tagn);
-                        structure.append(writeTemplate(servletname, pis2, out, pattern, new byte[0])); //clear pattern prefix for include
+                        structure.append(writeTemplate(servletname, pis2, out, pattern, new byte[0], includeRoot)); //clear pattern prefix for include
                         structure.append(ASCII.getBytes("</fileinclude>\n"));
                         include.close();
                     }
@@ -476,7 +491,42 @@ public final class TemplateEngine {
         return sb;
     }
 
-    private final static byte[] replacePattern(final String key, final serverObjects pattern) {
+    /**
+     * read an include file line by line, lines are terminated with CRLF
+     * @return false if the file could not be read completely
+     */
+    final static boolean readInclude(final String filename, final File file, final OutputStream include) {
+        BufferedReader br = null;
+        try{
+            br = new BufferedReader( new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8) ); //YaCy (with Locales)
+            //Read the Include
+            String line = "";
+            while ((line = br.readLine()) != null) {
+                include.write(UTF8.getBytes(line));
+                include.write(ASCII.getBytes(net.yacy.server.serverCore.CRLF_STRING));
+            }
+            return true;
+        } catch (final IOException e) {
+            //file not found?
+            ConcurrentLog.severe("FILEHANDLER","Include Error with file " + filename + ": " + e.getMessage());
+            return false;
+        } finally {
+            if (br != null) try { br.close(); br=null; } catch (final Exception e) {
+            	ConcurrentLog.warn("FILEHANDLER","Could not close buffered reader on file " + filename);
+            }
+        }
+    }
+
+    final static File includeFile(final String filename, final String clientbrowserlang, final File includeRoot) {
+        if (includeRoot != null) return new File(includeRoot, filename);
+        return HTTPDFileHandler.getLocalizedFile(filename, clientbrowserlang);
+    }
+
+    final static boolean isUnresolved(final byte[] replacement) {
+        return java.util.Arrays.equals(replacement, UNRESOLVED_PATTERN);
+    }
+
+    final static byte[] replacePattern(final String key, final serverObjects pattern) {
         byte[] replacement;
         Object value;
         if (pattern.containsKey(key)) {
@@ -553,7 +603,7 @@ public final class TemplateEngine {
             final InputStream i = new ByteArrayInputStream(UTF8.getBytes(args[0]));
             final serverObjects h = new serverObjects();
             h.put("test", args[1]);
-            writeTemplate("test", new PushbackInputStream(i, 100), System.out, h, UTF8.getBytes(args[2]));
+            writeTemplate("test", new PushbackInputStream(i, 100), System.out, h, UTF8.getBytes(args[2]), null);
             System.out.flush();
         } catch (final Exception e) {
             ConcurrentLog.logException(e);
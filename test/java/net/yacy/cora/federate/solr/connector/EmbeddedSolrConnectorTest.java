@@ -7,10 +7,15 @@ import java.util.HashSet;
 import net.yacy.cora.federate.solr.instance.EmbeddedInstance;
 import net.yacy.search.schema.CollectionSchema;
 import net.yacy.search.schema.WebgraphSchema;
+import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.FacetParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
 import org.junit.AfterClass;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -173,6 +178,89 @@ public class EmbeddedSolrConnectorTest {
         assertEquals(id, foundid);
     }
 
+    /**
+     * Test of the query result cache : a repeated query is answered from the cache
+     * with the same documents, a commit invalidates the cached results
+     */
+    @Test
+    public void testGetResponseByParamsCache() throws IOException {
+        String word = "c" + Long.toString(System.currentTimeMillis());
+        for (int i = 0; i < 3; i++) {
+            SolrInputDocument doc = new SolrInputDocument();
+            doc.addField(CollectionSchema.id.name(), word + i);
+            doc.addField(CollectionSchema.host_s.name(), "yacy.net");
+            doc.addField(CollectionSchema.text_t.name(), word + (i == 0 ? " " + word : ""));
+            solr.add(doc);
+        }
+        solr.commit(true);
+
+        ModifiableSolrParams params = new ModifiableSolrParams();
+        params.set(CommonParams.Q, CollectionSchema.text_t.name() + ":" + word);
+        params.set(CommonParams.FL, "*,score");
+        params.set(CommonParams.ROWS, 2);
+        params.set(FacetParams.FACET, true);
+        params.set(FacetParams.FACET_FIELD, CollectionSchema.host_s.name());
+
+        // only the marked queries of the search events are cached
+        long misses = SolrQueryResultCache.docMiss.get();
+        solr.getResponseByParams(params);
+        assertEquals(misses, SolrQueryResultCache.docMiss.get());
+        params.set(SolrQueryResultCache.CACHE_PARAM, true);
+
+        QueryResponse first = solr.getResponseByParams(params);
+        long hits = SolrQueryResultCache.docHit.get();
+        QueryResponse second = solr.getResponseByParams(params);
+        assertEquals(hits + 1, SolrQueryResultCache.docHit.get());
+        assertEquals(3, second.getResults().getNumFound());
+        assertEquals(first.getResults().size(), second.getResults().size());
+        for (int i = 0; i < first.getResults().size(); i++) {
+            assertEquals(first.getResults().get(i).getFieldValue(CollectionSchema.id.name()), second.getResults().get(i).getFieldValue(CollectionSchema.id.name()));
+            assertEquals(first.getResults().get(i).getFieldValue("score"), second.getResults().get(i).getFieldValue("score"));
+        }
+        assertEquals(3, second.getFacetField(CollectionSchema.host_s.name()).getValues().get(0).getCount());
+
+        // the cached facets are not changed by a receiver of the response
+        ((NamedList<?>) second.getResponse().get("facet_counts")).remove("facet_fields");
+
+        // the next page shares the cached facets
+        params.set(CommonParams.START, 2);
+        long facetHits = SolrQueryResultCache.facetHit.get();
+        QueryResponse page = solr.getResponseByParams(params);
+        assertEquals(facetHits + 1, SolrQueryResultCache.facetHit.get());
+        assertEquals(1, page.getResults().size());
+        assertEquals(3, page.getFacetField(CollectionSchema.host_s.name()).getValues().get(0).getCount());
+
+        // a commit invalidates the cache
+        SolrInputDocument doc = new SolrInputDocument();
+        doc.addField(CollectionSchema.id.name(), word + 3);
+        doc.addField(CollectionSchema.host_s.name(), "yacy.net");
+        doc.addField(CollectionSchema.text_t.name(), word);
+        solr.add(doc);
+        solr.commit(true);
+        params.set(CommonParams.START, 0);
+        assertEquals(4, solr.getResponseByParams(params).getResults().getNumFound());
+    }
+
+    /**
+     * Test of the detection of queries depending on the current time
+     */
+    @Test
+    public void testIsCacheableDateMath() {
+        ModifiableSolrParams params = new ModifiableSolrParams();
+        params.set(SolrQueryResultCache.CACHE_PARAM, true);
+        params.set(CommonParams.Q, "text_t:known");
+        assertTrue(SolrQueryResultCache.isCacheable(params));
+        params.set(CommonParams.FQ, "title:KNOWNOWHERE");
+        assertTrue(SolrQueryResultCache.isCacheable(params));
+        for (String fq: new String[]{"load_date_dt:[NOW/DAY-7DAYS TO *]", "last_modified:[* TO NOW]", "load_date_dt:[NOW-1YEAR TO NOW+1DAY]", "NOW"}) {
+            params.set(CommonParams.FQ, fq);
+            assertFalse(fq, SolrQueryResultCache.isCacheable(params));
+        }
+        params.set(CommonParams.FQ, "title:yacy");
+        params.remove(SolrQueryResultCache.CACHE_PARAM);
+        assertFalse(SolrQueryResultCache.isCacheable(params));
+    }
+
     /**
      * Test of close and reopen embedded Solr
      * test for issue http://mantis.tokeek.de/view.php?id=686
@@ -0,0 +1,98 @@
+// JSONStreamWriterTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.cora.federate.solr.responsewriter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Random;
+
+import org.apache.solr.common.SolrDocument;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link JSONStreamWriter} and the streamed documents of the {@link FlatJSONResponseWriter}.
+ */
+public class JSONStreamWriterTest {
+
+	/**
+	 * Streamed strings and numbers must be written as by the json library.
+	 */
+	@Test
+	public void testValues() throws IOException, JSONException {
+		final Random random = new Random(0);
+		for (int i = 0; i < 1000; i++) {
+			final char[] c = new char[random.nextInt(20)];
+			for (int j = 0; j < c.length; j++) c[j] = (char) (random.nextBoolean() ? random.nextInt(0x80) : random.nextInt(0x3000));
+			final String s = new String(c);
+			final StringWriter w = new StringWriter();
+			JSONStreamWriter.writeString(w, s);
+			assertEquals(JSONObject.quote(s), w.toString());
+		}
+		final StringWriter w = new StringWriter();
+		JSONStreamWriter.writeString(w, null);
+		assertEquals(JSONObject.quote(null), w.toString());
+		for (final Number n : new Number[]{0, -1, Long.MAX_VALUE, 1.0d, 1.5d, -0.0d, 3.0e20d, 1.0e-7d, 2.5f}) {
+			final StringWriter nw = new StringWriter();
+			JSONStreamWriter.writeNumber(nw, n);
+			assertEquals(JSONObject.numberToString(n), nw.toString());
+		}
+	}
+
+	/**
+	 * A streamed Solr document must be the same as the document built as json object.
+	 */
+	@Test
+	public void testSolrDocument() throws IOException, JSONException {
+		final SolrDocument doc = new SolrDocument();
+		doc.setField("id", "abc\"/\\def");
+		doc.setField("size_i", 42);
+		doc.setField("score_d", 0.5d);
+		doc.setField("flag_b", true);
+		doc.setField("date_dt", new Date(0));
+		doc.setField("text_t", "line\nbreak\t\u0001");
+		doc.setField("missing", null);
+		doc.setField("list_sxt", Arrays.asList("a", "b</c>", 3L));
+
+		final JSONObject json = new JSONObject();
+		for (final String key : doc.getFieldNames()) {
+			final Object value = doc.getFieldValue(key);
+			if (value instanceof Iterable<?>) {
+				final JSONArray a = new JSONArray();
+				for (final Object o : (Iterable<?>) value) a.put(o);
+				json.put(key, a);
+			} else if (value != null) {
+				json.put(key, value);
+			}
+		}
+		final StringWriter w = new StringWriter();
+		FlatJSONResponseWriter.writeDoc(w, doc);
+		assertEquals(json.toString() + "\n", w.toString());
+	}
+}
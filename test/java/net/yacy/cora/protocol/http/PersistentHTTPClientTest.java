@@ -0,0 +1,78 @@
+// PersistentHTTPClientTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.cora.protocol.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.protocol.ByteArrayBody;
+
+/**
+ * Unit tests for the {@link PersistentHTTPClient} class.
+ */
+public class PersistentHTTPClientTest {
+
+	/**
+	 * Text parts should be url-encoded, in the order of the parts map.
+	 */
+	@Test
+	public void testFormEntity() throws IOException {
+		final Map<String, ContentBody> parts = new LinkedHashMap<>();
+		parts.put("iam", UTF8.StringBody("abcdefghijkl"));
+		parts.put("query", UTF8.StringBody("a b&c=d"));
+		parts.put("language", UTF8.StringBody("é"));
+		final HttpEntity entity = PersistentHTTPClient.formEntity(parts);
+		assertNotNull(entity);
+		assertEquals("iam=abcdefghijkl&query=a+b%26c%3Dd&language=%C3%A9", EntityUtils.toString(entity));
+	}
+
+	/**
+	 * Binary parts and large bodies must fall back to multipart encoding.
+	 */
+	@Test
+	public void testFormEntityFallback() throws IOException {
+		final Map<String, ContentBody> parts = new LinkedHashMap<>();
+		parts.put("iam", UTF8.StringBody("abcdefghijkl"));
+		parts.put("file", new ByteArrayBody(new byte[] { 1, 2, 3 }, "file.bin"));
+		assertNull(PersistentHTTPClient.formEntity(parts));
+
+		parts.clear();
+		final StringBuilder large = new StringBuilder();
+		while (large.length() <= PersistentHTTPClient.MAX_FORM_ENCODED_SIZE) {
+			large.append("0123456789");
+		}
+		parts.put("indexes", UTF8.StringBody(large.toString()));
+		assertNull(PersistentHTTPClient.formEntity(parts));
+	}
+}
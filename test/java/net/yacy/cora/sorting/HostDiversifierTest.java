@@ -0,0 +1,120 @@
+// HostDiversifierTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.cora.sorting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.yacy.cora.sorting.WeakPriorityBlockingQueue.Element;
+import net.yacy.cora.sorting.WeakPriorityBlockingQueue.ReverseElement;
+
+/**
+ * Unit tests for the {@link HostDiversifier} class.
+ */
+public class HostDiversifierTest {
+
+	/** host of an element "host/path" */
+	private static String host(final String url) {
+		return url.substring(0, url.indexOf('/'));
+	}
+
+	private static List<String> drain(final HostDiversifier<String> diversifier, final WeakPriorityBlockingQueue<String> queue) {
+		final List<String> result = new ArrayList<>();
+		Element<String> element;
+		while ((element = diversifier.poll(queue)) != null) {
+			result.add(element.getElement());
+		}
+		return result;
+	}
+
+	/**
+	 * The first element of each host must be returned first, then the parked
+	 * elements of all hosts in the order of their weight.
+	 */
+	@Test
+	public void testPoll() {
+		final WeakPriorityBlockingQueue<String> queue = new WeakPriorityBlockingQueue<>(-1, false);
+		queue.put(new ReverseElement<>("a/1", 100));
+		queue.put(new ReverseElement<>("a/2", 90));
+		queue.put(new ReverseElement<>("a/3", 80));
+		queue.put(new ReverseElement<>("b/1", 70));
+		queue.put(new ReverseElement<>("b/2", 85));
+		queue.put(new ReverseElement<>("c/1", 10));
+		final HostDiversifier<String> diversifier = new HostDiversifier<>(HostDiversifierTest::host, -1);
+
+		final List<String> result = drain(diversifier, queue);
+		assertEquals(6, result.size());
+		assertEquals("a/1", result.get(0));
+		assertEquals("b/2", result.get(1));
+		assertEquals("c/1", result.get(2));
+		assertEquals("a/2", result.get(3));
+		assertEquals("a/3", result.get(4));
+		assertEquals("b/1", result.get(5));
+		assertTrue(diversifier.isEmpty());
+		assertEquals(0, diversifier.hostCount());
+	}
+
+	/**
+	 * The number of parked elements per host must be bounded, removing the worst ones.
+	 */
+	@Test
+	public void testMaxPerHost() {
+		final WeakPriorityBlockingQueue<String> queue = new WeakPriorityBlockingQueue<>(-1, false);
+		for (int i = 0; i < 6; i++) {
+			queue.put(new ReverseElement<>("a/" + i, 100 - i));
+		}
+		final HostDiversifier<String> diversifier = new HostDiversifier<>(HostDiversifierTest::host, 2);
+		final List<String> result = drain(diversifier, queue);
+		assertEquals(3, result.size());
+		assertEquals("a/0", result.get(0));
+		assertEquals("a/1", result.get(1));
+		assertEquals("a/2", result.get(2));
+	}
+
+	/**
+	 * An element given back must be returned again before the other elements of its host.
+	 */
+	@Test
+	public void testPutBack() {
+		final WeakPriorityBlockingQueue<String> queue = new WeakPriorityBlockingQueue<>(-1, false);
+		queue.put(new ReverseElement<>("a/1", 100));
+		queue.put(new ReverseElement<>("a/2", 90));
+		queue.put(new ReverseElement<>("b/1", 50));
+		final HostDiversifier<String> diversifier = new HostDiversifier<>(HostDiversifierTest::host, -1);
+		final Element<String> first = diversifier.poll(queue);
+		assertEquals("a/1", first.getElement());
+		diversifier.putBack(queue, first);
+		final List<String> result = drain(diversifier, queue);
+		assertEquals(3, result.size());
+		assertEquals("a/1", result.get(0));
+		assertEquals("b/1", result.get(1));
+		assertEquals("a/2", result.get(2));
+		assertNull(diversifier.poll(queue));
+	}
+}
@@ -0,0 +1,131 @@
+// ParallelBZip2InputStreamTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+
+package net.yacy.cora.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link ParallelBZip2InputStream}.
+ */
+public class ParallelBZip2InputStreamTest {
+
+	/**
+	 * @return random text which is compressed only partially
+	 */
+	private static byte[] content(final int length) {
+		final Random random = new Random(length);
+		final byte[] b = new byte[length];
+		for (int i = 0; i < length; i++) b[i] = (byte) ('a' + random.nextInt(26));
+		return b;
+	}
+
+	/**
+	 * compress the content into a number of concatenated bzip2 streams
+	 */
+	private static byte[] compress(final byte[] content, final int streams) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final int part = content.length / streams;
+		for (int i = 0; i < streams; i++) {
+			final int end = i == streams - 1 ? content.length : (i + 1) * part;
+			final BZip2CompressorOutputStream bz = new BZip2CompressorOutputStream(out, 1);
+			bz.write(content, i * part, end - i * part);
+			bz.finish();
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] readAll(final InputStream in) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final byte[] b = new byte[777];
+		int r;
+		while ((r = in.read(b)) >= 0) out.write(b, 0, r);
+		in.close();
+		return out.toByteArray();
+	}
+
+	/**
+	 * A multistream file is split into segments which are decompressed in the original order.
+	 */
+	@Test
+	public void testMultiStream() throws IOException {
+		final byte[] content = content(300000);
+		final byte[] compressed = compress(content, 20);
+		final ParallelBZip2InputStream in = new ParallelBZip2InputStream(new ByteArrayInputStream(compressed), 4, 1000, 100000);
+		assertArrayEquals(content, readAll(in));
+		assertEquals(compressed.length, in.getCompressedCount());
+	}
+
+	/**
+	 * A file with one stream which is larger than the maximum segment size is decompressed sequentially.
+	 */
+	@Test
+	public void testSingleStream() throws IOException {
+		final byte[] content = content(300000);
+		final byte[] compressed = compress(content, 1);
+		final ParallelBZip2InputStream in = new ParallelBZip2InputStream(new ByteArrayInputStream(compressed), 4, 1000, 10000);
+		assertArrayEquals(content, readAll(in));
+		// the bytes read by the sequential decompression are counted as well
+		assertEquals(compressed.length, in.getCompressedCount());
+		assertArrayEquals(content, readAll(new ParallelBZip2InputStream(new ByteArrayInputStream(compressed), 4)));
+	}
+
+	/**
+	 * The boundary listener gets the offsets of the segments when they are read; the decompression of the input
+	 * after such an offset continues the content.
+	 */
+	@Test
+	public void testBoundaries() throws IOException {
+		final byte[] content = content(300000);
+		final byte[] compressed = compress(content, 20);
+		final ParallelBZip2InputStream in = new ParallelBZip2InputStream(new ByteArrayInputStream(compressed), 4, 1000, 100000);
+		final List<long[]> boundaries = new ArrayList<>();
+		final long[] position = new long[1];
+		in.setBoundaryListener(offset -> boundaries.add(new long[]{offset, position[0]}));
+		final byte[] b = new byte[777];
+		int r;
+		while ((r = in.read(b)) >= 0) position[0] += r;
+		in.close();
+		assertEquals(content.length, position[0]);
+		assertTrue(boundaries.size() > 2);
+		assertEquals(0, boundaries.get(0)[0]);
+		for (final long[] boundary: boundaries) {
+			final byte[] rest = readAll(new ParallelBZip2InputStream(new ByteArrayInputStream(compressed, (int) boundary[0], compressed.length), 2));
+			assertArrayEquals(Arrays.copyOfRange(content, (int) boundary[1], content.length), rest);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+// ArchiveMembersTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+
+package net.yacy.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.document.parser.zipParser;
+
+/**
+ * Unit tests for the {@link ArchiveMembers} of the container parsers.
+ */
+public class ArchiveMembersTest {
+
+	@Before
+	public void setUp() {
+		ArchiveMembers.setThreads(4);
+	}
+
+	@After
+	public void tearDown() {
+		ArchiveMembers.setThreads(0);
+		ArchiveMembers.maxEntries = 10000;
+		ArchiveMembers.maxBytes = 1024L * 1024L * 1024L;
+	}
+
+	/**
+	 * @return a zip archive with the given number of text files
+	 */
+	private static byte[] zip(final int members) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (final ZipOutputStream zos = new ZipOutputStream(out)) {
+			for (int i = 0; i < members; i++) {
+				final ZipEntry entry = new ZipEntry("dir/member" + i + ".txt");
+				final byte[] content = ("content of member " + i + " end").getBytes(StandardCharsets.UTF_8);
+				// stored entries have their size in the local header, which is required by the zip parser
+				final CRC32 crc = new CRC32();
+				crc.update(content);
+				entry.setMethod(ZipEntry.STORED);
+				entry.setSize(content.length);
+				entry.setCompressedSize(content.length);
+				entry.setCrc(crc.getValue());
+				zos.putNextEntry(entry);
+				zos.write(content);
+				zos.closeEntry();
+			}
+		}
+		return out.toByteArray();
+	}
+
+	private static Document parseZip(final byte[] zip) throws Exception {
+		final Document[] docs = new zipParser().parse(new DigestURL("http://example.org/test.zip"), "application/zip", null, null,
+				new VocabularyScraper(), 0, new ByteArrayInputStream(zip));
+		assertEquals(1, docs.length);
+		return docs[0];
+	}
+
+	/**
+	 * The members which are parsed concurrently are returned in the order of the archive.
+	 */
+	@Test
+	public void testOrder() throws Exception {
+		final Document doc = parseZip(zip(40));
+		final String text = doc.getTextString();
+		int last = -1;
+		for (int i = 0; i < 40; i++) {
+			final int p = text.indexOf("content of member " + i + " end");
+			assertTrue("member " + i, p > last);
+			last = p;
+		}
+		assertFalse(doc.isPartiallyParsed());
+	}
+
+	/**
+	 * An archive with more members than the limit is parsed partially.
+	 */
+	@Test
+	public void testLimits() throws Exception {
+		ArchiveMembers.maxEntries = 5;
+		Document doc = parseZip(zip(10));
+		assertTrue(doc.isPartiallyParsed());
+		assertTrue(doc.getTextString().contains("member 4 end"));
+		assertFalse(doc.getTextString().contains("member 5 end"));
+
+		ArchiveMembers.maxEntries = 10000;
+		ArchiveMembers.maxBytes = 100; // four members of 23 bytes
+		doc = parseZip(zip(10));
+		assertTrue(doc.isPartiallyParsed());
+		assertTrue(doc.getTextString().contains("member 3 end"));
+		assertFalse(doc.getTextString().contains("member 4 end"));
+	}
+
+	/**
+	 * Members of a member are parsed on the thread of their container, and members which fail are left out.
+	 */
+	@Test
+	public void testNestedAndFailures() throws Exception {
+		final ArchiveMembers members = new ArchiveMembers("test parser");
+		final List<Thread> threads = new ArrayList<>();
+		try {
+			members.submit("outer", null, () -> {
+				threads.add(Thread.currentThread());
+				final ArchiveMembers inner = new ArchiveMembers("test parser");
+				inner.submit("inner", null, () -> {
+					threads.add(Thread.currentThread());
+					return new Document[0];
+				});
+				return inner.collect();
+			});
+			members.submit("broken", null, () -> {
+				throw new Parser.Failure("broken", new DigestURL("http://example.org/test.zip"));
+			});
+			assertEquals(0, members.collect().length);
+		} finally {
+			members.close();
+		}
+		assertEquals(2, threads.size());
+		assertSame(threads.get(0), threads.get(1));
+	}
+}
@@ -0,0 +1,145 @@
+// ParsedDocumentCacheTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+
+package net.yacy.document;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.security.DigestInputStream;
+import java.util.HashSet;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.kelondro.util.FileUtils;
+
+/**
+ * Unit tests for the {@link ParsedDocumentCache}.
+ */
+public class ParsedDocumentCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@After
+	public void tearDown() {
+		TextParser.setParsedDocumentCache(null);
+	}
+
+	private static Document[] parse(final String url, final String mime, final byte[] content) throws Exception {
+		return TextParser.parseSource(new DigestURL(url), mime, null, new HashSet<String>(), new VocabularyScraper(), 0, 2, content);
+	}
+
+	/**
+	 * A pdf document is parsed once; the same content is taken from the cache, a changed content is parsed again.
+	 */
+	@Test
+	public void testReuse() throws Exception {
+		final ParsedDocumentCache cache = new ParsedDocumentCache(this.folder.newFolder("parsed"), 10L * 1024L * 1024L, "1");
+		TextParser.setParsedDocumentCache(cache);
+		final byte[] pdf = FileUtils.read(new File("test/parsertest/umlaute_linux.pdf"));
+		final Document parsed = parse("http://example.org/umlaute_linux.pdf", "application/pdf", pdf)[0];
+		assertEquals(1, cache.getCount());
+		assertEquals(0, cache.hits.get());
+
+		final Document cached = parse("http://example.org/umlaute_linux.pdf", "application/pdf", pdf)[0];
+		assertEquals(1, cache.hits.get());
+		assertEquals(parsed.dc_title(), cached.dc_title());
+		assertEquals(parsed.getTextString(), cached.getTextString());
+		assertEquals(parsed.getAnchors().size(), cached.getAnchors().size());
+		assertSame(parsed.getParserObject().getClass(), cached.getParserObject().getClass());
+		assertEquals(2, cached.getDepth());
+
+		// the entry of another content of the url replaces the first one
+		final byte[] odt = FileUtils.read(new File("test/parsertest/umlaute_linux.odt"));
+		parse("http://example.org/umlaute_linux.pdf", "application/vnd.oasis.opendocument.text", odt);
+		assertEquals(1, cache.hits.get());
+		assertEquals(1, cache.getCount());
+		parse("http://example.org/umlaute_linux.pdf", "application/pdf", pdf);
+		assertEquals(1, cache.hits.get());
+
+		// documents of the html parser are not stored
+		final byte[] html = FileUtils.read(new File("test/parsertest/umlaute_html_utf8.html"));
+		parse("http://example.org/umlaute.html", "text/html", html);
+		assertEquals(1, cache.getCount());
+	}
+
+	/**
+	 * A stream parse computes the digest of the whole content, also when the parser does not read it to the end,
+	 * and only contents of parsers other than the html parser are stored.
+	 */
+	@Test
+	public void testStreamDigest() throws Exception {
+		final ParsedDocumentCache cache = new ParsedDocumentCache(this.folder.newFolder("parsed"), 10L * 1024L * 1024L, "1");
+		TextParser.setParsedDocumentCache(cache);
+		final DigestURL url = new DigestURL("http://example.org/umlaute_linux.pdf");
+		assertSame(cache, TextParser.getParsedDocumentCache(url, "application/pdf"));
+		assertNull(TextParser.getParsedDocumentCache(new DigestURL("http://example.org/umlaute.html"), "text/html"));
+
+		final byte[] pdf = FileUtils.read(new File("test/parsertest/umlaute_linux.pdf"));
+		final DigestInputStream in = ParsedDocumentCache.digestStream(new ByteArrayInputStream(pdf));
+		assertEquals(100, in.read(new byte[100]));
+		assertArrayEquals(ParsedDocumentCache.digest(pdf), ParsedDocumentCache.finishDigest(in));
+
+		assertFalse(cache.contains(url));
+		parse(url.toNormalform(true), "application/pdf", pdf);
+		assertTrue(cache.contains(url));
+	}
+
+	/**
+	 * The least recently used entries are removed when the cache is over its budget, also when it is opened again.
+	 */
+	@Test
+	public void testEviction() throws Exception {
+		final File dir = this.folder.newFolder("parsed");
+		final byte[] pdf = FileUtils.read(new File("test/parsertest/umlaute_linux.pdf"));
+		final Document[] docs = parse("http://example.org/a.pdf", "application/pdf", pdf);
+		ParsedDocumentCache cache = new ParsedDocumentCache(dir, 1024L * 1024L, "1");
+		for (int i = 0; i < 5; i++) {
+			cache.put(new DigestURL("http://example.org/" + i + ".pdf"), "application/pdf", null, "", ParsedDocumentCache.digest(pdf), docs);
+			Thread.sleep(20); // the access order is restored from the file dates
+		}
+		assertEquals(5, cache.getCount());
+		final long entrySize = cache.getSize() / 5;
+
+		cache = new ParsedDocumentCache(dir, entrySize * 3, "1");
+		assertEquals(3, cache.getCount());
+		assertNull(cache.get(new DigestURL("http://example.org/0.pdf"), "application/pdf", null, "", ParsedDocumentCache.digest(pdf), 0));
+		assertNotNull(cache.get(new DigestURL("http://example.org/4.pdf"), "application/pdf", null, "", ParsedDocumentCache.digest(pdf), 0));
+
+		// another parser version does not use the entries
+		cache = new ParsedDocumentCache(dir, entrySize * 3, "2");
+		assertNull(cache.get(new DigestURL("http://example.org/4.pdf"), "application/pdf", null, "", ParsedDocumentCache.digest(pdf), 0));
+	}
+}
@@ -0,0 +1,304 @@
+// ParserSandboxTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.document.parser.genericParser;
+import net.yacy.kelondro.util.FileUtils;
+
+/**
+ * Unit tests for the {@link ParserSandbox}.
+ */
+public class ParserSandboxTest {
+
+	private static final Parser PARSER = new genericParser();
+
+	private static ParserSandbox.Request request() throws Exception {
+		return new ParserSandbox.Request(new DigestURL("http://example.org/test.txt"), "text/plain", null, null, 0, Integer.MAX_VALUE, Long.MAX_VALUE, null);
+	}
+
+	private static ParserSandbox.Cost cost(final ParserSandbox sandbox) {
+		for (final ParserSandbox.Cost cost : sandbox.getCosts()) {
+			if (cost.parserName.equals(PARSER.getName())) return cost;
+		}
+		return null;
+	}
+
+	private static void awaitAbandoned(final ParserSandbox sandbox) throws InterruptedException {
+		for (int i = 0; i < 100 && sandbox.getAbandoned() > 0; i++) Thread.sleep(50);
+		assertEquals(0, sandbox.getAbandoned());
+	}
+
+	/**
+	 * A parse runs on a worker thread and nested parses run on the same thread.
+	 */
+	@Test
+	public void testParse() throws Exception {
+		final ParserSandbox sandbox = new ParserSandbox(2, 10000, 0, 0, 0, null);
+		try {
+			final Thread caller = Thread.currentThread();
+			final List<Thread> threads = new ArrayList<>();
+			final Document[] docs = sandbox.parse(PARSER, request(), () -> {
+				threads.add(Thread.currentThread());
+				return sandbox.parse(PARSER, request(), () -> {
+					threads.add(Thread.currentThread());
+					return new Document[0];
+				});
+			});
+			assertEquals(0, docs.length);
+			assertNotSame(caller, threads.get(0));
+			assertSame(threads.get(0), threads.get(1));
+			assertEquals(1, cost(sandbox).count.get());
+			assertEquals(0, cost(sandbox).failures.get());
+
+			try {
+				sandbox.parse(PARSER, request(), () -> {
+					throw new Parser.Failure("broken", new DigestURL("http://example.org/test.txt"));
+				});
+				fail("the failure of the parser is passed on");
+			} catch (final Parser.Failure e) {
+				assertEquals("broken", e.getMessage().substring(0, 6));
+			}
+			assertEquals(2, cost(sandbox).count.get());
+			assertEquals(1, cost(sandbox).failures.get());
+		} finally {
+			sandbox.close();
+		}
+	}
+
+	/**
+	 * An interactive parse runs on the calling thread and does not wait for the slot held by a crawler parse.
+	 */
+	@Test
+	public void testInteractiveBypassesPool() throws Exception {
+		final ParserSandbox sandbox = new ParserSandbox(1, 10000, 0, 0, 0, null);
+		try {
+			final CountDownLatch started = new CountDownLatch(1);
+			final CountDownLatch release = new CountDownLatch(1);
+			final Thread crawler = new Thread(() -> {
+				try {
+					sandbox.parse(PARSER, request(), () -> {
+						started.countDown();
+						release.await();
+						return new Document[0];
+					});
+				} catch (final Exception e) {
+				}
+			});
+			crawler.start();
+			assertTrue(started.await(5, TimeUnit.SECONDS)); // the crawler parse holds the only slot
+
+			final Thread caller = Thread.currentThread();
+			final List<Thread> threads = new ArrayList<>();
+			final boolean previous = ParserSandbox.interactive(true);
+			try {
+				sandbox.parse(PARSER, request(), () -> {
+					threads.add(Thread.currentThread());
+					return new Document[0];
+				});
+			} finally {
+				ParserSandbox.interactive(previous);
+			}
+			assertFalse(previous);
+			assertSame(caller, threads.get(0));
+			release.countDown();
+			crawler.join(5000);
+		} finally {
+			sandbox.close();
+		}
+	}
+
+	/**
+	 * A parse which exceeds the cpu time budget is cancelled.
+	 */
+	@Test
+	public void testCpuBudget() throws Exception {
+		final ParserSandbox sandbox = new ParserSandbox(2, 200, 0, 0, 0, null);
+		try {
+			final long start = System.currentTimeMillis();
+			try {
+				sandbox.parse(PARSER, request(), () -> {
+					long x = 0;
+					while (!Thread.currentThread().isInterrupted()) x++;
+					return x == 0 ? null : new Document[0];
+				});
+				fail("the parse is cancelled");
+			} catch (final Parser.Failure e) {
+				assertTrue(e.getMessage(), e.getMessage().contains("cpu time"));
+			}
+			assertTrue(System.currentTimeMillis() - start < 5000);
+			assertEquals(1, cost(sandbox).cancelled.get());
+			awaitAbandoned(sandbox);
+		} finally {
+			sandbox.close();
+		}
+	}
+
+	/**
+	 * A cancelled parse which does not give up keeps its slot, so that runaway parsers do not pile up threads.
+	 */
+	@Test
+	public void testAbandonedKeepsSlot() throws Exception {
+		final ParserSandbox sandbox = new ParserSandbox(1, 200, 0, 0, 0, null);
+		try {
+			final AtomicLong exited = new AtomicLong(0);
+			try {
+				sandbox.parse(PARSER, request(), () -> {
+					// ignores the interrupt for a while
+					final long end = System.currentTimeMillis() + 1000;
+					long x = 0;
+					while (System.currentTimeMillis() < end) x++;
+					exited.set(System.currentTimeMillis());
+					return x == 0 ? null : new Document[0];
+				});
+				fail("the parse is cancelled");
+			} catch (final Parser.Failure e) {
+				assertTrue(e.getMessage(), e.getMessage().contains("cpu time"));
+			}
+			assertEquals(1, sandbox.getAbandoned());
+			final AtomicLong started = new AtomicLong(0);
+			sandbox.parse(PARSER, request(), () -> {
+				started.set(System.currentTimeMillis());
+				return new Document[0];
+			});
+			assertTrue(exited.get() > 0 && started.get() >= exited.get());
+			awaitAbandoned(sandbox);
+		} finally {
+			sandbox.close();
+		}
+	}
+
+	/**
+	 * The cpu time of archive members which are parsed on other threads is charged to the parse of the archive.
+	 */
+	@Test
+	public void testArchiveMemberBudget() throws Exception {
+		final ParserSandbox sandbox = new ParserSandbox(2, 200, 0, 0, 0, null);
+		ArchiveMembers.setThreads(2);
+		try {
+			final List<Thread> threads = new ArrayList<>();
+			try {
+				sandbox.parse(PARSER, request(), () -> {
+					threads.add(Thread.currentThread());
+					final ArchiveMembers members = new ArchiveMembers("test parser");
+					try {
+						members.submit("member", null, () -> {
+							threads.add(Thread.currentThread());
+							long x = 0;
+							while (!Thread.currentThread().isInterrupted()) x++;
+							return x == 0 ? null : new Document[0];
+						});
+						return members.collect();
+					} finally {
+						members.close();
+					}
+				});
+				fail("the parse is cancelled");
+			} catch (final Parser.Failure e) {
+				assertTrue(e.getMessage(), e.getMessage().contains("cpu time"));
+			}
+			assertEquals(2, threads.size());
+			assertNotSame(threads.get(0), threads.get(1));
+			awaitAbandoned(sandbox);
+		} finally {
+			ArchiveMembers.setThreads(0);
+			sandbox.close();
+		}
+	}
+
+	/**
+	 * A parse which allocates more than the heap budget is cancelled.
+	 */
+	@Test
+	public void testHeapBudget() throws Exception {
+		final ParserSandbox sandbox = new ParserSandbox(2, 0, 64L * 1024L * 1024L, 0, 0, null);
+		try {
+			try {
+				sandbox.parse(PARSER, request(), () -> {
+					final List<byte[]> garbage = new ArrayList<>();
+					while (!Thread.currentThread().isInterrupted()) {
+						garbage.add(new byte[1024 * 1024]);
+						if (garbage.size() > 16) garbage.remove(0);
+						Thread.sleep(1);
+					}
+					return null;
+				});
+				fail("the parse is cancelled");
+			} catch (final Parser.Failure e) {
+				assertTrue(e.getMessage(), e.getMessage().contains("heap"));
+			}
+			awaitAbandoned(sandbox);
+		} finally {
+			sandbox.close();
+		}
+	}
+
+	/**
+	 * A document parsed in a worker process is the same as the document parsed in this process.
+	 */
+	@Test
+	public void testWorkerProcess() throws Exception {
+		final File file = new File("test/parsertest/umlaute_linux.pdf");
+		final byte[] content = FileUtils.read(file);
+		final DigestURL location = new DigestURL("http://example.org/umlaute_linux.pdf");
+		final ParserSandbox previous = TextParser.getSandbox();
+		final Document local = TextParser.parseSource(location, "application/pdf", null, null, new VocabularyScraper(), 0, 0, content)[0];
+		final ParserSandbox sandbox = new ParserSandbox(2, 60000, 0, 1, 256, ParserSandbox.mimePrefixes("application/pdf"));
+		TextParser.setSandbox(sandbox);
+		try {
+			final Document isolated = TextParser.parseSource(location, "application/pdf", null, null, new VocabularyScraper(), 0, 0, content)[0];
+			assertEquals(1, sandbox.getProcesses());
+			assertEquals(local.dc_title(), isolated.dc_title());
+			assertEquals(local.dc_creator(), isolated.dc_creator());
+			assertEquals(local.getTextString(), isolated.getTextString());
+			assertEquals(local.getAnchors().size(), isolated.getAnchors().size());
+			assertSame(local.getParserObject().getClass(), isolated.getParserObject().getClass());
+			long isolatedParses = 0;
+			for (final ParserSandbox.Cost cost : sandbox.getCosts()) isolatedParses += cost.isolated.get();
+			assertEquals(1, isolatedParses);
+
+			// the worker is reused
+			TextParser.parseSource(location, "application/pdf", null, null, new VocabularyScraper(), 0, 0, content);
+			assertEquals(1, sandbox.getProcesses());
+		} finally {
+			TextParser.setSandbox(previous);
+		}
+		assertEquals(0, sandbox.getProcesses());
+	}
+}
@@ -1,11 +1,28 @@
 
 package net.yacy.document;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
 import net.yacy.cora.document.WordCache;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.order.NaturalOrder;
+import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReferenceRow;
+import net.yacy.kelondro.util.Bitfield;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -56,4 +73,178 @@ public class TokenizerTest {
             assertEquals("Tokenizer.RESULT_NUMB_SENTENCES", 5, t.RESULT_NUMB_SENTENCES);
         }
     }
+
+    /**
+     * the words of a text as counted by the tokenizer before it used the tokenizer engine
+     */
+    private static class Reference {
+        final Map<String, Word> words = new TreeMap<String, Word>(NaturalOrder.naturalComparator);
+        final Bitfield flags = new Bitfield(4);
+        int numbWords = 0;
+        int numbSentences;
+
+        Reference(final String text) {
+            int allsentencecounter = 0;
+            int wordInSentenceCounter = 1;
+            boolean comb_indexof = false, last_last = false, last_index = false;
+            final WordTokenizer wordenum = new WordTokenizer(new SentenceReader(text), null);
+            while (wordenum.hasMoreElements()) {
+                final String word = wordenum.nextElement().toString().toLowerCase(Locale.ENGLISH);
+                if (word.length() == 1 && SentenceReader.punctuation(word.charAt(0))) {
+                    if (wordInSentenceCounter > 1) allsentencecounter++;
+                    wordInSentenceCounter = 1;
+                    continue;
+                }
+                if (word.length() < Tokenizer.wordminsize) continue;
+                if (last_last && comb_indexof && word.equals("modified")) {
+                    this.flags.set(Tokenizer.flag_cat_indexof, true);
+                    wordenum.pre(true);
+                }
+                if (last_index && word.equals("of")) comb_indexof = true;
+                last_last = word.equals("last");
+                last_index = word.equals("index");
+                this.numbWords++;
+                Word wsp = this.words.get(word);
+                if (wsp != null) {
+                    wsp.inc();
+                } else {
+                    wsp = new Word(this.numbWords, wordInSentenceCounter, allsentencecounter + 100);
+                    wsp.flags = this.flags.clone();
+                    this.words.put(word, wsp);
+                }
+                wordInSentenceCounter++;
+            }
+            wordenum.close();
+            this.numbSentences = allsentencecounter + (wordInSentenceCounter > 1 ? 1 : 0);
+        }
+
+        /** the words which were added by the condenser */
+        void insert(final String text, final int phrase, final int flagpos, final Bitfield flagstemplate) {
+            if (text == null) return;
+            final WordTokenizer wordenum = new WordTokenizer(new SentenceReader(text), null);
+            int pip = 0;
+            while (wordenum.hasMoreElements()) {
+                String word = wordenum.nextElement().toString();
+                if (word.length() < 2) continue;
+                word = word.toLowerCase(Locale.ENGLISH);
+                Word wprop = this.words.get(word);
+                if (wprop == null) wprop = new Word(0, pip, phrase);
+                if (wprop.flags == null) wprop.flags = flagstemplate.clone();
+                wprop.flags.set(flagpos, true);
+                this.words.put(word, wprop);
+                pip++;
+                this.numbWords++;
+            }
+            wordenum.close();
+        }
+    }
+
+    private static void assertSameWords(final String text, final Map<String, Word> expected, final Map<String, Word> actual) {
+        assertEquals(text, new ArrayList<String>(expected.keySet()), new ArrayList<String>(actual.keySet()));
+        for (final Map.Entry<String, Word> entry : expected.entrySet()) {
+            final Word e = entry.getValue();
+            final Word a = actual.get(entry.getKey());
+            assertEquals(text, e.toString(), a.toString());
+            assertEquals(text, e.flags.toString(), a.flags.toString());
+        }
+    }
+
+    private static String randomText(final Random random) {
+        final String[] words = {"Index", "of", "last", "Modified", "lAST", "word", "Word", "x", "ab", "A1", "file.txt", "2020-01-01",
+                "İstanbul", "ΣΟΦΙΑ", "Straße", "日本語", "a.b", "e-mail", "don't"};
+        final String[] separators = {" ", " ", " ", "  ", ". ", "! ", "?", "...", ".", "\n", "\r\n", "\n\n", "\t", "\u0000", ", ", " - ", "\"", "(", ") ", "\ud83d\ude00"};
+        final StringBuilder sb = new StringBuilder();
+        final int n = random.nextInt(60);
+        for (int i = 0; i < n; i++) {
+            sb.append(words[random.nextInt(words.length)]);
+            sb.append(separators[random.nextInt(separators.length)]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The tokenizer engine must count the same words, sentences and flags as the word tokenizer,
+     * also for directory listings which are read line by line after the 'index of' detection.
+     */
+    @Test
+    public void testEngine() {
+        final List<String> texts = new ArrayList<>(Arrays.asList(
+                "",
+                "   ",
+                ". . .",
+                "Index of /pub\nName Last modified Size\nfile1.txt 2020-01-01 10k\nfile2.txt. 2020 B\n\nfile3.txt",
+                "Index of /pub\r\nName  Last modified  Size\r\nfile1.txt  2020-01-01  10k\r\n",
+                "One word is not a sentence because words are just words.",
+                "DİYARBAKIR İstanbul ΟΔΥΣΣΕΥΣ straße STRASSE"));
+        final Random random = new Random(0);
+        for (int i = 0; i < 2000; i++) texts.add(randomText(random));
+        for (final String text : texts) {
+            final Reference reference = new Reference(text);
+            final Tokenizer t = new Tokenizer(null, text, null, false, null);
+            assertSameWords(text, reference.words, t.words);
+            assertEquals(text, reference.numbWords, t.RESULT_NUMB_WORDS);
+            assertEquals(text, reference.numbSentences, t.RESULT_NUMB_SENTENCES);
+            assertEquals(text, reference.flags.toString(), t.RESULT_FLAGS.toString());
+        }
+    }
+
+    /**
+     * The condenser must add the words of the title, author and url to the words of the text as before.
+     */
+    @Test
+    public void testCondenser() throws MalformedURLException {
+        final DigestURL location = new DigestURL("http://localhost/Index/Of/Words.html");
+        final Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            final String text = randomText(random);
+            final List<String> titles = new ArrayList<>();
+            titles.add(randomText(random));
+            final Document document = new Document(location, "text/html", StandardCharsets.UTF_8.name(), null, null, null,
+                    titles, randomText(random), location.getHost(), null, null, 0.0d, 0.0d, text, null, null, null, false, new Date());
+            final Condenser condenser = new Condenser(document, null, true, false, null, false, false, 0);
+
+            final Reference reference = new Reference(text);
+            reference.insert(location.toTokens(), 0, WordReferenceRow.flag_app_dc_identifier, condenser.RESULT_FLAGS);
+            reference.insert(document.dc_title(), 1, WordReferenceRow.flag_app_dc_title, condenser.RESULT_FLAGS);
+            for (final String description : document.dc_description()) {
+                reference.insert(description, 3, WordReferenceRow.flag_app_dc_description, condenser.RESULT_FLAGS);
+            }
+            reference.insert(document.dc_creator(), 4, WordReferenceRow.flag_app_dc_creator, condenser.RESULT_FLAGS);
+            reference.insert(document.dc_publisher(), 5, WordReferenceRow.flag_app_dc_creator, condenser.RESULT_FLAGS);
+            reference.insert(document.dc_subject(' '), 6, WordReferenceRow.flag_app_dc_description, condenser.RESULT_FLAGS);
+            assertSameWords(text, reference.words, condenser.words);
+            assertEquals(text, reference.numbWords, condenser.RESULT_NUMB_WORDS);
+        }
+    }
+
+    /**
+     * Benchmark of the tokenizer against the word tokenizer, in documents per second on one core.
+     * @param args a directory with text files, default is htroot
+     */
+    public static void main(final String[] args) throws IOException {
+        final List<String> docs = new ArrayList<>();
+        final List<File> dirs = new ArrayList<>();
+        dirs.add(new File(args.length > 0 ? args[0] : "htroot"));
+        while (!dirs.isEmpty()) {
+            final File[] files = dirs.remove(dirs.size() - 1).listFiles();
+            if (files == null) continue;
+            for (final File f : files) {
+                if (f.isDirectory()) dirs.add(f); else docs.add(new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8));
+            }
+        }
+        long chars = 0;
+        for (final String doc : docs) chars += doc.length();
+        for (int round = 0; round < 5; round++) {
+            long t = System.nanoTime();
+            int x = 0;
+            for (final String doc : docs) x += new Reference(doc).words.size();
+            final long referenceTime = System.nanoTime() - t;
+            t = System.nanoTime();
+            for (final String doc : docs) x += new Tokenizer(null, doc, null, false, null).words.size();
+            final long engineTime = System.nanoTime() - t;
+            System.out.println(String.format("%d docs, %d chars: word tokenizer %.0f docs/s, tokenizer engine %.0f docs/s (%d)",
+                    docs.size(), chars, docs.size() * 1e9d / referenceTime, docs.size() * 1e9d / engineTime, x));
+        }
+        ConcurrentLog.shutdown();
+    }
 }
@@ -0,0 +1,191 @@
+// MediawikiImporterTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+
+package net.yacy.document.importer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.yacy.cora.document.id.MultiProtocolURL;
+import net.yacy.kelondro.util.FileUtils;
+
+/**
+ * Unit tests for the parallel and resumable import of the {@link MediawikiImporter}.
+ */
+public class MediawikiImporterTest {
+
+	private static final Pattern TITLE = Pattern.compile("<dc:title><!\\[CDATA\\[(.*?)\\]\\]></dc:title>");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/** the compressed offsets of the streams of the articles in the last written dump */
+	private final List<Long> streams = new ArrayList<>();
+
+	/**
+	 * write a dump with the given number of articles as multistream bzip2 file with one stream for each article
+	 */
+	private File dump(final int articles) throws IOException {
+		final File f = this.folder.newFile("testwiki-pages-articles.xml.bz2");
+		this.streams.clear();
+		try (final FileOutputStream out = new FileOutputStream(f)) {
+			write(out, "<mediawiki xmlns=\"http://www.mediawiki.org/xml/export-0.10/\">\n<siteinfo>\n"
+					+ "<base>http://wiki.example.org/wiki/Main_Page</base>\n</siteinfo>\n");
+			for (int i = 1; i <= articles; i++) {
+				this.streams.add(out.getChannel().position());
+				write(out, "<page>\n<title>Article " + i + "</title>\n<revision>\n<text xml:space=\"preserve\">"
+						+ "'''Article " + i + "''' is about [[Topic " + i + "]] &amp; &lt;b&gt;bold&lt;/b&gt; text.</text>\n</revision>\n</page>\n");
+			}
+			write(out, "</mediawiki>\n");
+		}
+		return f;
+	}
+
+	private static void write(final OutputStream out, final String s) throws IOException {
+		final BZip2CompressorOutputStream bz = new BZip2CompressorOutputStream(out, 1);
+		bz.write(s.getBytes(StandardCharsets.UTF_8));
+		bz.finish();
+	}
+
+	/**
+	 * @return the titles of the documents in the surrogate files of the target directory
+	 */
+	private static Set<String> titles(final File targetdir) throws IOException {
+		final Set<String> titles = new TreeSet<>();
+		for (final File f: targetdir.listFiles()) {
+			assertTrue(f.getName(), f.getName().endsWith(".xml"));
+			final String xml = new String(FileUtils.read(f), StandardCharsets.UTF_8);
+			final Matcher m = TITLE.matcher(xml);
+			while (m.find()) titles.add(m.group(1));
+		}
+		return titles;
+	}
+
+	private static MediawikiImporter run(final File dump, final File targetdir, final File checkpoint) throws Exception {
+		final MediawikiImporter importer = new MediawikiImporter(new MultiProtocolURL(dump), targetdir, checkpoint, 3, 2);
+		importer.start();
+		importer.join(60000);
+		assertFalse(importer.isAlive());
+		assertEquals("", importer.status());
+		return importer;
+	}
+
+	/**
+	 * All articles are converted into surrogate files with the given number of documents and the checkpoint is removed.
+	 */
+	@Test
+	public void testImport() throws Exception {
+		final File dump = dump(5);
+		final File targetdir = this.folder.newFolder("surrogates");
+		final File checkpoint = new File(this.folder.getRoot(), "checkpoint");
+		final MediawikiImporter importer = run(dump, targetdir, checkpoint);
+		assertEquals(5, importer.count());
+		assertEquals(3, targetdir.listFiles().length);
+		assertEquals(5, titles(targetdir).size());
+		final String xml = new String(FileUtils.read(new File(targetdir, "testwiki-pages-articles.xml.bz2.0.xml")), StandardCharsets.UTF_8);
+		assertTrue(xml.contains("http://wiki.example.org/wiki/Article"));
+		assertFalse(xml.contains("&lt;b&gt;")); // the html markup of the wiki text is parsed
+		assertFalse(checkpoint.exists());
+	}
+
+	/**
+	 * An import with the checkpoint of an interrupted import continues after the imported articles.
+	 */
+	@Test
+	public void testResume() throws Exception {
+		final File dump = dump(5);
+		final File targetdir = this.folder.newFolder("surrogates");
+		final File checkpoint = new File(this.folder.getRoot(), "checkpoint");
+		final Properties p = new Properties();
+		p.setProperty("source", new MultiProtocolURL(dump).toNormalform(true));
+		p.setProperty("offset", "3");
+		p.setProperty("file", "7");
+		try (final OutputStream out = new FileOutputStream(checkpoint)) {
+			p.store(out, null);
+		}
+		final MediawikiImporter importer = run(dump, targetdir, checkpoint);
+		assertEquals(5, importer.count());
+		assertEquals(1, targetdir.listFiles().length);
+		assertTrue(new File(targetdir, "testwiki-pages-articles.xml.bz2.7.xml").exists());
+		final Set<String> titles = titles(targetdir);
+		assertEquals(2, titles.size());
+		assertTrue(titles.contains("Article 4"));
+		assertTrue(titles.contains("Article 5"));
+	}
+
+	/**
+	 * An import with the checkpoint of an interrupted import of a multistream dump reads the header of the dump
+	 * and continues at the stored stream, without decompressing the streams before it.
+	 */
+	@Test
+	public void testResumeAtStream() throws Exception {
+		final File dump = dump(6);
+		// the streams of the articles 2 and 3 are broken, they must not be read
+		try (final RandomAccessFile raf = new RandomAccessFile(dump, "rw")) {
+			for (long p = this.streams.get(1); p < this.streams.get(3); p++) {
+				raf.seek(p);
+				raf.write('x');
+			}
+		}
+		final File targetdir = this.folder.newFolder("surrogates");
+		final File checkpoint = new File(this.folder.getRoot(), "checkpoint");
+		final Properties p = new Properties();
+		p.setProperty("source", new MultiProtocolURL(dump).toNormalform(true));
+		p.setProperty("offset", "4");
+		p.setProperty("file", "2");
+		p.setProperty("stream.offset", Long.toString(this.streams.get(3)));
+		p.setProperty("stream.articles", "3");
+		try (final OutputStream out = new FileOutputStream(checkpoint)) {
+			p.store(out, null);
+		}
+		final MediawikiImporter importer = run(dump, targetdir, checkpoint);
+		assertEquals(6, importer.count());
+		final Set<String> titles = titles(targetdir);
+		assertEquals(2, titles.size());
+		assertTrue(titles.contains("Article 5"));
+		assertTrue(titles.contains("Article 6"));
+		final String xml = new String(FileUtils.read(new File(targetdir, "testwiki-pages-articles.xml.bz2.2.xml")), StandardCharsets.UTF_8);
+		assertTrue(xml.contains("http://wiki.example.org/wiki/Article"));
+		assertFalse(checkpoint.exists());
+	}
+}
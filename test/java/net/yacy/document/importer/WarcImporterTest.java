@@ -0,0 +1,192 @@
+// WarcImporterTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.document.importer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.protocol.ResponseHeader;
+
+/**
+ * Unit tests for the parallel and resumable import of the {@link WarcImporter}.
+ */
+public class WarcImporterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * An importer which collects the indexed responses and stops after a number of responses
+	 */
+	private static class CollectingImporter extends WarcImporter {
+
+		private final Map<String, AtomicInteger> urls;
+		private final AtomicInteger limit;
+
+		public CollectingImporter(final File f, final File checkpoint, final Map<String, AtomicInteger> urls, final int limit) throws IOException {
+			super(f, checkpoint, 4);
+			this.urls = urls;
+			this.limit = new AtomicInteger(limit);
+			this.minChunkSize = 1024;
+		}
+
+		@Override
+		protected String index(final DigestURL location, final ResponseHeader responseHeader, final byte[] content) {
+			final String text = new String(content, StandardCharsets.UTF_8);
+			if (!text.endsWith(location.getFile().substring(1) + "</body></html>")) return "wrong content"; // then the url is missing
+			this.urls.computeIfAbsent(location.toNormalform(true), k -> new AtomicInteger()).incrementAndGet();
+			if (this.limit.decrementAndGet() == 0) quit();
+			return null;
+		}
+	}
+
+	private static void writeRecord(final OutputStream out, final int i, final String type) throws IOException {
+		final StringBuilder body = new StringBuilder("<html><body>");
+		for (int j = i % 50; j > 0; j--) body.append("text ");
+		body.append(i).append("</body></html>");
+		final String http = "HTTP/1.1 200 OK\r\nContent-Type: text/html\r\nContent-Length: " + body.length() + "\r\n\r\n" + body;
+		final String record = "WARC/1.0\r\nWARC-Type: " + type + "\r\nWARC-Target-URI: http://example.org/" + i
+				+ "\r\nWARC-Date: 2017-01-01T00:00:00Z\r\nWARC-Record-ID: <urn:uuid:00000000-0000-0000-0000-" + String.format("%012d", i)
+				+ ">\r\nContent-Type: application/http; msgtype=" + type + "\r\nContent-Length: " + http.length() + "\r\n\r\n" + http + "\r\n\r\n";
+		out.write(record.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * write a warc file with a gzip member for each record, or a plain warc file
+	 */
+	private File warc(final String name, final int records, final boolean compressed) throws IOException {
+		final File f = this.folder.newFile(name);
+		try (final OutputStream out = new FileOutputStream(f)) {
+			for (int i = 0; i < records; i++) {
+				final ByteArrayOutputStream record = new ByteArrayOutputStream();
+				try (final OutputStream r = compressed ? new GZIPOutputStream(record) : record) {
+					writeRecord(r, i, i % 10 == 9 ? "request" : "response");
+				}
+				record.writeTo(out);
+			}
+		}
+		return f;
+	}
+
+	private static void assertAllIndexed(final Map<String, AtomicInteger> urls, final int records) {
+		int responses = 0;
+		for (int i = 0; i < records; i++) {
+			if (i % 10 == 9) {
+				assertFalse(urls.containsKey("http://example.org/" + i));
+			} else {
+				assertTrue("http://example.org/" + i, urls.containsKey("http://example.org/" + i));
+				responses++;
+			}
+		}
+		assertEquals(responses, urls.size());
+	}
+
+	/**
+	 * All responses of a compressed file must be indexed exactly once when the file is read in chunks.
+	 */
+	@Test
+	public void testParallelImport() throws IOException {
+		final File f = warc("test.warc.gz", 500, true);
+		final Map<String, AtomicInteger> urls = new ConcurrentHashMap<>();
+		final WarcImporter importer = new CollectingImporter(f, null, urls, -1);
+		importer.run();
+		assertAllIndexed(urls, 500);
+		for (final AtomicInteger count : urls.values()) assertEquals(1, count.get());
+		assertEquals(450, importer.count());
+		assertEquals("16/16 chunks", importer.status());
+	}
+
+	/**
+	 * Plain warc files are read in one chunk.
+	 */
+	@Test
+	public void testUncompressedImport() throws IOException {
+		final File f = warc("test.warc", 100, false);
+		final Map<String, AtomicInteger> urls = new ConcurrentHashMap<>();
+		final WarcImporter importer = new CollectingImporter(f, null, urls, -1);
+		importer.run();
+		assertAllIndexed(urls, 100);
+		assertEquals("1/1 chunks", importer.status());
+	}
+
+	/**
+	 * An aborted import must continue at the checkpoint; only the responses which were processed when
+	 * the import was stopped may be indexed again.
+	 */
+	@Test
+	public void testResume() throws IOException {
+		final File f = warc("test.warc.gz", 500, true);
+		final File checkpoint = new File(this.folder.getRoot(), "work/test.warc.gz.checkpoint");
+		final Map<String, AtomicInteger> urls = new ConcurrentHashMap<>();
+		new CollectingImporter(f, checkpoint, urls, 100).run();
+		assertTrue(checkpoint.exists());
+		assertTrue(urls.size() < 450);
+
+		final WarcImporter resumed = new CollectingImporter(f, checkpoint, urls, -1);
+		resumed.run();
+		assertFalse(checkpoint.exists());
+		assertAllIndexed(urls, 500);
+		int repeated = 0;
+		for (final AtomicInteger count : urls.values()) repeated += count.get() - 1;
+		assertTrue(repeated <= 16);
+
+		// a checkpoint of another file is ignored
+		try (final OutputStream out = new FileOutputStream(checkpoint)) {
+			out.write("source=other.warc.gz\nsize=1\nchunks=0\n".getBytes(StandardCharsets.UTF_8));
+		}
+		urls.clear();
+		new CollectingImporter(f, checkpoint, urls, -1).run();
+		assertAllIndexed(urls, 500);
+	}
+
+	/**
+	 * The record stream import is still supported.
+	 */
+	@Test
+	public void testStreamImport() throws IOException {
+		final File f = warc("stream.warc.gz", 50, true);
+		final Map<String, AtomicInteger> urls = new ConcurrentHashMap<>();
+		try (final FileInputStream in = new FileInputStream(f)) {
+			new CollectingImporter(f, null, urls, -1).indexWarcRecords(in);
+		}
+		assertAllIndexed(urls, 50);
+	}
+}
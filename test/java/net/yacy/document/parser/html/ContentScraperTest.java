@@ -21,11 +21,17 @@
 package net.yacy.document.parser.html;
 
 import java.awt.Dimension;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.Writer;
+import java.lang.management.ManagementFactory;
 import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
@@ -34,13 +40,18 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import net.yacy.cora.document.id.AnchorURL;
 import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.document.VocabularyScraper;
 import net.yacy.kelondro.util.FileUtils;
 
@@ -517,4 +528,145 @@ public class ContentScraperTest {
 		}
     }
 
+	/**
+	 * Scrape a html text
+	 * @param html the html text
+	 * @param output when true, the transformer writer also writes its output, which is not done by the html parser
+	 */
+	private static ContentScraper scrape(final String html, final boolean output) throws IOException {
+		final ContentScraper scraper = new ContentScraper(new DigestURL("http://example.org/dir/page.html"), 1000,
+				new HashSet<String>(Arrays.asList("ignored")), new VocabularyScraper(), 0);
+		try (final Writer writer = new TransformerWriter(output ? new ByteArrayOutputStream() : null, StandardCharsets.UTF_8, scraper, false)) {
+			FileUtils.copy(new StringReader(html), writer);
+		}
+		return scraper;
+	}
+
+	/**
+	 * @return all scraped properties which are used for the document
+	 */
+	private static String scraped(final ContentScraper scraper) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append(scraper.getText()).append('\n');
+		sb.append(scraper.getTitles()).append(scraper.getDescriptions()).append(Arrays.toString(scraper.getKeywords())).append('\n');
+		for (int i = 1; i <= 6; i++) sb.append(Arrays.toString(scraper.getHeadlines(i)));
+		sb.append(Arrays.toString(scraper.getBold())).append(Arrays.toString(scraper.getBoldCount(scraper.getBold())));
+		sb.append(Arrays.toString(scraper.getItalic())).append(Arrays.toString(scraper.getUnderline()));
+		sb.append(Arrays.toString(scraper.getLi())).append(Arrays.toString(scraper.getDt())).append(Arrays.toString(scraper.getDd())).append('\n');
+		for (final AnchorURL anchor : scraper.getAnchors()) {
+			sb.append(anchor.toNormalform(false)).append(' ').append(anchor.getNameProperty()).append(' ')
+					.append(anchor.getTextProperty()).append(' ').append(anchor.getRelProperty()).append('\n');
+		}
+		for (final ImageEntry image : scraper.getImages()) sb.append(image).append('\n');
+		sb.append(scraper.getRSS()).append(scraper.getCSS()).append(scraper.getFrames()).append(scraper.getIFrames())
+				.append(scraper.getScript()).append(scraper.getEmbeds().keySet()).append(scraper.getIcons().keySet()).append('\n');
+		sb.append(new TreeMap<>(scraper.getMetas())).append(scraper.getLinkedDataTypes()).append(scraper.getArticles());
+		sb.append(scraper.getStartDates()).append(scraper.getLat()).append(scraper.getLon()).append(scraper.getCanonical());
+		sb.append(scraper.breadcrumbCount()).append(scraper.indexingDenied()).append(scraper.isLimitsExceeded());
+		return sb.toString();
+	}
+
+	private static List<String> corpus() throws IOException {
+		final List<String> corpus = new ArrayList<>(Arrays.asList(
+				"<HTML><Body class=x><P>Text <B>bold</B> <a HREF=\"/a.html\">a <IMG src=i.png alt='i'></a></p></BODY></HTML>",
+				"<div class=\"ignored\"><p>ignored <a href=x.html>x</a></p></div><div class=other><td>text</td> http://example.com/x(y).</div>",
+				"<div itemscope itemtype=\"http://schema.org/Product\"><span ItemScope itemtype=\"http://schema.org/Offer\">offer</span></div>",
+				"<script>if (1<a) document.write('<b>x</b>');</script><style>p {}</style><noscript><a href=n.html>n</a></noscript>",
+				"<title>T</title><h1>H<br>1</h1><ul><li>l1<li>l2</ul><p>a > b</p><!doctype x><! x><!-- comment --><p a=\"x>y\">q</p>",
+				"</p></div><a href=\"unclosed.html\">text <span>s</span> <img src=x.png>",
+				"<div><div><div>deep <i>italic</i> ftp://ftp.example.org/x smb://s/x https://h/x?q=(1) https:/no</div></div>",
+				"<meta name=\"description\" content=\"d &amp; e\"><link rel=\"icon\" href=\"/favicon.ico\"><p>&auml;&#x41;&amp;</p>"));
+		final List<File> files = new ArrayList<>();
+		files.addAll(Arrays.asList(new File("htroot").listFiles()));
+		files.addAll(Arrays.asList(new File("test/parsertest").listFiles()));
+		for (final File file : files) {
+			if (file.getName().endsWith(".html") || file.getName().endsWith(".htm")) {
+				corpus.add(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+			}
+		}
+		return corpus;
+	}
+
+	/**
+	 * The html parser scrapes without output of the transformer writer. Then tags which are not scraped are skipped,
+	 * but the scraped content must be the same.
+	 */
+	@Test
+	public void testScrapeWithoutOutput() throws IOException {
+		for (final String html : corpus()) {
+			final ContentScraper scraper = scrape(html, false);
+			final ContentScraper reference = scrape(html, true);
+			Assert.assertEquals(html, scraped(reference), scraped(scraper));
+			scraper.close();
+			reference.close();
+		}
+	}
+
+	/**
+	 * Absolute URLs in texts must be found as by the former search with regular expressions.
+	 */
+	@Test
+	public void testFindAbsoluteURLsInText() {
+		final Pattern scheme = Pattern.compile("smb://|ftp://|http://|https://");
+		final Pattern whitespace = Pattern.compile("\\s");
+		final String[] parts = {"http://", "https://", "ftp://", "smb://", "htt", "http:", "p://", "://", "s://", "a.b", "/x", "(", ")", ".", " ", "\t", "\n", "\u00a0", "x"};
+		final Random random = new Random(0);
+		for (int i = 0; i < 2000; i++) {
+			final StringBuilder sb = new StringBuilder();
+			for (int j = random.nextInt(12); j > 0; j--) sb.append(parts[random.nextInt(parts.length)]);
+			final String text = sb.toString();
+
+			final List<AnchorURL> expected = new ArrayList<>();
+			int offset = 0;
+			final Matcher schemeMatcher = scheme.matcher(text);
+			final Matcher whitespaceMatcher = whitespace.matcher(text);
+			while (offset < text.length() && schemeMatcher.find(offset)) {
+				final int start = schemeMatcher.start();
+				String url = text.substring(start, whitespaceMatcher.find(schemeMatcher.end()) ? whitespaceMatcher.start() : text.length());
+				if (url.endsWith(".")) url = url.substring(0, url.length() - 1);
+				url = ContentScraper.removeUnpairedBrackets(url, '(', ')');
+				url = ContentScraper.removeUnpairedBrackets(url, '{', '}');
+				url = ContentScraper.removeUnpairedBrackets(url, '[', ']');
+				offset = start + url.length();
+				try {
+					expected.add(new AnchorURL(url));
+				} catch (final MalformedURLException ignored) {}
+			}
+			final List<AnchorURL> urls = new ArrayList<>();
+			Assert.assertEquals(text, expected.size(), ContentScraper.findAbsoluteURLs(text, urls, null, Long.MAX_VALUE));
+			Assert.assertEquals(text, expected.toString(), urls.toString());
+		}
+	}
+
+	/**
+	 * Benchmark of the scraper: allocated bytes and time per MB of html, with and without output of the transformer writer.
+	 * @param args a directory with html files, default is htroot
+	 */
+	public static void main(final String[] args) throws IOException {
+		final List<String> docs = new ArrayList<>();
+		long chars = 0;
+		for (final File file : new File(args.length > 0 ? args[0] : "htroot").listFiles()) {
+			if (file.getName().endsWith(".html") || file.getName().endsWith(".htm")) {
+				final String html = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+				docs.add(html);
+				chars += html.length();
+			}
+		}
+		final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long id = Thread.currentThread().getId();
+		final double mb = chars / 1048576.0d;
+		for (int round = 0; round < 5; round++) {
+			for (final boolean output : new boolean[]{true, false}) {
+				final long a = bean.getThreadAllocatedBytes(id);
+				final long t = System.nanoTime();
+				for (final String html : docs) scrape(html, output).close();
+				final long time = System.nanoTime() - t;
+				final long allocated = bean.getThreadAllocatedBytes(id) - a;
+				System.out.println(String.format("%s: %d docs, %.1f MB: %.1f MB allocated per MB, %.1f ms per MB",
+						output ? "with output   " : "without output", docs.size(), mb, allocated / 1048576.0d / mb, time / 1e6d / mb));
+			}
+		}
+		ConcurrentLog.shutdown();
+	}
+
 }
@@ -36,6 +36,7 @@ import org.junit.Test;
 
 import net.yacy.cora.document.id.AnchorURL;
 import net.yacy.cora.document.id.DigestURL;
+import net.yacy.document.ArchiveMembers;
 import net.yacy.document.Document;
 import net.yacy.document.VocabularyScraper;
 
@@ -250,4 +251,23 @@ public class tarParserTest {
 			}
 		}
 	}
+
+	/**
+	 * Test tarParser.parseWithLimits() with the archive members parsed in parallel :
+	 * the documents and the links limit follow the order of the archive.
+	 * 
+	 * @throws Exception
+	 *             when an unexpected error occurred
+	 */
+	@Test
+	public void testParseWithLimitsParallelMembers() throws Exception {
+		ArchiveMembers.setThreads(4);
+		try {
+			testParseWithLimitsNotReached();
+			testParseWithLimitsLinksExceeded();
+			testParseWithLimitsBytesExceeded();
+		} finally {
+			ArchiveMembers.setThreads(0);
+		}
+	}
 }
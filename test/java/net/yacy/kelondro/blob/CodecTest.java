@@ -0,0 +1,293 @@
+// CodecTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.blob;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorInputStream;
+import org.junit.Test;
+
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.util.FileUtils;
+
+/**
+ * Unit tests for the {@link Codec} and {@link CodecDictionaries} classes and their use in the {@link Compressor}.
+ */
+public class CodecTest {
+
+	private static byte[] page(final int i) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("<!DOCTYPE html><html lang=\"en\"><head><meta charset=\"utf-8\"><title>Page ").append(i)
+				.append("</title><link rel=\"stylesheet\" href=\"/css/site.css\"></head><body><div class=\"navigation\">")
+				.append("<a href=\"/index.html\">Home</a> <a href=\"/about.html\">About</a></div><div class=\"content\"><p>");
+		final Random random = new Random(i);
+		for (int w = 0; w < 60; w++) {
+			sb.append("word").append(random.nextInt(500)).append(' ');
+		}
+		sb.append("</p></div><div class=\"footer\">Copyright by the authors of this site</div></body></html>");
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static List<byte[]> samples() {
+		final List<byte[]> samples = new ArrayList<>();
+		final Random random = new Random(0);
+		samples.add(new byte[0]);
+		samples.add(new byte[]{1, 2, 3});
+		final byte[] rnd = new byte[100000];
+		random.nextBytes(rnd);
+		samples.add(rnd);
+		final byte[] zeros = new byte[70000];
+		samples.add(zeros);
+		for (int i = 0; i < 20; i++) samples.add(page(i));
+		final byte[] mixed = new byte[200000];
+		for (int i = 0; i < mixed.length; i++) mixed[i] = (byte) (random.nextInt(4) == 0 ? random.nextInt(256) : 'a' + (i % 7));
+		samples.add(mixed);
+		return samples;
+	}
+
+	/**
+	 * LZ4 entries must be decoded to the original content, also by another LZ4 block implementation.
+	 */
+	@Test
+	public void testLZ4() throws IOException {
+		for (final byte[] b : samples()) {
+			final byte[] encoded = Codec.LZ4.encode(b, 0);
+			assertSame(Codec.LZ4, Codec.forEntry(encoded));
+			assertArrayEquals(b, Codec.LZ4.decode(encoded));
+
+			final BlockLZ4CompressorInputStream in = new BlockLZ4CompressorInputStream(
+					new ByteArrayInputStream(encoded, 6, encoded.length - 6));
+			try {
+				assertArrayEquals(b, FileUtils.read(in));
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+	/**
+	 * A trained dictionary must improve the compression of small pages of the same kind.
+	 */
+	@Test
+	public void testDictionary() throws IOException {
+		final List<byte[]> training = new ArrayList<>();
+		for (int i = 100; i < 200; i++) training.add(page(i));
+		final byte[] dictionary = CodecDictionaries.train(training, CodecDictionaries.MAX_DICTIONARY_SIZE);
+		assertTrue(dictionary.length > 0);
+		final Codec.Dictionary codec = new Codec.Dictionary(7, dictionary);
+		long withDictionary = 0, withGzip = 0;
+		for (final byte[] b : samples()) {
+			final byte[] encoded = codec.encode(b, 9);
+			assertEquals(7, Codec.Dictionary.dictionaryId(encoded));
+			assertArrayEquals(b, codec.decode(encoded));
+		}
+		for (int i = 0; i < 20; i++) {
+			withDictionary += codec.encode(page(i), 9).length;
+			withGzip += Codec.GZIP.encode(page(i), 9).length;
+		}
+		assertTrue(withDictionary < withGzip);
+	}
+
+	/**
+	 * Entries written with any codec must stay readable after the codec was changed and the BLOB was opened again.
+	 */
+	@Test
+	public void testCompressorCodecs() throws IOException, SpaceExceededException {
+		final File dir = new File("test/DATA/codec");
+		FileUtils.deletedelete(dir);
+		dir.mkdirs();
+		final File heapFile = new File(dir, "test.heap");
+		final File dictionaryDir = new File(dir, "dictionaries");
+		final List<byte[]> keys = new ArrayList<>();
+		final List<byte[]> values = new ArrayList<>();
+		Compressor compressor = new Compressor(new Heap(heapFile, 12, Base64Order.enhancedCoder, 1024), 1024 * 1024, 1000, 9);
+		compressor.setDictionaries(new CodecDictionaries(dictionaryDir));
+		int n = 0;
+		for (final Codec codec : new Codec[]{Codec.GZIP, Codec.LZ4, Codec.PLAIN, Codec.GZIP}) {
+			compressor.setCodec(codec);
+			for (int i = 0; i < CodecDictionaries.TRAINING_SAMPLES + 10; i++) {
+				final byte[] key = String.format("key%09d", n++).getBytes(StandardCharsets.US_ASCII);
+				keys.add(key);
+				values.add(page(n));
+				compressor.insert(key, page(n), "text/html");
+			}
+		}
+		compressor.close(true);
+
+		final CodecDictionaries dictionaries = new CodecDictionaries(dictionaryDir);
+		assertEquals(0, dictionaries.size()); // dictionaries are only trained when they are used
+		compressor = new Compressor(new Heap(heapFile, 12, Base64Order.enhancedCoder, 1024), 1024 * 1024, 1000, 9);
+		compressor.setDictionaries(dictionaries);
+		compressor.setUseDictionaries(true);
+		for (int i = 0; i < CodecDictionaries.TRAINING_SAMPLES + 10; i++) {
+			final byte[] key = String.format("key%09d", n++).getBytes(StandardCharsets.US_ASCII);
+			keys.add(key);
+			values.add(page(n));
+			compressor.insert(key, page(n), "text/html");
+		}
+		compressor.close(true);
+		assertNotNull(new CodecDictionaries(dictionaryDir).forMime("text/html"));
+
+		compressor = new Compressor(new Heap(heapFile, 12, Base64Order.enhancedCoder, 1024), 1024 * 1024, 1000, 9);
+		compressor.setDictionaries(new CodecDictionaries(dictionaryDir));
+		try {
+			for (int i = 0; i < keys.size(); i++) {
+				assertArrayEquals(values.get(i), compressor.get(keys.get(i)));
+			}
+		} finally {
+			compressor.close(true);
+			FileUtils.deletedelete(dir);
+		}
+	}
+
+	/**
+	 * Entries written with a dictionary which is not available any more must not be returned as content,
+	 * neither by get() nor by a stream.
+	 */
+	@Test
+	public void testMissingDictionary() throws IOException, SpaceExceededException {
+		final File dir = new File("test/DATA/codecmissing");
+		FileUtils.deletedelete(dir);
+		dir.mkdirs();
+		final File heapFile = new File(dir, "test.heap");
+		final List<byte[]> keys = new ArrayList<>();
+		Compressor compressor = new Compressor(new Heap(heapFile, 12, Base64Order.enhancedCoder, 1024), 1024 * 1024, 1000, 9);
+		compressor.setDictionaries(new CodecDictionaries(new File(dir, "dictionaries")));
+		compressor.setUseDictionaries(true);
+		for (int i = 0; i < 2 * CodecDictionaries.TRAINING_SAMPLES; i++) {
+			final byte[] key = String.format("key%09d", i).getBytes(StandardCharsets.US_ASCII);
+			keys.add(key);
+			compressor.insert(key, page(i), "text/html");
+		}
+		compressor.close(true);
+
+		compressor = new Compressor(new Heap(heapFile, 12, Base64Order.enhancedCoder, 1024), 1024 * 1024, 1000, 9);
+		try {
+			int missing = 0;
+			for (int i = 0; i < keys.size(); i++) {
+				final byte[] b = compressor.get(keys.get(i));
+				if (b == null) missing++; else assertArrayEquals(page(i), b);
+				InputStream in = null;
+				try {
+					in = compressor.getStream(keys.get(i));
+					assertNotNull(b);
+					assertArrayEquals(b, FileUtils.read(in));
+				} catch (final IOException e) {
+					assertNull(b);
+				} finally {
+					if (in != null) in.close();
+				}
+			}
+			assertTrue(missing > 0);
+		} finally {
+			compressor.close(true);
+			FileUtils.deletedelete(dir);
+		}
+	}
+
+	/**
+	 * Streams on the entries must deliver the same content as get(), for entries larger than a
+	 * stream chunk and with all codecs, and must fail when the entry is deleted while it is read.
+	 */
+	@Test
+	public void testCompressorStreams() throws IOException, SpaceExceededException {
+		final File dir = new File("test/DATA/codecstream");
+		FileUtils.deletedelete(dir);
+		dir.mkdirs();
+		final Compressor compressor = new Compressor(new ArrayStack(new File(dir, "test.array"), "test", Base64Order.enhancedCoder, 12, 1024, false, true), 1024 * 1024, 1000, 9);
+		compressor.setDictionaries(new CodecDictionaries(new File(dir, "dictionaries")));
+		compressor.setUseDictionaries(true);
+		try {
+			final List<byte[]> keys = new ArrayList<>();
+			final List<byte[]> values = new ArrayList<>();
+			int n = 0;
+			for (final Codec codec : new Codec[]{Codec.GZIP, Codec.LZ4, Codec.PLAIN}) {
+				compressor.setCodec(codec);
+				final List<byte[]> contents = samples();
+				final ByteArrayOutputStream large = new ByteArrayOutputStream();
+				for (int i = 0; i < 3000; i++) large.write(page(i));
+				contents.add(large.toByteArray());
+				for (int i = 0; i < CodecDictionaries.TRAINING_SAMPLES + 10; i++) contents.add(page(i));
+				for (final byte[] b : contents) {
+					final byte[] key = String.format("key%09d", n++).getBytes(StandardCharsets.US_ASCII);
+					keys.add(key);
+					values.add(b);
+					compressor.insert(key, b, "text/html");
+				}
+			}
+			assertNull(compressor.getStream("key999999999".getBytes(StandardCharsets.US_ASCII)));
+			for (final boolean flushed : new boolean[]{false, true}) {
+				if (flushed) compressor.flushAll();
+				for (int i = 0; i < keys.size(); i++) {
+					final InputStream in = compressor.getStream(keys.get(i));
+					assertNotNull(in);
+					try {
+						assertArrayEquals(values.get(i), FileUtils.read(in));
+					} finally {
+						in.close();
+					}
+				}
+			}
+
+			// a large entry deleted while it is read
+			int large = 0;
+			while (values.get(large).length < 1024 * 1024) large++;
+			compressor.setCodec(Codec.PLAIN);
+			final byte[] key = "keylargeplai".getBytes(StandardCharsets.US_ASCII);
+			compressor.insert(key, values.get(large), "text/html");
+			compressor.flushAll();
+			final InputStream in = compressor.getStream(key);
+			final byte[] buf = new byte[1024];
+			assertEquals(buf.length, in.read(buf));
+			compressor.delete(key);
+			try {
+				FileUtils.read(in);
+				fail("stream on a deleted entry must fail");
+			} catch (final IOException e) {
+				// expected
+			} finally {
+				in.close();
+			}
+		} finally {
+			compressor.close(true);
+			FileUtils.deletedelete(dir);
+		}
+	}
+}
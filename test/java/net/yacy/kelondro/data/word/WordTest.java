@@ -0,0 +1,161 @@
+// WordTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.data.word;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.order.Digest;
+import net.yacy.cora.storage.ConcurrentARC;
+import net.yacy.cora.util.ConcurrentLog;
+
+/**
+ * Unit tests for the word hashes of the {@link Word} class and the {@link WordHashCache}.
+ */
+public class WordTest {
+
+	/** the word hash as computed before the hash cache was keyed by fingerprints */
+	private static byte[] reference(final String word) {
+		final byte[] h = Word.commonHashOrder.encodeSubstring(Digest.encodeMD5Raw(word.toLowerCase(Locale.ENGLISH)), Word.commonHashLength);
+		while (Word.isPrivate(h)) {
+			System.arraycopy(h, 1, h, 0, Word.commonHashLength - 1);
+			h[Word.commonHashLength - 1] = Base64Order.alpha_enhanced[0];
+		}
+		return h;
+	}
+
+	private static List<String> words(final int count, final int distinct) {
+		final Random random = new Random(0);
+		final String[] vocabulary = new String[distinct];
+		final String letters = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZäöüÄÖÜß";
+		for (int i = 0; i < distinct; i++) {
+			final char[] c = new char[3 + random.nextInt(9)];
+			for (int j = 0; j < c.length; j++) c[j] = letters.charAt(random.nextInt(letters.length()));
+			vocabulary[i] = new String(c);
+		}
+		final List<String> words = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			// zipf-like distribution of words as in texts
+			words.add(vocabulary[(int) Math.min(distinct - 1, Math.abs(random.nextGaussian()) * distinct / 8)]);
+		}
+		return words;
+	}
+
+	/**
+	 * Word hashes must not depend on the case or on the kind of char sequence, also for words
+	 * that have a special lower-case form.
+	 */
+	@Test
+	public void testWord2hash() {
+		final List<String> words = new ArrayList<>(words(2000, 500));
+		words.add("");
+		words.add("İstanbul");
+		words.add("ΟΔΥΣΣΕΥΣ");
+		words.add("Οδυσσευς");
+		words.add("𐐀𐐨");
+		words.add("DOG😀");
+		for (final String word : words) {
+			final byte[] h = reference(word);
+			assertArrayEquals(word, h, Word.word2hash(word));
+			final String upper = word.toUpperCase(Locale.ENGLISH);
+			if (upper.toLowerCase(Locale.ENGLISH).equals(word.toLowerCase(Locale.ENGLISH))) assertArrayEquals(word, h, Word.word2hash(upper));
+			assertArrayEquals(word, h, Word.word2hash(new StringBuilder(word)));
+			final String text = "<< " + word + " >>";
+			assertArrayEquals(word, h, Word.word2hash(text, 3, 3 + word.length()));
+		}
+		assertSame(Word.word2hash("Cached"), Word.word2hash("cACHED"));
+	}
+
+	/**
+	 * A full cache must evict entries and must never return the hash of another key.
+	 */
+	@Test
+	public void testEviction() {
+		final WordHashCache cache = new WordHashCache(16);
+		assertTrue(cache.capacity() >= 16);
+		final Random random = new Random(1);
+		final long hot = WordHashCache.fingerprint("hot", 0, 3);
+		final byte[] hotHash = reference("hot");
+		cache.put(hot, hotHash);
+		int found = 0;
+		for (int i = 0; i < 10000; i++) {
+			final String word = Integer.toString(random.nextInt(1000));
+			final long key = WordHashCache.fingerprint(word, 0, word.length());
+			final byte[] h = cache.get(key);
+			if (h == null) {
+				cache.put(key, reference(word));
+			} else {
+				assertArrayEquals(reference(word), h);
+				found++;
+			}
+			assertNotNull(cache.get(key));
+			if (cache.get(hot) == null) cache.put(hot, hotHash);
+		}
+		assertTrue(found > 0);
+		cache.clear();
+		assertNull(cache.get(hot));
+	}
+
+	/**
+	 * Benchmark of the word hashes against the former cache, which was keyed by the lower-case words.
+	 * @param args the number of words, default is 10000000
+	 */
+	public static void main(final String[] args) {
+		final int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		final List<String> words = words(count, 20000); // fits into both caches, so this measures the hit path
+		final ConcurrentARC<String, byte[]> arc = new ConcurrentARC<String, byte[]>(200000, Math.min(32, 2 * Runtime.getRuntime().availableProcessors()));
+		for (int round = 0; round < 3; round++) {
+			long t = System.nanoTime();
+			int x = 0;
+			for (final String word : words) {
+				final String wordlc = word.toLowerCase(Locale.ENGLISH);
+				byte[] h = arc.get(wordlc);
+				if (h == null) {
+					h = reference(wordlc);
+					arc.insertIfAbsent(wordlc, h);
+				}
+				x += h[0];
+			}
+			final long arcTime = System.nanoTime() - t;
+			t = System.nanoTime();
+			for (final String word : words) {
+				x += Word.word2hash(word)[0];
+			}
+			final long cacheTime = System.nanoTime() - t;
+			System.out.println(String.format("%d words: lower-case ARC %.1f ns/word, fingerprint cache %.1f ns/word (%d)",
+					count, (double) arcTime / count, (double) cacheTime / count, x));
+		}
+		ConcurrentLog.shutdown();
+	}
+}
@@ -0,0 +1,191 @@
+// TableTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.table;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Iterator;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.NaturalOrder;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.index.Row;
+
+/**
+ * Unit tests for the {@link Table} class with a RAM and a disk index.
+ */
+public class TableTest {
+
+	private static final Row ROWDEF = new Row("byte[] key-8, long num-8 {b256}", NaturalOrder.naturalOrder);
+
+	private File tablefile;
+
+	@Before
+	public void setUp() {
+		final File dir = new File("test/DATA/table");
+		dir.mkdirs();
+		this.tablefile = new File(dir, "test.table");
+		this.tablefile.delete();
+		new File(dir, "test.table.idx").delete();
+	}
+
+	@After
+	public void tearDown() {
+		this.tablefile.delete();
+		new File(this.tablefile.getParentFile(), "test.table.idx").delete();
+	}
+
+	private static byte[] key(final int i) {
+		return ASCII.getBytes(String.format("k%07d", i));
+	}
+
+	private static Row.Entry entry(final int i, final long value) {
+		final Row.Entry entry = ROWDEF.newEntry();
+		entry.setCol(0, key(i));
+		entry.setCol(1, value);
+		return entry;
+	}
+
+	/** write and remove entries and check them against a reference map */
+	private static void fill(final Table table, final TreeMap<String, Long> reference) throws IOException, SpaceExceededException {
+		for (int i = 0; i < 3000; i++) {
+			final int k = (i * 7919) % 2000;
+			table.put(entry(k, i));
+			reference.put(ASCII.String(key(k)), (long) i);
+		}
+		for (int k = 0; k < 2000; k += 3) {
+			table.remove(key(k));
+			reference.remove(ASCII.String(key(k)));
+		}
+	}
+
+	private static void check(final Table table, final TreeMap<String, Long> reference) throws IOException {
+		assertEquals(reference.size(), table.size());
+		for (int k = 0; k < 2000; k++) {
+			final Row.Entry e = table.get(key(k), false);
+			final Long v = reference.get(ASCII.String(key(k)));
+			if (v == null) {
+				assertNull(e);
+				assertFalse(table.has(key(k)));
+			} else {
+				assertEquals(v.longValue(), e.getColLong(1));
+				assertTrue(table.has(key(k)));
+			}
+		}
+		final Iterator<byte[]> keys = table.keys(true, null);
+		for (final String k : reference.keySet()) {
+			assertTrue(keys.hasNext());
+			assertArrayEquals(ASCII.getBytes(k), keys.next());
+		}
+		assertFalse(keys.hasNext());
+	}
+
+	/**
+	 * The disk index must show the same content as the RAM index.
+	 */
+	@Test
+	public void testDiskIndex() throws IOException, SpaceExceededException {
+		final TreeMap<String, Long> reference = new TreeMap<>();
+		final Table table = new Table(this.tablefile, ROWDEF, 100, 0, false, false, true, true);
+		try {
+			fill(table, reference);
+			check(table, reference);
+		} finally {
+			table.close();
+		}
+	}
+
+	/**
+	 * A table closed cleanly must be opened again with its disk index; a table written
+	 * with a RAM index afterwards must get a rebuilt disk index.
+	 */
+	@Test
+	public void testReopen() throws IOException, SpaceExceededException {
+		final TreeMap<String, Long> reference = new TreeMap<>();
+		Table table = new Table(this.tablefile, ROWDEF, 100, 0, false, false, true, true);
+		fill(table, reference);
+		table.close();
+		final File indexfile = new File(this.tablefile.getParentFile(), "test.table.idx");
+		assertTrue(indexfile.exists());
+
+		table = new Table(this.tablefile, ROWDEF, 100, 0, false, false, true, true);
+		try {
+			check(table, reference);
+			table.put(entry(5000, 42));
+			reference.put(ASCII.String(key(5000)), 42L);
+		} finally {
+			table.close();
+		}
+
+		// change the table without the disk index
+		table = new Table(this.tablefile, ROWDEF, 100, 0, false, false, true);
+		try {
+			table.remove(key(1));
+			reference.remove(ASCII.String(key(1)));
+		} finally {
+			table.close();
+		}
+
+		table = new Table(this.tablefile, ROWDEF, 100, 0, false, false, true, true);
+		try {
+			check(table, reference);
+		} finally {
+			table.close();
+		}
+	}
+
+	/**
+	 * A disk index not closed cleanly must be rebuilt from the table.
+	 */
+	@Test
+	public void testUncleanIndex() throws IOException, SpaceExceededException {
+		final TreeMap<String, Long> reference = new TreeMap<>();
+		Table table = new Table(this.tablefile, ROWDEF, 100, 0, false, false, true, true);
+		fill(table, reference);
+		table.close();
+
+		// clear the clean flag of the index header
+		try (final RandomAccessFile raf = new RandomAccessFile(new File(this.tablefile.getParentFile(), "test.table.idx"), "rw")) {
+			raf.seek(12);
+			raf.writeByte(0);
+		}
+		table = new Table(this.tablefile, ROWDEF, 100, 0, false, false, true, true);
+		try {
+			check(table, reference);
+		} finally {
+			table.close();
+		}
+	}
+}
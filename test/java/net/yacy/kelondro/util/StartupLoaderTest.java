@@ -0,0 +1,84 @@
+// StartupLoaderTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link StartupLoader} class.
+ */
+public class StartupLoaderTest {
+
+	/**
+	 * The stores added before the start must be loaded the largest first.
+	 */
+	@Test
+	public void testLargestFirst() {
+		final StartupLoader loader = new StartupLoader("StartupLoaderTest", 1);
+		final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+		loader.load("small", 10, () -> order.add("small"));
+		loader.load("large", 1000, () -> order.add("large"));
+		loader.load("medium", 100, () -> order.add("medium"));
+		assertTrue(order.isEmpty());
+		assertTrue(loader.awaitAll(10000));
+		assertEquals(3, order.size());
+		assertEquals("large", order.get(0));
+		assertEquals("medium", order.get(1));
+		assertEquals("small", order.get(2));
+		assertEquals(0, loader.pending());
+		loader.shutdown();
+	}
+
+	/**
+	 * A failed store must be reported in its timeline entry without stopping the other stores.
+	 */
+	@Test
+	public void testFailure() {
+		final StartupLoader loader = new StartupLoader("StartupLoaderTest", 2);
+		loader.load("broken", 10, () -> {
+			throw new IOException("broken store");
+		});
+		final StartupLoader.Store ok = loader.load("ok", 10, () -> {});
+		loader.start();
+		assertFalse(loader.await("broken"));
+		assertTrue(ok.await());
+		assertFalse(loader.await("unknown"));
+		for (final StartupLoader.Store store : loader.timeline()) {
+			assertTrue(store.isLoaded());
+			assertTrue(store.getDuration() >= 0);
+			assertNotNull(store.getThread());
+		}
+		assertNotNull(loader.timeline().get(0).getError());
+		loader.shutdown();
+	}
+}
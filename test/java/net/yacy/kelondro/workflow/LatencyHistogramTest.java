@@ -0,0 +1,67 @@
+// LatencyHistogramTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.workflow;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        assertEquals(0, LatencyHistogram.bucket(0));
+        assertEquals(1, LatencyHistogram.bucket(1));
+        assertEquals(2, LatencyHistogram.bucket(2));
+        assertEquals(2, LatencyHistogram.bucket(3));
+        assertEquals(11, LatencyHistogram.bucket(1024));
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+        for (long l = 0; l < 100000; l += 7) {
+            final int b = LatencyHistogram.bucket(l);
+            assertEquals(true, l < LatencyHistogram.upperBound(b));
+            assertEquals(true, b == 0 || l >= LatencyHistogram.upperBound(b - 1));
+        }
+    }
+
+    @Test
+    public void testQuantiles() {
+        final LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.getQuantile(0.5));
+        for (int i = 0; i < 90; i++) h.add(5);
+        for (int i = 0; i < 9; i++) h.add(100);
+        h.add(3000);
+        assertEquals(100, h.getCount());
+        assertEquals(3000, h.getMax());
+        assertEquals((90 * 5 + 9 * 100 + 3000) / 100, h.getAverage());
+        assertEquals(8, h.getQuantile(0.5));
+        assertEquals(8, h.getQuantile(0.9));
+        assertEquals(128, h.getQuantile(0.99));
+        assertEquals(3000, h.getQuantile(1.0));
+        h.clear();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getMax());
+    }
+}
@@ -0,0 +1,101 @@
+// PeerStatisticsTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.peers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link PeerStatistics} class.
+ */
+public class PeerStatisticsTest {
+
+	private static final String PEER = "AAAAAAAAAAAA";
+
+	@After
+	public void tearDown() {
+		PeerStatistics.clear();
+	}
+
+	/**
+	 * Unknown peers have no latency and are not unreliable.
+	 */
+	@Test
+	public void testUnknownPeer() {
+		assertEquals(-1, PeerStatistics.latency(PEER));
+		assertEquals(-1, PeerStatistics.searchLatency(PEER));
+		assertEquals(-1, PeerStatistics.searchLatencyP90(PEER));
+		assertFalse(PeerStatistics.isUnreliable(PEER));
+	}
+
+	/**
+	 * Constant response times give a percentile equal to the average, varying ones a higher percentile.
+	 */
+	@Test
+	public void testLatencyP90() {
+		for (int i = 0; i < 10; i++) {
+			PeerStatistics.searchSuccess(PEER, 100);
+		}
+		assertEquals(100, PeerStatistics.searchLatency(PEER));
+		assertEquals(100, PeerStatistics.searchLatencyP90(PEER));
+
+		for (int i = 0; i < 10; i++) {
+			PeerStatistics.searchSuccess(PEER, i % 2 == 0 ? 50 : 400);
+		}
+		final long latency = PeerStatistics.searchLatency(PEER);
+		assertTrue(latency > 50 && latency < 400);
+		assertTrue(PeerStatistics.searchLatencyP90(PEER) > latency);
+	}
+
+	/**
+	 * The response times of other requests do not change the search response times.
+	 */
+	@Test
+	public void testSearchLatencySeparated() {
+		for (int i = 0; i < 10; i++) {
+			PeerStatistics.searchSuccess(PEER, 100);
+			PeerStatistics.success(PEER, 5000);
+		}
+		assertEquals(100, PeerStatistics.searchLatency(PEER));
+		assertEquals(100, PeerStatistics.searchLatencyP90(PEER));
+		assertTrue(PeerStatistics.latency(PEER) > 100);
+	}
+
+	/**
+	 * A peer failing several times in a row is unreliable until its next success.
+	 */
+	@Test
+	public void testUnreliable() {
+		PeerStatistics.success(PEER, 100);
+		for (int i = 0; i < 3; i++) {
+			PeerStatistics.failure(PEER, 8000);
+		}
+		assertTrue(PeerStatistics.isUnreliable(PEER));
+		PeerStatistics.success(PEER, 100);
+		assertFalse(PeerStatistics.isUnreliable(PEER));
+	}
+}
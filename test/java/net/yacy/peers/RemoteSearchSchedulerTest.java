@@ -0,0 +1,209 @@
+// RemoteSearchSchedulerTest.java
+// -------------------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.peers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link RemoteSearchScheduler} class.
+ */
+public class RemoteSearchSchedulerTest {
+
+	/** counts the feeders like a search event */
+	private static class Counter implements RemoteSearchScheduler.Feeders {
+		private final AtomicInteger alive = new AtomicInteger(0);
+
+		@Override
+		public void oneFeederStarted() {
+			this.alive.incrementAndGet();
+		}
+
+		@Override
+		public void oneFeederTerminated() {
+			this.alive.decrementAndGet();
+		}
+
+		@Override
+		public boolean isFeedingFinished() {
+			return false;
+		}
+	}
+
+	/** a request which answers when it is released */
+	private static class Request extends RemoteSearchScheduler.Task {
+		private final Seed target;
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final CountDownLatch started = new CountDownLatch(1);
+		private volatile boolean interrupted = false;
+
+		private Request(final Counter counter, final Seed target) {
+			super(null, counter, "request to " + target.hash);
+			this.target = target;
+		}
+
+		@Override
+		protected void process() throws InterruptedException {
+			this.started.countDown();
+			try {
+				this.release.await();
+			} catch (final InterruptedException e) {
+				this.interrupted = true;
+				throw e;
+			}
+		}
+
+		@Override
+		public Seed target() {
+			return this.target;
+		}
+	}
+
+	private Counter counter;
+
+	private static Seed seed(final String hash) {
+		return new Seed(hash, new ConcurrentHashMap<String, String>());
+	}
+
+	@Before
+	public void setUp() {
+		this.counter = new Counter();
+	}
+
+	@After
+	public void tearDown() {
+		PeerStatistics.clear();
+		RemoteSearchScheduler.setMaxThreads(RemoteSearchScheduler.DEFAULT_MAX_THREADS);
+	}
+
+	/**
+	 * A slow primary request gets a hedged request to an alternate peer after the hedge delay; the hedge
+	 * which answers first cancels the primary request.
+	 */
+	@Test
+	public void testHedgeCancelsLoser() throws Exception {
+		final Request primary = RemoteSearchScheduler.execute(new Request(this.counter, seed("AAAAAAAAAAAA")));
+		final List<Request> hedges = new CopyOnWriteArrayList<>();
+		final List<Seed> alternates = Arrays.asList(seed("BBBBBBBBBBBB"));
+		final RemoteSearchScheduler.HedgeBudget budget = new RemoteSearchScheduler.HedgeBudget(1);
+		budget.requested("AAAAAAAAAAAA");
+		RemoteSearchScheduler.hedge(primary, target -> new Request(this.counter, target), alternates, budget, 0, hedges);
+		assertTrue(primary.started.await(5, TimeUnit.SECONDS));
+
+		for (int i = 0; i < 100 && hedges.isEmpty(); i++) Thread.sleep(20);
+		assertEquals(1, hedges.size());
+		final Request hedge = hedges.get(0);
+		assertEquals("BBBBBBBBBBBB", hedge.target().hash);
+		assertTrue(hedge.started.await(5, TimeUnit.SECONDS));
+		assertEquals(2, this.counter.alive.get());
+
+		hedge.release.countDown();
+		primary.join(5000);
+		hedge.join(5000);
+		assertFalse(primary.isAlive());
+		assertFalse(hedge.isAlive());
+		assertTrue(primary.interrupted);
+		assertFalse(hedge.interrupted);
+		assertEquals(0, this.counter.alive.get());
+	}
+
+	/**
+	 * No hedged request is sent when the primary request answers before the hedge delay or when the budget is exhausted.
+	 */
+	@Test
+	public void testNoHedge() throws Exception {
+		final List<Request> hedges = new CopyOnWriteArrayList<>();
+		final Request fast = RemoteSearchScheduler.execute(new Request(this.counter, seed("AAAAAAAAAAAA")));
+		fast.release.countDown();
+		fast.join(5000);
+		RemoteSearchScheduler.hedge(fast, target -> new Request(this.counter, target), Arrays.asList(seed("BBBBBBBBBBBB")), new RemoteSearchScheduler.HedgeBudget(1), 0, hedges);
+
+		final Request slow = RemoteSearchScheduler.execute(new Request(this.counter, seed("CCCCCCCCCCCC")));
+		RemoteSearchScheduler.hedge(slow, target -> new Request(this.counter, target), Arrays.asList(seed("DDDDDDDDDDDD")), new RemoteSearchScheduler.HedgeBudget(0), 0, hedges);
+		Thread.sleep(600);
+		assertTrue(hedges.isEmpty());
+		slow.release.countDown();
+		slow.join(5000);
+		assertFalse(slow.isAlive());
+	}
+
+	/**
+	 * Join waits for the termination of a request and returns at the timeout if it does not terminate.
+	 */
+	@Test
+	public void testJoin() throws Exception {
+		final Request request = RemoteSearchScheduler.execute(new Request(this.counter, seed("AAAAAAAAAAAA")));
+		final long start = System.currentTimeMillis();
+		request.join(100);
+		assertTrue(System.currentTimeMillis() - start >= 90);
+		assertTrue(request.isAlive());
+		request.interrupt();
+		request.join(5000);
+		assertFalse(request.isAlive());
+		assertEquals(0, this.counter.alive.get());
+	}
+
+	/**
+	 * A request is not sent when the queue of waiting requests is full; it terminates at once and is not counted as a feeder.
+	 */
+	@Test
+	public void testQueueFull() throws Exception {
+		RemoteSearchScheduler.setMaxThreads(1);
+		final Request running = RemoteSearchScheduler.execute(new Request(this.counter, seed("AAAAAAAAAAAA")));
+		final List<Request> queued = new ArrayList<>();
+		try {
+			assertTrue(running.started.await(5, TimeUnit.SECONDS));
+			for (int i = 0; i < RemoteSearchScheduler.MAX_QUEUED; i++) {
+				queued.add(RemoteSearchScheduler.execute(new Request(this.counter, seed("BBBBBBBBBBBB"))));
+			}
+			assertEquals(RemoteSearchScheduler.MAX_QUEUED, RemoteSearchScheduler.queueSize());
+			assertEquals(1 + RemoteSearchScheduler.MAX_QUEUED, this.counter.alive.get());
+
+			final Request rejected = RemoteSearchScheduler.execute(new Request(this.counter, seed("CCCCCCCCCCCC")));
+			assertFalse(rejected.isAlive());
+			assertEquals(1 + RemoteSearchScheduler.MAX_QUEUED, this.counter.alive.get());
+			assertEquals(1, rejected.started.getCount());
+		} finally {
+			// a queued request which is interrupted is never sent
+			for (final Request request: queued) request.interrupt();
+			running.release.countDown();
+			running.join(5000);
+		}
+		assertFalse(running.isAlive());
+		for (final Request request: queued) {
+			assertFalse(request.isAlive());
+			assertEquals(1, request.started.getCount());
+		}
+		assertEquals(0, this.counter.alive.get());
+	}
+}
@@ -0,0 +1,135 @@
+// IndexingLanesTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.MalformedURLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.protocol.HeaderFramework;
+import net.yacy.cora.protocol.ResponseHeader;
+import net.yacy.crawler.retrieval.Request;
+import net.yacy.crawler.retrieval.Response;
+import net.yacy.kelondro.workflow.WorkflowProcessor;
+import net.yacy.kelondro.workflow.WorkflowTask;
+import net.yacy.search.IndexingLanes.CostClass;
+
+/**
+ * Unit tests for the {@link IndexingLanes} of the parsing step.
+ */
+public class IndexingLanesTest {
+
+    private static final WorkflowTask<IndexingQueueEntry> IDENTITY = new WorkflowTask<IndexingQueueEntry>() {
+        @Override
+        public IndexingQueueEntry process(final IndexingQueueEntry in) {
+            return in;
+        }
+    };
+
+    private static IndexingLanes lanes(final WorkflowTask<IndexingQueueEntry> task, final WorkflowProcessor<IndexingQueueEntry> output) {
+        return new IndexingLanes(task, output, 20, new int[]{2, 2, 1}, new int[]{Thread.MAX_PRIORITY, Thread.NORM_PRIORITY, Thread.MIN_PRIORITY}, 1000, 10000);
+    }
+
+    private static IndexingQueueEntry entry(final int i, final String mime, final int size) throws MalformedURLException {
+        final ResponseHeader header = new ResponseHeader(200);
+        header.put(HeaderFramework.CONTENT_TYPE, mime);
+        final Request request = new Request(new DigestURL("http://example.org/doc" + i), null);
+        return new IndexingQueueEntry(new Response(request, null, header, null, false, new byte[size]), null, null);
+    }
+
+    /**
+     * Documents are classified by their mime type and size.
+     */
+    @Test
+    public void testCostClass() {
+        final IndexingLanes lanes = lanes(IDENTITY, null);
+        try {
+            assertEquals(CostClass.FAST, lanes.costClass("text/html", 500));
+            assertEquals(CostClass.FAST, lanes.costClass("application/rss+xml", 1000));
+            assertEquals(CostClass.DEFAULT, lanes.costClass("text/html", 1001));
+            assertEquals(CostClass.DEFAULT, lanes.costClass("text/html", -1));
+            assertEquals(CostClass.DEFAULT, lanes.costClass("image/png", 500));
+            assertEquals(CostClass.DEFAULT, lanes.costClass(null, 500));
+            assertEquals(CostClass.HEAVY, lanes.costClass("application/pdf", 500));
+            assertEquals(CostClass.HEAVY, lanes.costClass("application/vnd.openxmlformats-officedocument.wordprocessingml.document", -1));
+            assertEquals(CostClass.HEAVY, lanes.costClass("application/zip", 500));
+            assertEquals(CostClass.HEAVY, lanes.costClass("text/plain", 10000));
+            assertEquals(CostClass.HEAVY, lanes.costClass(null, 20000));
+        } finally {
+            lanes.shutdown();
+        }
+    }
+
+    /**
+     * Each lane parses with its own threads and all lanes merge into the same next step,
+     * which keeps the lane of each entry for the latency histogram.
+     */
+    @Test
+    public void testLanesMerge() throws Exception {
+        final int docs = 30;
+        final CountDownLatch done = new CountDownLatch(docs);
+        final Map<String, Integer> parsedPriority = new ConcurrentHashMap<>();
+        final WorkflowTask<IndexingQueueEntry> parse = new WorkflowTask<IndexingQueueEntry>() {
+            @Override
+            public IndexingQueueEntry process(final IndexingQueueEntry in) {
+                parsedPriority.put(in.queueEntry.url().toNormalform(true), Thread.currentThread().getPriority());
+                return new IndexingQueueEntry(in, null, null);
+            }
+        };
+        final IndexingLanes[] lanes = new IndexingLanes[1];
+        final WorkflowProcessor<IndexingQueueEntry> store = new WorkflowProcessor<IndexingQueueEntry>("storeTest", "test", new String[0],
+                new WorkflowTask<IndexingQueueEntry>() {
+                    @Override
+                    public IndexingQueueEntry process(final IndexingQueueEntry in) {
+                        lanes[0].finished(in);
+                        done.countDown();
+                        return null;
+                    }
+                }, 20, null, 1);
+        lanes[0] = lanes(parse, store);
+        try {
+            for (int i = 0; i < docs; i++) {
+                lanes[0].enQueue(entry(i, i % 3 == 0 ? "text/html" : i % 3 == 1 ? "image/png" : "application/pdf", 100));
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            for (final IndexingLanes.Lane lane: lanes[0].getLanes()) {
+                assertEquals(docs / 3, lane.latency.getCount());
+            }
+            assertEquals(docs, parsedPriority.size());
+            assertEquals(Thread.MAX_PRIORITY, (int) parsedPriority.get("http://example.org/doc0"));
+            assertEquals(Thread.NORM_PRIORITY, (int) parsedPriority.get("http://example.org/doc1"));
+            assertEquals(Thread.MIN_PRIORITY, (int) parsedPriority.get("http://example.org/doc2"));
+        } finally {
+            lanes[0].shutdown();
+            store.shutdown();
+        }
+    }
+}
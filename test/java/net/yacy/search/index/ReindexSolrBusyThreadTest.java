@@ -0,0 +1,206 @@
+// ReindexSolrBusyThreadTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.federate.solr.connector.AbstractSolrConnector;
+import net.yacy.cora.federate.solr.connector.EmbeddedSolrConnector;
+import net.yacy.cora.federate.solr.instance.EmbeddedInstance;
+import net.yacy.search.schema.CollectionConfiguration;
+import net.yacy.search.schema.CollectionSchema;
+import net.yacy.search.schema.WebgraphSchema;
+
+/**
+ * Unit tests for the {@link ReindexSolrBusyThread} with an embedded Solr.
+ */
+public class ReindexSolrBusyThreadTest {
+
+	/** a field which is not enabled in the default collection schema and is removed by the reindex */
+	private static final String OBSOLETE_FIELD = CollectionSchema.css_tag_sxt.getSolrFieldName();
+
+	private static EmbeddedInstance instance;
+	private static EmbeddedSolrConnector solr;
+	private static CollectionConfiguration configuration;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Map<String, Integer> reindexed = new ConcurrentHashMap<>();
+
+	@BeforeClass
+	public static void initTesting() throws IOException {
+		final File storage = new File("test/DATA/INDEX/reindex/SEGMENTS/text/solr/");
+		storage.mkdirs();
+		instance = new EmbeddedInstance(new File("defaults/solr"), storage, CollectionSchema.CORE_NAME, new String[]{CollectionSchema.CORE_NAME, WebgraphSchema.CORE_NAME});
+		solr = new EmbeddedSolrConnector(instance);
+		configuration = new CollectionConfiguration(new File("defaults/solr.collection.schema"), true);
+	}
+
+	@AfterClass
+	public static void finalizeTesting() {
+		instance.close();
+	}
+
+	@Before
+	public void clear() throws IOException {
+		solr.clear();
+		for (int i = 0; i < 250; i++) {
+			final DigestURL url = new DigestURL("http://example.org/page" + i);
+			final SolrInputDocument doc = new SolrInputDocument();
+			doc.setField(CollectionSchema.id.getSolrFieldName(), ASCII.String(url.hash()));
+			doc.setField(CollectionSchema.sku.getSolrFieldName(), url.toNormalform(true));
+			if (i % 5 != 0) doc.setField(OBSOLETE_FIELD, "style" + i);
+			solr.add(doc);
+		}
+		solr.commit(true);
+	}
+
+	/**
+	 * the reindexed documents are written to Solr and are counted; a commit after each chunk changes the result set
+	 */
+	private Consumer<SolrInputDocument> index() {
+		return doc -> {
+			try {
+				this.reindexed.merge((String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName()), 1, Integer::sum);
+				solr.add(doc);
+			} catch (final IOException e) {
+				throw new RuntimeException(e);
+			}
+		};
+	}
+
+	private ReindexSolrBusyThread reindex(final File checkpoint) {
+		final ReindexSolrBusyThread reidx = new ReindexSolrBusyThread(solr, configuration, index(), () -> 0, checkpoint, 4);
+		reidx.chunksize = 30;
+		return reidx;
+	}
+
+	private static long obsolete() throws IOException {
+		solr.commit(true);
+		return solr.getCountByQuery(OBSOLETE_FIELD + AbstractSolrConnector.CATCHALL_DTERM);
+	}
+
+	/**
+	 * Every selected document is reindexed exactly once, although the reindexed documents leave the result set.
+	 */
+	@Test
+	public void testReindex() throws IOException {
+		assertEquals(200, obsolete());
+		final ReindexSolrBusyThread reidx = reindex(null);
+		reidx.addSelectFieldname(OBSOLETE_FIELD);
+		int jobs = 0;
+		while (reidx.job()) {
+			solr.commit(true);
+			jobs++;
+		}
+		assertEquals(6, jobs); // 200 documents in chunks of 30, the last chunk finishes the query
+		assertEquals(200, this.reindexed.size());
+		for (final int count: this.reindexed.values()) assertEquals(1, count);
+		assertEquals(200, reidx.getProcessed());
+		assertEquals(0, obsolete());
+		assertEquals(250, solr.getCountByQuery("*:*"));
+		reidx.terminate(false);
+	}
+
+	/**
+	 * Documents which stay in the result set after the reindex are not read again.
+	 */
+	@Test
+	public void testCursor() throws IOException {
+		final ReindexSolrBusyThread reidx = reindex(null);
+		reidx.addSelectFieldname(CollectionSchema.sku.getSolrFieldName());
+		int jobs = 0;
+		while (reidx.job() && jobs < 100) {
+			solr.commit(true);
+			jobs++;
+		}
+		assertEquals(8, jobs);
+		assertEquals(250, this.reindexed.size());
+		for (final int count: this.reindexed.values()) assertEquals(1, count);
+		reidx.terminate(false);
+	}
+
+	/**
+	 * A reindex which is interrupted continues from the stored cursor.
+	 */
+	@Test
+	public void testResume() throws IOException {
+		final File checkpoint = new File(this.folder.getRoot(), "reindexSolr.checkpoint");
+		final ReindexSolrBusyThread first = reindex(checkpoint);
+		first.addSelectFieldname(OBSOLETE_FIELD);
+		first.addSelectQuery(CollectionSchema.sku.getSolrFieldName() + ":\"http://example.org/page5\""); // a document without the obsolete field
+		for (int i = 0; i < 3; i++) assertTrue(first.job());
+		assertTrue(checkpoint.exists());
+		final int processed = first.getProcessed();
+		assertTrue(processed > 0 && processed < 200);
+
+		final ReindexSolrBusyThread second = reindex(checkpoint);
+		assertEquals(first.getQueryList().size(), second.getQueryList().size());
+		first.terminate(false);
+		assertEquals(processed, second.getProcessed());
+		while (second.job()) solr.commit(true);
+		assertEquals(201, this.reindexed.size());
+		for (final int count: this.reindexed.values()) assertEquals(1, count);
+		assertEquals(0, obsolete());
+		assertFalse(checkpoint.exists());
+	}
+
+	/**
+	 * No documents are reindexed while the indexing queues are busy; a stopped reindex deletes its checkpoint.
+	 */
+	@Test
+	public void testThrottle() throws IOException {
+		final File checkpoint = new File(this.folder.getRoot(), "reindexSolr.checkpoint");
+		final int[] queue = new int[]{ReindexSolrBusyThread.MAX_INDEXING_QUEUE_SIZE};
+		final ReindexSolrBusyThread reidx = new ReindexSolrBusyThread(solr, configuration, index(), () -> queue[0], checkpoint, 2);
+		reidx.addSelectFieldname(OBSOLETE_FIELD);
+		assertFalse(reidx.job());
+		assertTrue(this.reindexed.isEmpty());
+		queue[0] = 0;
+		reidx.chunksize = 10;
+		assertTrue(reidx.job());
+		assertEquals(10, this.reindexed.size());
+		assertTrue(checkpoint.exists());
+		reidx.terminate(false);
+		assertFalse(checkpoint.exists());
+	}
+}
@@ -0,0 +1,211 @@
+// SignatureIndexTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.yacy.search.index.SignatureIndex.Cluster;
+import net.yacy.search.schema.CollectionConfiguration;
+import net.yacy.search.schema.CollectionSchema;
+
+/**
+ * Unit tests for the {@link SignatureIndex} of content signatures.
+ */
+public class SignatureIndexTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static String id(final int i, final String host) {
+		return String.format("%06d", i) + host;
+	}
+
+	/**
+	 * Documents with the same signature on the same host are counted in a cluster; the first valid document is unique.
+	 */
+	@Test
+	public void testClusters() throws IOException {
+		final SignatureIndex index = new SignatureIndex(new File(this.folder.getRoot(), "signature.index"));
+		try {
+			Cluster c = index.put(id(1, "host01"), SignatureIndex.EXACT, 42L, true);
+			assertEquals(1, c.count);
+			assertTrue(c.unique);
+			c = index.put(id(2, "host01"), SignatureIndex.EXACT, 42L, true);
+			assertEquals(2, c.count);
+			assertFalse(c.unique);
+			assertEquals(2, index.get(id(1, "host01"), SignatureIndex.EXACT).count);
+			assertTrue(index.get(id(1, "host01"), SignatureIndex.EXACT).unique);
+
+			// other hosts, kinds and signatures are other clusters
+			assertTrue(index.put(id(3, "host02"), SignatureIndex.EXACT, 42L, true).unique);
+			assertTrue(index.put(id(1, "host01"), SignatureIndex.FUZZY, 42L, true).unique);
+			assertEquals(1, index.put(id(4, "host01"), SignatureIndex.EXACT, 43L, true).count);
+
+			// an invalid document is counted for itself but not for the others
+			c = index.put(id(5, "host01"), SignatureIndex.EXACT, 42L, false);
+			assertEquals(3, c.count);
+			assertFalse(c.unique);
+			assertEquals(2, index.get(id(1, "host01"), SignatureIndex.EXACT).count);
+			c = index.put(id(6, "host01"), SignatureIndex.EXACT, 44L, false);
+			assertEquals(1, c.count);
+			assertTrue(c.unique);
+			assertNull(index.get(id(7, "host01"), SignatureIndex.EXACT));
+		} finally {
+			index.close();
+		}
+	}
+
+	/**
+	 * Documents which are stored again are not counted twice and leave their old cluster if the signature changed.
+	 */
+	@Test
+	public void testStoreAgain() throws IOException {
+		final File location = new File(this.folder.getRoot(), "signature.index");
+		SignatureIndex index = new SignatureIndex(location);
+		try {
+			index.put(id(1, "host01"), SignatureIndex.EXACT, 42L, true);
+			index.put(id(2, "host01"), SignatureIndex.EXACT, 42L, true);
+			index.put(id(3, "host01"), SignatureIndex.EXACT, 42L, true);
+			assertEquals(3, index.put(id(2, "host01"), SignatureIndex.EXACT, 42L, true).count);
+			assertTrue(index.put(id(1, "host01"), SignatureIndex.EXACT, 43L, true).unique);
+			// the first document left the cluster, one of the remaining documents becomes unique
+			assertEquals(2, index.get(id(2, "host01"), SignatureIndex.EXACT).count);
+			assertTrue(index.get(id(2, "host01"), SignatureIndex.EXACT).unique);
+			assertFalse(index.get(id(3, "host01"), SignatureIndex.EXACT).unique);
+			index.put(id(3, "host01"), SignatureIndex.EXACT, 42L, false);
+			assertEquals(1, index.get(id(2, "host01"), SignatureIndex.EXACT).count);
+			assertTrue(index.get(id(2, "host01"), SignatureIndex.EXACT).unique);
+			assertEquals(2, index.get(id(3, "host01"), SignatureIndex.EXACT).count);
+		} finally {
+			index.close();
+		}
+
+		// the index is persistent
+		index = new SignatureIndex(location);
+		try {
+			assertEquals(2, index.size());
+			assertEquals(1, index.get(id(2, "host01"), SignatureIndex.EXACT).count);
+			index.put(id(4, "host01"), SignatureIndex.EXACT, 42L, true);
+			index.put(id(5, "host01"), SignatureIndex.EXACT, 42L, true);
+			assertFalse(index.get(id(5, "host01"), SignatureIndex.EXACT).unique);
+			index.remove(id(2, "host01"));
+			index.remove(id(4, "host01"));
+			assertNull(index.get(id(2, "host01"), SignatureIndex.EXACT));
+			assertEquals(1, index.get(id(5, "host01"), SignatureIndex.EXACT).count);
+			assertTrue(index.get(id(5, "host01"), SignatureIndex.EXACT).unique);
+			index.remove(id(5, "host01"));
+			assertEquals(1, index.size());
+			assertEquals(1, index.get(id(3, "host01"), SignatureIndex.EXACT).count);
+			index.clear();
+			assertEquals(0, index.size());
+		} finally {
+			index.close();
+		}
+	}
+
+	/**
+	 * The configured unique flags of a stored document are set by the index.
+	 */
+	@Test
+	public void testStore() throws IOException {
+		final CollectionConfiguration configuration = new CollectionConfiguration(new File("defaults/solr.collection.schema"), true);
+		final SignatureIndex index = new SignatureIndex(new File(this.folder.getRoot(), "signature.index"));
+		try {
+			final SolrInputDocument[] docs = new SolrInputDocument[3];
+			for (int i = 0; i < docs.length; i++) {
+				docs[i] = new SolrInputDocument();
+				docs[i].setField(CollectionSchema.id.getSolrFieldName(), id(i, "host01"));
+				docs[i].setField(CollectionSchema.httpstatus_i.getSolrFieldName(), 200);
+				docs[i].setField(CollectionSchema.exact_signature_l.getSolrFieldName(), 42L);
+				docs[i].setField(CollectionSchema.exact_signature_unique_b.getSolrFieldName(), true);
+				docs[i].setField(CollectionSchema.fuzzy_signature_l.getSolrFieldName(), 7L + i);
+				docs[i].setField(CollectionSchema.fuzzy_signature_unique_b.getSolrFieldName(), true);
+			}
+			docs[2].setField(CollectionSchema.robots_i.getSolrFieldName(), 1 << 3); // noindex
+			assertFalse(SignatureIndex.isValid(docs[2]));
+			for (final SolrInputDocument doc: docs) index.store(configuration, doc);
+			assertEquals(Boolean.TRUE, docs[0].getFieldValue(CollectionSchema.exact_signature_unique_b.getSolrFieldName()));
+			assertEquals(Boolean.FALSE, docs[1].getFieldValue(CollectionSchema.exact_signature_unique_b.getSolrFieldName()));
+			assertEquals(Boolean.FALSE, docs[2].getFieldValue(CollectionSchema.exact_signature_unique_b.getSolrFieldName()));
+			assertEquals(Boolean.TRUE, docs[1].getFieldValue(CollectionSchema.fuzzy_signature_unique_b.getSolrFieldName()));
+			assertEquals(3, index.get(id(2, "host01"), SignatureIndex.EXACT).count);
+			assertEquals(2, index.get(id(0, "host01"), SignatureIndex.EXACT).count);
+		} finally {
+			index.close();
+		}
+	}
+
+	/**
+	 * The index is only used when a unique flag or a copy count of a signature is configured.
+	 */
+	@Test
+	public void testIsUsed() throws IOException {
+		final CollectionConfiguration configuration = new CollectionConfiguration(new File("defaults/solr.collection.schema"), true);
+		assertTrue(SignatureIndex.isUsed(configuration));
+		configuration.get(CollectionSchema.exact_signature_unique_b.getSolrFieldName()).setEnable(false);
+		assertTrue(SignatureIndex.isUsed(configuration));
+		configuration.get(CollectionSchema.fuzzy_signature_unique_b.getSolrFieldName()).setEnable(false);
+		assertFalse(SignatureIndex.isUsed(configuration));
+		configuration.get(CollectionSchema.fuzzy_signature_copycount_i.getSolrFieldName()).setEnable(true);
+		assertTrue(SignatureIndex.isUsed(configuration));
+		configuration.get(CollectionSchema.fuzzy_signature_l.getSolrFieldName()).setEnable(false);
+		assertFalse(SignatureIndex.isUsed(configuration));
+	}
+
+	/**
+	 * The index with the keys in files finds the clusters again after it is reopened.
+	 */
+	@Test
+	public void testDiskIndex() throws IOException {
+		final File location = new File(this.folder.getRoot(), "signature.index");
+		SignatureIndex index = new SignatureIndex(location, true);
+		try {
+			index.put(id(1, "host01"), SignatureIndex.EXACT, 42L, true);
+			index.put(id(2, "host01"), SignatureIndex.EXACT, 42L, true);
+			assertEquals(2, index.get(id(1, "host01"), SignatureIndex.EXACT).count);
+		} finally {
+			index.close();
+		}
+		assertTrue(new File(this.folder.getRoot(), "signature.index.clusters.idx").exists());
+
+		index = new SignatureIndex(location, true);
+		try {
+			assertEquals(2, index.get(id(2, "host01"), SignatureIndex.EXACT).count);
+			assertTrue(index.get(id(1, "host01"), SignatureIndex.EXACT).unique);
+			assertFalse(index.put(id(3, "host01"), SignatureIndex.EXACT, 42L, true).unique);
+		} finally {
+			index.close();
+		}
+	}
+}
@@ -0,0 +1,207 @@
+// SolrBatchWriterTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.yacy.cora.federate.solr.connector.EmbeddedSolrConnector;
+import net.yacy.cora.federate.solr.instance.EmbeddedInstance;
+import net.yacy.search.schema.CollectionSchema;
+import net.yacy.search.schema.WebgraphSchema;
+
+/**
+ * Unit tests for the {@link SolrBatchWriter} with an embedded Solr.
+ */
+public class SolrBatchWriterTest {
+
+	private static EmbeddedInstance instance;
+	private static EmbeddedSolrConnector solr;
+
+	@BeforeClass
+	public static void initTesting() throws IOException {
+		final File storage = new File("test/DATA/INDEX/batch/SEGMENTS/text/solr/");
+		storage.mkdirs();
+		instance = new EmbeddedInstance(new File("defaults/solr"), storage, CollectionSchema.CORE_NAME, new String[]{CollectionSchema.CORE_NAME, WebgraphSchema.CORE_NAME});
+		solr = new EmbeddedSolrConnector(instance);
+	}
+
+	@AfterClass
+	public static void finalizeTesting() {
+		instance.close();
+	}
+
+	@Before
+	public void clear() throws IOException {
+		solr.clear();
+	}
+
+	private static SolrInputDocument doc(final int i) {
+		final SolrInputDocument doc = new SolrInputDocument();
+		doc.setField(CollectionSchema.id.getSolrFieldName(), "id" + i);
+		doc.setField(CollectionSchema.sku.getSolrFieldName(), "http://example.org/" + i);
+		return doc;
+	}
+
+	private static long count() throws IOException {
+		solr.commit(true);
+		return solr.getCountByQuery("*:*");
+	}
+
+	/**
+	 * Full batches must be written by the thread which fills them; documents of the current batch must be pending.
+	 */
+	@Test
+	public void testBatches() throws IOException {
+		final SolrBatchWriter writer = new SolrBatchWriter(() -> solr, () -> null, 100, 60000);
+		try {
+			for (int i = 0; i < 250; i++) writer.putDocument(doc(i));
+			assertEquals(2, writer.getBatchCount());
+			assertEquals(200, writer.getDocumentCount());
+			assertEquals(200, count());
+			assertEquals(50, writer.size());
+			assertNull(writer.getPending("id199"));
+			assertEquals("http://example.org/249", writer.getPending("id249").getFieldValue(CollectionSchema.sku.getSolrFieldName()));
+
+			writer.putEdges(Collections.singletonList(doc(1000))); // no webgraph: edges are dropped
+			writer.flush();
+			assertEquals(0, writer.size());
+			assertNull(writer.getPending("id249"));
+			assertEquals(250, count());
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * A batch which is not full must be written after the delay.
+	 */
+	@Test
+	public void testDelay() throws IOException, InterruptedException {
+		final SolrBatchWriter writer = new SolrBatchWriter(() -> solr, () -> null, 100, 50);
+		try {
+			writer.putDocument(doc(1));
+			for (int i = 0; i < 100 && writer.getBatchCount() == 0; i++) Thread.sleep(50);
+			assertEquals(1, writer.getBatchCount());
+			assertNull(writer.getPending("id1"));
+			assertEquals(1, count());
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * The latest complete version of a document must be pending; partial updates are applied to a copy
+	 * of the pending document and are written after the document.
+	 */
+	@Test
+	public void testPending() throws IOException {
+		final SolrBatchWriter writer = new SolrBatchWriter(() -> solr, () -> null, 100, 60000);
+		try {
+			final SolrInputDocument first = doc(1), second = doc(1);
+			writer.putDocument(first);
+			writer.putDocument(second);
+			assertSame(second, writer.getPending("id1"));
+			final SolrInputDocument update = new SolrInputDocument();
+			update.setField(CollectionSchema.id.getSolrFieldName(), "id1");
+			update.setField(CollectionSchema.title.getSolrFieldName(), Collections.singletonMap("set", "updated"));
+			writer.putDocument(update);
+			final SolrInputDocument updated = writer.getPending("id1");
+			assertEquals("updated", updated.getFieldValue(CollectionSchema.title.getSolrFieldName()));
+			assertEquals("http://example.org/1", updated.getFieldValue(CollectionSchema.sku.getSolrFieldName()));
+			assertNull(second.getFieldValue(CollectionSchema.title.getSolrFieldName()));
+			assertFalse(writer.isChanging("id1"));
+			writer.close();
+			assertNull(writer.getPending("id1"));
+			assertEquals(1, count());
+			assertEquals(1, solr.getCountByQuery(CollectionSchema.title.getSolrFieldName() + ":updated"));
+
+			// after closing, documents are written at once
+			writer.putDocument(doc(2));
+			assertNull(writer.getPending("id2"));
+			assertEquals(2, count());
+			assertNotNull(solr.getDocumentById("id2"));
+			assertTrue(writer.getDocumentsPerSecond() > 0);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * A partial update of a document which is only in Solr marks the document as changing until the batch is written.
+	 */
+	@Test
+	public void testChanging() throws IOException {
+		solr.add(doc(1));
+		final SolrBatchWriter writer = new SolrBatchWriter(() -> solr, () -> null, 100, 60000);
+		try {
+			final SolrInputDocument update = new SolrInputDocument();
+			update.setField(CollectionSchema.id.getSolrFieldName(), "id1");
+			update.setField(CollectionSchema.title.getSolrFieldName(), Collections.singletonMap("set", "updated"));
+			writer.putDocument(update);
+			assertTrue(writer.isChanging("id1"));
+			assertNull(writer.getPending("id1"));
+			writer.flush();
+			assertFalse(writer.isChanging("id1"));
+			solr.commit(true);
+			assertEquals(1, solr.getCountByQuery(CollectionSchema.title.getSolrFieldName() + ":updated"));
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * A failed batch is written one by one and the documents which can not be written are counted.
+	 */
+	@Test
+	public void testFailed() throws IOException {
+		final SolrBatchWriter writer = new SolrBatchWriter(() -> solr, () -> null, 100, 60000);
+		try {
+			final SolrInputDocument bad = doc(2);
+			bad.setField(CollectionSchema.httpstatus_i.getSolrFieldName(), "not a number");
+			writer.putDocument(doc(1));
+			writer.putDocument(bad);
+			writer.putDocument(doc(3));
+			writer.flush();
+			assertEquals(1, writer.getFailedBatchCount());
+			assertEquals(1, writer.getFailedDocumentCount());
+			assertEquals(2, count());
+		} finally {
+			writer.close();
+		}
+	}
+}
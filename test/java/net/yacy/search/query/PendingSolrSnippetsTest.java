@@ -0,0 +1,120 @@
+// PendingSolrSnippetsTest.java
+// -------------------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link PendingSolrSnippets} class.
+ */
+public class PendingSolrSnippetsTest {
+
+	private Map<String, LinkedHashSet<String>> snippets;
+	private Map<String, String> attached;
+	private PendingSolrSnippets<String> pending;
+
+	@Before
+	public void setUp() {
+		this.snippets = new ConcurrentHashMap<>();
+		this.attached = new HashMap<>();
+		this.pending = new PendingSolrSnippets<>(this.snippets, (result, lines) -> this.attached.put(result, lines.iterator().next()));
+	}
+
+	private static Map<String, LinkedHashSet<String>> lines(final String... hashes) {
+		final Map<String, LinkedHashSet<String>> m = new HashMap<>();
+		for (final String hash: hashes) m.put(hash, new LinkedHashSet<>(Arrays.asList("snippet of " + hash)));
+		return m;
+	}
+
+	/**
+	 * Results taken before the end of the response get their snippet attached, the others find it in the snippets map,
+	 * whatever the order of the results and of the end of the response.
+	 */
+	@Test
+	public void testMergeOrder() {
+		final List<String> response = Arrays.asList("AAAAAAAAAAAA", "BBBBBBBBBBBB", "CCCCCCCCCCCC");
+		this.pending.expect(response);
+		assertTrue(this.pending.isPending("AAAAAAAAAAAA"));
+		assertFalse(this.pending.isPending("DDDDDDDDDDDD"));
+
+		// A is emitted before the end of the response, B and C after
+		assertNull(this.pending.emitted("AAAAAAAAAAAA", "result A"));
+		assertEquals(1, this.pending.waiting());
+		this.pending.arrived(lines("AAAAAAAAAAAA", "BBBBBBBBBBBB", "CCCCCCCCCCCC"), response);
+
+		assertEquals("snippet of AAAAAAAAAAAA", this.attached.get("result A"));
+		assertEquals(1, this.attached.size());
+		assertEquals(0, this.pending.waiting());
+		assertFalse(this.snippets.containsKey("AAAAAAAAAAAA"));
+		assertTrue(this.snippets.containsKey("BBBBBBBBBBBB"));
+		assertTrue(this.snippets.containsKey("CCCCCCCCCCCC"));
+		assertFalse(this.pending.isPending("BBBBBBBBBBBB"));
+	}
+
+	/**
+	 * A snippet arriving between the check of a result and its emission is returned to the emitter.
+	 */
+	@Test
+	public void testLateSnippet() {
+		final List<String> response = Arrays.asList("AAAAAAAAAAAA");
+		this.pending.expect(response);
+		assertTrue(this.pending.isPending("AAAAAAAAAAAA"));
+		this.pending.arrived(lines("AAAAAAAAAAAA"), response);
+		assertEquals("[snippet of AAAAAAAAAAAA]", String.valueOf(this.pending.emitted("AAAAAAAAAAAA", "result A")));
+		assertEquals(0, this.pending.waiting());
+		assertTrue(this.attached.isEmpty());
+		assertTrue(this.snippets.isEmpty());
+	}
+
+	/**
+	 * A response closed without its end releases its emitted results; a result of another response still waits.
+	 */
+	@Test
+	public void testCloseWithoutFinish() {
+		final List<String> first = Arrays.asList("AAAAAAAAAAAA");
+		final List<String> second = Arrays.asList("BBBBBBBBBBBB");
+		this.pending.expect(first);
+		this.pending.expect(second);
+		this.pending.emitted("AAAAAAAAAAAA", "result A");
+		this.pending.emitted("BBBBBBBBBBBB", "result B");
+		assertEquals(2, this.pending.waiting());
+
+		this.pending.released(first);
+		assertEquals(1, this.pending.waiting());
+		assertFalse(this.pending.isPending("AAAAAAAAAAAA"));
+		assertTrue(this.pending.isPending("BBBBBBBBBBBB"));
+
+		this.pending.arrived(lines("BBBBBBBBBBBB"), second);
+		assertEquals("snippet of BBBBBBBBBBBB", this.attached.get("result B"));
+		assertFalse(this.attached.containsKey("result A"));
+	}
+}
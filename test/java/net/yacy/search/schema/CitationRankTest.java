@@ -0,0 +1,317 @@
+// CitationRankTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search.schema;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.search.schema.CitationRank.CRV;
+import net.yacy.search.schema.CitationRank.HostGraph;
+
+/**
+ * Unit tests for the {@link CitationRank} computation on host graphs.
+ */
+public class CitationRankTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static String id(final int i) {
+		return String.format("%06dhost00", i);
+	}
+
+	/**
+	 * a random graph of a host: links[i] are the referrers of document i
+	 */
+	private static List<List<Integer>> links(final int size, final long seed) {
+		final Random random = new Random(seed);
+		final List<List<Integer>> links = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			final List<Integer> l = new ArrayList<>();
+			for (int j = random.nextInt(size / 2 + 1); j > 0; j--) {
+				final int r = random.nextInt(size);
+				if (!l.contains(r)) l.add(r);
+			}
+			Collections.sort(l);
+			links.add(l);
+		}
+		return links;
+	}
+
+	private static int[] outlinks(final List<List<Integer>> links) {
+		final int[] out = new int[links.size()];
+		for (final List<Integer> l: links) for (final int r: l) out[r]++;
+		return out;
+	}
+
+	private static HostGraph graph(final String host, final List<List<Integer>> links, final int[] crn) throws IOException {
+		final int[] out = outlinks(links);
+		final HostGraph g = new HostGraph(host);
+		for (int i = 0; i < links.size(); i++) g.add(id(i), out[i], crn == null ? -1 : links.size(), crn == null ? -1 : crn[i]);
+		return g.link(id -> {
+			final List<byte[]> r = new ArrayList<>();
+			for (final int j: links.get(Integer.parseInt(id.substring(0, 6)))) r.add(ASCII.getBytes(id(j)));
+			r.add(ASCII.getBytes("AAAAAAother")); // a referrer which is not a document of the host
+			return r;
+		});
+	}
+
+	/**
+	 * the citation rank as computed by the convergence steps on maps
+	 */
+	private static double[] referenceIterate(final List<List<Integer>> links) {
+		final int n = links.size();
+		final int[] out = outlinks(links);
+		final Map<Integer, double[]> crt = new HashMap<>();
+		for (int i = 0; i < n; i++) crt.put(i, new double[]{1.0d / n, 0.0d});
+		final double df = (1.0d - CitationRank.DAMPING) / n;
+		for (int step = 0; step < CitationRank.MAX_STEPS; step++) {
+			boolean convergence = true;
+			for (int i = 0; i < n; i++) {
+				double ncr = 0.0d;
+				for (final int j: links.get(i)) if (out[j] > 0) ncr += crt.get(j)[0] / out[j];
+				ncr = df + CitationRank.DAMPING * ncr;
+				if (((int) (ncr * 1000000)) != ((int) (crt.get(i)[0] * 1000000))) convergence = false;
+				crt.get(i)[1] = ncr;
+			}
+			for (final double[] d: crt.values()) d[0] = d[1];
+			if (convergence) break;
+		}
+		final double[] cr = new double[n];
+		for (int i = 0; i < n; i++) cr[i] = crt.get(i)[0];
+		return cr;
+	}
+
+	/**
+	 * the normalized rank as computed on a sorted map
+	 */
+	private static int[] referenceNormalize(final double[] cr) {
+		final TreeMap<Double, List<Integer>> reorder = new TreeMap<>();
+		for (int i = 0; i < cr.length; i++) reorder.computeIfAbsent(cr[i], k -> new ArrayList<>()).add(i);
+		int nextcount = (cr.length + 1) / 2;
+		int nextcrn = 0;
+		final int[] crn = new int[cr.length];
+		while (reorder.size() > 0) {
+			int count = nextcount;
+			while (reorder.size() > 0 && count > 0) {
+				final List<Integer> ids = reorder.pollFirstEntry().getValue();
+				count -= ids.size();
+				for (final int i: ids) crn[i] = nextcrn;
+			}
+			nextcrn++;
+			nextcount = Math.max(1, (nextcount + count + 1) / 2);
+		}
+		for (int i = 0; i < crn.length; i++) crn[i] += 11 - nextcrn;
+		return crn;
+	}
+
+	/**
+	 * The iteration on the compact graph must compute the same ranks as the convergence steps on maps.
+	 */
+	@Test
+	public void testIterate() throws IOException {
+		for (int seed = 0; seed < 20; seed++) {
+			final List<List<Integer>> links = links(1 + seed * 7, seed);
+			final HostGraph g = graph("example.org", links, null);
+			final double[] cr = g.iterate(CitationRank.DAMPING, CitationRank.CONVERGE_DIGITS, CitationRank.MAX_STEPS);
+			assertArrayEquals(referenceIterate(links), cr, 1e-12);
+			assertArrayEquals(referenceNormalize(cr), g.normalize(cr));
+		}
+	}
+
+	/**
+	 * Documents are divided into classes of half size, documents with the same rank are in the same class.
+	 */
+	@Test
+	public void testNormalize() {
+		final HostGraph g = new HostGraph("example.org");
+		for (int i = 0; i < 4; i++) g.add(id(i), 0, -1, -1);
+		assertArrayEquals(new int[]{8, 8, 9, 10}, g.normalize(new double[]{0.1, 0.2, 0.3, 0.4}));
+		assertArrayEquals(new int[]{10, 9, 9, 9}, g.normalize(new double[]{0.4, 0.2, 0.2, 0.2}));
+		final double[] cr = new double[]{0.3, 0.1, 0.1, 0.2, 0.5, 0.1, 0.2, 0.4};
+		final HostGraph h = new HostGraph("example.org");
+		for (int i = 0; i < cr.length; i++) h.add(id(i), 0, -1, -1);
+		assertArrayEquals(referenceNormalize(cr), h.normalize(cr));
+	}
+
+	/**
+	 * A host is only computed again if its graph changed or if documents have no rank,
+	 * and only documents with a different rank are marked as changed.
+	 */
+	@Test
+	public void testIncremental() throws IOException {
+		final File file = new File(this.folder.getRoot(), "citation.rank");
+		final List<List<Integer>> links = links(50, 42);
+		CitationRank rank = new CitationRank(file);
+		Map<String, CRV> rankings = new HashMap<>();
+		rank.rank(graph("example.org", links, null), rankings);
+		assertEquals(50, rankings.size());
+		for (final CRV crv: rankings.values()) assertTrue(crv.changed);
+		final int[] crn = new int[50];
+		for (int i = 0; i < 50; i++) crn[i] = rankings.get(id(i)).crn;
+		rank.commit();
+		assertTrue(file.exists());
+
+		// an unchanged host with ranks in the index is not computed
+		rank = new CitationRank(file);
+		rankings.clear();
+		rank.rank(graph("example.org", links, crn), rankings);
+		assertEquals(0, rankings.size());
+		assertEquals(1, rank.getSkippedCount());
+
+		// an unchanged host without ranks in the index is computed
+		rank.rank(graph("example.org", links, null), rankings);
+		assertEquals(50, rankings.size());
+
+		// a new link changes the graph; only some ranks change
+		final List<List<Integer>> changed = links(50, 42);
+		for (int i = 0; i < 10; i++) if (!changed.get(7).contains(i)) changed.get(7).add(i);
+		final HostGraph g = graph("example.org", changed, crn);
+		assertNotEquals(graph("example.org", links, crn).fingerprint, g.fingerprint);
+		rankings = new HashMap<>();
+		rank.rank(g, rankings);
+		assertEquals(50, rankings.size());
+		int c = 0;
+		for (int i = 0; i < 50; i++) {
+			final CRV crv = rankings.get(id(i));
+			assertEquals(crv.crn != crn[i], crv.changed);
+			if (crv.changed) c++;
+		}
+		assertTrue(c > 0 && c < 50);
+		assertEquals(c, rank.getChangedCount() - 50);
+	}
+
+	/**
+	 * The fingerprint of a host is not stored when its graph is truncated or when its ranks could not be written.
+	 */
+	@Test
+	public void testIncomplete() throws IOException {
+		final File file = new File(this.folder.getRoot(), "citation.rank");
+		final List<List<Integer>> links = links(20, 7);
+		CitationRank rank = new CitationRank(file);
+		final Map<String, CRV> rankings = new HashMap<>();
+		final HostGraph truncated = graph("example.org", links, null);
+		truncated.truncated = true;
+		rank.rank(truncated, new HashMap<>());
+		rank.rank(graph("example.com", links, null), new HashMap<>());
+		rank.rank(graph("example.net", links, null), rankings);
+		assertEquals(20, rankings.size());
+		final int[] crn = new int[20];
+		for (int i = 0; i < 20; i++) crn[i] = rankings.get(id(i)).crn;
+		rank.failed("example.com");
+		rank.commit();
+
+		rank = new CitationRank(file);
+		rank.rank(graph("example.org", links, crn), new HashMap<>());
+		rank.rank(graph("example.net", links, crn), new HashMap<>());
+		rank.rank(graph("example.com", links, crn), new HashMap<>());
+		assertEquals(1, rank.getSkippedCount());
+	}
+
+	/**
+	 * A host with the marker of its last computation is skipped before its graph is loaded;
+	 * a changed marker, unranked documents or a failed write make the host load again.
+	 */
+	@Test
+	public void testMarker() throws IOException {
+		final File file = new File(this.folder.getRoot(), "citation.rank");
+		final List<List<Integer>> links = links(20, 3);
+		CitationRank rank = new CitationRank(file);
+		for (final String host: new String[]{"example.org", "example.com"}) {
+			final HostGraph g = graph(host, links, null);
+			g.marker = "20,1000";
+			rank.rank(g, new HashMap<>());
+		}
+		rank.failed("example.com");
+		rank.commit();
+
+		rank = new CitationRank(file);
+		assertTrue(rank.unchanged("example.org", "20,1000"));
+		assertFalse(rank.unchanged("example.org", "21,1000"));
+		assertFalse(rank.unchanged("example.org", "20,2000"));
+		assertFalse(rank.unchanged("example.org", null));
+		assertFalse(rank.unchanged("example.com", "20,1000"));
+		assertEquals(1, rank.getSkippedCount());
+		assertEquals(1, rank.getHostCount());
+
+		// a host computed again without a marker loses its old marker
+		rank.rank(graph("example.org", links, null), new HashMap<>());
+		rank.commit();
+		assertFalse(new CitationRank(file).unchanged("example.org", "20,1000"));
+	}
+
+	/**
+	 * The fingerprint does not depend on the order in which the documents are added.
+	 */
+	@Test
+	public void testFingerprint() throws IOException {
+		final List<List<Integer>> links = links(30, 1);
+		final int[] out = outlinks(links);
+		final HostGraph g = new HostGraph("example.org");
+		for (int i = 29; i >= 0; i--) g.add(id(i), out[i], -1, -1);
+		g.link(id -> {
+			final List<byte[]> r = new ArrayList<>();
+			for (final int j: links.get(Integer.parseInt(id.substring(0, 6)))) r.add(ASCII.getBytes(id(j)));
+			return r;
+		});
+		assertEquals(graph("example.org", links, null).fingerprint, g.fingerprint);
+	}
+
+	/**
+	 * The fork/join tasks must work on every host exactly once.
+	 */
+	@Test
+	public void testHostTask() {
+		final List<String> hosts = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) hosts.add("host" + i + ".org");
+		final Map<String, Integer> done = new ConcurrentHashMap<>();
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			pool.invoke(new CitationRank.HostTask(hosts, 0, hosts.size(), host -> done.merge(host, 1, Integer::sum)));
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(1000, done.size());
+		for (final int count: done.values()) assertEquals(1, count);
+	}
+}
@@ -0,0 +1,195 @@
+// CollectionConfigurationTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search.schema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.yacy.cora.federate.solr.ProcessType;
+import net.yacy.cora.federate.solr.connector.EmbeddedSolrConnector;
+import net.yacy.cora.federate.solr.instance.EmbeddedInstance;
+import net.yacy.cora.util.ConcurrentLog;
+
+/**
+ * Unit tests for the writing of postprocessed documents of the {@link CollectionConfiguration}.
+ */
+public class CollectionConfigurationTest {
+
+	private static EmbeddedInstance instance;
+	private static EmbeddedSolrConnector solr;
+
+	@BeforeClass
+	public static void initTesting() throws IOException {
+		final File storage = new File("test/DATA/INDEX/postprocessing/SEGMENTS/text/solr/");
+		storage.mkdirs();
+		instance = new EmbeddedInstance(new File("defaults/solr"), storage, CollectionSchema.CORE_NAME, new String[]{CollectionSchema.CORE_NAME, WebgraphSchema.CORE_NAME});
+		solr = new EmbeddedSolrConnector(instance);
+	}
+
+	@AfterClass
+	public static void finalizeTesting() {
+		instance.close();
+	}
+
+	@Before
+	public void clear() throws IOException {
+		solr.clear();
+	}
+
+	private static SolrInputDocument doc(final int i, final String text) {
+		final SolrInputDocument doc = new SolrInputDocument();
+		doc.setField(CollectionSchema.id.getSolrFieldName(), String.format("%06dhost00", i));
+		doc.setField(CollectionSchema.sku.getSolrFieldName(), "http://example.org/" + i);
+		doc.setField(CollectionSchema.text_t.getSolrFieldName(), text);
+		doc.setField(CollectionSchema.references_i.getSolrFieldName(), 1);
+		doc.setField(CollectionSchema.http_unique_b.getSolrFieldName(), true);
+		doc.addField(CollectionSchema.process_sxt.getSolrFieldName(), ProcessType.CITATION.name());
+		doc.addField(CollectionSchema.process_sxt.getSolrFieldName(), ProcessType.UNIQUE.name());
+		return doc;
+	}
+
+	/**
+	 * the partial update of a postprocessed document: the references are changed and the process tags are removed
+	 */
+	private static SolrInputDocument update(final int i, final int references) {
+		final SolrInputDocument sid = new SolrInputDocument();
+		sid.setField(CollectionSchema.id.getSolrFieldName(), String.format("%06dhost00", i));
+		sid.setField(CollectionSchema.references_i.getSolrFieldName(), references);
+		sid.setField(CollectionSchema.process_sxt.getSolrFieldName(), null);
+		return sid;
+	}
+
+	/**
+	 * Fields with unchanged values must be removed from a partial update; numbers of different types are compared by value.
+	 */
+	@Test
+	public void testRemoveUnchanged() {
+		final SolrDocument doc = new SolrDocument();
+		doc.setField(CollectionSchema.id.getSolrFieldName(), "000001host00");
+		doc.setField(CollectionSchema.exact_signature_copycount_i.getSolrFieldName(), 3);
+		doc.setField(CollectionSchema.http_unique_b.getSolrFieldName(), true);
+		doc.setField(CollectionSchema.cr_host_chance_d.getSolrFieldName(), 0.5d);
+		doc.setField(CollectionSchema.references_i.getSolrFieldName(), 7);
+		final SolrInputDocument sid = new SolrInputDocument();
+		sid.setField(CollectionSchema.id.getSolrFieldName(), "000001host00");
+		sid.setField(CollectionSchema.exact_signature_copycount_i.getSolrFieldName(), 3L);
+		sid.setField(CollectionSchema.http_unique_b.getSolrFieldName(), false);
+		sid.setField(CollectionSchema.cr_host_chance_d.getSolrFieldName(), 0.5d);
+		sid.setField(CollectionSchema.references_i.getSolrFieldName(), 8);
+		sid.setField(CollectionSchema.host_extent_i.getSolrFieldName(), 2);
+		CollectionConfiguration.removeUnchanged(doc, sid);
+		final Collection<String> names = new HashSet<>(sid.getFieldNames());
+		assertEquals(4, names.size());
+		assertTrue(names.contains(CollectionSchema.id.getSolrFieldName()));
+		assertTrue(names.contains(CollectionSchema.http_unique_b.getSolrFieldName()));
+		assertTrue(names.contains(CollectionSchema.references_i.getSolrFieldName()));
+		assertTrue(names.contains(CollectionSchema.host_extent_i.getSolrFieldName()));
+	}
+
+	/**
+	 * Partial updates must be written in one batch and must keep all fields which are not updated.
+	 */
+	@Test
+	public void testWritePartialUpdates() throws IOException {
+		for (int i = 0; i < 10; i++) solr.add(doc(i, "some text " + i));
+		solr.commit(true);
+		final List<SolrInputDocument> batch = new ArrayList<>();
+		for (int i = 0; i < 10; i++) batch.add(update(i, i + 10));
+		final Collection<String> failids = new HashSet<>();
+		CollectionConfiguration.writePostprocessed(solr, batch, true, failids);
+		assertTrue(batch.isEmpty());
+		assertTrue(failids.isEmpty());
+		solr.commit(true);
+		assertEquals(0, solr.getCountByQuery(CollectionSchema.process_sxt.getSolrFieldName() + ":[* TO *]"));
+		for (int i = 0; i < 10; i++) {
+			final SolrDocument doc = solr.getDocumentById(String.format("%06dhost00", i));
+			assertEquals(i + 10, ((Integer) doc.getFieldValue(CollectionSchema.references_i.getSolrFieldName())).intValue());
+			assertEquals("some text " + i, doc.getFieldValue(CollectionSchema.text_t.getSolrFieldName()));
+			assertEquals(Boolean.TRUE, doc.getFieldValue(CollectionSchema.http_unique_b.getSolrFieldName()));
+			assertNull(doc.getFieldValue(CollectionSchema.process_sxt.getSolrFieldName()));
+		}
+		assertEquals(1, solr.getCountByQuery(CollectionSchema.text_t.getSolrFieldName() + ":\"text 3\""));
+	}
+
+	/**
+	 * Measure the rate of postprocessed documents which are read and written as full documents or as partial updates,
+	 * written one by one and in batches.
+	 */
+	public static void main(final String[] args) throws IOException {
+		final int count = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 1000; i++) text.append("word").append(i % 317).append(' ');
+		initTesting();
+		try {
+			for (int round = 0; round < 2; round++) {
+				for (int mode = 0; mode < 4; mode++) {
+					solr.clear();
+					for (int i = 0; i < count; i++) solr.add(doc(i, text.toString()));
+					solr.commit(true);
+					final boolean partial = mode >= 2, batched = mode % 2 == 1;
+					final List<SolrInputDocument> batch = new ArrayList<>();
+					final long start = System.currentTimeMillis();
+					for (int i = 0; i < count; i++) {
+						final String id = String.format("%06dhost00", i);
+						final SolrInputDocument sid;
+						if (partial) {
+							final SolrDocument doc = solr.getDocumentById(id, CollectionSchema.id.getSolrFieldName(), CollectionSchema.references_i.getSolrFieldName(), CollectionSchema.process_sxt.getSolrFieldName());
+							sid = update(i, 2);
+							CollectionConfiguration.removeUnchanged(doc, sid);
+						} else {
+							final SolrDocument doc = solr.getDocumentById(id);
+							sid = new SolrInputDocument();
+							for (final String name: doc.getFieldNames()) if (!name.equals("_version_")) sid.setField(name, doc.getFieldValue(name));
+							sid.setField(CollectionSchema.references_i.getSolrFieldName(), 2);
+							sid.removeField(CollectionSchema.process_sxt.getSolrFieldName());
+						}
+						batch.add(sid);
+						if (!batched || batch.size() >= 100) CollectionConfiguration.writePostprocessed(solr, batch, partial, new HashSet<String>());
+					}
+					CollectionConfiguration.writePostprocessed(solr, batch, partial, new HashSet<String>());
+					solr.commit(true);
+					final long time = Math.max(1, System.currentTimeMillis() - start);
+					System.out.println((partial ? "partial updates" : "full documents") + (batched ? " in batches" : " one by one") + ": " + (count * 1000L / time) + " documents/second");
+				}
+			}
+		} finally {
+			finalizeTesting();
+			ConcurrentLog.shutdown();
+		}
+	}
+}
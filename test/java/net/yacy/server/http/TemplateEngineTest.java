@@ -0,0 +1,188 @@
+// TemplateEngineTest.java
+// ---------------------------
+// Copyright 2026 by the YaCy contributors; https://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.server.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.yacy.kelondro.util.FileUtils;
+import net.yacy.server.serverObjects;
+
+/**
+ * Unit tests for the {@link TemplateEngine} and its {@link CompiledTemplate}s.
+ */
+public class TemplateEngineTest {
+
+	private static final File DIR = new File("test/DATA/templates");
+
+	@Before
+	public void setUp() {
+		FileUtils.deletedelete(DIR);
+		DIR.mkdirs();
+		CompiledTemplate.clear();
+	}
+
+	@After
+	public void tearDown() {
+		CompiledTemplate.clear();
+		FileUtils.deletedelete(DIR);
+	}
+
+	private static byte[] legacy(final byte[] template, final serverObjects pattern, final File includeRoot) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TemplateEngine.writeTemplate("test", new ByteArrayInputStream(template), out, pattern, includeRoot);
+		return out.toByteArray();
+	}
+
+	private static byte[] compiled(final File file, final serverObjects pattern, final File includeRoot) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TemplateEngine.writeTemplate("test", file, out, pattern, includeRoot);
+		return out.toByteArray();
+	}
+
+	private static void assertSameOutput(final File file, final serverObjects pattern, final File includeRoot) throws IOException {
+		assertArrayEquals(file.getName(), legacy(Files.readAllBytes(file.toPath()), pattern, includeRoot), compiled(file, pattern, includeRoot));
+	}
+
+	/**
+	 * a pattern with values for all keys found in the template, also with keys of nested levels
+	 */
+	private static serverObjects pattern(final byte[] template, final Random random) {
+		final serverObjects pattern = new serverObjects();
+		final Matcher m = Pattern.compile("#([\\[({])([A-Za-z0-9_\\-]+)(\\|.)?[\\])}]#").matcher(new String(template, StandardCharsets.UTF_8));
+		while (m.find()) {
+			final String key = m.group(2);
+			for (final String prefix : new String[]{"", "a_", "a_0_", "a_1_", "l_0_", "l_1_", "l_2_"}) {
+				if ("{".equals(m.group(1))) {
+					pattern.put(prefix + key, Integer.toString(random.nextInt(4)));
+				} else if ("(".equals(m.group(1))) {
+					pattern.put(prefix + key, new String[]{"0", "1", "2", "5", "-1", "true", "false"}[random.nextInt(7)]);
+				} else if (random.nextInt(5) > 0) {
+					pattern.put(prefix + key, "v" + random.nextInt(100) + "ä");
+				}
+			}
+		}
+		return pattern;
+	}
+
+	/**
+	 * Compiled templates must write the same output as the template engine, also for malformed templates.
+	 */
+	@Test
+	public void testCompiledOutput() throws IOException {
+		Files.write(new File(DIR, "inc.template").toPath(), "i#[v]#\r\nj\n#(a)#x::y#(/a)#".getBytes(StandardCharsets.UTF_8));
+		final String[] templates = new String[]{
+				"plain text",
+				"a #[v]# b #[w]# c",
+				"x#{l}#[#[x]#]#{/l}#",
+				"x#{l}#\ny#[v]#\n#{/l}#\nz",
+				"x#{l|,}#y#[v]#\r\n#{/l}#z",
+				"x#{l|,}#y#{/l}#",
+				"#{l|,}#",
+				"end#",
+				"a##[x]#b #x# #",
+				"#(a)#zero::one::two#(/a)#",
+				"#(a)#zero::#(b)#n0::n1#(/b)#::two#(/a)# tail",
+				"#(a)#ze:ro::o:ne#(/a)#",
+				"#(a)#zero::one#(x)#a::b#(/x)#::two#(/a)#",
+				"#(a)#::one#(/a)##(a)#zero::#(/a)#",
+				"#{l}##(a)#0::#[x]#::2#(/a)##{/l}#",
+				"pre #%inc.template%# post",
+				"pre #%[f]%# #%missing.template%# post",
+				"#[unclosed",
+				"#{l}#unclosed",
+				"äöü #[kä]# end"
+		};
+		final Random random = new Random(0);
+		for (int t = 0; t < templates.length; t++) {
+			final File file = new File(DIR, "t" + t + ".html");
+			final byte[] template = templates[t].getBytes(StandardCharsets.UTF_8);
+			Files.write(file.toPath(), template);
+			for (int i = 0; i < 20; i++) {
+				final serverObjects pattern = pattern(template, random);
+				pattern.put("f", "inc.template");
+				pattern.put("a", Integer.toString(i % 4 - 1));
+				pattern.put("l", Integer.toString(i % 3));
+				assertSameOutput(file, pattern, DIR);
+			}
+		}
+
+		// selection of an alternative by name is left to the template engine
+		final File file = new File(DIR, "byname.html");
+		Files.write(file.toPath(), "#(a)#%%x::zero%%y::one#(/a)#".getBytes(StandardCharsets.UTF_8));
+		final serverObjects pattern = new serverObjects();
+		pattern.put("a", "y");
+		assertSameOutput(file, pattern, DIR);
+		assertTrue(!CompiledTemplate.get(file).isCompiled());
+	}
+
+	/**
+	 * All templates of the web interface must be compiled and written as by the template engine.
+	 */
+	@Test
+	public void testHtrootTemplates() throws IOException {
+		final File htroot = new File("htroot");
+		final Random random = new Random(1);
+		int n = 0;
+		for (final File file : htroot.listFiles()) {
+			if (!file.getName().endsWith(".html")) continue;
+			final byte[] template = Files.readAllBytes(file.toPath());
+			assertTrue(file.getName(), CompiledTemplate.get(file).isCompiled());
+			for (int i = 0; i < 3; i++) {
+				assertSameOutput(file, pattern(template, random), htroot);
+			}
+			n++;
+		}
+		assertTrue(n > 50);
+	}
+
+	/**
+	 * A modified template must be compiled again.
+	 */
+	@Test
+	public void testModifiedTemplate() throws IOException {
+		final File file = new File(DIR, "modified.html");
+		final serverObjects pattern = new serverObjects();
+		pattern.put("v", "value");
+		Files.write(file.toPath(), "a #[v]#".getBytes(StandardCharsets.UTF_8));
+		assertEquals("a value", new String(compiled(file, pattern, null), StandardCharsets.UTF_8));
+		Files.write(file.toPath(), "b #[v]# b".getBytes(StandardCharsets.UTF_8));
+		assertEquals("b value b", new String(compiled(file, pattern, null), StandardCharsets.UTF_8));
+		assertEquals(1, CompiledTemplate.size());
+	}
+}